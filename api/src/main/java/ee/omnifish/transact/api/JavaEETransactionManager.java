@@ -344,6 +344,8 @@ public interface JavaEETransactionManager extends TransactionManager {
 
     /**
      * Returns the value to be used to purge transaction tasks after the specified number of cancelled tasks
+     * <p>
+     * Local transaction timeouts no longer need purging, as a cancelled timeout is removed immediately.
      */
     int getPurgeCancelledTtransactionsAfter();
 
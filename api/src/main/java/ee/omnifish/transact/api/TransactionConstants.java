@@ -24,4 +24,11 @@ public interface TransactionConstants {
     // 123456 as a return value. LAO resource'd prepare method returns this value
     int LAO_PREPARE_OK = 123456;
 
+    /**
+     * Key of the {@link jakarta.transaction.TransactionSynchronizationRegistry} resource which, when set to
+     * {@link Boolean#TRUE} before commit, makes the commit of the transaction return only once all participants have
+     * committed, even when the asynchronous second phase of two phase commit is enabled.
+     */
+    String STRICT_COMPLETION = "ee.omnifish.transact.strictCompletion";
+
 }
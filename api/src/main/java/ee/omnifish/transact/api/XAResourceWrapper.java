@@ -93,4 +93,14 @@ public abstract class XAResourceWrapper implements XAResource {
      */
 
     public abstract XAResourceWrapper getInstance();
+
+    /**
+     * Returns a key which identifies the resource manager of this wrapper during recovery, as the wrappers do not
+     * support {@link #isSameRM}. Wrappers of the same class with equal keys are recovered only once.
+     *
+     * @return the key of the resource manager, or null if it is not known
+     */
+    public Object getResourceManagerKey() {
+        return null;
+    }
 }
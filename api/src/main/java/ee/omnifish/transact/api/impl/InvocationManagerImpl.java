@@ -13,32 +13,10 @@ public class InvocationManagerImpl implements InvocationManager {
     // The ArrayList contains ComponentInvocation objects which represent
     // the stack of invocations on this thread. Accesses to the ArrayList
     // dont need to be synchronized because each thread has its own ArrayList.
-    private InheritableThreadLocal<InvocationArray<ComponentInvocation>> frames;
-
-    public InvocationManagerImpl() {
-        frames = new InheritableThreadLocal<>() {
-            @Override
-            protected InvocationArray<ComponentInvocation> initialValue() {
-                return new InvocationArray<>();
-            }
-
-            // If this is a thread created by user in a servlet's service method
-            // create a new ComponentInvocation with transaction set to null and
-            // instance set to null so that the resource won't be enlisted or registered
-            @Override
-            protected InvocationArray<ComponentInvocation> childValue(InvocationArray<ComponentInvocation> parentValue) {
-                // Always creates a new ArrayList
-                InvocationArray<ComponentInvocation> result = new InvocationArray<>();
-                InvocationArray<ComponentInvocation> v = parentValue;
-                if (v.size() > 0 && v.outsideStartup()) {
-                    // Get current invocation
-                    ComponentInvocation parentInv = v.get(v.size() - 1);
-                }
-
-                return result;
-            }
-        };
-    }
+    // It is not inheritable: a thread created by user code in a component starts
+    // with an empty stack, so that resources won't be enlisted or registered, and
+    // creating a thread does not allocate a stack it may never use.
+    private final ThreadLocal<InvocationArray<ComponentInvocation>> frames = ThreadLocal.withInitial(InvocationArray::new);
 
     /**
      * return true iff no invocations on the stack for this thread
@@ -32,4 +32,13 @@ public interface TransactionInternal extends Transaction {
      * @param synchronization - the Synchronization instance.
      */
     void registerInterposedSynchronization(Synchronization synchronization) throws RollbackException, IllegalStateException, SystemException;
+
+    /**
+     * Requires the commit of this transaction to return only once all participants have committed, even when the
+     * transaction manager completes the second phase of two phase commit in the background.
+     *
+     * @see ee.omnifish.transact.api.TransactionConstants#STRICT_COMPLETION
+     */
+    default void requireStrictCompletion() {
+    }
 }
@@ -61,4 +61,15 @@ public interface TransactionalResource {
      * @throws IllegalStateException when unable to enlist the resource
      */
     void enlistedInTransaction(Transaction tran) throws IllegalStateException;
+
+    /**
+     * Returns a key which identifies the resource manager of the XAResource of this resource, such as the name of the
+     * database it connects to. XAResource objects of the same class with equal keys are treated as belonging to the same
+     * resource manager without calling {@link XAResource#isSameRM}.
+     *
+     * @return the key of the resource manager, or null to compare XAResource objects with isSameRM
+     */
+    default Object getResourceManagerKey() {
+        return null;
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package ee.omnifish.transact.jta.cdi;
+
+import static ee.omnifish.transact.jta.cdi.TransactionScopedContextImpl.TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.lang.reflect.Proxy;
+import java.util.Hashtable;
+
+import javax.naming.Context;
+import javax.naming.NameNotFoundException;
+import javax.naming.spi.InitialContextFactory;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerSimplifiedDelegate;
+import ee.omnifish.transact.jta.transaction.TransactionSynchronizationRegistryImpl;
+
+import jakarta.enterprise.context.spi.Contextual;
+import jakarta.enterprise.context.spi.CreationalContext;
+import jakarta.enterprise.inject.spi.PassivationCapable;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what the client proxy of a TransactionScoped bean does on every method call, which is to ask the
+ * TransactionScopedContextImpl whether it is active and for the instance of the current transaction.
+ * <p>
+ * The TransactionSynchronizationRegistry is bound in a minimal JNDI context, so the measurement does not include the
+ * cost of a lookup in the naming service of a server. The transaction is begun before each iteration and committed
+ * after it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionScopedBenchmark {
+
+    static TransactionSynchronizationRegistry registry;
+
+    private JavaEETransactionManagerImpl txManager;
+    private TransactionScopedContextImpl context;
+    private Contextual<Object> bean;
+
+    /**
+     * Binds the registry of the benchmark under its name in java:comp.
+     */
+    public static class RegistryContextFactory implements InitialContextFactory {
+
+        @Override
+        public Context getInitialContext(Hashtable<?, ?> environment) {
+            return (Context) Proxy.newProxyInstance(Context.class.getClassLoader(), new Class<?>[] { Context.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                case "lookup":
+                    if (TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME.equals(args[0])) {
+                        return registry;
+                    }
+                    throw new NameNotFoundException(String.valueOf(args[0]));
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+
+    /**
+     * A TransactionScoped bean.
+     */
+    static final class Bean implements Contextual<Object>, PassivationCapable {
+
+        @Override
+        public Object create(CreationalContext<Object> creationalContext) {
+            return new Object();
+        }
+
+        @Override
+        public void destroy(Object instance, CreationalContext<Object> creationalContext) {
+        }
+
+        @Override
+        public String getId() {
+            return "TransactionScopedBenchmark.Bean";
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        System.setProperty(Context.INITIAL_CONTEXT_FACTORY, RegistryContextFactory.class.getName());
+
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerSimplifiedDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+        registry = new TransactionSynchronizationRegistryImpl(txManager);
+
+        context = new TransactionScopedContextImpl();
+        bean = new Bean();
+    }
+
+    @Setup(Level.Iteration)
+    public void begin() throws Exception {
+        txManager.begin();
+        context.get(bean, null);
+    }
+
+    @TearDown(Level.Iteration)
+    public void commit() throws Exception {
+        txManager.commit();
+    }
+
+    @Benchmark
+    public Object access() {
+        if (!context.isActive()) {
+            throw new IllegalStateException();
+        }
+
+        return context.get(bean);
+    }
+}
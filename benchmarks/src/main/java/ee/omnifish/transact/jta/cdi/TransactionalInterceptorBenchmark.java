@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.cdi;
+
+import static ee.omnifish.transact.jta.cdi.TransactionalInterceptorBase.CDI_JTA_LOGGER_SUBSYSTEM_NAME;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.logging.Level.WARNING;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerSimplifiedDelegate;
+
+import jakarta.interceptor.InvocationContext;
+import jakarta.transaction.Transactional;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of the TransactionalInterceptorRequired around a method which does nothing, against beginning
+ * and committing the same local transaction directly.
+ * <p>
+ * The interceptor is given the transaction manager through its test hook, so no naming service or invocation manager
+ * is involved. Its logger is raised to WARNING, as the console output of its INFO messages would otherwise be measured.
+ * Use the -t option of JMH to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class TransactionalInterceptorBenchmark {
+
+    // Keeps the configured logger from being garbage collected together with its level
+    private Logger logger;
+
+    private JavaEETransactionManagerImpl txManager;
+    private TransactionalInterceptorRequired interceptor;
+    private Bean bean;
+
+    /**
+     * The target of the intercepted invocations.
+     */
+    public static class Bean {
+
+        @Transactional
+        public Object work() {
+            return this;
+        }
+    }
+
+    /**
+     * The invocation of {@link Bean#work()} for one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Invocation implements InvocationContext {
+        Bean target;
+        Method method;
+        Map<String, Object> contextData = new HashMap<>();
+
+        @Setup
+        public void setUp(TransactionalInterceptorBenchmark benchmark) throws NoSuchMethodException {
+            target = benchmark.bean;
+            method = Bean.class.getMethod("work");
+        }
+
+        @Override
+        public Object getTarget() {
+            return target;
+        }
+
+        @Override
+        public Object getTimer() {
+            return null;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Constructor<?> getConstructor() {
+            return null;
+        }
+
+        @Override
+        public Object[] getParameters() {
+            return new Object[0];
+        }
+
+        @Override
+        public void setParameters(Object[] params) {
+        }
+
+        @Override
+        public Map<String, Object> getContextData() {
+            return contextData;
+        }
+
+        @Override
+        public Object proceed() throws Exception {
+            return target.work();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        logger = Logger.getLogger(CDI_JTA_LOGGER_SUBSYSTEM_NAME);
+        logger.setLevel(WARNING);
+
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerSimplifiedDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+
+        TransactionalInterceptorBase.setTestTransactionManager(txManager);
+        interceptor = new TransactionalInterceptorRequired();
+        bean = new Bean();
+    }
+
+    @Benchmark
+    public Object direct() throws Exception {
+        txManager.begin();
+        try {
+            return bean.work();
+        } finally {
+            txManager.commit();
+        }
+    }
+
+    @Benchmark
+    public Object required(Invocation invocation) throws Exception {
+        return interceptor.transactional(invocation);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.transaction;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static javax.transaction.xa.XAResource.TMSUCCESS;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jts.InMemoryResourceHandle;
+import ee.omnifish.transact.jts.InMemoryXAResource;
+
+import jakarta.transaction.Transaction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures local transactions of the JavaEETransactionManagerImpl with the simplified delegate: begin followed by commit
+ * or rollback, on their own and with one non-XA resource enlisted and delisted in between.
+ * <p>
+ * Use the -t option of JMH to change the number of threads, and -prof gc to see the allocation per transaction.
+ * <p>
+ * The main method of this class measures beginCommit on 1 to 64 threads, to show how begin and commit scale with the
+ * number of threads:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar ee.omnifish.transact.jta.transaction.LocalTransactionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class LocalTransactionBenchmark {
+
+    private static final int MAX_THREADS = 64;
+
+    private JavaEETransactionManagerImpl txManager;
+
+    /**
+     * The non-XA resource used by one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Resource {
+        InMemoryResourceHandle handle = new InMemoryResourceHandle(new InMemoryXAResource(), false);
+    }
+
+    @Setup
+    public void setUp() {
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerSimplifiedDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+    }
+
+    /**
+     * Runs beginCommit on 1, 2, 4 and so on up to 64 threads and prints the throughput of each run.
+     *
+     * @param args Further options for JMH, for example -wi 2 -i 3 -prof gc.
+     *
+     * @throws Exception JMH failed.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<Integer, Result<?>> results = new TreeMap<>();
+        for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .parent(new CommandLineOptions(args))
+                    .include(LocalTransactionBenchmark.class.getName() + ".beginCommit$")
+                    .threads(threads)
+                    .build();
+            for (RunResult result : new Runner(options).run()) {
+                results.put(threads, result.getPrimaryResult());
+            }
+        }
+
+        System.out.println();
+        System.out.println("threads  beginCommit");
+        results.forEach((threads, result) -> System.out.printf("%7d  %s%n", threads, result));
+    }
+
+    @Benchmark
+    public void beginCommit() throws Exception {
+        txManager.begin();
+        txManager.commit();
+    }
+
+    @Benchmark
+    public void beginRollback() throws Exception {
+        txManager.begin();
+        txManager.rollback();
+    }
+
+    @Benchmark
+    public void beginCommitNonXA(Resource resource) throws Exception {
+        txManager.begin();
+        Transaction tx = txManager.getTransaction();
+        txManager.enlistResource(tx, resource.handle);
+        txManager.delistResource(tx, resource.handle, TMSUCCESS);
+        txManager.commit();
+    }
+
+    @Benchmark
+    public void beginRollbackNonXA(Resource resource) throws Exception {
+        txManager.begin();
+        Transaction tx = txManager.getTransaction();
+        txManager.enlistResource(tx, resource.handle);
+        txManager.delistResource(tx, resource.handle, TMSUCCESS);
+        txManager.rollback();
+    }
+}
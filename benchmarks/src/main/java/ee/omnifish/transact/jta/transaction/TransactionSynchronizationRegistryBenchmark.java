@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.transaction;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures putResource and getResource of the TransactionSynchronizationRegistryImpl on a local transaction which
+ * already holds a number of resources. putResource replaces the value of one of them.
+ * <p>
+ * Every benchmark thread runs its own transaction for the length of an iteration. Use the -t option of JMH to change
+ * the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class TransactionSynchronizationRegistryBenchmark {
+
+    @Param({ "1", "16" })
+    int resources;
+
+    private JavaEETransactionManagerImpl txManager;
+    private TransactionSynchronizationRegistryImpl registry;
+
+    /**
+     * The transaction of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Transaction {
+        Object[] keys;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void begin(TransactionSynchronizationRegistryBenchmark benchmark) throws Exception {
+            benchmark.txManager.begin();
+            keys = new Object[benchmark.resources];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = "key-" + i;
+                benchmark.registry.putResource(keys[i], i);
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void rollback(TransactionSynchronizationRegistryBenchmark benchmark) throws Exception {
+            benchmark.txManager.rollback();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerSimplifiedDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+        registry = new TransactionSynchronizationRegistryImpl(txManager);
+    }
+
+    @Benchmark
+    public void putResource(Transaction transaction) {
+        Object key = transaction.keys[transaction.next++ % resources];
+        registry.putResource(key, key);
+    }
+
+    @Benchmark
+    public Object getResource(Transaction transaction) {
+        return registry.getResource(transaction.keys[transaction.next++ % resources]);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.transaction.xa.XAResource.TMSUCCESS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.Xid;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+import ee.omnifish.transact.jts.CosTransactions.Configuration;
+
+import jakarta.transaction.Transaction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of the two phase commit of global transactions with two in-memory XA resources, one of which
+ * takes the given time to commit, with and without the asynchronous second phase. The commit decision is forced to a
+ * log in a temporary directory. The percentiles of the sample show the effect of the slow participant on the callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class AsyncCommitBenchmark {
+
+    @Param({ "false", "true" })
+    boolean asyncCommit;
+
+    @Param({ "2" })
+    long commitMillis;
+
+    private Path directory;
+    private JavaEETransactionManagerImpl txManager;
+
+    /**
+     * The resources used by one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Resources {
+        InMemoryResourceHandle fast;
+        InMemoryResourceHandle slow;
+
+        @Setup
+        public void setUp(AsyncCommitBenchmark benchmark) {
+            fast = new InMemoryResourceHandle(new InMemoryXAResource(), true);
+            slow = new InMemoryResourceHandle(new SlowXAResource(MILLISECONDS.toNanos(benchmark.commitMillis)), true);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("txlog");
+
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.LOG_DIRECTORY, directory.toString());
+        properties.setProperty(Configuration.ASYNC_COMMIT, Boolean.toString(asyncCommit));
+        Configuration.setProperties(properties);
+
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerJTSDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+
+        // The first global transaction initialises JTS as a server without a persistent identity. Make it
+        // recoverable afterwards, so that the commit decision is forced to the log.
+
+        InMemoryResourceHandle handle = new InMemoryResourceHandle(new InMemoryXAResource(), true);
+        txManager.begin();
+        txManager.enlistResource(txManager.getTransaction(), handle);
+        txManager.delistResource(txManager.getTransaction(), handle, TMSUCCESS);
+        txManager.commit();
+        Configuration.setServerName("benchmark", true);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void commit(Resources resources) throws Exception {
+        txManager.begin();
+        Transaction tx = txManager.getTransaction();
+        txManager.enlistResource(tx, resources.fast);
+        txManager.enlistResource(tx, resources.slow);
+        txManager.delistResource(tx, resources.fast, TMSUCCESS);
+        txManager.delistResource(tx, resources.slow, TMSUCCESS);
+        txManager.commit();
+    }
+
+    /**
+     * A resource manager which takes a fixed time to commit a transaction branch.
+     */
+    static class SlowXAResource extends InMemoryXAResource {
+        private final long commitNanos;
+
+        SlowXAResource(long commitNanos) {
+            this.commitNanos = commitNanos;
+        }
+
+        @Override
+        public void commit(Xid xid, boolean onePhase) throws XAException {
+            LockSupport.parkNanos(commitNanos);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.omg.CORBA.ORB;
+import org.omg.CosTransactions.ResourceHelper;
+import org.omg.PortableServer.POA;
+import org.omg.PortableServer.POAHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the formatting of the record which a CoordinatorLog rewrites during a keypoint, for a transaction with the
+ * given number of remote participants, each with a real IOR of the ORB: in the binary format, and in the unversioned
+ * format with stringified IORs which the CoordinatorLog wrote before.
+ * <p>
+ * The sizes of both records are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-opens=java.base/java.io=ALL-UNNAMED", "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED" })
+public class CoordinatorLogBenchmark {
+
+    private static final Logger GMBAL_LOGGER = Logger.getLogger("org.glassfish.gmbal");
+
+    private static final String SECTION_NAME = "RR";
+
+    @Param({ "1", "8" })
+    int participantCount;
+
+    private ORB orb;
+    private CoordinatorLog coordinatorLog;
+    private String[] objRefStrs;
+    private byte[] globalTID;
+
+    @Setup
+    public void setUp() throws Exception {
+        // The ORB falls back to running without its MBeans, which it reports on every start.
+        GMBAL_LOGGER.setLevel(Level.SEVERE);
+
+        Properties properties = new Properties();
+        properties.setProperty("org.omg.CORBA.ORBClass", "com.sun.corba.ee.impl.orb.ORBImpl");
+        orb = ORB.init(new String[0], properties);
+        Configuration.setORB(orb);
+
+        POA rootPOA = POAHelper.narrow(orb.resolve_initial_references("RootPOA"));
+
+        coordinatorLog = new CoordinatorLog();
+        coordinatorLog.localTID = 1L;
+        Object section = coordinatorLog.createSection(SECTION_NAME);
+        objRefStrs = new String[participantCount];
+        for (int i = 0; i < participantCount; i++) {
+            org.omg.CORBA.Object participant = rootPOA.create_reference(ResourceHelper.id());
+            coordinatorLog.addObject(section, participant);
+            objRefStrs[i] = orb.object_to_string(participant);
+        }
+
+        globalTID = new byte[64];
+        coordinatorLog.addData(coordinatorLog.createSection("TS"), globalTID);
+
+        System.out.println("Record of " + participantCount + " participants: " + binaryFormat().length + " bytes, previously "
+                + unversionedFormat().length + " bytes");
+    }
+
+    @TearDown
+    public void tearDown() {
+        Configuration.setORB(null);
+        orb.destroy();
+    }
+
+    @Benchmark
+    public byte[] binaryFormat() {
+        return coordinatorLog.formatRecord(true);
+    }
+
+    /**
+     * Formats the same record as the CoordinatorLog did before, into a stream which is copied into the record.
+     */
+    @Benchmark
+    public byte[] unversionedFormat() throws IOException {
+        ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(2000);
+        DataOutputStream dataOutput = new DataOutputStream(byteOutput);
+        dataOutput.writeLong(1L);
+        dataOutput.writeShort(2);
+
+        dataOutput.writeShort(SECTION_NAME.length());
+        dataOutput.writeShort(objRefStrs.length);
+        dataOutput.writeShort(0);
+        dataOutput.writeBytes(SECTION_NAME);
+        for (String objRefStr : objRefStrs) {
+            dataOutput.writeShort(objRefStr.length());
+            dataOutput.writeBytes(objRefStr);
+        }
+
+        dataOutput.writeShort(2);
+        dataOutput.writeShort(0);
+        dataOutput.writeShort(1);
+        dataOutput.writeBytes("TS");
+        dataOutput.writeShort(globalTID.length);
+        dataOutput.write(globalTID);
+
+        return byteOutput.toByteArray();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.nio.ByteBuffer;
+import java.util.Hashtable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the registry traffic of global transactions, one add, two lookups and one remove per transaction, on many
+ * threads at once, for the CoordinatorRegistry of the RecoveryManager and the pair of Hashtables it used before.
+ * <p>
+ * The registries are prefilled with a number of in-flight transactions. Use the -t option of JMH to change the number
+ * of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class CoordinatorRegistryBenchmark {
+
+    private static final int TRANSACTIONS_PER_THREAD = 1024;
+
+    @Param({ "100", "10000" })
+    int inFlight;
+
+    private Hashtable<GlobalTID, CoordinatorImpl> hashtableByGlobalTID;
+    private Hashtable<Long, CoordinatorImpl> hashtableByLocalTID;
+    private CoordinatorRegistry registry;
+
+    private final AtomicLong tids = new AtomicLong();
+
+    /**
+     * The transactions run by one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Transactions {
+        GlobalTID[] globalTIDs = new GlobalTID[TRANSACTIONS_PER_THREAD];
+        Long[] localTIDs = new Long[TRANSACTIONS_PER_THREAD];
+        CoordinatorImpl coord = new TopCoordinator();
+        int next;
+
+        @Setup
+        public void setUp(CoordinatorRegistryBenchmark benchmark) {
+            for (int i = 0; i < TRANSACTIONS_PER_THREAD; i++) {
+                long tid = benchmark.tids.incrementAndGet();
+                globalTIDs[i] = globalTID(tid);
+                localTIDs[i] = tid;
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        hashtableByGlobalTID = new Hashtable<>();
+        hashtableByLocalTID = new Hashtable<>();
+        registry = new CoordinatorRegistry();
+
+        CoordinatorImpl coord = new TopCoordinator();
+        for (int i = 0; i < inFlight; i++) {
+            long tid = tids.incrementAndGet();
+            hashtableByGlobalTID.put(globalTID(tid), coord);
+            hashtableByLocalTID.put(tid, coord);
+            registry.add(globalTID(tid), tid, coord);
+        }
+    }
+
+    @Benchmark
+    public CoordinatorImpl hashtable(Transactions transactions) {
+        int i = transactions.next++ & (TRANSACTIONS_PER_THREAD - 1);
+        GlobalTID globalTID = transactions.globalTIDs[i];
+        Long localTID = transactions.localTIDs[i];
+
+        hashtableByGlobalTID.put(globalTID, transactions.coord);
+        hashtableByLocalTID.put(localTID, transactions.coord);
+        hashtableByGlobalTID.get(globalTID);
+        hashtableByLocalTID.get(localTID);
+        hashtableByGlobalTID.remove(globalTID);
+        return hashtableByLocalTID.remove(localTID);
+    }
+
+    @Benchmark
+    public CoordinatorImpl registry(Transactions transactions) {
+        int i = transactions.next++ & (TRANSACTIONS_PER_THREAD - 1);
+        GlobalTID globalTID = transactions.globalTIDs[i];
+        Long localTID = transactions.localTIDs[i];
+
+        registry.add(globalTID, localTID, transactions.coord);
+        registry.get(globalTID);
+        registry.getLocal(localTID);
+        return registry.remove(globalTID, localTID);
+    }
+
+    /**
+     * Creates a global identifier laid out as TransactionState generates them: the local identifier, an epoch and the
+     * server name.
+     */
+    static GlobalTID globalTID(long tid) {
+        byte[] serverName = "benchmark-server".getBytes(US_ASCII);
+        ByteBuffer data = ByteBuffer.allocate(8 + serverName.length).order(LITTLE_ENDIAN);
+        data.putInt((int) tid).putInt(0x5F3A2B1C).put(serverName);
+        return new GlobalTID(TransactionState.XID_FORMAT_ID, 0, data.array());
+    }
+}
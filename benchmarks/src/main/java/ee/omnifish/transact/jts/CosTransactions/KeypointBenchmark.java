@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of completing a transaction which has written to the log of a server with the given number of
+ * other transactions in flight, each of which a keypoint has to rewrite.
+ * <p>
+ * With "inline", every transaction which reaches the keypoint trigger takes the keypoint itself, as CoordinatorLog.removeLog
+ * did before. With "background", the keypoint thread takes it. The percentiles of the sample show the latency spikes
+ * which the keypoints cause. The keypoint statistics are printed at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeypointBenchmark {
+
+    private static final int KEYPOINT_TRIGGER = 100;
+
+    @Param({ "inline", "background" })
+    String keypointing;
+
+    @Param({ "1000" })
+    int activeCount;
+
+    private Path directory;
+    private final AtomicLong nextTID = new AtomicLong(1);
+    private final byte[] data = new byte[256];
+    private int completed;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("txlog");
+
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.LOG_DIRECTORY, directory.toString());
+        Configuration.setProperties(properties);
+        Configuration.setServerName("benchmark", false);
+
+        CoordinatorLog.setKeypointTrigger(keypointing.equals("inline") ? 0 : KEYPOINT_TRIGGER);
+
+        for (int i = 0; i < activeCount; i++) {
+            begin();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.println("Keypoints " + AdminUtil.getKeypointCount() + ", longest " + AdminUtil.getMaxKeypointDuration() + " ms, total "
+                + AdminUtil.getTotalKeypointDuration() + " ms, released " + AdminUtil.getKeypointBytesReclaimed() + " bytes");
+
+        CoordinatorLog.finalizeAll();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * Writes the state of a new transaction to the log, and completes it.
+     */
+    @Benchmark
+    public void complete() {
+        Long localTID = begin();
+        CoordinatorLog.removeLog(localTID);
+
+        if (keypointing.equals("inline") && ++completed % KEYPOINT_TRIGGER == 0) {
+            CoordinatorLog.keypoint();
+        }
+    }
+
+    private Long begin() {
+        Long localTID = nextTID.getAndIncrement();
+        CoordinatorLog coordinatorLog = CoordinatorLogPool.getCoordinatorLog();
+        coordinatorLog.setLocalTID(localTID);
+        coordinatorLog.addData(coordinatorLog.createSection("TS"), data);
+        coordinatorLog.write(false);
+        return localTID;
+    }
+}
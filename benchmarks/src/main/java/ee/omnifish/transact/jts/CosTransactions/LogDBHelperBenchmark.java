@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the transaction log in a database, one insert when the transaction prepares and one delete when it completes,
+ * on many threads at once, with and without batching. The log table lives in an embedded H2 database in a temporary
+ * directory, reached through a connection pool as a server would.
+ * <p>
+ * Use the -t option of JMH to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class LogDBHelperBenchmark {
+
+    @Param({ "false", "true" })
+    boolean batching;
+
+    private Path directory;
+    private JdbcConnectionPool pool;
+    private LogDBHelper helper;
+    private byte[] globalTID;
+
+    private final AtomicLong tids = new AtomicLong();
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("txnlog");
+        pool = JdbcConnectionPool.create("jdbc:h2:file:" + directory.resolve("txnlog"), "sa", "");
+        pool.setMaxConnections(64);
+
+        Configuration.setServerName("benchmark-server", false);
+        helper = new LogDBHelper(pool, "benchmark-instance", batching);
+        helper.setServerName();
+
+        globalTID = CoordinatorRegistryBenchmark.globalTID(1).toTidBytes();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        helper.close();
+        pool.dispose();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean prepareAndComplete() {
+        long tid = tids.incrementAndGet();
+        if (!helper.addRecord(tid, globalTID)) {
+            throw new IllegalStateException("Failed to log transaction " + tid);
+        }
+        return helper.deleteRecord(tid);
+    }
+}
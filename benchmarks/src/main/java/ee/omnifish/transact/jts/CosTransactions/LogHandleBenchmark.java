@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures LogHandle.writeRecord on a log in a temporary directory, with the BUFFER write mode and with the FORCE write
+ * mode, which synchronises the log with the file system on every record.
+ * <p>
+ * The log is truncated regularly so that its size stays bounded, as the keypoints of a running server would do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogHandleBenchmark {
+
+    private static final int TRUNCATE_INTERVAL = 4096;
+
+    @Param({ "buffered", "forced" })
+    String writeMode;
+
+    @Param({ "256" })
+    int recordSize;
+
+    private Path directory;
+    private LogHandle handle;
+    private int mode;
+    private byte[] record;
+    private int written;
+
+    @Setup
+    public void setUp() throws IOException, LogException {
+        directory = Files.createTempDirectory("txlog");
+
+        LogControl logControl = new LogControl();
+        logControl.initLog(true, false, directory.toString());
+        handle = logControl.openFile("benchmark", reason -> { }, null, new boolean[] { true });
+
+        mode = writeMode.equals("forced") ? LogHandle.FORCE : LogHandle.BUFFER;
+        record = new byte[recordSize];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, LogException {
+        handle.closeFile(true);
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public LogLSN writeRecord() throws LogException {
+        LogLSN lsn = handle.writeRecord(record, LogFile.NORMAL, mode);
+        if (++written % TRUNCATE_INTERVAL == 0) {
+            handle.truncate(lsn, LogHandle.TAIL_NOT_INCLUSIVE);
+        }
+        return lsn;
+    }
+}
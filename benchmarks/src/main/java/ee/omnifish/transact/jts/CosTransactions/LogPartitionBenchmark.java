@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of transactions which force their state to the log from several threads, with the log split
+ * into the given number of partitions. With a single partition the forced writes of all threads queue on the same log
+ * file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LogPartitionBenchmark {
+
+    @Param({ "1", "4" })
+    int partitions;
+
+    private Path directory;
+    private final AtomicLong nextTID = new AtomicLong(1);
+    private final byte[] data = new byte[256];
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("txlog");
+
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.LOG_DIRECTORY, directory.toString());
+        properties.setProperty(Configuration.LOG_PARTITIONS, Integer.toString(partitions));
+        Configuration.setProperties(properties);
+        Configuration.setServerName("benchmark", false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        CoordinatorLog.finalizeAll();
+
+        // Closing a log without transactions deletes it with its directory.
+
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * Forces the state of a new transaction to the log, and completes it.
+     */
+    @Benchmark
+    public void commit() {
+        Long localTID = nextTID.getAndIncrement();
+        CoordinatorLog coordinatorLog = CoordinatorLogPool.getCoordinatorLog();
+        coordinatorLog.setLocalTID(localTID);
+        coordinatorLog.addData(coordinatorLog.createSection("TS"), data);
+        coordinatorLog.write(true);
+        CoordinatorLog.removeLog(localTID);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time restart recovery takes to replay a log holding the given number of transactions, of which the given
+ * percentage is in doubt and the rest has completed, and to reconstruct their coordinators with the given number of
+ * threads.
+ * <p>
+ * The log is written once. Completing a transaction only forgets it in memory and no keypoint is taken, so every
+ * iteration replays the same log. The in-doubt transactions are forgotten again after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecoveryReplayBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    int transactions;
+
+    @Param({ "10" })
+    int inDoubtPercent;
+
+    @Param({ "1", "4" })
+    int reconstructThreads;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("txlog");
+
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.LOG_DIRECTORY, directory.toString());
+        properties.setProperty(Configuration.RECOVERY_RECONSTRUCT_THREADS, Integer.toString(reconstructThreads));
+        Configuration.setProperties(properties);
+        Configuration.setServerName("benchmark", false);
+
+        CoordinatorLog.setKeypointTrigger(0);
+
+        int inDoubtInterval = 100 / inDoubtPercent;
+        for (long localTID = 1; localTID <= transactions; localTID++) {
+            CoordinatorLog coordinatorLog = CoordinatorLogPool.getCoordinatorLog();
+            coordinatorLog.setLocalTID(localTID);
+            coordinatorLog.addData(coordinatorLog.createSection("SI"), globalTID(localTID));
+            coordinatorLog.addData(coordinatorLog.createSection("TS"), state(TransactionState.STATE_PREPARED_SUCCESS));
+            coordinatorLog.write(false);
+
+            if (localTID % inDoubtInterval != 0) {
+                coordinatorLog.addData(coordinatorLog.createSection("TS"), state(TransactionState.STATE_COMMITTED));
+                coordinatorLog.write(false);
+            }
+
+            CoordinatorLog.removeLog(localTID);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void forgetInDoubt() {
+        for (long localTID = 1; localTID <= transactions; localTID++) {
+            CoordinatorLog.removeLog(localTID);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        CoordinatorLog.finalizeAll();
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * Replays the log and reconstructs the logged transactions, as RecoveryManager.recover does.
+     */
+    @Benchmark
+    public boolean recover() {
+        return LogReplay.reconstruct(CoordinatorLog.getLogged(), log -> new TopCoordinator().reconstruct(log));
+    }
+
+    private static byte[] globalTID(long localTID) {
+        return new GlobalTID(0x4A54, 0, ByteBuffer.allocate(16).putLong(localTID).putLong(~localTID).array()).toBytes();
+    }
+
+    private static byte[] state(int state) {
+        int bits = 1 << state;
+        return new byte[] { (byte) (bits >> 8), (byte) bits };
+    }
+}
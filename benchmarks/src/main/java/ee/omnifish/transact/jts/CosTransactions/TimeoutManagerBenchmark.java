@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Random;
+import java.util.Vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the TimeoutWheel used by the TimeoutManager and DelegatedTimeoutManager with the table scan they used before,
+ * for a given number of pending timeouts.
+ * <p>
+ * The scan benchmarks reproduce the previous implementation: a Hashtable of timeouts holding wall clock expiry times,
+ * all of which are compared with a new Date on every check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeoutManagerBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    int pendingTimeouts;
+
+    private Hashtable<Long, ScannedTimeout> table;
+    private TimeoutWheel wheel;
+    private long nextTID;
+
+    /**
+     * A timeout as kept by the table scan.
+     */
+    static final class ScannedTimeout {
+        Long localTID;
+        long expireTime;
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        table = new Hashtable<>();
+        wheel = new TimeoutWheel();
+
+        for (long tid = 0; tid < pendingTimeouts; tid++) {
+            int seconds = 60 + random.nextInt(600);
+
+            ScannedTimeout scanned = new ScannedTimeout();
+            scanned.localTID = tid;
+            scanned.expireTime = new Date().getTime() + seconds * 1000L;
+            table.put(scanned.localTID, scanned);
+
+            TimeoutInfo timeoutInfo = new TimeoutInfo();
+            timeoutInfo.localTID = tid;
+            timeoutInfo.timeoutType = TimeoutManager.ACTIVE_TIMEOUT;
+            wheel.add(timeoutInfo, seconds);
+        }
+
+        nextTID = pendingTimeouts;
+    }
+
+    @Benchmark
+    public Vector<ScannedTimeout> checkTimeoutsScan() {
+        Vector<ScannedTimeout> timedOut = null;
+
+        synchronized (table) {
+            Enumeration<ScannedTimeout> timeouts = table.elements();
+            while (timeouts.hasMoreElements()) {
+                ScannedTimeout timeout = timeouts.nextElement();
+                if (new Date().getTime() > timeout.expireTime) {
+                    if (timedOut == null) {
+                        timedOut = new Vector<>();
+                    }
+                    timedOut.addElement(timeout);
+                }
+            }
+        }
+
+        return timedOut;
+    }
+
+    @Benchmark
+    public Vector<TimeoutInfo> checkTimeoutsWheel() {
+        return wheel.expire();
+    }
+
+    @Benchmark
+    public boolean armAndCancelScan() {
+        ScannedTimeout scanned = new ScannedTimeout();
+        scanned.localTID = nextTID++;
+        scanned.expireTime = new Date().getTime() + 60_000L;
+        table.put(scanned.localTID, scanned);
+
+        return table.remove(scanned.localTID) != null;
+    }
+
+    @Benchmark
+    public boolean armAndCancelWheel() {
+        TimeoutInfo timeoutInfo = new TimeoutInfo();
+        timeoutInfo.localTID = nextTID++;
+        timeoutInfo.timeoutType = TimeoutManager.ACTIVE_TIMEOUT;
+        wheel.add(timeoutInfo, 60);
+
+        return wheel.remove(timeoutInfo);
+    }
+}
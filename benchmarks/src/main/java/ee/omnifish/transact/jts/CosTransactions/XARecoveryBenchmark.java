@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ee.omnifish.transact.jts.InMemoryXAResource;
+
+/**
+ * Measures one XA recovery pass over many resource managers which each report a few in-doubt branches of this server,
+ * rolling all of them back: one resource manager after another as RecoveryManager did before, and with the
+ * XARecoveryEngine.
+ * <p>
+ * Every call to a resource manager takes the given latency, which stands for the round trip to a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XARecoveryBenchmark {
+
+    private static final String SERVER_NAME = "benchmark-server";
+
+    @Param({ "32" })
+    int resourceCount;
+
+    @Param({ "4" })
+    int inDoubtPerResource;
+
+    @Param({ "2" })
+    int latencyMillis;
+
+    private List<XAResource> resources;
+
+    @Setup
+    public void setUp() {
+        resources = new ArrayList<>();
+        for (int i = 0; i < resourceCount; i++) {
+            resources.add(new RemoteXAResource(i));
+        }
+    }
+
+    @Benchmark
+    public int sequential() throws XAException {
+        int completed = 0;
+        for (XAResource xaResource : XARecoveryEngine.getUniqueRMs(Collections.enumeration(resources))) {
+            Xid[] inDoubtXids = RecoveryManager.getInDoubtXids(xaResource);
+            for (Xid inDoubtXid : inDoubtXids) {
+                xaResource.rollback(inDoubtXid);
+                completed++;
+            }
+        }
+
+        return completed;
+    }
+
+    @Benchmark
+    public int engine() {
+        List<XARecoveryEngine.InDoubtBranch> branches = XARecoveryEngine
+                .getInDoubtBranches(XARecoveryEngine.getUniqueRMs(Collections.enumeration(resources)), SERVER_NAME);
+        XARecoveryEngine.complete(branches, branch -> {
+            try {
+                branch.xaResource.rollback(branch.xid);
+            } catch (XAException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        return branches.size();
+    }
+
+    /**
+     * A resource manager reached over the network, which reports the same in-doubt branches on every scan.
+     */
+    final class RemoteXAResource extends InMemoryXAResource {
+        private final Xid[] inDoubtXids;
+
+        RemoteXAResource(int rm) {
+            inDoubtXids = new Xid[inDoubtPerResource];
+            for (int i = 0; i < inDoubtPerResource; i++) {
+                inDoubtXids[i] = new BranchXid(("gtrid-" + rm + "-" + i).getBytes(US_ASCII), (SERVER_NAME + rm).getBytes(US_ASCII));
+            }
+        }
+
+        @Override
+        public Xid[] recover(int flags) throws XAException {
+            roundTrip();
+            return inDoubtXids.clone();
+        }
+
+        @Override
+        public void rollback(Xid xid) throws XAException {
+            roundTrip();
+        }
+
+        private void roundTrip() {
+            LockSupport.parkNanos(MILLISECONDS.toNanos(latencyMillis));
+        }
+    }
+
+    static final class BranchXid implements Xid {
+        private final byte[] gtrid;
+        private final byte[] bqual;
+
+        BranchXid(byte[] gtrid, byte[] bqual) {
+            this.gtrid = gtrid;
+            this.bqual = bqual;
+        }
+
+        @Override
+        public int getFormatId() {
+            return TransactionState.XID_FORMAT_ID;
+        }
+
+        @Override
+        public byte[] getGlobalTransactionId() {
+            return gtrid;
+        }
+
+        @Override
+        public byte[] getBranchQualifier() {
+            return bqual;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static javax.transaction.xa.XAResource.TMSUCCESS;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+
+import jakarta.transaction.Transaction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures global transactions of the JTS delegate: begin, enlist and delist a number of in-memory XA resources, each a
+ * separate resource manager, and commit, which is a one phase commit for a single resource and a two phase commit
+ * otherwise.
+ * <p>
+ * Use the -t option of JMH to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class GlobalCommitBenchmark {
+
+    @Param({ "1", "2", "8" })
+    int resourceCount;
+
+    private JavaEETransactionManagerImpl txManager;
+
+    /**
+     * The resources used by one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Resources {
+        InMemoryResourceHandle[] handles;
+
+        @Setup
+        public void setUp(GlobalCommitBenchmark benchmark) {
+            handles = new InMemoryResourceHandle[benchmark.resourceCount];
+            for (int i = 0; i < handles.length; i++) {
+                handles[i] = new InMemoryResourceHandle(new InMemoryXAResource(), true);
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerJTSDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+    }
+
+    @Benchmark
+    public void commit(Resources resources) throws Exception {
+        txManager.begin();
+        enlistAndDelist(resources);
+        txManager.commit();
+    }
+
+    @Benchmark
+    public void rollback(Resources resources) throws Exception {
+        txManager.begin();
+        enlistAndDelist(resources);
+        txManager.rollback();
+    }
+
+    private void enlistAndDelist(Resources resources) throws Exception {
+        Transaction tx = txManager.getTransaction();
+        for (InMemoryResourceHandle handle : resources.handles) {
+            txManager.enlistResource(tx, handle);
+        }
+        for (InMemoryResourceHandle handle : resources.handles) {
+            txManager.delistResource(tx, handle, TMSUCCESS);
+        }
+    }
+}
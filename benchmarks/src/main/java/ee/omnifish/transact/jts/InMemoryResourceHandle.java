@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts;
+
+import javax.transaction.xa.XAResource;
+
+import ee.omnifish.transact.api.spi.TransactionalResource;
+
+import jakarta.transaction.Transaction;
+
+/**
+ * A TransactionalResource for an {@link InMemoryXAResource}, modelled on the TestResourceHandle of the jts tests. It
+ * presents either an XA resource or a non-XA resource, whose XAResource is then only used to start and end its local
+ * work.
+ * <p>
+ * The resource is not shareable, so every enlistment and delistment reaches its XAResource.
+ */
+public class InMemoryResourceHandle implements TransactionalResource {
+
+    private final XAResource resource;
+    private final boolean supportsXA;
+    private volatile boolean enlisted;
+
+    public InMemoryResourceHandle(XAResource resource, boolean supportsXA) {
+        this.resource = resource;
+        this.supportsXA = supportsXA;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    @Override
+    public boolean isShareable() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsXA() {
+        return supportsXA;
+    }
+
+    @Override
+    public XAResource getXAResource() {
+        return resource;
+    }
+
+    @Override
+    public void enlistedInTransaction(Transaction tran) throws IllegalStateException {
+        enlisted = true;
+    }
+
+    @Override
+    public boolean isEnlistmentSuspended() {
+        return false;
+    }
+
+    @Override
+    public Object getComponentInstance() {
+        return null;
+    }
+
+    @Override
+    public void setComponentInstance(Object instance) {
+    }
+
+    @Override
+    public void closeUserConnection() throws Exception {
+    }
+
+    @Override
+    public boolean isEnlisted() {
+        return enlisted;
+    }
+
+    @Override
+    public void destroyResource() {
+    }
+
+    @Override
+    public String getName() {
+        return null;
+    }
+}
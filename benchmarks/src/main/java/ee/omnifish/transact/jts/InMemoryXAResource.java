@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+/**
+ * An XAResource which keeps no state and does no work, modelled on the TestResource of the jts tests but without its
+ * console output, so that a benchmark measures only the transaction manager.
+ * <p>
+ * Every instance is a separate resource manager unless it is created with the identifier of another one.
+ */
+public class InMemoryXAResource implements XAResource {
+
+    private static final AtomicLong ids = new AtomicLong();
+
+    private final long id;
+
+    public InMemoryXAResource() {
+        this(ids.incrementAndGet());
+    }
+
+    public InMemoryXAResource(long id) {
+        this.id = id;
+    }
+
+    @Override
+    public void commit(Xid xid, boolean onePhase) throws XAException {
+    }
+
+    @Override
+    public void end(Xid xid, int flags) throws XAException {
+    }
+
+    @Override
+    public void forget(Xid xid) throws XAException {
+    }
+
+    @Override
+    public int getTransactionTimeout() throws XAException {
+        return 0;
+    }
+
+    @Override
+    public boolean isSameRM(XAResource xaResource) throws XAException {
+        return xaResource == this || xaResource instanceof InMemoryXAResource && id == ((InMemoryXAResource) xaResource).id;
+    }
+
+    @Override
+    public int prepare(Xid xid) throws XAException {
+        return XA_OK;
+    }
+
+    @Override
+    public Xid[] recover(int flags) throws XAException {
+        return new Xid[0];
+    }
+
+    @Override
+    public void rollback(Xid xid) throws XAException {
+    }
+
+    @Override
+    public boolean setTransactionTimeout(int seconds) throws XAException {
+        return true;
+    }
+
+    @Override
+    public void start(Xid xid, int flags) throws XAException {
+    }
+}
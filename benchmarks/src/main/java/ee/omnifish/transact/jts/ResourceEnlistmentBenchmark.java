@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static javax.transaction.xa.XAResource.TMSUCCESS;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerSimplifiedDelegate;
+
+import jakarta.transaction.Transaction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one enlistResource and delistResource pair of the JavaEETransactionManagerImpl on a transaction that stays
+ * open for the length of an iteration. With the simplified delegate the resource is a non-XA resource in a local
+ * transaction, with the JTS delegate it is an XA resource in a global transaction, whose branch is joined again on
+ * every enlistment.
+ * <p>
+ * Every benchmark thread runs its own transaction. Use the -t option of JMH to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ResourceEnlistmentBenchmark {
+
+    @Param({ "simplified", "jts" })
+    String delegate;
+
+    private JavaEETransactionManagerImpl txManager;
+
+    /**
+     * The transaction and resource of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Enlistment {
+        Transaction tx;
+        InMemoryResourceHandle handle;
+
+        @Setup(Level.Iteration)
+        public void begin(ResourceEnlistmentBenchmark benchmark) throws Exception {
+            handle = new InMemoryResourceHandle(new InMemoryXAResource(), benchmark.delegate.equals("jts"));
+            benchmark.txManager.begin();
+            tx = benchmark.txManager.getTransaction();
+        }
+
+        @TearDown(Level.Iteration)
+        public void rollback(ResourceEnlistmentBenchmark benchmark) throws Exception {
+            benchmark.txManager.rollback();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate transactionManagerDelegate = delegate.equals("jts")
+                ? new JavaEETransactionManagerJTSDelegate()
+                : new JavaEETransactionManagerSimplifiedDelegate();
+        txManager.setDelegate(transactionManagerDelegate);
+        transactionManagerDelegate.setTransactionManager(txManager);
+    }
+
+    @Benchmark
+    public boolean enlistDelist(Enlistment enlistment) throws Exception {
+        txManager.enlistResource(enlistment.tx, enlistment.handle);
+        return txManager.delistResource(enlistment.tx, enlistment.handle, TMSUCCESS);
+    }
+}
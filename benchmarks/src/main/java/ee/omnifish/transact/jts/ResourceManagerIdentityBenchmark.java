@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static javax.transaction.xa.XAResource.TMSUCCESS;
+
+import java.util.concurrent.locks.LockSupport;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+
+import jakarta.transaction.Transaction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a global transaction of the JTS delegate which enlists two connections of each of a number of resource
+ * managers and is rolled back. The connections are taken in turn from a pool per resource manager, as a connection pool
+ * would hand them out, and their XAResource takes the given time to answer isSameRM, as it would for a driver which asks
+ * the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class ResourceManagerIdentityBenchmark {
+
+    private static final int POOL_SIZE = 16;
+
+    @Param({ "1", "4" })
+    int resourceManagerCount;
+
+    @Param({ "50" })
+    long isSameRMMicros;
+
+    private JavaEETransactionManagerImpl txManager;
+    private InMemoryResourceHandle[][] pools;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerJTSDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+
+        pools = new InMemoryResourceHandle[resourceManagerCount][POOL_SIZE];
+        for (int i = 0; i < resourceManagerCount; i++) {
+            for (int j = 0; j < POOL_SIZE; j++) {
+                pools[i][j] = new InMemoryResourceHandle(new RemoteXAResource(i, MICROSECONDS.toNanos(isSameRMMicros)), true);
+            }
+        }
+    }
+
+    @Benchmark
+    public void enlistAndRollback() throws Exception {
+        txManager.begin();
+        Transaction tx = txManager.getTransaction();
+        for (int connection = 0; connection < 2; connection++) {
+            int slot = next++ % POOL_SIZE;
+            for (InMemoryResourceHandle[] pool : pools) {
+                txManager.enlistResource(tx, pool[slot]);
+                txManager.delistResource(tx, pool[slot], TMSUCCESS);
+            }
+        }
+        txManager.rollback();
+    }
+
+    /**
+     * An XAResource whose isSameRM takes the time of a round trip to its resource manager.
+     */
+    static class RemoteXAResource extends InMemoryXAResource {
+        private final long isSameRMNanos;
+
+        RemoteXAResource(long resourceManager, long isSameRMNanos) {
+            super(resourceManager);
+            this.isSameRMNanos = isSameRMNanos;
+        }
+
+        @Override
+        public boolean isSameRM(XAResource xaResource) throws XAException {
+            LockSupport.parkNanos(isSameRMNanos);
+            return super.isSameRM(xaResource);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.jtsxa;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.transaction.xa.XAResource;
+
+import org.omg.CORBA.ORB;
+import org.omg.CosTransactions.Resource;
+import org.omg.PortableServer.POA;
+import org.omg.PortableServer.POAHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ee.omnifish.transact.jts.InMemoryXAResource;
+import ee.omnifish.transact.jts.CosTransactions.Configuration;
+
+/**
+ * Measures the life of the OTSResource of one XA branch, from its creation for the first enlistment to its one phase
+ * commit, on an ORB with a transient POA: called directly as a plain Java participant, and called through a reference
+ * which activates the servant on the POA and deactivates it on completion, as branches were before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-opens=java.base/java.io=ALL-UNNAMED", "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED" })
+public class OTSResourceBenchmark {
+
+    private static final Logger GMBAL_LOGGER = Logger.getLogger("org.glassfish.gmbal");
+
+    private ORB orb;
+    private XID xid;
+    private XAResource xaResource;
+
+    @Setup
+    public void setUp() throws Exception {
+        // The ORB falls back to running without its MBeans, which it reports on every start.
+        GMBAL_LOGGER.setLevel(Level.SEVERE);
+
+        Properties properties = new Properties();
+        properties.setProperty("org.omg.CORBA.ORBClass", "com.sun.corba.ee.impl.orb.ORBImpl");
+        orb = ORB.init(new String[0], properties);
+
+        POA rootPOA = POAHelper.narrow(orb.resolve_initial_references("RootPOA"));
+        rootPOA.the_POAManager().activate();
+        Configuration.setORB(orb);
+        Configuration.setPOA("transient", rootPOA);
+
+        xid = new XID();
+        xid.setBranchQualifier("benchmark-server,1".getBytes(US_ASCII));
+        xaResource = new InMemoryXAResource();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Configuration.setORB(null);
+        orb.destroy();
+    }
+
+    @Benchmark
+    public void localParticipant() throws Exception {
+        Resource resource = new OTSResourceImpl(xid, xaResource, null);
+        resource.commit_one_phase();
+    }
+
+    @Benchmark
+    public void activatedReference() throws Exception {
+        Resource resource = new OTSResourceImpl(xid, xaResource, null).getCORBAObjReference();
+        resource.commit_one_phase();
+    }
+}
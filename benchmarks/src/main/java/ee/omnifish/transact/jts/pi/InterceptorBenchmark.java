@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.pi;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.lang.reflect.Proxy;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.omg.CORBA.Any;
+import org.omg.CORBA.LocalObject;
+import org.omg.CORBA.ORB;
+import org.omg.CosTSInteroperation.TAG_OTS_POLICY;
+import org.omg.CosTransactions.ADAPTS;
+import org.omg.CosTransactions.OTSPolicyValueHelper;
+import org.omg.IOP.Codec;
+import org.omg.IOP.CodecFactory;
+import org.omg.IOP.CodecFactoryHelper;
+import org.omg.IOP.ENCODING_CDR_ENCAPS;
+import org.omg.IOP.Encoding;
+import org.omg.IOP.TaggedComponent;
+import org.omg.PortableInterceptor.ClientRequestInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the client interceptor on outgoing requests to targets whose IOR carries an OTS policy component, encoded
+ * with the CDR encapsulation codec of the ORB.
+ * <p>
+ * With one target every request finds the policy in the cache. With more targets than the cache holds every request
+ * decodes the policy component, as the interceptor did on every request before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-opens=java.base/java.io=ALL-UNNAMED", "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED" })
+public class InterceptorBenchmark {
+
+    private static final Logger INTERCEPTOR_LOGGER = Logger.getLogger(InterceptorImpl.class.getName());
+    private static final Logger GMBAL_LOGGER = Logger.getLogger("org.glassfish.gmbal");
+
+    @Param({ "1", "4096" })
+    int targetCount;
+
+    private ORB orb;
+    private InterceptorImpl interceptor;
+    private ClientRequestInfo[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        INTERCEPTOR_LOGGER.setLevel(Level.SEVERE);
+
+        // The ORB falls back to running without its MBeans, which it reports on every start.
+        GMBAL_LOGGER.setLevel(Level.SEVERE);
+
+        Properties properties = new Properties();
+        properties.setProperty("org.omg.CORBA.ORBClass", "com.sun.corba.ee.impl.orb.ORBImpl");
+        orb = ORB.init(new String[0], properties);
+
+        CodecFactory codecFactory = CodecFactoryHelper.narrow(orb.resolve_initial_references("CodecFactory"));
+        Codec codec = codecFactory.create_codec(new Encoding(ENCODING_CDR_ENCAPS.value, (byte) 1, (byte) 2));
+
+        InterceptorImpl.setOrb(orb);
+        interceptor = new InterceptorImpl(null, codec, null, null);
+
+        Any policy = orb.create_any();
+        OTSPolicyValueHelper.insert(policy, ADAPTS.value);
+        TaggedComponent otsComponent = new TaggedComponent(TAG_OTS_POLICY.value, codec.encode_value(policy));
+
+        requests = new ClientRequestInfo[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            requests[i] = request(new LocalObject(), otsComponent);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("Target policy cache hits " + interceptor.getTargetPolicyCacheHits() + ", misses "
+                + interceptor.getTargetPolicyCacheMisses());
+        orb.destroy();
+    }
+
+    @Benchmark
+    public void sendRequest() throws Exception {
+        interceptor.send_request(requests[next++ % targetCount]);
+    }
+
+    /**
+     * Creates the information about a request to the given target, which supports only what send_request uses.
+     */
+    private static ClientRequestInfo request(org.omg.CORBA.Object target, TaggedComponent otsComponent) {
+        return (ClientRequestInfo) Proxy.newProxyInstance(ClientRequestInfo.class.getClassLoader(), new Class<?>[] { ClientRequestInfo.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "effective_target":
+                        return target;
+                    case "get_effective_component":
+                        return otsComponent;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -16,19 +16,13 @@
 
 package ee.omnifish.transact.jta.cdi;
 
-import static javax.naming.InitialContext.doLookup;
 import static ee.omnifish.transact.jta.cdi.TransactionScopedCDIUtil.DESTORYED_EVENT;
-import static ee.omnifish.transact.jta.cdi.TransactionScopedCDIUtil.log;
-import static ee.omnifish.transact.jta.cdi.TransactionScopedContextImpl.TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME;
 
 import java.util.Set;
 
-import javax.naming.NamingException;
-
 import jakarta.enterprise.context.spi.Contextual;
 import jakarta.enterprise.context.spi.CreationalContext;
 import jakarta.transaction.Synchronization;
-import jakarta.transaction.TransactionSynchronizationRegistry;
 
 /**
  * A wrapper for contextual instances of {@link jakarta.transaction.TransactionScoped} beans.
@@ -44,11 +38,30 @@ public class TransactionScopedBean<T> implements Synchronization {
     private Contextual<T> contextual;
     private CreationalContext<T> creationalContext;
     private TransactionScopedContextImpl transactionScopedContext;
+    private Object transactionKey;
 
+    /**
+     * Creates the contextual instance for the current transaction.
+     *
+     * @deprecated The context passes the key of the transaction, see
+     * {@link #TransactionScopedBean(Contextual, CreationalContext, TransactionScopedContextImpl, Object)}.
+     */
+    @Deprecated
     public TransactionScopedBean(Contextual<T> contextual, CreationalContext<T> creationalContext, TransactionScopedContextImpl transactionScopedContext) {
+        this(contextual, creationalContext, transactionScopedContext,
+                transactionScopedContext == null ? null : transactionScopedContext.getTransactionKey());
+    }
+
+    /**
+     * Creates the contextual instance for a transaction.
+     *
+     * @param transactionKey The key of the transaction, by which the context keeps the beans of the transaction.
+     */
+    public TransactionScopedBean(Contextual<T> contextual, CreationalContext<T> creationalContext, TransactionScopedContextImpl transactionScopedContext, Object transactionKey) {
         this.contextual = contextual;
         this.creationalContext = creationalContext;
         this.transactionScopedContext = transactionScopedContext;
+        this.transactionKey = transactionKey;
         contextualInstance = contextual.create(creationalContext);
     }
 
@@ -67,46 +80,28 @@ public class TransactionScopedBean<T> implements Synchronization {
     @Override
     public void afterCompletion(int i) {
         try {
-            TransactionSynchronizationRegistry transactionSynchronizationRegistry = getTransactionSynchronizationRegistry();
-            // We can't do "getResource" on TransactionSynchronizationRegistry at this stage in completion
-            if (transactionSynchronizationRegistry != null) {
-                if (transactionScopedContext != null) {
-                    // Get list of TransactionScopedBeans for this Transaction
-                    Set<TransactionScopedBean<?>> transactionScopedBeanSet =
-                        transactionScopedContext.beansPerTransaction.get(transactionSynchronizationRegistry);
+            // We can't do "getResource" on TransactionSynchronizationRegistry at this stage in completion,
+            // so the beans of the transaction are found by the transaction key taken when this bean was created
+            if (transactionScopedContext != null) {
+                // Get list of TransactionScopedBeans for this Transaction
+                Set<TransactionScopedBean<?>> transactionScopedBeanSet = transactionScopedContext.beansPerTransaction.get(transactionKey);
 
-                    if (transactionScopedBeanSet != null) {
-                        // Remove the current TransactionScopedBean from list as we are destroying it now
-                        if (transactionScopedBeanSet.contains(this)) {
-                            transactionScopedBeanSet.remove(this);
-                        }
+                if (transactionScopedBeanSet != null) {
+                    // Remove the current TransactionScopedBean from list as we are destroying it now
+                    if (transactionScopedBeanSet.contains(this)) {
+                        transactionScopedBeanSet.remove(this);
+                    }
 
-                        // If current TransactionScopedBean is last in list, fire destroyed event and remove transaction entry from main Map
-                        if (transactionScopedBeanSet.size() == 0) {
-                            TransactionScopedCDIUtil.fireEvent(DESTORYED_EVENT);
-                            transactionScopedContext.beansPerTransaction.remove(transactionSynchronizationRegistry);
-                        }
-                        // Not updating entry in main Map with leftover TransactionScopedBeans as it should happen by reference
+                    // If current TransactionScopedBean is last in list, fire destroyed event and remove transaction entry from main Map
+                    if (transactionScopedBeanSet.size() == 0) {
+                        TransactionScopedCDIUtil.fireEvent(DESTORYED_EVENT);
+                        transactionScopedContext.beansPerTransaction.remove(transactionKey);
                     }
+                    // Not updating entry in main Map with leftover TransactionScopedBeans as it should happen by reference
                 }
             }
-        } catch (NamingException ne) {
-            log("Can't get instance of TransactionSynchronizationRegistry to process TransactionScoped Destroyed CDI Event!");
-            ne.printStackTrace();
         } finally {
             contextual.destroy(contextualInstance, creationalContext);
         }
     }
-
-    private TransactionSynchronizationRegistry getTransactionSynchronizationRegistry() throws NamingException {
-        TransactionSynchronizationRegistry transactionSynchronizationRegistry;
-        try {
-            transactionSynchronizationRegistry = doLookup(TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME);
-        } catch (NamingException ne) {
-            throw ne;
-        }
-
-        // Not checking for transaction status, it would be 6, as its in afterCompletion
-        return transactionSynchronizationRegistry;
-    }
 }
@@ -23,6 +23,8 @@ import static jakarta.transaction.Status.STATUS_PREPARED;
 import static jakarta.transaction.Status.STATUS_PREPARING;
 import static jakarta.transaction.Status.STATUS_ROLLING_BACK;
 import static jakarta.transaction.Status.STATUS_UNKNOWN;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
 import static java.util.Collections.synchronizedSet;
 import static javax.naming.InitialContext.doLookup;
 import static ee.omnifish.transact.jta.cdi.TransactionScopedCDIUtil.INITIALIZED_EVENT;
@@ -66,16 +68,49 @@ public class TransactionScopedContextImpl implements Context {
 
     public static final String TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME = "java:comp/TransactionSynchronizationRegistry";
 
-    Map<TransactionSynchronizationRegistry, Set<TransactionScopedBean<?>>> beansPerTransaction;
+    /**
+     * The TransactionScopedBeans of each transaction, by the transaction key of the registry.
+     */
+    Map<Object, Set<TransactionScopedBean<?>>> beansPerTransaction;
+
+    // Looked up on first use rather than on every access to a bean. The context is created for each deployment, so a
+    // redeployed application looks the registry up again.
+    private volatile TransactionSynchronizationRegistry transactionSynchronizationRegistry;
 
     public TransactionScopedContextImpl() {
         beansPerTransaction = new ConcurrentHashMap<>();
     }
 
-    public Map<TransactionSynchronizationRegistry, Set<TransactionScopedBean<?>>> getBeansPerTransaction() {
+    /**
+     * @return the TransactionScopedBeans of each transaction, by the transaction key of the registry.
+     */
+    public Map<Object, Set<TransactionScopedBean<?>>> getBeansByTransactionKey() {
         return beansPerTransaction;
     }
 
+    /**
+     * @return the TransactionScopedBeans of the current transaction, by the TransactionSynchronizationRegistry, or an
+     * empty map if there is no transaction or it has no beans yet.
+     * @deprecated The registry is shared by all transactions, so the beans are kept by transaction key, see
+     * {@link #getBeansByTransactionKey()}.
+     */
+    @Deprecated
+    public Map<TransactionSynchronizationRegistry, Set<TransactionScopedBean<?>>> getBeansPerTransaction() {
+        TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+        try {
+            transactionSynchronizationRegistry = getTransactionSynchronizationRegistry();
+        } catch (ContextNotActiveException ignore) {
+            return emptyMap();
+        }
+
+        Set<TransactionScopedBean<?>> transactionScopedBeanSet = beansPerTransaction.get(transactionSynchronizationRegistry.getTransactionKey());
+        if (transactionScopedBeanSet == null) {
+            return emptyMap();
+        }
+
+        return singletonMap(transactionSynchronizationRegistry, transactionScopedBeanSet);
+    }
+
     @Override
     public Class<? extends Annotation> getScope() {
         return TransactionScoped.class;
@@ -117,6 +152,13 @@ public class TransactionScopedContextImpl implements Context {
         return false;
     }
 
+    /**
+     * @return the transaction key of the current transaction.
+     */
+    Object getTransactionKey() {
+        return getTransactionSynchronizationRegistry().getTransactionKey();
+    }
+
     private Object getContextualId(Contextual<?> contextual) {
         if (contextual instanceof PassivationCapable) {
             PassivationCapable passivationCapable = (PassivationCapable) contextual;
@@ -127,23 +169,22 @@ public class TransactionScopedContextImpl implements Context {
     }
 
     private <T> T createContextualInstance(Contextual<T> contextual, Object contextualId, CreationalContext<T> creationalContext, TransactionSynchronizationRegistry transactionSynchronizationRegistry) {
-        TransactionScopedBean<T> transactionScopedBean = new TransactionScopedBean<>(contextual, creationalContext, this);
+        Object transactionKey = transactionSynchronizationRegistry.getTransactionKey();
+        TransactionScopedBean<T> transactionScopedBean = new TransactionScopedBean<>(contextual, creationalContext, this, transactionKey);
         transactionSynchronizationRegistry.putResource(contextualId, transactionScopedBean);
         transactionSynchronizationRegistry.registerInterposedSynchronization(transactionScopedBean);
 
-        // Adding TransactionScopedBean as Set, per transactionSynchronizationRegistry, which is unique per transaction
-        // Setting synchronizedSet so that even is there are multiple transaction for an app its safe
-        Set<TransactionScopedBean<?>> transactionScopedBeanSet = beansPerTransaction.get(transactionSynchronizationRegistry);
-        if (transactionScopedBeanSet != null) {
-            transactionScopedBeanSet = synchronizedSet(transactionScopedBeanSet);
-        } else {
+        // Adding TransactionScopedBean as Set, per transaction key, which is unique per transaction
+        // Setting synchronizedSet so that even if beans of the transaction are created on several threads its safe
+        Set<TransactionScopedBean<?>> transactionScopedBeanSet = beansPerTransaction.get(transactionKey);
+        if (transactionScopedBeanSet == null) {
             transactionScopedBeanSet = synchronizedSet(new HashSet<>());
 
             // Fire this event only for the first initialization of context and not for every TransactionScopedBean in a Transaction
             TransactionScopedCDIUtil.fireEvent(INITIALIZED_EVENT);
 
-            // Adding transactionScopedBeanSet in Map for the first time for this transactionSynchronizationRegistry key
-            beansPerTransaction.put(transactionSynchronizationRegistry, transactionScopedBeanSet);
+            // Adding transactionScopedBeanSet in Map for the first time for this transaction key
+            beansPerTransaction.put(transactionKey, transactionScopedBeanSet);
         }
 
         transactionScopedBeanSet.add(transactionScopedBean);
@@ -163,11 +204,14 @@ public class TransactionScopedContextImpl implements Context {
     }
 
     private TransactionSynchronizationRegistry getTransactionSynchronizationRegistry() {
-        TransactionSynchronizationRegistry transactionSynchronizationRegistry;
-        try {
-            transactionSynchronizationRegistry = doLookup(TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME);
-        } catch (NamingException ne) {
-            throw new ContextNotActiveException("Could not get TransactionSynchronizationRegistry", ne);
+        TransactionSynchronizationRegistry transactionSynchronizationRegistry = this.transactionSynchronizationRegistry;
+        if (transactionSynchronizationRegistry == null) {
+            try {
+                transactionSynchronizationRegistry = doLookup(TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME);
+            } catch (NamingException ne) {
+                throw new ContextNotActiveException("Could not get TransactionSynchronizationRegistry", ne);
+            }
+            this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
         }
 
         int status = transactionSynchronizationRegistry.getTransactionStatus();
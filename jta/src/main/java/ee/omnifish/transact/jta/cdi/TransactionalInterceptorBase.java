@@ -33,13 +33,10 @@ import ee.omnifish.transact.api.InvocationManager;
 import ee.omnifish.transact.api.spi.ServiceLocator;
 import ee.omnifish.transact.api.spi.TransactionOperationsManager;
 
-import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
 import jakarta.interceptor.InvocationContext;
 import jakarta.transaction.SystemException;
 import jakarta.transaction.Transaction;
 import jakarta.transaction.TransactionManager;
-import jakarta.transaction.Transactional;
 
 /**
  * Base class for all interceptors providing common logic for exception handling, etc.
@@ -160,122 +157,21 @@ public class TransactionalInterceptorBase implements Serializable {
     }
 
     boolean isLifeCycleMethod(InvocationContext invocationContext) {
-        return
-            invocationContext.getMethod().getAnnotation(PostConstruct.class) != null ||
-            invocationContext.getMethod().getAnnotation(PreDestroy.class) != null;
+        return TransactionalMetadata.isLifeCycleMethod(invocationContext.getMethod());
     }
 
     public Object proceed(InvocationContext invocationContext) throws Exception {
-        Transactional transactionalAnnotation = invocationContext.getMethod().getAnnotation(Transactional.class);
-        Class<?>[] rollbackOn = null;
-        Class<?>[] dontRollbackOn = null;
-
-        if (transactionalAnnotation != null) { //if at method level
-            rollbackOn = transactionalAnnotation.rollbackOn();
-            dontRollbackOn = transactionalAnnotation.dontRollbackOn();
-        } else { //if not, at class level
-            Class<?> targetClass = invocationContext.getTarget().getClass();
-            transactionalAnnotation = targetClass.getAnnotation(Transactional.class);
-            if (transactionalAnnotation != null) {
-                rollbackOn = transactionalAnnotation.rollbackOn();
-                dontRollbackOn = transactionalAnnotation.dontRollbackOn();
-            }
-        }
+        TransactionalMetadata transactionalMetadata = TransactionalMetadata.get(invocationContext);
 
-        Object object;
         try {
-            object = invocationContext.proceed();
-        } catch (RuntimeException runtimeException) {
-            _logger.log(INFO, "Error during transaction processing", runtimeException);
-            Class<?> dontRollbackOnClass = getClassInArrayClosestToClassOrNull(dontRollbackOn, runtimeException.getClass());
-            if (dontRollbackOnClass == null) { //proceed as default...
+            return invocationContext.proceed();
+        } catch (Exception exception) {
+            _logger.log(INFO, "Error during transaction processing", exception);
+            if (transactionalMetadata.isRollbackFor(exception.getClass())) {
                 markRollbackIfActiveTransaction();
-                throw runtimeException;
-            }
-
-            // Spec states "if both elements are specified, dontRollbackOn takes precedence."
-            if (dontRollbackOnClass.equals(runtimeException.getClass()) || dontRollbackOnClass.isAssignableFrom(runtimeException.getClass())) {
-                throw runtimeException;
-            }
-
-            Class<?> rollbackOnClass = getClassInArrayClosestToClassOrNull(rollbackOn, runtimeException.getClass());
-            if (rollbackOnClass != null) {
-
-                // Both rollback and dontrollback are isAssignableFrom exception.
-                // Check if one isAssignableFrom the other, dontRollbackOn takes precedence if not
-                if (rollbackOnClass.isAssignableFrom(dontRollbackOnClass)) {
-                    throw runtimeException;
-                }
-
-                if (dontRollbackOnClass.isAssignableFrom(rollbackOnClass)) {
-                }
-            }
-
-            // This means dontRollbackOnClass is "not null" and rollbackOnClass is "null"
-            // Default for un-checked exception is to mark transaction for rollback
-            markRollbackIfActiveTransaction();
-            throw runtimeException;
-        } catch (Exception checkedException) {
-            _logger.log(INFO, "Error during transaction processing", checkedException);
-            Class<?> rollbackOnClass = getClassInArrayClosestToClassOrNull(rollbackOn, checkedException.getClass());
-            if (rollbackOnClass == null) { //proceed as default...
-                throw checkedException;
             }
-
-            // Spec states "if both elements are specified, dontRollbackOn takes precedence."
-            Class<?> dontRollbackOnClass = getClassInArrayClosestToClassOrNull(dontRollbackOn, checkedException.getClass());
-            if (dontRollbackOnClass != null) {
-
-                // Both rollback and dontrollback are isAssignableFrom exception.
-                // Check if one isAssignableFrom the other, dontRollbackOn takes precedence if not
-                if (rollbackOnClass.isAssignableFrom(dontRollbackOnClass)) {
-                    throw checkedException;
-                }
-                if (dontRollbackOnClass.isAssignableFrom(rollbackOnClass)) {
-                    markRollbackIfActiveTransaction();
-                    throw checkedException;
-                }
-            }
-
-            if (rollbackOnClass.equals(checkedException.getClass()) || rollbackOnClass.isAssignableFrom(checkedException.getClass())) {
-                markRollbackIfActiveTransaction();
-            }
-
-            // This means dontRollbackOnClass is null but rollbackOnClass is "not null"
-            // Default for checked exception is to "not" mark transaction for rollback
-            throw checkedException;
+            throw exception;
         }
-
-        return object;
-    }
-
-    /**
-     * We want the exception in the array that is closest/lowest in hierarchy to the exception So if c extends b which
-     * extends a the return of getClassInArrayClosestToClassOrNull( {a,b} , c} will be b
-     *
-     * @param exceptionArray rollbackOn or dontRollbackOn exception array
-     * @param exception actual exception thrown for comparison
-     * @return exception in the array that is closest/lowest in hierarchy to the exception or null if non exists
-     */
-    private Class<?> getClassInArrayClosestToClassOrNull(Class<?>[] exceptionArray, Class<?> exception) {
-        if (exceptionArray == null || exception == null) {
-            return null;
-        }
-
-        Class<?> closestMatch = null;
-        for (Class<?> exceptionArrayElement : exceptionArray) {
-            if (exceptionArrayElement.equals(exception)) {
-                return exceptionArrayElement;
-            }
-
-            if (exceptionArrayElement.isAssignableFrom(exception)) {
-                if (closestMatch == null || closestMatch.isAssignableFrom(exceptionArrayElement)) {
-                    closestMatch = exceptionArrayElement;
-                }
-            }
-        }
-
-        return closestMatch;
     }
 
     private void markRollbackIfActiveTransaction() throws SystemException {
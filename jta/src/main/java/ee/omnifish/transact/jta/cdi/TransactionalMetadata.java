@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package ee.omnifish.transact.jta.cdi;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.interceptor.InvocationContext;
+import jakarta.transaction.Transactional;
+
+/**
+ * The {@link Transactional} annotation that applies to an intercepted method, resolved once and shared by the
+ * interceptors of all transaction types, together with the rollback decision for each exception class thrown by the
+ * method.
+ * <p>
+ * The metadata is kept in {@link ClassValue}s of the annotated classes, so it goes away together with the class loader
+ * of an application.
+ */
+final class TransactionalMetadata {
+
+    /**
+     * The metadata of a method whose class has no Transactional annotation either.
+     */
+    static final TransactionalMetadata NONE = new TransactionalMetadata(null, null);
+
+    private static final ClassValue<TransactionalMetadata> CLASS_METADATA = new ClassValue<TransactionalMetadata>() {
+        @Override
+        protected TransactionalMetadata computeValue(Class<?> type) {
+            return of(type.getAnnotation(Transactional.class));
+        }
+    };
+
+    private static final ClassValue<ConcurrentHashMap<Method, MethodMetadata>> METHOD_METADATA = new ClassValue<ConcurrentHashMap<Method, MethodMetadata>>() {
+        @Override
+        protected ConcurrentHashMap<Method, MethodMetadata> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Class<?>[] rollbackOn;
+    private final Class<?>[] dontRollbackOn;
+
+    private final ClassValue<Boolean> rollbackDecisions = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> exceptionClass) {
+            return decideRollback(exceptionClass);
+        }
+    };
+
+    private TransactionalMetadata(Class<?>[] rollbackOn, Class<?>[] dontRollbackOn) {
+        this.rollbackOn = rollbackOn;
+        this.dontRollbackOn = dontRollbackOn;
+    }
+
+    /**
+     * Returns the metadata of the intercepted method: the annotation of the method if it has one, and otherwise the
+     * annotation of the class of the target.
+     *
+     * @param invocationContext The intercepted invocation.
+     * @return the metadata, which is {@link #NONE} if neither is annotated.
+     */
+    static TransactionalMetadata get(InvocationContext invocationContext) {
+        TransactionalMetadata methodMetadata = getMethodMetadata(invocationContext.getMethod()).transactional;
+        if (methodMetadata != null) {
+            return methodMetadata;
+        }
+
+        return CLASS_METADATA.get(invocationContext.getTarget().getClass());
+    }
+
+    /**
+     * @param method An intercepted method.
+     * @return true if the method is a PostConstruct or PreDestroy callback.
+     */
+    static boolean isLifeCycleMethod(Method method) {
+        return getMethodMetadata(method).lifeCycle;
+    }
+
+    /**
+     * Determines whether an exception of the given class thrown by the method marks the transaction for rollback.
+     * Unchecked exceptions do unless dontRollbackOn matches them; checked exceptions only do if rollbackOn matches them.
+     * If both match, the closer of the two wins, and dontRollbackOn if they are the same.
+     *
+     * @param exceptionClass The class of the exception.
+     * @return true if the transaction is to be marked for rollback.
+     */
+    boolean isRollbackFor(Class<? extends Exception> exceptionClass) {
+        return rollbackDecisions.get(exceptionClass);
+    }
+
+    private boolean decideRollback(Class<?> exceptionClass) {
+        if (RuntimeException.class.isAssignableFrom(exceptionClass)) {
+            return getClassInArrayClosestToClassOrNull(dontRollbackOn, exceptionClass) == null;
+        }
+
+        Class<?> rollbackOnClass = getClassInArrayClosestToClassOrNull(rollbackOn, exceptionClass);
+        if (rollbackOnClass == null) {
+            return false;
+        }
+
+        Class<?> dontRollbackOnClass = getClassInArrayClosestToClassOrNull(dontRollbackOn, exceptionClass);
+        return dontRollbackOnClass == null || !rollbackOnClass.isAssignableFrom(dontRollbackOnClass);
+    }
+
+    /**
+     * We want the exception in the array that is closest/lowest in hierarchy to the exception So if c extends b which
+     * extends a the return of getClassInArrayClosestToClassOrNull( {a,b} , c} will be b
+     *
+     * @param exceptionArray rollbackOn or dontRollbackOn exception array
+     * @param exception actual exception thrown for comparison
+     * @return exception in the array that is closest/lowest in hierarchy to the exception or null if non exists
+     */
+    private static Class<?> getClassInArrayClosestToClassOrNull(Class<?>[] exceptionArray, Class<?> exception) {
+        if (exceptionArray == null || exception == null) {
+            return null;
+        }
+
+        Class<?> closestMatch = null;
+        for (Class<?> exceptionArrayElement : exceptionArray) {
+            if (exceptionArrayElement.equals(exception)) {
+                return exceptionArrayElement;
+            }
+
+            if (exceptionArrayElement.isAssignableFrom(exception)) {
+                if (closestMatch == null || closestMatch.isAssignableFrom(exceptionArrayElement)) {
+                    closestMatch = exceptionArrayElement;
+                }
+            }
+        }
+
+        return closestMatch;
+    }
+
+    private static TransactionalMetadata of(Transactional transactional) {
+        if (transactional == null) {
+            return NONE;
+        }
+
+        return new TransactionalMetadata(transactional.rollbackOn(), transactional.dontRollbackOn());
+    }
+
+    private static MethodMetadata getMethodMetadata(Method method) {
+        ConcurrentHashMap<Method, MethodMetadata> methods = METHOD_METADATA.get(method.getDeclaringClass());
+        MethodMetadata methodMetadata = methods.get(method);
+        if (methodMetadata == null) {
+            methodMetadata = methods.computeIfAbsent(method, MethodMetadata::new);
+        }
+
+        return methodMetadata;
+    }
+
+    /**
+     * What is known about an intercepted method.
+     */
+    private static final class MethodMetadata {
+
+        /**
+         * The metadata of the annotation of the method itself, or null if it has none.
+         */
+        final TransactionalMetadata transactional;
+        final boolean lifeCycle;
+
+        MethodMetadata(Method method) {
+            Transactional annotation = method.getAnnotation(Transactional.class);
+            transactional = annotation == null ? null : of(annotation);
+            lifeCycle = method.getAnnotation(PostConstruct.class) != null || method.getAnnotation(PreDestroy.class) != null;
+        }
+    }
+}
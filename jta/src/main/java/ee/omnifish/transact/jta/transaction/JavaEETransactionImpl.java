@@ -27,12 +27,13 @@ import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.WARNING;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import javax.transaction.xa.XAResource;
@@ -41,6 +42,7 @@ import javax.transaction.xa.Xid;
 import ee.omnifish.transact.api.JavaEETransaction;
 import ee.omnifish.transact.api.JavaEETransactionManager;
 import ee.omnifish.transact.api.SimpleResource;
+import ee.omnifish.transact.api.TransactionConstants;
 import ee.omnifish.transact.api.spi.TransactionInternal;
 import ee.omnifish.transact.api.spi.TransactionalResource;
 
@@ -61,37 +63,43 @@ import jakarta.transaction.SystemException;
  * delegated to <code>jtsTx</code>.
  *
  * <p>
- * Time out capability is added to the local transactions. This class extends the TimerTask. When the transaction needs
- * to be timedout, this schedules with the timer. At the commit and rollback time, task will be cancelled. If the
- * transaction is timedout, the <code>run()</code> method will be called and transaction will be marked for rollback.
+ * Time out capability is added to the local transactions. When the transaction needs to be timedout, a deadline is
+ * armed with the {@link TransactionTimeoutScheduler}. At the commit and rollback time, the deadline will be cancelled. If
+ * the transaction is timedout, the <code>timeout()</code> method will be called and transaction will be marked for
+ * rollback.
+ *
+ * <p>
+ * A local transaction which is begun and completed without resources or synchronizations allocates little more than
+ * this object: the synchronization lists, the resource table and the Xid are only created when they are first needed.
  */
-public final class JavaEETransactionImpl extends TimerTask implements JavaEETransaction {
+public final class JavaEETransactionImpl implements JavaEETransaction {
 
-    protected Logger _logger = Logger.getLogger(JavaEETransactionImpl.class.getName());
+    private static final Logger _logger = Logger.getLogger(JavaEETransactionImpl.class.getName());
 
     JavaEETransactionManager javaEETM;
 
     // Local Tx ids are just numbers: they dont need to be unique across
     // processes or across multiple activations of this server process.
-    private static long txIdCounter = 1;
+    private static final AtomicLong txIdCounter = new AtomicLong(1);
 
     // Fall back to the old (wrong) behavior for the case when setRollbackOnly
     // was called before XA transaction started
     private static boolean DISABLE_STATUS_CHECK_ON_SWITCH_TO_XA = Boolean.getBoolean("com.sun.jts.disable_status_check_on_switch_to_xa");
 
     private long txId;
-    private JavaEEXid xid;
+    private volatile JavaEEXid xid;
     private TransactionInternal jtsTx;
     private TransactionalResource nonXAResource;
     private TransactionalResource laoResource;
     private int localTxStatus;
-    private Vector<Synchronization> syncs = new Vector<>();
-    private Vector<Synchronization> interposedSyncs = new Vector<>();
+    private Vector<Synchronization> syncs;
+    private Vector<Synchronization> interposedSyncs;
     private boolean commitStarted;
     private long startTime;
 
-    private boolean timedOut;
+    private volatile boolean timedOut;
     private boolean isTimerTask;
+    private TransactionTimeoutScheduler.Deadline deadline;
     private int timeout = 0;
 
     private boolean imported;
@@ -113,41 +121,21 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
     // tx-specific ejb container info associated with this tx
     private Object containerData;
 
-    static private boolean isTimerInitialized;
-    static private Timer timer;
-    static private long timerTasksScheduled = 0; // Global counter
-
-    static synchronized private void initializeTimer() {
-        if (isTimerInitialized) {
-            return;
-        }
-
-        timer = new Timer(true); // daemon
-        isTimerInitialized = true;
-    }
-
     JavaEETransactionImpl(JavaEETransactionManager javaEETM) {
         this.javaEETM = javaEETM;
 
         txId = getNewTxId();
-        xid = new JavaEEXid(txId);
-        resourceTable = new HashMap<>();
         localTxStatus = STATUS_ACTIVE;
         startTime = System.currentTimeMillis();
 
-        if (_logger != null) {
-            _logger.log(FINE, () -> "--Created new JavaEETransactionImpl, txId = " + txId);
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "--Created new JavaEETransactionImpl, txId = " + txId);
         }
     }
 
     JavaEETransactionImpl(int timeout, JavaEETransactionManager javaEETM) {
         this(javaEETM);
-        if (!isTimerInitialized) {
-            initializeTimer();
-        }
-
-        timer.schedule(this, timeout * 1000L);
-        timerTasksScheduled++;
+        deadline = TransactionTimeoutScheduler.getInstance().schedule(timeout, txId, this::timeout);
         isTimerTask = true;
         this.timeout = timeout;
     }
@@ -158,9 +146,8 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
         imported = true;
     }
 
-    // TimerTask run() method implementation
-    @Override
-    public void run() {
+    // Called by the TransactionTimeoutScheduler when the deadline passes
+    void timeout() {
         timedOut = true;
         try {
             setRollbackOnly();
@@ -235,7 +222,9 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
 
     @Override
     public boolean enlistResource(XAResource xaRes) throws RollbackException, IllegalStateException, SystemException {
-        _logger.log(FINE, () -> "--In JavaEETransactionImpl.enlistResource, jtsTx=" + jtsTx + " nonXAResource=" + nonXAResource);
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "--In JavaEETransactionImpl.enlistResource, jtsTx=" + jtsTx + " nonXAResource=" + nonXAResource);
+        }
         checkTransationActive();
 
         if (!isLocalTx()) {
@@ -258,7 +247,9 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
 
     @Override
     public boolean delistResource(XAResource xaRes, int flag) throws IllegalStateException, SystemException {
-        _logger.log(FINE, () -> "--In JavaEETransactionImpl.delistResource: " + xaRes + " from " + this);
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "--In JavaEETransactionImpl.delistResource: " + xaRes + " from " + this);
+        }
         checkTransationActive();
 
         if (isLocalTx()) {
@@ -279,13 +270,14 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
 
     @Override
     public void registerSynchronization(Synchronization sync) throws RollbackException, IllegalStateException, SystemException {
-        _logger.log(FINE, () ->
-                "--In JavaEETransactionImpl.registerSynchronization, jtsTx=" + jtsTx + " nonXAResource=" + nonXAResource);
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "--In JavaEETransactionImpl.registerSynchronization, jtsTx=" + jtsTx + " nonXAResource=" + nonXAResource);
+        }
 
         checkTransationActive();
 
         if (isLocalTx()) {
-            syncs.add(sync);
+            addSync(sync);
         } else {
             jtsTx.registerSynchronization(sync);
         }
@@ -304,11 +296,17 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
 
     @Override
     public void setResources(Set resources, Object poolInfo) {
+        if (resourceTable == null) {
+            resourceTable = new HashMap<>();
+        }
         resourceTable.put(poolInfo, resources);
     }
 
     @Override
     public Set getResources(Object poolInfo) {
+        if (resourceTable == null) {
+            return null;
+        }
         return resourceTable.get(poolInfo);
     }
 
@@ -318,6 +316,9 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
      */
     @Override
     public Set getAllParticipatingPools() {
+        if (resourceTable == null) {
+            return Collections.emptySet();
+        }
         return resourceTable.keySet();
     }
 
@@ -330,13 +331,15 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
             cancelTimerTask();
         }
 
-        _logger.log(FINE, () -> "--In JavaEETransactionImpl.commit, jtsTx=" + jtsTx + " nonXAResource=" + nonXAResource);
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "--In JavaEETransactionImpl.commit, jtsTx=" + jtsTx + " nonXAResource=" + nonXAResource);
+        }
 
         commitStarted = true;
         boolean success = false;
         if (!isLocalTx()) {
             try {
-                jtsTx.commit();
+                commitJTSTx(false);
                 success = true;
             } catch (HeuristicMixedException e) {
                 success = true;
@@ -359,7 +362,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                 if (timedOut) {
                     // rollback nonXA resource
                     if (nonXAResource != null) {
-                        nonXAResource.getXAResource().rollback(xid);
+                        nonXAResource.getXAResource().rollback(getLocalXid());
                     }
                     localTxStatus = STATUS_ROLLEDBACK;
                     throw new RollbackException("Transaction rolled back due to time out.");
@@ -368,7 +371,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                 if (isRollbackOnly()) {
                     // rollback nonXA resource
                     if (nonXAResource != null) {
-                        nonXAResource.getXAResource().rollback(xid);
+                        nonXAResource.getXAResource().rollback(getLocalXid());
                     }
 
                     localTxStatus = STATUS_ROLLEDBACK;
@@ -376,7 +379,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                 }
 
                 // call beforeCompletion
-                for (Synchronization synchronization : syncs) {
+                for (Synchronization synchronization : getSyncs()) {
                     try {
                         synchronization.beforeCompletion();
                     } catch (RuntimeException ex) {
@@ -390,7 +393,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                     }
                 }
 
-                for (Synchronization synchronization : interposedSyncs) {
+                for (Synchronization synchronization : getInterposedSyncs()) {
                     try {
                         synchronization.beforeCompletion();
                     } catch (RuntimeException ex) {
@@ -412,7 +415,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                     RollbackException rollbackException = null;
                     if (isLocalTx()) {
                         if (nonXAResource != null) {
-                            nonXAResource.getXAResource().rollback(xid);
+                            nonXAResource.getXAResource().rollback(getLocalXid());
                         }
                         localTxStatus = STATUS_ROLLEDBACK;
                         rollbackException = new RollbackException("Transaction marked for rollback.");
@@ -435,7 +438,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                 // Check if there is a jtsTx active, in case any of the
                 // beforeCompletions registered the first XA resource.
                 if (!isLocalTx()) {
-                    jtsTx.commit();
+                    commitJTSTx(true);
 
                     // Note: JTS will not call afterCompletions in this case,
                     // because no syncs have been registered with JTS.
@@ -443,7 +446,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
 
                 } else  if (nonXAResource != null) {
                     // Do single-phase commit on nonXA resource
-                    nonXAResource.getXAResource().commit(xid, true);
+                    nonXAResource.getXAResource().commit(getLocalXid(), true);
                 }
                 // V2-XXX should this be STATUS_NO_TRANSACTION ?
                 localTxStatus = STATUS_COMMITTED;
@@ -467,7 +470,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
             } finally {
                 completeMonitorTx(success);
 
-                for (Synchronization synchronization : interposedSyncs) {
+                for (Synchronization synchronization : getInterposedSyncs()) {
                     try {
                         synchronization.afterCompletion(localTxStatus);
                     } catch (Exception ex) {
@@ -476,7 +479,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                 }
 
                 // Call afterCompletions
-                for (Synchronization synchronization : syncs) {
+                for (Synchronization synchronization : getSyncs()) {
                     try {
                         synchronization.afterCompletion(localTxStatus);
                     } catch (Exception ex) {
@@ -497,7 +500,9 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
             cancelTimerTask();
         }
 
-        _logger.log(FINE, () -> "--In JavaEETransactionImpl.rollback, jtsTx=" + jtsTx + " nonXAResource=" + nonXAResource);
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "--In JavaEETransactionImpl.rollback, jtsTx=" + jtsTx + " nonXAResource=" + nonXAResource);
+        }
 
         if (isLocalTx()) {
             checkTransationActive(); // non-xa transaction can't be in prepared state, xa code will do its check
@@ -507,7 +512,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
             if (!isLocalTx()) {
                 jtsTx.rollback();
             } else if (nonXAResource != null) {
-                nonXAResource.getXAResource().rollback(xid);
+                nonXAResource.getXAResource().rollback(getLocalXid());
             }
 
         } catch (SystemException | IllegalStateException ex) {
@@ -521,7 +526,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
             completeMonitorTx(false);
 
             if (isLocalTx()) {
-                for (Synchronization synchronization : interposedSyncs) {
+                for (Synchronization synchronization : getInterposedSyncs()) {
                     try {
                         synchronization.afterCompletion(STATUS_ROLLEDBACK);
                     } catch (Exception ex) {
@@ -530,7 +535,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                 }
 
                 // Call afterCompletions
-                for (Synchronization sync : syncs) {
+                for (Synchronization sync : getSyncs()) {
                     try {
                         sync.afterCompletion(STATUS_ROLLEDBACK);
                     } catch (Exception ex) {
@@ -571,7 +576,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
              " nonXAResource=" + nonXAResource +
              " jtsTx=" + jtsTx +
              " localTxStatus=" + localTxStatus +
-             " syncs=" + syncs;
+             " syncs=" + getSyncs();
     }
 
 
@@ -583,7 +588,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
      * This method is used for the Admin Framework displaying of Transactions Ids
      */
     public String getTransactionId() {
-        return xid.toString();
+        return getLocalXid().toString();
     }
 
     /*
@@ -619,23 +624,22 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
         return timeout - (int) ((System.currentTimeMillis() - startTime) / 1000L);
     }
 
-    // Cancels the timertask and returns the timeout
+    // Cancels the timeout deadline and returns the timeout
     public int cancelTimerTask() {
-        cancel();
-
-        int mod = javaEETM.getPurgeCancelledTtransactionsAfter();
-        if (mod > 0 && timerTasksScheduled % mod == 0) {
-            int purged = timer.purge();
-            if (_logger.isLoggable(FINE)) {
-                _logger.log(FINE, "Purged " + purged + " timer tasks from canceled queue");
-            }
+        if (deadline != null) {
+            TransactionTimeoutScheduler.getInstance().cancel(deadline);
         }
 
         return timeout;
     }
 
     Xid getLocalXid() {
-        return xid;
+        JavaEEXid localXid = xid;
+        if (localXid == null) {
+            localXid = createLocalXid();
+        }
+
+        return localXid;
     }
 
 
@@ -647,11 +651,11 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
 
         if (!commitStarted) {
             // Register syncs
-            for (Synchronization synchronization : syncs) {
+            for (Synchronization synchronization : getSyncs()) {
                 jtsTx.registerSynchronization(synchronization);
             }
 
-            for (Synchronization synchronization : interposedSyncs) {
+            for (Synchronization synchronization : getInterposedSyncs()) {
                 jtsTx.registerInterposedSynchronization(synchronization);
             }
         }
@@ -706,8 +710,35 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
         return userResourceMap.get(key);
     }
 
+    private void commitJTSTx(boolean callsAfterCompletions) throws RollbackException, HeuristicMixedException, HeuristicRollbackException, SecurityException, IllegalStateException, SystemException {
+        checkStrictCompletion(callsAfterCompletions);
+        jtsTx.commit();
+    }
+
+    /**
+     * Requires the commit of the JTS transaction to wait for the second phase if the application asked for it, or if
+     * resources are released here once the commit returns rather than by the JTS transaction once its participants have
+     * committed. Those are the transaction scoped EntityManagers, and the Synchronizations registered while this was a
+     * local transaction, if it was promoted during beforeCompletion.
+     *
+     * @param callsAfterCompletions Indicates that this transaction calls its Synchronizations after the commit.
+     *
+     * @see TransactionConstants#STRICT_COMPLETION
+     */
+    void checkStrictCompletion(boolean callsAfterCompletions) {
+        if (jtsTx == null) {
+            return;
+        }
+
+        boolean releasesResources = (txEntityManagerMap != null && !txEntityManagerMap.isEmpty())
+                || (callsAfterCompletions && (!getSyncs().isEmpty() || !getInterposedSyncs().isEmpty()));
+        if (releasesResources || Boolean.TRUE.equals(getUserResource(TransactionConstants.STRICT_COMPLETION))) {
+            jtsTx.requireStrictCompletion();
+        }
+    }
+
     public void registerInterposedSynchronization(Synchronization sync) throws RollbackException, SystemException {
-        interposedSyncs.add(sync);
+        addInterposedSync(sync);
         if (jtsTx != null) {
             jtsTx.registerInterposedSynchronization(sync);
         }
@@ -757,9 +788,41 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
         return extendedEntityManagerMap;
     }
 
-    private static synchronized long getNewTxId() {
-        long newTxId = txIdCounter++;
-        return newTxId;
+    private static long getNewTxId() {
+        return txIdCounter.getAndIncrement();
+    }
+
+    // The Xid is only needed for a non-XA resource or for display, so it is created on first use.
+    private synchronized JavaEEXid createLocalXid() {
+        if (xid == null) {
+            xid = new JavaEEXid(txId);
+        }
+
+        return xid;
+    }
+
+    private synchronized void addSync(Synchronization sync) {
+        if (syncs == null) {
+            syncs = new Vector<>();
+        }
+        syncs.add(sync);
+    }
+
+    private synchronized void addInterposedSync(Synchronization sync) {
+        if (interposedSyncs == null) {
+            interposedSyncs = new Vector<>();
+        }
+        interposedSyncs.add(sync);
+    }
+
+    private List<Synchronization> getSyncs() {
+        Vector<Synchronization> registered = syncs;
+        return registered == null ? Collections.emptyList() : registered;
+    }
+
+    private List<Synchronization> getInterposedSyncs() {
+        Vector<Synchronization> registered = interposedSyncs;
+        return registered == null ? Collections.emptyList() : registered;
     }
 
     private Map<EntityManagerFactory, SimpleResource> getTxEntityManagerMap() {
@@ -86,10 +86,7 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
 
     // Note: this is not inheritable because we dont want transactions
     // to be inherited by child threads.
-    private ThreadLocal<JavaEETransaction> threadLocalTransactionHolder;
-    private ThreadLocal<int[]> threadLocalCallCounterHolder;
-    private ThreadLocal<JavaEETransactionManagerDelegate> threadLocalDelegateHolder;
-    private ThreadLocal<Integer> txnTmout = new ThreadLocal<>();
+    private final ThreadLocal<TransactionContext> threadLocalContext = ThreadLocal.withInitial(TransactionContext::new);
 
     @Inject
     private ServiceLocator serviceLocator;
@@ -97,7 +94,11 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
     @Inject
     protected InvocationManager invocationManager;
 
-    private JavaEETransactionManagerDelegate instanceDelegate;
+    /**
+     * Read without locking on every transaction operation; only replaced under the monitor of this manager, and only
+     * published once it has been wired to this manager.
+     */
+    private volatile JavaEETransactionManagerDelegate instanceDelegate;
 
     // If multipleEnlistDelists is set to true, with in the transaction, for the same
     // - connection multiple enlistments and delistments might happen
@@ -132,12 +133,6 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
         statusMap.put(Status.STATUS_ROLLING_BACK, "RollingBack");
     }
 
-    public JavaEETransactionManagerImpl() {
-        threadLocalTransactionHolder = new ThreadLocal<>();
-        threadLocalCallCounterHolder = new ThreadLocal<>();
-        threadLocalDelegateHolder = new ThreadLocal<>();
-    }
-
     @PostConstruct
     public void postConstruct() {
         initDelegates();
@@ -234,8 +229,9 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
 
     @Override
     public void clearThreadTx() {
-        setCurrentTransaction(null);
-        threadLocalDelegateHolder.set(null);
+        TransactionContext context = threadLocalContext.get();
+        context.transaction = null;
+        context.delegate = null;
     }
 
     @Override
@@ -302,19 +298,21 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
             }
         }
 
+        ResourceManagerRegistry.register(transactionalResource);
+
         if (!(transaction instanceof JavaEETransaction)) {
             return enlistXAResource(transaction, transactionalResource);
         }
 
         JavaEETransactionImpl eeTransaction = (JavaEETransactionImpl) transaction;
 
-        JavaEETransactionManagerDelegate eeTransactionManagerDelegate = setDelegate();
+        JavaEETransactionManagerDelegate eeTransactionManagerDelegate = setDelegate(threadLocalContext.get());
         boolean useLAO = eeTransactionManagerDelegate.useLAO();
 
         if ((eeTransaction.getNonXAResource() != null) && (!useLAO || !transactionalResource.supportsXA())) {
             boolean isSameRM = false;
             try {
-                isSameRM = transactionalResource.getXAResource().isSameRM(eeTransaction.getNonXAResource().getXAResource());
+                isSameRM = ResourceManagerRegistry.isSameRM(transactionalResource.getXAResource(), eeTransaction.getNonXAResource().getXAResource());
                 if (_logger.isLoggable(FINE)) {
                     _logger.log(FINE, "\n\nIn JavaEETransactionManagerSimplified.enlistResource, isSameRM? " + isSameRM);
                 }
@@ -555,7 +553,7 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
         }
     }
 
-    private JavaEETransactionImpl initJavaEETransaction(int timeout) {
+    private JavaEETransactionImpl initJavaEETransaction(TransactionContext context, int timeout) {
         JavaEETransactionImpl eeTransaction = null;
 
         // Do not need to use injection.
@@ -565,7 +563,7 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
             eeTransaction = new JavaEETransactionImpl(this);
         }
 
-        setCurrentTransaction(eeTransaction);
+        context.transaction = eeTransaction;
         return eeTransaction;
     }
 
@@ -647,7 +645,7 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
 
     @Override
     public boolean isTimedOut() {
-        JavaEETransaction eeTransaction = threadLocalTransactionHolder.get();
+        JavaEETransaction eeTransaction = threadLocalContext.get().transaction;
         if (eeTransaction == null) {
             return false;
         }
@@ -662,15 +660,16 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
     @Override
     public void checkTransactionImport() {
         // First check if this is a local call
-        int[] count = threadLocalCallCounterHolder.get();
-        if (count != null && count[0] > 0) {
-            count[0]--;
+        TransactionContext context = threadLocalContext.get();
+        if (context.localCallCount > 0) {
+            context.localCallCount--;
             return;
         }
 
         // A remote call, clear TLS so that if this thread is reused
         // later, the current tx doesnt hang around.
-        clearThreadTx();
+        context.transaction = null;
+        context.delegate = null;
     }
 
     /**
@@ -681,19 +680,14 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
      */
     @Override
     public void checkTransactionExport(boolean isLocal) {
+        TransactionContext context = threadLocalContext.get();
         if (isLocal) {
             // Put a counter in TLS indicating this is a local call.
-            // Use int[1] as a mutable java.lang.Integer!
-            int[] count = threadLocalCallCounterHolder.get();
-            if (count == null) {
-                count = new int[1];
-                threadLocalCallCounterHolder.set(count);
-            }
-            count[0]++;
+            context.localCallCount++;
             return;
         }
 
-        JavaEETransaction eeTransaction = threadLocalTransactionHolder.get();
+        JavaEETransaction eeTransaction = context.transaction;
         if (eeTransaction == null || !eeTransaction.isLocalTx()) { // a JTS tx, can be exported
         	return;
         }
@@ -784,22 +778,23 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
     @Override
     public void begin(int timeout) throws NotSupportedException, SystemException {
         // Check if EE Transaction already exists
-        if (threadLocalTransactionHolder.get() != null) {
+        TransactionContext context = threadLocalContext.get();
+        if (context.transaction != null) {
             throw new NotSupportedException("enterprise_distributedtx.notsupported_nested_transaction");
         }
 
-        setDelegate();
+        JavaEETransactionManagerDelegate delegate = setDelegate(context);
 
         // Check if JTS tx exists, without starting JTS tx.
         // This is needed in case the JTS tx was imported from a client.
-        if (getStatus() != STATUS_NO_TRANSACTION) {
+        if (delegate.getStatus() != STATUS_NO_TRANSACTION) {
             throw new NotSupportedException("enterprise_distributedtx.notsupported_nested_transaction");
         }
 
         if (monitoringEnabled) {
-            getDelegate().getReadLock().lock(); // XXX acquireReadLock();
+            delegate.getReadLock().lock(); // XXX acquireReadLock();
             try {
-                JavaEETransactionImpl eeTransaction = initJavaEETransaction(timeout);
+                JavaEETransactionImpl eeTransaction = initJavaEETransaction(context, timeout);
                 activeTransactions.add(eeTransaction);
                 // TODO
                 // monitor.transactionActivatedEvent();
@@ -808,29 +803,34 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
                     eeTransaction.setComponentName(currentInvocation.getInstance().getClass().getName());
                 }
             } finally {
-                getDelegate().getReadLock().unlock(); // XXX releaseReadLock();
+                delegate.getReadLock().unlock(); // XXX releaseReadLock();
             }
         } else {
-            initJavaEETransaction(timeout);
+            initJavaEETransaction(context, timeout);
         }
     }
 
     @Override
     public void commit() throws RollbackException, HeuristicMixedException, HeuristicRollbackException, SecurityException, IllegalStateException, SystemException {
+        TransactionContext context = threadLocalContext.get();
+        JavaEETransaction eeTransaction = context.transaction;
+        JavaEETransactionManagerDelegate delegate = getDelegate(context);
         boolean acquiredlock = false;
 
         try {
-            JavaEETransaction eeTransaction = threadLocalTransactionHolder.get();
             if (eeTransaction != null && eeTransaction.isLocalTx()) {
                 if (monitoringEnabled) {
-                    getDelegate().getReadLock().lock(); // XXX acquireReadLock();
+                    delegate.getReadLock().lock(); // XXX acquireReadLock();
                     acquiredlock = true;
                 }
                 eeTransaction.commit(); // commit local tx
             } else {
                 try {
                     // an XA transaction
-                    getDelegate().commitDistributedTransaction();
+                    if (eeTransaction != null) {
+                        ((JavaEETransactionImpl) eeTransaction).checkStrictCompletion(false);
+                    }
+                    delegate.commitDistributedTransaction();
                 } finally {
                     if (eeTransaction != null) {
                         ((JavaEETransactionImpl) eeTransaction).onTxCompletion(true);
@@ -839,29 +839,31 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
             }
 
         } finally {
-            setCurrentTransaction(null); // clear current thread's tx
-            threadLocalDelegateHolder.set(null);
+            context.transaction = null; // clear current thread's tx
+            context.delegate = null;
             if (acquiredlock) {
-                getDelegate().getReadLock().unlock(); // XXX releaseReadLock();
+                delegate.getReadLock().unlock(); // XXX releaseReadLock();
             }
         }
     }
 
     @Override
     public void rollback() throws IllegalStateException, SecurityException, SystemException {
+        TransactionContext context = threadLocalContext.get();
+        JavaEETransaction eeTransaction = context.transaction;
+        JavaEETransactionManagerDelegate delegate = getDelegate(context);
         boolean acquiredlock = false;
         try {
-            JavaEETransaction eeTransaction = threadLocalTransactionHolder.get();
             if (eeTransaction != null && eeTransaction.isLocalTx()) {
                 if (monitoringEnabled) {
-                    getDelegate().getReadLock().lock(); // XXX acquireReadLock();
+                    delegate.getReadLock().lock(); // XXX acquireReadLock();
                     acquiredlock = true;
                 }
                 eeTransaction.rollback(); // rollback local tx
             } else {
                 try {
                     // an XA transaction
-                    getDelegate().rollbackDistributedTransaction();
+                    delegate.rollbackDistributedTransaction();
                 } finally {
                     if (eeTransaction != null) {
                         ((JavaEETransactionImpl) eeTransaction).onTxCompletion(false);
@@ -870,10 +872,10 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
             }
 
         } finally {
-            setCurrentTransaction(null); // clear current thread's tx
-            threadLocalDelegateHolder.set(null);
+            context.transaction = null; // clear current thread's tx
+            context.delegate = null;
             if (acquiredlock) {
-                getDelegate().getReadLock().unlock(); // XXX releaseReadLock();
+                delegate.getReadLock().unlock(); // XXX releaseReadLock();
             }
         }
     }
@@ -890,7 +892,7 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
 
     @Override
     public void setRollbackOnly() throws IllegalStateException, SystemException {
-        JavaEETransaction eeTransaction = threadLocalTransactionHolder.get();
+        JavaEETransaction eeTransaction = threadLocalContext.get().transaction;
         if (eeTransaction != null && eeTransaction.isLocalTx()) {
             if (monitoringEnabled) {
                 getDelegate().getReadLock().lock(); // XXX acquireReadLock();
@@ -910,12 +912,13 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
 
     @Override
     public Transaction suspend() throws SystemException {
-        return getDelegate().suspend(threadLocalTransactionHolder.get());
+        TransactionContext context = threadLocalContext.get();
+        return getDelegate(context).suspend(context.transaction);
     }
 
     @Override
     public void resume(Transaction transaction) throws InvalidTransactionException, IllegalStateException, SystemException {
-        if (threadLocalTransactionHolder.get() != null) {
+        if (threadLocalContext.get().transaction != null) {
             throw new IllegalStateException("enterprise_distributedtx.transaction_exist_on_currentThread");
         }
 
@@ -957,7 +960,7 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
             throw new SystemException("enterprise_distributedtx.invalid_timeout");
         }
 
-        txnTmout.set(seconds);
+        threadLocalContext.get().timeout = seconds;
     }
 
     /**
@@ -978,12 +981,12 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
 
     @Override
     public JavaEETransaction getCurrentTransaction() {
-        return threadLocalTransactionHolder.get();
+        return threadLocalContext.get().transaction;
     }
 
     @Override
     public void setCurrentTransaction(JavaEETransaction eeTransaction) {
-        threadLocalTransactionHolder.set(eeTransaction);
+        threadLocalContext.get().transaction = eeTransaction;
     }
 
     @Override
@@ -1035,11 +1038,11 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
 
     @Override
     public void cleanTxnTimeout() {
-        txnTmout.set(null);
+        threadLocalContext.get().timeout = null;
     }
 
     public int getEffectiveTimeout() {
-        Integer tmout = txnTmout.get();
+        Integer tmout = threadLocalContext.get().timeout;
         if (tmout == null) {
             return transactionTimeout;
         }
@@ -1392,29 +1395,34 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
     }
 
     /**
-     * Called by JavaEETransactionImpl also
+     * Called by JavaEETransactionImpl also. Does not lock, as it is called for every transaction operation.
      */
-    synchronized JavaEETransactionManagerDelegate getDelegate() {
-        JavaEETransactionManagerDelegate threadLocalDelegate = threadLocalDelegateHolder.get();
+    JavaEETransactionManagerDelegate getDelegate() {
+        return getDelegate(threadLocalContext.get());
+    }
+
+    private JavaEETransactionManagerDelegate getDelegate(TransactionContext context) {
+        JavaEETransactionManagerDelegate threadLocalDelegate = context.delegate;
         return threadLocalDelegate != null ? threadLocalDelegate : instanceDelegate;
     }
 
-    private JavaEETransactionManagerDelegate setDelegate() {
-        JavaEETransactionManagerDelegate threadLocalDelegate = threadLocalDelegateHolder.get();
+    private JavaEETransactionManagerDelegate setDelegate(TransactionContext context) {
+        JavaEETransactionManagerDelegate threadLocalDelegate = context.delegate;
         if (threadLocalDelegate == null) {
             threadLocalDelegate = instanceDelegate;
-            threadLocalDelegateHolder.set(threadLocalDelegate);
+            context.delegate = threadLocalDelegate;
         }
 
         return threadLocalDelegate;
     }
 
     public boolean isDelegate(JavaEETransactionManagerDelegate testDelegate) {
-        if (instanceDelegate == null) {
+        JavaEETransactionManagerDelegate currentDelegate = instanceDelegate;
+        if (currentDelegate == null) {
             return false;
         }
 
-        return testDelegate.getClass().getName().equals(instanceDelegate.getClass().getName());
+        return testDelegate.getClass().getName().equals(currentDelegate.getClass().getName());
     }
 
     private void initDelegates() {
@@ -1436,16 +1444,17 @@ public class JavaEETransactionManagerImpl implements JavaEETransactionManager {
     public synchronized void setDelegate(JavaEETransactionManagerDelegate newDelegate) {
         // XXX Check if it's valid to set or if we need to remember all that asked.
 
+        JavaEETransactionManagerDelegate currentDelegate = instanceDelegate;
         int currentdelegateOrder = 0;
-        if (instanceDelegate != null) {
-            currentdelegateOrder = instanceDelegate.getOrder();
+        if (currentDelegate != null) {
+            currentdelegateOrder = currentDelegate.getOrder();
         }
 
         if (newDelegate.getOrder() > currentdelegateOrder) {
-            instanceDelegate = newDelegate;
-
             // XXX Hk2 work around XXX
-            instanceDelegate.setTransactionManager(this);
+            newDelegate.setTransactionManager(this);
+
+            instanceDelegate = newDelegate;
 
             if (_logger.isLoggable(FINE)) {
                 _logger.log(FINE, "Replaced delegate with " + newDelegate.getClass().getName());
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.transaction;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+
+import ee.omnifish.transact.api.XAResourceWrapper;
+import ee.omnifish.transact.api.spi.TransactionalResource;
+
+/**
+ * Remembers which resource manager each XAResource belongs to, so that deciding whether two XAResource objects are of
+ * the same resource manager is a lookup rather than a call to {@link XAResource#isSameRM}, which is a round trip to the
+ * resource manager with some drivers.
+ * <p>
+ * An XAResource is identified by its class and, if one is supplied by {@link TransactionalResource#getResourceManagerKey}
+ * or {@link XAResourceWrapper#getResourceManagerKey}, by its resource manager key. XAResource objects of the same class
+ * with equal keys belong to the same resource manager without calling isSameRM. An XAResource without a key which has
+ * not been seen before is compared with isSameRM to one XAResource of each known resource manager of its class, and the
+ * result is remembered for as long as the XAResource is in use. If isSameRM fails before a match is found, the resource
+ * manager of the XAResource is not known; it is not remembered, and the XAResource is compared with isSameRM by the
+ * caller instead.
+ */
+public final class ResourceManagerRegistry {
+
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final ReferenceQueue<XAResource> released = new ReferenceQueue<>();
+
+    // All known XAResource objects, by identity
+    private static final Map<Member, ResourceManager> members = new ConcurrentHashMap<>();
+
+    // Guarded by the lock
+    private static final Map<Class<?>, List<ResourceManager>> resourceManagersByClass = new HashMap<>();
+    private static final Map<List<Object>, ResourceManager> resourceManagersByKey = new HashMap<>();
+
+    private ResourceManagerRegistry() {
+    }
+
+    /**
+     * The identity of a resource manager. Two XAResource objects belong to the same resource manager if
+     * {@link ResourceManagerRegistry#getResourceManager} returns the same ResourceManager for both.
+     */
+    public static final class ResourceManager {
+
+        private final Class<?> resourceClass;
+        private Object key;
+        private final List<Member> resources = new ArrayList<>();
+
+        private ResourceManager(Class<?> resourceClass, Object key) {
+            this.resourceClass = resourceClass;
+            this.key = key;
+        }
+
+        private XAResource getResource() {
+            for (Member member : resources) {
+                XAResource resource = member.get();
+                if (resource != null) {
+                    return resource;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Records the resource manager key of the XAResource of the given resource, if it supplies one.
+     *
+     * @param transactionalResource The resource being enlisted.
+     */
+    public static void register(TransactionalResource transactionalResource) {
+        XAResource xaResource = transactionalResource.getXAResource();
+        Object key = transactionalResource.getResourceManagerKey();
+        if (xaResource != null && key != null && !members.containsKey(new Member(xaResource))) {
+            classify(xaResource, key);
+        }
+    }
+
+    /**
+     * Determines whether the two XAResource objects belong to the same resource manager. If the resource manager of
+     * either is not known, they are compared with isSameRM.
+     *
+     * @param xaResource An XAResource.
+     * @param other Another XAResource.
+     *
+     * @return true if both belong to the same resource manager.
+     *
+     * @exception XAException isSameRM failed for an XAResource whose resource manager is not known.
+     */
+    public static boolean isSameRM(XAResource xaResource, XAResource other) throws XAException {
+        if (xaResource == other) {
+            return true;
+        }
+
+        ResourceManager resourceManager = getResourceManager(xaResource);
+        ResourceManager otherResourceManager = getResourceManager(other);
+        if (resourceManager == null || otherResourceManager == null) {
+            return xaResource.isSameRM(other);
+        }
+
+        return resourceManager == otherResourceManager;
+    }
+
+    /**
+     * Returns the resource manager of the given XAResource.
+     *
+     * @param xaResource The XAResource.
+     *
+     * @return The identity of its resource manager, or null if it is not known because isSameRM failed. The caller then
+     * compares the XAResource with isSameRM itself.
+     */
+    public static ResourceManager getResourceManager(XAResource xaResource) {
+        ResourceManager resourceManager = members.get(new Member(xaResource));
+        if (resourceManager != null) {
+            return resourceManager;
+        }
+
+        return classify(xaResource, xaResource instanceof XAResourceWrapper ? ((XAResourceWrapper) xaResource).getResourceManagerKey() : null);
+    }
+
+    /**
+     * Finds or creates the resource manager of an XAResource.
+     * <p>
+     * isSameRM may be a round trip to a resource manager, so the candidates are compared without holding the lock. The
+     * result is published under the lock, unless another thread has classified the same XAResource in the meantime.
+     * Resource managers of the class which were created while the lock was not held are compared in the next round.
+     *
+     * @return The resource manager, or null if the XAResource has no key and isSameRM failed before a match was found.
+     */
+    private static ResourceManager classify(XAResource xaResource, Object key) {
+        Member member = new Member(xaResource, released);
+        Class<?> resourceClass = xaResource.getClass();
+        List<Object> classAndKey = key == null ? null : List.of(resourceClass, key);
+
+        List<ResourceManager> compared = new ArrayList<>();
+        ResourceManager match = null;
+        boolean failed = false;
+        while (true) {
+            List<ResourceManager> toCompare = new ArrayList<>();
+            List<XAResource> resources = new ArrayList<>();
+
+            lock.lock();
+            try {
+                expungeReleased();
+
+                ResourceManager resourceManager = members.get(member);
+                if (resourceManager != null) {
+                    return resourceManager;
+                }
+
+                List<ResourceManager> candidates = resourceManagersByClass.computeIfAbsent(resourceClass, c -> new ArrayList<>());
+                if (classAndKey != null) {
+                    resourceManager = resourceManagersByKey.get(classAndKey);
+                }
+                if (resourceManager == null) {
+                    resourceManager = match;
+                }
+
+                // Resource managers with different keys are different, so an XAResource with a key is only compared with
+                // those which have none yet. For it, a failure only means that a resource manager first seen without a
+                // key is not recognised. Without a key, a failure leaves the resource manager unknown, unless a later
+                // candidate matches.
+
+                if (resourceManager == null) {
+                    for (ResourceManager candidate : candidates) {
+                        XAResource resource = candidate.getResource();
+                        if ((key == null || candidate.key == null) && resource != null && !compared.contains(candidate)) {
+                            toCompare.add(candidate);
+                            resources.add(resource);
+                        }
+                    }
+
+                    if (toCompare.isEmpty()) {
+                        if (failed && key == null) {
+                            return null;
+                        }
+
+                        resourceManager = new ResourceManager(resourceClass, key);
+                    }
+                }
+
+                if (resourceManager != null) {
+                    publish(member, resourceManager, candidates, classAndKey);
+                    return resourceManager;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; match == null && i < toCompare.size(); i++) {
+                compared.add(toCompare.get(i));
+                try {
+                    if (xaResource.isSameRM(resources.get(i))) {
+                        match = toCompare.get(i);
+                    }
+                } catch (XAException e) {
+                    failed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that the XAResource of the given member belongs to the given resource manager. The caller holds the lock.
+     */
+    private static void publish(Member member, ResourceManager resourceManager, List<ResourceManager> candidates, List<Object> classAndKey) {
+        // A resource manager without a key is forgotten when its last XAResource is, which may have happened since it
+        // was found to match.
+        if (!candidates.contains(resourceManager)) {
+            candidates.add(resourceManager);
+        }
+
+        if (classAndKey != null && resourceManager.key == null) {
+            resourceManager.key = classAndKey.get(1);
+            resourceManagersByKey.put(classAndKey, resourceManager);
+        }
+
+        resourceManager.resources.add(member);
+        members.put(member, resourceManager);
+    }
+
+    /**
+     * Forgets the XAResource objects which are no longer in use, and the resource managers without a key which have no
+     * XAResource left. The caller holds the lock.
+     */
+    private static void expungeReleased() {
+        Object reference;
+        while ((reference = released.poll()) != null) {
+            Member member = (Member) reference;
+            ResourceManager resourceManager = members.remove(member);
+            if (resourceManager != null) {
+                resourceManager.resources.remove(member);
+                if (resourceManager.resources.isEmpty() && resourceManager.key == null) {
+                    resourceManagersByClass.get(resourceManager.resourceClass).remove(resourceManager);
+                }
+            }
+        }
+    }
+
+    /**
+     * A weak reference to an XAResource which compares by the identity of the XAResource.
+     */
+    private static final class Member extends WeakReference<XAResource> {
+        private final int hash;
+
+        Member(XAResource xaResource) {
+            super(xaResource);
+            hash = System.identityHashCode(xaResource);
+        }
+
+        Member(XAResource xaResource, ReferenceQueue<XAResource> queue) {
+            super(xaResource, queue);
+            hash = System.identityHashCode(xaResource);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof Member)) {
+                return false;
+            }
+
+            XAResource resource = get();
+            return resource != null && resource == ((Member) other).get();
+        }
+    }
+}
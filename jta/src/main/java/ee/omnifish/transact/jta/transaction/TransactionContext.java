@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.transaction;
+
+import ee.omnifish.transact.api.JavaEETransaction;
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+
+/**
+ * The transaction state of one thread, kept by the JavaEETransactionManagerImpl in a single thread local.
+ * <p>
+ * A transaction operation looks the context up once and then reads and updates its fields, instead of probing a
+ * separate thread local for each of them. The context is only used by its own thread, so it needs no synchronization.
+ * It is not inherited by child threads, so that transactions are not inherited either.
+ */
+final class TransactionContext {
+
+    /**
+     * The transaction associated with the thread, or null.
+     */
+    JavaEETransaction transaction;
+
+    /**
+     * The delegate chosen when the transaction of the thread began, or null to use the delegate of the manager.
+     */
+    JavaEETransactionManagerDelegate delegate;
+
+    /**
+     * The number of calls to local objects made by the thread, which must not remove the transaction of the thread when
+     * they return.
+     */
+    int localCallCount;
+
+    /**
+     * The timeout set for transactions begun by the thread, in seconds, or null to use the default timeout.
+     */
+    Integer timeout;
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.transaction;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.logging.Level.WARNING;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Schedules the timeouts of local transactions.
+ * <p>
+ * Deadlines are kept in a number of hashed timing wheels, each with its own lock, so that transactions which begin and
+ * complete concurrently rarely contend with each other. Arming and cancelling a deadline are constant time operations,
+ * and a cancelled deadline is unlinked immediately instead of being left behind until a purge. A single daemon thread
+ * advances the wheels once per tick and runs the actions of the deadlines that have passed.
+ * <p>
+ * Deadlines are taken from {@link System#nanoTime()} and fire at most one tick late.
+ */
+public final class TransactionTimeoutScheduler {
+
+    static Logger _logger = Logger.getLogger(TransactionTimeoutScheduler.class.getName());
+
+    /**
+     * The duration of one tick of the wheels.
+     */
+    static final long TICK_NANOS = MILLISECONDS.toNanos(100);
+
+    /**
+     * The number of buckets in each wheel; must be a power of two.
+     */
+    static final int WHEEL_SIZE = 512;
+
+    private static final TransactionTimeoutScheduler instance = new TransactionTimeoutScheduler();
+
+    private final Wheel[] wheels;
+    private final long startNanos;
+    private final LongAdder armed = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private Ticker ticker;
+
+    TransactionTimeoutScheduler() {
+        int count = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        wheels = new Wheel[count];
+        for (int i = 0; i < count; i++) {
+            wheels[i] = new Wheel();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the scheduler shared by all local transactions.
+     */
+    public static TransactionTimeoutScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Arms a deadline.
+     *
+     * @param seconds The number of seconds after which the action is run.
+     * @param key A value spreading deadlines over the wheels, such as the transaction id.
+     * @param action The action to run when the deadline passes. It is run on the scheduler thread and must not block.
+     *
+     * @return The armed deadline, to be passed to {@link #cancel}.
+     */
+    Deadline schedule(int seconds, long key, Runnable action) {
+        startTicker();
+
+        Deadline deadline = new Deadline(action, wheels[(int) key & (wheels.length - 1)]);
+        deadline.nanos = System.nanoTime() + SECONDS.toNanos(seconds);
+        deadline.wheel.add(deadline, tickOf(deadline.nanos));
+        armed.increment();
+
+        return deadline;
+    }
+
+    /**
+     * Cancels a deadline, if it has not fired yet.
+     *
+     * @param deadline The deadline to cancel.
+     *
+     * @return true if the deadline was armed and will not fire.
+     */
+    boolean cancel(Deadline deadline) {
+        if (!deadline.wheel.remove(deadline)) {
+            return false;
+        }
+
+        cancelled.increment();
+        return true;
+    }
+
+    /**
+     * @return the number of deadlines armed since startup.
+     */
+    public long getArmedCount() {
+        return armed.sum();
+    }
+
+    /**
+     * @return the number of deadlines that have fired since startup.
+     */
+    public long getFiredCount() {
+        return fired.sum();
+    }
+
+    /**
+     * @return the number of deadlines cancelled before they fired since startup.
+     */
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    /**
+     * @return the number of deadlines which are currently armed.
+     */
+    public int getPendingCount() {
+        int pending = 0;
+        for (Wheel wheel : wheels) {
+            pending += wheel.size();
+        }
+
+        return pending;
+    }
+
+    /**
+     * Advances all wheels to the given time and runs the actions of the deadlines that have passed.
+     *
+     * @param now The current value of {@link System#nanoTime()}.
+     */
+    void advance(long now) {
+        List<Deadline> expired = new ArrayList<>();
+        for (Wheel wheel : wheels) {
+            wheel.advance(now, tickOf(now), expired);
+        }
+
+        for (Deadline deadline : expired) {
+            fired.increment();
+            try {
+                deadline.action.run();
+            } catch (Throwable t) {
+                _logger.log(WARNING, "Transaction timeout action failed", t);
+            }
+        }
+    }
+
+    private long tickOf(long nanos) {
+        return (nanos - startNanos) / TICK_NANOS;
+    }
+
+    private synchronized void startTicker() {
+        if (ticker == null) {
+            ticker = new Ticker();
+            ticker.start();
+        }
+    }
+
+    /**
+     * An armed timeout. Linked into the bucket of the wheel for the tick in which it passes.
+     */
+    static final class Deadline {
+        final Runnable action;
+        final Wheel wheel;
+        long nanos;
+        int bucket = -1;
+        Deadline previous;
+        Deadline next;
+
+        Deadline(Runnable action, Wheel wheel) {
+            this.action = action;
+            this.wheel = wheel;
+        }
+    }
+
+    /**
+     * One shard of the scheduler.
+     */
+    static final class Wheel {
+        private final Deadline[] buckets = new Deadline[WHEEL_SIZE];
+        private long currentTick;
+        private int size;
+
+        synchronized void add(Deadline deadline, long tick) {
+            link(deadline, (int) (Math.max(tick, currentTick) & (WHEEL_SIZE - 1)));
+            size++;
+        }
+
+        synchronized boolean remove(Deadline deadline) {
+            if (deadline.bucket < 0) {
+                return false;
+            }
+
+            unlink(deadline);
+            size--;
+            return true;
+        }
+
+        synchronized void advance(long now, long nowTick, List<Deadline> expired) {
+            if (size > 0) {
+                // Visit the bucket of every tick that has passed, including the current one as it may
+                // hold deadlines which pass later during this tick. A full turn covers every bucket.
+
+                long lastTick = Math.min(nowTick, currentTick + WHEEL_SIZE - 1);
+                for (long tick = currentTick; tick <= lastTick; tick++) {
+                    Deadline deadline = buckets[(int) (tick & (WHEEL_SIZE - 1))];
+                    while (deadline != null) {
+                        Deadline next = deadline.next;
+                        if (deadline.nanos - now <= 0) {
+                            unlink(deadline);
+                            size--;
+                            expired.add(deadline);
+                        }
+                        deadline = next;
+                    }
+                }
+            }
+            currentTick = nowTick;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void link(Deadline deadline, int bucket) {
+            Deadline head = buckets[bucket];
+            deadline.bucket = bucket;
+            deadline.previous = null;
+            deadline.next = head;
+            if (head != null) {
+                head.previous = deadline;
+            }
+            buckets[bucket] = deadline;
+        }
+
+        private void unlink(Deadline deadline) {
+            if (deadline.previous == null) {
+                buckets[deadline.bucket] = deadline.next;
+            } else {
+                deadline.previous.next = deadline.next;
+            }
+            if (deadline.next != null) {
+                deadline.next.previous = deadline.previous;
+            }
+            deadline.bucket = -1;
+            deadline.previous = null;
+            deadline.next = null;
+        }
+    }
+
+    /**
+     * The thread which advances the wheels.
+     */
+    private final class Ticker extends Thread {
+
+        Ticker() {
+            setName("Local Transaction Timeout Thread");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long nextTick = System.nanoTime() + TICK_NANOS;
+            while (true) {
+                long delay = nextTick - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(this, delay);
+                    continue;
+                }
+
+                advance(System.nanoTime());
+                nextTick += TICK_NANOS;
+                if (nextTick - System.nanoTime() < 0) {
+                    // The thread fell behind, do not try to catch up tick by tick.
+                    nextTick = System.nanoTime() + TICK_NANOS;
+                }
+            }
+        }
+    }
+}
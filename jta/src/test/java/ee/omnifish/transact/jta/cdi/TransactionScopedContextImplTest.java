@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.cdi;
+
+import static ee.omnifish.transact.jta.cdi.TransactionScopedContextImpl.TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Proxy;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.naming.Context;
+import javax.naming.NameNotFoundException;
+import javax.naming.spi.InitialContextFactory;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerSimplifiedDelegate;
+import ee.omnifish.transact.jta.transaction.TransactionSynchronizationRegistryImpl;
+
+import jakarta.enterprise.context.spi.Contextual;
+import jakarta.enterprise.context.spi.CreationalContext;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.spi.Bean;
+import jakarta.enterprise.inject.spi.BeanManager;
+import jakarta.enterprise.inject.spi.CDI;
+import jakarta.enterprise.inject.spi.PassivationCapable;
+import jakarta.enterprise.util.TypeLiteral;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the TransactionScopedContextImpl with the registry bound in a minimal JNDI context, and the Initialized and
+ * Destroyed events fired through a BeanManager that only knows the event helper.
+ */
+public class TransactionScopedContextImplTest {
+
+    static TransactionSynchronizationRegistry registry;
+
+    private static final List<String> initializedEvents = new CopyOnWriteArrayList<>();
+    private static final List<String> destroyedEvents = new CopyOnWriteArrayList<>();
+
+    private JavaEETransactionManagerImpl txManager;
+    private TransactionScopedContextImpl context;
+    private ExecutorService first;
+    private ExecutorService second;
+
+    /**
+     * Binds the registry of the test under its name in java:comp.
+     */
+    public static class RegistryContextFactory implements InitialContextFactory {
+
+        @Override
+        public Context getInitialContext(Hashtable<?, ?> environment) {
+            return (Context) Proxy.newProxyInstance(Context.class.getClassLoader(), new Class<?>[] { Context.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                case "lookup":
+                    if (TRANSACTION_SYNCHRONIZATION_REGISTRY_JNDI_NAME.equals(args[0])) {
+                        return registry;
+                    }
+                    throw new NameNotFoundException(String.valueOf(args[0]));
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+
+    /**
+     * Records the events it fires, with the thread that fired them.
+     */
+    static final class EventHelper implements TransactionScopedCDIEventHelper {
+
+        @Override
+        public void fireInitializedEvent(TransactionScopedCDIEventPayload payload) {
+            initializedEvents.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void fireDestroyedEvent(TransactionScopedCDIEventPayload payload) {
+            destroyedEvents.add(Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * A TransactionScoped bean.
+     */
+    static final class ScopedBean implements Contextual<Object>, PassivationCapable {
+
+        final List<Object> destroyed = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object create(CreationalContext<Object> creationalContext) {
+            return new Object();
+        }
+
+        @Override
+        public void destroy(Object instance, CreationalContext<Object> creationalContext) {
+            destroyed.add(instance);
+        }
+
+        @Override
+        public String getId() {
+            return "TransactionScopedContextImplTest.ScopedBean";
+        }
+    }
+
+    /**
+     * The CDI of the test, of which only the BeanManager is used.
+     */
+    static final class TestCDI extends CDI<Object> {
+
+        private final BeanManager beanManager;
+
+        TestCDI() {
+            Bean<?> helperBean = (Bean<?>) Proxy.newProxyInstance(Bean.class.getClassLoader(), new Class<?>[] { Bean.class }, (proxy, method, args) -> {
+                if (method.getName().equals("getBeanClass")) {
+                    return TransactionScopedCDIEventHelperImpl.class;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+            EventHelper eventHelper = new EventHelper();
+
+            beanManager = (BeanManager) Proxy.newProxyInstance(BeanManager.class.getClassLoader(), new Class<?>[] { BeanManager.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                case "getBeans":
+                    return TransactionScopedCDIEventHelperImpl.class.equals(args[0]) ? singleton(helperBean) : null;
+                case "resolve":
+                    return helperBean;
+                case "getReference":
+                    return eventHelper;
+                case "createCreationalContext":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        @Override
+        public BeanManager getBeanManager() {
+            return beanManager;
+        }
+
+        @Override
+        public Instance<Object> select(Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U> Instance<U> select(Class<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U> Instance<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isUnsatisfied() {
+            return true;
+        }
+
+        @Override
+        public boolean isAmbiguous() {
+            return false;
+        }
+
+        @Override
+        public void destroy(Object instance) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Handle<Object> getHandle() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Iterable<? extends Handle<Object>> handles() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @BeforeAll
+    public static void setUpCDI() {
+        System.setProperty(Context.INITIAL_CONTEXT_FACTORY, RegistryContextFactory.class.getName());
+        TestCDI cdi = new TestCDI();
+        CDI.setCDIProvider(() -> cdi);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerSimplifiedDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+        registry = new TransactionSynchronizationRegistryImpl(txManager);
+
+        context = new TransactionScopedContextImpl();
+        first = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "first"));
+        second = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "second"));
+        initializedEvents.clear();
+        destroyedEvents.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        first.shutdownNow();
+        second.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentTransactionsHaveTheirOwnBeansAndDestroyedEvents() throws Exception {
+        ScopedBean bean = new ScopedBean();
+
+        on(first, () -> {
+            txManager.begin();
+            return null;
+        });
+        on(second, () -> {
+            txManager.begin();
+            return null;
+        });
+
+        Object firstInstance = on(first, () -> context.get(bean, null));
+        Object secondInstance = on(second, () -> context.get(bean, null));
+        assertNotSame(firstInstance, secondInstance);
+        assertSame(firstInstance, on(first, () -> context.get(bean)));
+        assertSame(secondInstance, on(second, () -> context.get(bean)));
+        assertEquals(List.of("first", "second"), initializedEvents);
+        assertEquals(2, context.getBeansByTransactionKey().size());
+
+        on(first, () -> {
+            txManager.commit();
+            return null;
+        });
+        assertEquals(List.of(firstInstance), bean.destroyed);
+        assertEquals(List.of("first"), destroyedEvents);
+        assertSame(secondInstance, on(second, () -> context.get(bean)));
+        assertEquals(1, context.getBeansByTransactionKey().size());
+
+        on(second, () -> {
+            txManager.commit();
+            return null;
+        });
+        assertEquals(List.of(firstInstance, secondInstance), bean.destroyed);
+        assertEquals(List.of("first", "second"), destroyedEvents);
+        assertTrue(context.getBeansByTransactionKey().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedBeansPerTransaction() throws Exception {
+        ScopedBean bean = new ScopedBean();
+
+        assertTrue(context.getBeansPerTransaction().isEmpty());
+
+        txManager.begin();
+        try {
+            assertTrue(context.getBeansPerTransaction().isEmpty());
+            context.get(bean, null);
+
+            assertEquals(singleton(registry), context.getBeansPerTransaction().keySet());
+            assertEquals(1, context.getBeansPerTransaction().get(registry).size());
+        } finally {
+            txManager.commit();
+        }
+
+        assertTrue(context.getBeansPerTransaction().isEmpty());
+    }
+
+    private static <T> T on(ExecutorService thread, Callable<T> task) throws Exception {
+        return thread.submit(task).get();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.cdi;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.interceptor.InvocationContext;
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the TransactionalMetadata: how the annotation of a method is found and which exceptions mark the transaction
+ * for rollback.
+ */
+public class TransactionalMetadataTest {
+
+    @Test
+    public void testUncheckedExceptionRollsBackByDefault() throws Exception {
+        TransactionalMetadata metadata = metadata(new Bean(), "defaults");
+
+        assertTrue(metadata.isRollbackFor(RuntimeException.class));
+        assertTrue(metadata.isRollbackFor(IllegalStateException.class));
+    }
+
+    @Test
+    public void testCheckedExceptionDoesNotRollBackByDefault() throws Exception {
+        TransactionalMetadata metadata = metadata(new Bean(), "defaults");
+
+        assertFalse(metadata.isRollbackFor(Exception.class));
+        assertFalse(metadata.isRollbackFor(IOException.class));
+    }
+
+    @Test
+    public void testRollbackOnMatchesCheckedExceptionAndItsSubclasses() throws Exception {
+        TransactionalMetadata metadata = metadata(new Bean(), "rollbackOnIOException");
+
+        assertTrue(metadata.isRollbackFor(IOException.class));
+        assertTrue(metadata.isRollbackFor(FileNotFoundException.class));
+        assertFalse(metadata.isRollbackFor(Exception.class));
+    }
+
+    @Test
+    public void testDontRollbackOnMatchesUncheckedExceptionAndItsSubclasses() throws Exception {
+        TransactionalMetadata metadata = metadata(new Bean(), "dontRollbackOnIllegalStateException");
+
+        assertFalse(metadata.isRollbackFor(IllegalStateException.class));
+        assertFalse(metadata.isRollbackFor(SubclassOfIllegalStateException.class));
+        assertTrue(metadata.isRollbackFor(IllegalArgumentException.class));
+    }
+
+    @Test
+    public void testDontRollbackOnTakesPrecedenceForUncheckedException() throws Exception {
+        // rollbackOn is the closer match, yet an unchecked exception that dontRollbackOn matches never rolls back
+        TransactionalMetadata metadata = metadata(new Bean(), "rollbackOnSubclassDontRollbackOnRuntimeException");
+
+        assertFalse(metadata.isRollbackFor(SubclassOfIllegalStateException.class));
+        assertFalse(metadata.isRollbackFor(IllegalStateException.class));
+    }
+
+    @Test
+    public void testCloserMatchWinsForCheckedException() throws Exception {
+        TransactionalMetadata metadata = metadata(new Bean(), "rollbackOnExceptionDontRollbackOnIOException");
+
+        assertFalse(metadata.isRollbackFor(IOException.class));
+        assertFalse(metadata.isRollbackFor(FileNotFoundException.class));
+        assertTrue(metadata.isRollbackFor(Exception.class));
+        assertTrue(metadata.isRollbackFor(ClassNotFoundException.class));
+
+        metadata = metadata(new Bean(), "rollbackOnFileNotFoundDontRollbackOnIOException");
+
+        assertTrue(metadata.isRollbackFor(FileNotFoundException.class));
+        assertFalse(metadata.isRollbackFor(IOException.class));
+    }
+
+    @Test
+    public void testDontRollbackOnTakesPrecedenceForSameCheckedException() throws Exception {
+        TransactionalMetadata metadata = metadata(new Bean(), "rollbackOnAndDontRollbackOnIOException");
+
+        assertFalse(metadata.isRollbackFor(IOException.class));
+        assertFalse(metadata.isRollbackFor(FileNotFoundException.class));
+    }
+
+    @Test
+    public void testMethodAnnotationOverridesClassAnnotation() throws Exception {
+        AnnotatedBean bean = new AnnotatedBean();
+
+        TransactionalMetadata classMetadata = metadata(bean, "inherits");
+        assertTrue(classMetadata.isRollbackFor(IOException.class));
+        assertFalse(classMetadata.isRollbackFor(IllegalStateException.class));
+
+        TransactionalMetadata methodMetadata = metadata(bean, "overrides");
+        assertNotSame(classMetadata, methodMetadata);
+        assertFalse(methodMetadata.isRollbackFor(IOException.class));
+        assertTrue(methodMetadata.isRollbackFor(IllegalStateException.class));
+
+        assertSame(classMetadata, metadata(bean, "alsoInherits"));
+        assertSame(methodMetadata, metadata(bean, "overrides"));
+    }
+
+    @Test
+    public void testNoAnnotation() throws Exception {
+        assertSame(TransactionalMetadata.NONE, metadata(new Object(), Object.class.getMethod("toString")));
+        assertTrue(TransactionalMetadata.NONE.isRollbackFor(RuntimeException.class));
+        assertFalse(TransactionalMetadata.NONE.isRollbackFor(Exception.class));
+    }
+
+    @Test
+    public void testIsLifeCycleMethod() throws Exception {
+        assertTrue(TransactionalMetadata.isLifeCycleMethod(Bean.class.getDeclaredMethod("postConstruct")));
+        assertTrue(TransactionalMetadata.isLifeCycleMethod(Bean.class.getDeclaredMethod("preDestroy")));
+        assertFalse(TransactionalMetadata.isLifeCycleMethod(Bean.class.getDeclaredMethod("defaults")));
+    }
+
+    private static TransactionalMetadata metadata(Object target, String methodName) throws NoSuchMethodException {
+        return metadata(target, target.getClass().getDeclaredMethod(methodName));
+    }
+
+    private static TransactionalMetadata metadata(Object target, Method method) {
+        InvocationContext invocationContext = (InvocationContext) Proxy.newProxyInstance(InvocationContext.class.getClassLoader(),
+                new Class<?>[] { InvocationContext.class }, (proxy, invoked, args) -> {
+                    switch (invoked.getName()) {
+                    case "getTarget":
+                        return target;
+                    case "getMethod":
+                        return method;
+                    default:
+                        throw new UnsupportedOperationException(invoked.getName());
+                    }
+                });
+
+        return TransactionalMetadata.get(invocationContext);
+    }
+
+    static class SubclassOfIllegalStateException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class Bean {
+
+        @Transactional
+        void defaults() {
+        }
+
+        @Transactional(rollbackOn = IOException.class)
+        void rollbackOnIOException() {
+        }
+
+        @Transactional(dontRollbackOn = IllegalStateException.class)
+        void dontRollbackOnIllegalStateException() {
+        }
+
+        @Transactional(rollbackOn = SubclassOfIllegalStateException.class, dontRollbackOn = RuntimeException.class)
+        void rollbackOnSubclassDontRollbackOnRuntimeException() {
+        }
+
+        @Transactional(rollbackOn = Exception.class, dontRollbackOn = IOException.class)
+        void rollbackOnExceptionDontRollbackOnIOException() {
+        }
+
+        @Transactional(rollbackOn = FileNotFoundException.class, dontRollbackOn = IOException.class)
+        void rollbackOnFileNotFoundDontRollbackOnIOException() {
+        }
+
+        @Transactional(rollbackOn = IOException.class, dontRollbackOn = IOException.class)
+        void rollbackOnAndDontRollbackOnIOException() {
+        }
+
+        @PostConstruct
+        void postConstruct() {
+        }
+
+        @PreDestroy
+        void preDestroy() {
+        }
+    }
+
+    @Transactional(rollbackOn = IOException.class, dontRollbackOn = IllegalStateException.class)
+    static class AnnotatedBean {
+
+        void inherits() {
+        }
+
+        void alsoInherits() {
+        }
+
+        @Transactional
+        void overrides() {
+        }
+    }
+}
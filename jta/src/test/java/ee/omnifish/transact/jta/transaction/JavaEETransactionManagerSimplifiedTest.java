@@ -28,7 +28,13 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl.getStatusAsString;
+import static jakarta.transaction.Status.STATUS_COMMITTED;
+import static jakarta.transaction.Status.STATUS_ROLLEDBACK;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 import javax.transaction.xa.XAException;
@@ -224,6 +230,85 @@ public class JavaEETransactionManagerSimplifiedTest {
     }
 
 
+    @Test
+    public void testTimeout() throws Exception {
+        TransactionTimeoutScheduler scheduler = TransactionTimeoutScheduler.getInstance();
+        long armed = scheduler.getArmedCount();
+        long fired = scheduler.getFiredCount();
+        long cancelled = scheduler.getCancelledCount();
+
+        txManager.setTransactionTimeout(1);
+        txManager.begin();
+        txManager.commit();
+        assertEquals(armed + 1, scheduler.getArmedCount());
+        assertEquals(cancelled + 1, scheduler.getCancelledCount());
+
+        txManager.begin();
+        Thread.sleep(1500);
+        assertTrue(((JavaEETransactionManagerImpl) txManager).isTimedOut(), "Transaction not timed out");
+        assertEquals("MarkedRollback", getStatusAsString(txManager.getStatus()));
+        assertEquals(fired + 1, scheduler.getFiredCount());
+        assertThrows(RollbackException.class, () -> txManager.commit());
+        assertEquals(cancelled + 1, scheduler.getCancelledCount());
+    }
+
+
+    /**
+     * Runs begin/commit and begin/rollback pairs on many threads at once. Every transaction must be completed exactly once,
+     * with the outcome its thread asked for.
+     */
+    @Test
+    public void testConcurrentBeginCommit() throws Exception {
+        final int threads = 16;
+        final int perThread = 2_000;
+        Map<Transaction, Integer> completions = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < perThread; j++) {
+                        boolean commit = j % 2 == 0;
+                        txManager.begin();
+                        Transaction tx = txManager.getTransaction();
+                        tx.registerSynchronization(new Synchronization() {
+                            @Override
+                            public void beforeCompletion() {
+                            }
+
+                            @Override
+                            public void afterCompletion(int status) {
+                                completions.merge(tx, status, (previous, next) -> -1);
+                            }
+                        });
+                        if (commit) {
+                            txManager.commit();
+                        } else {
+                            txManager.rollback();
+                        }
+                        assertEquals(commit ? STATUS_COMMITTED : STATUS_ROLLEDBACK, completions.get(tx));
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            workers[i].start();
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertNull(failure.get(), () -> "Failure: " + failure.get());
+        assertEquals(threads * perThread, completions.size(), "Lost completions");
+        assertFalse(completions.containsValue(-1), "Duplicated completions");
+        assertEquals("NoTransaction", getStatusAsString(txManager.getStatus()));
+    }
+
+
     @Test
     public void testTxCommit() throws Exception {
         txManager.begin();
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jta.transaction;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+import org.junit.jupiter.api.Test;
+
+import ee.omnifish.transact.jta.transaction.ResourceManagerRegistry.ResourceManager;
+
+/**
+ * Tests the ResourceManagerRegistry. Each test uses XAResource classes of its own, as the registry is shared.
+ */
+public class ResourceManagerRegistryTest {
+
+    @Test
+    public void testResourceManagerIsLookedUpOnceClassified() throws Exception {
+        Object first = new Object();
+        CachedResource a = new CachedResource(first);
+        CachedResource b = new CachedResource(first);
+        CachedResource c = new CachedResource(new Object());
+
+        ResourceManager resourceManager = ResourceManagerRegistry.getResourceManager(a);
+        assertSame(resourceManager, ResourceManagerRegistry.getResourceManager(b));
+        assertNotSame(resourceManager, ResourceManagerRegistry.getResourceManager(c));
+        int calls = a.isSameRMCount + b.isSameRMCount + c.isSameRMCount;
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ResourceManagerRegistry.isSameRM(a, b));
+            assertFalse(ResourceManagerRegistry.isSameRM(b, c));
+        }
+        assertEquals(calls, a.isSameRMCount + b.isSameRMCount + c.isSameRMCount);
+    }
+
+    @Test
+    public void testReleasedResourceIsForgotten() throws Exception {
+        Object kept = new Object();
+        EvictedResource dropped = new EvictedResource(new Object());
+        ResourceManager droppedResourceManager = ResourceManagerRegistry.getResourceManager(dropped);
+        EvictedResource a = new EvictedResource(kept);
+        ResourceManager resourceManager = ResourceManagerRegistry.getResourceManager(a);
+        assertNotSame(droppedResourceManager, resourceManager);
+
+        // The registry must not keep a pooled XAResource alive once it is no longer in use.
+
+        WeakReference<XAResource> reference = new WeakReference<>(dropped);
+        dropped = null;
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (reference.get() != null) {
+            assertTrue(System.nanoTime() < deadline, "The registry kept the XAResource alive");
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        // The resource manager which has no XAResource left is no longer compared.
+
+        EvictedResource b = new EvictedResource(kept);
+        assertSame(resourceManager, ResourceManagerRegistry.getResourceManager(b));
+        assertEquals(1, b.isSameRMCount);
+    }
+
+    @Test
+    public void testFailedIsSameRMFallsBackToTheCaller() throws Exception {
+        Object first = new Object();
+        FailingResource a = new FailingResource(first);
+        FailingResource failing = new FailingResource(first);
+        failing.failIsSameRM = true;
+        assertNotNull(ResourceManagerRegistry.getResourceManager(a));
+
+        // The resource manager of the failing XAResource is not known, and not remembered.
+
+        assertNull(ResourceManagerRegistry.getResourceManager(failing));
+        assertNull(ResourceManagerRegistry.getResourceManager(failing));
+        assertEquals(2, failing.isSameRMCount);
+
+        // The XAResources are compared with isSameRM instead, whose failure is reported.
+
+        assertTrue(ResourceManagerRegistry.isSameRM(a, failing));
+        assertFalse(ResourceManagerRegistry.isSameRM(new FailingResource(new Object()), failing));
+        assertThrows(XAException.class, () -> ResourceManagerRegistry.isSameRM(failing, a));
+
+        // Once isSameRM succeeds, the XAResource is classified.
+
+        failing.failIsSameRM = false;
+        assertSame(ResourceManagerRegistry.getResourceManager(a), ResourceManagerRegistry.getResourceManager(failing));
+    }
+
+    @Test
+    public void testLaterMatchIsUsedAfterAFailedIsSameRM() throws Exception {
+        Object second = new Object();
+        FlakyResource a = new FlakyResource(new Object());
+        FlakyResource b = new FlakyResource(second);
+        ResourceManagerRegistry.getResourceManager(a);
+        ResourceManager resourceManager = ResourceManagerRegistry.getResourceManager(b);
+
+        FlakyResource c = new FlakyResource(second);
+        c.failIsSameRMWith = a;
+
+        assertSame(resourceManager, ResourceManagerRegistry.getResourceManager(c));
+    }
+
+    @Test
+    public void testIsSameRMIsCalledWithoutTheLock() throws Exception {
+        BlockingResource a = new BlockingResource(new Object());
+        ResourceManagerRegistry.getResourceManager(a);
+
+        BlockingResource blocked = new BlockingResource(new Object());
+        blocked.blockIsSameRM = new CountDownLatch(1);
+        FutureTask<ResourceManager> classification = new FutureTask<>(() -> ResourceManagerRegistry.getResourceManager(blocked));
+        new Thread(classification).start();
+        try {
+            assertTrue(blocked.inIsSameRM.await(10, SECONDS));
+
+            // A resource manager which is slow to answer isSameRM does not hold up the others.
+
+            UnblockedResource b = new UnblockedResource(new Object());
+            FutureTask<ResourceManager> other = new FutureTask<>(() -> ResourceManagerRegistry.getResourceManager(b));
+            new Thread(other).start();
+            assertNotNull(other.get(10, SECONDS));
+        } finally {
+            blocked.blockIsSameRM.countDown();
+        }
+
+        assertNotSame(ResourceManagerRegistry.getResourceManager(a), classification.get(10, SECONDS));
+    }
+
+    @Test
+    public void testResourceManagerCreatedWhileComparingIsCompared() throws Exception {
+        Object second = new Object();
+        RacingResource a = new RacingResource(new Object());
+        ResourceManagerRegistry.getResourceManager(a);
+
+        // b is compared with a, and c of the same resource manager as b is classified in the meantime.
+
+        RacingResource b = new RacingResource(second);
+        b.blockIsSameRM = new CountDownLatch(1);
+        FutureTask<ResourceManager> classification = new FutureTask<>(() -> ResourceManagerRegistry.getResourceManager(b));
+        new Thread(classification).start();
+        ResourceManager resourceManager;
+        try {
+            assertTrue(b.inIsSameRM.await(10, SECONDS));
+            resourceManager = ResourceManagerRegistry.getResourceManager(new RacingResource(second));
+        } finally {
+            b.blockIsSameRM.countDown();
+        }
+
+        assertSame(resourceManager, classification.get(10, SECONDS));
+        assertEquals(2, b.isSameRMCount);
+    }
+
+    /**
+     * An XAResource of the given resource manager, which counts the calls to isSameRM.
+     */
+    static class TestResource implements XAResource {
+        final Object resourceManager;
+        volatile boolean failIsSameRM;
+        volatile XAResource failIsSameRMWith;
+        volatile CountDownLatch blockIsSameRM;
+        final CountDownLatch inIsSameRM = new CountDownLatch(1);
+        volatile int isSameRMCount;
+
+        TestResource(Object resourceManager) {
+            this.resourceManager = resourceManager;
+        }
+
+        @Override
+        public boolean isSameRM(XAResource xaResource) throws XAException {
+            isSameRMCount++;
+            CountDownLatch block = blockIsSameRM;
+            if (block != null && inIsSameRM.getCount() > 0) {
+                // Only the first call blocks
+                inIsSameRM.countDown();
+                try {
+                    block.await(30, SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failIsSameRM || xaResource == failIsSameRMWith) {
+                throw new XAException(XAException.XAER_RMFAIL);
+            }
+            return xaResource instanceof TestResource && ((TestResource) xaResource).resourceManager == resourceManager;
+        }
+
+        @Override
+        public void commit(Xid xid, boolean onePhase) {
+        }
+
+        @Override
+        public void end(Xid xid, int flags) {
+        }
+
+        @Override
+        public void forget(Xid xid) {
+        }
+
+        @Override
+        public int getTransactionTimeout() {
+            return 0;
+        }
+
+        @Override
+        public int prepare(Xid xid) {
+            return XA_OK;
+        }
+
+        @Override
+        public Xid[] recover(int flag) {
+            return new Xid[0];
+        }
+
+        @Override
+        public void rollback(Xid xid) {
+        }
+
+        @Override
+        public boolean setTransactionTimeout(int seconds) {
+            return false;
+        }
+
+        @Override
+        public void start(Xid xid, int flags) {
+        }
+    }
+
+    static class CachedResource extends TestResource {
+        CachedResource(Object resourceManager) {
+            super(resourceManager);
+        }
+    }
+
+    static class EvictedResource extends TestResource {
+        EvictedResource(Object resourceManager) {
+            super(resourceManager);
+        }
+    }
+
+    static class FailingResource extends TestResource {
+        FailingResource(Object resourceManager) {
+            super(resourceManager);
+        }
+    }
+
+    static class FlakyResource extends TestResource {
+        FlakyResource(Object resourceManager) {
+            super(resourceManager);
+        }
+    }
+
+    static class BlockingResource extends TestResource {
+        BlockingResource(Object resourceManager) {
+            super(resourceManager);
+        }
+    }
+
+    static class UnblockedResource extends TestResource {
+        UnblockedResource(Object resourceManager) {
+            super(resourceManager);
+        }
+    }
+
+    static class RacingResource extends TestResource {
+        RacingResource(Object resourceManager) {
+            super(resourceManager);
+        }
+    }
+}
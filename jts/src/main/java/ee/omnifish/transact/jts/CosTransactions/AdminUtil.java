@@ -43,7 +43,7 @@ public class AdminUtil {
      *
      */
     public static void freezeAll() {
-        TransactionState.freezeLock.acquireWriteLock();
+        TransactionState.freezeLock.freeze();
     }
 
     /**
@@ -56,7 +56,7 @@ public class AdminUtil {
      *
      */
     public static void unfreezeAll() {
-        TransactionState.freezeLock.releaseWriteLock();
+        TransactionState.freezeLock.unfreeze();
     }
 
     /**
@@ -69,7 +69,7 @@ public class AdminUtil {
      *
      */
     public static boolean isFrozenAll() {
-        return TransactionState.freezeLock.isWriteLocked();
+        return TransactionState.freezeLock.isFrozen();
     }
 
     /*
@@ -294,6 +294,63 @@ public class AdminUtil {
         return iRecAborts;
     }
 
+    /**
+     * Return the number of keypoints taken of the partitions of the transaction log.
+     */
+    public static long getKeypointCount() {
+        long count = 0;
+        for (LogKeypointer keypointer : CoordinatorLog.getKeypointers()) {
+            count += keypointer.getKeypointCount();
+        }
+        return count;
+    }
+
+    /**
+     * Return the time in milliseconds taken by the last keypoint of any partition of the transaction log.
+     */
+    public static long getLastKeypointDuration() {
+        LogKeypointer last = null;
+        for (LogKeypointer keypointer : CoordinatorLog.getKeypointers()) {
+            if (keypointer.getKeypointCount() > 0 && (last == null || keypointer.getLastKeypointTime() - last.getLastKeypointTime() > 0)) {
+                last = keypointer;
+            }
+        }
+        return last == null ? 0 : last.getLastKeypointDuration();
+    }
+
+    /**
+     * Return the time in milliseconds taken by the longest keypoint of any partition of the transaction log.
+     */
+    public static long getMaxKeypointDuration() {
+        long max = 0;
+        for (LogKeypointer keypointer : CoordinatorLog.getKeypointers()) {
+            max = Math.max(max, keypointer.getMaxKeypointDuration());
+        }
+        return max;
+    }
+
+    /**
+     * Return the time in milliseconds taken by all keypoints of the partitions of the transaction log together.
+     */
+    public static long getTotalKeypointDuration() {
+        long total = 0;
+        for (LogKeypointer keypointer : CoordinatorLog.getKeypointers()) {
+            total += keypointer.getTotalKeypointDuration();
+        }
+        return total;
+    }
+
+    /**
+     * Return the number of bytes released from the partitions of the transaction log by keypoints.
+     */
+    public static long getKeypointBytesReclaimed() {
+        long reclaimed = 0;
+        for (LogKeypointer keypointer : CoordinatorLog.getKeypointers()) {
+            reclaimed += keypointer.getBytesReclaimed();
+        }
+        return reclaimed;
+    }
+
     /**
      *
      * public static long getImmigerentTransactionCount() {
@@ -336,7 +393,7 @@ public class AdminUtil {
      *
      */
     public static Collection/* <Coordinator> */ getAllTransactions() {
-        return RecoveryManager.getCoordsByGlobalTID().values();
+        return RecoveryManager.getCoordsByGlobalTID().coordinators();
     }
 
     /**
@@ -344,7 +401,7 @@ public class AdminUtil {
      *
      */
     public static Enumeration/* <GlobalTID> */ getAllTIDs() {
-        return RecoveryManager.getCoordsByGlobalTID().keys();
+        return RecoveryManager.getCoordsByGlobalTID().globalTIDs();
     }
 
     private static RWLock statisticsLock = new RWLock();
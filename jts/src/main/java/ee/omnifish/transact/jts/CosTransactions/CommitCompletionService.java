@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Completes the second phase of two phase commit in the background when {@link Configuration#ASYNC_COMMIT} is enabled,
+ * so that commit returns as soon as the commit decision has been forced to the log.
+ * <p>
+ * The second phases run on a bounded pool of daemon threads with a bounded queue. When the queue is full the submitting
+ * thread completes the commit itself, which holds back callers while the participants fall behind. A participant that
+ * cannot be reached is retried after a wait which starts short and doubles up to {@link Configuration#COMMIT_RETRY_WAIT},
+ * within the same total time as the synchronous retries. The transaction service waits for the second phases in
+ * progress when it is shut down or quiesced, before the log is closed. A second phase which has not completed when the
+ * process ends is completed by recovery from the log.
+ */
+class CommitCompletionService {
+
+    static Logger _logger = Logger.getLogger(CommitCompletionService.class.getName());
+
+    private static final int DEFAULT_THREADS = 16;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long INITIAL_RETRY_WAIT = 1000;
+    private static final long DRAIN_LOG_INTERVAL = 10;
+
+    private static volatile Boolean enabled;
+    private static ThreadPoolExecutor executor;
+
+    /**
+     * Determines whether the asynchronous second phase has been enabled.
+     *
+     * @return true if the second phase should be completed in the background.
+     */
+    static boolean isEnabled() {
+        Boolean result = enabled;
+        if (result == null) {
+            result = "true".equalsIgnoreCase(Configuration.getPropertyValue(Configuration.ASYNC_COMMIT));
+            enabled = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Starts the given second phase on the pool.
+     *
+     * @param completion The second phase of a transaction.
+     *
+     * @return false if the pool is saturated, in which case the caller must complete the second phase itself.
+     */
+    static boolean submit(Runnable completion) {
+        try {
+            getExecutor().execute(completion);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the pool when the transaction service is shut down. Second phases submitted from now on are completed by
+     * their callers. Unless the shutdown is immediate, this waits for the second phases already submitted, so that their
+     * completion is written to the log before it is closed; otherwise they are left to recovery.
+     *
+     * @param immediate Indicates whether to stop without waiting.
+     */
+    static void shutdown(boolean immediate) {
+        ThreadPoolExecutor pool;
+        synchronized (CommitCompletionService.class) {
+            pool = getExecutor();
+            pool.shutdown();
+        }
+
+        if (immediate) {
+            return;
+        }
+
+        int pending = pool.getActiveCount() + pool.getQueue().size();
+        if (pending > 0) {
+            _logger.info("Waiting for the second phase of " + pending + " committed transactions to complete");
+        }
+
+        try {
+            while (!pool.awaitTermination(DRAIN_LOG_INTERVAL, SECONDS)) {
+                _logger.info("Still waiting for the second phase of " + (pool.getActiveCount() + pool.getQueue().size())
+                        + " committed transactions to complete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Discards the settings read from the configuration, so that they are read again when they are next needed. A pool
+     * which has already been started completes the second phases it has been given and then ends.
+     */
+    static synchronized void reconfigure() {
+        enabled = null;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Returns the time to wait before retrying the commit of a participant which could not be reached.
+     *
+     * @param retry The number of retries so far.
+     *
+     * @return The wait in milliseconds.
+     */
+    static long getRetryWait(int retry) {
+        return Math.min(INITIAL_RETRY_WAIT << Math.min(retry, 16), Configuration.COMMIT_RETRY_WAIT);
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            int threads = DEFAULT_THREADS;
+            String threadsValue = Configuration.getPropertyValue(Configuration.ASYNC_COMMIT_THREADS);
+            if (threadsValue != null) {
+                try {
+                    threads = Math.max(1, Integer.parseInt(threadsValue));
+                } catch (NumberFormatException e) {
+                    _logger.warning("Invalid value " + threadsValue + " for " + Configuration.ASYNC_COMMIT_THREADS);
+                }
+            }
+
+            executor = new ThreadPoolExecutor(threads, threads, 60, SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), new CompletionThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        return executor;
+    }
+
+    private static final class CompletionThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "JTS Commit Completion Thread " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -122,6 +122,19 @@ public class Configuration {
      */
     public final static String DB_LOG_RESOURCE = "ee.omnifish.transact.jts.logResource";
 
+    /**
+     * The property key used to enable batching for the transaction log in a database. When enabled, the records of
+     * concurrently preparing transactions are inserted by a single writer thread as one JDBC batch and committed together,
+     * and the records of completed transactions are deleted asynchronously in batches. The writer keeps its connection
+     * and prepared statements open between batches.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.dbLogBatching</b></em>.
+     * <p>
+     * The default value for this property is false, in which case every record is inserted and deleted with its own
+     * connection and statement.
+     */
+    public final static String DB_LOG_BATCHING = "ee.omnifish.transact.jts.dbLogBatching";
+
     /**
      * Whether to write warnings and errors to jts.log file if this property has any value, it is active, otherwise it is
      * inactive
@@ -172,6 +185,139 @@ public class Configuration {
      */
     public final static String KEYPOINT_COUNT = "ee.omnifish.transact.jts.keypointCount";
 
+    /**
+     * The property key used to specify the size in bytes which the transaction log may reach before a keypoint is taken,
+     * regardless of the number of transactions since the last one.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.keypointLogSize</b></em>.
+     * <p>
+     * The default value for this property is 0, in which case the size of the log does not trigger keypoints.
+     */
+    public final static String KEYPOINT_LOG_SIZE = "ee.omnifish.transact.jts.keypointLogSize";
+
+    /**
+     * The property key used to specify the time in seconds after which a keypoint is taken if any transaction has written
+     * to the log since the last one, regardless of the number of transactions.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.keypointInterval</b></em>.
+     * <p>
+     * The default value for this property is 0, in which case the age of the log does not trigger keypoints.
+     */
+    public final static String KEYPOINT_INTERVAL = "ee.omnifish.transact.jts.keypointInterval";
+
+    /**
+     * The property key used to enable group commit for forced writes to the transaction log. When enabled, concurrent
+     * forced writes are queued and appended by a single flusher thread, which makes each batch durable with one file system
+     * synchronisation before the waiting callers are released.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.logGroupCommit</b></em>.
+     * <p>
+     * The default value for this property is false, in which case every forced write synchronises the log itself.
+     */
+    public final static String LOG_GROUP_COMMIT = "ee.omnifish.transact.jts.logGroupCommit";
+
+    /**
+     * The property key used to specify the number of partitions of the transaction log. Each partition is an independent
+     * log with its own files and keypoints, and transactions are spread over the partitions by their local identifier,
+     * so that forced writes of different transactions do not wait for each other. The value <code>auto</code> uses one
+     * partition per available processor, up to 8, or one more than the number of partition directories if those are
+     * specified.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.logPartitions</b></em>.
+     * <p>
+     * The default value for this property is <code>auto</code>. Partitions left by an earlier run with more partitions are
+     * always recovered.
+     */
+    public final static String LOG_PARTITIONS = "ee.omnifish.transact.jts.logPartitions";
+
+    /**
+     * The property key used to specify the directories, separated by the path separator, which hold the partitions of the
+     * transaction log other than the first one, so that they can be placed on different devices. The first partition is
+     * always held in the log directory. Each partition is written to its own subdirectory, under a subdirectory named
+     * after the server, so that the servers of a cluster can share the partition directories.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.logPartitionDirectories</b></em>.
+     * <p>
+     * By default all partitions are held in subdirectories of the log directory.
+     */
+    public final static String LOG_PARTITION_DIRECTORIES = "ee.omnifish.transact.jts.logPartitionDirectories";
+
+    /**
+     * The property key used to enable parallel two phase commit. When enabled, prepare, commit and rollback are sent to all
+     * participants of a transaction at once, so that the latency of each phase is that of the slowest participant rather
+     * than the sum of all of them.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.parallelCompletion</b></em>.
+     * <p>
+     * The default value for this property is false, in which case participants are called one after another.
+     */
+    public final static String PARALLEL_COMPLETION = "ee.omnifish.transact.jts.parallelCompletion";
+
+    /**
+     * The property key used to specify the maximum number of threads used to call participants when parallel two phase
+     * commit is enabled.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.parallelCompletionThreads</b></em>.
+     * <p>
+     * The default value for this property is 32.
+     */
+    public final static String PARALLEL_COMPLETION_THREADS = "ee.omnifish.transact.jts.parallelCompletionThreads";
+
+    /**
+     * The property key used to specify the maximum number of threads used to scan resource managers and complete their
+     * in-doubt branches during XA recovery. A value of 1 recovers the resource managers one after another.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.recoveryThreads</b></em>.
+     * <p>
+     * The default value for this property is 16.
+     */
+    public final static String RECOVERY_THREADS = "ee.omnifish.transact.jts.recoveryThreads";
+
+    /**
+     * The property key used to specify the maximum number of in-doubt branches of one resource manager completed at the
+     * same time during XA recovery. Values above 1 call the same XAResource from several threads.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.recoveryThreadsPerResource</b></em>.
+     * <p>
+     * The default value for this property is 1.
+     */
+    public final static String RECOVERY_THREADS_PER_RESOURCE = "ee.omnifish.transact.jts.recoveryThreadsPerResource";
+
+    /**
+     * The property key used to specify the maximum number of threads used to reconstruct the transactions found in the
+     * log during restart recovery. A value of 1 reconstructs them one after another.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.recoveryReconstructThreads</b></em>.
+     * <p>
+     * The default value for this property is the number of available processors.
+     */
+    public final static String RECOVERY_RECONSTRUCT_THREADS = "ee.omnifish.transact.jts.recoveryReconstructThreads";
+
+    /**
+     * The property key used to enable the asynchronous second phase of two phase commit. When enabled, the commit of a
+     * top-level transaction returns as soon as the commit decision has been forced to the log, and the participants are
+     * told to commit in the background. The transaction remains known to recovery until all of them have acknowledged
+     * the commit, and heuristic outcomes are logged rather than reported to the caller.
+     * <p>
+     * A transaction can still be committed synchronously by setting the resource
+     * {@link ee.omnifish.transact.api.TransactionConstants#STRICT_COMPLETION} to true.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.asyncCommit</b></em>.
+     * <p>
+     * The default value for this property is false, in which case commit returns once all participants have committed.
+     */
+    public final static String ASYNC_COMMIT = "ee.omnifish.transact.jts.asyncCommit";
+
+    /**
+     * The property key used to specify the maximum number of threads used to complete the second phase of two phase
+     * commit when the asynchronous second phase is enabled.
+     * <p>
+     * The value is <em><b>ee.omnifish.transact.jts.asyncCommitThreads</b></em>.
+     * <p>
+     * The default value for this property is 16.
+     */
+    public final static String ASYNC_COMMIT_THREADS = "ee.omnifish.transact.jts.asyncCommitThreads";
+
     // Property to specify the instance name
     public final static String INSTANCE_NAME = "ee.omnifish.transact.jts.instancename";
 
@@ -373,6 +519,10 @@ public class Configuration {
             }
         }
 
+        // Settings which are read once when first needed must be read again.
+        ResourceCallExecutor.reconfigure();
+        CommitCompletionService.reconfigure();
+
     }
 
     /**
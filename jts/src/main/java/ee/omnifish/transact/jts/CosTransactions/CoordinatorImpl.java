@@ -30,6 +30,7 @@
 
 package ee.omnifish.transact.jts.CosTransactions;
 
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -102,6 +103,12 @@ abstract class CoordinatorImpl extends JCoordinatorPOA implements JCoordinator {
      */
     static final int activeChildren = 3;
 
+    /**
+     * Serializes the operations on the transaction. A lock rather than the monitor of the coordinator, because it is held
+     * across calls to resources and to the log, during which a virtual thread must not pin its carrier thread.
+     */
+    final ReentrantLock lock = new ReentrantLock();
+
     /**
      * OMG Coordinator operation required of all subclasses.
      */
@@ -376,22 +383,27 @@ abstract class CoordinatorImpl extends JCoordinatorPOA implements JCoordinator {
     /**
      * Returns a CORBA object which represents the transaction.
      */
-    synchronized final Coordinator object() {
-        if (thisRef == null) {
-            if (poa == null)
-                poa = Configuration.getPOA("Coordinator"/* #Frozen */);
-
-            try {
-                poa.activate_object(this);
-                thisRef = CoordinatorHelper.narrow(poa.servant_to_reference(this));
-            } catch (Exception exc) {
-                _logger.log(Level.SEVERE, "jts.create_coordinator_object_error", exc);
-                String msg = LogFormatter.getLocalizedMessage(_logger, "jts.create_coordinator_object_error");
-                throw new org.omg.CORBA.INTERNAL(msg);
+    final Coordinator object() {
+        lock.lock();
+        try {
+            if (thisRef == null) {
+                if (poa == null)
+                    poa = Configuration.getPOA("Coordinator"/* #Frozen */);
+
+                try {
+                    poa.activate_object(this);
+                    thisRef = CoordinatorHelper.narrow(poa.servant_to_reference(this));
+                } catch (Exception exc) {
+                    _logger.log(Level.SEVERE, "jts.create_coordinator_object_error", exc);
+                    String msg = LogFormatter.getLocalizedMessage(_logger, "jts.create_coordinator_object_error");
+                    throw new org.omg.CORBA.INTERNAL(msg);
+                }
             }
-        }
 
-        return thisRef;
+            return thisRef;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -420,14 +432,19 @@ abstract class CoordinatorImpl extends JCoordinatorPOA implements JCoordinator {
     /**
      * Destroys the CoordinatorImpl object reference.
      */
-    synchronized final void destroy() {
-        if (poa != null && thisRef != null)
-            try {
-                poa.deactivate_object(poa.reference_to_id(thisRef));
-                thisRef = null;
-            } catch (Exception exc) {
-                _logger.log(Level.WARNING, "jts.object_destroy_error", "Coordinator");
-            }
+    final void destroy() {
+        lock.lock();
+        try {
+            if (poa != null && thisRef != null)
+                try {
+                    poa.deactivate_object(poa.reference_to_id(thisRef));
+                    thisRef = null;
+                } catch (Exception exc) {
+                    _logger.log(Level.WARNING, "jts.object_destroy_error", "Coordinator");
+                }
+        } finally {
+            lock.unlock();
+        }
     }
 
     /*
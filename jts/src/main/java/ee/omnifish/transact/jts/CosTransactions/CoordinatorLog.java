@@ -30,16 +30,18 @@
 
 package ee.omnifish.transact.jts.CosTransactions;
 
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 // Import required classes.
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Stack;
 import java.util.Vector;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -89,6 +91,18 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
     private static Hashtable logStateHoldertable = new Hashtable();
     private static final java.lang.Object NULL_ENTRY = new java.lang.Object();
 
+    /**
+     * Serializes the static operations on the logs. This and the other locks of the class are locks rather than monitors,
+     * because they are held while the log is read and written, during which a virtual thread must not pin its carrier
+     * thread.
+     */
+    private static final ReentrantLock metaclassLock = new ReentrantLock();
+
+    /**
+     * Serializes the operations on this CoordinatorLog.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
     private Hashtable sectionMapping = null;
     private boolean rewriteRequired = false;
     private boolean writeDone = false;
@@ -107,10 +121,11 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
     CoordinatorLogStateHolder logStateHolder = null;
     private static CoordinatorLogStateHolder defaultLogStateHolder = getStateHolder(defaultstring);
 
-    // Static variables to handle byte array formatting.
-
-    private ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(2000);
-    private DataOutputStream dataOutput = new DataOutputStream(byteOutput);
+    /**
+     * The partitions of the default log, the first of which is the default log itself. Transactions are assigned to the
+     * partitions by their local identifier. They are set up when first used, see {@link LogPartitioning}.
+     */
+    private static volatile CoordinatorLogStateHolder[] partitions = null;
 
     // All the methods which take "String logPath" as parameter are same as the
     // ones with out that parameter. These methods are added for delegated
@@ -129,22 +144,104 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         synchronized (logStateHoldertable) {
             CoordinatorLogStateHolder logStateHolder = (CoordinatorLogStateHolder) logStateHoldertable.get(str);
             if (logStateHolder == null) {
-                logStateHolder = new CoordinatorLogStateHolder();
-                logStateHolder.logFile = null;
-                logStateHolder.log = null;
-                logStateHolder.activeLogs = new Hashtable();
-                logStateHolder.keypointLogs = new Hashtable();
-                logStateHolder.tranCount = 0;
-                logStateHolder.keypointInProgress = false;
-                // logStateHolder.keypointLock = new java.lang.Object();
-                logStateHolder.keypointLock = new RWLock();
-                logStateHolder.keypointStateLock = new java.lang.Object();
+                logStateHolder = newStateHolder(defaultstring.equals(str) ? null : str);
                 logStateHoldertable.put(str, logStateHolder);
             }
             return logStateHolder;
         }
     }
 
+    /**
+     * Creates the state for a log location.
+     *
+     * @param logPath The log location, or null for a partition of the default log.
+     *
+     * @return The new state.
+     */
+    static private CoordinatorLogStateHolder newStateHolder(String logPath) {
+        CoordinatorLogStateHolder logStateHolder = new CoordinatorLogStateHolder();
+        logStateHolder.logFile = null;
+        logStateHolder.log = null;
+        logStateHolder.activeLogs = new Hashtable();
+        logStateHolder.keypointLogs = new Hashtable();
+        logStateHolder.tranCount = 0;
+        logStateHolder.keypointInProgress = false;
+        // logStateHolder.keypointLock = new java.lang.Object();
+        logStateHolder.keypointLock = new RWLock();
+        logStateHolder.keypointStateLock = new ReentrantLock();
+        logStateHolder.keypointRunLock = new ReentrantLock();
+        logStateHolder.keypointer = new LogKeypointer(logStateHolder, logPath);
+        logStateHolder.otherPartitions = new CoordinatorLogStateHolder[0];
+        return logStateHolder;
+    }
+
+    /**
+     * Finds the partitions other than the first of the log at the given location, which belongs to another server whose
+     * transactions are recovered by delegated recovery. Only the partitions which hold log records are returned. They
+     * are laid out as the partitions of the default log, but under the log location and the name of the other server.
+     *
+     * @param logPath The log location.
+     *
+     * @return The partitions.
+     */
+    static private CoordinatorLogStateHolder[] findPartitions(String logPath) {
+        String serverName = Configuration.getServerName(logPath);
+        LogPartitioning partitioning = new LogPartitioning(logPath, serverName);
+        Vector found = new Vector();
+        for (int i = 1; i < partitioning.getPartitionCount(); i++) {
+            String directory = partitioning.getDirectory(i);
+            if (LogControl.checkFileExists(null, directory)) {
+                CoordinatorLogStateHolder partition = newStateHolder(null);
+                partition.partition = i;
+                partition.logDirectory = directory;
+                partition.serverName = serverName;
+                found.addElement(partition);
+            }
+        }
+        return (CoordinatorLogStateHolder[]) found.toArray(new CoordinatorLogStateHolder[found.size()]);
+    }
+
+    /**
+     * Returns the partitions of the default log, setting them up on first use.
+     *
+     * @return The partitions, the first of which is the default log.
+     */
+    static private CoordinatorLogStateHolder[] getPartitions() {
+        CoordinatorLogStateHolder[] result = partitions;
+        if (result == null) {
+            synchronized (logStateHoldertable) {
+                result = partitions;
+                if (result == null) {
+                    LogPartitioning partitioning = new LogPartitioning();
+                    result = new CoordinatorLogStateHolder[partitioning.getPartitionCount()];
+                    result[0] = defaultLogStateHolder;
+                    for (int i = 1; i < result.length; i++) {
+                        result[i] = newStateHolder(null);
+                        result[i].partition = i;
+                        result[i].logDirectory = partitioning.getDirectory(i);
+                    }
+                    partitions = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the partition of the default log which holds the records of the given transaction.
+     *
+     * @param localTID The local transaction identifier.
+     *
+     * @return The partition.
+     */
+    static private CoordinatorLogStateHolder getPartition(Long localTID) {
+        CoordinatorLogStateHolder[] logPartitions = getPartitions();
+        if (logPartitions.length == 1) {
+            return logPartitions[0];
+        }
+        return logPartitions[(int) Math.floorMod(localTID.longValue(), (long) logPartitions.length)];
+    }
+
     /**
      * Default CoordinatorLog constructor.
      *
@@ -184,22 +281,27 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    synchronized public void doFinalize() {
-
-        // Clear up the section mapping.
-
-        if (sectionMapping != null) {
-            Enumeration sections = sectionMapping.elements();
-            // the traditional way of iterating through the enumeration
-            // using sections.hasMoreElements was showing up as a
-            // hot spot during performance tests. Arun 9/27/99
-            int sz = sectionMapping.size();
-            while (sz-- > 0) {
-                CoordinatorLogSection section = (CoordinatorLogSection) sections.nextElement();
-                section.reUse();
+    public void doFinalize() {
+        lock.lock();
+        try {
+
+            // Clear up the section mapping.
+
+            if (sectionMapping != null) {
+                Enumeration sections = sectionMapping.elements();
+                // the traditional way of iterating through the enumeration
+                // using sections.hasMoreElements was showing up as a
+                // hot spot during performance tests. Arun 9/27/99
+                int sz = sectionMapping.size();
+                while (sz-- > 0) {
+                    CoordinatorLogSection section = (CoordinatorLogSection) sections.nextElement();
+                    section.reUse();
+                }
+                sectionMapping.clear();
+                sectionMapping = null;
             }
-            sectionMapping.clear();
-            sectionMapping = null;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -218,52 +320,58 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    synchronized private void reUse() { // Arun 9/27/99
+    private void reUse() {
+        lock.lock();
+        try {
 
-        // Clear up the section mapping.
+            // Clear up the section mapping.
 
-        if (sectionMapping != null) {
-            Enumeration sections = sectionMapping.elements();
-            int sz = sectionMapping.size();
-            while (sz-- > 0) {
-                CoordinatorLogSection section = (CoordinatorLogSection) sections.nextElement();
-                section.reUse();
+            if (sectionMapping != null) {
+                Enumeration sections = sectionMapping.elements();
+                int sz = sectionMapping.size();
+                while (sz-- > 0) {
+                    CoordinatorLogSection section = (CoordinatorLogSection) sections.nextElement();
+                    section.reUse();
+                }
+                sectionMapping.clear();
             }
-            sectionMapping.clear();
-        }
-        rewriteRequired = false;
-        writeDone = false;
-        localTID = null;
-
-        byteOutput.reset();
+            rewriteRequired = false;
+            writeDone = false;
+            localTID = null;
 
-        // cache the coordinator log in the coordinator log pool
-        CoordinatorLogPool.putCoordinatorLog(this);
+            // cache the coordinator log in the coordinator log pool
+            CoordinatorLogPool.putCoordinatorLog(this);
 
+        } finally {
+            lock.unlock();
+        }
     }
 
-    synchronized private void reUse(String logPath) {
+    private void reUse(String logPath) {
+        lock.lock();
+        try {
 
-        // Clear up the section mapping.
+            // Clear up the section mapping.
 
-        if (sectionMapping != null) {
-            Enumeration sections = sectionMapping.elements();
-            int sz = sectionMapping.size();
-            while (sz-- > 0) {
-                CoordinatorLogSection section = (CoordinatorLogSection) sections.nextElement();
-                section.reUse();
+            if (sectionMapping != null) {
+                Enumeration sections = sectionMapping.elements();
+                int sz = sectionMapping.size();
+                while (sz-- > 0) {
+                    CoordinatorLogSection section = (CoordinatorLogSection) sections.nextElement();
+                    section.reUse();
+                }
+                sectionMapping.clear();
             }
-            sectionMapping.clear();
-        }
-        rewriteRequired = false;
-        writeDone = false;
-        localTID = null;
-
-        byteOutput.reset();
+            rewriteRequired = false;
+            writeDone = false;
+            localTID = null;
 
-        // cache the coordinator log in the coordinator log pool
-        CoordinatorLogPool.putCoordinatorLog(this, logPath);
+            // cache the coordinator log in the coordinator log pool
+            CoordinatorLogPool.putCoordinatorLog(this, logPath);
 
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -283,8 +391,10 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         // metaclass of the object's existence.
 
         this.localTID = localTID;
-        if (localTID.longValue() != 0)
+        if (localTID.longValue() != 0) {
+            logStateHolder = getPartition(localTID);
             addLog(localTID, this);
+        }
 
     }
 
@@ -301,27 +411,32 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    synchronized java.lang.Object createSection(String sectionName) {
+    java.lang.Object createSection(String sectionName) {
+        lock.lock();
+        try {
 
-        CoordinatorLogSection result = null;
+            CoordinatorLogSection result = null;
 
-        // Check whether the given name already has a corresponding section.
+            // Check whether the given name already has a corresponding section.
 
-        result = (CoordinatorLogSection) sectionMapping.get(sectionName);
-        if (result == null) {
-            // Create a new section.
-            // If a section info structure cannot be allocated, return.
-            // Note that the section name is added to the end of the section
-            // info structure to reduce the number of SOMMalloc calls.
+            result = (CoordinatorLogSection) sectionMapping.get(sectionName);
+            if (result == null) {
+                // Create a new section.
+                // If a section info structure cannot be allocated, return.
+                // Note that the section name is added to the end of the section
+                // info structure to reduce the number of SOMMalloc calls.
 
-            // get a new section object from the cache Arun 9/27/99
-            result = SectionPool.getCoordinatorLogSection(sectionName);
-            // Add the new section information to the map.
-            sectionMapping.put(sectionName, result);
+                // get a new section object from the cache Arun 9/27/99
+                result = SectionPool.getCoordinatorLogSection(sectionName);
+                // Add the new section information to the map.
+                sectionMapping.put(sectionName, result);
 
-        }
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -337,51 +452,55 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      * @see
      */
 
-    synchronized boolean addObject(java.lang.Object sectionObj, org.omg.CORBA.Object obj) {
-
-        boolean result = true;
-
-        // Determine if section is valid
-
-        if (sectionObj != null) {
-            CoordinatorLogSection section = (CoordinatorLogSection) sectionObj;
+    boolean addObject(java.lang.Object sectionObj, org.omg.CORBA.Object obj) {
+        lock.lock();
+        try {
 
-            // Add header length to unwritten data length if section has currently has no
-            // unwritten information.
+            boolean result = true;
 
-            section.unwrittenEmpty = false; // Arun 9/27/99
+            // Determine if section is valid
 
-            if (section.unwrittenObjects == null)
-                section.unwrittenObjects = new Vector(10, 10);
+            if (sectionObj != null) {
+                CoordinatorLogSection section = (CoordinatorLogSection) sectionObj;
 
-            // Convert the object reference to string value
+                // Add header length to unwritten data length if section has currently has no
+                // unwritten information.
 
-            String objRefStr = null;
-            try {
-                objRefStr = Configuration.getORB().object_to_string(obj);
+                section.unwrittenEmpty = false; // Arun 9/27/99
 
-                // Add object reference to section and update counts
+                if (section.unwrittenObjects == null)
+                    section.unwrittenObjects = new Vector(10, 10);
 
-                section.unwrittenObjects.addElement(objRefStr);
+                // Convert the object reference to the bytes of its IOR
 
-                // $Write logrecord if threshold is exceeded
-                // $
-                // $ if( unwrittenLength >= LOG_THRESHOLD )
-                // $ try
-                // $ { formatLogRecords(false); }
-                // $ catch( IOException exc )
-                // $ {
-                // $ if( trc != null ) trc.error(ERR_WRITE).data(exc).write();
-                // $ result = false;
-                // $ }
-            } catch (Throwable exc) {
+                try {
+                    byte[] ior = CoordinatorLogRecord.toIORBytes(Configuration.getORB().object_to_string(obj));
+
+                    // Add object reference to section and update counts
+
+                    section.unwrittenObjects.addElement(ior);
+
+                    // $Write logrecord if threshold is exceeded
+                    // $
+                    // $ if( unwrittenLength >= LOG_THRESHOLD )
+                    // $ try
+                    // $ { formatLogRecords(false); }
+                    // $ catch( IOException exc )
+                    // $ {
+                    // $ if( trc != null ) trc.error(ERR_WRITE).data(exc).write();
+                    // $ result = false;
+                    // $ }
+                } catch (Throwable exc) {
+                    result = false;
+                }
+            } else {
                 result = false;
             }
-        } else {
-            result = false;
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -397,48 +516,53 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      * @see
      */
 
-    synchronized boolean addData(java.lang.Object sectionObj, byte[] data) {
+    boolean addData(java.lang.Object sectionObj, byte[] data) {
+        lock.lock();
+        try {
 
-        boolean result = true;
-        byte[] dataCopy;
+            boolean result = true;
+            byte[] dataCopy;
 
-        // Determine if section is valid
+            // Determine if section is valid
 
-        if (sectionObj != null) {
-            CoordinatorLogSection section = (CoordinatorLogSection) sectionObj;
+            if (sectionObj != null) {
+                CoordinatorLogSection section = (CoordinatorLogSection) sectionObj;
 
-            // Add header length to unwritten data length if section has currently has no
-            // unwritten information.
+                // Add header length to unwritten data length if section has currently has no
+                // unwritten information.
 
-            section.unwrittenEmpty = false; // Arun 9/27/99
+                section.unwrittenEmpty = false; // Arun 9/27/99
 
-            if (section.unwrittenData == null)
-                section.unwrittenData = new Vector(4, 4);
+                if (section.unwrittenData == null)
+                    section.unwrittenData = new Vector(4, 4);
 
-            // Make a copy of the data to add to the unwritten data queue.
+                // Make a copy of the data to add to the unwritten data queue.
 
-            dataCopy = new byte[data.length];
-            System.arraycopy(data, 0, dataCopy, 0, data.length);
+                dataCopy = new byte[data.length];
+                System.arraycopy(data, 0, dataCopy, 0, data.length);
 
-            // Add data item (sequence of octets) to section and update counts
+                // Add data item (sequence of octets) to section and update counts
 
-            section.unwrittenData.addElement(dataCopy);
+                section.unwrittenData.addElement(dataCopy);
 
-            // $Write logrecord if threshold is exceeded
+                // $Write logrecord if threshold is exceeded
 
-            // $ if( unwrittenLength >= LOG_THRESHOLD )
-            // $ try
-            // $ { formatLogRecords(false); }
-            // $ catch( IOException exc )
-            // $ {
-            // $ if( trc != null ) trc.error(ERR_WRITE).data(exc).write();
-            // $ result = false;
-            // $ }
-        } else {
-            result = false;
-        }
+                // $ if( unwrittenLength >= LOG_THRESHOLD )
+                // $ try
+                // $ { formatLogRecords(false); }
+                // $ catch( IOException exc )
+                // $ {
+                // $ if( trc != null ) trc.error(ERR_WRITE).data(exc).write();
+                // $ result = false;
+                // $ }
+            } else {
+                result = false;
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -488,15 +612,20 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    private synchronized boolean requireRewrite() {
-        boolean result = true;
+    private boolean requireRewrite() {
+        lock.lock();
+        try {
+            boolean result = true;
 
-        // Record the fact that a rewrite is required if a write has been done.
+            // Record the fact that a rewrite is required if a write has been done.
 
-        if (writeDone)
-            rewriteRequired = true;
+            if (writeDone)
+                rewriteRequired = true;
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -553,13 +682,71 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    private boolean reconstruct(DataInputStream dataInput) throws IOException {
+    boolean reconstruct(DataInputStream dataInput) throws IOException {
 
-        boolean result = true;
-
-        // Read in the number of sections.
+        // Read in the number of sections, or the marker of a versioned record.
 
         int numSections = dataInput.readUnsignedShort();
+        if (numSections != CoordinatorLogRecord.FORMAT_MARKER) {
+            return reconstructUnversioned(dataInput, numSections);
+        }
+
+        int version = dataInput.readUnsignedByte();
+        if (version != CoordinatorLogRecord.FORMAT_VERSION) {
+            throw new IOException("Unsupported CoordinatorLog record version " + version);
+        }
+
+        numSections = CoordinatorLogRecord.readVarInt(dataInput);
+
+        // Reconstruct each of the sections in the log record
+
+        while (--numSections >= 0) {
+
+            // If the section name length is zero, then it contains no data, so skip it.
+
+            int length = CoordinatorLogRecord.readVarInt(dataInput);
+            if (length > 0) {
+                int numObjects = CoordinatorLogRecord.readVarInt(dataInput);
+                int numData = CoordinatorLogRecord.readVarInt(dataInput);
+
+                CoordinatorLogSection section = (CoordinatorLogSection) createSection(new String(readBytes(dataInput, length), ISO_8859_1));
+
+                // Add each object reference and data item from the log record to the section,
+                // keeping those collected from previous records.
+
+                if (numObjects > 0 && section.writtenObjects == null) {
+                    section.writtenObjects = new Vector(numObjects, 10);
+                }
+                for (int i = 0; i < numObjects; i++) {
+                    section.writtenObjects.addElement(readBytes(dataInput, CoordinatorLogRecord.readVarInt(dataInput)));
+                }
+
+                if (numData > 0 && section.writtenData == null) {
+                    section.writtenData = new Vector(numData, 4);
+                }
+                for (int i = 0; i < numData; i++) {
+                    section.writtenData.addElement(readBytes(dataInput, CoordinatorLogRecord.readVarInt(dataInput)));
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Reconstructs the state of the object from a record written before the record format was versioned, in which
+     * object references are stringified.
+     *
+     * @param dataInput The stream positioned after the number of sections.
+     * @param numSections The number of sections.
+     *
+     * @return Indicates success of the operation.
+     *
+     * @exception IOException The record could not be read.
+     */
+    private boolean reconstructUnversioned(DataInputStream dataInput, int numSections) throws IOException {
+
+        boolean result = true;
 
         // Reconstruct each of the sections in the log record
 
@@ -579,9 +766,7 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
 
                 // Make a copy of the section name.
 
-                byte[] stringData = new byte[length];
-                dataInput.read(stringData);
-                String sectionName = new String(stringData);
+                String sectionName = new String(readBytes(dataInput, length), ISO_8859_1);
 
                 // Create a section in the CoordinatorLog
 
@@ -597,17 +782,19 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
 
                 for (int i = 0; i < numObjects; i++) {
 
-                    // Get the size of the object reference and allocate a buffer to make a copy
-                    // of it.
+                    // Get the size of the object reference and make a copy of it.
 
                     length = dataInput.readUnsignedShort();
-                    stringData = new byte[length];
-                    dataInput.read(stringData);
-                    String objRefStr = new String(stringData);
+                    String objRefStr = new String(readBytes(dataInput, length), ISO_8859_1);
 
-                    // Add the object reference to the list of written objects.
+                    // Add the bytes of the IOR to the list of written objects. A reference which
+                    // is not an IOR is invalid, so it is discarded as it would be in getObjects.
 
-                    section.writtenObjects.addElement(objRefStr);
+                    try {
+                        section.writtenObjects.addElement(CoordinatorLogRecord.toIORBytes(objRefStr));
+                    } catch (IllegalArgumentException exc) {
+                        _logger.log(Level.FINE, "Discarding invalid object reference " + objRefStr, exc);
+                    }
                 }
 
                 // Add each data item from the log record to the section.
@@ -620,16 +807,11 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
 
                 for (int i = 0; i < numData; i++) {
 
-                    // Get the size of the data item and allocate a buffer to make a copy of it.
+                    // Get the size of the data item, copy it and add that to the list of
+                    // written data items.
 
                     length = dataInput.readUnsignedShort();
-                    byte[] dataItem = new byte[length];
-
-                    // Copy the data item into the storage allocated, and add that to the list
-                    // of written data items.
-
-                    dataInput.read(dataItem);
-                    section.writtenData.addElement(dataItem);
+                    section.writtenData.addElement(readBytes(dataInput, length));
                 }
             }
         }
@@ -637,6 +819,12 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         return result;
     }
 
+    private static byte[] readBytes(DataInputStream dataInput, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        dataInput.readFully(bytes);
+        return bytes;
+    }
+
     /**
      * Returns a sequence containing all of the objects in the given section.
      *
@@ -650,7 +838,7 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         java.lang.Object[] result = null;
 
         // Check that the section identifier is valid.
-        // Browse through the Queue of stringified object references, converting each
+        // Browse through the Queue of IORs, converting each
         // to an actual object reference and adding it to the sequence returned from
         // this method.
 
@@ -678,7 +866,7 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
             for (int i = 0; i < writtenSize; i++) {
 
                 org.omg.CORBA.Object obj = null;
-                String refStr = (String) section.writtenObjects.elementAt(i);
+                String refStr = CoordinatorLogRecord.toIORString((byte[]) section.writtenObjects.elementAt(i));
 
                 // Try ten times to convert the reference to a string.
 
@@ -729,7 +917,7 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
 
                     // Add the valid object to the list.
 
-                    org.omg.CORBA.Object obj = orb.string_to_object((String) section.unwrittenObjects.elementAt(i));
+                    org.omg.CORBA.Object obj = orb.string_to_object(CoordinatorLogRecord.toIORString((byte[]) section.unwrittenObjects.elementAt(i)));
                     result[currObject++] = obj;
                 } catch (Throwable exc) {
                     // If the object resulting from the string is invalid, then don't add it to
@@ -793,64 +981,134 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    synchronized void setLocalTID(Long localTID) {
+    void setLocalTID(Long localTID) {
+        setLocalTID(localTID, (CoordinatorLogStateHolder) null);
+    }
 
-        // Check whether the local identifier is currently NULL.
+    /**
+     * Sets the local identifier for the CoordinatorLog object, which logs to the given partition of the default log.
+     *
+     * @param localTID The new local identifier.
+     * @param partition The partition, or null for the partition of the transaction.
+     */
+    private void setLocalTID(Long localTID, CoordinatorLogStateHolder partition) {
+        lock.lock();
+        try {
 
-        boolean addToMetaclass = (localTID.longValue() != 0 && (this.localTID == null || this.localTID.longValue() == 0));
+            // Check whether the local identifier is currently NULL.
 
-        // Set the local identifier, and add the object to the metaclass if required.
+            boolean addToMetaclass = (localTID.longValue() != 0 && (this.localTID == null || this.localTID.longValue() == 0));
 
-        this.localTID = localTID;
-        if (addToMetaclass)
-            addLog(localTID, this);
+            // Set the local identifier, and add the object to the metaclass if required.
+
+            this.localTID = localTID;
+            if (addToMetaclass) {
+                logStateHolder = partition != null ? partition : getPartition(localTID);
+                addLog(localTID, this);
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void setLocalTID(Long localTID, String logPath) {
+        lock.lock();
+        try {
+
+            // Check whether the local identifier is currently NULL.
+
+            boolean addToMetaclass = (localTID.longValue() != 0 && (this.localTID == null || this.localTID.longValue() == 0));
+
+            // Set the local identifier, and add the object to the metaclass if required.
 
+            this.localTID = localTID;
+            if (addToMetaclass)
+                addLog(localTID, this, logPath);
+
+        } finally {
+            lock.unlock();
+        }
     }
 
-    synchronized void setLocalTID(Long localTID, String logPath) {
+    /**
+     * Returns the number of bytes taken by a single section of the CoordinatorLog in a log record.
+     * <p>
+     * This internal method does not need to be synchronized. If the rewrite flag is not set, only information that has not
+     * already been written is counted, otherwise all information is counted.
+     *
+     * @param section The section.
+     * @param rewrite Indicates if the record is being rewritten.
+     *
+     * @return The size of the formatted section.
+     */
+    private static int sectionSize(CoordinatorLogSection section, boolean rewrite) {
+        if (section.unwrittenEmpty && (!rewrite || section.writtenEmpty)) {
+            return CoordinatorLogRecord.varIntSize(0);
+        }
 
-        // Check whether the local identifier is currently NULL.
+        int unwrittenObjectsSize = section.unwrittenObjects != null ? section.unwrittenObjects.size() : 0;
+        int writtenObjectsSize = rewrite && section.writtenObjects != null ? section.writtenObjects.size() : 0;
+        int unwrittenDataSize = section.unwrittenData != null ? section.unwrittenData.size() : 0;
+        int writtenDataSize = rewrite && section.writtenData != null ? section.writtenData.size() : 0;
 
-        boolean addToMetaclass = (localTID.longValue() != 0 && (this.localTID == null || this.localTID.longValue() == 0));
+        int size = CoordinatorLogRecord.varIntSize(section.sectionName.length()) + section.sectionName.length()
+                + CoordinatorLogRecord.varIntSize(unwrittenObjectsSize + writtenObjectsSize)
+                + CoordinatorLogRecord.varIntSize(unwrittenDataSize + writtenDataSize);
 
-        // Set the local identifier, and add the object to the metaclass if required.
+        for (int i = 0; i < writtenObjectsSize; i++) {
+            size += itemSize((byte[]) section.writtenObjects.elementAt(i));
+        }
+        for (int i = 0; i < unwrittenObjectsSize; i++) {
+            size += itemSize((byte[]) section.unwrittenObjects.elementAt(i));
+        }
+        for (int i = 0; i < writtenDataSize; i++) {
+            size += itemSize((byte[]) section.writtenData.elementAt(i));
+        }
+        for (int i = 0; i < unwrittenDataSize; i++) {
+            size += itemSize((byte[]) section.unwrittenData.elementAt(i));
+        }
 
-        this.localTID = localTID;
-        if (addToMetaclass)
-            addLog(localTID, this, logPath);
+        return size;
+    }
 
+    private static int itemSize(byte[] item) {
+        return CoordinatorLogRecord.varIntSize(item.length) + item.length;
+    }
+
+    private static void putItem(ByteBuffer record, byte[] item) {
+        CoordinatorLogRecord.putVarInt(record, item.length);
+        record.put(item);
     }
 
     /**
-     * Formats the information in a single section of the Coordinatorlog into a stream.
+     * Formats the information in a single section of the Coordinatorlog into a log record.
      * <p>
      * This internal method does not need to be synchronized. If the rewrite flag is not set, only information that has not
      * already been written is formatted, otherwise all information is formatted.
      *
      * @param section The section.
      * @param rewrite Indicates if the record is being rewritten.
-     * @param dataOutput The stream to which to data is output.
+     * @param record The log record, with room for the section.
      *
      * @return
      *
-     * @exception IOException The format failed.
-     *
      * @see
      */
-    private void formatSection(CoordinatorLogSection section, boolean rewrite, DataOutputStream dataOutput) throws IOException {
+    private void formatSection(CoordinatorLogSection section, boolean rewrite, ByteBuffer record) {
         // No formatting is done if the section is empty, and if rewrite is required,
         // the written section is also empty.
         // Note that we still need to write something out to satisfy the number of
         // sections originally written, so we write out a name length of zero.
 
         if (section.unwrittenEmpty && (!rewrite || section.writtenEmpty)) {
-            dataOutput.writeShort(0);
+            CoordinatorLogRecord.putVarInt(record, 0);
             return;
         }
 
         // Place length of section name into buffer.
 
-        dataOutput.writeShort(section.sectionName.length());
+        CoordinatorLogRecord.putVarInt(record, section.sectionName.length());
 
         // Place count of number of object references into buffer, including written
         // object references if rewrite is required.
@@ -862,7 +1120,7 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         if (rewrite && section.writtenObjects != null)
             writtenObjectsSize = section.writtenObjects.size();
 
-        dataOutput.writeShort(unwrittenObjectsSize + writtenObjectsSize);
+        CoordinatorLogRecord.putVarInt(record, unwrittenObjectsSize + writtenObjectsSize);
 
         // Place count of number of data items into buffer, including written data
         // items if rewrite is required.
@@ -874,32 +1132,29 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         if (rewrite && section.writtenData != null)
             writtenDataSize = section.writtenData.size();
 
-        dataOutput.writeShort(unwrittenDataSize + writtenDataSize);
+        CoordinatorLogRecord.putVarInt(record, unwrittenDataSize + writtenDataSize);
 
         // Copy the section name into the buffer.
 
-        dataOutput.writeBytes(section.sectionName);
+        record.put(section.sectionName.getBytes(ISO_8859_1));
 
         // If rewrite is required, first write the already-written object references
 
         for (int i = 0; i < writtenObjectsSize; i++) {
-            String objRefStr = (String) section.writtenObjects.elementAt(i);
-            dataOutput.writeShort(objRefStr.length());
-            dataOutput.writeBytes(objRefStr);
+            putItem(record, (byte[]) section.writtenObjects.elementAt(i));
         }
 
-        // Next place length of each stringified object reference and the stringified
-        // object reference into the buffer. Move each from unwritten to written queue
+        // Next place length of each IOR and the IOR into the buffer. Move each from
+        // unwritten to written queue
 
         for (int i = 0; i < unwrittenObjectsSize; i++) {
-            String objRefStr = (String) section.unwrittenObjects.elementAt(i);
-            dataOutput.writeShort(objRefStr.length());
-            dataOutput.writeBytes(objRefStr);
+            byte[] ior = (byte[]) section.unwrittenObjects.elementAt(i);
+            putItem(record, ior);
 
             if (section.writtenObjects == null)
                 section.writtenObjects = new Vector(unwrittenObjectsSize, 10);
 
-            section.writtenObjects.addElement(objRefStr);
+            section.writtenObjects.addElement(ior);
         }
 
         if (unwrittenObjectsSize > 0)
@@ -909,18 +1164,15 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         // If rewrite is required, first write the already-written data items.
 
         for (int i = 0; i < writtenDataSize; i++) {
-            byte[] dataItem = (byte[]) section.writtenData.elementAt(i);
-            dataOutput.writeShort(dataItem.length);
-            dataOutput.write(dataItem);
+            putItem(record, (byte[]) section.writtenData.elementAt(i));
         }
 
-        // Next place length of each stringified object reference and the stringified
-        // object reference into the buffer. Move each from unwritten to written queue
+        // Next place length of each data item and the data item into the buffer.
+        // Move each from unwritten to written queue
 
         for (int i = 0; i < unwrittenDataSize; i++) {
             byte[] dataItem = (byte[]) section.unwrittenData.elementAt(i);
-            dataOutput.writeShort(dataItem.length);
-            dataOutput.write(dataItem);
+            putItem(record, dataItem);
 
             if (section.writtenData == null)
                 section.writtenData = new Vector(unwrittenDataSize, 4);
@@ -938,6 +1190,48 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
 
     }
 
+    /**
+     * Formats the information in all sections of the CoordinatorLog into a log record.
+     * <p>
+     * The size of the record is computed first, so the record is formatted directly into the array handed to the log,
+     * which keeps it until it is written.
+     *
+     * @param rewrite Indicates if the record is being rewritten.
+     *
+     * @return The log record.
+     */
+    byte[] formatRecord(boolean rewrite) {
+        lock.lock();
+        try {
+            CoordinatorLogSection[] sections = new CoordinatorLogSection[sectionMapping.size()];
+            int size = CoordinatorLogRecord.HEADER_SIZE + CoordinatorLogRecord.varIntSize(sections.length);
+
+            Enumeration sectionElements = sectionMapping.elements();
+            for (int i = 0; i < sections.length; i++) {
+                sections[i] = (CoordinatorLogSection) sectionElements.nextElement();
+                size += sectionSize(sections[i], rewrite);
+            }
+
+            // Place the tid, the format and the number of sections in the record, followed by
+            // each section.
+
+            byte[] record = new byte[size];
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            buffer.putLong(localTID.longValue());
+            buffer.putShort((short) CoordinatorLogRecord.FORMAT_MARKER);
+            buffer.put((byte) CoordinatorLogRecord.FORMAT_VERSION);
+            CoordinatorLogRecord.putVarInt(buffer, sections.length);
+
+            for (CoordinatorLogSection section : sections) {
+                formatSection(section, rewrite, buffer);
+            }
+
+            return record;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Formats the information in all sections of the CoordinatorLog.
      * <p>
@@ -960,7 +1254,7 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         // from the metaclass, then no formatting can be done.
 
         if (logPath == null)
-            openLog();
+            openLog(logStateHolder);
         else
             openLog(logPath);
         if (logStateHolder.logFile == null) {
@@ -978,33 +1272,15 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
             logStateHolder.keypointLock.acquireReadLock();
             // Once we have the keypoint lock, it is OK to obtain our own.
 
-            synchronized (this) {
-
-                // Place the tid in the buffer.
-
-                byteOutput.reset();
-                dataOutput.writeLong(localTID.longValue());
-
-                // Write out the number of sections.
-
-                dataOutput.writeShort(sectionMapping.size());
-
-                // Format log section within map and add the information to buffer. Browse
-                // through the CoordinatorLog filling in the buffer for each entry.
-
-                Enumeration sections = sectionMapping.elements();
-                int sz = sectionMapping.size(); // Arun 9/27/99
-                while (sz-- > 0) { // Arun 9/27/99
-                    formatSection((CoordinatorLogSection) sections.nextElement(), rewriteRequired, dataOutput);
-                }
-
-                // Write the buffer to the LogFile.
-
-                result = logStateHolder.logFile.write(forced ? LogFile.FORCED : LogFile.UNFORCED, byteOutput.toByteArray(),
+            lock.lock();
+            try {
+                result = logStateHolder.logFile.write(forced ? LogFile.FORCED : LogFile.UNFORCED, formatRecord(rewriteRequired),
                         rewriteRequired ? LogFile.REWRITE : LogFile.NORMAL, null);
 
                 rewriteRequired = false;
                 writeDone = true;
+            } finally {
+                lock.unlock();
             }
         } finally {
             logStateHolder.keypointLock.releaseReadLock();
@@ -1037,53 +1313,70 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
     }
 
     /**
-     * Opens the log file for all CoordinatorLogs in this process.
+     * Opens the log file of the given partition of the default log for the CoordinatorLogs in this process.
      * <p>
      * If the log has already been opened, the operation uses the opened LogFile.
      *
-     * @param
+     * @param logStateHolder The partition of the default log.
      *
      * @return Indicates success of the operation.
      *
      * @see
      */
-    private static boolean openLog() {
-        boolean result = false;
-        String logName;
-        CoordinatorLogStateHolder logStateHolder = defaultLogStateHolder;
+    private static boolean openLog(CoordinatorLogStateHolder logStateHolder) {
 
-        // If the log has been opened, there is nothing to do.
+        // If the log has been opened, there is nothing to do. Otherwise the log is opened
+        // under the metaclass lock, as the first writes to a partition may be concurrent.
 
-        if (logStateHolder.log == null) {
-            logStateHolder.log = new Log();
-            if (!logStateHolder.log.initialise()) {
-                logStateHolder.log = null;
-                _logger.log(Level.SEVERE, "jts.cannot_initialise_log");
-                String msg = LogFormatter.getLocalizedMessage(_logger, "jts.cannot_initialise_log");
-                throw new org.omg.CORBA.INTERNAL(msg);
-            }
+        if (logStateHolder.logFile != null) {
+            return true;
         }
 
-        // Open the Log and set the logfile object reference. If there is no
-        // ImplementationDef object available, then we cannot determine the log file
+        metaclassLock.lock();
+        try {
+            boolean result = false;
+
+            if (logStateHolder.log == null) {
+                logStateHolder.log = logStateHolder.logDirectory == null ? new Log() : new Log(logStateHolder.logDirectory);
+                if (!logStateHolder.log.initialise()) {
+                    logStateHolder.log = null;
+                    _logger.log(Level.SEVERE, "jts.cannot_initialise_log");
+                    String msg = LogFormatter.getLocalizedMessage(_logger, "jts.cannot_initialise_log");
+                    throw new org.omg.CORBA.INTERNAL(msg);
+                }
+            }
 
-        // name, so the log cannot be opened.
-        // Note that this does not preclude the log file being opened at some later
-        // time.
+            // Open the Log and set the logfile object reference. If there is no
+            // ImplementationDef object available, then we cannot determine the log file
 
-        String serverName = null;
-        if (logStateHolder.log != null && logStateHolder.logFile == null && (serverName = Configuration.getServerName()) != null) {
+            // name, so the log cannot be opened.
+            // Note that this does not preclude the log file being opened at some later
+            // time.
 
-            // get a coordinator log object from cache instead
-            // of instantiating a new one Arun 9/27/99
-            logStateHolder.logFile = logStateHolder.log.open(serverName, CoordinatorLogPool.getCoordinatorLog());
+            // The partitions of the log of another server are opened under its name.
 
-            Configuration.setLogFile(logStateHolder.logFile);
-        }
+            String serverName = logStateHolder.serverName != null ? logStateHolder.serverName : Configuration.getServerName();
+            if (logStateHolder.log != null && logStateHolder.logFile == null && serverName != null) {
 
-        result = (logStateHolder.logFile != null);
+                // get a coordinator log object from cache instead
+                // of instantiating a new one Arun 9/27/99
+                CoordinatorLog upcallTarget = CoordinatorLogPool.getCoordinatorLog();
+                upcallTarget.logStateHolder = logStateHolder;
+                logStateHolder.logFile = logStateHolder.log.open(serverName, upcallTarget);
 
-        return result;
+                // Only the first partition holds the restart information.
+
+                if (logStateHolder == defaultLogStateHolder) {
+                    Configuration.setLogFile(logStateHolder.logFile);
+                }
+            }
+
+            result = (logStateHolder.logFile != null);
+
+            return result;
+        } finally {
+            metaclassLock.unlock();
+        }
     }
 
     /**
@@ -1139,6 +1432,9 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
 
     /**
      * Process the log to build a sequence of CoordinatorLog objects which represent all logged transactions.
+     * <p>
+     * The records of all partitions of the log are processed. A CoordinatorLog recovered from a partition keeps logging
+     * to it, even if the number of partitions has changed since the transaction was logged.
      *
      * @param
      *
@@ -1146,67 +1442,43 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    synchronized static Enumeration getLogged() {
-
-        Vector logRecords = null;
-        Enumeration coordLogs = null;
-
-        // Initialise the Log. If the log cannot be opened, return an empty
-        // sequence, with whatever exception the open returned.
-
-        if (openLog()) {
-            CoordinatorLogStateHolder logStateHolder = defaultLogStateHolder;
-
-            // Get the log records returned from the log and browse through them. Take
-            // Take the sequence of log records returned from the LogFile and convert
-            // them into the sequence of CoordinatorLog objects that are returned from
-            // this method.
+    static Enumeration getLogged() {
+        metaclassLock.lock();
+        try {
 
-            logRecords = logStateHolder.logFile.getLogRecords();
-            for (int i = 0; i < logRecords.size(); i++) {
+            Vector coordLogs = new Vector();
 
-                // Get tid value from the log record. Get the CoordinatorLog reference if
-                // it exists in map, else create a new CoordinatorLog object; it will
-                // added to the map when we set the transaction id.
+            for (CoordinatorLogStateHolder logStateHolder : getPartitions()) {
 
-                byte[] buffer = (byte[]) logRecords.elementAt(i);
-                ByteArrayInputStream byteInput = new ByteArrayInputStream(buffer);
-                DataInputStream dataInput = new DataInputStream(byteInput);
+                // Initialise the Log. If the log cannot be opened, skip the partition,
+                // with whatever exception the open returned.
 
-                try {
-                    Long localTID = dataInput.readLong();
-                    CoordinatorLog coordLog = (CoordinatorLog) logStateHolder.activeLogs.get(localTID);
-                    if (coordLog == null) {
+                if (!openLog(logStateHolder)) {
+                    continue;
+                }
 
-                        // get a coordinator log object from cache instead
-                        // of instantiating a new one Arun 9/27/99
-                        coordLog = CoordinatorLogPool.getCoordinatorLog();
+                // Replay the log records of the partition into the sequence of CoordinatorLog
+                // objects that are returned from this method.
 
-                        coordLog.setLocalTID(localTID);
-                    }
+                replay(logStateHolder, null);
 
-                    // Reconstruct the CoordinatorLog information from the log record.
+                // Return a copy of the list of active CoordinatorLog objects.
 
-                    coordLog.reconstruct(dataInput);
-                } catch (IOException exc) {
-                }
+                coordLogs.addAll(logStateHolder.activeLogs.values());
             }
 
-            // Return a copy of the list of active CoordinatorLog objects.
-
-            coordLogs = logStateHolder.activeLogs.elements();
+            return coordLogs.elements();
+        } finally {
+            metaclassLock.unlock();
         }
-
-        // If the log could not be opened, return an empty Enumeration.
-
-        else
-            coordLogs = new Hashtable().elements();
-
-        return coordLogs;
     }
 
     /**
      * Process the log to build a sequence of CoordinatorLog objects which represent all logged transactions.
+     * <p>
+     * The records of all partitions of the log at the given location are processed. The partitions other than the first
+     * are remembered with the log location, so that the transactions recovered from them are removed, keypointed and
+     * closed with it.
      *
      * @param
      *
@@ -1214,63 +1486,96 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    synchronized static Enumeration getLogged(String logPath) {
-
-        Vector logRecords = null;
-        Enumeration coordLogs = null;
+    static Enumeration getLogged(String logPath) {
+        metaclassLock.lock();
+        try {
 
-        // Initialise the Log. If the log cannot be opened, return an empty
-        // sequence, with whatever exception the open returned.
+            Vector coordLogs = new Vector();
 
-        if (openLog(logPath)) {
-            CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
+            // Initialise the Log. If the log cannot be opened, return an empty
+            // sequence, with whatever exception the open returned.
 
-            // Get the log records returned from the log and browse through them. Take
-            // Take the sequence of log records returned from the LogFile and convert
-            // them into the sequence of CoordinatorLog objects that are returned from
-            // this method.
+            if (openLog(logPath)) {
+                CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
 
-            logRecords = logStateHolder.logFile.getLogRecords();
-            for (int i = 0; i < logRecords.size(); i++) {
+                // Replay the log records into the sequence of CoordinatorLog objects that are
+                // returned from this method.
 
-                // Get tid value from the log record. Get the CoordinatorLog reference if
-                // it exists in map, else create a new CoordinatorLog object; it will
-                // added to the map when we set the transaction id.
+                replay(logStateHolder, logPath);
 
-                byte[] buffer = (byte[]) logRecords.elementAt(i);
-                ByteArrayInputStream byteInput = new ByteArrayInputStream(buffer);
-                DataInputStream dataInput = new DataInputStream(byteInput);
+                // Return a copy of the list of active CoordinatorLog objects.
 
-                try {
-                    Long localTID = dataInput.readLong();
-                    CoordinatorLog coordLog = (CoordinatorLog) logStateHolder.activeLogs.get(localTID);
-                    if (coordLog == null) {
+                coordLogs.addAll(logStateHolder.activeLogs.values());
 
-                        // get a coordinator log object from cache instead
-                        // of instantiating a new one Arun 9/27/99
-                        coordLog = CoordinatorLogPool.getCoordinatorLog(logPath);
+                // The transactions recovered from the other partitions keep logging to them.
 
-                        coordLog.setLocalTID(localTID, logPath);
+                logStateHolder.otherPartitions = findPartitions(logPath);
+                for (CoordinatorLogStateHolder partition : logStateHolder.otherPartitions) {
+                    if (!openLog(partition)) {
+                        continue;
                     }
 
-                    // Reconstruct the CoordinatorLog information from the log record.
-
-                    coordLog.reconstruct(dataInput);
-                } catch (IOException exc) {
+                    replay(partition, null);
+                    coordLogs.addAll(partition.activeLogs.values());
                 }
             }
 
-            // Return a copy of the list of active CoordinatorLog objects.
-
-            coordLogs = logStateHolder.activeLogs.elements();
+            return coordLogs.elements();
+        } finally {
+            metaclassLock.unlock();
         }
+    }
+
+    /**
+     * Replays the log records of a log location or partition of the default log into the CoordinatorLog objects of their
+     * transactions, as the records are read. If the log cannot be read, no transactions are recovered from it.
+     *
+     * @param logStateHolder The state of the log location or partition, whose log has been opened.
+     * @param logPath The log location, or null for a partition of the default log.
+     */
+    private static void replay(CoordinatorLogStateHolder logStateHolder, String logPath) {
+        Vector replayed = new Vector();
 
-        // If the log could not be opened, return an empty Enumeration.
+        boolean read = LogReplay.read(logStateHolder.logFile, buffer -> {
 
-        else
-            coordLogs = new Hashtable().elements();
+            // Get tid value from the log record. Get the CoordinatorLog reference if
+            // it exists in map, else create a new CoordinatorLog object; it will
+            // added to the map when we set the transaction id.
+
+            DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(buffer));
 
-        return coordLogs;
+            try {
+                Long localTID = dataInput.readLong();
+                CoordinatorLog coordLog = (CoordinatorLog) logStateHolder.activeLogs.get(localTID);
+                if (coordLog == null) {
+
+                    // get a coordinator log object from cache instead
+                    // of instantiating a new one Arun 9/27/99
+                    if (logPath == null) {
+                        coordLog = CoordinatorLogPool.getCoordinatorLog();
+                        coordLog.setLocalTID(localTID, logStateHolder);
+                    } else {
+                        coordLog = CoordinatorLogPool.getCoordinatorLog(logPath);
+                        coordLog.setLocalTID(localTID, logPath);
+                    }
+                    replayed.addElement(localTID);
+                }
+
+                // Reconstruct the CoordinatorLog information from the log record.
+
+                coordLog.reconstruct(dataInput);
+            } catch (IOException exc) {
+            }
+        });
+
+        // The transactions replayed from a log that could not be read completely may
+        // be missing records, so they are forgotten, as if the log were empty.
+
+        if (!read) {
+            for (int i = 0; i < replayed.size(); i++) {
+                logStateHolder.activeLogs.remove(replayed.elementAt(i));
+            }
+        }
     }
 
     /**
@@ -1284,7 +1589,7 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      * @see
      */
     private static boolean addLog(Long localTID, CoordinatorLog clog) {
-        CoordinatorLogStateHolder logStateHolder = defaultLogStateHolder;
+        CoordinatorLogStateHolder logStateHolder = clog.logStateHolder;
 
         boolean result = true;
 
@@ -1312,94 +1617,144 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      *
      * @see
      */
-    synchronized static boolean removeLog(Long localTID) {
-
-        boolean result = true;
-        CoordinatorLogStateHolder logStateHolder = defaultLogStateHolder;
+    static boolean removeLog(Long localTID) {
+        metaclassLock.lock();
+        try {
 
-        // Remove the given CoordinatorLog and local identifier from the map.
-        // If the CoordinatorLog could be removed, we need to check whether a
-        // keypoint is in progress, and if so, prevent the CoordinatorLog from being
-        // called during the keypoint.
+            boolean result = true;
+            CoordinatorLogStateHolder logStateHolder = getPartition(localTID);
 
-        CoordinatorLog clog = (CoordinatorLog) logStateHolder.activeLogs.remove(localTID);
-        if (clog != null) {
+            // Remove the given CoordinatorLog and local identifier from the map.
+            // If the CoordinatorLog could be removed, we need to check whether a
+            // keypoint is in progress, and if so, prevent the CoordinatorLog from being
+            // called during the keypoint.
 
-            // Obtaining the keypoint state lock prevents us from doing this while the
-            // keypoint method is using the map.
+            CoordinatorLog clog = (CoordinatorLog) logStateHolder.activeLogs.remove(localTID);
 
-            synchronized (logStateHolder.keypointStateLock) {
-                // If a keypoint is in progress, look up the entry for the transaction in the
-                // map and replace the value with a NULL entry.
+            // A transaction recovered after the number of partitions has changed may be
+            // in another partition.
 
-                if (logStateHolder.keypointInProgress && logStateHolder.keypointLogs != null)
-                    logStateHolder.keypointLogs.put(localTID, NULL_ENTRY);
+            if (clog == null) {
+                for (CoordinatorLogStateHolder partition : getPartitions()) {
+                    if (partition != logStateHolder && partition.activeLogs != null
+                            && (clog = (CoordinatorLog) partition.activeLogs.remove(localTID)) != null) {
+                        logStateHolder = partition;
+                        break;
+                    }
+                }
             }
 
-            // If the transaction is read-only, then do not increment the transaction count.
+            if (clog != null) {
 
-            if (clog.writeDone)
-                logStateHolder.tranCount++;
+                // Obtaining the keypoint state lock prevents us from doing this while the
+                // keypoint method is using the map.
 
-            // return the CoordinatorLog object to the pool to be reused.
-            // Arun 9/27/99
-            clog.reUse();
+                logStateHolder.keypointStateLock.lock();
+                try {
+                    // If a keypoint is in progress, look up the entry for the transaction in the
+                    // map and replace the value with a NULL entry.
+
+                    if (logStateHolder.keypointInProgress && logStateHolder.keypointLogs != null)
+                        logStateHolder.keypointLogs.put(localTID, NULL_ENTRY);
+                } finally {
+                    logStateHolder.keypointStateLock.unlock();
+                }
+
+                // If the transaction is read-only, then do not increment the transaction count.
 
-            // Check whether a keypoint is required. This is based solely on the number
-            // of (non-readonly) transactions since the last keypoint.
+                if (clog.writeDone)
+                    logStateHolder.tranCount++;
 
-            if (logStateHolder.tranCount >= keypointTrigger) {
-                logStateHolder.tranCount = 0;
-                keypoint();
+                // return the CoordinatorLog object to the pool to be reused.
+                // Arun 9/27/99
+                clog.reUse();
+
+                // Check whether a keypoint is required. This is based on the number of
+                // (non-readonly) transactions and on the size of the log since the last
+                // keypoint. The keypoint is taken by the keypoint thread, so this
+                // transaction does not wait for it.
+
+                if (keypointTrigger > 0 && logStateHolder.tranCount >= keypointTrigger
+                        || logStateHolder.keypointer.isLogSizeExceeded(logStateHolder.logFile)) {
+                    logStateHolder.keypointer.request();
+                }
             }
-        }
 
-        return result;
+            return result;
+        } finally {
+            metaclassLock.unlock();
+        }
     }
 
-    synchronized static boolean removeLog(Long localTID, String logPath) {
-
-        boolean result = true;
-        CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
+    static boolean removeLog(Long localTID, String logPath) {
+        metaclassLock.lock();
+        try {
 
-        // Remove the given CoordinatorLog and local identifier from the map.
-        // If the CoordinatorLog could be removed, we need to check whether a
-        // keypoint is in progress, and if so, prevent the CoordinatorLog from being
-        // called during the keypoint.
+            boolean result = true;
+            CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
 
-        CoordinatorLog clog = (CoordinatorLog) logStateHolder.activeLogs.remove(localTID);
-        if (clog != null) {
+            // Remove the given CoordinatorLog and local identifier from the map.
+            // If the CoordinatorLog could be removed, we need to check whether a
+            // keypoint is in progress, and if so, prevent the CoordinatorLog from being
+            // called during the keypoint.
 
-            // Obtaining the keypoint state lock prevents us from doing this while the
-            // keypoint method is using the map.
+            CoordinatorLog clog = (CoordinatorLog) logStateHolder.activeLogs.remove(localTID);
 
-            synchronized (logStateHolder.keypointStateLock) {
-                // If a keypoint is in progress, look up the entry for the transaction in the
-                // map and replace the value with a NULL entry.
+            // The transaction may have been recovered from another partition of the log.
 
-                if (logStateHolder.keypointInProgress && logStateHolder.keypointLogs != null)
-                    logStateHolder.keypointLogs.put(localTID, NULL_ENTRY);
+            if (clog == null) {
+                for (CoordinatorLogStateHolder partition : logStateHolder.otherPartitions) {
+                    if (partition.activeLogs != null && (clog = (CoordinatorLog) partition.activeLogs.remove(localTID)) != null) {
+                        logStateHolder = partition;
+                        break;
+                    }
+                }
             }
 
-            // If the transaction is read-only, then do not increment the transaction count.
+            if (clog != null) {
+
+                // Obtaining the keypoint state lock prevents us from doing this while the
+                // keypoint method is using the map.
+
+                logStateHolder.keypointStateLock.lock();
+                try {
+                    // If a keypoint is in progress, look up the entry for the transaction in the
+                    // map and replace the value with a NULL entry.
+
+                    if (logStateHolder.keypointInProgress && logStateHolder.keypointLogs != null)
+                        logStateHolder.keypointLogs.put(localTID, NULL_ENTRY);
+                } finally {
+                    logStateHolder.keypointStateLock.unlock();
+                }
 
-            if (clog.writeDone)
-                logStateHolder.tranCount++;
+                // If the transaction is read-only, then do not increment the transaction count.
 
-            // return the CoordinatorLog object to the pool to be reused.
-            // Arun 9/27/99
-            clog.reUse(logPath);
+                if (clog.writeDone)
+                    logStateHolder.tranCount++;
 
-            // Check whether a keypoint is required. This is based solely on the number
-            // of (non-readonly) transactions since the last keypoint.
+                // return the CoordinatorLog object to the pool to be reused.
+                // Arun 9/27/99
+                if (clog.logPath == null) {
+                    clog.reUse();
+                } else {
+                    clog.reUse(logPath);
+                }
 
-            if (logStateHolder.tranCount >= keypointTrigger) {
-                logStateHolder.tranCount = 0;
-                keypoint(logPath);
+                // Check whether a keypoint is required. This is based on the number of
+                // (non-readonly) transactions and on the size of the log since the last
+                // keypoint. The keypoint is taken by the keypoint thread, so this
+                // transaction does not wait for it.
+
+                if (keypointTrigger > 0 && logStateHolder.tranCount >= keypointTrigger
+                        || logStateHolder.keypointer.isLogSizeExceeded(logStateHolder.logFile)) {
+                    logStateHolder.keypointer.request();
+                }
             }
-        }
 
-        return result;
+            return result;
+        } finally {
+            metaclassLock.unlock();
+        }
     }
 
     /**
@@ -1407,6 +1762,9 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      * <p>
      * This operation is not synchronized as we do not want the latter part of the operation to block other logging
      * operations. The start of the keypoint is in a separate method which is synchronized.
+     * <p>
+     * Completing transactions do not call this, but request a keypoint from the {@link LogKeypointer} of the log. Every
+     * partition of the log is keypointed.
      *
      * @param
      *
@@ -1415,151 +1773,136 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      * @see
      */
     static void keypoint() {
-        CoordinatorLogStateHolder logStateHolder = defaultLogStateHolder;
+        for (CoordinatorLogStateHolder logStateHolder : getPartitions()) {
+            keypoint(logStateHolder, null);
+        }
+    }
+
+    static void keypoint(String logPath) {
+        CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
+        keypoint(logStateHolder, logPath);
+        for (CoordinatorLogStateHolder partition : logStateHolder.otherPartitions) {
+            keypoint(partition, null);
+        }
+    }
 
+    /**
+     * Performs a keypoint operation on a single log location or partition of the default log.
+     *
+     * @param logStateHolder The state of the log location or partition.
+     * @param logPath The log location, or null for a partition of the default log.
+     */
+    static void keypoint(CoordinatorLogStateHolder logStateHolder, String logPath) {
         byte[] keypointEndRecord = { (byte) 'K', (byte) 'E', (byte) 'Y', (byte) 'E', (byte) 'N', (byte) 'D' };
 
         LogLSN previousLSN = new LogLSN();
         LogLSN keypointStartLSN = new LogLSN();
         boolean keypointRequired = false;
 
-        // Obtain the global keypoint lock to prevent any activity until the keypoint
-        // start has been recorded.
-        // Once the keypoint start has been completed, we can release the
-        // keypoint lock. This will allow waiting CoordinatorLog writes to complete.
-
-        try {
-            logStateHolder.keypointLock.acquireWriteLock();
-            keypointRequired = startKeypoint(keypointStartLSN);
-        } finally {
-            logStateHolder.keypointLock.releaseWriteLock();
-        }
-
-        // If no keypoint start record was written, then just return.
+        // Keypoints of the log are taken one after another. A keypoint must not wait for the keypoint write lock
+        // while another one is rewriting, as the rewrites need the read lock.
 
-        if (keypointStartLSN.isNULL()) {
+        ReentrantLock keypointRunLock = logStateHolder.keypointRunLock;
+        if (keypointRunLock == null) {
             return;
         }
 
-        // Once all of the CoordinatorLog objects have been unlocked, we must make
-        // sure each of them has been rewritten before the keypoint end record is
-        // written. Note that it is possible that one or more of the CoordinatorLog
-        // objects in this list has already been deleted. We must be careful
-        // to make sure that we do not invoke a method on a deleted object.
-
-        if (keypointRequired) {
-            Enumeration keypointLocalTIDs = logStateHolder.keypointLogs.keys();
-            while (keypointLocalTIDs.hasMoreElements())
-
-                // Obtain the keypoint state lock before obtaining the value from the map, as the
-                // remove operation might be changing the value to NULL. Note that the
-                // remove operation only changes the value of an entry in this map, it does
-                // not change the number of entries in the map, so we do not need to hold the
-                // mutex for the browse.
-
-                synchronized (logStateHolder.keypointStateLock) {
-                    CoordinatorLog currentLog = (CoordinatorLog) logStateHolder.keypointLogs.get(keypointLocalTIDs.nextElement());
-
-                    // Get the value out of the map, and if not NULL entry, tell it to rewrite itself.
-
-                    if (currentLog != NULL_ENTRY)
-                        currentLog.rewrite();
-                }
-        }
-
-        // Now we know all CoordinatorLog objects have either independently rewritten
-        // themselves, or we have done it explicitly. A keypoint end record is
-        // written to indicate that the keypoint is complete.
-
-        logStateHolder.logFile.write(LogFile.UNFORCED, keypointEndRecord, LogFile.KEYPOINT_END, previousLSN);
+        keypointRunLock.lock();
+        try {
 
-        // All that is left to do is to inform the LogFile that the records before
-        // the keypoint start record are no longer required.
-        // Checkpoint the log. This allows the log to discard previous entries that
-        // are no longer required.
+            // The log may have been closed while we were waiting.
 
-        logStateHolder.logFile.checkpoint(keypointStartLSN);
+            if (logStateHolder.keypointLock == null) {
+                return;
+            }
 
-        // Clear the keypoint in progress flag, empty the map of CoordinatorLog
-        // objects being keypointed, release muteces and return.
+            long startTime = System.nanoTime();
 
-        logStateHolder.keypointInProgress = false;
-        logStateHolder.keypointLogs.clear();
+            // Obtain the global keypoint lock to prevent any activity until the keypoint
+            // start has been recorded.
+            // Once the keypoint start has been completed, we can release the
+            // keypoint lock. This will allow waiting CoordinatorLog writes to complete.
 
-    }
-
-    static void keypoint(String logPath) {
-        CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
+            try {
+                logStateHolder.keypointLock.acquireWriteLock();
+                keypointRequired = logPath == null ? startKeypoint(keypointStartLSN, logStateHolder) : startKeypoint(keypointStartLSN, logPath);
+            } finally {
+                logStateHolder.keypointLock.releaseWriteLock();
+            }
 
-        byte[] keypointEndRecord = { (byte) 'K', (byte) 'E', (byte) 'Y', (byte) 'E', (byte) 'N', (byte) 'D' };
+            // If no keypoint start record was written, then just return.
 
-        LogLSN previousLSN = new LogLSN();
-        LogLSN keypointStartLSN = new LogLSN();
-        boolean keypointRequired = false;
+            if (keypointStartLSN.isNULL()) {
+                return;
+            }
 
-        // Obtain the global keypoint lock to prevent any activity until the keypoint
-        // start has been recorded.
-        // Once the keypoint start has been completed, we can release the
-        // keypoint lock. This will allow waiting CoordinatorLog writes to complete.
+            long reclaimed = -1;
+            try {
 
-        try {
-            logStateHolder.keypointLock.acquireWriteLock();
-            keypointRequired = startKeypoint(keypointStartLSN, logPath);
-        } finally {
-            logStateHolder.keypointLock.releaseWriteLock();
-        }
+                // Once all of the CoordinatorLog objects have been unlocked, we must make
+                // sure each of them has been rewritten before the keypoint end record is
+                // written. Note that it is possible that one or more of the CoordinatorLog
+                // objects in this list has already been deleted. We must be careful
+                // to make sure that we do not invoke a method on a deleted object.
+                // Transactions writing their own records meanwhile only wait for the rewrite
+                // of the CoordinatorLog they are removing, if any.
+
+                if (keypointRequired) {
+                    Enumeration keypointLocalTIDs = logStateHolder.keypointLogs.keys();
+                    while (keypointLocalTIDs.hasMoreElements()) {
+
+                        // Obtain the keypoint state lock before obtaining the value from the map, as the
+                        // remove operation might be changing the value to NULL. Note that the
+                        // remove operation only changes the value of an entry in this map, it does
+                        // not change the number of entries in the map, so we do not need to hold the
+                        // mutex for the browse.
+
+                        logStateHolder.keypointStateLock.lock();
+                        try {
+                            java.lang.Object currentLog = logStateHolder.keypointLogs.get(keypointLocalTIDs.nextElement());
 
-        // If no keypoint start record was written, then just return.
+                            // Get the value out of the map, and if not NULL entry, tell it to rewrite itself.
 
-        if (keypointStartLSN.isNULL()) {
-            return;
-        }
+                            if (currentLog != NULL_ENTRY)
+                                ((CoordinatorLog) currentLog).rewrite();
+                        } finally {
+                            logStateHolder.keypointStateLock.unlock();
+                        }
+                    }
+                }
 
-        // Once all of the CoordinatorLog objects have been unlocked, we must make
-        // sure each of them has been rewritten before the keypoint end record is
-        // written. Note that it is possible that one or more of the CoordinatorLog
-        // objects in this list has already been deleted. We must be careful
-        // to make sure that we do not invoke a method on a deleted object.
+                // Now we know all CoordinatorLog objects have either independently rewritten
+                // themselves, or we have done it explicitly. A keypoint end record is
+                // written to indicate that the keypoint is complete.
 
-        if (keypointRequired) {
-            Enumeration keypointLocalTIDs = logStateHolder.keypointLogs.keys();
-            while (keypointLocalTIDs.hasMoreElements())
+                logStateHolder.logFile.write(LogFile.UNFORCED, keypointEndRecord, LogFile.KEYPOINT_END, previousLSN);
 
-                // Obtain the keypoint state lock before obtaining the value from the map, as the
-                // remove operation might be changing the value to NULL. Note that the
-                // remove operation only changes the value of an entry in this map, it does
-                // not change the number of entries in the map, so we do not need to hold the
-                // mutex for the browse.
+                // All that is left to do is to inform the LogFile that the records before
+                // the keypoint start record are no longer required.
+                // Checkpoint the log. This allows the log to discard previous entries that
+                // are no longer required.
 
-                synchronized (logStateHolder.keypointStateLock) {
-                    CoordinatorLog currentLog = (CoordinatorLog) logStateHolder.keypointLogs.get(keypointLocalTIDs.nextElement());
+                reclaimed = logStateHolder.logFile.checkpoint(keypointStartLSN);
+            } finally {
 
-                    // Get the value out of the map, and if not NULL entry, tell it to rewrite itself.
+                // Clear the keypoint in progress flag, empty the map of CoordinatorLog
+                // objects being keypointed, release muteces and return. This is also done
+                // if the keypoint failed, so that later keypoints can still be taken.
 
-                    if (currentLog != NULL_ENTRY)
-                        currentLog.rewrite();
+                logStateHolder.keypointStateLock.lock();
+                try {
+                    logStateHolder.keypointInProgress = false;
+                    logStateHolder.keypointLogs.clear();
+                    if (reclaimed >= 0) {
+                        logStateHolder.keypointer.keypointCompleted(System.nanoTime() - startTime, reclaimed);
+                    }
+                } finally {
+                    logStateHolder.keypointStateLock.unlock();
                 }
+            }
+        } finally {
+            keypointRunLock.unlock();
         }
-
-        // Now we know all CoordinatorLog objects have either independently rewritten
-        // themselves, or we have done it explicitly. A keypoint end record is
-        // written to indicate that the keypoint is complete.
-
-        logStateHolder.logFile.write(LogFile.UNFORCED, keypointEndRecord, LogFile.KEYPOINT_END, previousLSN);
-
-        // All that is left to do is to inform the LogFile that the records before
-        // the keypoint start record are no longer required.
-        // Checkpoint the log. This allows the log to discard previous entries that
-        // are no longer required.
-
-        logStateHolder.logFile.checkpoint(keypointStartLSN);
-
-        // Clear the keypoint in progress flag, empty the map of CoordinatorLog
-        // objects being keypointed, release muteces and return.
-
-        logStateHolder.keypointInProgress = false;
-        logStateHolder.keypointLogs.clear();
-
     }
 
     /**
@@ -1577,9 +1920,9 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
     @Override
     public void upcall(int reason) {
 
-        // Just perform a keypoint.
+        // Just perform a keypoint of the partition that is short on storage.
         if (logPath == null)
-            CoordinatorLog.keypoint();
+            CoordinatorLog.keypoint(logStateHolder, null);
         else
             CoordinatorLog.keypoint(logPath);
 
@@ -1595,208 +1938,221 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
      * @see
      */
 
-    synchronized static void finalizeAll() {
-        CoordinatorLogStateHolder logStateHolder = defaultLogStateHolder;
-
-        boolean deleteFile = false;
-
-        // Obtain the keypoint state lock for this operation.
-
-        synchronized (logStateHolder.keypointStateLock) {
-
-            // Close the LogFile.
-
-            if (logStateHolder.activeLogs != null) {
+    static void finalizeAll() {
+        for (CoordinatorLogStateHolder logStateHolder : getPartitions()) {
+            finalizeAll(logStateHolder);
+        }
+    }
 
-                // If there are no active log records sete delete_file to TRUE so that
-                // LogFile_close will cause the logfile to be deleted
+    static void finalizeAll(String logPath) {
+        CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
+        finalizeAll(logStateHolder);
+        for (CoordinatorLogStateHolder partition : logStateHolder.otherPartitions) {
+            finalizeAll(partition);
+        }
+        logStateHolder.otherPartitions = new CoordinatorLogStateHolder[0];
+    }
 
-                if (logStateHolder.activeLogs.size() == 0)
-                    deleteFile = true;
-                logStateHolder.activeLogs.clear();
-                logStateHolder.activeLogs = null;
-            }
+    /**
+     * Destroys the state of a single log location or partition of the default log.
+     *
+     * @param logStateHolder The state of the log location or partition.
+     */
+    private static void finalizeAll(CoordinatorLogStateHolder logStateHolder) {
 
-            if (logStateHolder.logFile != null)
-                logStateHolder.logFile.close(deleteFile);
-            logStateHolder.logFile = null;
+        // Stop the keypoint thread and wait for any keypoint in progress first, as a keypoint
+        // needs the metaclass lock.
 
-            // Discard the CoordinatorLog mappings.
+        logStateHolder.keypointer.close();
 
-            if (logStateHolder.keypointLogs != null)
-                logStateHolder.keypointLogs.clear();
-            logStateHolder.keypointLogs = null;
+        ReentrantLock keypointRunLock = logStateHolder.keypointRunLock;
+        if (keypointRunLock != null) {
+            keypointRunLock.lock();
         }
+        metaclassLock.lock();
+        try {
 
-        // Discard the locks.
+            boolean deleteFile = false;
 
-        logStateHolder.keypointStateLock = null;
-        logStateHolder.keypointLock = null;
+            // Obtain the keypoint state lock for this operation.
 
-    }
-
-    synchronized static void finalizeAll(String logPath) {
-        CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
+            logStateHolder.keypointStateLock.lock();
+            try {
 
-        boolean deleteFile = false;
+                // Close the LogFile.
 
-        // Obtain the keypoint state lock for this operation.
+                if (logStateHolder.activeLogs != null) {
 
-        synchronized (logStateHolder.keypointStateLock) {
+                    // If there are no active log records sete delete_file to TRUE so that
+                    // LogFile_close will cause the logfile to be deleted
 
-            // Close the LogFile.
+                    if (logStateHolder.activeLogs.size() == 0)
+                        deleteFile = true;
+                    logStateHolder.activeLogs.clear();
+                    logStateHolder.activeLogs = null;
+                }
 
-            if (logStateHolder.activeLogs != null) {
+                if (logStateHolder.logFile != null)
+                    logStateHolder.logFile.close(deleteFile);
+                logStateHolder.logFile = null;
 
-                // If there are no active log records sete delete_file to TRUE so that
-                // LogFile_close will cause the logfile to be deleted
+                // Discard the CoordinatorLog mappings.
 
-                if (logStateHolder.activeLogs.size() == 0)
-                    deleteFile = true;
-                logStateHolder.activeLogs.clear();
-                logStateHolder.activeLogs = null;
+                if (logStateHolder.keypointLogs != null)
+                    logStateHolder.keypointLogs.clear();
+                logStateHolder.keypointLogs = null;
+            } finally {
+                logStateHolder.keypointStateLock.unlock();
             }
 
-            if (logStateHolder.logFile != null)
-                logStateHolder.logFile.close(deleteFile);
-            logStateHolder.logFile = null;
+            // Discard the locks.
 
-            // Discard the CoordinatorLog mappings.
+            logStateHolder.keypointStateLock = null;
+            logStateHolder.keypointLock = null;
+            logStateHolder.keypointRunLock = null;
 
-            if (logStateHolder.keypointLogs != null)
-                logStateHolder.keypointLogs.clear();
-            logStateHolder.keypointLogs = null;
+        } finally {
+            metaclassLock.unlock();
+            if (keypointRunLock != null) {
+                keypointRunLock.unlock();
+            }
         }
-
-        // Discard the locks.
-
-        logStateHolder.keypointStateLock = null;
-        logStateHolder.keypointLock = null;
-
     }
 
     /**
-     * Starts a keypoint.
+     * Starts a keypoint of a partition of the default log.
      *
      * @param keypointStartLSN The LSN to hold the keypoint start LSN.
+     * @param logStateHolder The partition.
      *
      * @return Indicates whether keypoint is required.
      *
      * @see
      */
 
-    synchronized static boolean startKeypoint(LogLSN keypointStartLSN) {
-        CoordinatorLogStateHolder logStateHolder = defaultLogStateHolder;
+    static boolean startKeypoint(LogLSN keypointStartLSN, CoordinatorLogStateHolder logStateHolder) {
+        metaclassLock.lock();
+        try {
 
-        boolean keypointRequired = false;
+            boolean keypointRequired = false;
 
-        // If a keypoint is in progress, return and do nothing.
+            // If a keypoint is in progress, or the log has been closed, return and do nothing.
 
-        if (logStateHolder.keypointInProgress) {
-            return false;
-        }
-        logStateHolder.keypointInProgress = true;
+            if (logStateHolder.keypointInProgress || logStateHolder.activeLogs == null) {
+                return false;
+            }
+            logStateHolder.keypointInProgress = true;
+            logStateHolder.tranCount = 0;
 
-        // Initialise the Log. If this fails, then return whatever exception the
-        // open raised.
+            // Initialise the Log. If this fails, then return whatever exception the
+            // open raised.
 
-        if (!openLog()) {
-            logStateHolder.keypointInProgress = false;
-            return false;
-        }
+            if (!openLog(logStateHolder)) {
+                logStateHolder.keypointInProgress = false;
+                return false;
+            }
 
-        // If there are no known CoordinatorLog objects, then all that the keypoint
-        // operation does is checkpoint the log at the head.
+            // If there are no known CoordinatorLog objects, then all that the keypoint
+            // operation does is checkpoint the log at the head.
 
-        if (logStateHolder.activeLogs.size() == 0)
-            keypointRequired = false;
+            if (logStateHolder.activeLogs.size() == 0)
+                keypointRequired = false;
 
-        // Else go round all currently known CoordinatorLog objects and build a list
-        // of them. New CoordinatorLog objects that are created during this time
-        // will be suspended when they try to do an CoordinatorLog.addLog operation as
-        // this thread has the lock.
+            // Else go round all currently known CoordinatorLog objects and build a list
+            // of them. New CoordinatorLog objects that are created during this time
+            // will be suspended when they try to do an CoordinatorLog.addLog operation as
+            // this thread has the lock.
 
-        else {
+            else {
 
-            // Go through all current CoordinatorLog objects, telling them that they
-            // must rewrite their state if necessary.
-            // Each CoordinatorLog that exists at this time is copied to a separate list.
+                // Go through all current CoordinatorLog objects, telling them that they
+                // must rewrite their state if necessary.
+                // Each CoordinatorLog that exists at this time is copied to a separate list.
 
-            Enumeration clogs = logStateHolder.activeLogs.elements();
-            while (clogs.hasMoreElements()) {
-                CoordinatorLog currentLog = (CoordinatorLog) clogs.nextElement();
-                Long localTID = currentLog.localTID;
+                Enumeration clogs = logStateHolder.activeLogs.elements();
+                while (clogs.hasMoreElements()) {
+                    CoordinatorLog currentLog = (CoordinatorLog) clogs.nextElement();
+                    Long localTID = currentLog.localTID;
 
-                currentLog.requireRewrite();
-                logStateHolder.keypointLogs.put(localTID, currentLog);
+                    currentLog.requireRewrite();
+                    logStateHolder.keypointLogs.put(localTID, currentLog);
+                }
+                keypointRequired = logStateHolder.keypointLogs.size() > 0;
             }
-            keypointRequired = logStateHolder.keypointLogs.size() > 0;
-        }
 
-        // Write a keypoint start record now that we know no logging activity is
-        // taking place.
+            // Write a keypoint start record now that we know no logging activity is
+            // taking place.
 
-        byte[] keypointStartRecord = { (byte) 'K', (byte) 'E', (byte) 'Y', (byte) 'S', (byte) 'T', (byte) 'A', (byte) 'R', (byte) 'T' };
-        logStateHolder.logFile.write(LogFile.UNFORCED, keypointStartRecord, LogFile.KEYPOINT_START, keypointStartLSN);
+            byte[] keypointStartRecord = { (byte) 'K', (byte) 'E', (byte) 'Y', (byte) 'S', (byte) 'T', (byte) 'A', (byte) 'R', (byte) 'T' };
+            logStateHolder.logFile.write(LogFile.UNFORCED, keypointStartRecord, LogFile.KEYPOINT_START, keypointStartLSN);
 
-        return keypointRequired;
+            return keypointRequired;
+        } finally {
+            metaclassLock.unlock();
+        }
     }
 
-    synchronized static boolean startKeypoint(LogLSN keypointStartLSN, String logPath) {
-        CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
+    static boolean startKeypoint(LogLSN keypointStartLSN, String logPath) {
+        metaclassLock.lock();
+        try {
+            CoordinatorLogStateHolder logStateHolder = getStateHolder(logPath);
 
-        boolean keypointRequired = false;
+            boolean keypointRequired = false;
 
-        // If a keypoint is in progress, return and do nothing.
+            // If a keypoint is in progress, or the log has been closed, return and do nothing.
 
-        if (logStateHolder.keypointInProgress) {
-            return false;
-        }
-        logStateHolder.keypointInProgress = true;
+            if (logStateHolder.keypointInProgress || logStateHolder.activeLogs == null) {
+                return false;
+            }
+            logStateHolder.keypointInProgress = true;
+            logStateHolder.tranCount = 0;
 
-        // Initialise the Log. If this fails, then return whatever exception the
-        // open raised.
+            // Initialise the Log. If this fails, then return whatever exception the
+            // open raised.
 
-        if (!openLog(logPath)) {
-            logStateHolder.keypointInProgress = false;
-            return false;
-        }
+            if (!openLog(logPath)) {
+                logStateHolder.keypointInProgress = false;
+                return false;
+            }
 
-        // If there are no known CoordinatorLog objects, then all that the keypoint
-        // operation does is checkpoint the log at the head.
+            // If there are no known CoordinatorLog objects, then all that the keypoint
+            // operation does is checkpoint the log at the head.
 
-        if (logStateHolder.activeLogs.size() == 0)
-            keypointRequired = false;
+            if (logStateHolder.activeLogs.size() == 0)
+                keypointRequired = false;
 
-        // Else go round all currently known CoordinatorLog objects and build a list
-        // of them. New CoordinatorLog objects that are created during this time
-        // will be suspended when they try to do an CoordinatorLog.addLog operation as
-        // this thread has the lock.
+            // Else go round all currently known CoordinatorLog objects and build a list
+            // of them. New CoordinatorLog objects that are created during this time
+            // will be suspended when they try to do an CoordinatorLog.addLog operation as
+            // this thread has the lock.
 
-        else {
+            else {
 
-            // Go through all current CoordinatorLog objects, telling them that they
-            // must rewrite their state if necessary.
-            // Each CoordinatorLog that exists at this time is copied to a separate list.
+                // Go through all current CoordinatorLog objects, telling them that they
+                // must rewrite their state if necessary.
+                // Each CoordinatorLog that exists at this time is copied to a separate list.
 
-            Enumeration clogs = logStateHolder.activeLogs.elements();
-            while (clogs.hasMoreElements()) {
-                CoordinatorLog currentLog = (CoordinatorLog) clogs.nextElement();
-                Long localTID = currentLog.localTID;
+                Enumeration clogs = logStateHolder.activeLogs.elements();
+                while (clogs.hasMoreElements()) {
+                    CoordinatorLog currentLog = (CoordinatorLog) clogs.nextElement();
+                    Long localTID = currentLog.localTID;
 
-                currentLog.requireRewrite();
-                logStateHolder.keypointLogs.put(localTID, currentLog);
+                    currentLog.requireRewrite();
+                    logStateHolder.keypointLogs.put(localTID, currentLog);
+                }
+                keypointRequired = logStateHolder.keypointLogs.size() > 0;
             }
-            keypointRequired = logStateHolder.keypointLogs.size() > 0;
-        }
 
-        // Write a keypoint start record now that we know no logging activity is
-        // taking place.
+            // Write a keypoint start record now that we know no logging activity is
+            // taking place.
 
-        byte[] keypointStartRecord = { (byte) 'K', (byte) 'E', (byte) 'Y', (byte) 'S', (byte) 'T', (byte) 'A', (byte) 'R', (byte) 'T' };
-        logStateHolder.logFile.write(LogFile.UNFORCED, keypointStartRecord, LogFile.KEYPOINT_START, keypointStartLSN);
+            byte[] keypointStartRecord = { (byte) 'K', (byte) 'E', (byte) 'Y', (byte) 'S', (byte) 'T', (byte) 'A', (byte) 'R', (byte) 'T' };
+            logStateHolder.logFile.write(LogFile.UNFORCED, keypointStartRecord, LogFile.KEYPOINT_START, keypointStartLSN);
 
-        return keypointRequired;
+            return keypointRequired;
+        } finally {
+            metaclassLock.unlock();
+        }
     }
 
     /**
@@ -1817,6 +2173,20 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
         logStateHolder.logFile.dump();
     }
 
+    /**
+     * Returns the keypointers of the partitions of the default log, which record the keypoint statistics.
+     *
+     * @return The keypointers of the default log.
+     */
+    static LogKeypointer[] getKeypointers() {
+        CoordinatorLogStateHolder[] logPartitions = getPartitions();
+        LogKeypointer[] keypointers = new LogKeypointer[logPartitions.length];
+        for (int i = 0; i < logPartitions.length; i++) {
+            keypointers[i] = logPartitions[i].keypointer;
+        }
+        return keypointers;
+    }
+
     // START IASRI 4662745
     public static void setKeypointTrigger(int keypoint) {
         keypointTrigger = keypoint;
@@ -1993,9 +2363,18 @@ class CoordinatorLogStateHolder {
     Log log = null;
     Hashtable activeLogs = null;
     Hashtable keypointLogs = null;
-    int tranCount = 0;
+    volatile int tranCount = 0;
     boolean keypointInProgress = false;
     // java.lang.Object keypointLock = new java.lang.Object();
     RWLock keypointLock = null;
-    java.lang.Object keypointStateLock = null;
+    ReentrantLock keypointStateLock = null;
+    ReentrantLock keypointRunLock = null;
+    LogKeypointer keypointer = null;
+    // The partition of the default log, and the directory of its log if not the log directory.
+    int partition = 0;
+    String logDirectory = null;
+    // The server which owns the partition, if it is a partition of the log of another server.
+    String serverName = null;
+    // The partitions other than the first of the log of another server, recovered with it.
+    volatile CoordinatorLogStateHolder[] otherPartitions = null;
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The binary format of the records written by the CoordinatorLog.
+ * <p>
+ * A record starts with the local transaction identifier, followed by the format marker, the format version and the
+ * sections of the CoordinatorLog. Counts and lengths are unsigned variable length integers with seven bits per byte, and
+ * object references are stored as the bytes of their IOR rather than as stringified IORs, which take twice the space.
+ * <p>
+ * Records written before the format was versioned have the number of sections where the marker is now, unsigned shorts
+ * for all counts and lengths, and stringified IORs. They are still read during recovery.
+ */
+final class CoordinatorLogRecord {
+
+    /**
+     * Takes the place of the number of sections of the unversioned format, which is never that large.
+     */
+    static final int FORMAT_MARKER = 0xFFFF;
+
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * The size of the local transaction identifier, the format marker and the format version.
+     */
+    static final int HEADER_SIZE = 8 + 2 + 1;
+
+    private static final String IOR_PREFIX = "IOR:";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private CoordinatorLogRecord() {
+    }
+
+    /**
+     * Returns the number of bytes taken by the given value as a variable length integer.
+     *
+     * @param value A non-negative value.
+     *
+     * @return The number of bytes.
+     */
+    static int varIntSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+
+        return size;
+    }
+
+    /**
+     * Puts the given value into the buffer as a variable length integer.
+     *
+     * @param buffer The buffer.
+     * @param value A non-negative value.
+     */
+    static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads a variable length integer from the stream.
+     *
+     * @param dataInput The stream.
+     *
+     * @return The value.
+     *
+     * @exception IOException The stream ended or does not hold a valid value.
+     */
+    static int readVarInt(DataInputStream dataInput) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = dataInput.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed length in CoordinatorLog record");
+    }
+
+    /**
+     * Converts a stringified object reference to the bytes of its IOR.
+     *
+     * @param objRefStr The stringified object reference.
+     *
+     * @return The bytes of the IOR.
+     *
+     * @exception IllegalArgumentException The string is not a stringified IOR.
+     */
+    static byte[] toIORBytes(String objRefStr) {
+        if (!objRefStr.regionMatches(true, 0, IOR_PREFIX, 0, IOR_PREFIX.length()) || (objRefStr.length() - IOR_PREFIX.length()) % 2 != 0) {
+            throw new IllegalArgumentException("Not a stringified IOR: " + objRefStr);
+        }
+
+        byte[] ior = new byte[(objRefStr.length() - IOR_PREFIX.length()) / 2];
+        for (int i = 0, pos = IOR_PREFIX.length(); i < ior.length; i++, pos += 2) {
+            int high = Character.digit(objRefStr.charAt(pos), 16);
+            int low = Character.digit(objRefStr.charAt(pos + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Not a stringified IOR: " + objRefStr);
+            }
+            ior[i] = (byte) (high << 4 | low);
+        }
+
+        return ior;
+    }
+
+    /**
+     * Converts the bytes of an IOR to the stringified object reference.
+     *
+     * @param ior The bytes of the IOR.
+     *
+     * @return The stringified object reference.
+     */
+    static String toIORString(byte[] ior) {
+        StringBuilder objRefStr = new StringBuilder(IOR_PREFIX.length() + ior.length * 2).append(IOR_PREFIX);
+        for (byte b : ior) {
+            objRefStr.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+
+        return objRefStr.toString();
+    }
+}
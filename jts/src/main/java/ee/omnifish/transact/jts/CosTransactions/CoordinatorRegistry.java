@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The live Coordinators of the RecoveryManager, or of one log location of the DelegatedRecoveryManager, indexed by their
+ * global and local identifiers.
+ * <p>
+ * The maps are concurrent hash maps, which lock per bin, so adding, removing and looking up Coordinators for different
+ * transactions does not contend on a single monitor. Iteration is weakly consistent: it never fails because of
+ * concurrent changes and does not require a copy of the maps, but it may or may not reflect Coordinators added or
+ * removed while it is in progress.
+ */
+class CoordinatorRegistry {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final ConcurrentHashMap<GlobalTID, CoordinatorImpl> coordsByGlobalTID = new ConcurrentHashMap<>(INITIAL_CAPACITY);
+    private final ConcurrentHashMap<Long, CoordinatorImpl> coordsByLocalTID = new ConcurrentHashMap<>(INITIAL_CAPACITY);
+
+    /**
+     * Associates the given identifiers with the Coordinator.
+     *
+     * @param globalTID The global identifier for the transaction.
+     * @param localTID The local identifier for the transaction.
+     * @param coord The Coordinator for the transaction.
+     */
+    void add(GlobalTID globalTID, Long localTID, CoordinatorImpl coord) {
+        coordsByGlobalTID.put(globalTID, coord);
+        coordsByLocalTID.put(localTID, coord);
+    }
+
+    /**
+     * Removes the associations for the given identifiers. The local association is only removed if the global one
+     * existed.
+     *
+     * @param globalTID The global identifier for the transaction.
+     * @param localTID The local identifier for the transaction.
+     *
+     * @return The Coordinator associated with the local identifier, or null if either association did not exist.
+     */
+    CoordinatorImpl remove(GlobalTID globalTID, Long localTID) {
+        if (coordsByGlobalTID.remove(globalTID) == null) {
+            return null;
+        }
+
+        return coordsByLocalTID.remove(localTID);
+    }
+
+    CoordinatorImpl get(GlobalTID globalTID) {
+        return coordsByGlobalTID.get(globalTID);
+    }
+
+    CoordinatorImpl get(GlobalTID.Key key) {
+        return coordsByGlobalTID.get(key);
+    }
+
+    CoordinatorImpl getLocal(Long localTID) {
+        return coordsByLocalTID.get(localTID);
+    }
+
+    boolean containsLocal(Long localTID) {
+        return coordsByLocalTID.containsKey(localTID);
+    }
+
+    int size() {
+        return coordsByGlobalTID.size();
+    }
+
+    boolean isEmpty() {
+        return coordsByGlobalTID.isEmpty();
+    }
+
+    /**
+     * @return a weakly consistent view of the registered Coordinators.
+     */
+    Collection<CoordinatorImpl> coordinators() {
+        return coordsByGlobalTID.values();
+    }
+
+    /**
+     * @return a weakly consistent enumeration of the global identifiers of the registered Coordinators.
+     */
+    Enumeration<GlobalTID> globalTIDs() {
+        return coordsByGlobalTID.keys();
+    }
+
+    /**
+     * @return the registered Coordinators at the time of the call.
+     */
+    CoordinatorImpl[] toArray() {
+        return coordsByGlobalTID.values().toArray(new CoordinatorImpl[0]);
+    }
+}
@@ -211,8 +211,9 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
             // If there is a Coordinator, lock it for the duration of this operation.
             // If there is no Coordinator, return a rollback vote.
 
-            if (coord != null)
-                synchronized (coord) {
+            if (coord != null) {
+                coord.lock.lock();
+                try {
 
                     // Get the Coordinator's vote.
                     // If the Coordinator throws HeuristicMixed or HeuristicHazard,
@@ -228,7 +229,10 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
 
                     if (result == Vote.VoteRollback)
                         coord.rollback(false);
+                } finally {
+                    coord.lock.unlock();
                 }
+            }
         }
 
         // If the Coordinator has voted to roll the transaction back, then this
@@ -311,8 +315,9 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
             // If the Coordinator throws HeuristicMixed or HeuristicHazard,
             // allow them to percolate to the caller.
 
-            if (coord != null)
-                synchronized (coord) {
+            if (coord != null) {
+                coord.lock.lock();
+                try {
                     // GDH:
                     // Make sure the coordinator knows we are it's terminator
                     // (this is done here in case we are in a recovery situation)
@@ -329,7 +334,10 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
 
                     makeSureSetAsTerminator();
                     coord.commit();
+                } finally {
+                    coord.lock.unlock();
                 }
+            }
         }
 
         // If and we are not being forced, we can destroy ourselves before returning.
@@ -409,7 +417,8 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
             if (coord != null) {
                 rolledBack = false;
 
-                synchronized (coord) {
+                coord.lock.lock();
+                try {
 
                     // GDH:
                     // Make sure the coordinator knows we are it's terminator
@@ -447,6 +456,8 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
                             throw (INTERNAL) exc;
                         }
                     }
+                } finally {
+                    coord.lock.unlock();
                 }
 
             } else {
@@ -556,8 +567,9 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
             // If the Coordinator throws HeuristicMixed or HeuristicHazard,
             // allow them to percolate to the caller.
 
-            if (coord != null)
-                synchronized (coord) {
+            if (coord != null) {
+                coord.lock.lock();
+                try {
 
                     // GDH:
                     // Make sure the coordinator knows we are it's terminator
@@ -568,7 +580,10 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
                     // cases
                     makeSureSetAsTerminator();
                     coord.rollback(true);
+                } finally {
+                    coord.lock.unlock();
                 }
+            }
         }
 
         // If we are not being forced, we can destroy ourselves before returning.
@@ -666,7 +681,8 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
             if (coord != null) {
                 boolean rolledBack = false;
 
-                synchronized (coord) {
+                coord.lock.lock();
+                try {
                     try {
                         if (coord.prepare() == Vote.VoteCommit)
                             coord.commit();
@@ -676,6 +692,8 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
                         }
                     } catch (Throwable ex) {
                     }
+                } finally {
+                    coord.lock.unlock();
                 }
 
                 if (rolledBack) {
@@ -739,10 +757,14 @@ class CoordinatorResourceImpl extends CoordinatorResourcePOA implements Completi
             // If there is a Coordinator, lock it for the duration of this operation.
             // Tell the Coordinator to rollback.
 
-            if (coord != null)
-                synchronized (coord) {
+            if (coord != null) {
+                coord.lock.lock();
+                try {
                     coord.rollback(true);
+                } finally {
+                    coord.lock.unlock();
                 }
+            }
         }
 
         // Destroy ourselves before returning (there is no heuristic information for
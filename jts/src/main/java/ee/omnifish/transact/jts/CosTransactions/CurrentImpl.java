@@ -30,6 +30,7 @@
 
 package ee.omnifish.transact.jts.CosTransactions;
 
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -77,6 +78,12 @@ public class CurrentImpl extends org.omg.CORBA.LocalObject implements org.omg.Co
     private int timeOut = 0;
     private static boolean active = true;
     private TransactionFactory factory = null;
+
+    /**
+     * Serializes begin and shutdown. A lock rather than the monitor of this object, because begin writes the server name
+     * marker record when the log is kept in a database, during which a virtual thread must not pin its carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
     /*
      * Logger to log transaction messages
      */
@@ -122,7 +129,8 @@ public class CurrentImpl extends org.omg.CORBA.LocalObject implements org.omg.Co
 
         // Until we need to check for resync in progress, synchronize the method.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // If the transaction service is not active, throw an exception.
 
@@ -146,6 +154,8 @@ public class CurrentImpl extends org.omg.CORBA.LocalObject implements org.omg.Co
             // Release the lock now so that if the TransactionFactoryImpl call has to block
             // (during resync), the lock does not prevent other threads from running.
 
+        } finally {
+            lock.unlock();
         }
 
         // If there is a current Control object, then we should try to begin a
@@ -197,9 +207,12 @@ public class CurrentImpl extends org.omg.CORBA.LocalObject implements org.omg.Co
                 // This block must be synchronized so that different threads do not try
                 // this concurrently.
 
-                synchronized (this) {
+                lock.lock();
+                try {
                     if (factory == null)
                         factory = Configuration.getFactory();
+                } finally {
+                    lock.unlock();
                 }
 
                 // Create the new transaction.
@@ -292,7 +305,8 @@ public class CurrentImpl extends org.omg.CORBA.LocalObject implements org.omg.Co
 
         // Until we need to check for resync in progress, synchronize the method.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // If the transaction service is not active, throw an exception.
 
@@ -316,6 +330,8 @@ public class CurrentImpl extends org.omg.CORBA.LocalObject implements org.omg.Co
             // Release the lock now so that if the TransactionFactoryImpl call has to block
             // (during resync), the lock does not prevent other threads from running.
 
+        } finally {
+            lock.unlock();
         }
 
         // If there is a current Control object, then we should try to begin a
@@ -367,9 +383,12 @@ public class CurrentImpl extends org.omg.CORBA.LocalObject implements org.omg.Co
                 // This block must be synchronized so that different threads do not try
                 // this concurrently.
 
-                synchronized (this) {
+                lock.lock();
+                try {
                     if (factory == null)
                         factory = Configuration.getFactory();
+                } finally {
+                    lock.unlock();
                 }
 
                 // Create the new transaction.
@@ -936,9 +955,14 @@ public class CurrentImpl extends org.omg.CORBA.LocalObject implements org.omg.Co
      *
      * @param immediate Indicates whether to ignore running transactions.
      */
-    synchronized void shutdown(boolean immediate) {
-        // Inform the basic transaction services to shutdown.
-        CurrentTransaction.shutdown(immediate);
+    void shutdown(boolean immediate) {
+        lock.lock();
+        try {
+            // Inform the basic transaction services to shutdown.
+            CurrentTransaction.shutdown(immediate);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -22,23 +22,19 @@ import static java.util.logging.Level.SEVERE;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.Hashtable;
-import java.util.Set;
-import java.util.Vector;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.transaction.xa.XAException;
 import javax.transaction.xa.XAResource;
-import javax.transaction.xa.Xid;
 
-import org.omg.CORBA.COMM_FAILURE;
 import org.omg.CORBA.SystemException;
-import org.omg.CORBA.TRANSIENT;
 import org.omg.CosTransactions.Status;
 
 import ee.omnifish.transact.jts.codegen.jtsxa.OTSResource;
@@ -58,16 +54,11 @@ import ee.omnifish.transact.jts.utils.RecoveryHooks.FailureInducer;
  */
 public class DelegatedRecoveryManager {
 
-    private static Hashtable recoveryStatetable = new Hashtable();
-    private static Hashtable tmoutMgrtable = new Hashtable();
+    private static ConcurrentHashMap<String, RecoveryStateHolder> recoveryStatetable = new ConcurrentHashMap<>();
+    private static ConcurrentHashMap<String, DelegatedTimeoutManager> tmoutMgrtable = new ConcurrentHashMap<>();
 
-    synchronized static DelegatedTimeoutManager getTimeoutManager(String logPath) {
-        DelegatedTimeoutManager tmoutMgr = (DelegatedTimeoutManager) tmoutMgrtable.get(logPath);
-        if (tmoutMgr != null)
-            return tmoutMgr;
-        tmoutMgr = new DelegatedTimeoutManager(logPath);
-        tmoutMgrtable.put(logPath, tmoutMgr);
-        return tmoutMgr;
+    static DelegatedTimeoutManager getTimeoutManager(String logPath) {
+        return tmoutMgrtable.computeIfAbsent(logPath, DelegatedTimeoutManager::new);
     }
 
     static Logger _logger = Logger.getLogger(DelegatedRecoveryManager.class.getName());
@@ -75,13 +66,12 @@ public class DelegatedRecoveryManager {
     static boolean addCoordinator(GlobalTID globalTID, Long localTID, CoordinatorImpl coord, int timeout, String logPath) {
 
         boolean result = true;
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
 
         // Attempt to add the global and local indentifier to
         // Coordinator associations to the maps.
 
-        state.coordsByGlobalTID.put(globalTID, coord);
-        state.coordsByLocalTID.put(localTID, coord);
+        state.coordinators.add(globalTID, localTID, coord);
 
         // Set up the timeout for the transaction. When active, the
         // timeout thread will periodically examine the map and abort
@@ -99,19 +89,13 @@ public class DelegatedRecoveryManager {
     static boolean removeCoordinator(GlobalTID globalTID, Long localTID, boolean aborted, String logPath) {
 
         boolean result = false;
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
 
-        // Remove the global identifier to Coordinator mapping if possible.
+        // Remove the global identifier and the InternalTid to Coordinator
+        // mappings if possible.
 
-        CoordinatorImpl coord = null;
-        result = (state.coordsByGlobalTID.remove(globalTID) != null);
-
-        // Remove the InternalTid to Coordinator mapping if possible.
-
-        if (result) {
-            coord = (CoordinatorImpl) state.coordsByLocalTID.remove(localTID);
-            result = (coord != null);
-        }
+        CoordinatorImpl coord = state.coordinators.remove(globalTID, localTID);
+        result = (coord != null);
 
         // If that succeeded, forget the CoordinatorLog object, if the
         // transaction is not a subtransaction. The following may return
@@ -166,8 +150,8 @@ public class DelegatedRecoveryManager {
 
     static CoordinatorImpl getCoordinator(GlobalTID globalTID, String logPath) {
 
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
-        CoordinatorImpl result = (CoordinatorImpl) state.coordsByGlobalTID.get(globalTID);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
+        CoordinatorImpl result = state.coordinators.get(globalTID);
 
         return result;
     }
@@ -204,7 +188,7 @@ public class DelegatedRecoveryManager {
         }
         Configuration.setServerName(logPath, serverName);
         if (Configuration.isDBLoggingEnabled()) {
-            RecoveryManager.dbXARecovery(serverName, Collections.enumeration(Arrays.asList(resources)));
+            RecoveryManager.dbXARecovery(serverName, XARecoveryEngine.getUniqueRMs(Collections.enumeration(Arrays.asList(resources))));
             return true;
         }
 
@@ -213,30 +197,22 @@ public class DelegatedRecoveryManager {
         RecoveryStateHolder state = new RecoveryStateHolder();
         recoveryStatetable.put(logPath, state);
         Enumeration logRecords = CoordinatorLog.getLogged(logPath);
-        while (logRecords.hasMoreElements()) {
-            keypointRequired = true;
-            try {
-                (new TopCoordinator()).delegated_reconstruct((CoordinatorLog) logRecords.nextElement(), logPath);
-            } catch (Exception exc) {
-                _logger.log(SEVERE, "jts.recovery_in_doubt_exception", exc);
-                String msg = LogFormatter.getLocalizedMessage(_logger, "jts.recovery_in_doubt", new java.lang.Object[] { exc.toString() });
-                throw new org.omg.CORBA.INTERNAL(msg);
-            }
+        try {
+            keypointRequired = LogReplay.reconstruct(logRecords, log -> (new TopCoordinator()).delegated_reconstruct(log, logPath));
+        } catch (Exception exc) {
+            _logger.log(SEVERE, "jts.recovery_in_doubt_exception", exc);
+            String msg = LogFormatter.getLocalizedMessage(_logger, "jts.recovery_in_doubt", new java.lang.Object[] { exc.toString() });
+            throw new org.omg.CORBA.INTERNAL(msg);
         }
 
-        int size = resources.length;
-        Vector v = new Vector();
-        for (int i = 0; i < size; i++) {
-            v.addElement(resources[i]);
-        }
-        state.uniqueRMSet = getUniqueRMSet(v.elements());
+        state.uniqueRMSet = XARecoveryEngine.getUniqueRMs(Collections.enumeration(Arrays.asList(resources)));
         proceedWithXARecovery(logPath);
         state.recoveryInProgress.post();
 
         // If resync is not needed, then perform after-resync
         // tasks immediately.
 
-        result = state.coordsByGlobalTID.size() > 0;
+        result = !state.coordinators.isEmpty();
         if (!result) {
             try {
                 resyncComplete(false, keypointRequired, logPath);
@@ -254,20 +230,18 @@ public class DelegatedRecoveryManager {
         // If there are any transactions, proceed with resync. The map of
         // coordinators by global identifier is created during the
         // TopCoordinator reconstruct method when the coordinators are added
-        // via addCoordinator. We copy the contents to another map as
-        // Coordinators will remove themselves from the map during resync.
+        // via addCoordinator. Coordinators remove themselves from the map
+        // during resync, which the weakly consistent iteration tolerates.
 
         // Now that the Coordinators have been reconstructed, record
         // the number of transactions requiring resync,
-        // and make an event trace point. We must clone the Hashtable
-        // here so that the Enumeration does not get
-        // changed when any subsequent transaction is created (this can happen
-        // when the last Coordinator is removed).
+        // and make an event trace point. The iteration stops once the
+        // last recovered Coordinator has been removed.
 
-        RecoveryStateHolder recoveryState = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+        RecoveryStateHolder recoveryState = recoveryStatetable.get(logPath);
 
-        recoveryState.resyncCoords = recoveryState.coordsByGlobalTID.size();
-        Enumeration resyncList = ((Hashtable) recoveryState.coordsByGlobalTID.clone()).elements();
+        recoveryState.resyncCoords = recoveryState.coordinators.size();
+        Iterator<CoordinatorImpl> resyncList = recoveryState.coordinators.coordinators().iterator();
 
         boolean isRoot[] = new boolean[1];
 
@@ -275,15 +249,16 @@ public class DelegatedRecoveryManager {
         // for each transaction is obtained to avoid deadlocks during recovery.
 
         FailureInducer.waitInRecovery();
-        while (resyncList.hasMoreElements()) {
+        while (recoveryState.resyncCoords > 0 && resyncList.hasNext()) {
 
-            TopCoordinator coord = (TopCoordinator) resyncList.nextElement();
+            TopCoordinator coord = (TopCoordinator) resyncList.next();
 
             try {
 
                 // Before performing recovery, lock the coordinator.
 
-                synchronized (coord) {
+                coord.lock.lock();
+                try {
 
                     Status state = coord.recover(isRoot);
 
@@ -359,6 +334,8 @@ public class DelegatedRecoveryManager {
                             }
                         }
                     }
+                } finally {
+                    coord.lock.unlock();
                 }
             } catch (Throwable exc) {
             }
@@ -371,7 +348,7 @@ public class DelegatedRecoveryManager {
 
     private static void resyncComplete(boolean resynced, boolean keypointRequired, String logPath) throws LogicErrorException {
 
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
         // Inform JTSXA that resync is complete, and trace the fact
         // that resync has completed.
 
@@ -404,8 +381,8 @@ public class DelegatedRecoveryManager {
 
     static CoordinatorImpl getLocalCoordinator(Long localTID, String logPath) {
 
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
-        CoordinatorImpl result = (CoordinatorImpl) state.coordsByLocalTID.get(localTID);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
+        CoordinatorImpl result = state.coordinators.getLocal(localTID);
 
         return result;
     }
@@ -423,9 +400,9 @@ public class DelegatedRecoveryManager {
      */
 
     static boolean validLocalTID(Long localTID, String logPath) {
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
 
-        boolean result = state.coordsByLocalTID.containsKey(localTID);
+        boolean result = state.coordinators.containsLocal(localTID);
 
         return result;
     }
@@ -448,7 +425,7 @@ public class DelegatedRecoveryManager {
         Enumeration keys = recoveryStatetable.keys();
         if (keys.hasMoreElements()) {
             String logPath = (String) keys.nextElement();
-            RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+            RecoveryStateHolder state = recoveryStatetable.get(logPath);
             if (immediate) {
                 // If immediate, stop the resync thread if any.
 
@@ -479,35 +456,6 @@ public class DelegatedRecoveryManager {
         }
     }
 
-    /**
-     * Reduce the set of XAResource objects into a unique set such that there is at most one XAResource object per RM.
-     */
-    private static Enumeration getUniqueRMSet(Enumeration xaResourceList) {
-
-        Vector uniqueRMList = new Vector();
-
-        while (xaResourceList.hasMoreElements()) {
-            XAResource xaRes = (XAResource) xaResourceList.nextElement();
-            int size = uniqueRMList.size();
-            boolean match = false;
-            for (int i = 0; i < size; i++) { // compare and eliminate duplicates
-                XAResource uniqueXaRes = (XAResource) uniqueRMList.elementAt(i);
-                try {
-                    if (xaRes.isSameRM(uniqueXaRes)) {
-                        match = true;
-                        break;
-                    }
-                } catch (XAException xe) {
-                }
-            }
-            if (!match) {
-                uniqueRMList.add(xaRes);
-            }
-        }
-
-        return uniqueRMList.elements();
-    }
-
     /**
      * This method is used to recontruct and register the Resource objects corresponding to in-doubt transactions in the
      * RMs. It is assumed that the XAResource list has already been provided to the Recovery Manager. This method can be
@@ -515,131 +463,27 @@ public class DelegatedRecoveryManager {
      */
     private static void proceedWithXARecovery(String logPath) {
 
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
 
         /* This method has been newly added - Ram Jeyaraman */
 
-        Enumeration xaResources = state.uniqueRMSet;
+        List<XAResource> xaResources = state.uniqueRMSet;
 
         // sanity check
         if (xaResources == null) {
             return;
         }
 
-        Vector otsResources = new Vector();
-        // Map uniqueXids = new Hashtable();
-        Set uniqueXids = new HashSet();
-
-        while (xaResources.hasMoreElements()) {
-
-            XAResource xaResource = (XAResource) xaResources.nextElement();
-
-            // Get the list of XIDs which represent in-doubt transactions
-            // for the database.
-
-            Xid[] inDoubtXids = RecoveryManager.getInDoubtXids(xaResource);
-            // uniqueXids.clear();
-            if (inDoubtXids == null || inDoubtXids.length == 0) {
-                continue; // go to the next resource
-            }
-
-            for (Xid inDoubtXid : inDoubtXids) {
-
-                // check to see if the xid belongs to this server.
-
-                String branchQualifier = new String(inDoubtXid.getBranchQualifier());
-                String serverName = Configuration.getServerName(logPath);
-
-                if (branchQualifier.startsWith(serverName)) {
-
-                    // check if the xid is a duplicate. i.e., Xids
-                    // which have same globalId and branchId are
-                    // considered duplicates. Note that the
-                    // branchId format is (serverId, rmId). This is
-                    // to make sure that at most one OTSResource object
-                    // is registered with the coordinator per transaction
-                    // per RM.
-
-                    if (!uniqueXids.contains(inDoubtXid)) { // unique xid
-                        if (_logger.isLoggable(Level.FINE)) {
-                            _logger.logp(Level.FINE, "DelegatedRecoveryManager", "proceedWithXARecovery",
-                                    " This xid is UNIQUE " + inDoubtXid);
-                        }
-
-                        uniqueXids.add(inDoubtXid); // add to uniqueList
-
-                        // Create an OTSResource for the in-doubt
-                        // transaction and add it to the list. Each
-                        // OTSResource represents a RM per transaction.
-                        otsResources.addElement(new OTSResourceImpl(inDoubtXid, xaResource, null).getCORBAObjReference());
-                    } else {
-                        if (_logger.isLoggable(Level.FINE)) {
-                            _logger.logp(Level.FINE, "DelegatedRecoveryManager", "proceedWithXARecovery",
-                                    " This xid is NOTUNIQUE " + inDoubtXid);
-                        }
-                    }
-                } else {
-                    if (_logger.isLoggable(Level.FINE)) {
-                        _logger.logp(Level.FINE, "DelegatedRecoveryManager", "proceedWithXARecovery",
-                                " This xid doesn't belong to me " + inDoubtXid);
-                    }
-                }
-            }
-        }
-
-        // For each OTSResource, determine whether the transaction is known,
-        // and if so, register it, otherwise roll it back.
+        // Obtain the in-doubt branches of this server from all resource
+        // managers, then for each of them determine whether the transaction
+        // is known, and if so, register it, otherwise roll it back.
 
-        for (int i = 0; i < otsResources.size(); i++) {
-
-            OTSResource otsResource = (OTSResource) otsResources.elementAt(i);
-            GlobalTID globalTID = new GlobalTID(otsResource.getGlobalTID());
-            TopCoordinator coord = (TopCoordinator) state.coordsByGlobalTID.get(globalTID);
+        List<XARecoveryEngine.InDoubtBranch> unknownBranches = new ArrayList<>();
+        for (XARecoveryEngine.InDoubtBranch branch : XARecoveryEngine.getInDoubtBranches(xaResources, Configuration.getServerName(logPath))) {
+            TopCoordinator coord = (TopCoordinator) state.coordinators.get(new GlobalTID.Key(branch.xid));
 
             if (coord == null) {
-                // Roll the OTSResource back if the transaction is not
-                // recognised. This happens when the RM has recorded its
-                // prepare vote, but the JTS has not recorded its prepare vote.
-                if (_logger.isLoggable(Level.FINE)) {
-                    _logger.logp(Level.FINE, "DelegatedRecoveryManager", "proceedWithXARecovery()",
-                            "Could  not recognize OTSResource: " + otsResource + " with tid: "
-                                    + LogFormatter.convertToString(globalTID.realTID.tid) + ";Hence rolling this resource back...");
-                }
-                boolean infiniteRetry = true;
-                int commitRetries = Configuration.getRetries();
-                if (commitRetries >= 0)
-                    infiniteRetry = false;
-                int commitRetriesLeft = commitRetries;
-                boolean exceptionisThrown = true;
-                while (exceptionisThrown) {
-                    try {
-                        otsResource.rollback();
-                        exceptionisThrown = false;
-                    } catch (Throwable exc) {
-                        if ((exc instanceof COMM_FAILURE) || (exc instanceof TRANSIENT)) {
-                            if (commitRetriesLeft > 0 || infiniteRetry) {
-                                // For TRANSIENT or COMM_FAILURE, wait
-                                // for a while, then retry the commit.
-                                if (!infiniteRetry) {
-                                    commitRetriesLeft--;
-                                }
-
-                                try {
-                                    Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
-                                } catch (Throwable e) {
-                                }
-                            } else {
-                                _logger.log(Level.WARNING, "jts.exception_during_resync",
-                                        new java.lang.Object[] { exc.toString(), "OTSResource rollback" });
-                                exceptionisThrown = false;
-                            }
-                        } else {
-                            _logger.log(Level.WARNING, "jts.exception_during_resync",
-                                    new java.lang.Object[] { exc.toString(), "OTSResource rollback" });
-                            exceptionisThrown = false;
-                        }
-                    }
-                }
+                unknownBranches.add(branch);
             } else {
                 // NOTE: Currently unimplemented. The coordinator needs to
                 // check if duplicate resources are being registered for the
@@ -652,14 +496,31 @@ public class DelegatedRecoveryManager {
 
                 // Register the OTSResource with the Coordinator.
                 // It will be called for commit or rollback during resync.
+                // Each OTSResource represents a RM per transaction. It is a local
+                // Resource of the coordinator, so it is not activated with the POA.
+                OTSResource otsResource = new OTSResourceImpl(branch.xid, branch.xaResource, null);
                 if (_logger.isLoggable(Level.FINE)) {
                     _logger.logp(Level.FINE, "DelegatedRecoveryManager", "proceedWithXARecovery()",
-                            "Recognized OTSResource: " + otsResource + " with tid: " + LogFormatter.convertToString(globalTID.realTID.tid)
+                            "Recognized OTSResource: " + otsResource + " with tid: " + LogFormatter.convertToString(branch.xid.getGlobalTransactionId())
                                     + ";Hence registering this resource with coordinator...");
                 }
                 coord.directRegisterResource(otsResource);
             }
         }
+
+        // Roll the OTSResources back if the transaction is not
+        // recognised. This happens when the RM has recorded its
+        // prepare vote, but the JTS has not recorded its prepare vote.
+
+        XARecoveryEngine.complete(unknownBranches, branch -> {
+            OTSResource otsResource = new OTSResourceImpl(branch.xid, branch.xaResource, null);
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.logp(Level.FINE, "DelegatedRecoveryManager", "proceedWithXARecovery()",
+                        "Could  not recognize OTSResource: " + otsResource + " with tid: "
+                                + LogFormatter.convertToString(branch.xid.getGlobalTransactionId()) + ";Hence rolling this resource back...");
+            }
+            XARecoveryEngine.callWithRetry(otsResource::rollback, "OTSResource rollback");
+        });
     }
 
     /**
@@ -673,26 +534,17 @@ public class DelegatedRecoveryManager {
      */
     static CoordinatorImpl[] getCoordinators(String logPath) {
 
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
-        int size = state.coordsByGlobalTID.size();
-        CoordinatorImpl[] result = new CoordinatorImpl[size];
-
-        Enumeration coords = state.coordsByGlobalTID.elements();
-
-        for (int pos = 0; pos < size;) {
-            result[pos++] = (CoordinatorImpl) coords.nextElement();
-        }
-
-        return result;
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
+        return state.coordinators.toArray();
     }
 
-    static Hashtable/* <GlobalTID,Coordinator> */ getCoordsByGlobalTID(String logPath) {
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
-        return state.coordsByGlobalTID;
+    static CoordinatorRegistry getCoordsByGlobalTID(String logPath) {
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
+        return state.coordinators;
     }
 
     public static void waitForRecovery(String logPath) {
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
 
         if (state.recoveryInProgress != null) {
             try {
@@ -711,7 +563,7 @@ public class DelegatedRecoveryManager {
      * @param logPath log location for which the delegated recovery is done
      */
     public static void waitForResync(String logPath) {
-        RecoveryStateHolder state = (RecoveryStateHolder) recoveryStatetable.get(logPath);
+        RecoveryStateHolder state = recoveryStatetable.get(logPath);
         if (state.resyncInProgress != null) {
             try {
                 state.resyncInProgress.waitEvent();
@@ -730,13 +582,13 @@ class RecoveryStateHolder {
     /**
      * list of XA Resources to be recovered.
      */
-    Enumeration uniqueRMSet;
+    List<XAResource> uniqueRMSet;
 
     /**
      * This attribute indicates the number of Coordinator objects which require resync. This is set to the number of
      * in-doubt transactions recovered from the log, then decreased as transactions are resolved.
      */
-    int resyncCoords = 0;
+    volatile int resyncCoords = 0;
 
     /**
      * This attribute is used to block new requests while there are Coordinators which still require resync.
@@ -749,6 +601,5 @@ class RecoveryStateHolder {
      */
     EventSemaphore recoveryInProgress = new EventSemaphore();
 
-    Hashtable coordsByGlobalTID = new Hashtable();
-    Hashtable coordsByLocalTID = new Hashtable();
+    CoordinatorRegistry coordinators = new CoordinatorRegistry();
 }
@@ -17,7 +17,8 @@
 
 package ee.omnifish.transact.jts.CosTransactions;
 
-import java.util.Date;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Vector;
@@ -51,6 +52,7 @@ class DelegatedTimeoutManager {
 
     private Hashtable pendingTimeouts = new Hashtable();
     private Hashtable indoubtTimeouts = new Hashtable();
+    private TimeoutWheel timeoutWheel = new TimeoutWheel();
     private DelegatedTimeoutThread timeoutThread;
     private boolean timeoutActive;
     private boolean quiescing;
@@ -121,7 +123,7 @@ class DelegatedTimeoutManager {
 
         // Modify the timeout to the required type and value.
 
-        DelegatedTimeoutInfo timeoutInfo = null;
+        TimeoutInfo timeoutInfo = null;
 
         switch (timeoutType) {
 
@@ -132,22 +134,22 @@ class DelegatedTimeoutManager {
             if (!isSetTimeout) {
                 initSetTimeout();
             }
-            timeoutInfo = new DelegatedTimeoutInfo();
-            timeoutInfo.expireTime = new Date().getTime() + seconds * 1000L;
+            timeoutInfo = new TimeoutInfo();
             timeoutInfo.localTID = localTID;
             timeoutInfo.timeoutType = timeoutType;
-            pendingTimeouts.put(localTID, timeoutInfo);
+            cancel((TimeoutInfo) pendingTimeouts.put(localTID, timeoutInfo));
+            timeoutWheel.add(timeoutInfo, seconds);
             break;
         case TimeoutManager.IN_DOUBT_TIMEOUT:
             if (!isSetTimeout) {
                 initSetTimeout();
                 // isSetTimeout = true;
             }
-            timeoutInfo = new DelegatedTimeoutInfo();
-            timeoutInfo.expireTime = new Date().getTime() + seconds * 1000L;
+            timeoutInfo = new TimeoutInfo();
             timeoutInfo.localTID = localTID;
             timeoutInfo.timeoutType = timeoutType;
-            indoubtTimeouts.put(localTID, timeoutInfo);
+            cancel((TimeoutInfo) indoubtTimeouts.put(localTID, timeoutInfo));
+            timeoutWheel.add(timeoutInfo, seconds);
             break;
 
         // For any other type, remove the timeout if there is one.
@@ -155,9 +157,9 @@ class DelegatedTimeoutManager {
         default:
             if (!isSetTimeout)
                 break;
-            result = (pendingTimeouts.remove(localTID) != null);
+            result = cancel((TimeoutInfo) pendingTimeouts.remove(localTID));
             if (!result)
-                result = (indoubtTimeouts.remove(localTID) != null);
+                result = cancel((TimeoutInfo) indoubtTimeouts.remove(localTID));
 
             // If the transaction service is quiescing and
             // there are no more pending timeouts,
@@ -173,6 +175,22 @@ class DelegatedTimeoutManager {
         return result;
     }
 
+    /**
+     * Disarms the given timeout.
+     *
+     * @param timeoutInfo The timeout removed from one of the tables, or null.
+     *
+     * @return Indicates whether there was a timeout.
+     */
+    private boolean cancel(TimeoutInfo timeoutInfo) {
+        if (timeoutInfo == null) {
+            return false;
+        }
+
+        timeoutWheel.remove(timeoutInfo);
+        return true;
+    }
+
     /**
      * Takes appropriate action for a timeout.
      * <p>
@@ -202,7 +220,8 @@ class DelegatedTimeoutManager {
             }
             setTimeout(localTID, TimeoutManager.CANCEL_TIMEOUT, 0);
         } else {
-            synchronized (coord) {
+            coord.lock.lock();
+            try {
                 boolean[] isRoot = new boolean[1];
 
                 switch (timeoutType) {
@@ -281,6 +300,8 @@ class DelegatedTimeoutManager {
                     // Otherwise do nothing.
                     break;
                 }
+            } finally {
+                coord.lock.unlock();
             }
         }
     }
@@ -289,7 +310,7 @@ class DelegatedTimeoutManager {
      * Periodically checks the existing timeouts.
      * <p>
      * This is done to discover if any transactions have overrun their allotted time. Those which have are returned as an
-     * Enumeration.
+     * Enumeration. A timeout that has expired is returned by every check until it is cancelled.
      * <p>
      * Note that this method should not do anything that will cause a synchronized method in the RecoveryManager to be
      * called, as this could cause a deadlock when RecoveryManager methods on other threads call setTimeout.
@@ -306,63 +327,12 @@ class DelegatedTimeoutManager {
 
         Enumeration result = null;
 
-        // When woken up, go through all current timeouts and identify those
-        // which have expired.
-
-        if (timeoutActive && ((pendingTimeouts.size() != 0) || (indoubtTimeouts.size() != 0))) {
-            Vector timedOut = null;
-
-            Enumeration timeouts = null;
-
-            synchronized (pendingTimeouts) {
-                timeouts = pendingTimeouts.elements();
-
-                while (timeouts.hasMoreElements()) {
-
-                    DelegatedTimeoutInfo timeoutInfo = (DelegatedTimeoutInfo) timeouts.nextElement();
-
-                    // For each timeout in the list, check whether it has expired.
-                    // If so, look up the Coordinator and roll it back.
-
-                    if (new Date().getTime() > timeoutInfo.expireTime) {
-
-                        // Add the TimeoutInfo to the queue of
-                        // those that have timed out.
-
-                        if (timedOut == null) {
-                            timedOut = new Vector();
-                        }
-
-                        timedOut.addElement(timeoutInfo);
-                    }
-                }
-            }
+        // When woken up, advance the timeout wheel. Only the buckets of the ticks
+        // which have passed since the last check are visited.
 
-            synchronized (indoubtTimeouts) {
+        if (timeoutActive) {
+            Vector timedOut = timeoutWheel.expire();
 
-                timeouts = indoubtTimeouts.elements();
-
-                while (timeouts.hasMoreElements()) {
-
-                    DelegatedTimeoutInfo timeoutInfo = (DelegatedTimeoutInfo) timeouts.nextElement();
-
-                    // For each timeout in the list, check whether it has expired.
-                    // If so, look up the Coordinator and roll it back.
-
-                    if (new Date().getTime() > timeoutInfo.expireTime) {
-
-                        // Add the TimeoutInfo to the queue of
-                        // those that have timed out.
-
-                        if (timedOut == null) {
-                            timedOut = new Vector();
-                        }
-
-                        timedOut.addElement(timeoutInfo);
-                    }
-                }
-
-            }
             // Enumerate the transactions which have timed out.
 
             if (timedOut != null) {
@@ -391,7 +361,7 @@ class DelegatedTimeoutManager {
 
             while (timeouts.hasMoreElements()) {
 
-                DelegatedTimeoutInfo timeoutInfo = (DelegatedTimeoutInfo) timeouts.nextElement();
+                TimeoutInfo timeoutInfo = (TimeoutInfo) timeouts.nextElement();
 
                 // Look up the Coordinator for the transaction.
                 // If there is none, then the transaction has already gone.
@@ -422,12 +392,12 @@ class DelegatedTimeoutManager {
      */
     long timeLeft(Long localTID) {
 
-        DelegatedTimeoutInfo timeoutInfo = (DelegatedTimeoutInfo) pendingTimeouts.get(localTID);
+        TimeoutInfo timeoutInfo = (TimeoutInfo) pendingTimeouts.get(localTID);
         if (timeoutInfo == null)
-            timeoutInfo = (DelegatedTimeoutInfo) indoubtTimeouts.get(localTID);
+            timeoutInfo = (TimeoutInfo) indoubtTimeouts.get(localTID);
         long result = -1;
         if (timeoutInfo != null) {
-            result = timeoutInfo.expireTime - new Date().getTime();
+            result = NANOSECONDS.toMillis(timeoutInfo.deadline - System.nanoTime());
             if (result < 0) {
                 result = 0;
             }
@@ -464,6 +434,8 @@ class DelegatedTimeoutManager {
                 pendingTimeouts.clear();
             }
 
+            timeoutWheel.clear();
+
             pendingTimeouts = null;
             timeoutThread = null;
             timeoutActive = false;
@@ -474,29 +446,6 @@ class DelegatedTimeoutManager {
 
 }
 
-/**
- * This class records information for a timeout for a transaction.
- *
- * @version 0.1
- *
- * @author Simon Holdsworth, IBM Corporation
- *
- * @see
- */
-
-//----------------------------------------------------------------------------
-// CHANGE HISTORY
-//
-// Version By     Change Description
-//   0.1   SAJH   Initial implementation.
-//----------------------------------------------------------------------------
-
-class DelegatedTimeoutInfo extends Object {
-    Long localTID;
-    long expireTime = 0;
-    int timeoutType = TimeoutManager.NO_TIMEOUT;
-}
-
 /**
  * This class represents a thread on which the TimeoutManager can perform timeout checking.
  *
@@ -571,7 +520,7 @@ class DelegatedTimeoutThread extends Thread {
 
                 if (timedOut != null) {
                     while (timedOut.hasMoreElements()) {
-                        DelegatedTimeoutInfo timeoutInfo = (DelegatedTimeoutInfo) timedOut.nextElement();
+                        TimeoutInfo timeoutInfo = (TimeoutInfo) timedOut.nextElement();
 
                         // Look up the Coordinator and tell it to roll back
                         // if it still exists. Note that we rely on the
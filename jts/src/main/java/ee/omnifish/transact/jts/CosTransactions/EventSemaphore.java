@@ -30,6 +30,11 @@
 
 package ee.omnifish.transact.jts.CosTransactions;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * The EventSemaphore interface provides operations that wait for and post an event semaphore.
  * <p>
@@ -51,6 +56,11 @@ package ee.omnifish.transact.jts.CosTransactions;
 public class EventSemaphore {
     boolean posted = false;
 
+    // A lock rather than the monitor of the semaphore, so that a virtual thread waiting for the event does not pin its
+    // carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition postedCondition = lock.newCondition();
+
     /**
      * Default EventSemaphore constructor.
      *
@@ -71,8 +81,13 @@ public class EventSemaphore {
     /**
      * @return true if semaphore has already been posted.
      */
-    synchronized public boolean isPosted() {
-        return posted;
+    public boolean isPosted() {
+        lock.lock();
+        try {
+            return posted;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -84,9 +99,14 @@ public class EventSemaphore {
      * @exception InterruptedException The wait was interrupted.
      *
      */
-    synchronized public void waitEvent() throws InterruptedException {
-        if (!posted)
-            wait();
+    public void waitEvent() throws InterruptedException {
+        lock.lock();
+        try {
+            if (!posted)
+                postedCondition.await();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /*
@@ -102,13 +122,15 @@ public class EventSemaphore {
      * @see
      */
 
-    synchronized public void waitTimeoutEvent(int cmtTimeout) throws InterruptedException {
-
-        if (!posted) {
-            long timeout = (System.currentTimeMillis() / 1000) + cmtTimeout;
-            while (!posted && timeout - (System.currentTimeMillis() / 1000) > 0) {
-                wait(timeout - (System.currentTimeMillis() / 1000));
+    public void waitTimeoutEvent(int cmtTimeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = SECONDS.toNanos(cmtTimeout);
+            while (!posted && remaining > 0) {
+                remaining = postedCondition.awaitNanos(remaining);
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -119,16 +141,26 @@ public class EventSemaphore {
      * All waiters are notified.
      *
      */
-    synchronized void post() {
-        if (!posted)
-            notifyAll();
-        posted = true;
+    void post() {
+        lock.lock();
+        try {
+            if (!posted)
+                postedCondition.signalAll();
+            posted = true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Clears a posted event semaphore.
      */
-    synchronized void clear() {
-        posted = false;
+    void clear() {
+        lock.lock();
+        try {
+            posted = false;
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A <i>FreezeGate</i> lets transactional activity pass freely until the transaction service is frozen by an
+ * administrator, and lets the freeze wait until all activity that has passed the gate has left it.
+ * <p>
+ * It replaces a RWLock used as a freeze lock, with the same semantics: {@link #enter} corresponds to acquiring the read
+ * lock, {@link #freeze} to acquiring the write lock. While the gate is open, entering and leaving it costs a volatile
+ * read and an update of a counter which is striped by thread, so committing threads do not contend on a single monitor.
+ * The lock of the gate is only used while a freeze is pending or in effect.
+ * <p>
+ * The value returned by {@link #enter} must be passed to the matching {@link #exit}, which may happen on another thread.
+ */
+public class FreezeGate {
+
+    /**
+     * The distance between two counters, so each counter is on its own cache line.
+     */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray counters;
+    private final int mask;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when the gate opens, and when activity leaves a closed gate.
+     */
+    private final Condition changed = lock.newCondition();
+
+    /**
+     * Set when a freeze starts, so threads arriving at the gate wait.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Set when all activity has left the gate and the freeze is in effect.
+     */
+    private volatile boolean frozen;
+
+    public FreezeGate() {
+        int stripes = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        counters = new AtomicLongArray(stripes * PADDING);
+        mask = stripes - 1;
+    }
+
+    /**
+     * Passes the gate, waiting while the transaction service is frozen.
+     *
+     * @return The stripe that has to be passed to {@link #exit}.
+     */
+    public int enter() {
+        int stripe = stripe();
+        while (true) {
+            if (!closed) {
+                counters.incrementAndGet(stripe);
+
+                // The freeze sets closed before it checks the counters, so either it sees this
+                // thread in the gate, or this thread sees the gate closed.
+
+                if (!closed) {
+                    return stripe;
+                }
+                exit(stripe);
+            }
+
+            awaitOpen();
+        }
+    }
+
+    /**
+     * Leaves the gate.
+     *
+     * @param stripe The value returned by the matching {@link #enter}.
+     */
+    public void exit(int stripe) {
+        if (counters.decrementAndGet(stripe) == 0 && closed) {
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the stripe the current thread uses, which {@link #enter} returns on this thread.
+     */
+    public int stripe() {
+        return ((int) Thread.currentThread().getId() & mask) * PADDING;
+    }
+
+    /**
+     * Closes the gate and waits until all activity has left it. A second freeze waits until the first one is released.
+     */
+    public void freeze() {
+        lock.lock();
+        try {
+            boolean interrupted = false;
+            while (closed) {
+                try {
+                    changed.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            closed = true;
+            while (!isEmpty()) {
+                try {
+                    changed.await(100, MILLISECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            frozen = true;
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a freeze and lets the waiting activity pass.
+     */
+    public void unfreeze() {
+        lock.lock();
+        try {
+            frozen = false;
+            closed = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the gate is frozen.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private boolean isEmpty() {
+        for (int i = 0; i < counters.length(); i += PADDING) {
+            if (counters.get(i) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void awaitOpen() {
+        lock.lock();
+        try {
+            while (closed) {
+                changed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
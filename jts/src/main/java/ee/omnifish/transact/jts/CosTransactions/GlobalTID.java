@@ -33,6 +33,7 @@ package ee.omnifish.transact.jts.CosTransactions;
 // Import required classes.
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -57,8 +58,11 @@ public class GlobalTID extends Object {
     otid_t realTID;
 
     private String stringForm;
+
+    /**
+     * The cached hash value, or zero if it has not been calculated yet. A calculated hash value is never zero.
+     */
     private int hashCode;
-    private boolean hashed;
 
     /*
      * Logger to log transaction messages
@@ -149,7 +153,6 @@ public class GlobalTID extends Object {
      */
     final GlobalTID copy() {
         GlobalTID result = new GlobalTID(realTID);
-        result.hashed = hashed;
         result.hashCode = hashCode;
         result.stringForm = stringForm;
 
@@ -187,6 +190,8 @@ public class GlobalTID extends Object {
             otherTID = (otid_t) other;
         else if (other instanceof GlobalTID)
             otherTID = ((GlobalTID) other).realTID;
+        else if (other instanceof Key)
+            return other.equals(this);
         else
             return false;
 
@@ -198,35 +203,39 @@ public class GlobalTID extends Object {
         if (otherTID == null)
             return false;
 
-        boolean result = false;
-
         // If the references are equal, return immediately.
 
         if (realTID == otherTID)
             return true;
 
-        // If the formats are different, then the identifiers cannot be the same.
+        return isSameGTRID(otherTID.formatID, otherTID.tid, otherTID.tid.length - otherTID.bqual_length);
+    }
 
-        if (realTID.formatID != otherTID.formatID)
-            return false;
+    /**
+     * Compares the global part of this identifier with the given one.
+     *
+     * @param formatID The format identifier of the other identifier.
+     * @param data The data of the other identifier, starting with its GTRID.
+     * @param gtridLength The length of the GTRID of the other identifier.
+     *
+     * @return Indicates the global parts are equal.
+     */
+    final boolean isSameGTRID(int formatID, byte[] data, int gtridLength) {
 
-        // Determine the GTRID length for each transaction identifier.
+        // If the formats are different, then the identifiers cannot be the same.
 
-        int firstGTRID = realTID.tid.length - realTID.bqual_length;
-        int secondGTRID = otherTID.tid.length - otherTID.bqual_length;
+        if (realTID.formatID != formatID)
+            return false;
 
         // If the GTRID lengths are different, the identifiers are different.
 
-        if (firstGTRID != secondGTRID)
+        int firstGTRID = realTID.tid.length - realTID.bqual_length;
+        if (firstGTRID != gtridLength)
             return false;
 
         // Compare the global part of the identifier.
 
-        result = true;
-        for (int pos = 0; pos < firstGTRID && result; pos++)
-            result = (realTID.tid[pos] == otherTID.tid[pos]);
-
-        return result;
+        return Arrays.equals(realTID.tid, 0, firstGTRID, data, 0, gtridLength);
     }
 
     /**
@@ -238,30 +247,121 @@ public class GlobalTID extends Object {
     public final int hashCode() {
         // If the hash code has already been calculated, then return the value.
 
-        if (hashed)
-            return hashCode;
+        int result = hashCode;
+        if (result == 0) {
+            int gtridLength = realTID.tid == null ? 0 : realTID.tid.length - realTID.bqual_length;
+            result = hash(realTID.formatID, realTID.tid, gtridLength);
+            hashCode = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Calculates the hash value of a global identifier from its format and GTRID, which are the parts compared by
+     * {@link #equals}.
+     * <p>
+     * The GTRIDs generated by this service share a long prefix and differ in a few bytes only, so every byte is mixed
+     * into a 64-bit state, eight bytes at a time, which is then finalised so that all bits of the result depend on all
+     * bytes of the GTRID.
+     *
+     * @param formatID The format identifier.
+     * @param data The identifier data, starting with the GTRID.
+     * @param gtridLength The length of the GTRID.
+     *
+     * @return The hash value, which is never zero.
+     */
+    static int hash(int formatID, byte[] data, int gtridLength) {
+        long hash = 0x9E3779B97F4A7C15L ^ ((long) formatID << 32) ^ gtridLength;
+
+        int pos = 0;
+        for (; pos + 8 <= gtridLength; pos += 8) {
+            long word = (data[pos] & 0xFFL) | (data[pos + 1] & 0xFFL) << 8 | (data[pos + 2] & 0xFFL) << 16 | (data[pos + 3] & 0xFFL) << 24
+                    | (data[pos + 4] & 0xFFL) << 32 | (data[pos + 5] & 0xFFL) << 40 | (data[pos + 6] & 0xFFL) << 48
+                    | (data[pos + 7] & 0xFFL) << 56;
+            hash = Long.rotateLeft(hash ^ mix(word), 27) * 5 + 0x52DCE729;
+        }
 
-        hashCode = 0;
+        long tail = 0;
+        for (int shift = 0; pos < gtridLength; pos++, shift += 8) {
+            tail |= (data[pos] & 0xFFL) << shift;
+        }
+        hash ^= mix(tail);
 
-        // Add up the values in the XID.
+        // Final avalanche, as in MurmurHash3.
 
-        if (realTID.tid != null) {
-            for (int pos = 0; pos < realTID.tid.length - realTID.bqual_length; pos++) {
-                hashCode += realTID.tid[pos];
-            }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+
+        int result = (int) (hash ^ (hash >>> 32));
+        return result == 0 ? 1 : result;
+    }
+
+    private static long mix(long word) {
+        return Long.rotateLeft(word * 0x87C37B91114253D5L, 31) * 0x4CF5AD432745937FL;
+    }
+
+    /**
+     * A lightweight view of the global part of a transaction identifier, for looking up maps keyed by GlobalTID without
+     * creating a GlobalTID and copying the identifier data. A Key is equal to, and has the same hash value as, every
+     * GlobalTID with the same format and GTRID.
+     * <p>
+     * The view shares the data of the identifier it was created from, so it must only be used for lookups and never be
+     * stored in a map.
+     */
+    public static final class Key {
+        private final int formatID;
+        private final byte[] data;
+        private final int gtridLength;
+        private final int hashCode;
+
+        /**
+         * Creates a view of the global part of the given Xid.
+         *
+         * @param xid The Xid.
+         */
+        public Key(javax.transaction.xa.Xid xid) {
+            this(xid.getFormatId(), xid.getGlobalTransactionId(), xid.getGlobalTransactionId().length);
         }
 
-        // Add in the formatId.
+        /**
+         * Creates a view of the global part of the given identifier.
+         *
+         * @param otid The identifier.
+         */
+        public Key(otid_t otid) {
+            this(otid.formatID, otid.tid, otid.tid.length - otid.bqual_length);
+        }
 
-        hashCode += realTID.formatID;
+        private Key(int formatID, byte[] data, int gtridLength) {
+            this.formatID = formatID;
+            this.data = data;
+            this.gtridLength = gtridLength;
+            this.hashCode = hash(formatID, data, gtridLength);
+        }
 
-        // Multiply the result by the "magic hashing constant".
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof GlobalTID) {
+                return ((GlobalTID) other).isSameGTRID(formatID, data, gtridLength);
+            }
 
-        hashCode *= 0x71824361;
+            if (other instanceof Key) {
+                Key otherKey = (Key) other;
+                return formatID == otherKey.formatID
+                        && Arrays.equals(data, 0, gtridLength, otherKey.data, 0, otherKey.gtridLength);
+            }
 
-        hashed = true;
+            return false;
+        }
 
-        return hashCode;
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
     }
 
     public GlobalTID(String stid) {
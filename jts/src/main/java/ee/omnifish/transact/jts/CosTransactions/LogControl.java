@@ -66,6 +66,7 @@ public class LogControl {
     private final static String CUSHION_NAME = "cushion"/* #Frozen */;
     private final static String EXTENT_NAME = "extent."/* #Frozen */;
     private final static String CONTROL_NAME = "control"/* #Frozen */;
+    private final static String SPARE_NAME = "spare."/* #Frozen */;
     public final static String RECOVERY_STRING_FILE_NAME = "recoveryfile"/* #Frozen */;
     public final static String RECOVERY_LOCK_FILE_NAME = "recoverylockfile"/* #Frozen */;
     private final static String LOG_EXTENSION = ""/* #Frozen */;
@@ -405,7 +406,6 @@ public class LogControl {
         // Issue an OPEN request for the file
 
         if (!logHandle.logControlDescriptor.headLSN.isNULL()) {
-            int offset; // Present offset in the open extent
             LogRecordHeader extentRec, // An extent record header
                     headRec, // An extent record header
                     linkRec; // An extent record header
@@ -464,7 +464,6 @@ public class LogControl {
             logEDP.cursorPosition += bytesRead;
             headRec = new LogRecordHeader();
             headRec.copy(extentRec);
-            offset = headRec.nextLSN.offset;
 
             try {
                 logEDP = logHandle.positionFilePointer(extentRec.nextLSN, 0, LogExtent.ACCESSTYPE_READ);
@@ -475,6 +474,7 @@ public class LogControl {
             }
 
             linkRec = new LogRecordHeader();
+            LogLSN expectedLSN = new LogLSN();
 
             // LOOP until last valid log record has been read
 
@@ -482,7 +482,7 @@ public class LogControl {
             do {
                 // Issue a read for the record header
 
-                offset = extentRec.nextLSN.offset;
+                expectedLSN.copy(extentRec.nextLSN);
 
                 try {
                     bytesRead = logEDP.fileHandle.fileRead(headerBytes);
@@ -501,9 +501,12 @@ public class LogControl {
                 logEDP.cursorPosition += bytesRead;
 
                 // IF the LSN in the record header matches the LSN of the
-                // current position in the extent file
+                // current position in the extent file.
+                // Both the extent and the offset are compared, as a recycled
+                // extent file may still hold records of the extent it was used
+                // for before, which sit at valid offsets.
 
-                if (extentRec.currentLSN.offset == offset) {
+                if (extentRec.currentLSN.equals(expectedLSN)) {
                     // IF its a link record
 
                     if (extentRec.recordType == LogHandle.LINK) {
@@ -600,6 +603,7 @@ public class LogControl {
         // Store the address of the Log_FileDescriptor block into its BlockValid field
 
         logHandle.blockValid = logHandle;
+        logHandle.updateSize();
 
         return logHandle;
     }
@@ -815,6 +819,23 @@ public class LogControl {
         return result;
     }
 
+    /**
+     * Builds a spare log extent file.
+     *
+     * @param logId Log identifier.
+     * @param spare Spare file number.
+     *
+     * @return A File object representing the spare extent file.
+     *
+     * @see
+     */
+    final File spareFile(String logId, int spare) {
+
+        File result = new File(directory(logId, directoryPath), SPARE_NAME + spare);
+
+        return result;
+    }
+
     /**
      * Builds a log directory file.
      *
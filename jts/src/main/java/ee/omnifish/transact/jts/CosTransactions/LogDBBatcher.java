@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Batched writes of the transaction log records kept in a database by {@link LogDBHelper}.
+ * <p>
+ * Callers of {@link #insert} queue their record and wait. A single writer thread takes all queued records, inserts them
+ * with one JDBC batch, commits once and then releases every waiter of the batch, so N concurrently preparing transactions
+ * share one database round trip and one commit instead of paying for N of them.
+ * <p>
+ * Deleting the record of a completed transaction is not on the commit path, so {@link #delete} only queues the record
+ * and returns. Queued deletes are executed by the writer as one batch after the inserts of the same round.
+ * <p>
+ * The writer keeps its connection and prepared statements open between batches. They are discarded after a failure and
+ * opened again for the next batch.
+ * <p>
+ * If a batch fails, it is rolled back and its records are executed again one at a time, each committed on its own, so
+ * that a record which cannot be written only fails its own caller. Drivers differ in whether they go on after a failed
+ * record of a batch, so the update counts of the failed batch are not relied upon.
+ */
+class LogDBBatcher {
+
+    static Logger _logger = Logger.getLogger(LogDBBatcher.class.getName());
+
+    /**
+     * The maximum number of records executed as one JDBC batch.
+     */
+    static final int MAX_BATCH_SIZE = 512;
+
+    private static final int INSERT = 0;
+    private static final int DELETE = 1;
+    private static final int SYNC = 2;
+
+    private final LogDBHelper helper;
+    private final ArrayDeque<Request> pending = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queued = lock.newCondition();
+    private Writer writer;
+    private boolean closed;
+
+    // Only used by the writer thread.
+    private Connection connection;
+    private PreparedStatement insertStatement;
+    private PreparedStatement deleteStatement;
+
+    LogDBBatcher(LogDBHelper helper) {
+        this.helper = helper;
+    }
+
+    /**
+     * Determines whether batching has been enabled for the transaction log in a database.
+     *
+     * @return true if the records should be written in batches.
+     */
+    static boolean isEnabled() {
+        return "true".equalsIgnoreCase(Configuration.getPropertyValue(Configuration.DB_LOG_BATCHING));
+    }
+
+    /**
+     * Inserts the given record and waits until it has been committed.
+     *
+     * @param localTID The local transaction identifier.
+     * @param serverName The name of the server owning the record.
+     * @param instanceName The name of the instance owning the record.
+     * @param data The global transaction identifier, or null for the server to instance mapping record.
+     *
+     * @return Whether the record has been committed, or null if batching has been closed and the caller should insert the
+     * record itself.
+     */
+    Boolean insert(long localTID, String serverName, String instanceName, byte[] data) {
+        Request request = new Request(INSERT, localTID, serverName, instanceName, data);
+        if (!enqueue(request)) {
+            return null;
+        }
+
+        request.await();
+
+        return request.success;
+    }
+
+    /**
+     * Queues the deletion of the given record. The record is deleted asynchronously; use {@link #sync} to wait for it.
+     *
+     * @param localTID The local transaction identifier.
+     * @param serverName The name of the server owning the record.
+     *
+     * @return false if batching has been closed and the caller should delete the record itself.
+     */
+    boolean delete(long localTID, String serverName) {
+        return enqueue(new Request(DELETE, localTID, serverName, null, null));
+    }
+
+    /**
+     * Waits until all records queued before this call have been written.
+     */
+    void sync() {
+        Request request = new Request(SYNC, 0, null, null, null);
+        if (enqueue(request)) {
+            request.await();
+        }
+    }
+
+    /**
+     * Stops accepting new records, waits until all records that have already been queued have been written and closes
+     * the connection of the writer.
+     */
+    void close() {
+        Writer stopped;
+        lock.lock();
+        try {
+            closed = true;
+            stopped = writer;
+            writer = null;
+            queued.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (stopped != null && stopped != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (stopped.isAlive()) {
+                try {
+                    stopped.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean enqueue(Request request) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+
+            pending.addLast(request);
+            if (writer == null) {
+                writer = new Writer();
+                writer.start();
+            }
+
+            queued.signalAll();
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next batch of queued records, waiting for one to arrive if there are none.
+     *
+     * @param batch The list to which the records are added.
+     *
+     * @return false if batching has been closed and there is nothing left to write.
+     *
+     * @exception InterruptedException The wait was interrupted.
+     */
+    private boolean nextBatch(List<Request> batch) throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                if (closed) {
+                    return false;
+                }
+                queued.await();
+            }
+
+            while (!pending.isEmpty() && batch.size() < MAX_BATCH_SIZE) {
+                batch.add(pending.removeFirst());
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes the inserts and then the deletes of the batch, and releases the waiting callers.
+     *
+     * @param batch The records to write.
+     */
+    private void write(List<Request> batch) {
+        int inserts = 0;
+        int deletes = 0;
+        for (Request request : batch) {
+            if (request.type == INSERT) {
+                inserts++;
+            } else if (request.type == DELETE) {
+                deletes++;
+            }
+        }
+
+        if (inserts > 0) {
+            execute(batch, INSERT);
+            for (Request request : batch) {
+                if (request.type == INSERT) {
+                    request.complete(request.success);
+                }
+            }
+        }
+
+        if (deletes > 0) {
+            execute(batch, DELETE);
+        }
+
+        for (Request request : batch) {
+            if (request.type == SYNC) {
+                request.complete(true);
+            }
+        }
+
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "LogDBBatcher wrote " + inserts + " inserts and " + deletes + " deletes");
+        }
+    }
+
+    /**
+     * Executes the records of the given type as one JDBC batch and commits it. If the batch fails, the records are
+     * executed again one at a time. The outcome of each record is left in its success flag.
+     *
+     * @param batch The records to write.
+     * @param type The type of the records to execute from the batch.
+     */
+    private void execute(List<Request> batch, int type) {
+        try {
+            if (connection == null) {
+                open();
+            }
+
+            PreparedStatement statement = type == INSERT ? insertStatement : deleteStatement;
+            for (Request request : batch) {
+                if (request.type == type) {
+                    setParameters(statement, request);
+                    statement.addBatch();
+                }
+            }
+
+            statement.executeBatch();
+            connection.commit();
+
+            for (Request request : batch) {
+                if (request.type == type) {
+                    request.success = true;
+                }
+            }
+
+            return;
+        } catch (Throwable ex) {
+            _logger.log(WARNING, "LogDBBatcher batch failed, writing its records one at a time", ex);
+
+            // The state of the connection is unknown, so start over with a new one.
+
+            closeConnection();
+        }
+
+        for (Request request : batch) {
+            if (request.type == type) {
+                request.success = executeOne(request);
+            }
+        }
+    }
+
+    /**
+     * Executes a single record and commits it.
+     *
+     * @param request The record to write.
+     *
+     * @return Whether the record has been committed.
+     */
+    private boolean executeOne(Request request) {
+        try {
+            if (connection == null) {
+                open();
+            }
+
+            PreparedStatement statement = request.type == INSERT ? insertStatement : deleteStatement;
+            setParameters(statement, request);
+            statement.executeUpdate();
+            connection.commit();
+
+            return true;
+        } catch (Throwable ex) {
+            _logger.log(SEVERE, "jts.exception_in_db_log_resource", ex);
+
+            closeConnection();
+        }
+
+        return false;
+    }
+
+    private static void setParameters(PreparedStatement statement, Request request) throws SQLException {
+        statement.setString(1, Long.toString(request.localTID));
+        statement.setString(2, request.serverName);
+        if (request.type == INSERT) {
+            statement.setString(3, request.instanceName);
+            statement.setBytes(4, request.data);
+        }
+    }
+
+    private void open() throws Exception {
+        connection = helper.getNonTxConnection();
+        connection.setAutoCommit(false);
+        insertStatement = connection.prepareStatement(LogDBHelper.insertStatement);
+        deleteStatement = connection.prepareStatement(LogDBHelper.deleteStatement);
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (Exception ex) {
+                _logger.log(FINE, "LogDBBatcher rollback failed", ex);
+            }
+        }
+
+        helper.tryClose(insertStatement);
+        helper.tryClose(deleteStatement);
+        helper.tryClose(connection);
+
+        insertStatement = null;
+        deleteStatement = null;
+        connection = null;
+    }
+
+    /**
+     * A single queued record.
+     */
+    private static final class Request {
+        final int type;
+        final long localTID;
+        final String serverName;
+        final String instanceName;
+        final byte[] data;
+        boolean success;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        Request(int type, long localTID, String serverName, String instanceName, byte[] data) {
+            this.type = type;
+            this.localTID = localTID;
+            this.serverName = serverName;
+            this.instanceName = instanceName;
+            this.data = data;
+        }
+
+        void complete(boolean success) {
+            this.success = success;
+            done.countDown();
+        }
+
+        /**
+         * Waits until the record has been written. The caller must not be released before that happens, so an interrupt
+         * is remembered and restored afterwards.
+         */
+        void await() {
+            boolean interrupted = false;
+            while (done.getCount() != 0) {
+                try {
+                    done.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The thread which executes queued records.
+     */
+    private final class Writer extends Thread {
+
+        Writer() {
+            setName("JTS DB Log Writer Thread"/* #Frozen */);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Request> batch = new ArrayList<>();
+            try {
+                while (nextBatch(batch)) {
+                    write(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                _logger.log(WARNING, "DB log writer thread interrupted", e);
+
+                // Nobody is left to write queued records, so fail them rather than leave the callers waiting.
+
+                lock.lock();
+                try {
+                    closed = true;
+                    writer = null;
+                    batch.addAll(pending);
+                    pending.clear();
+                } finally {
+                    lock.unlock();
+                }
+                for (Request request : batch) {
+                    request.complete(false);
+                }
+            } finally {
+                closeConnection();
+            }
+        }
+    }
+}
@@ -53,11 +53,12 @@ class LogDBHelper {
 
     private DataSource dataSource;
     private Method getNonTxConnectionMethod;
+    private LogDBBatcher batcher;
 
-    private static final String insertStatement = System.getProperty("ee.omnifish.transact.jts.dblogging.insertquery",
+    static final String insertStatement = System.getProperty("ee.omnifish.transact.jts.dblogging.insertquery",
             "insert into  txn_log_table values ( ? , ? , ? , ? )");
 
-    private static final String deleteStatement = System.getProperty("ee.omnifish.transact.jts.dblogging.deletequery",
+    static final String deleteStatement = System.getProperty("ee.omnifish.transact.jts.dblogging.deletequery",
             "delete from txn_log_table where localtid = ? and servername = ? ");
 
     private static final String selectStatement = System.getProperty("ee.omnifish.transact.jts.dblogging.selectquery",
@@ -70,10 +71,15 @@ class LogDBHelper {
 
     private static final boolean useNonTxConnectionForAddRecord = Boolean.getBoolean("ee.omnifish.transact.jts.dblogging.use.nontx.connection.for.add");
 
-    private static LogDBHelper _instance = new LogDBHelper();
-
     static LogDBHelper getInstance() {
-        return _instance;
+        return InstanceHolder._instance;
+    }
+
+    /**
+     * Defers the lookup of the configured resource until the shared instance is first requested.
+     */
+    private static final class InstanceHolder {
+        static final LogDBHelper _instance = new LogDBHelper();
     }
 
     LogDBHelper() {
@@ -83,20 +89,54 @@ class LogDBHelper {
         }
 
         try {
-            dataSource = (DataSource) InitialContext.doLookup(resName);
-            getNonTxConnectionMethod = dataSource.getClass().getMethod("getNonTxConnection", null);
-
-            createTable();
-
+            init((DataSource) InitialContext.doLookup(resName), LogDBBatcher.isEnabled());
         } catch (Throwable t) {
             _logger.log(SEVERE, "jts.unconfigured_db_log_resource", resName);
             _logger.log(SEVERE, "", t);
         }
+    }
+
+    /**
+     * Creates a helper which writes to the given data source, for use outside of a server where there is no naming
+     * service to look it up.
+     *
+     * @param dataSource The data source holding the transaction log table.
+     * @param instanceName The name of the instance owning the records.
+     * @param batching Whether to write the records in batches.
+     */
+    LogDBHelper(DataSource dataSource, String instanceName, boolean batching) {
+        this.instanceName = instanceName;
+        init(dataSource, batching);
+    }
+
+    private void init(DataSource dataSource, boolean batching) {
+        this.dataSource = dataSource;
+        try {
+            getNonTxConnectionMethod = dataSource.getClass().getMethod("getNonTxConnection", null);
+        } catch (NoSuchMethodException e) {
+            // Not a server data source, its connections are not enlisted in transactions anyway
+        }
+
+        createTable();
+
+        if (batching) {
+            batcher = new LogDBBatcher(this);
+        }
 
         if (_logger.isLoggable(FINE)) {
             _logger.fine("LogDBHelper.resName: " + resName);
             _logger.fine("LogDBHelper.ds: " + dataSource);
             _logger.fine("LogDBHelper.getNonTxConnectionMethod: " + getNonTxConnectionMethod);
+            _logger.fine("LogDBHelper.batching: " + batching);
+        }
+    }
+
+    /**
+     * Stops writing records in batches, after the records that have already been queued have been written.
+     */
+    void close() {
+        if (batcher != null) {
+            batcher.close();
         }
     }
 
@@ -136,11 +176,18 @@ class LogDBHelper {
                 _logger.fine("LogDBHelper.addRecord for instanceName: " + instanceName);
             }
 
+            if (batcher != null) {
+                Boolean written = batcher.insert(localTID, serverName, instanceName, data);
+                if (written != null) {
+                    return written;
+                }
+            }
+
             Connection connection = null;
             PreparedStatement preparedStatement = null;
             try {
                 if (useNonTxConnectionForAddRecord) {
-                    connection = (Connection) (getNonTxConnectionMethod.invoke(dataSource, null));
+                    connection = getNonTxConnection();
                 } else {
                     connection = dataSource.getConnection();
                 }
@@ -174,12 +221,16 @@ class LogDBHelper {
                 _logger.fine("LogDBHelper.deleteRecord for localTID: " + localTID + " and serverName: " + serverName0);
             }
 
+            // Completed transactions are not on the commit path, so their records are deleted asynchronously
+            if (batcher != null && batcher.delete(localTID, serverName0)) {
+                return true;
+            }
+
             Connection connection = null;
             PreparedStatement preparedStatement = null;
             try {
 
-                // To avoid compile time dependency to get NonTxConnection
-                connection = (Connection) (getNonTxConnectionMethod.invoke(dataSource, null));
+                connection = getNonTxConnection();
                 preparedStatement = connection.prepareStatement(deleteStatement);
                 preparedStatement.setString(1, Long.toString(localTID));
                 preparedStatement.setString(2, serverName0); // Configuration.getServerName());
@@ -209,11 +260,15 @@ class LogDBHelper {
                 _logger.fine("LogDBHelper get records for serverName: " + serverName);
             }
 
+            if (batcher != null) {
+                batcher.sync();
+            }
+
             Connection connection = null;
             PreparedStatement preparedStatement = null;
             ResultSet resultSet = null;
             try {
-                connection = (Connection) (getNonTxConnectionMethod.invoke(dataSource, null));
+                connection = getNonTxConnection();
                 preparedStatement = connection.prepareStatement(selectStatement);
                 preparedStatement.setString(1, serverName);
                 resultSet = preparedStatement.executeQuery();
@@ -251,11 +306,15 @@ class LogDBHelper {
                 _logger.fine("LogDBHelper get serverName for instanceName: " + instanceName);
             }
 
+            if (batcher != null) {
+                batcher.sync();
+            }
+
             Connection connection = null;
             PreparedStatement preparedStatement = null;
             ResultSet resultSet = null;
             try {
-                connection = (Connection) (getNonTxConnectionMethod.invoke(dataSource, null));
+                connection = getNonTxConnection();
                 preparedStatement = connection.prepareStatement(selectServerNameStatement);
                 preparedStatement.setString(1, instanceName);
                 resultSet = preparedStatement.executeQuery();
@@ -277,6 +336,15 @@ class LogDBHelper {
         return serverName;
     }
 
+    Connection getNonTxConnection() throws Exception {
+        if (getNonTxConnectionMethod == null) {
+            return dataSource.getConnection();
+        }
+
+        // To avoid compile time dependency to get NonTxConnection
+        return (Connection) (getNonTxConnectionMethod.invoke(dataSource, null));
+    }
+
     private void createTable() {
         if (dataSource != null) {
             if (_logger.isLoggable(FINE)) {
@@ -286,7 +354,7 @@ class LogDBHelper {
             Connection connection = null;
             Statement statement = null;
             try {
-                connection = (Connection) (getNonTxConnectionMethod.invoke(dataSource, null));
+                connection = getNonTxConnection();
                 statement = connection.createStatement();
                 statement.execute(createTableStatement);
                 _logger.fine("=== table created ===");
@@ -300,7 +368,7 @@ class LogDBHelper {
         }
     }
 
-    private void tryClose(ResultSet resultSet) {
+    void tryClose(ResultSet resultSet) {
         try {
             if (resultSet != null) {
                 resultSet.close();
@@ -310,7 +378,7 @@ class LogDBHelper {
         }
     }
 
-    private void tryClose(Statement statement) {
+    void tryClose(Statement statement) {
         try {
             if (statement != null) {
                 statement.close();
@@ -320,7 +388,7 @@ class LogDBHelper {
         }
     }
 
-    private void tryClose(Connection connection) {
+    void tryClose(Connection connection) {
         try {
             if (connection != null) {
                 connection.close();
@@ -31,7 +31,8 @@
 package ee.omnifish.transact.jts.CosTransactions;
 
 // Import required classes.
-import java.util.Vector;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -81,6 +82,18 @@ class LogFile {
      */
     LogHandle handle;
 
+    /**
+     * The group commit support for forced writes, or null if group commit is not enabled.
+     */
+    private final LogGroupCommit groupCommit;
+
+    /**
+     * Serializes the operations on the log file, including the batches written by group commit. It is held while the log
+     * is written and forced, so it is a lock rather than the monitor of the LogFile, on which a blocked virtual thread
+     * would pin its carrier thread.
+     */
+    final ReentrantLock lock = new ReentrantLock();
+
     /**
      * LogFile constructor.
      *
@@ -95,6 +108,7 @@ class LogFile {
         // Set up the instance variables to those values passed in.
 
         this.handle = handle;
+        groupCommit = LogGroupCommit.isEnabled() ? new LogGroupCommit(this) : null;
 
     }
 
@@ -107,6 +121,9 @@ class LogFile {
      * The LSN of the written log record is an output parameter.
      * <p>
      * Returns true if the write completed successfully and false if the write did not complete.
+     * <p>
+     * When group commit is enabled, a forced write is handed to the group commit flusher and this method returns once the
+     * batch containing the record has been forced. The LogFile lock is not held while waiting.
      *
      * @param writeType Forced/non-forced write indicator.
      * @param record Log record data.
@@ -114,7 +131,7 @@ class LogFile {
      * @param recordLSN LSN of the written record.
      *
      */
-    synchronized boolean write(int writeType, byte[] record, int recordType, LogLSN recordLSN) {
+    boolean write(int writeType, byte[] record, int recordType, LogLSN recordLSN) {
 
         boolean result = true;
 
@@ -122,7 +139,15 @@ class LogFile {
         // Set the result based on return code from log write.
 
         try {
-            LogLSN resultLSN = handle.writeRecord(record, recordType, (writeType == LogFile.FORCED ? LogHandle.FORCE : LogHandle.BUFFER));
+            LogLSN resultLSN = null;
+            if (writeType == LogFile.FORCED && groupCommit != null) {
+                resultLSN = groupCommit.write(record, recordType);
+            }
+
+            if (resultLSN == null) {
+                resultLSN = writeRecord(record, recordType, (writeType == LogFile.FORCED ? LogHandle.FORCE : LogHandle.BUFFER));
+            }
+
             if (recordLSN != null)
                 recordLSN.copy(resultLSN);
         } catch (LogException le) {
@@ -137,6 +162,26 @@ class LogFile {
         return result;
     }
 
+    /**
+     * Writes a log record directly to the physical log.
+     *
+     * @param record Log record data.
+     * @param recordType Log record type.
+     * @param writeMode The LogHandle write mode.
+     *
+     * @return The LSN of the written record.
+     *
+     * @exception LogException The write failed.
+     */
+    private LogLSN writeRecord(byte[] record, int recordType, int writeMode) throws LogException {
+        lock.lock();
+        try {
+            return handle.writeRecord(record, recordType, writeMode);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Informs the log that all log records older than the one with the given LSN are no longer required.
      * <p>
@@ -145,29 +190,47 @@ class LogFile {
      *
      * @param firstLSN
      *
+     * @return The number of bytes by which the log was shortened, or -1 if the checkpoint failed.
      */
-    synchronized boolean checkpoint(LogLSN firstLSN) {
+    long checkpoint(LogLSN firstLSN) {
+        lock.lock();
+        try {
 
-        boolean result = true;
-        LogLSN checkLSN;
+            long result;
+            LogLSN checkLSN;
 
-        // If the LSN passed in is NULL, assume it means the head.
+            // If the LSN passed in is NULL, assume it means the head.
 
-        if (firstLSN.isNULL())
-            checkLSN = new LogLSN(LogLSN.HEAD_LSN);
-        else
-            checkLSN = new LogLSN(firstLSN);
+            if (firstLSN.isNULL())
+                checkLSN = new LogLSN(LogLSN.HEAD_LSN);
+            else
+                checkLSN = new LogLSN(firstLSN);
 
-        // Checkpoint the log.
+            // Checkpoint the log. Nothing can be written while the lock is held, so any change in the size of the log is
+            // the space released by the truncation.
 
-        try {
-            handle.checkLSN(checkLSN);
-            handle.truncate(checkLSN, LogHandle.TAIL_NOT_INCLUSIVE);
-        } catch (LogException le) {
-            result = false;
+            try {
+                long sizeBefore = handle.getSize();
+                handle.checkLSN(checkLSN);
+                handle.truncate(checkLSN, LogHandle.TAIL_NOT_INCLUSIVE);
+                result = sizeBefore - handle.getSize();
+            } catch (LogException le) {
+                result = -1;
+            }
+
+            return result;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        return result;
+    /**
+     * Returns the number of bytes currently held by the log, without waiting for writes in progress.
+     *
+     * @return The size of the log in bytes.
+     */
+    long getSize() {
+        return handle.getSize();
     }
 
     /**
@@ -179,20 +242,25 @@ class LogFile {
      * @return Indicates success of the operation.
      *
      */
-    synchronized boolean writeRestart(byte[] record) {
+    boolean writeRestart(byte[] record) {
+        lock.lock();
+        try {
 
-        boolean result = false;
+            boolean result = false;
 
-        // Write the restart information.
+            // Write the restart information.
 
-        try {
-            handle.writeRestart(record);
-            result = true;
-        } catch (LogException le) {
-            result = false;
-        }
+            try {
+                handle.writeRestart(record);
+                result = true;
+            } catch (LogException le) {
+                result = false;
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -201,17 +269,22 @@ class LogFile {
      * @return The restart record.
      *
      */
-    synchronized byte[] readRestart() {
-        byte[] result = null;
+    byte[] readRestart() {
+        lock.lock();
+        try {
+            byte[] result = null;
 
-        // Write the restart information.
+            // Write the restart information.
 
-        try {
-            result = handle.readRestart();
-        } catch (LogException le) {
-        }
+            try {
+                result = handle.readRestart();
+            } catch (LogException le) {
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -222,115 +295,131 @@ class LogFile {
      * @param deleteFile
      *
      */
-    synchronized boolean close(boolean deleteFile) {
+    boolean close(boolean deleteFile) {
 
-        boolean result = true;
+        // Write out any forced records that are still queued for group commit. This must
+        // be done before taking the lock, as the flusher needs it to write the records.
 
-        // Call to close the physical log.
+        if (groupCommit != null) {
+            groupCommit.close();
+        }
 
+        lock.lock();
         try {
-            handle.closeFile(deleteFile);
-        } catch (LogException le) {
-            result = false;
-        }
+            boolean result = true;
 
-        return result;
+            // Call to close the physical log.
+
+            try {
+                handle.closeFile(deleteFile);
+            } catch (LogException le) {
+                result = false;
+            }
+
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Returns all of the log records written to the log since the last checkpoint.
-     *
-     * <p>
-     * The caller is responsible for freeing the sequence storage.
+     * Reads the log records written to the log since the last checkpoint, passing each of them to the given consumer as
+     * soon as it has been read, so that the records do not all have to be held in memory. The records are read from the
+     * most recent one backwards.
      *
      * <p>
-     * If the log is empty, an empty sequence is returned.
+     * If the log cannot be read, the records passed so far must be discarded, as they may not include all records of
+     * their transactions. An exception thrown by the consumer stops the read and is passed on to the caller.
      *
-     * <p>
-     * The result is returned in a Vector as we do not know ahead of time how many log records there are.
+     * @param consumer The consumer of the log records.
      *
-     * @return The log records.
+     * @return Indicates whether the log was read.
      */
-    synchronized Vector getLogRecords() {
-        Vector logRecords = new Vector();
-        boolean keypointEndFound = false;
-        LogCursor logCursor;
+    boolean readLogRecords(Consumer<byte[]> consumer) {
+        lock.lock();
+        try {
+            boolean keypointEndFound = false;
+            LogCursor logCursor;
 
-        // Open a cursor for use with the log.
+            // Open a cursor for use with the log.
 
-        try {
-            logCursor = handle.openCursor(LogLSN.HEAD_LSN, LogLSN.TAIL_LSN);
-        } catch (LogException le) {
+            try {
+                logCursor = handle.openCursor(LogLSN.HEAD_LSN, LogLSN.TAIL_LSN);
+            } catch (LogException le) {
 
-            return new Vector();
-        }
+                return false;
+            }
 
-        // Read each log record from the physical log and place in temporary queue.
+            // Read each log record from the physical log and pass it on.
 
-        try {
-            LogLSN lsn = new LogLSN();
-            int[] recordType = new int[1];
+            try {
+                LogLSN lsn = new LogLSN();
+                int[] recordType = new int[1];
 
-            for (;;) {
-                byte[] logRecord = logCursor.readCursor(recordType, lsn);
+                for (;;) {
+                    byte[] logRecord = logCursor.readCursor(recordType, lsn);
 
-                // Process the log record depending on its type.
+                    // Process the log record depending on its type.
 
-                switch (recordType[0]) {
+                    switch (recordType[0]) {
 
-                // If the record is a keypoint start, and we have found the end of the
-                // keypoint, then we can stop processing the log. If the end has not been
-                // found then a failure must have occurred during the keypoint operation,
-                // so we must continue to process the log.
-                // We do not do anything with the contents of the keypoint start record.
+                    // If the record is a keypoint start, and we have found the end of the
+                    // keypoint, then we can stop processing the log. If the end has not been
+                    // found then a failure must have occurred during the keypoint operation,
+                    // so we must continue to process the log.
+                    // We do not do anything with the contents of the keypoint start record.
 
-                case LogFile.KEYPOINT_START:
-                    if (keypointEndFound)
-                        throw new LogException(null, LogException.LOG_END_OF_CURSOR, 2);
-                    break;
+                    case LogFile.KEYPOINT_START:
+                        if (keypointEndFound)
+                            throw new LogException(null, LogException.LOG_END_OF_CURSOR, 2);
+                        break;
 
-                // If the record is a keypoint end, remember this so that we can stop when
-                // we find the start of the keypoint.
-                // We do not do anything with the contents of the keypoint end record.
+                    // If the record is a keypoint end, remember this so that we can stop when
+                    // we find the start of the keypoint.
+                    // We do not do anything with the contents of the keypoint end record.
 
-                case LogFile.KEYPOINT_END:
-                    keypointEndFound = true;
-                    break;
+                    case LogFile.KEYPOINT_END:
+                        keypointEndFound = true;
+                        break;
 
-                // For a normal log record, add the records to the list.
-                // For a rewritten record, only add the record to the list if the
-                // keypoint end record has been found.
+                    // For a normal log record, pass the record on.
+                    // For a rewritten record, only pass the record on if the
+                    // keypoint end record has been found.
 
-                case LogFile.NORMAL:
-                case LogFile.REWRITE:
-                    if ((recordType[0] == LogFile.NORMAL) || keypointEndFound)
-                        logRecords.addElement(logRecord);
-                    break;
+                    case LogFile.NORMAL:
+                    case LogFile.REWRITE:
+                        if ((recordType[0] == LogFile.NORMAL) || keypointEndFound)
+                            consumer.accept(logRecord);
+                        break;
 
-                // Any other type of log record is ignored.
+                    // Any other type of log record is ignored.
 
-                default:
-                    break;
+                    default:
+                        break;
+                    }
                 }
-            }
-        } catch (LogException le) {
+            } catch (LogException le) {
 
-            // If any exception other that END_OF_CURSOR was thrown, then return an empty
-            // list.
+                // If any exception other that END_OF_CURSOR was thrown, then the log
+                // could not be read.
 
-            if (le.errorCode != LogException.LOG_END_OF_CURSOR) {
-                return new Vector();
-            }
-        }
+                if (le.errorCode != LogException.LOG_END_OF_CURSOR) {
+                    return false;
+                }
+            } finally {
 
-        // Close the cursor.
+                // Close the cursor.
 
-        try {
-            handle.closeCursor(logCursor);
-        } catch (LogException le) {
-        }
+                try {
+                    handle.closeCursor(logCursor);
+                } catch (LogException le) {
+                }
+            }
 
-        return logRecords;
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -31,11 +31,16 @@
 package ee.omnifish.transact.jts.CosTransactions;
 
 import java.io.File;
-import java.io.FileDescriptor;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * This class encapsulates file I/O operations and the file handle.
+ * <p>
+ * All I/O is done with positional reads and writes on the FileChannel of the file. A buffered file keeps an image of
+ * the file in memory; writes only update the image, and fileSync writes the updated range and forces it. When the range
+ * lies within storage that has already been allocated, the force does not need to update the file metadata.
  *
  * @version 0.01
  *
@@ -71,6 +76,12 @@ class LogFileHandle {
      */
     final static int OPEN_SYNC = 0x00000008;
 
+    /**
+     * The log file is a recycled log segment. Its storage is already allocated, and its old contents are discarded
+     * instead of being read.
+     */
+    final static int OPEN_RECYCLED = 0x00000010;
+
     /**
      * Seek relative location to the current position.
      */
@@ -111,17 +122,31 @@ class LogFileHandle {
      */
     final static int FILESYSTEM_BLOCKSIZE = 4096;
 
+    /**
+     * The size of the block of zeroes written to allocate file storage.
+     */
+    private final static int ZERO_FILL_SIZE = FILESYSTEM_BLOCKSIZE * 16;
+
+    private final static byte[] ZEROES = new byte[ZERO_FILL_SIZE];
+
     /**
      * Instance information.
      */
     private RandomAccessFile fhandle = null;
-    private FileDescriptor fd = null;
+    private FileChannel channel = null;
     private byte[] bufferData = null;
     boolean buffered = false;
+    int bufferLength = 0;
     int bufferUpdateStart = -1;
     int bufferUpdateEnd = -1;
     int buffPos = 0;
 
+    /**
+     * The current position of an unbuffered file, and the size of the file as far as it has been allocated or written.
+     */
+    private long filePos = 0;
+    private long fileLength = 0;
+
     static {
         dsyncProp = System.getProperty(DSYNC_PROPERTY);
         if (dsyncProp != null) {
@@ -141,8 +166,7 @@ class LogFileHandle {
      */
     LogFileHandle() {
         fhandle = null;
-        fd = null; // @MA
-
+        channel = null;
     }
 
     /**
@@ -163,16 +187,18 @@ class LogFileHandle {
             }
         }
 
+        boolean recycled = (openOptions & OPEN_RECYCLED) != 0;
+
         // Change the OpenOptions to the format expected by CLOSE
 
         if ((openOptions & OPEN_RDONLY) != 0) {
-            fileOpen(file, MODE_READONLY);
+            fileOpen(file, MODE_READONLY, false);
         } else {
             try {
-                fileOpen(file, MODE_READWRITEOLD);
+                fileOpen(file, MODE_READWRITEOLD, recycled);
             } catch (LogException e) {
                 if ((openOptions & OPEN_CREAT) != 0) {
-                    fileOpen(file, MODE_READWRITENEW);
+                    fileOpen(file, MODE_READWRITENEW, false);
                 }
             }
         }
@@ -223,11 +249,11 @@ class LogFileHandle {
 
                     // If the current position is beyond the end of the buffer then the read fails.
 
-                    if (buffPos >= bufferData.length) {
+                    if (buffPos >= bufferLength) {
                         bytesRead = -1;
                     } else {
-                        if (buffPos + buffer.length >= bufferData.length) {
-                            bytesRead = bufferData.length - buffPos;
+                        if (buffPos + buffer.length >= bufferLength) {
+                            bytesRead = bufferLength - buffPos;
                         } else {
                             bytesRead = buffer.length;
                         }
@@ -240,10 +266,8 @@ class LogFileHandle {
                 // Otherwise read the data from the file.
 
                 else {
-                    bytesRead = fhandle.read(buffer);
-                    if (bytesRead == -1) {
-                        bytesRead = 0;
-                    }
+                    bytesRead = readFully(ByteBuffer.wrap(buffer), filePos);
+                    filePos += bytesRead;
                 }
             } catch (Throwable exc) {
                 throw new LogException(LogException.LOG_READ_FAILURE, 1, "jts.log_read_failed_bytes", exc);
@@ -275,13 +299,7 @@ class LogFileHandle {
                     // If the array copy requires more bytes than exist in the buffer, then the
                     // buffer must be extended to the required size.
 
-                    if (buffPos + buffer.length >= bufferData.length) {
-                        byte[] newBufferData = new byte[buffPos + buffer.length];
-                        if (bufferData.length > 0) {
-                            System.arraycopy(bufferData, 0, newBufferData, 0, bufferData.length);
-                        }
-                        bufferData = newBufferData;
-                    }
+                    ensureBufferCapacity(buffPos + buffer.length);
 
                     // Copy the data.
 
@@ -299,16 +317,19 @@ class LogFileHandle {
                     if (buffPos > bufferUpdateEnd) {
                         bufferUpdateEnd = buffPos;
                     }
+
+                    if (buffPos > bufferLength) {
+                        bufferLength = buffPos;
+                    }
                 }
 
                 // Otherwise write the data to the file.
                 // For non-buffered writes, we always sync to the file system.
 
                 else {
-                    fhandle.write(buffer);
-                    if (dsyncProp == null) {
-                        fd.sync();
-                    }
+                    writeFully(ByteBuffer.wrap(buffer), filePos);
+                    filePos += buffer.length;
+                    force(filePos);
                 }
             } catch (Throwable e) {
                 int errCode = LogException.LOG_WRITE_FAILURE;
@@ -326,25 +347,29 @@ class LogFileHandle {
      *
      * @param file The name of the file.
      * @param fileMode The mode to open in.
+     * @param recycled Whether the contents of the file are to be discarded rather than read.
      *
      * @exception LogException The open failed.
      *
      */
-    void fileOpen(File file, String fileMode) throws LogException {
+    void fileOpen(File file, String fileMode, boolean recycled) throws LogException {
         fhandle = null;
         try {
             fhandle = new RandomAccessFile(file, fileMode);
-            fd = fhandle.getFD();
+            channel = fhandle.getChannel();
+            fileLength = channel.size();
+            filePos = 0;
 
             // If buffering, and the opened file has contents, then allocate the buffer
             // and read the file contents in. Otherwise make the buffer an empty array.
+            // The contents of a recycled segment belong to an old extent, so they are
+            // presented as allocated but cleared storage.
 
             if (buffered) {
-                if (fhandle.length() > 0) {
-                    bufferData = new byte[(int) fhandle.length()];
-                    fhandle.readFully(bufferData);
-                } else {
-                    bufferData = new byte[0];
+                bufferLength = (int) fileLength;
+                bufferData = new byte[bufferLength];
+                if (bufferLength > 0 && !recycled) {
+                    readFully(ByteBuffer.wrap(bufferData), 0);
                 }
             }
         } catch (Throwable e) {
@@ -377,10 +402,11 @@ class LogFileHandle {
             throw new LogException(LogException.LOG_CLOSE_FAILURE, 1, "jts.log_close_failed", e);
         }
 
-        // Reset the file handle and descriptor values.
+        // Reset the file handle and channel values.
 
         fhandle = null;
-        fd = null; // @MA
+        channel = null;
+        bufferData = null;
 
     }
 
@@ -399,29 +425,29 @@ class LogFileHandle {
         // Adjust the position being sought if it is relative to the current position.
 
         long absPos = position;
-        try {
 
-            // If buffered, then simply set the buffer position.
-            // If the position is beyond the end of the buffer, then the buffer will be
-            // extended when the next write occurs.
+        // If buffered, then simply set the buffer position.
+        // If the position is beyond the end of the buffer, then the buffer will be
+        // extended when the next write occurs.
 
-            if (buffered) {
-                if (seekMode == SEEK_RELATIVE) {
-                    absPos = buffPos + position;
-                }
-                buffPos = (int) absPos;
+        if (buffered) {
+            if (seekMode == SEEK_RELATIVE) {
+                absPos = buffPos + position;
             }
+            buffPos = (int) absPos;
+        }
 
-            // Otherwise seek the position in the file.
+        // Otherwise remember the position for the next positional read or write.
 
-            else {
-                if (seekMode == SEEK_RELATIVE) {
-                    absPos = fhandle.getFilePointer() + position;
-                }
-                fhandle.seek(absPos);
+        else {
+            if (seekMode == SEEK_RELATIVE) {
+                absPos = filePos + position;
             }
-        } catch (Throwable e) {
-            throw new LogException(LogException.LOG_READ_FAILURE, 1, "jts.log_file_seek_failed", e);
+            filePos = absPos;
+        }
+
+        if (absPos < 0) {
+            throw new LogException(LogException.LOG_READ_FAILURE, 1, "jts.log_file_seek_failed", null);
         }
     }
 
@@ -438,11 +464,8 @@ class LogFileHandle {
 
         if (bufferUpdateStart != -1) {
             try {
-                fhandle.seek(bufferUpdateStart);
-                fhandle.write(bufferData, bufferUpdateStart, bufferUpdateEnd - bufferUpdateStart);
-                if (dsyncProp == null) {
-                    fd.sync();
-                }
+                writeFully(ByteBuffer.wrap(bufferData, bufferUpdateStart, bufferUpdateEnd - bufferUpdateStart), bufferUpdateStart);
+                force(bufferUpdateEnd);
 
                 bufferUpdateStart = -1;
                 bufferUpdateEnd = -1;
@@ -474,6 +497,11 @@ class LogFileHandle {
 
     /**
      * Allocates more storage for the file.
+     * <p>
+     * The storage from the current position is cleared by writing zeroes into the part of it that lies beyond the end of
+     * the file, so the file system blocks are really allocated and later writes into them do not change the size of the
+     * file. Storage that is already allocated, as in a recycled segment, is left as it is. The current position is not
+     * changed.
      *
      * @param bytesToClear Number of bytes to allocate for the file.
      *
@@ -481,74 +509,93 @@ class LogFileHandle {
      *
      */
     void allocFileStorage(int bytesToClear) throws LogException {
-        int numberOfBlocks; // Number of blocks to write
-        int bytesRemaining; // Remaining bytes
-        // byte[] singleChar1 = new byte[1];
-        byte[] singleChar2 = new byte[1];
-        long bytesWritten;
-
         if (bytesToClear == 0) {
             return;
         }
-        /*
-         * Don't bother with the compilcated version. Just write out a byte at the appropriate place.
-         *
-         * // Calculate the number of blocks and remaining bytes
-         *
-         * numberOfBlocks = bytesToClear / FILESYSTEM_BLOCKSIZE; bytesRemaining = bytesToClear % FILESYSTEM_BLOCKSIZE;
-         *
-         * // Initialise the single characters to be written to force allocation.
-         *
-         * singleChar1[0] = (byte)0x01; singleChar2[0] = (byte)0xff;
-         *
-         * // For each block, write a single char and seek to the next block // multiple from the current position
-         *
-         * for( int i = 1; i <= numberOfBlocks; i++ ) {
-         *
-         * // Write the single char at start of the file block
-         *
-         * fileWrite(singleChar1);
-         *
-         * // Now seek to the end of block
-         *
-         * fileSeek(FILESYSTEM_BLOCKSIZE-2,SEEK_RELATIVE);
-         *
-         * // Write the single char at end of the file block
-         *
-         * fileWrite(singleChar2); }
-         *
-         * // If there are still bytes remaining, get them allocated too.
-         *
-         * if( bytesRemaining > 0 ) {
-         *
-         * // Now write out a byte at the beginning and end of the remaining // area to be allocated
-         *
-         * fileWrite(singleChar1); if( --bytesRemaining > 0 ) {
-         *
-         * // Seek to end of area and write the last char
-         *
-         * fileSeek(bytesRemaining-1,SEEK_RELATIVE);
-         *
-         * // Now write a byte at the end of the remaining area to be allocated.
-         *
-         * fileWrite(singleChar2); } }
-         *
-         * This is the quick version which only does one write.
-         */
-
-        fileSeek(bytesToClear - 1, SEEK_RELATIVE);
-        fileWrite(singleChar2);
-
-        // Move the file pointer back to its original location on the file
-        // by seeking -BytesToClear
-
-        fileSeek(-bytesToClear, SEEK_RELATIVE);
-
-        // If the file is buffered, make sue the space is really allocated.
+
+        long start = buffered ? buffPos : filePos;
+        long end = start + bytesToClear;
+
+        // If the file is buffered, the allocated storage reads as zeroes from now on.
 
         if (buffered) {
-            fileSync();
+            ensureBufferCapacity((int) end);
+            if (end > bufferLength) {
+                bufferLength = (int) end;
+            }
+        }
+
+        if (end <= fileLength) {
+            return;
+        }
+
+        try {
+            long position = fileLength;
+            while (position < end) {
+                int length = (int) Math.min(ZERO_FILL_SIZE, end - position);
+                writeFully(ByteBuffer.wrap(ZEROES, 0, length), position);
+                position += length;
+            }
+
+            // Make sure the space is really allocated, together with the new size of the file.
+
+            if (dsyncProp == null) {
+                channel.force(true);
+            }
+            fileLength = end;
+        } catch (Throwable e) {
+            throw new LogException(LogException.LOG_WRITE_FAILURE, 1, "jts.log_write_failed", e);
+        }
+    }
+
+    /**
+     * Extends the buffer of a buffered file so it can hold the given number of bytes. The buffer grows at least to twice
+     * its size to avoid copying it on every extension.
+     */
+    private void ensureBufferCapacity(int capacity) {
+        if (capacity > bufferData.length) {
+            byte[] newBufferData = new byte[Math.max(capacity, bufferData.length * 2)];
+            System.arraycopy(bufferData, 0, newBufferData, 0, bufferLength);
+            bufferData = newBufferData;
+        }
+    }
+
+    /**
+     * Forces the file after data has been written up to the given position. Only when the file has grown does the force
+     * need to include the file metadata.
+     */
+    private void force(long end) throws Exception {
+        boolean grown = end > fileLength;
+        if (grown) {
+            fileLength = end;
+        }
+
+        if (dsyncProp == null) {
+            channel.force(grown);
         }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws Exception {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
 
+    /**
+     * Reads from the given position until the buffer is full or the end of the file is reached.
+     *
+     * @return The number of bytes read, 0 at the end of the file.
+     */
+    private int readFully(ByteBuffer buffer, long position) throws Exception {
+        int bytesRead = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + bytesRead);
+            if (read < 0) {
+                break;
+            }
+            bytesRead += read;
+        }
+
+        return bytesRead;
     }
 }
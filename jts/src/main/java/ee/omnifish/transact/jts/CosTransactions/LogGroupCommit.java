@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Group commit support for forced writes to a {@link LogFile}.
+ * <p>
+ * Callers of {@link #write} queue their record and wait. A single flusher thread takes all queued records, appends them
+ * to the log with the BUFFER write mode, forces the log once and then releases every waiter of the batch. Records that
+ * arrive while a force is in progress form the next batch, so N concurrently committing transactions share one file
+ * system synchronisation instead of paying for N of them.
+ * <p>
+ * A caller is only released once its own record is durable, so the durability guarantee of a forced write is the same as
+ * without group commit.
+ */
+class LogGroupCommit {
+
+    static Logger _logger = Logger.getLogger(LogGroupCommit.class.getName());
+
+    /**
+     * The maximum number of records appended before the log is forced.
+     */
+    static final int MAX_BATCH_SIZE = 512;
+
+    private final LogFile logFile;
+    private final ArrayDeque<Request> pending = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queued = lock.newCondition();
+    private Flusher flusher;
+    private boolean closed;
+
+    LogGroupCommit(LogFile logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * Determines whether group commit has been enabled for the transaction log.
+     *
+     * @return true if forced writes should be grouped.
+     */
+    static boolean isEnabled() {
+        return "true".equalsIgnoreCase(Configuration.getPropertyValue(Configuration.LOG_GROUP_COMMIT));
+    }
+
+    /**
+     * Writes the given record to the log and waits until it has been forced.
+     *
+     * @param record The log record data.
+     * @param recordType The log record type.
+     *
+     * @return The LSN of the written record, or null if group commit has been closed and the caller should write the
+     * record itself.
+     *
+     * @exception LogException The write or the force of the batch containing the record failed.
+     */
+    LogLSN write(byte[] record, int recordType) throws LogException {
+        Request request = new Request(record, recordType);
+
+        lock.lock();
+        try {
+            if (closed) {
+                return null;
+            }
+
+            pending.addLast(request);
+            if (flusher == null) {
+                flusher = new Flusher();
+                flusher.start();
+            }
+
+            queued.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        request.await();
+
+        if (request.failure != null) {
+            throw new LogException(request.failure.errorCode, 1, null, request.failure);
+        }
+
+        return request.lsn;
+    }
+
+    /**
+     * Stops accepting new records, and waits until all records that have already been queued have been written.
+     */
+    void close() {
+        Flusher stopped;
+        lock.lock();
+        try {
+            closed = true;
+            stopped = flusher;
+            flusher = null;
+            queued.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (stopped != null && stopped != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (stopped.isAlive()) {
+                try {
+                    stopped.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Takes the next batch of queued records, waiting for one to arrive if there are none.
+     *
+     * @param batch The list to which the records are added.
+     *
+     * @return false if group commit has been closed and there is nothing left to write.
+     *
+     * @exception InterruptedException The wait was interrupted.
+     */
+    private boolean nextBatch(List<Request> batch) throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                if (closed) {
+                    return false;
+                }
+                queued.await();
+            }
+
+            while (!pending.isEmpty() && batch.size() < MAX_BATCH_SIZE) {
+                batch.add(pending.removeFirst());
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the batch to the log, forces it once and releases the waiting callers.
+     *
+     * @param batch The records to write.
+     */
+    private void flush(List<Request> batch) {
+        LogException failure = null;
+
+        // The LogFile lock keeps the batch apart from checkpoint and close operations, exactly as a
+        // single forced write would be.
+
+        logFile.lock.lock();
+        try {
+            for (Request request : batch) {
+                request.lsn = logFile.handle.writeRecord(request.record, request.recordType, LogHandle.BUFFER);
+            }
+            logFile.handle.force();
+        } catch (LogException le) {
+            failure = le;
+        } finally {
+            logFile.lock.unlock();
+        }
+
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "Group commit forced " + batch.size() + " log records");
+        }
+
+        for (Request request : batch) {
+            request.complete(failure);
+        }
+    }
+
+    /**
+     * A single queued forced write.
+     */
+    private static final class Request {
+        final byte[] record;
+        final int recordType;
+        LogLSN lsn;
+        LogException failure;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        Request(byte[] record, int recordType) {
+            this.record = record;
+            this.recordType = recordType;
+        }
+
+        void complete(LogException failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        /**
+         * Waits until the record is durable. The caller must not be released before that happens, so an interrupt is
+         * remembered and restored afterwards.
+         */
+        void await() {
+            boolean interrupted = false;
+            while (done.getCount() != 0) {
+                try {
+                    done.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The thread which appends and forces queued records.
+     */
+    private final class Flusher extends Thread {
+
+        Flusher() {
+            setName("JTS Log Group Commit Thread"/* #Frozen */);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Request> batch = new ArrayList<>();
+            try {
+                while (nextBatch(batch)) {
+                    flush(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                _logger.log(WARNING, "Log group commit thread interrupted", e);
+
+                // Nobody is left to write queued records, so fail them rather than leave the callers waiting.
+
+                LogException failure = new LogException(null, LogException.LOG_WRITE_FAILURE, 2);
+                lock.lock();
+                try {
+                    closed = true;
+                    flusher = null;
+                    batch.addAll(pending);
+                    pending.clear();
+                } finally {
+                    lock.unlock();
+                }
+                for (Request request : batch) {
+                    request.complete(failure);
+                }
+            }
+        }
+    }
+}
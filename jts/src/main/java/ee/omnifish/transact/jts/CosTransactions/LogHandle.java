@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A class containing attributes of an open log file.
@@ -131,9 +132,10 @@ class LogHandle {
     final static int CONTROL_FORCE_INTERVAL = 100;
 
     /**
-     * This determines the size of the largest log record which can be written.
+     * This determines the size of the largest log record which can be written. Each extent file is allocated at this size
+     * when it is opened for writing, so appending records never has to extend the file.
      */
-    final static int MAX_EXTENT_SIZE = LogFileHandle.FILESYSTEM_BLOCKSIZE * 16;
+    final static int MAX_EXTENT_SIZE = LogFileHandle.FILESYSTEM_BLOCKSIZE * 256;
 
     /**
      * This is the size of the cushion file used to find if the log is short on space.
@@ -205,6 +207,11 @@ class LogHandle {
      */
     final static int ALLOCATE_SIZE = MAX_EXTENT_SIZE;
 
+    /**
+     * The maximum number of truncated extent files kept to be reused as new extents.
+     */
+    final static int MAX_SPARE_EXTENTS = 4;
+
     // Instance members
 
     LogHandle blockValid = null;
@@ -213,6 +220,7 @@ class LogHandle {
     int chunkRemaining = 0;
     int activeRestartVersion = 0;
     LogUpcallTarget upcallTarget = null;
+    ArrayList<File> spareExtents = null;
     ArrayList cursors = null;
     boolean cushionExists = false;
     boolean upcallInProgress = false;
@@ -222,6 +230,13 @@ class LogHandle {
     LogControlDescriptor logControlDescriptor = null;
     LogControl logControl = null;
 
+    // Held across file writes and forces, so not the monitor of the handle.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // The number of bytes from the tail of the log to the next free position, which is updated under the lock
+    // whenever either of them moves, and read without it.
+    private volatile long size = 0;
+
     /**
      * Creates a LogHandle object for the given log instance.
      *
@@ -264,333 +279,398 @@ class LogHandle {
      *
      * @see
      */
-    synchronized LogLSN writeRecord(byte[] record, int recordType, int writeMode) throws LogException {
+    LogLSN writeRecord(byte[] record, int recordType, int writeMode) throws LogException {
+        lock.lock();
+        try {
 
-        // Check BlockValid field in Log_FileDescriptor block pointed to
-        // by logHandle parameter, and ensure it is valid
-        // IF not valid Log_FileDescriptor
-        // Return LOG_INVALID_FILE_DESCRIPTOR
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by logHandle parameter, and ensure it is valid
+            // IF not valid Log_FileDescriptor
+            // Return LOG_INVALID_FILE_DESCRIPTOR
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
-        }
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
-        }
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
+            }
 
-        // IF ReadOnly log
-        // Return LOG_READ_ONLY_ACCESS
+            // IF ReadOnly log
+            // Return LOG_READ_ONLY_ACCESS
 
-        if (logControl.logReadOnly) {
-            throw new LogException(null, LogException.LOG_READ_ONLY_ACCESS, 3);
-        }
+            if (logControl.logReadOnly) {
+                throw new LogException(null, LogException.LOG_READ_ONLY_ACCESS, 3);
+            }
 
-        // Sanity check the recordType and writeMode parameters
+            // Sanity check the recordType and writeMode parameters
 
-        if (recordType > RECORD_TYPE_MAX) {
-            throw new LogException(null, LogException.LOG_INVALID_RECORDTYPE, 5);
-        }
+            if (recordType > RECORD_TYPE_MAX) {
+                throw new LogException(null, LogException.LOG_INVALID_RECORDTYPE, 5);
+            }
 
-        if (writeMode != FORCE && writeMode != BUFFER) {
-            throw new LogException(null, LogException.LOG_INVALID_WRITEMODE, 6);
-        }
+            if (writeMode != FORCE && writeMode != BUFFER) {
+                throw new LogException(null, LogException.LOG_INVALID_WRITEMODE, 6);
+            }
 
-        // Calculate the total size of the log record by totalling size of all
-        // input buffers together with the record header and record ending
+            // Calculate the total size of the log record by totalling size of all
+            // input buffers together with the record header and record ending
 
-        int recordSize = record.length + LogRecordHeader.SIZEOF + LogRecordEnding.SIZEOF;
+            int recordSize = record.length + LogRecordHeader.SIZEOF + LogRecordEnding.SIZEOF;
 
-        // IF the log record data is greater than LOG_MAX_LOG_RECORD_SIZE
-        // Unlock the log file latch
-        // Return LOG_RECORD_TOO_LARGE
+            // IF the log record data is greater than LOG_MAX_LOG_RECORD_SIZE
+            // Unlock the log file latch
+            // Return LOG_RECORD_TOO_LARGE
 
-        if (recordSize > MAX_RECORD_SIZE) {
-            throw new LogException(null, LogException.LOG_RECORD_TOO_LARGE, 7);
-        }
+            if (recordSize > MAX_RECORD_SIZE) {
+                throw new LogException(null, LogException.LOG_RECORD_TOO_LARGE, 7);
+            }
 
-        // Calculate the remaining space in the current extent by subtracting
-        // (log head LSN's offset + 2*LOG_HEADER_SIZE + LOG_ENDING_SIZE) from
-        // LOG_MAX_EXTENT_SIZE
+            // Calculate the remaining space in the current extent by subtracting
+            // (log head LSN's offset + 2*LOG_HEADER_SIZE + LOG_ENDING_SIZE) from
+            // LOG_MAX_EXTENT_SIZE
 
-        int remainingSpace = MAX_EXTENT_SIZE - (logControlDescriptor.nextLSN.offset + 2 * LogRecordHeader.SIZEOF + LogRecordEnding.SIZEOF);
+            int remainingSpace = MAX_EXTENT_SIZE - (logControlDescriptor.nextLSN.offset + 2 * LogRecordHeader.SIZEOF + LogRecordEnding.SIZEOF);
 
-        // Position the file pointer to the next free location
-        // NOTE: either the record or a link record will be wrote here
-        // Set the WORKING extent descriptor to the returned value
-        //
-        // IF an error occurs let it go to the caller.
+            // Position the file pointer to the next free location
+            // NOTE: either the record or a link record will be wrote here
+            // Set the WORKING extent descriptor to the returned value
+            //
+            // IF an error occurs let it go to the caller.
 
-        LogExtent logEDP = positionFilePointer(logControlDescriptor.nextLSN, 0, LogExtent.ACCESSTYPE_WRITE);
+            LogExtent logEDP = positionFilePointer(logControlDescriptor.nextLSN, 0, LogExtent.ACCESSTYPE_WRITE);
 
-        // IF not enough space in current extent
+            // IF not enough space in current extent
 
-        if (remainingSpace < recordSize) {
-            LogRecordHeader link = new LogRecordHeader();
+            if (remainingSpace < recordSize) {
+                LogRecordHeader link = new LogRecordHeader();
 
-            // Calculate the number of the next (new) extent
-            // Calculate LSN of first record in the new extent.
-            // Test that the new extent number has not wrapped to become negative;
-            // if it has, throw an exception.
+                // Calculate the number of the next (new) extent
+                // Calculate LSN of first record in the new extent.
+                // Test that the new extent number has not wrapped to become negative;
+                // if it has, throw an exception.
 
-            int nextExtent = logControlDescriptor.headLSN.extent + 1;
-            if (nextExtent < 0) {
-                throw new LogException(null, LogException.LOG_WRITE_FAILURE, 8);
-            }
+                int nextExtent = logControlDescriptor.headLSN.extent + 1;
+                if (nextExtent < 0) {
+                    throw new LogException(null, LogException.LOG_WRITE_FAILURE, 8);
+                }
 
-            // If the new extent file is already open, there is nothing we can do but
-            // fail. We cannot run the short-on-storage upcall to try to free the
-            // extent as the upcall needs to write information to the offending extent.
+                // If the new extent file is already open, there is nothing we can do but
+                // fail. We cannot run the short-on-storage upcall to try to free the
+                // extent as the upcall needs to write information to the offending extent.
 
-            if (extentTable.containsKey(LogExtent.modExtent(nextExtent))) {
-                throw new LogException(null, LogException.LOG_WRITE_FAILURE, 9);
-            }
+                if (extentTable.containsKey(LogExtent.modExtent(nextExtent))) {
+                    throw new LogException(null, LogException.LOG_WRITE_FAILURE, 9);
+                }
 
-            // Create link record containing
-            // - the LSN of the link record (i.e. its own LSN)
-            // - the LSN of the previous log record (log head LSN from
-            // Log_FileDescriptor block)
-            // - the LSN of the next log record (this is the LSN of the
-            // first record in new extent file
+                // Create link record containing
+                // - the LSN of the link record (i.e. its own LSN)
+                // - the LSN of the previous log record (log head LSN from
+                // Log_FileDescriptor block)
+                // - the LSN of the next log record (this is the LSN of the
+                // first record in new extent file
+
+                link.recordType = LINK;
+                link.previousLSN = new LogLSN(logControlDescriptor.headLSN);
+                link.currentLSN = new LogLSN(logControlDescriptor.nextLSN);
+                link.nextLSN = new LogLSN(nextExtent, 0);
+
+                // Move a file pointer to the next record position
+
+                LogExtent nextEDP = positionFilePointer(link.nextLSN, 0, LogExtent.ACCESSTYPE_WRITE);
+
+                // Issue WRITE to add link record to the 'full' extent file
+                // IF the WRITE fails
+                // Close the new extent file
+                // Unchain its extent descriptor block from the hash table
+                // Deallocate the extent descriptor block
+                // Unlock the log file latch
+                // Return LOG_WRITE_FAILURE
+
+                byte[] linkBytes = new byte[LogRecordHeader.SIZEOF];
+                link.toBytes(linkBytes, 0);
+                int bytesWritten = 0;
+                try {
+                    bytesWritten = logEDP.fileHandle.fileWrite(linkBytes);
+                } catch (LogException le) {
+                    extentTable.remove(logControlDescriptor.headLSN.extent);
+                    nextEDP.doFinalize();
+                    throw new LogException(LogException.LOG_WRITE_FAILURE, 10, "jts.log_add_link_failed", le);
+                }
 
-            link.recordType = LINK;
-            link.previousLSN = new LogLSN(logControlDescriptor.headLSN);
-            link.currentLSN = new LogLSN(logControlDescriptor.nextLSN);
-            link.nextLSN = new LogLSN(nextExtent, 0);
+                // Set its 'extent written' flag to TRUE
 
-            // Move a file pointer to the next record position
+                logEDP.writtenSinceLastForce = true;
+                logEDP.cursorPosition += bytesWritten;
 
-            LogExtent nextEDP = positionFilePointer(link.nextLSN, 0, LogExtent.ACCESSTYPE_WRITE);
+                // Update the head LSN value in the Log_FileDescriptor block
+                // with the LSN of the link record
+                // Update the next LSN value in the Log_FileDescriptor block
+                // with the LSN of the first block in the new extent
 
-            // Issue WRITE to add link record to the 'full' extent file
-            // IF the WRITE fails
-            // Close the new extent file
-            // Unchain its extent descriptor block from the hash table
-            // Deallocate the extent descriptor block
-            // Unlock the log file latch
-            // Return LOG_WRITE_FAILURE
+                logControlDescriptor.headLSN.copy(link.currentLSN);
+                logControlDescriptor.nextLSN.copy(link.nextLSN);
 
-            byte[] linkBytes = new byte[LogRecordHeader.SIZEOF];
-            link.toBytes(linkBytes, 0);
-            int bytesWritten = 0;
-            try {
-                bytesWritten = logEDP.fileHandle.fileWrite(linkBytes);
-            } catch (LogException le) {
-                extentTable.remove(logControlDescriptor.headLSN.extent);
-                nextEDP.doFinalize();
-                throw new LogException(LogException.LOG_WRITE_FAILURE, 10, "jts.log_add_link_failed", le);
+                // Set the WORKING extent descriptor to the new/next extent
+
+                logEDP = nextEDP;
+
+                // Set the ChunkRemaining to Zero
+
+                chunkRemaining = 0;
             }
 
-            // Set its 'extent written' flag to TRUE
+            // Use the offset value from the next LSN to calculate the next free offset
+            // in the extent file
+            // Calculate the 'next free' LSN
 
-            logEDP.writtenSinceLastForce = true;
-            logEDP.cursorPosition += bytesWritten;
+            LogLSN nextFree = new LogLSN(logControlDescriptor.nextLSN.extent, logControlDescriptor.nextLSN.offset + recordSize);
 
-            // Update the head LSN value in the Log_FileDescriptor block
-            // with the LSN of the link record
-            // Update the next LSN value in the Log_FileDescriptor block
-            // with the LSN of the first block in the new extent
+            // Build the record header, initialising with
+            // - log record type (recordType passed as input parameter)
+            // - log record length (cumulative length of all data buffers)
+            // - the LSN of the previous log record (PreviousRecord; log head LSN from
+            // Log_FileDescriptor block)
+            // - the LSN of the next log record (NextRecord; the 'next free' LSN value)
+            // - the LSN of the record about to be written (ThisRecord)
 
-            logControlDescriptor.headLSN.copy(link.currentLSN);
-            logControlDescriptor.nextLSN.copy(link.nextLSN);
+            LogRecordHeader logRH = new LogRecordHeader();
 
-            // Set the WORKING extent descriptor to the new/next extent
+            logRH.recordType = recordType;
+            logRH.recordLength = record.length;
+            logRH.nextLSN = nextFree;
+            logRH.previousLSN = new LogLSN(logControlDescriptor.headLSN);
+            logRH.currentLSN = new LogLSN(logControlDescriptor.nextLSN);
 
-            logEDP = nextEDP;
+            // Build the record ending, initialising with
+            // the LSN of the record about to be written (ThisRecord)
 
-            // Set the ChunkRemaining to Zero
+            LogRecordEnding logRE = new LogRecordEnding();
 
-            chunkRemaining = 0;
-        }
+            logRE.currentLSN = logRH.currentLSN;
 
-        // Use the offset value from the next LSN to calculate the next free offset
-        // in the extent file
-        // Calculate the 'next free' LSN
+            // Initialise an array of iovec structures ready for a WRITEV request
+            // (an iovec structure specifies the base address and length of an area in
+            // memory from which data should be written)
+            // - set the first element to point to the record header, set iovCount=1
+            // - LOOP for each buffer in recordPtrList
+            // initialise next iovec element with its address and length
+            // increment iovCount
+            // ENDLOOP
+            // - set the next element to point to the record ending, increment iovCount
 
-        LogLSN nextFree = new LogLSN(logControlDescriptor.nextLSN.extent, logControlDescriptor.nextLSN.offset + recordSize);
+            byte[] writeBytes = new byte[LogRecordHeader.SIZEOF + record.length + LogRecordEnding.SIZEOF];
 
-        // Build the record header, initialising with
-        // - log record type (recordType passed as input parameter)
-        // - log record length (cumulative length of all data buffers)
-        // - the LSN of the previous log record (PreviousRecord; log head LSN from
-        // Log_FileDescriptor block)
-        // - the LSN of the next log record (NextRecord; the 'next free' LSN value)
-        // - the LSN of the record about to be written (ThisRecord)
+            logRH.toBytes(writeBytes, 0);
+            System.arraycopy(record, 0, writeBytes, LogRecordHeader.SIZEOF, record.length);
+            logRE.toBytes(writeBytes, LogRecordHeader.SIZEOF + record.length);
 
-        LogRecordHeader logRH = new LogRecordHeader();
+            // IF there is enough space in current chunk
+            // Decrease ChunkRemaining by RecordSize
 
-        logRH.recordType = recordType;
-        logRH.recordLength = record.length;
-        logRH.nextLSN = nextFree;
-        logRH.previousLSN = new LogLSN(logControlDescriptor.headLSN);
-        logRH.currentLSN = new LogLSN(logControlDescriptor.nextLSN);
+            boolean cushionFreed = false;
 
-        // Build the record ending, initialising with
-        // the LSN of the record about to be written (ThisRecord)
+            if (chunkRemaining > recordSize) {
+                chunkRemaining -= recordSize;
+            } else {
 
-        LogRecordEnding logRE = new LogRecordEnding();
+                // CALCULATE the size of disk space to grab
 
-        logRE.currentLSN = logRH.currentLSN;
+                int grabSize = chunkRemaining + ALLOCATE_SIZE;
 
-        // Initialise an array of iovec structures ready for a WRITEV request
-        // (an iovec structure specifies the base address and length of an area in
-        // memory from which data should be written)
-        // - set the first element to point to the record header, set iovCount=1
-        // - LOOP for each buffer in recordPtrList
-        // initialise next iovec element with its address and length
-        // increment iovCount
-        // ENDLOOP
-        // - set the next element to point to the record ending, increment iovCount
+                // IF there is NOT enough space in current extent
+                // Set the Grab size to be the size of the remaining extent
 
-        byte[] writeBytes = new byte[LogRecordHeader.SIZEOF + record.length + LogRecordEnding.SIZEOF];
+                if (grabSize + logControlDescriptor.nextLSN.offset > MAX_EXTENT_SIZE) {
+                    grabSize = MAX_EXTENT_SIZE - logControlDescriptor.nextLSN.offset;
+                }
 
-        logRH.toBytes(writeBytes, 0);
-        System.arraycopy(record, 0, writeBytes, LogRecordHeader.SIZEOF, record.length);
-        logRE.toBytes(writeBytes, LogRecordHeader.SIZEOF + record.length);
+                // Set the Allocate success flag to FALSE;
 
-        // IF there is enough space in current chunk
-        // Decrease ChunkRemaining by RecordSize
+                boolean allocateSuccess = false;
 
-        boolean cushionFreed = false;
+                do {
+                    // ALLOCATE the Grab size of disk space
+                    // IF successful
+                    // Set AllocateSuccess to TRUE
+                    // BREAK
 
-        if (chunkRemaining > recordSize) {
-            chunkRemaining -= recordSize;
-        } else {
+                    try {
+                        logEDP.fileHandle.allocFileStorage(grabSize);
+                    } catch (LogException le) {
 
-            // CALCULATE the size of disk space to grab
+                        // IF the request fails due to lack of storage, i.e.
+                        // ENOSPC - insufficient space left in file system or
+                        // EDQUOT - user or group disk block quota reached
+                        // Call the Log_FreeCushion routine
+                        // IF there was no cushion to free
+                        // Unlock the log file latch
+                        // Return LOG_NO_SPACE
+                        // Move the File pointer back to it's original offset
+                        // ELSE
+                        // EXIT LOOP with 'Allocate unsuccessful' status
+
+                        if (le.errorCode == LogException.LOG_NO_SPACE) {
+                            if (cushionExists) {
+                                freeCushion();
+                                cushionFreed = true;
+                            } else {
+                                if (cushionFreed) {
+                                    restoreCushion(false);
+                                }
+
+                                throw new LogException(LogException.LOG_NO_SPACE, 11, null, le);
+                            }
 
-            int grabSize = chunkRemaining + ALLOCATE_SIZE;
+                            try {
+                                logEDP = positionFilePointer(logControlDescriptor.nextLSN, 0, LogExtent.ACCESSTYPE_WRITE);
+                            } catch (Throwable e) {
+                            }
+                        } else {
+                            allocateSuccess = false;
+                        }
+                    }
+                    allocateSuccess = true;
+                } while (!allocateSuccess);
+                // SET ChunkRemaining to the Grabbed size - RecordSize
 
-            // IF there is NOT enough space in current extent
-            // Set the Grab size to be the size of the remaining extent
+                chunkRemaining = grabSize - recordSize;
+            }
+
+            // Issue a WRITEV request to the extent file, specifying the iovec array
+            // and iovCount as input
+            // IF write failed return the error.
+
+            int bytesWritten = logEDP.fileHandle.fileWrite(writeBytes);
 
-            if (grabSize + logControlDescriptor.nextLSN.offset > MAX_EXTENT_SIZE) {
-                grabSize = MAX_EXTENT_SIZE - logControlDescriptor.nextLSN.offset;
+            // Set 'extent written' flag to TRUE
+
+            logEDP.writtenSinceLastForce = true;
+            logEDP.cursorPosition += bytesWritten;
+
+            // IF LOG_FORCE was specified
+            // Force every extent written since the last force
+
+            if (writeMode == FORCE) {
+                forceExtents();
             }
 
-            // Set the Allocate success flag to FALSE;
+            // Update the head LSN and 'next free' LSN in the Log_FileDescriptor
+            // block
 
-            boolean allocateSuccess = false;
+            logControlDescriptor.headLSN.copy(logRH.currentLSN);
+            logControlDescriptor.nextLSN.copy(logRH.nextLSN);
+            updateSize();
 
-            do {
-                // ALLOCATE the Grab size of disk space
-                // IF successful
-                // Set AllocateSuccess to TRUE
-                // BREAK
+            // Increment the RecordsWritten counter in Log_FileDescriptor block
 
-                try {
-                    logEDP.fileHandle.allocFileStorage(grabSize);
-                } catch (LogException le) {
+            recordsWritten++;
 
-                    // IF the request fails due to lack of storage, i.e.
-                    // ENOSPC - insufficient space left in file system or
-                    // EDQUOT - user or group disk block quota reached
-                    // Call the Log_FreeCushion routine
-                    // IF there was no cushion to free
-                    // Unlock the log file latch
-                    // Return LOG_NO_SPACE
-                    // Move the File pointer back to it's original offset
-                    // ELSE
-                    // EXIT LOOP with 'Allocate unsuccessful' status
-
-                    if (le.errorCode == LogException.LOG_NO_SPACE) {
-                        if (cushionExists) {
-                            freeCushion();
-                            cushionFreed = true;
-                        } else {
-                            if (cushionFreed) {
-                                restoreCushion(false);
-                            }
+            // IF RecordsWritten = LOG_CONTROL_FORCE_INTERVAL or LOG_FORCE was specified
+            // Write the Log_ControlDescriptor structure (embedded in the
+            // Log_FileDescriptor block out to the control file (implied sync)
+            // IF not successful let the error pass to the caller.
+            // Reset the RecordsWritten counter to zero
+            // IF LogCushionOK is FALSE
+            // Call RestoreLogCushion Routine
 
-                            throw new LogException(LogException.LOG_NO_SPACE, 11, null, le);
-                        }
+            if (recordsWritten >= CONTROL_FORCE_INTERVAL) {
+                writeControlFile();
+                recordsWritten = 0;
+            }
 
-                        try {
-                            logEDP = positionFilePointer(logControlDescriptor.nextLSN, 0, LogExtent.ACCESSTYPE_WRITE);
-                        } catch (Throwable e) {
-                        }
-                    } else {
-                        allocateSuccess = false;
-                    }
-                }
-                allocateSuccess = true;
-            } while (!allocateSuccess);
-            // SET ChunkRemaining to the Grabbed size - RecordSize
+            if (cushionFreed) {
+                restoreCushion(true);
+            }
+
+            // Return the written LSN as the result of the write operation.
+
+            LogLSN result = new LogLSN(logRH.currentLSN);
 
-            chunkRemaining = grabSize - recordSize;
+            return result;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        // Issue a WRITEV request to the extent file, specifying the iovec array
-        // and iovCount as input
-        // IF write failed return the error.
+    /**
+     * Forces all records previously written to the log with the BUFFER write mode.
+     * <p>
+     * This allows a number of buffered records to be made durable with a single file system synchronisation, as is done by
+     * the group commit support in LogGroupCommit.
+     *
+     * @exception LogException The force failed.
+     *
+     * @see
+     */
+    void force() throws LogException {
+        lock.lock();
+        try {
+
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by logHandle parameter, and ensure it is valid
+
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
+
+            forceExtents();
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        int bytesWritten = logEDP.fileHandle.fileWrite(writeBytes);
+    /**
+     * Returns the number of bytes held by the log between its tail and the next free position. This does not need the
+     * lock, so it can be checked whenever a transaction completes.
+     *
+     * @return The size of the log in bytes.
+     */
+    long getSize() {
+        return size;
+    }
 
-        // Set 'extent written' flag to TRUE
+    /**
+     * Recalculates the size of the log from the tail and next free LSNs. The caller must hold the lock, or otherwise have
+     * sole use of the handle.
+     */
+    void updateSize() {
+        LogLSN tailLSN = logControlDescriptor.tailLSN;
+        LogLSN nextLSN = logControlDescriptor.nextLSN;
+        size = (long) (nextLSN.extent - tailLSN.extent) * MAX_EXTENT_SIZE + nextLSN.offset - tailLSN.offset;
+    }
 
-        logEDP.writtenSinceLastForce = true;
-        logEDP.cursorPosition += bytesWritten;
+    /**
+     * Synchronises every extent that has been written since it was last forced. This internal method does not need to be
+     * synchronized.
+     *
+     * @exception LogException The sync of an extent failed.
+     */
+    private void forceExtents() throws LogException {
 
-        // IF LOG_FORCE was specified
         // LOOP through each extent chain in the hash table
         // IF 'extent written' flag is TRUE
         // Issue FSYNC for extent file descriptor
         // IF not successful
-        // Unlock the log file latch
         // Return LOG_ERROR_FORCING_LOG
         // Set 'extent written' flag to FALSE
         // ENDLOOP
 
-        if (writeMode == FORCE) {
-            Enumeration extents = extentTable.elements();
-            while (extents.hasMoreElements()) {
-                LogExtent nextEDP = (LogExtent) extents.nextElement();
-                if (nextEDP.writtenSinceLastForce) {
-                    try {
-                        nextEDP.fileHandle.fileSync();
-                        nextEDP.writtenSinceLastForce = false;
-                    } catch (LogException le) {
-                        throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14, "jts.log_file_sync_failed", le);
-                    }
+        Enumeration extents = extentTable.elements();
+        while (extents.hasMoreElements()) {
+            LogExtent nextEDP = (LogExtent) extents.nextElement();
+            if (nextEDP.writtenSinceLastForce) {
+                try {
+                    nextEDP.fileHandle.fileSync();
+                    nextEDP.writtenSinceLastForce = false;
+                } catch (LogException le) {
+                    throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14, "jts.log_file_sync_failed", le);
                 }
             }
         }
-
-        // Update the head LSN and 'next free' LSN in the Log_FileDescriptor
-        // block
-
-        logControlDescriptor.headLSN.copy(logRH.currentLSN);
-        logControlDescriptor.nextLSN.copy(logRH.nextLSN);
-
-        // Increment the RecordsWritten counter in Log_FileDescriptor block
-
-        recordsWritten++;
-
-        // IF RecordsWritten = LOG_CONTROL_FORCE_INTERVAL or LOG_FORCE was specified
-        // Write the Log_ControlDescriptor structure (embedded in the
-        // Log_FileDescriptor block out to the control file (implied sync)
-        // IF not successful let the error pass to the caller.
-        // Reset the RecordsWritten counter to zero
-        // IF LogCushionOK is FALSE
-        // Call RestoreLogCushion Routine
-
-        if (recordsWritten >= CONTROL_FORCE_INTERVAL) {
-            writeControlFile();
-            recordsWritten = 0;
-        }
-
-        if (cushionFreed) {
-            restoreCushion(true);
-        }
-
-        // Return the written LSN as the result of the write operation.
-
-        LogLSN result = new LogLSN(logRH.currentLSN);
-
-        return result;
     }
 
     /**
@@ -605,123 +685,128 @@ class LogHandle {
      *
      * @see
      */
-    synchronized byte[] readRecord(LogLSN readLSN, int[/* 1 */] type) throws LogException {
+    byte[] readRecord(LogLSN readLSN, int[/* 1 */] type) throws LogException {
+        lock.lock();
+        try {
 
-        // Check BlockValid field in Log_FileDescriptor block pointed to
-        // by logHandle parameter, and ensure it is valid
-        // IF not valid Log_FileDescriptor
-        // Return LOG_INVALID_FILE_DESCRIPTOR
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by logHandle parameter, and ensure it is valid
+            // IF not valid Log_FileDescriptor
+            // Return LOG_INVALID_FILE_DESCRIPTOR
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
-        }
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
-        }
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
+            }
 
-        // IF the log file is empty (head LSN equal to LOG_NULL_LSN)
-        // Unlock the log file latch
-        // Return LOG_INVALID_LSN
+            // IF the log file is empty (head LSN equal to LOG_NULL_LSN)
+            // Unlock the log file latch
+            // Return LOG_INVALID_LSN
 
-        if (logControlDescriptor.headLSN.isNULL()) {
-            throw new LogException(null, LogException.LOG_INVALID_LSN, 3);
-        }
+            if (logControlDescriptor.headLSN.isNULL()) {
+                throw new LogException(null, LogException.LOG_INVALID_LSN, 3);
+            }
 
-        // IF the lsn specified is LOG_HEAD_LSN or LOG_TAIL_LSN
-        // substitute the current head or tail LSN from the
-        // Log_ControlDescriptor structure
-        // ELSE
-        // Ensure that the lsn specified is <= current head LSN and
-        // >= current tail LSN
-        // IF lsn does not pass these checks
-        // Unlock the log file latch
-        // Return LOG_INVALID_LSN
-
-        LogLSN lsn;
-
-        if (readLSN.equals(LogLSN.HEAD_LSN)) {
-            lsn = logControlDescriptor.headLSN;
-        } else if (readLSN.equals(LogLSN.TAIL_LSN)) {
-            lsn = logControlDescriptor.tailLSN;
-        } else if (readLSN.lessThan(logControlDescriptor.tailLSN) || readLSN.greaterThan(logControlDescriptor.headLSN)) {
-            throw new LogException(null, LogException.LOG_INVALID_LSN, 4);
-        } else {
-            lsn = readLSN;
-        }
+            // IF the lsn specified is LOG_HEAD_LSN or LOG_TAIL_LSN
+            // substitute the current head or tail LSN from the
+            // Log_ControlDescriptor structure
+            // ELSE
+            // Ensure that the lsn specified is <= current head LSN and
+            // >= current tail LSN
+            // IF lsn does not pass these checks
+            // Unlock the log file latch
+            // Return LOG_INVALID_LSN
 
-        // Position the file pointer to the LSN specified
-        // IF not successful allow the error to pass to the caller.
+            LogLSN lsn;
 
-        LogExtent logEDP = positionFilePointer(lsn, 0, LogExtent.ACCESSTYPE_READ);
+            if (readLSN.equals(LogLSN.HEAD_LSN)) {
+                lsn = logControlDescriptor.headLSN;
+            } else if (readLSN.equals(LogLSN.TAIL_LSN)) {
+                lsn = logControlDescriptor.tailLSN;
+            } else if (readLSN.lessThan(logControlDescriptor.tailLSN) || readLSN.greaterThan(logControlDescriptor.headLSN)) {
+                throw new LogException(null, LogException.LOG_INVALID_LSN, 4);
+            } else {
+                lsn = readLSN;
+            }
 
-        // Issue a READ for the log header record
-        // IF the READ was not successful
-        // Unlock the log file latch
-        // Return LOG_READ_FAILURE
+            // Position the file pointer to the LSN specified
+            // IF not successful allow the error to pass to the caller.
 
-        byte[] headerBytes = new byte[LogRecordHeader.SIZEOF];
-        int bytesRead = 0;
-        try {
-            bytesRead = logEDP.fileHandle.fileRead(headerBytes);
-        } catch (LogException le) {
-            logEDP.lastAccess = LogExtent.ACCESSTYPE_UNKNOWN;
-            throw new LogException(le.errorCode, 6, "jts.log_read_header_failed", le);
-        }
+            LogExtent logEDP = positionFilePointer(lsn, 0, LogExtent.ACCESSTYPE_READ);
 
-        LogRecordHeader logRH = new LogRecordHeader(headerBytes, 0);
+            // Issue a READ for the log header record
+            // IF the READ was not successful
+            // Unlock the log file latch
+            // Return LOG_READ_FAILURE
 
-        logEDP.cursorPosition += bytesRead;
+            byte[] headerBytes = new byte[LogRecordHeader.SIZEOF];
+            int bytesRead = 0;
+            try {
+                bytesRead = logEDP.fileHandle.fileRead(headerBytes);
+            } catch (LogException le) {
+                logEDP.lastAccess = LogExtent.ACCESSTYPE_UNKNOWN;
+                throw new LogException(le.errorCode, 6, "jts.log_read_header_failed", le);
+            }
 
-        // Check the record type is not a LOG_LINK_RECORD_TYPE &&
-        // the LSN in the header record is same as lsn parameter
-        // IF either test fails
-        // Unlock the log file latch
-        // Return LOG_INVALID_LSN
+            LogRecordHeader logRH = new LogRecordHeader(headerBytes, 0);
 
-        if (logRH.recordType == LINK || !logRH.currentLSN.equals(lsn)) {
-            throw new LogException(null, LogException.LOG_INVALID_LSN, 7);
-        }
+            logEDP.cursorPosition += bytesRead;
 
-        // Set up a 2-element iovec array to enable the log record data and record
-        // ending to be read into a separate buffers
-        // Issue a READV request for the extent file, passing the iovec array as
-        // an input parameter
-        // IF the READV was not successful
-        // Unlock the log file latch
-        // Return LOG_READ_FAILURE
+            // Check the record type is not a LOG_LINK_RECORD_TYPE &&
+            // the LSN in the header record is same as lsn parameter
+            // IF either test fails
+            // Unlock the log file latch
+            // Return LOG_INVALID_LSN
 
-        byte[][] readVect = new byte[2][];
-        readVect[0] = new byte[logRH.recordLength];
-        readVect[1] = new byte[LogRecordEnding.SIZEOF];
+            if (logRH.recordType == LINK || !logRH.currentLSN.equals(lsn)) {
+                throw new LogException(null, LogException.LOG_INVALID_LSN, 7);
+            }
 
-        try {
-            bytesRead = logEDP.fileHandle.readVector(readVect);
-        } catch (LogException le) {
-            logEDP.lastAccess = LogExtent.ACCESSTYPE_UNKNOWN;
-            throw new LogException(le.errorCode, 9, "jts.log_readvector_failed", le);
-        }
+            // Set up a 2-element iovec array to enable the log record data and record
+            // ending to be read into a separate buffers
+            // Issue a READV request for the extent file, passing the iovec array as
+            // an input parameter
+            // IF the READV was not successful
+            // Unlock the log file latch
+            // Return LOG_READ_FAILURE
 
-        LogRecordEnding logRE = new LogRecordEnding(readVect[1], 0);
-        logEDP.cursorPosition += bytesRead;
+            byte[][] readVect = new byte[2][];
+            readVect[0] = new byte[logRH.recordLength];
+            readVect[1] = new byte[LogRecordEnding.SIZEOF];
 
-        // IF the LSN contained in the record ending != lsn parameter
-        // Unlock the log file latch
-        // Return LOG_CORRUPTED
+            try {
+                bytesRead = logEDP.fileHandle.readVector(readVect);
+            } catch (LogException le) {
+                logEDP.lastAccess = LogExtent.ACCESSTYPE_UNKNOWN;
+                throw new LogException(le.errorCode, 9, "jts.log_readvector_failed", le);
+            }
 
-        if (!logRE.currentLSN.equals(lsn)) {
-            throw new LogException(null, LogException.LOG_CORRUPTED, 10);
-        }
+            LogRecordEnding logRE = new LogRecordEnding(readVect[1], 0);
+            logEDP.cursorPosition += bytesRead;
 
-        // Copy the returned number of bytes into the recordLengthP parameter and
-        // the record type value into the recordTypeP parameter.
+            // IF the LSN contained in the record ending != lsn parameter
+            // Unlock the log file latch
+            // Return LOG_CORRUPTED
+
+            if (!logRE.currentLSN.equals(lsn)) {
+                throw new LogException(null, LogException.LOG_CORRUPTED, 10);
+            }
 
-        type[0] = logRH.recordType;
+            // Copy the returned number of bytes into the recordLengthP parameter and
+            // the record type value into the recordTypeP parameter.
 
-        return readVect[0];
+            type[0] = logRH.recordType;
+
+            return readVect[0];
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -735,87 +820,92 @@ class LogHandle {
      *
      * @see
      */
-    synchronized void writeRestart(byte[] buffer) throws LogException {
+    void writeRestart(byte[] buffer) throws LogException {
+        lock.lock();
+        try {
 
-        // Check BlockValid field in Log_FileDescriptor block pointed to
-        // by logHandle parameter, and ensure it is valid
-        // IF not valid Log_FileDescriptor
-        // Return LOG_INVALID_FILE_DESCRIPTOR
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by logHandle parameter, and ensure it is valid
+            // IF not valid Log_FileDescriptor
+            // Return LOG_INVALID_FILE_DESCRIPTOR
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
-        }
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
-        }
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
+            }
 
-        // IF ReadOnly log
-        // Return LOG_READ_ONLY_ACCESS
+            // IF ReadOnly log
+            // Return LOG_READ_ONLY_ACCESS
 
-        if (logControl.logReadOnly) {
-            throw new LogException(null, LogException.LOG_READ_ONLY_ACCESS, 3);
-        }
+            if (logControl.logReadOnly) {
+                throw new LogException(null, LogException.LOG_READ_ONLY_ACCESS, 3);
+            }
 
-        // IF the bufferLength parameter is greater than LOG_MAX_RESTART_RECORD_SIZE
-        // Return LOG_RECORD_TOO_LARGE
+            // IF the bufferLength parameter is greater than LOG_MAX_RESTART_RECORD_SIZE
+            // Return LOG_RECORD_TOO_LARGE
 
-        if (buffer.length > MAX_RESTART_SIZE) {
-            throw new LogException(null, LogException.LOG_RECORD_TOO_LARGE, 4);
-        }
+            if (buffer.length > MAX_RESTART_SIZE) {
+                throw new LogException(null, LogException.LOG_RECORD_TOO_LARGE, 4);
+            }
 
-        // Check BlockValid field in Log_FileDescriptor block pointed to
-        // by logHandle parameter, and ensure it is still valid
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by logHandle parameter, and ensure it is still valid
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 5);
-        }
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 5);
+            }
 
-        // Use the value in ActiveRestartVersion field showing which is the active
-        // to determine which is the alternate restart record
-        // Use LSEEK to move the file pointer to its offset
+            // Use the value in ActiveRestartVersion field showing which is the active
+            // to determine which is the alternate restart record
+            // Use LSEEK to move the file pointer to its offset
 
-        int alternate = alternateRestart(activeRestartVersion);
-        int restartOffset = restartPosition(alternate);
-        logFileHandle.fileSeek(restartOffset, LogFileHandle.SEEK_ABSOLUTE);
+            int alternate = alternateRestart(activeRestartVersion);
+            int restartOffset = restartPosition(alternate);
+            logFileHandle.fileSeek(restartOffset, LogFileHandle.SEEK_ABSOLUTE);
 
-        // Initialise a Log_RestartDescriptor block with
-        // - the current file pointer offset (copied into RestartValid field)
-        // - the length of the restart data (DataLength field)
-        // - a timestamp obtained from the seconds field of a gettimer call
+            // Initialise a Log_RestartDescriptor block with
+            // - the current file pointer offset (copied into RestartValid field)
+            // - the length of the restart data (DataLength field)
+            // - a timestamp obtained from the seconds field of a gettimer call
 
-        LogRestartDescriptor logRD = new LogRestartDescriptor();
+            LogRestartDescriptor logRD = new LogRestartDescriptor();
 
-        logRD.restartDataLength = buffer.length;
-        logRD.timeStamp = (int) new Date().getTime();
-        logRD.restartValid = restartOffset;
+            logRD.restartDataLength = buffer.length;
+            logRD.timeStamp = (int) new Date().getTime();
+            logRD.restartValid = restartOffset;
 
-        // Set up a 3-element iovec array with the first element 'containing'
-        // the Log_RestartDescriptor block, the second, the supplied
-        // restart data and the third, the Log_RestartDescriptor block again.
+            // Set up a 3-element iovec array with the first element 'containing'
+            // the Log_RestartDescriptor block, the second, the supplied
+            // restart data and the third, the Log_RestartDescriptor block again.
 
-        byte[] writeBytes = new byte[LogRestartDescriptor.SIZEOF * 2 + buffer.length];
+            byte[] writeBytes = new byte[LogRestartDescriptor.SIZEOF * 2 + buffer.length];
 
-        logRD.toBytes(writeBytes, 0);
-        System.arraycopy(buffer, 0, writeBytes, LogRestartDescriptor.SIZEOF, buffer.length);
-        logRD.toBytes(writeBytes, LogRestartDescriptor.SIZEOF + buffer.length);
+            logRD.toBytes(writeBytes, 0);
+            System.arraycopy(buffer, 0, writeBytes, LogRestartDescriptor.SIZEOF, buffer.length);
+            logRD.toBytes(writeBytes, LogRestartDescriptor.SIZEOF + buffer.length);
 
-        // Issue a WRITEV request to copy the restart data to the control file
-        // IF successful
-        // Data has now been written to permanent storage, so update
-        // RestartDataLength field in Log_FileDescriptor with bufferLength
-        // and indicate (value 1 or 2) in ActiveRestartVersion field that the
-        // alternate has now become the active
-        // Return LOG_SUCCESS
-        // ELSE let the error pass to the caller.
+            // Issue a WRITEV request to copy the restart data to the control file
+            // IF successful
+            // Data has now been written to permanent storage, so update
+            // RestartDataLength field in Log_FileDescriptor with bufferLength
+            // and indicate (value 1 or 2) in ActiveRestartVersion field that the
+            // alternate has now become the active
+            // Return LOG_SUCCESS
+            // ELSE let the error pass to the caller.
 
-        logFileHandle.fileWrite(writeBytes);
+            logFileHandle.fileWrite(writeBytes);
 
-        activeRestartVersion = alternate;
+            activeRestartVersion = alternate;
 
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -829,82 +919,87 @@ class LogHandle {
      *
      * @see
      */
-    synchronized byte[] readRestart() throws LogException {
-        // Check BlockValid field in Log_FileDescriptor block pointed to
-        // by logHandle parameter, and ensure it is valid
-        // IF not valid Log_FileDescriptor
-        // Return LOG_INVALID_FILE_DESCRIPTOR
-
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
-        }
+    byte[] readRestart() throws LogException {
+        lock.lock();
+        try {
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by logHandle parameter, and ensure it is valid
+            // IF not valid Log_FileDescriptor
+            // Return LOG_INVALID_FILE_DESCRIPTOR
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
-        }
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        // Check BlockValid field in Log_FileDescriptor block pointed to
-        // by logHandle parameter, and ensure it is still valid
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
+            }
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 3);
-        }
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by logHandle parameter, and ensure it is still valid
 
-        // IF there is no restart data (restart length in Log_FileDescriptor
-        // block is zero)
-        // Return LOG_NO_RESTART_RECORD
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 3);
+            }
 
-        if (restartDataLength == 0) {
-            return new byte[0];
-        }
+            // IF there is no restart data (restart length in Log_FileDescriptor
+            // block is zero)
+            // Return LOG_NO_RESTART_RECORD
 
-        // Use the ActiveRestartVersion field in the Log_FileDescriptor block
-        // to find out which restart record is currently the active one and
-        // determine its offset within the control file
-        // Use LSEEK to move the file pointer to the start of the restart record
-        // Allow any error to pass to the caller.
+            if (restartDataLength == 0) {
+                return new byte[0];
+            }
 
-        int restartOffset = restartPosition(activeRestartVersion);
-        logFileHandle.fileSeek(restartOffset, LogFileHandle.SEEK_ABSOLUTE);
+            // Use the ActiveRestartVersion field in the Log_FileDescriptor block
+            // to find out which restart record is currently the active one and
+            // determine its offset within the control file
+            // Use LSEEK to move the file pointer to the start of the restart record
+            // Allow any error to pass to the caller.
 
-        // Initialise an iovec array with the first element containing details of
-        // a Log_RestartDescriptor block, the second containing details of
-        // the callers buffer (bufferP and restart data length) and the third also
-        // pointing to a Log_RestartDescriptor block
+            int restartOffset = restartPosition(activeRestartVersion);
+            logFileHandle.fileSeek(restartOffset, LogFileHandle.SEEK_ABSOLUTE);
 
-        byte[][] readVect = new byte[3][];
+            // Initialise an iovec array with the first element containing details of
+            // a Log_RestartDescriptor block, the second containing details of
+            // the callers buffer (bufferP and restart data length) and the third also
+            // pointing to a Log_RestartDescriptor block
 
-        readVect[0] = new byte[LogRestartDescriptor.SIZEOF];
-        readVect[1] = new byte[restartDataLength];
-        readVect[2] = new byte[LogRestartDescriptor.SIZEOF];
+            byte[][] readVect = new byte[3][];
 
-        // Issue a READV for the restart data
-        // IF not successful let the error pass to the caller.
+            readVect[0] = new byte[LogRestartDescriptor.SIZEOF];
+            readVect[1] = new byte[restartDataLength];
+            readVect[2] = new byte[LogRestartDescriptor.SIZEOF];
 
-        logFileHandle.readVector(readVect);
+            // Issue a READV for the restart data
+            // IF not successful let the error pass to the caller.
 
-        LogRestartDescriptor logRD = new LogRestartDescriptor(readVect[0], 0);
-        LogRestartDescriptor logRDEnd = new LogRestartDescriptor(readVect[2], 0);
+            logFileHandle.readVector(readVect);
 
-        // IF the offset value stored in the returned Log_RestartDescriptor
-        // block is not equal to the offset of the record just read OR
-        // the length held in the Log_RestartDescriptor block is not equal to
-        // the restart data length held in the Log_FileDescriptor block OR
-        // the first Log_RestartDescriptor block is not equal to the second
-        // Return LOG_CORRUPTED
+            LogRestartDescriptor logRD = new LogRestartDescriptor(readVect[0], 0);
+            LogRestartDescriptor logRDEnd = new LogRestartDescriptor(readVect[2], 0);
 
-        if (logRD.restartValid != restartOffset || logRD.restartDataLength != restartDataLength || !logRD.equals(logRDEnd)) {
-            throw new LogException(null, LogException.LOG_CORRUPTED, 7);
-        }
+            // IF the offset value stored in the returned Log_RestartDescriptor
+            // block is not equal to the offset of the record just read OR
+            // the length held in the Log_RestartDescriptor block is not equal to
+            // the restart data length held in the Log_FileDescriptor block OR
+            // the first Log_RestartDescriptor block is not equal to the second
+            // Return LOG_CORRUPTED
 
-        // Copy the restart data length from Log_RestartDescriptor block into
-        // the callers recordLengthP parameter
-        // Return LOG_SUCCESS
+            if (logRD.restartValid != restartOffset || logRD.restartDataLength != restartDataLength || !logRD.equals(logRDEnd)) {
+                throw new LogException(null, LogException.LOG_CORRUPTED, 7);
+            }
+
+            // Copy the restart data length from Log_RestartDescriptor block into
+            // the callers recordLengthP parameter
+            // Return LOG_SUCCESS
 
-        return readVect[1];
+            return readVect[1];
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -918,128 +1013,145 @@ class LogHandle {
      *
      * @see
      */
-    synchronized void closeFile(boolean deleteFile) throws LogException {
-        // Check BlockValid field in Log_FileDescriptor block and
-        // ensure it is valid
-        // IF not valid Log_FileDescriptor
-        // Return LOG_INVALID_FILE_DESCRIPTOR
-
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
-        }
+    void closeFile(boolean deleteFile) throws LogException {
+        lock.lock();
+        try {
+            // Check BlockValid field in Log_FileDescriptor block and
+            // ensure it is valid
+            // IF not valid Log_FileDescriptor
+            // Return LOG_INVALID_FILE_DESCRIPTOR
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
-        }
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        // Set the block valid to NULL
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
+            }
 
-        blockValid = null;
+            // Set the block valid to NULL
 
-        // LOOP for each of the 16 elements in the log file's extent hash table
+            blockValid = null;
 
-        boolean forced = false;
-        Enumeration extents = extentTable.elements();
-        while (extents.hasMoreElements()) {
-            LogExtent logEDP = (LogExtent) extents.nextElement();
+            // LOOP for each of the 16 elements in the log file's extent hash table
 
-            // IF extent has been written since last force
-            // Issue FSYNC for the extent's file descriptor
-            // IF not successful
-            // Return LOG_WRITE_FAILURE
+            boolean forced = false;
+            Enumeration extents = extentTable.elements();
+            while (extents.hasMoreElements()) {
+                LogExtent logEDP = (LogExtent) extents.nextElement();
 
-            if (logEDP.writtenSinceLastForce) {
-                logEDP.fileHandle.fileSync();
-                logEDP.writtenSinceLastForce = false;
-                forced = true;
-            }
+                // IF extent has been written since last force
+                // Issue FSYNC for the extent's file descriptor
+                // IF not successful
+                // Return LOG_WRITE_FAILURE
 
-            // Issue a close for the extent file.
-            // Allow any error to pass to the caller.
+                if (logEDP.writtenSinceLastForce) {
+                    logEDP.fileHandle.fileSync();
+                    logEDP.writtenSinceLastForce = false;
+                    forced = true;
+                }
 
-            logEDP.fileHandle.fileClose();
+                // Issue a close for the extent file.
+                // Allow any error to pass to the caller.
 
-            // If deletion of the logfile was requested, delete it.
-            // Start IASRI 4720539
-            if (deleteFile) {
-                // if( !logEDP.file.delete() )
-                final LogExtent tmplogEDP = logEDP;
-                Boolean isdeleted = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
-                    @Override
-                    public Object run() {
-                        return tmplogEDP.file.delete();
+                logEDP.fileHandle.fileClose();
+
+                // If deletion of the logfile was requested, delete it.
+                // Start IASRI 4720539
+                if (deleteFile) {
+                    // if( !logEDP.file.delete() )
+                    final LogExtent tmplogEDP = logEDP;
+                    Boolean isdeleted = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+                        @Override
+                        public Object run() {
+                            return tmplogEDP.file.delete();
+                        }
+                    });
+                    if (!isdeleted.booleanValue()) {
+                        throw new LogException(null, LogException.LOG_CLOSE_FAILURE, 6);
                     }
-                });
-                if (!isdeleted.booleanValue()) {
-                    throw new LogException(null, LogException.LOG_CLOSE_FAILURE, 6);
+
                 }
+                // End IASRI 4720539
+                // Address next block in chain
+                // Clear the signature in the Log_ExtentDescriptor block
+                // Deallocate the Log_ExtentDescriptor block
 
+                extentTable.remove(logEDP.extentNumber);
+                logEDP.doFinalize();
             }
-            // End IASRI 4720539
-            // Address next block in chain
-            // Clear the signature in the Log_ExtentDescriptor block
-            // Deallocate the Log_ExtentDescriptor block
-
-            extentTable.remove(logEDP.extentNumber);
-            logEDP.doFinalize();
-        }
 
-        // IF any log extents were forced (FSYNC'ed)
-        // WRITE the Log_ControlDescriptor block to the control file (with
-        // implied sync)
-        // IF not successful allow the error to pass to the caller.
-        // Return LOG_WRITE_FAILURE
+            // IF any log extents were forced (FSYNC'ed)
+            // WRITE the Log_ControlDescriptor block to the control file (with
+            // implied sync)
+            // IF not successful allow the error to pass to the caller.
+            // Return LOG_WRITE_FAILURE
 
-        if (forced && !logControl.logReadOnly) {
-            writeControlFile();
-        }
+            if (forced && !logControl.logReadOnly) {
+                writeControlFile();
+            }
 
-        // Issue CLOSE for the control file
-        // IF not successful allow the error to pass to the caller.
+            // Issue CLOSE for the control file
+            // IF not successful allow the error to pass to the caller.
 
-        logFileHandle.fileClose();
-        // logFileHandle.destroy();
+            logFileHandle.fileClose();
+            // logFileHandle.destroy();
 
-        // If deletion of the logfile was requested, delete it's
-        // control File and the cushion file.
+            // If deletion of the logfile was requested, delete it's
+            // control File and the cushion file.
 
-        if (deleteFile) {
+            if (deleteFile) {
 
-            // Delete the control file.
-            // Start IASRI 4720539
-            // if( !logControl.controlFile.delete() )
-            Boolean isdeleted = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
-                @Override
-                public Object run() {
-                    return logControl.controlFile.delete();
+                // Delete the control file.
+                // Start IASRI 4720539
+                // if( !logControl.controlFile.delete() )
+                Boolean isdeleted = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+                    @Override
+                    public Object run() {
+                        return logControl.controlFile.delete();
+                    }
+                });
+                if (!isdeleted.booleanValue()) {
+                    throw new LogException(null, LogException.LOG_CLOSE_FAILURE, 7);
                 }
-            });
-            if (!isdeleted.booleanValue()) {
-                throw new LogException(null, LogException.LOG_CLOSE_FAILURE, 7);
-            }
-            // End IASRI 4720539
-            freeCushion();
+                // End IASRI 4720539
+                freeCushion();
 
-            // Finally remove the directory.
-            // Start IASRI 4720539
-            // LogControl.directory(logFileName,logControl.directoryPath).delete();
-            java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
-                @Override
-                public Object run() {
-                    return LogControl.directory(logFileName, logControl.directoryPath).delete();
+                // Delete the spare extent files.
+
+                for (final File spare : getSpareExtents()) {
+                    java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+                        @Override
+                        public Object run() {
+                            return spare.delete();
+                        }
+                    });
                 }
-            });
-            // End IASRI 4720539
-        }
+                spareExtents.clear();
 
-        // Unchain the Log_FileDescriptor block from the RCA chain
-        // the latch will be unset and terminated by Log_RemoveFileDescriptor
+                // Finally remove the directory.
+                // Start IASRI 4720539
+                // LogControl.directory(logFileName,logControl.directoryPath).delete();
+                java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+                    @Override
+                    public Object run() {
+                        return LogControl.directory(logFileName, logControl.directoryPath).delete();
+                    }
+                });
+                // End IASRI 4720539
+            }
+
+            // Unchain the Log_FileDescriptor block from the RCA chain
+            // the latch will be unset and terminated by Log_RemoveFileDescriptor
 
-        logControl.removeFile(this);
+            logControl.removeFile(this);
 
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1054,267 +1166,269 @@ class LogHandle {
      *
      * @see
      */
-    synchronized void truncate(LogLSN truncLSN, int inclusive) throws LogException {
+    void truncate(LogLSN truncLSN, int inclusive) throws LogException {
+        lock.lock();
+        try {
 
-        // Check BlockValid field in Log_FileDescriptor block and
-        // ensure it is valid
-        // IF not valid Log_FileDescriptor
-        // Return LOG_INVALID_FILE_DESCRIPTOR
+            // Check BlockValid field in Log_FileDescriptor block and
+            // ensure it is valid
+            // IF not valid Log_FileDescriptor
+            // Return LOG_INVALID_FILE_DESCRIPTOR
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
-        }
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
-        }
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
+            }
 
-        // IF ReadOnly log
-        // Return LOG_READ_ONLY_ACCESS
+            // IF ReadOnly log
+            // Return LOG_READ_ONLY_ACCESS
 
-        if (logControl.logReadOnly) {
-            throw new LogException(null, LogException.LOG_READ_ONLY_ACCESS, 3);
-        }
+            if (logControl.logReadOnly) {
+                throw new LogException(null, LogException.LOG_READ_ONLY_ACCESS, 3);
+            }
 
-        // IF the log file is empty (head LSN = LOG_NULL_LSN) &&
-        // the lsn value specified is not equal to LOG_HEAD_LSN
-        // Unlock the Log_FileDescriptor latch
-        // Return LOG_NEW_TAIL_TOO_HIGH
+            // IF the log file is empty (head LSN = LOG_NULL_LSN) &&
+            // the lsn value specified is not equal to LOG_HEAD_LSN
+            // Unlock the Log_FileDescriptor latch
+            // Return LOG_NEW_TAIL_TOO_HIGH
 
-        if (logControlDescriptor.headLSN.isNULL()) {
-            if (truncLSN.equals(LogLSN.HEAD_LSN)) {
-                return;
-            } else {
-                throw new LogException(null, LogException.LOG_NEW_TAIL_TOO_HIGH, 6);
+            if (logControlDescriptor.headLSN.isNULL()) {
+                if (truncLSN.equals(LogLSN.HEAD_LSN)) {
+                    return;
+                } else {
+                    throw new LogException(null, LogException.LOG_NEW_TAIL_TOO_HIGH, 6);
+                }
             }
-        }
-
-        // IF the lsn parameter is equal to the symbolic LOG_HEAD_LSN or
-        // the lsn parameter is equal to the actual log head LSN
-        // Copy head LSN from Log_FileDescriptor into lsn
-        // Remember that head of log is being truncated
-        // ELSE IF the lsn parameter is equal to LOG_TAIL_LSN
-        // Copy tail LSN from Log_FileDescriptor into lsn
-        // ELSE Copy lsn parameter into lsn
-
-        LogLSN lsn;
-        boolean truncateHead = false;
-
-        if (truncLSN.equals(LogLSN.HEAD_LSN) || truncLSN.equals(logControlDescriptor.headLSN)) {
-            lsn = new LogLSN(logControlDescriptor.headLSN);
-            truncateHead = true;
-        } else if (truncLSN.equals(LogLSN.TAIL_LSN)) {
-            lsn = new LogLSN(logControlDescriptor.tailLSN);
-        } else {
-            lsn = new LogLSN(truncLSN);
-        }
 
-        // Check the lsn parameter to ensure it is within the range of log records
-        // IF lsn < log tail LSN (in Log_FileDescriptor)
-        // Unlock the Log_FileDescriptor latch
-        // Return LOG_NEW_TAIL_TOO_LOW
-        // ELSE
-        // IF lsn > log head LSN
-        // Unlock the Log_FileDescriptor latch
-        // Return LOG_NEW_TAIL_TOO_HIGH
-
-        if (lsn.lessThan(logControlDescriptor.tailLSN)) {
-            throw new LogException(null, LogException.LOG_NEW_TAIL_TOO_LOW, 7);
-        } else if (lsn.greaterThan(logControlDescriptor.headLSN)) {
-            throw new LogException(null, LogException.LOG_NEW_TAIL_TOO_HIGH, 8);
-        }
+            // IF the lsn parameter is equal to the symbolic LOG_HEAD_LSN or
+            // the lsn parameter is equal to the actual log head LSN
+            // Copy head LSN from Log_FileDescriptor into lsn
+            // Remember that head of log is being truncated
+            // ELSE IF the lsn parameter is equal to LOG_TAIL_LSN
+            // Copy tail LSN from Log_FileDescriptor into lsn
+            // ELSE Copy lsn parameter into lsn
+
+            LogLSN lsn;
+            boolean truncateHead = false;
+
+            if (truncLSN.equals(LogLSN.HEAD_LSN) || truncLSN.equals(logControlDescriptor.headLSN)) {
+                lsn = new LogLSN(logControlDescriptor.headLSN);
+                truncateHead = true;
+            } else if (truncLSN.equals(LogLSN.TAIL_LSN)) {
+                lsn = new LogLSN(logControlDescriptor.tailLSN);
+            } else {
+                lsn = new LogLSN(truncLSN);
+            }
 
-        // IF log head is being truncated &&
-        // inclusive parameter = LOG_TAIL_NOT_INCLUSIVE
-        // Set Truncation record to the lsn specified (head LSN)
-        // and the New Tail LSN to the next lsn;
-        // ELSE
-        // set truncation record and new log tail LSN depending
-        // on whether or not LOG_TAIL_INCLUSIVE was set. Either way the
-        // record pointed to by the current lsn must be read first
-
-        LogLSN truncationRecord;
-        LogLSN newTailRecord;
-        boolean truncLastExtent = false;
-
-        if (truncateHead && inclusive == TAIL_NOT_INCLUSIVE) {
-            truncationRecord = new LogLSN(lsn);
-            newTailRecord = new LogLSN(logControlDescriptor.nextLSN);
-        } else {
-
-            // IF inclusive parameter = LOG_TAIL_INCLUSIVE and
-            // lsn parameter = log tail LSN (in Log_FileDescriptor)
-            // (then there is nothing to truncate)
+            // Check the lsn parameter to ensure it is within the range of log records
+            // IF lsn < log tail LSN (in Log_FileDescriptor)
             // Unlock the Log_FileDescriptor latch
-            // Return LOG_SUCCESS
+            // Return LOG_NEW_TAIL_TOO_LOW
+            // ELSE
+            // IF lsn > log head LSN
+            // Unlock the Log_FileDescriptor latch
+            // Return LOG_NEW_TAIL_TOO_HIGH
 
-            if (inclusive == TAIL_INCLUSIVE && lsn.equals(logControlDescriptor.tailLSN)) {
-                return;
+            if (lsn.lessThan(logControlDescriptor.tailLSN)) {
+                throw new LogException(null, LogException.LOG_NEW_TAIL_TOO_LOW, 7);
+            } else if (lsn.greaterThan(logControlDescriptor.headLSN)) {
+                throw new LogException(null, LogException.LOG_NEW_TAIL_TOO_HIGH, 8);
             }
 
-            // Call Log_PositionFilePointer to position file pointer at the
-            // start of the record specified by the lsn parameter
-            // Allow any error to pass to the caller.
+            // IF log head is being truncated &&
+            // inclusive parameter = LOG_TAIL_NOT_INCLUSIVE
+            // Set Truncation record to the lsn specified (head LSN)
+            // and the New Tail LSN to the next lsn;
+            // ELSE
+            // set truncation record and new log tail LSN depending
+            // on whether or not LOG_TAIL_INCLUSIVE was set. Either way the
+            // record pointed to by the current lsn must be read first
 
-            LogExtent logEDP = positionFilePointer(lsn, 0, LogExtent.ACCESSTYPE_READ);
+            LogLSN truncationRecord;
+            LogLSN newTailRecord;
+            boolean truncLastExtent = false;
 
-            // Issue READ for the log record header
-            // IF not successful return LOG_READ_ERROR
+            if (truncateHead && inclusive == TAIL_NOT_INCLUSIVE) {
+                truncationRecord = new LogLSN(lsn);
+                newTailRecord = new LogLSN(logControlDescriptor.nextLSN);
+            } else {
 
-            byte[] headerBytes = new byte[LogRecordHeader.SIZEOF];
-            int bytesRead = 0;
+                // IF inclusive parameter = LOG_TAIL_INCLUSIVE and
+                // lsn parameter = log tail LSN (in Log_FileDescriptor)
+                // (then there is nothing to truncate)
+                // Unlock the Log_FileDescriptor latch
+                // Return LOG_SUCCESS
 
-            try {
-                bytesRead = logEDP.fileHandle.fileRead(headerBytes);
-            } catch (LogException le) {
-                logEDP.lastAccess = LogExtent.ACCESSTYPE_UNKNOWN;
-                throw new LogException(LogException.LOG_READ_FAILURE, 11, "jts.log_read_header_failed", le);
-            }
+                if (inclusive == TAIL_INCLUSIVE && lsn.equals(logControlDescriptor.tailLSN)) {
+                    return;
+                }
 
-            logEDP.cursorPosition += bytesRead;
-            LogRecordHeader recordHeader = new LogRecordHeader(headerBytes, 0);
+                // Call Log_PositionFilePointer to position file pointer at the
+                // start of the record specified by the lsn parameter
+                // Allow any error to pass to the caller.
 
-            // Check that retrieved record is not an extent link record
-            // IF it is
-            // Unlock the Log_FileDescriptor latch
-            // Return LOG_INVALID_TAIL
+                LogExtent logEDP = positionFilePointer(lsn, 0, LogExtent.ACCESSTYPE_READ);
 
-            if (recordHeader.recordType == LINK) {
-                throw new LogException(null, LogException.LOG_INVALID_TAIL, 12);
-            }
+                // Issue READ for the log record header
+                // IF not successful return LOG_READ_ERROR
 
-            // Now set truncation record, and new tail LSN according to whether
-            // or not LOG_TAIL_INCLUSIVE was specified
+                byte[] headerBytes = new byte[LogRecordHeader.SIZEOF];
+                int bytesRead = 0;
 
-            if (inclusive == TAIL_INCLUSIVE) {
-                // The specified LSN is to be retained in the logfile so
-                // set the truncation record to the previous LSN and the
-                // new tail to the specified LSN
+                try {
+                    bytesRead = logEDP.fileHandle.fileRead(headerBytes);
+                } catch (LogException le) {
+                    logEDP.lastAccess = LogExtent.ACCESSTYPE_UNKNOWN;
+                    throw new LogException(LogException.LOG_READ_FAILURE, 11, "jts.log_read_header_failed", le);
+                }
 
-                truncationRecord = new LogLSN(recordHeader.previousLSN);
-                newTailRecord = new LogLSN(lsn);
+                logEDP.cursorPosition += bytesRead;
+                LogRecordHeader recordHeader = new LogRecordHeader(headerBytes, 0);
 
-                // IF the current LSN is the first record in an extent file
-                // Remember that previous extent file is to be truncated
+                // Check that retrieved record is not an extent link record
+                // IF it is
+                // Unlock the Log_FileDescriptor latch
+                // Return LOG_INVALID_TAIL
 
-                if (lsn.offset == 0) {
-                    truncLastExtent = true;
+                if (recordHeader.recordType == LINK) {
+                    throw new LogException(null, LogException.LOG_INVALID_TAIL, 12);
                 }
-            } else {
 
-                // The specified LSN is to be truncated from the logfile so
-                // set the truncation record to the specified LSN and the
-                // new tail to the next LSN
+                // Now set truncation record, and new tail LSN according to whether
+                // or not LOG_TAIL_INCLUSIVE was specified
 
-                truncationRecord = new LogLSN(lsn);
-                newTailRecord = new LogLSN(recordHeader.nextLSN);
+                if (inclusive == TAIL_INCLUSIVE) {
+                    // The specified LSN is to be retained in the logfile so
+                    // set the truncation record to the previous LSN and the
+                    // new tail to the specified LSN
+
+                    truncationRecord = new LogLSN(recordHeader.previousLSN);
+                    newTailRecord = new LogLSN(lsn);
+
+                    // IF the current LSN is the first record in an extent file
+                    // Remember that previous extent file is to be truncated
+
+                    if (lsn.offset == 0) {
+                        truncLastExtent = true;
+                    }
+                } else {
+
+                    // The specified LSN is to be truncated from the logfile so
+                    // set the truncation record to the specified LSN and the
+                    // new tail to the next LSN
+
+                    truncationRecord = new LogLSN(lsn);
+                    newTailRecord = new LogLSN(recordHeader.nextLSN);
+                }
             }
-        }
 
-        // Now that the true truncation point in the log file is known, work out
-        // how many extent files (if any) can be unlinked
-        // - Set first_extent to extent number from log tail LSN
-        // - Set last_extent to extent number from truncation point LSN
-
-        int firstExtent = logControlDescriptor.tailLSN.extent;
-        int lastExtent = truncationRecord.extent;
-
-        // IF log head is being truncated &&
-        // inclusive parameter = LOG_TAIL_NOT_INCLUSIVE
-        // Set log tail LSN to current log head LSN
-        // Set log head LSN in Log_ControlDescriptor structure to LOG_NULL_LSN
-        // ELSE
-        // Set log tail LSN in Log_ControlDescriptor structure
-        // to truncation point LSN
-
-        if (truncateHead && inclusive == TAIL_NOT_INCLUSIVE) {
-            logControlDescriptor.tailLSN.copy(newTailRecord);
-            logControlDescriptor.headLSN.copy(LogLSN.NULL_LSN);
-        } else {
-            logControlDescriptor.tailLSN.copy(newTailRecord);
-        }
+            // Now that the true truncation point in the log file is known, work out
+            // how many extent files (if any) can be unlinked
+            // - Set first_extent to extent number from log tail LSN
+            // - Set last_extent to extent number from truncation point LSN
 
-        // Write (and implicitly sync) the Log_ControlDescriptor structure
-        // to the control file. Allow any error to pass to the caller.
+            int firstExtent = logControlDescriptor.tailLSN.extent;
+            int lastExtent = truncationRecord.extent;
 
-        writeControlFile();
+            // IF log head is being truncated &&
+            // inclusive parameter = LOG_TAIL_NOT_INCLUSIVE
+            // Set log tail LSN to current log head LSN
+            // Set log head LSN in Log_ControlDescriptor structure to LOG_NULL_LSN
+            // ELSE
+            // Set log tail LSN in Log_ControlDescriptor structure
+            // to truncation point LSN
 
-        // Now unlink any extent files no longer required
-        // This involves processing each of the extent files in the range
-        // FirstExtent to LastExtent-1.
-        // Note: If the TruncationRecord is a link record (last in the extent
-        // file), then the LastExtent must also be processed.
+            if (truncateHead && inclusive == TAIL_NOT_INCLUSIVE) {
+                logControlDescriptor.tailLSN.copy(newTailRecord);
+                logControlDescriptor.headLSN.copy(LogLSN.NULL_LSN);
+            } else {
+                logControlDescriptor.tailLSN.copy(newTailRecord);
+            }
+            updateSize();
 
-        if (truncLastExtent) {
-            lastExtent++;
-        }
+            // Write (and implicitly sync) the Log_ControlDescriptor structure
+            // to the control file. Allow any error to pass to the caller.
 
-        for (int extent = firstExtent; extent <= lastExtent - 1; extent++) {
+            writeControlFile();
 
-            // IF extent is currently open
-            // Issue CLOSE for extent file
-            // IF not successful allow the error to pass to the caller.
+            // Now unlink any extent files no longer required
+            // This involves processing each of the extent files in the range
+            // FirstExtent to LastExtent-1.
+            // Note: If the TruncationRecord is a link record (last in the extent
+            // file), then the LastExtent must also be processed.
 
-            LogExtent logEDP = (LogExtent) extentTable.get(extent);
-            if (logEDP != null) {
-                logEDP.fileHandle.fileClose();
+            if (truncLastExtent) {
+                lastExtent++;
             }
 
-            // Issue UNLINK for extent file
-            // IF not successful
-            // Return LOG_CLOSE_FAILURE
+            for (int extent = firstExtent; extent <= lastExtent - 1; extent++) {
 
-            final LogExtent tmplogEDP = logEDP;
-            Boolean isdeleted = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
-                @Override
-                public Object run() {
-                    return tmplogEDP.file.delete();
+                // IF extent is currently open
+                // Issue CLOSE for extent file
+                // IF not successful allow the error to pass to the caller.
+
+                LogExtent logEDP = (LogExtent) extentTable.get(extent);
+                if (logEDP != null) {
+                    logEDP.fileHandle.fileClose();
                 }
-            });
 
-            if (!isdeleted.booleanValue()) {
-                throw new LogException(null, LogException.LOG_CLOSE_FAILURE, 15);
-                // Unchain the Log_ExtentDescriptor block, set its BlockValid
-                // field to binary zeroes and deallocate it.
+                // Keep the extent file as a spare for a later extent, or issue
+                // UNLINK for it if there are enough spares
+                // IF not successful
+                // Return LOG_CLOSE_FAILURE
+
+                File extentFile = logEDP != null ? logEDP.file : logControl.extentFile(logFileName, LogExtent.modExtent(extent));
+                if (!recycleExtentFile(extentFile)) {
+                    throw new LogException(null, LogException.LOG_CLOSE_FAILURE, 15);
+                    // Unchain the Log_ExtentDescriptor block, set its BlockValid
+                    // field to binary zeroes and deallocate it.
+                }
+
+                extentTable.remove(extent);
+                if (logEDP != null) {
+                    logEDP.doFinalize();
+                }
             }
 
-            extentTable.remove(extent);
-            logEDP.doFinalize();
-        }
+            // If the cushion file does not exist and at least one extents has
+            // just been removed, now is a good time to try and restore the
+            // cushion file.
+            // Call RestoreCushion but specify that the upcall should not
+            // be called if the restore fails, as it should already have
+            // been called when the cushion was first freed.
 
-        // If the cushion file does not exist and at least one extents has
-        // just been removed, now is a good time to try and restore the
-        // cushion file.
-        // Call RestoreCushion but specify that the upcall should not
-        // be called if the restore fails, as it should already have
-        // been called when the cushion was first freed.
+            if (!cushionExists && firstExtent <= lastExtent - 1) {
+                restoreCushion(false);
+            }
 
-        if (!cushionExists && firstExtent <= lastExtent - 1) {
-            restoreCushion(false);
-        }
+            // Call the platform specific SUPOS_LOG_FREE_FILE_STORAGE macro to
+            // release any unwanted areas of the extent file containing the TAIL LSN
+            // Allow any error to pass to the caller.
 
-        // Call the platform specific SUPOS_LOG_FREE_FILE_STORAGE macro to
-        // release any unwanted areas of the extent file containing the TAIL LSN
-        // Allow any error to pass to the caller.
+            if (logControlDescriptor.tailLSN.offset > 0) {
+                freeFileStorage(logControlDescriptor.tailLSN);
+            }
 
-        if (logControlDescriptor.tailLSN.offset > 0) {
-            freeFileStorage(logControlDescriptor.tailLSN);
-        }
+            // If the log head has been set to 00000000.00000000, then ensure that
+            // the next record which is written to the log causes the log control
+            // data to be forced. Otherwise, should a crash occur AFTER writing the
+            // record and BEFORE writing the control file, when the log is re-opened
+            // during restart, it will be assumed that the log is empty and no
+            // scanning for records 'beyond the end of the log' will take place.
 
-        // If the log head has been set to 00000000.00000000, then ensure that
-        // the next record which is written to the log causes the log control
-        // data to be forced. Otherwise, should a crash occur AFTER writing the
-        // record and BEFORE writing the control file, when the log is re-opened
-        // during restart, it will be assumed that the log is empty and no
-        // scanning for records 'beyond the end of the log' will take place.
+            if (logControlDescriptor.headLSN.isNULL()) {
+                recordsWritten = CONTROL_FORCE_INTERVAL;
+            }
 
-        if (logControlDescriptor.headLSN.isNULL()) {
-            recordsWritten = CONTROL_FORCE_INTERVAL;
+        } finally {
+            lock.unlock();
         }
-
     }
 
     /**
@@ -1328,110 +1442,115 @@ class LogHandle {
      *
      * @see
      */
-    synchronized void checkLSN(LogLSN chkLSN) throws LogException {
+    void checkLSN(LogLSN chkLSN) throws LogException {
+        lock.lock();
+        try {
 
-        // Check BlockValid field in Log_FileDescriptor block pointed to
-        // by logHandle parameter, and ensure it is valid
-        // IF not valid Log_FileDescriptor
-        // Return LOG_INVALID_FILE_DESCRIPTOR
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by logHandle parameter, and ensure it is valid
+            // IF not valid Log_FileDescriptor
+            // Return LOG_INVALID_FILE_DESCRIPTOR
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
-        }
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
-        }
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
+            }
 
-        // IF ReadOnly log
-        // Return LOG_READ_ONLY_ACCESS
+            // IF ReadOnly log
+            // Return LOG_READ_ONLY_ACCESS
 
-        if (logControl.logReadOnly) {
-            throw new LogException(null, LogException.LOG_READ_ONLY_ACCESS, 3);
-        }
+            if (logControl.logReadOnly) {
+                throw new LogException(null, LogException.LOG_READ_ONLY_ACCESS, 3);
+            }
 
-        // IF the lsn parameter is equal to LOG_HEAD_LSN
-        // Copy head LSN from Log_FileDescriptor into lsn
-        // ELSE IF the lsn parameter is equal to LOG_TAIL_LSN
-        // Copy tail LSN from Log_FileDescriptor into lsn
-        // ELSE Copy lsn parameter into lsn
+            // IF the lsn parameter is equal to LOG_HEAD_LSN
+            // Copy head LSN from Log_FileDescriptor into lsn
+            // ELSE IF the lsn parameter is equal to LOG_TAIL_LSN
+            // Copy tail LSN from Log_FileDescriptor into lsn
+            // ELSE Copy lsn parameter into lsn
 
-        LogLSN lsn;
+            LogLSN lsn;
 
-        if (chkLSN.equals(LogLSN.HEAD_LSN)) {
-            lsn = new LogLSN(logControlDescriptor.headLSN);
-        } else if (chkLSN.equals(LogLSN.TAIL_LSN)) {
-            lsn = new LogLSN(logControlDescriptor.tailLSN);
-        } else {
-            lsn = new LogLSN(chkLSN);
-        }
+            if (chkLSN.equals(LogLSN.HEAD_LSN)) {
+                lsn = new LogLSN(logControlDescriptor.headLSN);
+            } else if (chkLSN.equals(LogLSN.TAIL_LSN)) {
+                lsn = new LogLSN(logControlDescriptor.tailLSN);
+            } else {
+                lsn = new LogLSN(chkLSN);
+            }
 
-        // IF lsn value is less than log tail LSN
-        // Return LOG_SUCCESS
+            // IF lsn value is less than log tail LSN
+            // Return LOG_SUCCESS
 
-        // IF log file is empty (log head = LOG_NULL_LSN)
-        // Unlock the Log_FileDescriptor latch
-        // Return LOG_SUCCESS
+            // IF log file is empty (log head = LOG_NULL_LSN)
+            // Unlock the Log_FileDescriptor latch
+            // Return LOG_SUCCESS
 
-        if (lsn.lessThan(logControlDescriptor.tailLSN) || logControlDescriptor.headLSN.isNULL()) {
-            return;
-        }
+            if (lsn.lessThan(logControlDescriptor.tailLSN) || logControlDescriptor.headLSN.isNULL()) {
+                return;
+            }
 
-        // IF lsn value is greater than log head LSN
-        // Copy head LSN from Log_FileDescriptor into lsn parameter
+            // IF lsn value is greater than log head LSN
+            // Copy head LSN from Log_FileDescriptor into lsn parameter
 
-        if (lsn.greaterThan(logControlDescriptor.headLSN)) {
-            lsn.copy(logControlDescriptor.headLSN);
-        }
+            if (lsn.greaterThan(logControlDescriptor.headLSN)) {
+                lsn.copy(logControlDescriptor.headLSN);
+            }
 
-        // Determine the extent which contains the record to be forced (this is
-        // derived from the 'extent' part of the lsn parameter) - remember this
-        // as LAST_EXTENT
+            // Determine the extent which contains the record to be forced (this is
+            // derived from the 'extent' part of the lsn parameter) - remember this
+            // as LAST_EXTENT
 
-        int lastExtent = lsn.extent;
+            int lastExtent = lsn.extent;
 
-        // Determine the extent which contains the log tail LSN, remember this
-        // as FIRST_EXTENT
+            // Determine the extent which contains the log tail LSN, remember this
+            // as FIRST_EXTENT
 
-        int firstExtent = logControlDescriptor.tailLSN.extent;
+            int firstExtent = logControlDescriptor.tailLSN.extent;
 
-        // Now force each of the extent files (FIRST_EXTENT to LAST_EXTENT
-        // inclusive)
+            // Now force each of the extent files (FIRST_EXTENT to LAST_EXTENT
+            // inclusive)
 
-        for (int extent = firstExtent; extent <= lastExtent; extent++) {
+            for (int extent = firstExtent; extent <= lastExtent; extent++) {
 
-            // IF extent is currently open (Log_ExtentDescriptor block exists)
-            // IF the Written flag in the Log_ExtentDescriptor is TRUE
-            // Issue FSYNC for extent file
-            // IF not successful allow the error to pass to the caller.
-            // ELSE
-            // Set 'extent written' flag to FALSE
+                // IF extent is currently open (Log_ExtentDescriptor block exists)
+                // IF the Written flag in the Log_ExtentDescriptor is TRUE
+                // Issue FSYNC for extent file
+                // IF not successful allow the error to pass to the caller.
+                // ELSE
+                // Set 'extent written' flag to FALSE
 
-            LogExtent logEDP = (LogExtent) extentTable.get(extent);
-            if (logEDP != null && logEDP.writtenSinceLastForce) {
-                logEDP.fileHandle.fileSync();
-                logEDP.writtenSinceLastForce = false;
+                LogExtent logEDP = (LogExtent) extentTable.get(extent);
+                if (logEDP != null && logEDP.writtenSinceLastForce) {
+                    logEDP.fileHandle.fileSync();
+                    logEDP.writtenSinceLastForce = false;
+                }
             }
-        }
 
-        // IF 'extent' part of head LSN is same as LAST_EXTENT
-        // Force the Log_ControlDescriptor structure to the control file
-        // by issuing WRITE (implied sync)
-        // IF not successful allow the error to pass to the caller.
-        // ELSE
-        // Don't force control data, since we do not want control data to
-        // be 'ahead' of extent data
-        // The following block of code will no longer be executed as a result
-        // of a performance suggestion. This reduces the number of occasions
-        // when the control data is forced to disk
-
-        /*
-         * if( logControlDescriptor.headLSN.extent == lastExtent ) writeControlFile();
-         */
+            // IF 'extent' part of head LSN is same as LAST_EXTENT
+            // Force the Log_ControlDescriptor structure to the control file
+            // by issuing WRITE (implied sync)
+            // IF not successful allow the error to pass to the caller.
+            // ELSE
+            // Don't force control data, since we do not want control data to
+            // be 'ahead' of extent data
+            // The following block of code will no longer be executed as a result
+            // of a performance suggestion. This reduces the number of occasions
+            // when the control data is forced to disk
+
+            /*
+             * if( logControlDescriptor.headLSN.extent == lastExtent ) writeControlFile();
+             */
 
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1446,39 +1565,44 @@ class LogHandle {
      *
      * @see
      */
-    synchronized LogCursor openCursor(LogLSN startLSN, LogLSN endLSN) throws LogException {
+    LogCursor openCursor(LogLSN startLSN, LogLSN endLSN) throws LogException {
+        lock.lock();
+        try {
 
-        // Check BlockValid field in Log_FileDescriptor block and
-        // ensure it is valid
-        // IF not valid Log_FileDescriptor
-        // Return LOG_INVALID_FILE_DESCRIPTOR
+            // Check BlockValid field in Log_FileDescriptor block and
+            // ensure it is valid
+            // IF not valid Log_FileDescriptor
+            // Return LOG_INVALID_FILE_DESCRIPTOR
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
-        }
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_FILE_DESCRIPTOR, 1);
+            }
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
-        }
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 2);
+            }
 
-        // Allocate a Log_CursorDescriptor block
-        // IF allocate fails
-        // Return LOG_INSUFFICIENT_MEMORY
+            // Allocate a Log_CursorDescriptor block
+            // IF allocate fails
+            // Return LOG_INSUFFICIENT_MEMORY
 
-        LogCursor cursor = new LogCursor(logControl, this, startLSN, endLSN);
-        if (cursor == null) {
-            throw new LogException(null, LogException.LOG_INSUFFICIENT_MEMORY, 4);
-        }
+            LogCursor cursor = new LogCursor(logControl, this, startLSN, endLSN);
+            if (cursor == null) {
+                throw new LogException(null, LogException.LOG_INSUFFICIENT_MEMORY, 4);
+            }
 
-        // Add the Log_CursorDescriptor block to the chain of similar blocks
-        // hung off the LogFileDescriptor (anchor is CursorDescriptorHead)
+            // Add the Log_CursorDescriptor block to the chain of similar blocks
+            // hung off the LogFileDescriptor (anchor is CursorDescriptorHead)
 
-        cursors.add(cursor);
+            cursors.add(cursor);
 
-        return cursor;
+            return cursor;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1492,36 +1616,41 @@ class LogHandle {
      *
      * @see
      */
-    synchronized void closeCursor(LogCursor cursor) throws LogException {
+    void closeCursor(LogCursor cursor) throws LogException {
+        lock.lock();
+        try {
 
-        // Check BlockValid field in Log_CursorDescriptor block and
-        // ensure it is valid
-        // IF not valid Log_CursorDescriptor
-        // Return LOG_INVALID_CURSOR
+            // Check BlockValid field in Log_CursorDescriptor block and
+            // ensure it is valid
+            // IF not valid Log_CursorDescriptor
+            // Return LOG_INVALID_CURSOR
 
-        if (cursor == null || cursor.blockValid != cursor) {
-            throw new LogException(null, LogException.LOG_INVALID_CURSOR, 1);
-        }
+            if (cursor == null || cursor.blockValid != cursor) {
+                throw new LogException(null, LogException.LOG_INVALID_CURSOR, 1);
+            }
 
-        // Check BlockValid field in Log_FileDescriptor block pointed to
-        // by field in Log_CursorDescriptor block and ensure it is valid
+            // Check BlockValid field in Log_FileDescriptor block pointed to
+            // by field in Log_CursorDescriptor block and ensure it is valid
 
-        if (blockValid != this) {
-            throw new LogException(null, LogException.LOG_INVALID_CURSOR, 2);
-        }
+            if (blockValid != this) {
+                throw new LogException(null, LogException.LOG_INVALID_CURSOR, 2);
+            }
 
-        // IF not LogInitialised
-        // Return LOG_NOT_INITIALISED
+            // IF not LogInitialised
+            // Return LOG_NOT_INITIALISED
 
-        if (!logControl.logInitialised) {
-            throw new LogException(null, LogException.LOG_NOT_INITIALISED, 3);
-        }
+            if (!logControl.logInitialised) {
+                throw new LogException(null, LogException.LOG_NOT_INITIALISED, 3);
+            }
 
-        // Now we know the blocks are valid.
-        // Remove the Log_CursorDescriptor block from the chain hung off
-        // the Log_FileDescriptor (CursorDescriptorHead)
+            // Now we know the blocks are valid.
+            // Remove the Log_CursorDescriptor block from the chain hung off
+            // the Log_FileDescriptor (CursorDescriptorHead)
 
-        cursors.remove(cursor);
+            cursors.remove(cursor);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1784,6 +1913,8 @@ class LogHandle {
         int openOptions = LogFileHandle.OPEN_RDWR | LogFileHandle.OPEN_CREAT;
         if (logControl.logReadOnly) {
             openOptions = LogFileHandle.OPEN_RDONLY;
+        } else if (reuseSpareExtent(extentFile)) {
+            openOptions |= LogFileHandle.OPEN_RECYCLED;
         }
 
         LogFileHandle extentFH = new LogFileHandle(extentFile, openOptions);
@@ -1801,6 +1932,108 @@ class LogHandle {
         return logEDP;
     }
 
+    /**
+     * Returns the spare extent files, looking for the ones left in the log directory when first called.
+     * <p>
+     * This internal method does not need to be synchronized.
+     *
+     * @return The spare extent files.
+     */
+    private ArrayList<File> getSpareExtents() {
+        if (spareExtents == null) {
+            spareExtents = new ArrayList<>(MAX_SPARE_EXTENTS);
+            for (int spare = 0; spare < MAX_SPARE_EXTENTS; spare++) {
+                final File spareFile = logControl.spareFile(logFileName, spare);
+                Boolean exists = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+                    @Override
+                    public Object run() {
+                        return spareFile.exists();
+                    }
+                });
+                if (exists.booleanValue()) {
+                    spareExtents.add(spareFile);
+                }
+            }
+        }
+
+        return spareExtents;
+    }
+
+    /**
+     * Keeps the file of a truncated extent as a spare, so a later extent can reuse its allocated storage. The file is
+     * deleted if there are enough spares already.
+     * <p>
+     * This internal method does not need to be synchronized.
+     *
+     * @param extentFile The file of the truncated extent.
+     *
+     * @return Whether the file has been kept or deleted.
+     */
+    private boolean recycleExtentFile(final File extentFile) {
+        ArrayList<File> spares = getSpareExtents();
+        if (spares.size() < MAX_SPARE_EXTENTS) {
+            for (int spare = 0; spare < MAX_SPARE_EXTENTS; spare++) {
+                final File spareFile = logControl.spareFile(logFileName, spare);
+                if (spares.contains(spareFile)) {
+                    continue;
+                }
+
+                Boolean isrenamed = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+                    @Override
+                    public Object run() {
+                        return extentFile.renameTo(spareFile);
+                    }
+                });
+                if (isrenamed.booleanValue()) {
+                    spares.add(spareFile);
+                    return true;
+                }
+                break;
+            }
+        }
+
+        Boolean isdeleted = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+            @Override
+            public Object run() {
+                return extentFile.delete();
+            }
+        });
+
+        return isdeleted.booleanValue();
+    }
+
+    /**
+     * Renames a spare extent file to the file of a new extent.
+     * <p>
+     * This internal method does not need to be synchronized.
+     *
+     * @param extentFile The file of the new extent.
+     *
+     * @return Whether a spare has been reused. If not, the extent file either exists already or has to be created.
+     */
+    private boolean reuseSpareExtent(final File extentFile) {
+        Boolean exists = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+            @Override
+            public Object run() {
+                return extentFile.exists();
+            }
+        });
+        ArrayList<File> spares = getSpareExtents();
+        if (exists.booleanValue() || spares.isEmpty()) {
+            return false;
+        }
+
+        final File spareFile = spares.remove(spares.size() - 1);
+        Boolean isrenamed = (Boolean) java.security.AccessController.doPrivileged(new java.security.PrivilegedAction() {
+            @Override
+            public Object run() {
+                return spareFile.renameTo(extentFile);
+            }
+        });
+
+        return isrenamed.booleanValue();
+    }
+
     /**
      * Frees file storage for the file. This internal method does not need to be synchronized.
      *
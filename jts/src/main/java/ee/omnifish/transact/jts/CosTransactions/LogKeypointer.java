@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Background keypointing for the transaction log of the CoordinatorLog objects of one log location or partition of the
+ * default log.
+ * <p>
+ * Completing transactions only {@link #request} a keypoint when the number of transactions or the size of the log since
+ * the last one has reached its trigger. A single keypoint thread then takes the keypoint, so no committing thread pays
+ * for rewriting the state of every active transaction and truncating the log. The thread also takes a keypoint when the
+ * configured interval has passed and some transaction has written to the log since the last one.
+ * <p>
+ * The duration of every keypoint, including those taken directly by recovery, and the number of bytes it released from
+ * the log are recorded for {@link AdminUtil}.
+ */
+class LogKeypointer {
+
+    static Logger _logger = Logger.getLogger(LogKeypointer.class.getName());
+
+    private final CoordinatorLogStateHolder logStateHolder;
+    private final String logPath;
+    private final long logSizeTrigger;
+    private final long intervalNanos;
+    private final Runnable keypoint;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition requested = lock.newCondition();
+    private volatile boolean pending;
+    private Keypointer keypointer;
+    private boolean closed;
+
+    // Only written by the thread that has just taken a keypoint, which holds the state holder's keypoint state lock.
+    private volatile long keypointCount;
+    private volatile long lastDurationNanos;
+    private volatile long lastCompletedNanos;
+    private volatile long maxDurationNanos;
+    private volatile long totalDurationNanos;
+    private volatile long bytesReclaimed;
+
+    /**
+     * Creates the keypointer for the given log location. The keypoint thread is only started by the first request.
+     *
+     * @param logStateHolder The state of the log location or partition.
+     * @param logPath The log location, or null for a partition of the default log.
+     */
+    LogKeypointer(CoordinatorLogStateHolder logStateHolder, String logPath) {
+        this(logStateHolder, logPath, () -> CoordinatorLog.keypoint(logStateHolder, logPath));
+    }
+
+    /**
+     * Creates a keypointer which takes its keypoints with the given action.
+     *
+     * @param logStateHolder The state of the log location or partition.
+     * @param logPath The log location, or null for a partition of the default log.
+     * @param keypoint Takes a keypoint.
+     */
+    LogKeypointer(CoordinatorLogStateHolder logStateHolder, String logPath, Runnable keypoint) {
+        this.logStateHolder = logStateHolder;
+        this.logPath = logPath;
+        this.keypoint = keypoint;
+        this.logSizeTrigger = getLongProperty(Configuration.KEYPOINT_LOG_SIZE);
+        this.intervalNanos = SECONDS.toNanos(getLongProperty(Configuration.KEYPOINT_INTERVAL));
+    }
+
+    /**
+     * Determines whether the log has grown enough since the last keypoint to need another one.
+     *
+     * @param logFile The log file of the location.
+     *
+     * @return true if a keypoint should be requested.
+     */
+    boolean isLogSizeExceeded(LogFile logFile) {
+        return logSizeTrigger > 0 && logFile != null && logFile.getSize() >= logSizeTrigger;
+    }
+
+    /**
+     * Asks the keypoint thread to take a keypoint, starting it if necessary. This does not wait for the keypoint.
+     */
+    void request() {
+        if (pending) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            pending = true;
+            if (keypointer == null) {
+                keypointer = new Keypointer();
+                keypointer.start();
+            }
+
+            requested.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the keypoint thread, waiting for a keypoint in progress to finish. Later requests are ignored.
+     */
+    void close() {
+        Keypointer stopped;
+        lock.lock();
+        try {
+            closed = true;
+            stopped = keypointer;
+            keypointer = null;
+            requested.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (stopped != null && stopped != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (stopped.isAlive()) {
+                try {
+                    stopped.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Records a completed keypoint.
+     *
+     * @param durationNanos The time the keypoint took.
+     * @param reclaimed The number of bytes the keypoint released from the log.
+     */
+    void keypointCompleted(long durationNanos, long reclaimed) {
+        keypointCount++;
+        lastDurationNanos = durationNanos;
+        lastCompletedNanos = System.nanoTime();
+        maxDurationNanos = Math.max(maxDurationNanos, durationNanos);
+        totalDurationNanos += durationNanos;
+        if (reclaimed > 0) {
+            bytesReclaimed += reclaimed;
+        }
+
+        if (_logger.isLoggable(FINE)) {
+            _logger.log(FINE, "Keypoint of " + (logPath == null ? "partition " + logStateHolder.partition + (logStateHolder.serverName == null ? " of the default log" : " of the log of " + logStateHolder.serverName) : logPath) + " took " + NANOSECONDS.toMillis(durationNanos)
+                    + " ms and released " + reclaimed + " bytes");
+        }
+    }
+
+    long getKeypointCount() {
+        return keypointCount;
+    }
+
+    long getLastKeypointDuration() {
+        return NANOSECONDS.toMillis(lastDurationNanos);
+    }
+
+    long getLastKeypointTime() {
+        return lastCompletedNanos;
+    }
+
+    long getMaxKeypointDuration() {
+        return NANOSECONDS.toMillis(maxDurationNanos);
+    }
+
+    long getTotalKeypointDuration() {
+        return NANOSECONDS.toMillis(totalDurationNanos);
+    }
+
+    long getBytesReclaimed() {
+        return bytesReclaimed;
+    }
+
+    /**
+     * Waits until a keypoint has been requested or, if an interval has been configured, until it has passed and some
+     * transaction has written to the log.
+     *
+     * @return false if the keypointer has been closed.
+     *
+     * @exception InterruptedException The wait was interrupted.
+     */
+    private boolean awaitRequest() throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = intervalNanos;
+            while (!pending && !closed) {
+                if (intervalNanos == 0) {
+                    requested.await();
+                } else if (remaining > 0) {
+                    remaining = requested.awaitNanos(remaining);
+                } else if (logStateHolder.tranCount > 0) {
+                    break;
+                } else {
+                    remaining = intervalNanos;
+                }
+            }
+
+            pending = false;
+            return !closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long getLongProperty(String name) {
+        String value = Configuration.getPropertyValue(name);
+        if (value != null) {
+            try {
+                return Math.max(0, Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                _logger.warning("Invalid value " + value + " for " + name);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * The thread which takes the requested keypoints.
+     */
+    private final class Keypointer extends Thread {
+
+        Keypointer() {
+            setName("JTS Keypoint Thread"/* #Frozen */);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (awaitRequest()) {
+                    try {
+                        keypoint.run();
+                    } catch (RuntimeException e) {
+                        _logger.log(WARNING, "Keypoint failed", e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                _logger.log(WARNING, "Keypoint thread interrupted", e);
+                lock.lock();
+                try {
+                    keypointer = null;
+                    pending = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
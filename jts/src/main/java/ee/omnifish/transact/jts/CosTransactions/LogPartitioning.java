@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * The layout of a partitioned transaction log, as configured by {@link Configuration#LOG_PARTITIONS} and
+ * {@link Configuration#LOG_PARTITION_DIRECTORIES}.
+ * <p>
+ * Partition 0 is the log in the log directory, so a log with a single partition is the same as before partitioning.
+ * Partition <i>n</i> is held in the subdirectory <code>partition</code><i>n</i> of the log directory, or in the
+ * subdirectory <i>server</i><code>/partition</code><i>n</i> of one of the partition directories, which are used in
+ * turn. The partition directories may be shared by the servers of a cluster, so each server keeps its partitions apart
+ * by its name, as it does with its log directory.
+ */
+class LogPartitioning {
+
+    static Logger _logger = Logger.getLogger(LogPartitioning.class.getName());
+
+    /**
+     * The highest number of partitions, which also bounds the search for partitions of an earlier run.
+     */
+    static final int MAX_PARTITIONS = 256;
+
+    /**
+     * The highest number of partitions chosen automatically from the number of processors.
+     */
+    static final int MAX_AUTO_PARTITIONS = 8;
+
+    static final String PARTITION_SUBDIRECTORY = "partition";
+
+    private final String logPath;
+    private final String serverName;
+    private final List<String> partitionDirectories;
+    private final int partitionCount;
+
+    /**
+     * Sets up the layout of the log of this server.
+     */
+    LogPartitioning() {
+        this(LogControl.getLogPath(), Configuration.getServerName());
+    }
+
+    /**
+     * Sets up the layout of the log in the given log directory, which may be that of another server whose transactions
+     * are recovered by delegated recovery.
+     *
+     * @param logPath The log directory, which holds the first partition.
+     * @param serverName The name of the server which owns the log, or null if it has none.
+     */
+    LogPartitioning(String logPath, String serverName) {
+        this.logPath = logPath;
+        this.serverName = serverName;
+        partitionDirectories = new ArrayList<>();
+        String directories = Configuration.getPropertyValue(Configuration.LOG_PARTITION_DIRECTORIES);
+        if (directories != null) {
+            for (String directory : directories.split(File.pathSeparator)) {
+                if (!directory.trim().isEmpty()) {
+                    partitionDirectories.add(directory.trim());
+                }
+            }
+        }
+
+        int configured = getConfiguredCount();
+
+        // Partitions which still hold log records of an earlier run with more partitions are kept, as
+        // their transactions must be recovered.
+
+        int count = configured;
+        for (int partition = configured; partition < MAX_PARTITIONS; partition++) {
+            if (LogControl.checkFileExists(null, getDirectory(partition))) {
+                count = partition + 1;
+            }
+        }
+
+        partitionCount = count;
+    }
+
+    /**
+     * Returns the number of partitions of the log.
+     *
+     * @return The number of partitions, at least 1.
+     */
+    int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Returns the directory of the given partition.
+     *
+     * @param partition The partition number.
+     *
+     * @return The directory, or null for the first partition, which is held in the log directory.
+     */
+    String getDirectory(int partition) {
+        if (partition == 0) {
+            return null;
+        }
+
+        File base;
+        if (partitionDirectories.isEmpty()) {
+            base = new File(logPath);
+        } else {
+            base = new File(partitionDirectories.get((partition - 1) % partitionDirectories.size()));
+            if (serverName != null) {
+                base = new File(base, serverName);
+            }
+        }
+        return new File(base, PARTITION_SUBDIRECTORY + partition).getPath();
+    }
+
+    private int getConfiguredCount() {
+        String value = Configuration.getPropertyValue(Configuration.LOG_PARTITIONS);
+        if (value == null || "auto".equalsIgnoreCase(value.trim())) {
+            if (!partitionDirectories.isEmpty()) {
+                return partitionDirectories.size() + 1;
+            }
+            return Math.min(Runtime.getRuntime().availableProcessors(), MAX_AUTO_PARTITIONS);
+        }
+
+        try {
+            return Math.max(1, Math.min(Integer.parseInt(value.trim()), MAX_PARTITIONS));
+        } catch (NumberFormatException e) {
+            _logger.warning("Invalid value " + value + " for " + Configuration.LOG_PARTITIONS);
+            return 1;
+        }
+    }
+}
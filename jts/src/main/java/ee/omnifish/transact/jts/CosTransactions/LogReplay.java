@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Replays the transaction log during restart recovery.
+ * <p>
+ * The log records are read by a reader thread, which reads up to {@link #READ_AHEAD} records ahead of the thread that
+ * assigns them to the CoordinatorLog objects of their transactions, so reading the log and rebuilding the transactions
+ * overlap, and only the records that have not been assigned yet are held in memory.
+ * <p>
+ * The recovered transactions are then reconstructed in parallel on a fork-join pool with
+ * {@link Configuration#RECOVERY_RECONSTRUCT_THREADS} threads, as reconstructing a transaction may call the resources
+ * and superiors it has logged.
+ */
+class LogReplay {
+
+    static Logger _logger = Logger.getLogger(LogReplay.class.getName());
+
+    /**
+     * The number of log records read ahead of their assignment to transactions.
+     */
+    static final int READ_AHEAD = 1024;
+
+    /**
+     * The number of transactions reconstructed by a single fork-join task.
+     */
+    private static final int RECONSTRUCT_BATCH = 16;
+
+    private static final byte[] END_OF_LOG = new byte[0];
+
+    /**
+     * How long the reader waits for room in the queue before it checks again whether the replay has been cancelled.
+     */
+    private static final long PUT_WAIT_MILLIS = 100;
+
+    /**
+     * Reads the log records needed for recovery from the given log, passing each of them to the given consumer on the
+     * calling thread, most recent first.
+     *
+     * @param logFile The log.
+     * @param consumer The consumer of the log records.
+     *
+     * @return Indicates whether the log was read. If not, the records passed so far must be discarded.
+     *
+     * @see LogFile#readLogRecords
+     */
+    static boolean read(LogFile logFile, Consumer<byte[]> consumer) {
+        BlockingQueue<byte[]> records = new ArrayBlockingQueue<>(READ_AHEAD);
+        boolean[] result = new boolean[1];
+        AtomicReference<Throwable> readFailure = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Thread reader = new Thread(() -> {
+            try {
+                result[0] = logFile.readLogRecords(record -> put(records, record, cancelled));
+            } catch (CancellationException e) {
+                // The consumer has failed, so the records are no longer taken.
+                return;
+            } catch (RuntimeException | Error e) {
+                readFailure.set(e);
+            }
+
+            try {
+                put(records, END_OF_LOG, cancelled);
+            } catch (CancellationException e) {
+                // The consumer has failed on one of the last records.
+            }
+        }, "JTS Log Reader Thread"/* #Frozen */);
+        reader.setDaemon(true);
+        reader.start();
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                byte[] record;
+                try {
+                    record = records.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    continue;
+                }
+
+                if (record == END_OF_LOG) {
+                    break;
+                }
+
+                consumer.accept(record);
+            }
+        } catch (RuntimeException | Error e) {
+
+            // The reader is not interrupted, as that would close the channel of the log file it is reading. It stops at
+            // its next record instead, and emptying the queue releases it if it is waiting for room.
+
+            cancelled.set(true);
+            records.clear();
+            throw e;
+        } finally {
+            while (reader.isAlive()) {
+                try {
+                    reader.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // A failure of the read is passed on as if the log had been read by this thread.
+
+        Throwable failure = readFailure.get();
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+
+        return result[0];
+    }
+
+    /**
+     * Reconstructs the given recovered transactions in parallel.
+     * <p>
+     * If a reconstruction fails, the remaining transactions are not reconstructed, and the first failure is thrown once
+     * the reconstructions in progress have finished.
+     *
+     * @param coordLogs The CoordinatorLog objects of the recovered transactions.
+     * @param reconstruction The reconstruction of a single transaction.
+     *
+     * @return Indicates whether there were any transactions.
+     */
+    static boolean reconstruct(Enumeration coordLogs, Consumer<CoordinatorLog> reconstruction) {
+        List<CoordinatorLog> logs = new ArrayList<>();
+        for (Object coordLog : Collections.list(coordLogs)) {
+            logs.add((CoordinatorLog) coordLog);
+        }
+
+        int parallelism = Math.min(getThreads(), (logs.size() + RECONSTRUCT_BATCH - 1) / RECONSTRUCT_BATCH);
+        if (parallelism <= 1) {
+            logs.forEach(reconstruction);
+            return !logs.isEmpty();
+        }
+
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("JTS Recovery Reconstruct Thread " + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        try {
+            pool.invoke(new Reconstruct(logs, 0, logs.size(), reconstruction, failure));
+        } finally {
+            pool.shutdown();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        return true;
+    }
+
+    private static int getThreads() {
+        String value = Configuration.getPropertyValue(Configuration.RECOVERY_RECONSTRUCT_THREADS);
+        if (value != null) {
+            try {
+                return Math.max(1, Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                _logger.warning("Invalid value " + value + " for " + Configuration.RECOVERY_RECONSTRUCT_THREADS);
+            }
+        }
+
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private static void put(BlockingQueue<byte[]> records, byte[] record, AtomicBoolean cancelled) {
+        try {
+            while (!cancelled.get()) {
+                if (records.offer(record, PUT_WAIT_MILLIS, MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        throw new CancellationException();
+    }
+
+    /**
+     * Reconstructs a range of the recovered transactions, splitting it among the threads of the pool.
+     */
+    private static final class Reconstruct extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<CoordinatorLog> logs;
+        private final int from;
+        private final int to;
+        private final Consumer<CoordinatorLog> reconstruction;
+        private final AtomicReference<RuntimeException> failure;
+
+        Reconstruct(List<CoordinatorLog> logs, int from, int to, Consumer<CoordinatorLog> reconstruction, AtomicReference<RuntimeException> failure) {
+            this.logs = logs;
+            this.from = from;
+            this.to = to;
+            this.reconstruction = reconstruction;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > RECONSTRUCT_BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Reconstruct(logs, from, middle, reconstruction, failure), new Reconstruct(logs, middle, to, reconstruction, failure));
+                return;
+            }
+
+            for (int i = from; i < to && failure.get() == null; i++) {
+                try {
+                    reconstruction.accept(logs.get(i));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+    }
+}
@@ -17,7 +17,8 @@
 package ee.omnifish.transact.jts.CosTransactions;
 
 import java.util.LinkedList;
-import java.util.logging.Level;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 /**
@@ -70,28 +71,42 @@ public class RWLock {
 
     int currentReaders;
     int pendingReaders;
-    int currentWriters;
+    volatile int currentWriters;
     /*
      * Logger to log transaction messages
      */
     static Logger _logger = Logger.getLogger(RWLock.class.getName());
 
+    // The state is guarded by a lock rather than by monitors, so that a virtual thread waiting
+    // for the RWLock does not pin its carrier thread.
+    private final ReentrantLock mutex = new ReentrantLock();
+    private final Condition readersAdmitted = mutex.newCondition();
+
+    /**
+     * Incremented each time the pending readers are admitted.
+     */
+    private long readerGeneration;
+
     Queue writerQueue = new Queue();
 
     /**
      * This method is used to acquire a read lock. If there is already a writer thread accessing the object using the RWLock
      * then the reader thread will wait until the writer completes its operation
      */
-    public synchronized void acquireReadLock() {
-        if (currentWriters == 0 && writerQueue.size() == 0) {
-            ++currentReaders;
-        } else {
-            ++pendingReaders;
-            try {
-                wait();
-            } catch (InterruptedException ie) {
-                _logger.log(Level.FINE, "Error in acquireReadLock", ie);
+    public void acquireReadLock() {
+        mutex.lock();
+        try {
+            if (currentWriters == 0 && writerQueue.size() == 0) {
+                ++currentReaders;
+            } else {
+                ++pendingReaders;
+                long generation = readerGeneration;
+                while (generation == readerGeneration) {
+                    readersAdmitted.awaitUninterruptibly();
+                }
             }
+        } finally {
+            mutex.unlock();
         }
     }
 
@@ -100,25 +115,25 @@ public class RWLock {
      * RWLock, then the writer thread will wait till all the reader threads are finished with their operations.
      */
     public void acquireWriteLock() {
-        Object lock = new Object();
-
-        synchronized (lock) {
-            synchronized (this) {
-                if (writerQueue.size() == 0 && currentReaders == 0 && currentWriters == 0) {
-                    ++currentWriters;
-                    // Use logging facility if you need to log this
-                    // _logger.log(Level.FINE," RW: incremented WriterLock count");
-                    return;
-                }
-                writerQueue.enQueue(lock);
+        mutex.lock();
+        try {
+            if (writerQueue.size() == 0 && currentReaders == 0 && currentWriters == 0) {
+                ++currentWriters;
                 // Use logging facility if you need to log this
-                // _logger.log(Level.FINE," RW: Added WriterLock to queue");
+                // _logger.log(Level.FINE," RW: incremented WriterLock count");
+                return;
             }
-            try {
-                lock.wait();
-            } catch (InterruptedException ie) {
-                _logger.log(Level.FINE, "Error in acquireWriteLock", ie);
+
+            WaitingWriter writer = new WaitingWriter();
+            writerQueue.enQueue(writer);
+            // Use logging facility if you need to log this
+            // _logger.log(Level.FINE," RW: Added WriterLock to queue");
+
+            while (!writer.admitted) {
+                writer.admittedCondition.awaitUninterruptibly();
             }
+        } finally {
+            mutex.unlock();
         }
     }
 
@@ -136,9 +151,14 @@ public class RWLock {
      * This method is used to release a read lock. It also notifies any waiting writer thread that it could now acquire a
      * write lock.
      */
-    public synchronized void releaseReadLock() {
-        if (--currentReaders == 0) {
-            notifyWriters();
+    public void releaseReadLock() {
+        mutex.lock();
+        try {
+            if (--currentReaders == 0) {
+                notifyWriters();
+            }
+        } finally {
+            mutex.unlock();
         }
     }
 
@@ -147,31 +167,44 @@ public class RWLock {
      * read lock. If there are no reader threads then it will try to notify any waiting writer thread that it could now
      * acquire a write lock.
      */
-    public synchronized void releaseWriteLock() {
-        --currentWriters;
-        if (pendingReaders > 0) {
-            notifyReaders();
-        } else {
-            notifyWriters();
+    public void releaseWriteLock() {
+        mutex.lock();
+        try {
+            --currentWriters;
+            if (pendingReaders > 0) {
+                notifyReaders();
+            } else {
+                notifyWriters();
+            }
+        } finally {
+            mutex.unlock();
         }
     }
 
     private void notifyReaders() {
         currentReaders += pendingReaders;
         pendingReaders = 0;
-        notifyAll();
+        readerGeneration++;
+        readersAdmitted.signalAll();
     }
 
     private void notifyWriters() {
         if (writerQueue.size() > 0) {
-            Object lock = writerQueue.deQueueFirst();
+            WaitingWriter writer = (WaitingWriter) writerQueue.deQueueFirst();
             ++currentWriters;
-            synchronized (lock) {
-                lock.notify();
-            }
+            writer.admitted = true;
+            writer.admittedCondition.signal();
         }
     }
 
+    /**
+     * A writer waiting in the queue, which is handed the write lock by the thread releasing it.
+     */
+    private final class WaitingWriter {
+        final Condition admittedCondition = mutex.newCondition();
+        boolean admitted;
+    }
+
     class Queue extends LinkedList {
 
         public Queue() {
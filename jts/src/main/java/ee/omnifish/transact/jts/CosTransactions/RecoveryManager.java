@@ -38,12 +38,14 @@ import static java.util.logging.Level.SEVERE;
 import java.io.File;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.Hashtable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -52,9 +54,7 @@ import javax.transaction.xa.XAException;
 import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
 
-import org.omg.CORBA.COMM_FAILURE;
 import org.omg.CORBA.SystemException;
-import org.omg.CORBA.TRANSIENT;
 import org.omg.CosTransactions.Status;
 
 import ee.omnifish.transact.jts.api.TransactionRecoveryFence;
@@ -83,7 +83,7 @@ public class RecoveryManager {
     /**
      * list of XA Resources to be recovered.
      */
-    private static Enumeration uniqueRMSet;
+    private static List<XAResource> uniqueRMSet;
 
     /**
      * This attribute indicates whether initialisation has been started.
@@ -94,7 +94,7 @@ public class RecoveryManager {
      * This attribute indicates the number of Coordinator objects which require resync. This is set to the number of
      * in-doubt transactions recovered from the log, then decreased as transactions are resolved.
      */
-    private static int resyncCoords = 0;
+    private static volatile int resyncCoords = 0;
 
     /**
      * This attribute records the thread which is used to perform resync during restart
@@ -118,19 +118,18 @@ public class RecoveryManager {
      */
     private static volatile EventSemaphore uniqueRMSetReady = new EventSemaphore();
 
-    private static Hashtable coordsByGlobalTID = new Hashtable();
-    private static Hashtable coordsByLocalTID = new Hashtable();
+    private static CoordinatorRegistry coordinators = new CoordinatorRegistry();
 
     /**
      * Mapping between transactionIds and threads. This is used to ensure there is at most one thread doing work in a
      * transaction.
      */
-    private static Hashtable transactionIds = new Hashtable();
+    private static ConcurrentHashMap<GlobalTID, Thread> transactionIds = new ConcurrentHashMap<>();
 
     /**
      * Mapping between incompleteTxIds and their commit decisions.
      */
-    private static Hashtable inCompleteTxMap = new Hashtable();
+    private static ConcurrentHashMap<CoordinatorImpl, Boolean> inCompleteTxMap = new ConcurrentHashMap<>();
 
     // This will start TransactionRecoveryFence service as soon as all resources are available.
     private static TransactionRecoveryFence txRecoveryFence = new TransactionRecoveryFenceSimple();
@@ -219,8 +218,7 @@ public class RecoveryManager {
         // Attempt to add the global and local indentifier to
         // Coordinator associations to the maps.
 
-        coordsByGlobalTID.put(globalTID, coord);
-        coordsByLocalTID.put(localTID, coord);
+        coordinators.add(globalTID, localTID, coord);
 
         // Set up the timeout for the transaction. When active, the
         // timeout thread will periodically examine the map and abort
@@ -251,17 +249,11 @@ public class RecoveryManager {
     static boolean removeCoordinator(GlobalTID globalTID, Long localTID, boolean aborted) {
         boolean result = false;
 
-        // Remove the global identifier to Coordinator mapping if possible.
+        // Remove the global identifier and the InternalTid to Coordinator
+        // mappings if possible.
 
-        CoordinatorImpl coord = null;
-        result = (coordsByGlobalTID.remove(globalTID) != null);
-
-        // Remove the InternalTid to Coordinator mapping if possible.
-
-        if (result) {
-            coord = (CoordinatorImpl) coordsByLocalTID.remove(localTID);
-            result = (coord != null);
-        }
+        CoordinatorImpl coord = coordinators.remove(globalTID, localTID);
+        result = (coord != null);
 
         // If that succeeded, forget the CoordinatorLog object, if the
         // transaction is not a subtransaction. The following may return
@@ -330,7 +322,18 @@ public class RecoveryManager {
      * @return The Coordinator for the transaction.
      */
     static CoordinatorImpl getCoordinator(GlobalTID globalTID) {
-        return (CoordinatorImpl) coordsByGlobalTID.get(globalTID);
+        return coordinators.get(globalTID);
+    }
+
+    /**
+     * Returns a reference to the Coordinator object that corresponds to the global identifier viewed by the given key.
+     *
+     * @param key A view of the global identifier for the transaction.
+     *
+     * @return The Coordinator for the transaction.
+     */
+    static CoordinatorImpl getCoordinator(GlobalTID.Key key) {
+        return coordinators.get(key);
     }
 
     /**
@@ -342,15 +345,8 @@ public class RecoveryManager {
      * @return true if there is no concurrent activity and the map has been updated.
      */
     static boolean readAndUpdateTxMap(GlobalTID tid) {
-        synchronized (transactionIds) {
-            Thread thread = (Thread) transactionIds.get(tid);
-            if (thread != null) { // concurrent activity
-                return false;
-            }
-            // register the thread for the transaction id
-            transactionIds.put(tid, Thread.currentThread());
-            return true;
-        }
+        // register the thread for the transaction id, unless there is concurrent activity
+        return transactionIds.putIfAbsent(tid, Thread.currentThread()) == null;
     }
 
     /**
@@ -359,7 +355,7 @@ public class RecoveryManager {
      * @return the value for the transaction id key from the transaction ID map.
      */
     static Thread getThreadFromTxMap(GlobalTID tid) {
-        return (Thread) transactionIds.get(tid);
+        return transactionIds.get(tid);
     }
 
     /**
@@ -368,7 +364,7 @@ public class RecoveryManager {
      * @return the value for the transaction id key from the transaction ID map.
      */
     static Thread removeFromTxMap(GlobalTID tid) {
-        return (Thread) transactionIds.remove(tid);
+        return transactionIds.remove(tid);
     }
 
     /**
@@ -407,19 +403,18 @@ public class RecoveryManager {
         // transactions, recover the Coordinator objects and set up the
         // OMGtid to Coordinator map.
 
+        // The transactions are reconstructed in parallel.
+
         boolean keypointRequired = false;
         Enumeration logRecords = CoordinatorLog.getLogged();
 
-        while (logRecords.hasMoreElements()) {
-            keypointRequired = true;
-            try {
-                new TopCoordinator().reconstruct((CoordinatorLog) logRecords.nextElement());
-            } catch (Exception exc) {
-                _logger.log(SEVERE, "jts.recovery_in_doubt_exception", exc);
-                _logger.log(SEVERE, "jts.recovery_in_doubt", exc.toString());
-                String msg = LogFormatter.getLocalizedMessage(_logger, "jts.recovery_in_doubt", new java.lang.Object[] { exc.toString() });
-                throw new org.omg.CORBA.INTERNAL(msg);
-            }
+        try {
+            keypointRequired = LogReplay.reconstruct(logRecords, log -> new TopCoordinator().reconstruct(log));
+        } catch (Exception exc) {
+            _logger.log(SEVERE, "jts.recovery_in_doubt_exception", exc);
+            _logger.log(SEVERE, "jts.recovery_in_doubt", exc.toString());
+            String msg = LogFormatter.getLocalizedMessage(_logger, "jts.recovery_in_doubt", new java.lang.Object[] { exc.toString() });
+            throw new org.omg.CORBA.INTERNAL(msg);
         }
 
         // Perform recovery of XA resources.
@@ -438,7 +433,7 @@ public class RecoveryManager {
         // If resync is not needed, then perform after-resync
         // tasks immediately.
 
-        result = coordsByGlobalTID.size() > 0;
+        result = !coordinators.isEmpty();
         if (!result) {
             try {
                 resyncComplete(false, keypointRequired);
@@ -463,33 +458,33 @@ public class RecoveryManager {
         // If there are any transactions, proceed with resync. The map of
         // coordinators by global identifier is created during the
         // TopCoordinator reconstruct method when the coordinators are added
-        // via addCoordinator. We copy the contents to another map as
-        // Coordinators will remove themselves from the map during resync.
+        // via addCoordinator. Coordinators remove themselves from the map
+        // during resync, which the weakly consistent iteration tolerates.
 
         // Now that the Coordinators have been reconstructed, record
         // the number of transactions requiring resync,
-        // and make an event trace point. We must clone the Hashtable
-        // here so that the Enumeration does not get
-        // changed when any subsequent transaction is created (this can happen
-        // when the last Coordinator is removed).
+        // and make an event trace point. New transactions wait for resync,
+        // so they can only be created once the last recovered Coordinator
+        // has been removed; the iteration stops at that point.
 
-        resyncCoords = coordsByGlobalTID.size();
-        Enumeration resyncList = ((Hashtable) coordsByGlobalTID.clone()).elements();
+        resyncCoords = coordinators.size();
+        Iterator<CoordinatorImpl> resyncList = coordinators.coordinators().iterator();
 
         boolean isRoot[] = new boolean[1];
 
         // Go through and resync each transaction. The transaction lock
         // for each transaction is obtained to avoid deadlocks during recovery.
 
-        while (resyncList.hasMoreElements()) {
+        while (resyncCoords > 0 && resyncList.hasNext()) {
 
-            TopCoordinator coord = (TopCoordinator) resyncList.nextElement();
+            TopCoordinator coord = (TopCoordinator) resyncList.next();
 
             try {
 
                 // Before performing recovery, lock the coordinator.
 
-                synchronized (coord) {
+                coord.lock.lock();
+                try {
 
                     Status state = coord.recover(isRoot);
 
@@ -563,6 +558,8 @@ public class RecoveryManager {
                             }
                         }
                     }
+                } finally {
+                    coord.lock.unlock();
                 }
             } catch (Throwable exc) {
             }
@@ -616,7 +613,7 @@ public class RecoveryManager {
      * @return The Coordinator object.
      */
     static CoordinatorImpl getLocalCoordinator(Long localTID) {
-        return (CoordinatorImpl) coordsByLocalTID.get(localTID);
+        return coordinators.getLocal(localTID);
     }
 
     /**
@@ -628,7 +625,7 @@ public class RecoveryManager {
      *
      */
     static boolean validLocalTID(Long localTID) {
-        return coordsByLocalTID.containsKey(localTID);
+        return coordinators.containsLocal(localTID);
     }
 
     /**
@@ -669,6 +666,11 @@ public class RecoveryManager {
         // COMMENT(Ram J) not needed anymore.
         // JTSXA.shutdown(immediate);
 
+        // Let the committed transactions still telling their participants to commit
+        // finish, so that they are removed from the log before it is closed.
+
+        CommitCompletionService.shutdown(immediate);
+
         // If not immediate shutdown, keypoint and close the log.
         // Only do this if the process is recoverable!
 
@@ -677,36 +679,13 @@ public class RecoveryManager {
             CoordinatorLog.finalizeAll();
         }
 
-        // $Continue with shutdown/quiesce.
-    }
-
-    /**
-     * Reduce the set of XAResource objects into a unique set such that there is at most one XAResource object per RM.
-     */
-    private static Enumeration getUniqueRMSet(Enumeration xaResourceList) {
-
-        Vector uniqueRMList = new Vector();
+        // Write the records still queued for the database log.
 
-        while (xaResourceList.hasMoreElements()) {
-            XAResource xaRes = (XAResource) xaResourceList.nextElement();
-            int size = uniqueRMList.size();
-            boolean match = false;
-            for (int i = 0; i < size; i++) { // compare and eliminate duplicates
-                XAResource uniqueXaRes = (XAResource) uniqueRMList.elementAt(i);
-                try {
-                    if (xaRes.isSameRM(uniqueXaRes)) {
-                        match = true;
-                        break;
-                    }
-                } catch (XAException xe) {
-                }
-            }
-            if (!match) {
-                uniqueRMList.add(xaRes);
-            }
+        if (!immediate && Configuration.isDBLoggingEnabled()) {
+            LogDBHelper.getInstance().close();
         }
 
-        return uniqueRMList.elements();
+        // $Continue with shutdown/quiesce.
     }
 
     /**
@@ -730,13 +709,13 @@ public class RecoveryManager {
         synchronized (lockObject) {
 
             if (!uniqueRMSetReady.isPosted()) {
-                RecoveryManager.uniqueRMSet = getUniqueRMSet(xaResources);
+                RecoveryManager.uniqueRMSet = XARecoveryEngine.getUniqueRMs(xaResources);
                 uniqueRMSetReady.post();
                 waitForResync();
                 return;
             } else {
                 RecoveryManager.waitForResync();
-                RecoveryManager.uniqueRMSet = getUniqueRMSet(xaResources);
+                RecoveryManager.uniqueRMSet = XARecoveryEngine.getUniqueRMs(xaResources);
                 // the following call is meant to induce recovery. But
                 // currently it will not work as intended, if it is called
                 // during regular TP processing. Currently, this call deals
@@ -807,7 +786,7 @@ public class RecoveryManager {
 
         /* This method has been newly added - Ram Jeyaraman */
 
-        Enumeration xaResources = RecoveryManager.uniqueRMSet;
+        List<XAResource> xaResources = RecoveryManager.uniqueRMSet;
         /**
          * if (xaResources == null) { // TODO - check that automatic recovery works in a clustered instance return; }
          **/
@@ -839,121 +818,16 @@ public class RecoveryManager {
             return;
         }
 
-        Vector otsResources = new Vector();
-        // Map uniqueXids = new Hashtable();
-        Set uniqueXids = new HashSet();
-
-        while (xaResources.hasMoreElements()) {
-
-            XAResource xaResource = (XAResource) xaResources.nextElement();
+        // Obtain the in-doubt branches of this server from all resource
+        // managers, then for each of them determine whether the transaction
+        // is known, and if so, register it, otherwise roll it back.
 
-            // Get the list of XIDs which represent in-doubt transactions
-            // for the database.
-
-            Xid[] inDoubtXids = getInDoubtXids(xaResource);
-            // uniqueXids.clear();
-            if (inDoubtXids == null || inDoubtXids.length == 0) {
-                continue; // No in-doubt xids for this resource.
-            }
-
-            for (Xid inDoubtXid : inDoubtXids) {
-
-                // check to see if the xid belongs to this server.
-
-                String branchQualifier = new String(inDoubtXid.getBranchQualifier());
-                String serverName = Configuration.getServerName();
-
-                if (branchQualifier.startsWith(serverName)) {
-
-                    // check if the xid is a duplicate. i.e., Xids
-                    // which have same globalId and branchId are
-                    // considered duplicates. Note that the
-                    // branchId format is (serverId, rmId). This is
-                    // to make sure that at most one OTSResource object
-                    // is registered with the coordinator per transaction
-                    // per RM.
-
-                    if (!uniqueXids.contains(inDoubtXid)) { // unique xid
-                        if (_logger.isLoggable(FINE)) {
-                            _logger.logp(FINE, "RecoveryManager", "proceedWithXARecovery", " This xid is UNIQUE " + inDoubtXid);
-                        }
-
-                        uniqueXids.add(inDoubtXid);// add to uniqueList
-
-                        // Create an OTSResource for the in-doubt
-                        // transaction and add it to the list. Each
-                        // OTSResource represents a RM per transaction.
-                        otsResources.addElement(new OTSResourceImpl(inDoubtXid, xaResource, null).getCORBAObjReference());
-                    } else {
-                        if (_logger.isLoggable(FINE)) {
-                            _logger.logp(FINE, "RecoveryManager", "proceedWithXARecovery", " This xid is NOTUNIQUE " + inDoubtXid);
-                        }
-
-                    }
-                } else {
-                    if (_logger.isLoggable(FINE)) {
-                        _logger.logp(FINE, "RecoveryManager", "proceedWithXARecovery",
-                                " This xid doesn't belong to me " + inDoubtXid);
-                    }
-
-                }
-            }
-        }
-
-        // For each OTSResource, determine whether the transaction is known,
-        // and if so, register it, otherwise roll it back.
-
-        for (int i = 0; i < otsResources.size(); i++) {
-
-            OTSResource otsResource = (OTSResource) otsResources.elementAt(i);
-            GlobalTID globalTID = new GlobalTID(otsResource.getGlobalTID());
-            TopCoordinator coord = (TopCoordinator) coordsByGlobalTID.get(globalTID);
+        List<XARecoveryEngine.InDoubtBranch> unknownBranches = new ArrayList<>();
+        for (XARecoveryEngine.InDoubtBranch branch : XARecoveryEngine.getInDoubtBranches(xaResources, Configuration.getServerName())) {
+            TopCoordinator coord = (TopCoordinator) coordinators.get(new GlobalTID.Key(branch.xid));
 
             if (coord == null) {
-                // Roll the OTSResource back if the transaction is not
-                // recognised. This happens when the RM has recorded its
-                // prepare vote, but the JTS has not recorded its prepare vote.
-                if (_logger.isLoggable(FINE)) {
-                    _logger.logp(FINE, "RecoveryManager", "proceedWithXARecovery()",
-                            "Could  not recognize OTSResource: " + otsResource + " with tid: "
-                                    + LogFormatter.convertToString(globalTID.realTID.tid) + ";Hence rolling this resource back...");
-                }
-
-                boolean infiniteRetry = true;
-                int commitRetries = Configuration.getRetries();
-                if (commitRetries >= 0)
-                    infiniteRetry = false;
-                int commitRetriesLeft = commitRetries;
-                boolean exceptionisThrown = true;
-                while (exceptionisThrown) {
-                    try {
-                        otsResource.rollback();
-                        exceptionisThrown = false;
-                    } catch (Throwable exc) {
-                        if ((exc instanceof COMM_FAILURE) || (exc instanceof TRANSIENT)) {
-                            if (commitRetriesLeft > 0 || infiniteRetry) {
-                                // For TRANSIENT or COMM_FAILURE, wait
-                                // for a while, then retry the commit.
-                                if (!infiniteRetry) {
-                                    commitRetriesLeft--;
-                                }
-
-                                try {
-                                    Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
-                                } catch (Throwable e) {
-                                }
-                            } else {
-                                _logger.log(Level.WARNING, "jts.exception_during_resync",
-                                        new java.lang.Object[] { exc.toString(), "OTSResource rollback" });
-                                exceptionisThrown = false;
-                            }
-                        } else {
-                            _logger.log(Level.WARNING, "jts.exception_during_resync",
-                                    new java.lang.Object[] { exc.toString(), "OTSResource rollback" });
-                            exceptionisThrown = false;
-                        }
-                    }
-                }
+                unknownBranches.add(branch);
             } else {
                 // NOTE: Currently unimplemented. The coordinator needs to
                 // check if duplicate resources are being registered for the
@@ -966,18 +840,35 @@ public class RecoveryManager {
 
                 // Register the OTSResource with the Coordinator.
                 // It will be called for commit or rollback during resync.
+                // Each OTSResource represents a RM per transaction. It is a local
+                // Resource of the coordinator, so it is not activated with the POA.
+                OTSResource otsResource = new OTSResourceImpl(branch.xid, branch.xaResource, null);
                 if (_logger.isLoggable(FINE)) {
                     _logger.logp(FINE, "RecoveryManager", "proceedWithXARecovery()",
-                            "Recognized OTSResource: " + otsResource + " with tid: " + LogFormatter.convertToString(globalTID.realTID.tid)
+                            "Recognized OTSResource: " + otsResource + " with tid: " + LogFormatter.convertToString(branch.xid.getGlobalTransactionId())
                                     + ";Hence registering this resource with coordinator...");
                 }
                 coord.directRegisterResource(otsResource);
             }
         }
+
+        // Roll the OTSResources back if the transaction is not
+        // recognised. This happens when the RM has recorded its
+        // prepare vote, but the JTS has not recorded its prepare vote.
+
+        XARecoveryEngine.complete(unknownBranches, branch -> {
+            OTSResource otsResource = new OTSResourceImpl(branch.xid, branch.xaResource, null);
+            if (_logger.isLoggable(FINE)) {
+                _logger.logp(FINE, "RecoveryManager", "proceedWithXARecovery()",
+                        "Could  not recognize OTSResource: " + otsResource + " with tid: "
+                                + LogFormatter.convertToString(branch.xid.getGlobalTransactionId()) + ";Hence rolling this resource back...");
+            }
+            XARecoveryEngine.callWithRetry(otsResource::rollback, "OTSResource rollback");
+        });
     }
 
     static void dbXARecovery() {
-        Enumeration xaResources = RecoveryManager.uniqueRMSet;
+        List<XAResource> xaResources = RecoveryManager.uniqueRMSet;
 
         if (skipRecoveryOnStartup()) {
             _logger.fine("========== no recovery ==========");
@@ -1026,96 +917,37 @@ public class RecoveryManager {
 
     }
 
-    static void dbXARecovery(String serverName, Enumeration xaResources) {
+    static void dbXARecovery(String serverName, List<XAResource> xaResources) {
         // Get global TIDs
         Map gtidMap = LogDBHelper.getInstance().getGlobalTIDMap(serverName);
 
-        Set uniqueXids = new HashSet();
         if (_logger.isLoggable(INFO)) {
             _logger.log(INFO, "RecoveryManager.dbXARecovery recovering for serverName: " + serverName);
         }
 
         // if flag is set use commit_one_phase (old style), otherwise use commit
         boolean one_phase = getCommitOnePhaseDuringRecovery();
-        while (xaResources.hasMoreElements()) {
-
-            XAResource xaResource = (XAResource) xaResources.nextElement();
-            if (_logger.isLoggable(INFO)) {
-                _logger.log(INFO, "RecoveryManager.dbXARecovery processing  xaResource: " + xaResource);
-            }
 
-            // Get the list of XIDs which represent in-doubt transactions
-            // for the database.
-
-            Xid[] inDoubtXids = getInDoubtXids(xaResource);
-            // uniqueXids.clear();
-            if (inDoubtXids == null || inDoubtXids.length == 0) {
-                continue; // No in-doubt xids for this resource.
-            }
-            for (Xid inDoubtXid : inDoubtXids) {
-
-                // check to see if the xid belongs to this server.
-
-                String branchQualifier = new String(inDoubtXid.getBranchQualifier());
-                // String serverName = Configuration.getServerName();
+        XARecoveryEngine.complete(XARecoveryEngine.getInDoubtBranches(xaResources, serverName), branch -> {
+            try {
+                byte[] gtrid = branch.xid.getGlobalTransactionId();
+                GlobalTID gtid = GlobalTID.fromTIDBytes(gtrid);
+                Long localTID = (Long) gtidMap.get(gtid);
                 if (_logger.isLoggable(INFO)) {
-                    _logger.log(INFO,
-                            "RecoveryManager.dbXARecovery inDoubtXid: " + inDoubtXid + " branchQualifier: " + branchQualifier);
+                    _logger.log(INFO, "RecoveryManager.dbXARecovery completing transaction for localTID: " + localTID);
                 }
-
-                if (branchQualifier.startsWith(serverName)) {
-
-                    // check if the xid is a duplicate. i.e., Xids
-                    // which have same globalId and branchId are
-                    // considered duplicates. Note that the
-                    // branchId format is (serverId, rmId). This is
-                    // to make sure that at most one OTSResource object
-                    // is registered with the coordinator per transaction
-                    // per RM.
-
-                    if (!uniqueXids.contains(inDoubtXid)) { // unique xid
-                        if (_logger.isLoggable(FINE)) {
-                            _logger.logp(FINE, "RecoveryManager", "dbXARecovery", " This xid is UNIQUE " + inDoubtXid);
-                        }
-
-                        uniqueXids.add(inDoubtXid); // add to uniqueList
-
-                        try {
-                            byte[] gtrid = inDoubtXid.getGlobalTransactionId();
-                            GlobalTID gtid = GlobalTID.fromTIDBytes(gtrid);
-                            Long localTID = (Long) gtidMap.get(gtid);
-                            if (_logger.isLoggable(INFO)) {
-                                _logger.log(INFO, "RecoveryManager.dbXARecovery completing transaction for localTID: " + localTID);
-                            }
-                            if (localTID == null) {
-                                xaResource.rollback(inDoubtXid);
-                            } else {
-                                xaResource.commit(inDoubtXid, one_phase);
-                                LogDBHelper.getInstance().deleteRecord(localTID.longValue(), serverName);
-                            }
-                        } catch (Exception ex) {
-                            ex.printStackTrace();
-                        }
-                    } else {
-                        if (_logger.isLoggable(INFO)) {
-                            _logger.logp(INFO, "RecoveryManager", "dbXARecovery", " This xid is NOTUNIQUE " + inDoubtXid);
-                        }
-                    }
+                if (localTID == null) {
+                    branch.xaResource.rollback(branch.xid);
                 } else {
-                    if (_logger.isLoggable(INFO)) {
-                        _logger.logp(INFO, "RecoveryManager", "dbXARecovery", " This xid doesn't belong to me " + inDoubtXid);
-                    }
-
+                    branch.xaResource.commit(branch.xid, one_phase);
+                    LogDBHelper.getInstance().deleteRecord(localTID.longValue(), serverName);
                 }
+            } catch (Exception ex) {
+                ex.printStackTrace();
             }
-        }
-        /**
-         * try { resyncComplete(false, false); } catch (Throwable ex) { ex.printStackTrace(); }
-         **/
+        });
     }
 
-
-
     /**
      * Returns an array of Coordinator objects currently active.
      *
@@ -1123,20 +955,11 @@ public class RecoveryManager {
      */
     static CoordinatorImpl[] getCoordinators() {
 
-        int size = coordsByGlobalTID.size();
-        CoordinatorImpl[] result = new CoordinatorImpl[size];
-
-        Enumeration coords = coordsByGlobalTID.elements();
-
-        for (int pos = 0; pos < size;) {
-            result[pos++] = (CoordinatorImpl) coords.nextElement();
-        }
-
-        return result;
+        return coordinators.toArray();
     }
 
-    static Hashtable/* <GlobalTID,Coordinator> */ getCoordsByGlobalTID() {
-        return coordsByGlobalTID;
+    static CoordinatorRegistry getCoordsByGlobalTID() {
+        return coordinators;
     }
 
     /**
@@ -1236,126 +1059,48 @@ public class RecoveryManager {
     public static void recoverIncompleteTx(XAResource[] xaresArray) {
         if ((xaresArray == null) || (xaresArray.length == 0))
             return;
-        int size = xaresArray.length;
-        Vector v = new Vector();
-        for (int i = 0; i < size; i++) {
-            v.addElement(xaresArray[i]);
-        }
-        Enumeration resourceList = getUniqueRMSet(v.elements());
-        Set uniqueXids = new HashSet();
-        Vector otsResources = new Vector();
-        while (resourceList.hasMoreElements()) {
-            XAResource xaResource = (XAResource) resourceList.nextElement();
-            // Get the list of XIDs which represent in-doubt transactions
-            // for the database.
-            Xid[] inDoubtXids = getInDoubtXids(xaResource);
-            // uniqueXids.clear();
-            if (inDoubtXids == null || inDoubtXids.length == 0) {
-                continue; // No in-doubt xids for this resource.
-            }
-
-            for (Xid inDoubtXid : inDoubtXids) {
 
-                // check to see if the xid belongs to this server.
+        // Resolve the in-doubt branches against the incomplete transactions
+        // with one lookup each.
 
-                String branchQualifier = new String(inDoubtXid.getBranchQualifier());
-                String serverName = Configuration.getServerName();
-
-                if (branchQualifier.startsWith(serverName)) {
+        Map<GlobalTID, Boolean> commitsByGlobalTID = new HashMap<>();
+        for (Map.Entry<CoordinatorImpl, Boolean> entry : inCompleteTxMap.entrySet()) {
+            commitsByGlobalTID.putIfAbsent(new GlobalTID(entry.getKey().getGlobalTID()), entry.getValue());
+        }
 
-                    // check if the xid is a duplicate. i.e., Xids
-                    // which have same globalId and branchId are
-                    // considered duplicates. Note that the
-                    // branchId format is (serverId, rmId). This is
-                    // to make sure that at most one OTSResource object
-                    // is registered with the coordinator per transaction
-                    // per RM.
+        List<XAResource> resourceList = XARecoveryEngine.getUniqueRMs(Collections.enumeration(Arrays.asList(xaresArray)));
+        List<XARecoveryEngine.InDoubtBranch> branches = new ArrayList<>();
+        for (XARecoveryEngine.InDoubtBranch branch : XARecoveryEngine.getInDoubtBranches(resourceList, Configuration.getServerName())) {
+            if (commitsByGlobalTID.get(new GlobalTID.Key(branch.xid)) != null) {
+                branches.add(branch);
+            }
+        }
 
-                    if (!uniqueXids.contains(inDoubtXid)) { // unique xid
-                        if (_logger.isLoggable(FINE)) {
-                            _logger.logp(FINE, "RecoveryManager", "recoverIncompleteTx", " This xid is UNIQUE " + inDoubtXid);
-                        }
-                        uniqueXids.add(inDoubtXid); // add to uniqueList
-                        otsResources.addElement(new OTSResourceImpl(inDoubtXid, xaResource, null));
+        // if flag is set use commit_one_phase (old style), otherwise use commit
+        boolean commit_one_phase = getCommitOnePhaseDuringRecovery();
+        XARecoveryEngine.complete(branches, branch -> {
+            OTSResourceImpl otsResource = new OTSResourceImpl(branch.xid, branch.xaResource, null);
+            boolean commit = commitsByGlobalTID.get(new GlobalTID.Key(branch.xid));
+            XARecoveryEngine.callWithRetry(() -> {
+                if (commit) {
+                    if (commit_one_phase) {
+                        otsResource.commit_one_phase();
                     } else {
-                        if (_logger.isLoggable(FINE)) {
-                            _logger.logp(FINE, "RecoveryManager", "recoverIncompleteTx", " This xid is NOTUNIQUE " + inDoubtXid);
-                        }
+                        otsResource.commit();
                     }
-                } else {
                     if (_logger.isLoggable(FINE)) {
-                        _logger.logp(FINE, "RecoveryManager", "recoverIncompleteTx", " This xid doesn't belong to me " + inDoubtXid);
+                        _logger.logp(FINE, "RecoveryManager", "recoverIncompleteTx", " committed  " + otsResource);
                     }
-                }
-            }
-        } // while (true)
 
-        // if flag is set use commit_one_phase (old style), otherwise use commit
-        boolean commit_one_phase = getCommitOnePhaseDuringRecovery();
-        for (int i = 0; i < otsResources.size(); i++) {
-            OTSResourceImpl otsResource = (OTSResourceImpl) otsResources.elementAt(i);
-            GlobalTID globalTID = new GlobalTID(otsResource.getGlobalTID());
-            synchronized (inCompleteTxMap) {
-                Enumeration e = inCompleteTxMap.keys();
-                while (e.hasMoreElements()) {
-                    CoordinatorImpl cImpl = (CoordinatorImpl) e.nextElement();
-                    GlobalTID gTID = new GlobalTID(cImpl.getGlobalTID());
-                    if (gTID.equals(globalTID)) {
-                        Boolean commit = (Boolean) inCompleteTxMap.get(cImpl);
-                        boolean infiniteRetry = true;
-                        int commitRetries = Configuration.getRetries();
-                        if (commitRetries >= 0)
-                            infiniteRetry = false;
-                        int commitRetriesLeft = commitRetries;
-                        boolean exceptionisThrown = true;
-                        while (exceptionisThrown) {
-                            try {
-                                if (commit.booleanValue()) {
-                                    if (commit_one_phase) {
-                                        otsResource.commit_one_phase();
-                                    } else {
-                                        otsResource.commit();
-                                    }
-                                    if (_logger.isLoggable(FINE)) {
-                                        _logger.logp(FINE, "RecoveryManager", "recoverIncompleteTx", " committed  " + otsResource);
-                                    }
-
-                                } else {
-                                    otsResource.rollback();
-                                    if (_logger.isLoggable(FINE)) {
-                                        _logger.logp(FINE, "RecoveryManager", "recoverIncompleteTx", " rolled back  " + otsResource);
-                                    }
-
-                                }
-                                exceptionisThrown = false;
-                            } catch (Throwable exc) {
-                                if ((exc instanceof COMM_FAILURE) || (exc instanceof TRANSIENT)) {
-                                    if (commitRetriesLeft > 0 || infiniteRetry) {
-                                        // For TRANSIENT or COMM_FAILURE, wait
-                                        // for a while, then retry the commit.
-                                        if (!infiniteRetry) {
-                                            commitRetriesLeft--;
-                                        }
-                                        try {
-                                            Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
-                                        } catch (Throwable iex) {
-                                        }
-                                    } else {
-                                        _logger.log(Level.WARNING, "jts.exception_during_resync", new java.lang.Object[] { exc.toString(),
-                                                "OTSResource " + ((commit.booleanValue()) ? "commit" : "rollback") });
-                                        exceptionisThrown = false;
-                                    }
-                                } else {
-                                    _logger.log(Level.WARNING, "jts.exception_during_resync", new java.lang.Object[] { exc.toString(),
-                                            "OTSResource " + ((commit.booleanValue()) ? "commit" : "rollback") });
-                                    exceptionisThrown = false;
-                                }
-                            }
-                        }
+                } else {
+                    otsResource.rollback();
+                    if (_logger.isLoggable(FINE)) {
+                        _logger.logp(FINE, "RecoveryManager", "recoverIncompleteTx", " rolled back  " + otsResource);
                     }
+
                 }
-            }
-        }
+            }, "OTSResource " + (commit ? "commit" : "rollback"));
+        });
     }
 
     static void createRecoveryFile(String serverName) {
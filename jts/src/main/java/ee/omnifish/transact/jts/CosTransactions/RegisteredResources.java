@@ -34,6 +34,7 @@ import static java.util.logging.Level.FINER;
 import static java.util.logging.Level.WARNING;
 
 import java.util.ArrayList;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -351,18 +352,39 @@ class RegisteredResources {
      * @throws HeuristicHazard Indicates that a participant voted to roll the transaction back, but one or more others
      * may have already heuristically committed.
      */
+    @SuppressWarnings("unchecked")
     Vote distributePrepare() throws HeuristicMixed, HeuristicHazard {
         Vote result = Vote.VoteReadOnly;
         int laoIndex = -1;
         boolean rmErr = false;
 
+        // In parallel mode, all participants are asked to prepare at once, and the votes are
+        // then consolidated in registration order as below. Every vote is recorded, so that
+        // participants voting read-only are not sent a rollback if another one votes to roll
+        // back. The last agent commit depends on the votes of all other participants, so it
+        // always prepares sequentially.
+
+        FutureTask<PrepareReply>[] replies = null;
+        boolean[] proxies = null;
+        if (nRes > 1 && !lastXAResCommit && ResourceCallExecutor.isEnabled()) {
+            replies = new FutureTask[nRes];
+            proxies = new boolean[nRes];
+            for (int i = 0; i < nRes; i++) {
+                Resource currResource = (Resource) resourceObjects.get(i);
+                proxies[i] = isProxy(currResource);
+                replies[i] = ResourceCallExecutor.submit(() -> prepare(currResource));
+            }
+        }
+
+        int heuristicIndex = -1;
+        Throwable heuristicExc = null;
+
         // Browse through the participants, preparing them, and obtain
-        // a consolidated result. The following is intended to be done
-        // asynchronously as a group of perations, however if done
-        // sequentially, it should stop after the first rollback vote.
+        // a consolidated result. If done sequentially, it should stop
+        // after the first rollback vote.
         // If there are no Resource references, return the a read-only vote.
 
-        for (int i = 0; i < nRes && result != Vote.VoteRollback; i++) {
+        for (int i = 0; i < nRes && (result != Vote.VoteRollback || replies != null); i++) {
             boolean isProxy = false;
             Resource currResource = (Resource) resourceObjects.get(i);
 
@@ -391,21 +413,15 @@ class RegisteredResources {
             // String crid = CoordinatorResourceHelper.id();
             // boolean isSubordinate = currResource._is_a( crid );
 
-            // COMMENT(Ram J) the instanceof operation should be replaced
-            // by a is_local() call, once the local object contract is
-            // implemented.
-            if (!(currResource instanceof OTSResourceImpl)) {
-                ProxyChecker checkProxy = Configuration.getProxyChecker();
-                isProxy = checkProxy.isProxy(currResource);
-            }
+            isProxy = (replies != null) ? proxies[i] : isProxy(currResource);
 
             Vote currResult = Vote.VoteRollback;
 
-            try {
-                if (_logger.isLoggable(FINER)) {
-                    _logger.logp(FINER, "RegisteredResources", "prepare()", "Before invoking prepare() on resource:" + currResource);
-                }
-                currResult = currResource.prepare();
+            PrepareReply reply = (replies != null) ? ResourceCallExecutor.await(replies[i]) : prepare(currResource);
+
+            if (reply.exc == null) {
+                currResult = reply.vote;
+
                 // Mark this resource as LA if vote is null
                 if (currResult == null) {
                     if (_logger.isLoggable(FINER)) {
@@ -416,56 +432,30 @@ class RegisteredResources {
                     laoIndex = i;
                     continue;
                 }
-                if (_logger.isLoggable(FINER)) {
-                    _logger.logp(FINER, "RegisteredResources", "prepare()",
-                            "After invoking prepare() on resource:" + currResource + ";This resource voted : " + currResult);
-                }
-            } catch (Throwable exc) {
+            } else {
+                Throwable exc = reply.exc;
 
                 // If a heuristic exception is thrown, this is because the
                 // Resource represents a subordinate which is voting to
                 // rollback; one of its Resources voted to roll back after
                 // others had voted to commit, and one of the commit voters
                 // then raised a heuristic exception when told to roll back.
-                // In this situation, we need to go back through all Resources
-                // and try to roll them back, not including the one
-                // which raised the exception.
+                // In parallel mode the remaining votes are recorded first.
 
-                boolean hazard = exc instanceof HeuristicHazard;
-                boolean internal = exc instanceof INTERNAL;
-                if (exc instanceof HeuristicMixed || hazard || internal) {
-
-                    if (!internal) {
-                        // Mark the Resource which threw the exception as
-                        // heuristic so that we do not
-                        // try to roll it back, but we do send it a forget.
-
-                        resourceStates.set(i, ResourceStatus.Heuristic);
+                if (exc instanceof HeuristicMixed || exc instanceof HeuristicHazard || exc instanceof INTERNAL) {
+                    if (replies == null) {
+                        prepareFailedHeuristically(i, exc);
                     }
 
-                    try {
-                        distributeRollback(true);
-                    } catch (Throwable ex2) {
-
-                        // If the rollback threw an exception, change
-                        // HeuristicHazard to HeuristicMixed if necessary.
-
-                        if (ex2 instanceof HeuristicMixed && hazard) {
-                            hazard = false;
-                        }
+                    if (!(exc instanceof INTERNAL)) {
+                        resourceStates.set(i, ResourceStatus.Heuristic);
                     }
 
-                    // Now throw the appropriate exception.
-
-                    if (hazard) {
-                        throw (HeuristicHazard) exc;
-                    } else if (internal) {
-                        throw (INTERNAL) exc;
-                    } else if (exc instanceof HeuristicMixed) {
-                        throw (HeuristicMixed) exc;
-                    } else {
-                        throw new HeuristicMixed();
+                    if (heuristicExc == null) {
+                        heuristicIndex = i;
+                        heuristicExc = exc;
                     }
+                    continue;
                 } else if (exc instanceof RuntimeException) {
                     rmErr = true;
                 }
@@ -518,6 +508,10 @@ class RegisteredResources {
             }
         }
 
+        if (heuristicExc != null) {
+            prepareFailedHeuristically(heuristicIndex, heuristicExc);
+        }
+
         if (result == Vote.VoteCommit && laoResource != null) {
             try {
                 if (_logger.isLoggable(FINER)) {
@@ -538,6 +532,83 @@ class RegisteredResources {
         return result;
     }
 
+    /**
+     * Asks the given Resource to prepare.
+     * <p>
+     * This method does not change the state of the RegisteredResources, so it may be run on a different thread in parallel
+     * mode.
+     *
+     * @param currResource The Resource to prepare.
+     *
+     * @return The vote of the Resource, or the exception it raised.
+     */
+    private PrepareReply prepare(Resource currResource) {
+        PrepareReply reply = new PrepareReply();
+        try {
+            if (_logger.isLoggable(FINER)) {
+                _logger.logp(FINER, "RegisteredResources", "prepare()", "Before invoking prepare() on resource:" + currResource);
+            }
+            reply.vote = currResource.prepare();
+            if (reply.vote != null && _logger.isLoggable(FINER)) {
+                _logger.logp(FINER, "RegisteredResources", "prepare()",
+                        "After invoking prepare() on resource:" + currResource + ";This resource voted : " + reply.vote);
+            }
+        } catch (Throwable exc) {
+            reply.exc = exc;
+        }
+
+        return reply;
+    }
+
+    /**
+     * Handles a heuristic exception raised by a Resource on prepare.
+     * <p>
+     * We need to go back through all Resources and try to roll them back, not including the one which raised the
+     * exception, and then throw the appropriate exception.
+     *
+     * @param i The index of the Resource which raised the exception.
+     * @param exc The exception it raised.
+     *
+     * @throws HeuristicMixed
+     * @throws HeuristicHazard
+     */
+    private void prepareFailedHeuristically(int i, Throwable exc) throws HeuristicMixed, HeuristicHazard {
+        boolean hazard = exc instanceof HeuristicHazard;
+        boolean internal = exc instanceof INTERNAL;
+
+        if (!internal) {
+            // Mark the Resource which threw the exception as
+            // heuristic so that we do not
+            // try to roll it back, but we do send it a forget.
+
+            resourceStates.set(i, ResourceStatus.Heuristic);
+        }
+
+        try {
+            distributeRollback(true);
+        } catch (Throwable ex2) {
+
+            // If the rollback threw an exception, change
+            // HeuristicHazard to HeuristicMixed if necessary.
+
+            if (ex2 instanceof HeuristicMixed && hazard) {
+                hazard = false;
+            }
+        }
+
+        // Now throw the appropriate exception.
+
+        if (hazard) {
+            throw (HeuristicHazard) exc;
+        } else if (internal) {
+            throw (INTERNAL) exc;
+        } else if (exc instanceof HeuristicMixed) {
+            throw (HeuristicMixed) exc;
+        } else {
+            throw new HeuristicMixed();
+        }
+    }
+
     Resource getLAOResource() {
         return laoResource;
     }
@@ -552,14 +623,16 @@ class RegisteredResources {
      * All Resources in the heuristic state are then told to forget, their state is set to completed, and the CoordinatorLog
      * object is forced to the physical log.
      *
-     * @param
+     * @param backoff Indicates that Resources which cannot be reached are retried with the growing waits of the
+     * CommitCompletionService rather than every COMMIT_RETRY_WAIT.
      *
      * @exception HeuristicMixed Indicates that heuristic decisions have been taken which have resulted in part of the
      * transaction being rolled back.
      * @exception HeuristicHazard Indicates that heuristic decisions may have been taken which have resulted in part of the
      * transaction being rolled back.
      */
-    void distributeCommit() throws HeuristicMixed, HeuristicHazard, NotPrepared {
+    @SuppressWarnings("unchecked")
+    void distributeCommit(boolean backoff) throws HeuristicMixed, HeuristicHazard, NotPrepared {
         boolean infiniteRetry = true;
 
         boolean heuristicException = false;
@@ -581,8 +654,25 @@ class RegisteredResources {
             infiniteRetry = false;
         }
 
-        // Browse through the participants, committing them. The following is
-        // intended to be done asynchronously as a group of operations.
+        // Browse through the participants, committing them. In parallel mode
+        // commit is sent to all of them at once, and the outcomes are then
+        // processed in registration order.
+
+        FutureTask<Throwable>[] replies = null;
+        boolean[] proxies = null;
+        if (nRes > 1 && ResourceCallExecutor.isEnabled()) {
+            boolean infinite = infiniteRetry;
+            replies = new FutureTask[nRes];
+            proxies = new boolean[nRes];
+            for (int i = 0; i < nRes; i++) {
+                Resource currResource = (Resource) resourceObjects.get(i);
+                if ((ResourceStatus) resourceStates.get(i) == ResourceStatus.Registered) {
+                    proxies[i] = isProxy(currResource);
+                    resourceStates.set(i, ResourceStatus.Completing);
+                    replies[i] = ResourceCallExecutor.submit(() -> commit(currResource, commitRetries, infinite, backoff));
+                }
+            }
+        }
 
         boolean transactionCompleted = true;
         String msg = null;
@@ -593,135 +683,104 @@ class RegisteredResources {
             // If the current Resource in the browse is not in the registered
             // state, skip over it.
 
-            if ((ResourceStatus) resourceStates.get(i) == ResourceStatus.Registered) {
+            if ((replies != null) ? replies[i] != null : (ResourceStatus) resourceStates.get(i) == ResourceStatus.Registered) {
 
                 boolean heuristicRaised = false;
+                Throwable exc;
 
-                // We determine here whether the object is a proxy because the
-                // object may not exist when the commit returns.
+                if (replies != null) {
+                    isProxy = proxies[i];
+                    exc = ResourceCallExecutor.await(replies[i]);
+                } else {
 
-                // COMMENT(Ram J) the instanceof operation should be replaced
-                // by a is_local() call, once the local object contract is
-                // implemented.
-                if (!(currResource instanceof ee.omnifish.transact.jts.jtsxa.OTSResourceImpl)) {
-                    ProxyChecker checkProxy = Configuration.getProxyChecker();
-                    isProxy = checkProxy.isProxy(currResource);
-                }
+                    // We determine here whether the object is a proxy because the
+                    // object may not exist when the commit returns.
 
-                // Change the current Resource's state to completing.
+                    isProxy = isProxy(currResource);
 
-                resourceStates.set(i, ResourceStatus.Completing);
+                    // Change the current Resource's state to completing.
 
-                // Tell the resource to commit.
-                // Catch any exceptions here; keep going until
-                // no exception is left.
+                    resourceStates.set(i, ResourceStatus.Completing);
 
-                int commitRetriesLeft = commitRetries;
-                boolean exceptionThrown = true;
-                while (exceptionThrown) {
-                    try {
-                        if (_logger.isLoggable(FINER)) {
-                            _logger.logp(FINER, "RegisteredResources", "distributeCommit()",
-                                    "Before invoking commit on resource = " + currResource);
-                        }
-                        currResource.commit();
-                        if (_logger.isLoggable(FINER)) {
-                            _logger.logp(FINER, "RegisteredResources", "distributeCommit()",
-                                    "After invoking commit on resource = " + currResource);
-                        }
-                        exceptionThrown = false;
-                    } catch (Throwable exc) {
+                    // Tell the resource to commit.
 
-                        if (exc instanceof HeuristicCommit ||
-                        // Work around the fact that org.omg.CosTransactions.ResourceOperations#commit
-                        // does not declare HeuristicCommit exception
-                                (exc instanceof HeuristicHazard && exc.getCause() instanceof XAException
-                                        && ((XAException) exc.getCause()).errorCode == XAException.XA_HEURCOM)) {
+                    exc = commit(currResource, commitRetries, infiniteRetry, backoff);
+                }
 
-                            // If the exception is Heuristic Commit, remember
-                            // that a heuristic exception has been raised.
-                            heuristicException = true;
-                            heuristicRaised = true;
-                            heuristicMixed = true;
-                            exceptionThrown = false;
-                            heuristicCommit++;
+                if (exc == null) {
 
-                        } else if (exc instanceof HeuristicRollback || exc instanceof HeuristicHazard || exc instanceof HeuristicMixed) {
-                            // If the exception is Heuristic Rollback,
-                            // Mixed or Hazard, remember that a heuristic
-                            // exception has been raised, and also that
-                            // damage has occurred.
+                    // The resource committed.
 
-                            heuristicException = true;
-                            if (exc instanceof HeuristicRollback) {
-                                heuristicRollback++;
-                            }
-                            heuristicMixed = !(exc instanceof HeuristicHazard);
-                            heuristicRaised = true;
-                            exceptionThrown = false;
+                } else if (exc instanceof HeuristicCommit ||
+                // Work around the fact that org.omg.CosTransactions.ResourceOperations#commit
+                // does not declare HeuristicCommit exception
+                        (exc instanceof HeuristicHazard && exc.getCause() instanceof XAException
+                                && ((XAException) exc.getCause()).errorCode == XAException.XA_HEURCOM)) {
 
-                        } else if (exc instanceof INV_OBJREF || exc instanceof OBJECT_NOT_EXIST) {
+                    // If the exception is Heuristic Commit, remember
+                    // that a heuristic exception has been raised.
+                    heuristicException = true;
+                    heuristicRaised = true;
+                    heuristicMixed = true;
+                    heuristicCommit++;
 
-                            // If the exception is INV_OBJREF, then the target
-                            // Resource object must have already committed.
-                            exceptionThrown = false;
+                } else if (exc instanceof HeuristicRollback || exc instanceof HeuristicHazard || exc instanceof HeuristicMixed) {
+                    // If the exception is Heuristic Rollback,
+                    // Mixed or Hazard, remember that a heuristic
+                    // exception has been raised, and also that
+                    // damage has occurred.
 
-                        } else if (exc instanceof NotPrepared) {
-
-                            // If the exception is NotPrepared, then the target
-                            // Resource has not recorded the fact that it has
-                            // been called for prepare, or some internal glitch
-                            // has happened inside the RegisteredResources /
-                            // TopCoordinator. In this case the only sensible
-                            // action is to end the process with a fatal error
-                            // message.
-                            _logger.log(Level.SEVERE, "jts.exception_on_resource_operation",
-                                    new java.lang.Object[] { exc.toString(), "commit" });
-
-                            throw (NotPrepared) exc;
-                            /**
-                             * msg = LogFormatter.getLocalizedMessage(_logger, "jts.exception_on_resource_operation", new java.lang.Object[]
-                             * {exc.toString(), "commit"}); throw new org.omg.CORBA.INTERNAL(msg);
-                             **/
-                        } else if (!(exc instanceof TRANSIENT) && !(exc instanceof COMM_FAILURE)) {
-                            // If the exception is neither TRANSIENT or
-                            // COMM_FAILURE, it is unexpected, so display a
-                            // message and give up with this Resource.
+                    heuristicException = true;
+                    if (exc instanceof HeuristicRollback) {
+                        heuristicRollback++;
+                    }
+                    heuristicMixed = !(exc instanceof HeuristicHazard);
+                    heuristicRaised = true;
 
-                            // $ CHECK WITH DSOM FOLKS FOR OTHER EXCEPTIONS
-                            _logger.log(Level.SEVERE, "jts.exception_on_resource_operation",
-                                    new java.lang.Object[] { exc.toString(), "commit" });
+                } else if (exc instanceof INV_OBJREF || exc instanceof OBJECT_NOT_EXIST) {
 
-                            exceptionThrown = false;
-                            transactionCompleted = false;
-                            msg = LogFormatter.getLocalizedMessage(_logger, "jts.exception_on_resource_operation",
-                                    new java.lang.Object[] { exc.toString(), "commit" });
+                    // If the exception is INV_OBJREF, then the target
+                    // Resource object must have already committed.
 
-                        } else if (commitRetriesLeft > 0 || infiniteRetry) {
+                } else if (exc instanceof NotPrepared) {
 
-                            // For TRANSIENT or COMM_FAILURE, wait
-                            // for a while, then retry the commit.
-                            if (!infiniteRetry) {
-                                commitRetriesLeft--;
-                            }
+                    // If the exception is NotPrepared, then the target
+                    // Resource has not recorded the fact that it has
+                    // been called for prepare, or some internal glitch
+                    // has happened inside the RegisteredResources /
+                    // TopCoordinator. In this case the only sensible
+                    // action is to end the process with a fatal error
+                    // message.
+                    _logger.log(Level.SEVERE, "jts.exception_on_resource_operation",
+                            new java.lang.Object[] { exc.toString(), "commit" });
 
-                            try {
-                                Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
-                            } catch (Throwable e) {
-                            }
+                    throw (NotPrepared) exc;
+                    /**
+                     * msg = LogFormatter.getLocalizedMessage(_logger, "jts.exception_on_resource_operation", new java.lang.Object[]
+                     * {exc.toString(), "commit"}); throw new org.omg.CORBA.INTERNAL(msg);
+                     **/
+                } else if (!(exc instanceof TRANSIENT) && !(exc instanceof COMM_FAILURE)) {
+                    // If the exception is neither TRANSIENT or
+                    // COMM_FAILURE, it is unexpected, so display a
+                    // message and give up with this Resource.
 
-                        } else {
+                    // $ CHECK WITH DSOM FOLKS FOR OTHER EXCEPTIONS
+                    _logger.log(Level.SEVERE, "jts.exception_on_resource_operation",
+                            new java.lang.Object[] { exc.toString(), "commit" });
 
-                            // If the retry limit has been exceeded,
-                            // end the process with a fatal error.
-                            _logger.log(Level.SEVERE, "jts.retry_limit_exceeded", new java.lang.Object[] { commitRetries, "commit" });
+                    transactionCompleted = false;
+                    msg = LogFormatter.getLocalizedMessage(_logger, "jts.exception_on_resource_operation",
+                            new java.lang.Object[] { exc.toString(), "commit" });
 
-                            exceptionThrown = false;
-                            transactionCompleted = false;
-                            msg = LogFormatter.getLocalizedMessage(_logger, "jts.retry_limit_exceeded",
-                                    new java.lang.Object[] { commitRetries, "commit" });
-                        }
-                    }
+                } else {
+
+                    // If the retry limit has been exceeded,
+                    // end the process with a fatal error.
+                    _logger.log(Level.SEVERE, "jts.retry_limit_exceeded", new java.lang.Object[] { commitRetries, "commit" });
+
+                    transactionCompleted = false;
+                    msg = LogFormatter.getLocalizedMessage(_logger, "jts.retry_limit_exceeded",
+                            new java.lang.Object[] { commitRetries, "commit" });
                 }
 
                 if (heuristicRaised) {
@@ -802,6 +861,7 @@ class RegisteredResources {
      * transaction being rolled back.
      *
      */
+    @SuppressWarnings("unchecked")
     void distributeRollback(boolean heuristicException) throws HeuristicMixed, HeuristicHazard {
 
         boolean infiniteRetry = true;
@@ -824,8 +884,25 @@ class RegisteredResources {
             infiniteRetry = false;
         }
 
-        // Browse through the participants, committing them. The following is
-        // intended to be done asynchronously as a group of operations.
+        // Browse through the participants, rolling them back. In parallel mode
+        // rollback is sent to all of them at once, and the outcomes are then
+        // processed in registration order.
+
+        FutureTask<Throwable>[] replies = null;
+        boolean[] proxies = null;
+        if (nRes > 1 && ResourceCallExecutor.isEnabled()) {
+            boolean infinite = infiniteRetry;
+            replies = new FutureTask[nRes];
+            proxies = new boolean[nRes];
+            for (int i = 0; i < nRes; i++) {
+                Resource currResource = (Resource) resourceObjects.get(i);
+                if (resourceStates.get(i).equals(ResourceStatus.Registered)) {
+                    proxies[i] = isProxy(currResource);
+                    resourceStates.set(i, ResourceStatus.Completing);
+                    replies[i] = ResourceCallExecutor.submit(() -> rollback(currResource, commitRetries, infinite));
+                }
+            }
+        }
 
         boolean transactionCompleted = true;
         String msg = null;
@@ -836,126 +913,89 @@ class RegisteredResources {
             // If the current Resource in the browse is not in the registered
             // state, skip over it.
 
-            if (resourceStates.get(i).equals(ResourceStatus.Registered)) {
+            if ((replies != null) ? replies[i] != null : resourceStates.get(i).equals(ResourceStatus.Registered)) {
                 processed++;
                 boolean heuristicRaised = false;
+                Throwable exc;
 
-                // We determine here whether the object is a proxy because
-                // the object may not exist when the commit returns.
-
-                // COMMENT(Ram J) the instanceof operation should be replaced
-                // by a is_local() call, once the local object contract is
-                // implemented.
-                if (!(currResource instanceof ee.omnifish.transact.jts.jtsxa.OTSResourceImpl)) {
-                    ProxyChecker checkProxy = Configuration.getProxyChecker();
-                    isProxy = checkProxy.isProxy(currResource);
-                }
-
-                // Change the current Resource's state to completing.
-
-                resourceStates.set(i, ResourceStatus.Completing);
-
-                // Tell the resource to commit.
-                // Catch any exceptions here; keep going
-                // until no exception is left.
-
-                int rollbackRetriesLeft = commitRetries;
-                boolean exceptionThrown = true;
-                while (exceptionThrown) {
-                    try {
-                        if (_logger.isLoggable(FINER)) {
-                            _logger.logp(FINER, "RegisteredResources", "distributeRollback()",
-                                    "Before invoking rollback on resource = " + currResource);
-                        }
-                        currResource.rollback();
-                        if (_logger.isLoggable(FINER)) {
-                            _logger.logp(FINER, "RegisteredResources", "distributeRollback()",
-                                    "After invoking rollback on resource = " + currResource);
-                        }
-                        exceptionThrown = false;
-                    } catch (Throwable exc) {
+                if (replies != null) {
+                    isProxy = proxies[i];
+                    exc = ResourceCallExecutor.await(replies[i]);
+                } else {
 
-                        if (exc instanceof TRANSACTION_ROLLEDBACK) {
+                    // We determine here whether the object is a proxy because
+                    // the object may not exist when the commit returns.
 
-                            // If the exception is TRANSACTION_ROLLED back,
-                            // then continue.
-                            exceptionThrown = false;
+                    isProxy = isProxy(currResource);
 
-                        } else if (exc instanceof HeuristicRollback) {
+                    // Change the current Resource's state to completing.
 
-                            // If the exception is Heuristic Rollback,
-                            // remember that a heuristic exception
-                            // has been raised.
-                            heuristicException = true;
-                            heuristicRaised = true;
-                            exceptionThrown = false;
-                            heuristicRollback++;
+                    resourceStates.set(i, ResourceStatus.Completing);
 
-                        } else if (exc instanceof HeuristicCommit || exc instanceof HeuristicHazard || exc instanceof HeuristicMixed) {
+                    // Tell the resource to rollback.
 
-                            // If the exception is Heuristic Rollback, Mixed
-                            // or Hazard, remember that a heuristic exception
-                            // has been raised, and also that damage has
-                            // occurred.
-                            heuristicException = true;
-                            heuristicMixed = !(exc instanceof HeuristicHazard);
-                            heuristicRaised = true;
-                            exceptionThrown = false;
-
-                            // Work around the fact that org.omg.CosTransactions.ResourceOperations#rollback
-                            // does not declare HeuristicRollback exception
-                            if (exc instanceof HeuristicHazard && exc.getCause() instanceof XAException
-                                    && ((XAException) exc.getCause()).errorCode == XAException.XA_HEURRB) {
-                                heuristicRollback++;
-                            }
+                    exc = rollback(currResource, commitRetries, infiniteRetry);
+                }
 
-                        } else if (exc instanceof INV_OBJREF || exc instanceof OBJECT_NOT_EXIST) {
+                if (exc == null || exc instanceof TRANSACTION_ROLLEDBACK) {
 
-                            // GDH added NOT_EXIST
-                            // If the exception is INV_OBJREF, then the target
-                            // Resource object must have already rolled back.
-                            exceptionThrown = false;
+                    // If the exception is TRANSACTION_ROLLED back,
+                    // then continue.
 
-                        } else if (!(exc instanceof TRANSIENT) && !(exc instanceof COMM_FAILURE)) {
+                } else if (exc instanceof HeuristicRollback) {
 
-                            // If the exception is neither TRANSIENT or
-                            // COMM_FAILURE, it is unexpected, so display
-                            // a message and give up with this Resource.
-                            _logger.log(Level.SEVERE, "jts.exception_on_resource_operation",
-                                    new java.lang.Object[] { exc.toString(), "rollback" });
+                    // If the exception is Heuristic Rollback,
+                    // remember that a heuristic exception
+                    // has been raised.
+                    heuristicException = true;
+                    heuristicRaised = true;
+                    heuristicRollback++;
+
+                } else if (exc instanceof HeuristicCommit || exc instanceof HeuristicHazard || exc instanceof HeuristicMixed) {
+
+                    // If the exception is Heuristic Rollback, Mixed
+                    // or Hazard, remember that a heuristic exception
+                    // has been raised, and also that damage has
+                    // occurred.
+                    heuristicException = true;
+                    heuristicMixed = !(exc instanceof HeuristicHazard);
+                    heuristicRaised = true;
+
+                    // Work around the fact that org.omg.CosTransactions.ResourceOperations#rollback
+                    // does not declare HeuristicRollback exception
+                    if (exc instanceof HeuristicHazard && exc.getCause() instanceof XAException
+                            && ((XAException) exc.getCause()).errorCode == XAException.XA_HEURRB) {
+                        heuristicRollback++;
+                    }
 
-                            msg = LogFormatter.getLocalizedMessage(_logger, "jts.exception_on_resource_operation",
-                                    new java.lang.Object[] { exc.toString(), "rollback" });
-                            exceptionThrown = false;
-                            transactionCompleted = false;
+                } else if (exc instanceof INV_OBJREF || exc instanceof OBJECT_NOT_EXIST) {
 
-                        } else if (rollbackRetriesLeft > 0 || infiniteRetry) {
+                    // GDH added NOT_EXIST
+                    // If the exception is INV_OBJREF, then the target
+                    // Resource object must have already rolled back.
 
-                            // For TRANSIENT or COMM_FAILURE, wait for a while,
-                            // then retry the rollback.
+                } else if (!(exc instanceof TRANSIENT) && !(exc instanceof COMM_FAILURE)) {
 
-                            if (!infiniteRetry) {
-                                rollbackRetriesLeft--;
-                            }
+                    // If the exception is neither TRANSIENT or
+                    // COMM_FAILURE, it is unexpected, so display
+                    // a message and give up with this Resource.
+                    _logger.log(Level.SEVERE, "jts.exception_on_resource_operation",
+                            new java.lang.Object[] { exc.toString(), "rollback" });
 
-                            try {
-                                Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
-                            } catch (Throwable e) {
-                            }
+                    msg = LogFormatter.getLocalizedMessage(_logger, "jts.exception_on_resource_operation",
+                            new java.lang.Object[] { exc.toString(), "rollback" });
+                    transactionCompleted = false;
 
-                        } else {
+                } else {
 
-                            // If the retry limit has been exceeded, end the
-                            // process with a fatal error.
-                            _logger.log(Level.SEVERE, "jts.retry_limit_exceeded", new java.lang.Object[] { commitRetries, "rollback" });
+                    // If the retry limit has been exceeded, end the
+                    // process with a fatal error.
+                    _logger.log(Level.SEVERE, "jts.retry_limit_exceeded", new java.lang.Object[] { commitRetries, "rollback" });
 
-                            msg = LogFormatter.getLocalizedMessage(_logger, "jts.retry_limit_exceeded",
-                                    new java.lang.Object[] { commitRetries, "rollback" });
+                    msg = LogFormatter.getLocalizedMessage(_logger, "jts.retry_limit_exceeded",
+                            new java.lang.Object[] { commitRetries, "rollback" });
 
-                            exceptionThrown = false;
-                            transactionCompleted = false;
-                        }
-                    }
+                    transactionCompleted = false;
                 }
 
                 if (heuristicRaised) {
@@ -1010,6 +1050,117 @@ class RegisteredResources {
         // Otherwise just return normally.
     }
 
+    /**
+     * Tells the given Resource to commit, retrying on TRANSIENT and COMM_FAILURE exceptions.
+     * <p>
+     * This method does not change the state of the RegisteredResources, so it may be run on a different thread in parallel
+     * mode.
+     *
+     * @param currResource The Resource to commit.
+     * @param commitRetries The number of times to retry, each after COMMIT_RETRY_WAIT.
+     * @param infiniteRetry Indicates infinite retry.
+     * @param backoff Indicates that the waits between retries start short and grow, within the same total time.
+     *
+     * @return null if the Resource committed, otherwise the last exception it raised.
+     */
+    private Throwable commit(Resource currResource, int commitRetries, boolean infiniteRetry, boolean backoff) {
+        long retryTimeLeft = commitRetries * Configuration.COMMIT_RETRY_WAIT;
+        for (int retry = 0;; retry++) {
+            try {
+                if (_logger.isLoggable(FINER)) {
+                    _logger.logp(FINER, "RegisteredResources", "distributeCommit()", "Before invoking commit on resource = " + currResource);
+                }
+                currResource.commit();
+                if (_logger.isLoggable(FINER)) {
+                    _logger.logp(FINER, "RegisteredResources", "distributeCommit()", "After invoking commit on resource = " + currResource);
+                }
+                return null;
+            } catch (Throwable exc) {
+                if ((exc instanceof TRANSIENT || exc instanceof COMM_FAILURE) && (retryTimeLeft > 0 || infiniteRetry)) {
+
+                    // For TRANSIENT or COMM_FAILURE, wait
+                    // for a while, then retry the commit.
+                    long wait = backoff ? CommitCompletionService.getRetryWait(retry) : Configuration.COMMIT_RETRY_WAIT;
+                    if (!infiniteRetry) {
+                        wait = Math.min(wait, retryTimeLeft);
+                        retryTimeLeft -= wait;
+                    }
+
+                    try {
+                        Thread.sleep(wait);
+                    } catch (Throwable e) {
+                    }
+                } else {
+                    return exc;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells the given Resource to roll back, retrying on TRANSIENT and COMM_FAILURE exceptions.
+     * <p>
+     * This method does not change the state of the RegisteredResources, so it may be run on a different thread in parallel
+     * mode.
+     *
+     * @param currResource The Resource to roll back.
+     * @param commitRetries The number of times to retry.
+     * @param infiniteRetry Indicates infinite retry.
+     *
+     * @return null if the Resource rolled back, otherwise the last exception it raised.
+     */
+    private Throwable rollback(Resource currResource, int commitRetries, boolean infiniteRetry) {
+        int rollbackRetriesLeft = commitRetries;
+        while (true) {
+            try {
+                if (_logger.isLoggable(FINER)) {
+                    _logger.logp(FINER, "RegisteredResources", "distributeRollback()", "Before invoking rollback on resource = " + currResource);
+                }
+                currResource.rollback();
+                if (_logger.isLoggable(FINER)) {
+                    _logger.logp(FINER, "RegisteredResources", "distributeRollback()", "After invoking rollback on resource = " + currResource);
+                }
+                return null;
+            } catch (Throwable exc) {
+                if ((exc instanceof TRANSIENT || exc instanceof COMM_FAILURE) && (rollbackRetriesLeft > 0 || infiniteRetry)) {
+
+                    // For TRANSIENT or COMM_FAILURE, wait for a while,
+                    // then retry the rollback.
+                    if (!infiniteRetry) {
+                        rollbackRetriesLeft--;
+                    }
+
+                    try {
+                        Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
+                    } catch (Throwable e) {
+                    }
+                } else {
+                    return exc;
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines whether the given Resource is a proxy.
+     *
+     * @param currResource The Resource.
+     *
+     * @return Indicates whether the Resource is a proxy.
+     */
+    private static boolean isProxy(Resource currResource) {
+
+        // COMMENT(Ram J) the instanceof operation should be replaced
+        // by a is_local() call, once the local object contract is
+        // implemented.
+        if (!(currResource instanceof OTSResourceImpl)) {
+            ProxyChecker checkProxy = Configuration.getProxyChecker();
+            return checkProxy.isProxy(currResource);
+        }
+
+        return false;
+    }
+
     /**
      * Distributes forget messages to all Resources in the heuristic state.
      * <p>
@@ -1474,4 +1625,12 @@ class RegisteredResources {
         // Otherwise just return normally.
     }
 
+
+    /**
+     * The reply of a Resource to prepare.
+     */
+    private static final class PrepareReply {
+        Vote vote;
+        Throwable exc;
+    }
 }
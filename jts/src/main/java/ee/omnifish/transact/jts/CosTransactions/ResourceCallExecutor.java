@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Calls the participants of a transaction in parallel for the parallel two phase commit mode of RegisteredResources.
+ * <p>
+ * Calls are run on a bounded pool of daemon threads with a bounded queue. A call which does not fit in the queue is not
+ * queued at all. The thread that waits for a call which has not been started yet runs it itself, so a caller always makes
+ * progress, even when the pool is saturated or when a participant is a subordinate coordinator that distributes to its
+ * own participants on the same pool.
+ * <p>
+ * A call runs with the context class loader of the thread that submitted it, as it would if the caller made it itself.
+ */
+class ResourceCallExecutor {
+
+    static Logger _logger = Logger.getLogger(ResourceCallExecutor.class.getName());
+
+    private static final int DEFAULT_THREADS = 32;
+    static final int QUEUE_CAPACITY = 1024;
+
+    private static volatile Boolean enabled;
+    private static ThreadPoolExecutor executor;
+
+    /**
+     * Determines whether parallel two phase commit has been enabled.
+     *
+     * @return true if participants should be called in parallel.
+     */
+    static boolean isEnabled() {
+        Boolean result = enabled;
+        if (result == null) {
+            result = "true".equalsIgnoreCase(Configuration.getPropertyValue(Configuration.PARALLEL_COMPLETION));
+            enabled = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Starts the given call on the pool.
+     *
+     * @param call The call to a participant.
+     *
+     * @return The pending call, to be passed to {@link #await}.
+     */
+    static <T> FutureTask<T> submit(Callable<T> call) {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        FutureTask<T> task = new FutureTask<>(() -> {
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextClassLoader);
+            try {
+                return call.call();
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        });
+        try {
+            getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            // The queue is full or the pool has been shut down. The task will be run
+            // by the thread awaiting it.
+        }
+
+        return task;
+    }
+
+    /**
+     * Waits for the result of the given call, running it on the current thread if no pool thread has picked it up yet.
+     *
+     * @param task The pending call.
+     *
+     * @return The result of the call.
+     */
+    static <T> T await(FutureTask<T> task) {
+        task.run();
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // The calls catch every Throwable from the participant themselves.
+                    throw new org.omg.CORBA.INTERNAL(e.getCause().toString());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Discards the settings read from the configuration, so that they are read again when they are next needed. A pool
+     * which has already been started completes the calls it has been given and then ends.
+     */
+    static synchronized void reconfigure() {
+        enabled = null;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            int threads = DEFAULT_THREADS;
+            String threadsValue = Configuration.getPropertyValue(Configuration.PARALLEL_COMPLETION_THREADS);
+            if (threadsValue != null) {
+                try {
+                    threads = Math.max(1, Integer.parseInt(threadsValue));
+                } catch (NumberFormatException e) {
+                    _logger.warning("Invalid value " + threadsValue + " for " + Configuration.PARALLEL_COMPLETION_THREADS);
+                }
+            }
+
+            executor = new ThreadPoolExecutor(threads, threads, 60, SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), new CallThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        return executor;
+    }
+
+    private static final class CallThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "JTS Resource Call Thread " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
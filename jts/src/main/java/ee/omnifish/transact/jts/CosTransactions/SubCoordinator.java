@@ -97,10 +97,11 @@ class SubCoordinator extends CoordinatorImpl {
     SuperiorInfo superInfo;
     NestingInfo nestingInfo;
     TransactionState tranState;
-    CompletionHandler terminator;
-    boolean registered;
+    // Read and set without the lock by the accessors
+    volatile CompletionHandler terminator;
+    volatile boolean registered;
     boolean root = true;
-    boolean rollbackOnly;
+    volatile boolean rollbackOnly;
     boolean dying;
     boolean temporary;
     int hash = 0;
@@ -290,68 +291,73 @@ class SubCoordinator extends CoordinatorImpl {
      *
      */
     @Override
-    synchronized public Status get_status() {
+    public Status get_status() {
+        lock.lock();
+        try {
 
-        Status result = Status.StatusUnknown;
+            Status result = Status.StatusUnknown;
 
-        if (tranState != null) {
+            if (tranState != null) {
 
-            switch (tranState.state) {
+                switch (tranState.state) {
 
-            // If active, return active or marked rollback-only
-            // if the flag is set.
+                // If active, return active or marked rollback-only
+                // if the flag is set.
 
-            case TransactionState.STATE_ACTIVE:
-                if (rollbackOnly) {
-                    result = Status.StatusMarkedRollback;
-                } else {
-                    result = Status.StatusActive;
+                case TransactionState.STATE_ACTIVE:
+                    if (rollbackOnly) {
+                        result = Status.StatusMarkedRollback;
+                    } else {
+                        result = Status.StatusActive;
+                    }
+                    break;
+
+                // If prepared, (successfully or otherwise), return prepared.
+                // If committing return prepared (may want to block in this case).
+
+                case TransactionState.STATE_PREPARED_SUCCESS:
+                case TransactionState.STATE_PREPARED_FAIL:
+                case TransactionState.STATE_PREPARED_READONLY:
+                    result = Status.StatusPrepared;
+                    break;
+
+                // If we have no internal state, return that fact.
+                // All of these states map directly to the OMG values.
+
+                case TransactionState.STATE_NONE:
+                    result = Status.StatusNoTransaction;
+                    break;
+                case TransactionState.STATE_PREPARING:
+                    result = Status.StatusPreparing;
+                    break;
+                case TransactionState.STATE_COMMITTING:
+                    result = Status.StatusCommitting;
+                    break;
+                case TransactionState.STATE_COMMITTED:
+                    result = Status.StatusCommitted;
+                    break;
+                case TransactionState.STATE_ROLLING_BACK:
+                    result = Status.StatusRollingBack;
+                    break;
+                case TransactionState.STATE_ROLLED_BACK:
+                    result = Status.StatusRolledBack;
+                    break;
+
+                // Any other state, return unknown.
+
+                default:
+                    result = Status.StatusUnknown;
+                    break;
                 }
-                break;
-
-            // If prepared, (successfully or otherwise), return prepared.
-            // If committing return prepared (may want to block in this case).
-
-            case TransactionState.STATE_PREPARED_SUCCESS:
-            case TransactionState.STATE_PREPARED_FAIL:
-            case TransactionState.STATE_PREPARED_READONLY:
-                result = Status.StatusPrepared;
-                break;
-
-            // If we have no internal state, return that fact.
-            // All of these states map directly to the OMG values.
-
-            case TransactionState.STATE_NONE:
-                result = Status.StatusNoTransaction;
-                break;
-            case TransactionState.STATE_PREPARING:
-                result = Status.StatusPreparing;
-                break;
-            case TransactionState.STATE_COMMITTING:
-                result = Status.StatusCommitting;
-                break;
-            case TransactionState.STATE_COMMITTED:
-                result = Status.StatusCommitted;
-                break;
-            case TransactionState.STATE_ROLLING_BACK:
-                result = Status.StatusRollingBack;
-                break;
-            case TransactionState.STATE_ROLLED_BACK:
-                result = Status.StatusRolledBack;
-                break;
-
-            // Any other state, return unknown.
-
-            default:
-                result = Status.StatusUnknown;
-                break;
+            } else {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
             }
-        } else {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -363,24 +369,29 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception SystemException The parent could not be reached.
      */
     @Override
-    synchronized public Status get_parent_status() throws SystemException {
+    public Status get_parent_status() throws SystemException {
+        lock.lock();
+        try {
 
-        Status result = Status.StatusNoTransaction;
+            Status result = Status.StatusNoTransaction;
 
-        // Return the parents status. If there is none, this is an error;
-        // return no transaction status (may want to raise a LogicError here).
+            // Return the parents status. If there is none, this is an error;
+            // return no transaction status (may want to raise a LogicError here).
 
-        if (tranState != null) {
-            CoordinatorImpl parent = nestingInfo.getParent(false);
-            if (parent != null) {
-                result = parent.get_status();
+            if (tranState != null) {
+                CoordinatorImpl parent = nestingInfo.getParent(false);
+                if (parent != null) {
+                    result = parent.get_status();
+                }
+            } else {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
             }
-        } else {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -392,24 +403,29 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception SystemException The top-level ancestor could not be reached.
      */
     @Override
-    synchronized public Status get_top_level_status() throws SystemException {
+    public Status get_top_level_status() throws SystemException {
+        lock.lock();
+        try {
 
-        // Return the top-level status. If there is none, this is an error;
-        // return no transaction status (may want to raise a LogicError here).
+            // Return the top-level status. If there is none, this is an error;
+            // return no transaction status (may want to raise a LogicError here).
 
-        Status result = Status.StatusNoTransaction;
+            Status result = Status.StatusNoTransaction;
 
-        if (tranState != null) {
-            CoordinatorImpl topLevel = nestingInfo.getTopLevel();
-            if (topLevel != null) {
-                result = topLevel.get_status();
+            if (tranState != null) {
+                CoordinatorImpl topLevel = nestingInfo.getTopLevel();
+                if (topLevel != null) {
+                    result = topLevel.get_status();
+                }
+            } else {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
             }
-        } else {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -425,20 +441,25 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception SystemException The other Coordinator could not be reached.
      */
     @Override
-    synchronized public boolean is_same_transaction(Coordinator other) throws SystemException {
+    public boolean is_same_transaction(Coordinator other) throws SystemException {
+        lock.lock();
+        try {
 
-        boolean result = false;
+            boolean result = false;
 
-        // Get the names of the two transactions and compare them.
+            // Get the names of the two transactions and compare them.
 
-        if (name != null) {
-            result = name.equals(other.get_transaction_name());
-        } else {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            if (name != null) {
+                result = name.equals(other.get_transaction_name());
+            } else {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -454,23 +475,28 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception SystemException The other Coordinator could not be reached.
      */
     @Override
-    synchronized public boolean is_related_transaction(Coordinator other) throws SystemException {
+    public boolean is_related_transaction(Coordinator other) throws SystemException {
+        lock.lock();
+        try {
 
-        // Check whether the given transaction is a descendant of our top-level
-        // transaction.
+            // Check whether the given transaction is a descendant of our top-level
+            // transaction.
 
-        boolean result = false;
-        if (tranState != null) {
-            CoordinatorImpl topLevel = nestingInfo.getTopLevel();
-            if (topLevel != null) {
-                result = other.is_descendant_transaction(topLevel.object());
+            boolean result = false;
+            if (tranState != null) {
+                CoordinatorImpl topLevel = nestingInfo.getTopLevel();
+                if (topLevel != null) {
+                    result = other.is_descendant_transaction(topLevel.object());
+                }
+            } else {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
             }
-        } else {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -508,26 +534,31 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception SystemException The other Coordinator could not be reached.
      */
     @Override
-    synchronized public boolean is_descendant_transaction(Coordinator other) throws SystemException {
+    public boolean is_descendant_transaction(Coordinator other) throws SystemException {
+        lock.lock();
+        try {
 
-        // A transaction is considered to be a descendant of itself, so if the
-        // two transactions are the same, return TRUE.
+            // A transaction is considered to be a descendant of itself, so if the
+            // two transactions are the same, return TRUE.
 
-        boolean result = false;
-        if (tranState != null) {
-            if (is_same_transaction(other)) {
-                result = true;
+            boolean result = false;
+            if (tranState != null) {
+                if (is_same_transaction(other)) {
+                    result = true;
+                } else {
+                    // Otherwise, go through our ancestors, comparing
+                    // them with the given transaction.
+                    result = nestingInfo.isDescendant(other);
+                }
             } else {
-                // Otherwise, go through our ancestors, comparing
-                // them with the given transaction.
-                result = nestingInfo.isDescendant(other);
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
             }
-        } else {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -559,16 +590,21 @@ class SubCoordinator extends CoordinatorImpl {
      * @return The hash value for the transaction.
      */
     @Override
-    synchronized public int hash_transaction() {
+    public int hash_transaction() {
+        lock.lock();
+        try {
 
-        int result = hash;
+            int result = hash;
 
-        if (tranState == null) {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            if (tranState == null) {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -579,20 +615,25 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception SystemException The other Coordinator could not be reached.
      */
     @Override
-    synchronized public int hash_top_level_tran() throws SystemException {
+    public int hash_top_level_tran() throws SystemException {
+        lock.lock();
+        try {
 
-        int result = 0;
-        if (tranState != null) {
-            CoordinatorImpl topLevel = nestingInfo.getTopLevel();
-            if (topLevel != null) {
-                result = topLevel.hash_transaction();
+            int result = 0;
+            if (tranState != null) {
+                CoordinatorImpl topLevel = nestingInfo.getTopLevel();
+                if (topLevel != null) {
+                    result = topLevel.hash_transaction();
+                }
+            } else {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
             }
-        } else {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -612,120 +653,125 @@ class SubCoordinator extends CoordinatorImpl {
      *
      */
     @Override
-    synchronized public RecoveryCoordinator register_resource(Resource res) throws SystemException, Inactive, TRANSACTION_ROLLEDBACK {
+    public RecoveryCoordinator register_resource(Resource res) throws SystemException, Inactive, TRANSACTION_ROLLEDBACK {
+        lock.lock();
+        try {
 
-        RecoveryCoordinator result = null;
+            RecoveryCoordinator result = null;
 
-        // First check the state of the transaction. If it is not active,
-        // do not allow the registration.
+            // First check the state of the transaction. If it is not active,
+            // do not allow the registration.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
-            Inactive exc = new Inactive();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
+                Inactive exc = new Inactive();
+                throw exc;
+            }
 
-        // Check whether the transaction has been marked rollback-only.
+            // Check whether the transaction has been marked rollback-only.
 
-        if (rollbackOnly) {
-            TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            if (rollbackOnly) {
+                TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        // Register the given Resource with the top-level
-        // Coordinator first, and remember the RecoveryCoordinator object
-        // that is returned by the top-level Coordinator.
+            // Register the given Resource with the top-level
+            // Coordinator first, and remember the RecoveryCoordinator object
+            // that is returned by the top-level Coordinator.
 
-        CoordinatorImpl topLevel = nestingInfo.getTopLevel();
+            CoordinatorImpl topLevel = nestingInfo.getTopLevel();
 
-        // If the top-level Coordinator raises an exception, then do not
-        // proceed with the registration, and return the exception.
+            // If the top-level Coordinator raises an exception, then do not
+            // proceed with the registration, and return the exception.
 
-        try {
-            result = topLevel.register_resource(res);
-        } catch (SystemException exc) {
-            throw (SystemException) exc.fillInStackTrace();
-        } catch (Inactive exc) {
-            throw (Inactive) exc.fillInStackTrace();
-        }
+            try {
+                result = topLevel.register_resource(res);
+            } catch (SystemException exc) {
+                throw (SystemException) exc.fillInStackTrace();
+            } catch (Inactive exc) {
+                throw (Inactive) exc.fillInStackTrace();
+            }
 
-        // Find out whether the Resource is actually a
-        // SubtransactionAwareResource.
+            // Find out whether the Resource is actually a
+            // SubtransactionAwareResource.
 
-        boolean subAwareRes = res._is_a(SubtransactionAwareResourceHelper.id());
+            boolean subAwareRes = res._is_a(SubtransactionAwareResourceHelper.id());
 
-        // If the Resource is actually a SubtransactionAwareResource,
-        // then it needs to be registered for participation in completion
-        // of the subtransaction as well as the top level transaction.
+            // If the Resource is actually a SubtransactionAwareResource,
+            // then it needs to be registered for participation in completion
+            // of the subtransaction as well as the top level transaction.
 
-        if (subAwareRes) {
+            if (subAwareRes) {
 
-            // If not previously registered, a CoordinatorResource object
-            // must be registered with our superior. Note that root
-            // SubCoordinators are created with the registration flag set,
-            // so we do not need to check
-            // whether we are the root SubCoordinator here.
+                // If not previously registered, a CoordinatorResource object
+                // must be registered with our superior. Note that root
+                // SubCoordinators are created with the registration flag set,
+                // so we do not need to check
+                // whether we are the root SubCoordinator here.
 
-            if (!registered) {
+                if (!registered) {
 
-                // Initialise the CoordinatorResource with the local id,
-                // our reference, and a flag to indicate that it does
-                // not represent a subtransaction.
+                    // Initialise the CoordinatorResource with the local id,
+                    // our reference, and a flag to indicate that it does
+                    // not represent a subtransaction.
 
-                CoordinatorResourceImpl cImpl = new CoordinatorResourceImpl(superInfo.globalTID, this, true);
+                    CoordinatorResourceImpl cImpl = new CoordinatorResourceImpl(superInfo.globalTID, this, true);
 
-                // Register the CoordinatorResource with superior Coordinator,
-                // and store the resulting RecoveryCoordinator reference.
+                    // Register the CoordinatorResource with superior Coordinator,
+                    // and store the resulting RecoveryCoordinator reference.
 
-                try {
-                    CoordinatorResource cRes = cImpl.object();
-                    superInfo.superior.register_subtran_aware(cRes);
-                    superInfo.setResource(cRes);
-                    registered = true;
-                } catch (Throwable exc) {
-                    // If an exception was raised, do not set the
-                    // registration flag, and destroy the object.
-                    cImpl.destroy();
+                    try {
+                        CoordinatorResource cRes = cImpl.object();
+                        superInfo.superior.register_subtran_aware(cRes);
+                        superInfo.setResource(cRes);
+                        registered = true;
+                    } catch (Throwable exc) {
+                        // If an exception was raised, do not set the
+                        // registration flag, and destroy the object.
+                        cImpl.destroy();
 
-                    // If the exception is a system exception,
-                    // then allow it to percolate to the caller.
+                        // If the exception is a system exception,
+                        // then allow it to percolate to the caller.
 
-                    if (exc instanceof OBJECT_NOT_EXIST) {
-                        TRANSACTION_ROLLEDBACK ex2 = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-                        throw ex2;
-                    }
+                        if (exc instanceof OBJECT_NOT_EXIST) {
+                            TRANSACTION_ROLLEDBACK ex2 = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                            throw ex2;
+                        }
 
-                    if (exc instanceof Inactive) {
-                        throw (Inactive) exc;
-                    }
+                        if (exc instanceof Inactive) {
+                            throw (Inactive) exc;
+                        }
 
-                    if (exc instanceof SystemException) {
-                        throw (SystemException) exc;
+                        if (exc instanceof SystemException) {
+                            throw (SystemException) exc;
+                        }
+
+                        // Otherwise throw an internal exception.
+
+                        INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
+                        throw ex2;
                     }
+                }
 
-                    // Otherwise throw an internal exception.
+                // Add the SubtransactionAwareResource to the set of participants.
+                // Make sure the RegisteredResources instance variable has been
+                // set up.
 
-                    INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
-                    throw ex2;
+                if (participants == null) {
+                    participants = new RegisteredResources(null, this);
                 }
-            }
 
-            // Add the SubtransactionAwareResource to the set of participants.
-            // Make sure the RegisteredResources instance variable has been
-            // set up.
+                // Add a duplicate of the reference to the set. This is done
+                // because if the registration is for a remote object, the proxy
+                // will be freed when the registration request returns.
 
-            if (participants == null) {
-                participants = new RegisteredResources(null, this);
+                participants.addRes((Resource) res._duplicate());
+                temporary = false;
             }
 
-            // Add a duplicate of the reference to the set. This is done
-            // because if the registration is for a remote object, the proxy
-            // will be freed when the registration request returns.
-
-            participants.addRes((Resource) res._duplicate());
-            temporary = false;
+            return result;
+        } finally {
+            lock.unlock();
         }
-
-        return result;
     }
 
     /**
@@ -742,85 +788,90 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception SystemException The operation failed.
      */
     @Override
-    synchronized public void register_subtran_aware(SubtransactionAwareResource sares)
+    public void register_subtran_aware(SubtransactionAwareResource sares)
             throws SystemException, Inactive, TRANSACTION_ROLLEDBACK {
-        // First check the state of the transaction. If it is not active,
-        // do not allow the registration.
+        lock.lock();
+        try {
+            // First check the state of the transaction. If it is not active,
+            // do not allow the registration.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
-            Inactive exc = new Inactive();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
+                Inactive exc = new Inactive();
+                throw exc;
+            }
 
-        // Check whether the transaction has been marked rollback-only.
+            // Check whether the transaction has been marked rollback-only.
 
-        if (rollbackOnly) {
-            TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            if (rollbackOnly) {
+                TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        // If not previously registered, a CoordinatorResource object must be
-        // registered with our superior. Note that root SubCoordinators
-        // are created with the registration flag set, so we do not need
-        // to check whether we are the root SubCoordinator here.
+            // If not previously registered, a CoordinatorResource object must be
+            // registered with our superior. Note that root SubCoordinators
+            // are created with the registration flag set, so we do not need
+            // to check whether we are the root SubCoordinator here.
 
-        if (!registered) {
+            if (!registered) {
 
-            // Initialise the CoordinatorResource with the local id,
-            // our reference, and a
-            // flag to indicate that it does not represent a subtransaction.
+                // Initialise the CoordinatorResource with the local id,
+                // our reference, and a
+                // flag to indicate that it does not represent a subtransaction.
 
-            CoordinatorResourceImpl cImpl = new CoordinatorResourceImpl(superInfo.globalTID, this, true);
+                CoordinatorResourceImpl cImpl = new CoordinatorResourceImpl(superInfo.globalTID, this, true);
 
-            // Register the CoordinatorResource with the superior Coordinator,
-            // and store the resulting RecoveryCoordinator reference.
+                // Register the CoordinatorResource with the superior Coordinator,
+                // and store the resulting RecoveryCoordinator reference.
 
-            try {
-                CoordinatorResource cRes = cImpl.object();
-                superInfo.superior.register_subtran_aware(cRes);
-                superInfo.setResource(cRes);
-                registered = true;
-            } catch (Throwable exc) {
-                // If an exception was raised, do not set the registration flag.
-                cImpl.destroy();
+                try {
+                    CoordinatorResource cRes = cImpl.object();
+                    superInfo.superior.register_subtran_aware(cRes);
+                    superInfo.setResource(cRes);
+                    registered = true;
+                } catch (Throwable exc) {
+                    // If an exception was raised, do not set the registration flag.
+                    cImpl.destroy();
 
-                // If the exception is a system exception, then allow
-                // it to percolate to the caller.
+                    // If the exception is a system exception, then allow
+                    // it to percolate to the caller.
 
-                if (exc instanceof OBJECT_NOT_EXIST) {
-                    TRANSACTION_ROLLEDBACK ex2 = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-                    throw ex2;
-                }
+                    if (exc instanceof OBJECT_NOT_EXIST) {
+                        TRANSACTION_ROLLEDBACK ex2 = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                        throw ex2;
+                    }
 
-                if (exc instanceof Inactive) {
-                    throw (Inactive) exc;
-                }
+                    if (exc instanceof Inactive) {
+                        throw (Inactive) exc;
+                    }
 
-                if (exc instanceof SystemException) {
-                    throw (SystemException) exc;
-                }
+                    if (exc instanceof SystemException) {
+                        throw (SystemException) exc;
+                    }
 
-                // Otherwise throw an internal exception.
+                    // Otherwise throw an internal exception.
 
-                INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
-                throw ex2;
+                    INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
+                    throw ex2;
+                }
             }
-        }
 
-        // Add the SubtransactionAwareResource to the set of participants.
-        // Make sure the RegisteredResources instance variable has been set up.
+            // Add the SubtransactionAwareResource to the set of participants.
+            // Make sure the RegisteredResources instance variable has been set up.
 
-        if (participants == null) {
-            participants = new RegisteredResources(null, this);
-        }
+            if (participants == null) {
+                participants = new RegisteredResources(null, this);
+            }
 
-        // Add a duplicate of the reference to the set.
-        // This is done because if the registration is for a remote
-        // object, the proxy will be freed when the
-        // registration request returns.
+            // Add a duplicate of the reference to the set.
+            // This is done because if the registration is for a remote
+            // object, the proxy will be freed when the
+            // registration request returns.
 
-        participants.addRes((Resource) sares._duplicate());
-        temporary = false;
+            participants.addRes((Resource) sares._duplicate());
+            temporary = false;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -829,14 +880,19 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception Inactive The Coordinator is already completing the transaction.
      */
     @Override
-    synchronized public void rollback_only() throws Inactive {
+    public void rollback_only() throws Inactive {
+        lock.lock();
+        try {
 
-        if (tranState.state != TransactionState.STATE_ACTIVE) {
-            Inactive exc = new Inactive();
-            throw exc;
-        } else {
-            // Set the rollback-only flag.
-            rollbackOnly = true;
+            if (tranState.state != TransactionState.STATE_ACTIVE) {
+                Inactive exc = new Inactive();
+                throw exc;
+            } else {
+                // Set the rollback-only flag.
+                rollbackOnly = true;
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -848,17 +904,22 @@ class SubCoordinator extends CoordinatorImpl {
      *
      */
     @Override
-    synchronized public String get_transaction_name() {
+    public String get_transaction_name() {
+        lock.lock();
+        try {
 
-        String result = null;
-        if (tranState != null) {
-            result = name;
-        } else {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            String result = null;
+            if (tranState != null) {
+                result = name;
+            } else {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -869,60 +930,65 @@ class SubCoordinator extends CoordinatorImpl {
      * @exception Inactive The Coordinator is completing the subtransaction and cannot create a new child.
      */
     @Override
-    synchronized public Control create_subtransaction() throws Inactive {
+    public Control create_subtransaction() throws Inactive {
+        lock.lock();
+        try {
 
-        Control result = null;
+            Control result = null;
 
-        // First check the state of the transaction. If it is not active,
-        // do not allow the subtransaction to be created.
+            // First check the state of the transaction. If it is not active,
+            // do not allow the subtransaction to be created.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
-            Inactive exc = new Inactive();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
+                Inactive exc = new Inactive();
+                throw exc;
+            }
 
-        // Set up the sequence of ancestors to hold the single reference
-        // and global identifier of the top-level SubCoordinator
-        // as there are no ancestors. We do not need to make a copy of the
-        // global TID as this is done by the factory when it creates the child.
+            // Set up the sequence of ancestors to hold the single reference
+            // and global identifier of the top-level SubCoordinator
+            // as there are no ancestors. We do not need to make a copy of the
+            // global TID as this is done by the factory when it creates the child.
 
-        CoordinatorImpl[] thisAncestors = nestingInfo.getAncestors();
-        CoordinatorImpl[] ancestors = new CoordinatorImpl[thisAncestors.length + 1];
-        System.arraycopy(thisAncestors, 0, ancestors, 1, thisAncestors.length);
-        ancestors[0] = this;
+            CoordinatorImpl[] thisAncestors = nestingInfo.getAncestors();
+            CoordinatorImpl[] ancestors = new CoordinatorImpl[thisAncestors.length + 1];
+            System.arraycopy(thisAncestors, 0, ancestors, 1, thisAncestors.length);
+            ancestors[0] = this;
 
-        // Create a new SubCoordinator, and initialise it with the given
-        // identifiers and ancestry. If the operation fails, return a
-        // NULL Control object, and the SubtransactionsUnavailable exception.
-        // Note that the ancestor sequence is not copied by the creation
-        // operation.
+            // Create a new SubCoordinator, and initialise it with the given
+            // identifiers and ancestry. If the operation fails, return a
+            // NULL Control object, and the SubtransactionsUnavailable exception.
+            // Note that the ancestor sequence is not copied by the creation
+            // operation.
 
-        SubCoordinator child = null;
-        TerminatorImpl terminator = null;
-        try {
-            child = new SubCoordinator(superInfo.globalTID, superInfo.localTID, ancestors);
+            SubCoordinator child = null;
+            TerminatorImpl terminator = null;
+            try {
+                child = new SubCoordinator(superInfo.globalTID, superInfo.localTID, ancestors);
 
-            // Create a Terminator object, and initialise it with
-            // the SubCoordinator reference and a flag to indicate that
-            // it represents a subtransaction.
+                // Create a Terminator object, and initialise it with
+                // the SubCoordinator reference and a flag to indicate that
+                // it represents a subtransaction.
 
-            terminator = new TerminatorImpl(child, true);
+                terminator = new TerminatorImpl(child, true);
 
-            // Create a Control object, and initialise it with the Terminator,
-            // SubCoordinator and global OMGtid.
+                // Create a Control object, and initialise it with the Terminator,
+                // SubCoordinator and global OMGtid.
 
-            result = new ControlImpl(terminator, child, new GlobalTID(child.getGlobalTID()), child.getLocalTID()).object();
-        } catch (Throwable exc) {
-            Inactive ex2 = new Inactive();
-            throw ex2;
-        }
+                result = new ControlImpl(terminator, child, new GlobalTID(child.getGlobalTID()), child.getLocalTID()).object();
+            } catch (Throwable exc) {
+                Inactive ex2 = new Inactive();
+                throw ex2;
+            }
 
-        // If the operation succeeded, add the new child
-        // to the set of children.
+            // If the operation succeeded, add the new child
+            // to the set of children.
 
-        nestingInfo.addChild(child);
+            nestingInfo.addChild(child);
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -971,50 +1037,55 @@ class SubCoordinator extends CoordinatorImpl {
      *
      */
     @Override
-    synchronized CoordinatorImpl replyAction(int[/* 1 */] action) throws SystemException {
-        CoordinatorImpl result = null;
-        action[0] = CoordinatorImpl.doNothing;
+    CoordinatorImpl replyAction(int[/* 1 */] action) throws SystemException {
+        lock.lock();
+        try {
+            CoordinatorImpl result = null;
+            action[0] = CoordinatorImpl.doNothing;
 
-        // If this Coordinator is not a root, and there are active children,
-        // report that fact to the caller. If the NestingInfo instance
-        // variable has not been set up, there are no children.
+            // If this Coordinator is not a root, and there are active children,
+            // report that fact to the caller. If the NestingInfo instance
+            // variable has not been set up, there are no children.
 
-        if (!root && nestingInfo.replyCheck()) {
-            action[0] = CoordinatorImpl.activeChildren;
+            if (!root && nestingInfo.replyCheck()) {
+                action[0] = CoordinatorImpl.activeChildren;
 
-            // If there are no active children, then check whether this
-            // transaction needs to be destroyed, or registered on reply.
+                // If there are no active children, then check whether this
+                // transaction needs to be destroyed, or registered on reply.
 
-        } else {
+            } else {
 
-            // If there are participants, and we have not registered,
-            // raise an exception.
+                // If there are participants, and we have not registered,
+                // raise an exception.
 
-            if (!registered) {
-                if (participants != null && participants.involved()) {
-                    INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
-                    throw ex2;
-                } else {
-                    action[0] = forgetMe;
+                if (!registered) {
+                    if (participants != null && participants.involved()) {
+                        INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
+                        throw ex2;
+                    } else {
+                        action[0] = forgetMe;
+                    }
                 }
-            }
 
-            // If we are not registered, and have no participants,
-            // we have no reason to exist, so tell the caller to
-            // forget about us. The TransactionManager will take care of
-            // cleaning everything else up whenit receives the forgetMe
-            // response.
+                // If we are not registered, and have no participants,
+                // we have no reason to exist, so tell the caller to
+                // forget about us. The TransactionManager will take care of
+                // cleaning everything else up whenit receives the forgetMe
+                // response.
 
-            if (action[0] == doNothing && !registered) {
-                action[0] = forgetMe;
+                if (action[0] == doNothing && !registered) {
+                    action[0] = forgetMe;
+                }
             }
-        }
 
-        // Default action is do nothing when we are registered.
+            // Default action is do nothing when we are registered.
 
-        result = null;
+            result = null;
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1023,12 +1094,17 @@ class SubCoordinator extends CoordinatorImpl {
      * @return The local transaction identifier.
      */
     @Override
-    synchronized Long setPermanent() {
+    Long setPermanent() {
+        lock.lock();
+        try {
 
-        Long result = superInfo.localTID;
-        temporary = false;
+            Long result = superInfo.localTID;
+            temporary = false;
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1037,7 +1113,7 @@ class SubCoordinator extends CoordinatorImpl {
      * @return Indicates whether the transaction is rollback-only.
      */
     @Override
-    synchronized public boolean isRollbackOnly() {
+    public boolean isRollbackOnly() {
         return rollbackOnly;
     }
 
@@ -1047,8 +1123,13 @@ class SubCoordinator extends CoordinatorImpl {
      * @return Indicates the transaction is active.
      */
     @Override
-    synchronized boolean isActive() {
-        return tranState.state == TransactionState.STATE_ACTIVE;
+    boolean isActive() {
+        lock.lock();
+        try {
+            return tranState.state == TransactionState.STATE_ACTIVE;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1057,7 +1138,7 @@ class SubCoordinator extends CoordinatorImpl {
      * @return Indicates the registration status.
      */
     @Override
-    synchronized boolean hasRegistered() {
+    boolean hasRegistered() {
         return registered;
     }
 
@@ -1067,18 +1148,23 @@ class SubCoordinator extends CoordinatorImpl {
      * @return The sequence of ancestors.
      */
     @Override
-    synchronized public TransIdentity[] getAncestors() {
-        CoordinatorImpl[] coords = nestingInfo.getAncestors();
+    public TransIdentity[] getAncestors() {
+        lock.lock();
+        try {
+            CoordinatorImpl[] coords = nestingInfo.getAncestors();
 
-        TransIdentity[] result = new TransIdentity[coords.length];
-        for (int i = 0; i < coords.length; i++) {
-            try {
-                result[i] = new TransIdentity(coords[i].object(), null, coords[i].getGlobalTID());
-            } catch (Throwable exc) {
+            TransIdentity[] result = new TransIdentity[coords.length];
+            for (int i = 0; i < coords.length; i++) {
+                try {
+                    result[i] = new TransIdentity(coords[i].object(), null, coords[i].getGlobalTID());
+                } catch (Throwable exc) {
+                }
             }
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1089,8 +1175,13 @@ class SubCoordinator extends CoordinatorImpl {
      * @return Indicates success of the operation.
      */
     @Override
-    synchronized boolean addChild(CoordinatorImpl child) {
-        return nestingInfo.addChild(child);
+    boolean addChild(CoordinatorImpl child) {
+        lock.lock();
+        try {
+            return nestingInfo.addChild(child);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1102,33 +1193,38 @@ class SubCoordinator extends CoordinatorImpl {
      * @return Indicates success of the operation.
      */
     @Override
-    synchronized boolean removeChild(CoordinatorImpl child) {
-        boolean result = false;
+    boolean removeChild(CoordinatorImpl child) {
+        lock.lock();
+        try {
+            boolean result = false;
 
-        // Remove the child from the set of children. If the NestingInfo
-        // instance variable has not been set up, then the child
-        // cannot be removed.
+            // Remove the child from the set of children. If the NestingInfo
+            // instance variable has not been set up, then the child
+            // cannot be removed.
 
-        if (nestingInfo != null) {
-            result = nestingInfo.removeChild(child);
-        }
+            if (nestingInfo != null) {
+                result = nestingInfo.removeChild(child);
+            }
 
-        // If the removal results in an empty, temporary Coordinator, then this
-        // Coordinator must be cleaned up. The RecoveryManager is called to
-        // clean up the transaction.
+            // If the removal results in an empty, temporary Coordinator, then this
+            // Coordinator must be cleaned up. The RecoveryManager is called to
+            // clean up the transaction.
 
-        if (temporary && !registered && !(participants != null && participants.involved())
-                && !(nestingInfo != null && nestingInfo.numChildren() > 0)) {
+            if (temporary && !registered && !(participants != null && participants.involved())
+                    && !(nestingInfo != null && nestingInfo.numChildren() > 0)) {
 
-            // We pass the parent Coordinator to the RecoveryManager
-            // so that it can remove the child from the parent's set of
-            // children after the child is rolled back.
+                // We pass the parent Coordinator to the RecoveryManager
+                // so that it can remove the child from the parent's set of
+                // children after the child is rolled back.
 
-            CoordinatorImpl parent = nestingInfo.getParent(true);
-            cleanUpEmpty(parent);
-        }
+                CoordinatorImpl parent = nestingInfo.getParent(true);
+                cleanUpEmpty(parent);
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1142,51 +1238,56 @@ class SubCoordinator extends CoordinatorImpl {
     static String[] resultName = { "Commit"/* #Frozen */, "Rollback"/* #Frozen */, "Read-only"/* #Frozen */ };
 
     @Override
-    synchronized Vote prepare() throws INVALID_TRANSACTION {
+    Vote prepare() throws INVALID_TRANSACTION {
+        lock.lock();
+        try {
 
-        Vote result = Vote.VoteRollback;
-        int newState = TransactionState.STATE_PREPARED_FAIL;
+            Vote result = Vote.VoteRollback;
+            int newState = TransactionState.STATE_PREPARED_FAIL;
 
-        // Record that the Coordinator is about to prepare.
+            // Record that the Coordinator is about to prepare.
 
-        // First check for active children, before getting too far
-        // into the prepare. This is only done for the root Coordinator
-        // as for any others it is too late.
+            // First check for active children, before getting too far
+            // into the prepare. This is only done for the root Coordinator
+            // as for any others it is too late.
 
-        if (root && nestingInfo.numChildren() != 0) {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.UnfinishedSubtransactions, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            if (root && nestingInfo.numChildren() != 0) {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.UnfinishedSubtransactions, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        // If the SubCoordinator is in the wrong state, return immediately.
+            // If the SubCoordinator is in the wrong state, return immediately.
 
-        if (!tranState.setState(TransactionState.STATE_PREPARING)) {
-            return Vote.VoteRollback;
-        }
+            if (!tranState.setState(TransactionState.STATE_PREPARING)) {
+                return Vote.VoteRollback;
+            }
 
-        // Check for marked rollback-only.
+            // Check for marked rollback-only.
 
-        if (rollbackOnly) {
+            if (rollbackOnly) {
 
-            // Record that the Coordinator is deciding to rollback.
-            // Try to set the state to prepared fail.
+                // Record that the Coordinator is deciding to rollback.
+                // Try to set the state to prepared fail.
 
-            if (!tranState.setState(TransactionState.STATE_PREPARED_FAIL)) {
-                return Vote.VoteRollback;
+                if (!tranState.setState(TransactionState.STATE_PREPARED_FAIL)) {
+                    return Vote.VoteRollback;
+                }
+            } else {
+                newState = TransactionState.STATE_PREPARED_SUCCESS;
+                result = Vote.VoteCommit;
             }
-        } else {
-            newState = TransactionState.STATE_PREPARED_SUCCESS;
-            result = Vote.VoteCommit;
-        }
 
-        // Record that prepare is complete.
-        // Set the state.
+            // Record that prepare is complete.
+            // Set the state.
 
-        if (!tranState.setState(newState)) {
-            result = Vote.VoteRollback;
-        }
+            if (!tranState.setState(newState)) {
+                result = Vote.VoteRollback;
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1200,7 +1301,8 @@ class SubCoordinator extends CoordinatorImpl {
         // Record that the Coordinator is about to commit.
         // Until we actually distribute commit flows, synchronize the method.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // If the SubCoordinator is in the wrong state, return immediately.
 
@@ -1216,6 +1318,8 @@ class SubCoordinator extends CoordinatorImpl {
 
             // Release the lock before proceeding with commit.
 
+        } finally {
+            lock.unlock();
         }
 
         // Commit all participants. If a fatal error occurs during this
@@ -1234,7 +1338,8 @@ class SubCoordinator extends CoordinatorImpl {
 
         // The remainder of the method needs to be synchronized.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // Record that objects have been told to commit.
             // Set the state
@@ -1278,6 +1383,8 @@ class SubCoordinator extends CoordinatorImpl {
             /* NO INSTANCE VARIABLES MAY BE ACCESSED FROM THIS POINT ON. */
             /* !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!! */
 
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1292,7 +1399,8 @@ class SubCoordinator extends CoordinatorImpl {
 
         // Until we actually distribute rollback flows, synchronize the method.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // If the transaction has already been rolled back, just return.
 
@@ -1329,6 +1437,8 @@ class SubCoordinator extends CoordinatorImpl {
 
             // Release the lock before proceeding with rollback.
 
+        } finally {
+            lock.unlock();
         }
 
         // Roll back all participants. If a fatal error occurs during
@@ -1340,7 +1450,8 @@ class SubCoordinator extends CoordinatorImpl {
 
         // The remainder of the method needs to be synchronized.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // Set the state to rolled back.
 
@@ -1384,6 +1495,8 @@ class SubCoordinator extends CoordinatorImpl {
             /* !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!! */
             /* NO INSTANCE VARIABLES MAY BE ACCESSED FROM THIS POINT ON. */
             /* !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!! */
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1401,20 +1514,25 @@ class SubCoordinator extends CoordinatorImpl {
      *
      */
     @Override
-    synchronized public void register_synchronization(Synchronization sync) throws Inactive, SynchronizationUnavailable {
-        // First check the state of the transaction. If it is not active,
-        // do not allow the registration.
+    public void register_synchronization(Synchronization sync) throws Inactive, SynchronizationUnavailable {
+        lock.lock();
+        try {
+            // First check the state of the transaction. If it is not active,
+            // do not allow the registration.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
-            Inactive exc = new Inactive();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
+                Inactive exc = new Inactive();
+                throw exc;
+            }
 
-        // Register the Synchronization object with the top-level Coordinator.
-        // Allow any exception to percolate to the caller.
+            // Register the Synchronization object with the top-level Coordinator.
+            // Allow any exception to percolate to the caller.
 
-        CoordinatorImpl topLevel = nestingInfo.getTopLevel();
-        topLevel.register_synchronization(sync);
+            CoordinatorImpl topLevel = nestingInfo.getTopLevel();
+            topLevel.register_synchronization(sync);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1426,7 +1544,7 @@ class SubCoordinator extends CoordinatorImpl {
      *
      */
     @Override
-    synchronized void setTerminator(CompletionHandler term) {
+    void setTerminator(CompletionHandler term) {
         terminator = term;
     }
 
@@ -1485,52 +1603,57 @@ class SubCoordinator extends CoordinatorImpl {
      * information.
      */
     @Override
-    synchronized public PropagationContext get_txcontext() throws Unavailable {
+    public PropagationContext get_txcontext() throws Unavailable {
+        lock.lock();
+        try {
 
-        // First check the state of the transaction. If it is not active,
-        // do not allow the operation.
+            // First check the state of the transaction. If it is not active,
+            // do not allow the operation.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE || rollbackOnly) {
-            Unavailable exc = new Unavailable();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE || rollbackOnly) {
+                Unavailable exc = new Unavailable();
+                throw exc;
+            }
 
-        // Work out the timeout value to pass, if any.
-        // Note that only top-level transactions have timeouts.
-        // We do not check for timeouts if the Coordinator is remote.
-        // If the Coordinator does not have a timeout defined, the
-        // TimeoutManager will return a negative value.
-        // If the transaction has timed out, the value will be
-        // zero.
-
-        long timeLeft = TimeoutManager.timeLeft(superInfo.localTID);
-        int timeout = 0;
-        if (timeLeft > 0) {
-            timeout = (int) timeLeft / 1000;
-        } else if (timeLeft == 0) {
-            // If the timeout has expired, then do not return a context,
-            // but roll the transaction back and throw
-            // the TRANSACTION_ROLLEDBACK exception.
-
-            TimeoutManager.timeoutCoordinator(superInfo.localTID, TimeoutManager.ACTIVE_TIMEOUT);
-            TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            // Work out the timeout value to pass, if any.
+            // Note that only top-level transactions have timeouts.
+            // We do not check for timeouts if the Coordinator is remote.
+            // If the Coordinator does not have a timeout defined, the
+            // TimeoutManager will return a negative value.
+            // If the transaction has timed out, the value will be
+            // zero.
+
+            long timeLeft = TimeoutManager.timeLeft(superInfo.localTID);
+            int timeout = 0;
+            if (timeLeft > 0) {
+                timeout = (int) timeLeft / 1000;
+            } else if (timeLeft == 0) {
+                // If the timeout has expired, then do not return a context,
+                // but roll the transaction back and throw
+                // the TRANSACTION_ROLLEDBACK exception.
+
+                TimeoutManager.timeoutCoordinator(superInfo.localTID, TimeoutManager.ACTIVE_TIMEOUT);
+                TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        // Fill in the context with the current transaction information,
-        // and the ancestor information.
+            // Fill in the context with the current transaction information,
+            // and the ancestor information.
 
-        TransIdentity current = new TransIdentity(this.object(), null, superInfo.globalTID.realTID);
-        TransIdentity[] parents = getAncestors();
+            TransIdentity current = new TransIdentity(this.object(), null, superInfo.globalTID.realTID);
+            TransIdentity[] parents = getAncestors();
 
-        // Ensure that the implementation specific data is filled with a value.
+            // Ensure that the implementation specific data is filled with a value.
 
-        if (emptyData == null) {
-            emptyData = Configuration.getORB().create_any();
-            emptyData.insert_boolean(false);
-        }
+            if (emptyData == null) {
+                emptyData = Configuration.getORB().create_any();
+                emptyData.insert_boolean(false);
+            }
 
-        return new PropagationContext(timeout, current, parents, emptyData);
+            return new PropagationContext(timeout, current, parents, emptyData);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
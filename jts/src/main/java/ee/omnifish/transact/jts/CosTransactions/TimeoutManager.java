@@ -31,9 +31,9 @@
 
 package ee.omnifish.transact.jts.CosTransactions;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.logging.Level.INFO;
 
-import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Vector;
@@ -46,7 +46,8 @@ import ee.omnifish.transact.jts.jtsxa.XID;
 
 /**
  * This class records state for timing out transactions, and runs a thread which performs occasional checks to time out
- * transactions.
+ * transactions. The timeouts are kept in a TimeoutWheel, so arming and cancelling a timeout does not depend on the number
+ * of transactions, and a check only looks at timeouts that are due.
  *
  * @version 0.01
  *
@@ -83,6 +84,7 @@ class TimeoutManager {
 
     private static Hashtable pendingTimeouts = new Hashtable();
     private static Hashtable indoubtTimeouts = new Hashtable();
+    private static TimeoutWheel timeoutWheel = new TimeoutWheel();
     private static TimeoutThread timeoutThread;
     private static boolean timeoutActive;
     private static boolean quiescing;
@@ -150,10 +152,12 @@ class TimeoutManager {
                     initSetTimeout();
                 }
                 timeoutInfo = new TimeoutInfo();
-                timeoutInfo.expireTime = new Date().getTime() + seconds * 1000L;
                 timeoutInfo.localTID = localTID;
                 timeoutInfo.timeoutType = timeoutType;
-                pendingTimeouts.put(localTID, timeoutInfo);
+                // Arm the timeout before it is published, so that a concurrent
+                // cancel which finds it in the table also takes it off the wheel.
+                timeoutWheel.add(timeoutInfo, seconds);
+                cancel((TimeoutInfo) pendingTimeouts.put(localTID, timeoutInfo));
                 break;
             case TimeoutManager.IN_DOUBT_TIMEOUT:
                 if (!isSetTimeout) {
@@ -161,10 +165,10 @@ class TimeoutManager {
                     // isSetTimeout = true;
                 }
                 timeoutInfo = new TimeoutInfo();
-                timeoutInfo.expireTime = new Date().getTime() + seconds * 1000L;
                 timeoutInfo.localTID = localTID;
                 timeoutInfo.timeoutType = timeoutType;
-                indoubtTimeouts.put(localTID, timeoutInfo);
+                timeoutWheel.add(timeoutInfo, seconds);
+                cancel((TimeoutInfo) indoubtTimeouts.put(localTID, timeoutInfo));
                 break;
 
             // For any other type, remove the timeout if there is one.
@@ -173,9 +177,9 @@ class TimeoutManager {
                 if (!isSetTimeout) {
                     break;
                 }
-                result = (pendingTimeouts.remove(localTID) != null);
+                result = cancel((TimeoutInfo) pendingTimeouts.remove(localTID));
                 if (!result) {
-                    result = (indoubtTimeouts.remove(localTID) != null);
+                    result = cancel((TimeoutInfo) indoubtTimeouts.remove(localTID));
                 }
 
                 // If the transaction service is quiescing and
@@ -197,6 +201,22 @@ class TimeoutManager {
         return result;
     }
 
+    /**
+     * Disarms the given timeout.
+     *
+     * @param timeoutInfo The timeout removed from one of the tables, or null.
+     *
+     * @return Indicates whether there was a timeout.
+     */
+    private static boolean cancel(TimeoutInfo timeoutInfo) {
+        if (timeoutInfo == null) {
+            return false;
+        }
+
+        timeoutWheel.remove(timeoutInfo);
+        return true;
+    }
+
     /**
      * Takes appropriate action for a timeout.
      *
@@ -223,7 +243,8 @@ class TimeoutManager {
             }
             TimeoutManager.setTimeout(localTID, TimeoutManager.CANCEL_TIMEOUT, 0);
         } else {
-            synchronized (coord) {
+            coord.lock.lock();
+            try {
                 boolean[] isRoot = new boolean[1];
 
                 switch (timeoutType) {
@@ -302,6 +323,8 @@ class TimeoutManager {
                     // Otherwise do nothing.
                     break;
                 }
+            } finally {
+                coord.lock.unlock();
             }
         }
     }
@@ -310,7 +333,7 @@ class TimeoutManager {
      * Periodically checks the existing timeouts.
      * <p>
      * This is done to discover if any transactions have overrun their allotted time. Those which have are returned as an
-     * Enumeration.
+     * Enumeration. A timeout that has expired is returned by every check until it is cancelled.
      * <p>
      * Note that this method should not do anything that will cause a synchronized method in the RecoveryManager to be
      * called, as this could cause a deadlock when RecoveryManager methods on other threads call setTimeout.
@@ -324,63 +347,12 @@ class TimeoutManager {
 
         Enumeration result = null;
 
-        // When woken up, go through all current timeouts and identify those
-        // which have expired.
-
-        if (timeoutActive && (pendingTimeouts.size() != 0 || indoubtTimeouts.size() != 0)) {
-            Vector timedOut = null;
-
-            Enumeration timeouts = null;
+        // When woken up, advance the timeout wheel. Only the buckets of the ticks
+        // which have passed since the last check are visited.
 
-            synchronized (pendingTimeouts) {
-                timeouts = pendingTimeouts.elements();
-
-                while (timeouts.hasMoreElements()) {
-
-                    TimeoutInfo timeoutInfo = (TimeoutInfo) timeouts.nextElement();
-
-                    // For each timeout in the list, check whether it has expired.
-                    // If so, look up the Coordinator and roll it back.
-
-                    if (new Date().getTime() > timeoutInfo.expireTime) {
-
-                        // Add the TimeoutInfo to the queue of
-                        // those that have timed out.
-
-                        if (timedOut == null) {
-                            timedOut = new Vector();
-                        }
-
-                        timedOut.addElement(timeoutInfo);
-                    }
-                }
-            }
-
-            synchronized (indoubtTimeouts) {
-
-                timeouts = indoubtTimeouts.elements();
-
-                while (timeouts.hasMoreElements()) {
-
-                    TimeoutInfo timeoutInfo = (TimeoutInfo) timeouts.nextElement();
-
-                    // For each timeout in the list, check whether it has expired.
-                    // If so, look up the Coordinator and roll it back.
-
-                    if (new Date().getTime() > timeoutInfo.expireTime) {
-
-                        // Add the TimeoutInfo to the queue of
-                        // those that have timed out.
-
-                        if (timedOut == null) {
-                            timedOut = new Vector();
-                        }
-
-                        timedOut.addElement(timeoutInfo);
-                    }
-                }
+        if (timeoutActive) {
+            Vector timedOut = timeoutWheel.expire();
 
-            }
             // Enumerate the transactions which have timed out.
 
             if (timedOut != null) {
@@ -444,7 +416,7 @@ class TimeoutManager {
         }
         long result = -1;
         if (timeoutInfo != null) {
-            result = timeoutInfo.expireTime - new Date().getTime();
+            result = NANOSECONDS.toMillis(timeoutInfo.deadline - System.nanoTime());
             if (result < 0) {
                 result = 0;
             }
@@ -477,6 +449,8 @@ class TimeoutManager {
                 pendingTimeouts.clear();
             }
 
+            timeoutWheel.clear();
+
             pendingTimeouts = null;
             timeoutThread = null;
             timeoutActive = false;
@@ -505,8 +479,19 @@ class TimeoutManager {
 
 class TimeoutInfo extends Object {
     Long localTID = null;
-    long expireTime = 0;
     int timeoutType = TimeoutManager.NO_TIMEOUT;
+
+    /**
+     * The time at which the timeout expires, in System.nanoTime() units.
+     */
+    long deadline = 0;
+
+    /**
+     * Links to the neighbouring timeouts in the TimeoutWheel bucket, which is -1 when the timeout is not armed.
+     */
+    int bucket = -1;
+    TimeoutInfo previous = null;
+    TimeoutInfo next = null;
 }
 
 /**
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Vector;
+import java.util.function.LongSupplier;
+
+/**
+ * A hashed timing wheel holding the timeouts of the TimeoutManager and the DelegatedTimeoutManager.
+ * <p>
+ * Each TimeoutInfo is linked into the bucket of the tick in which it expires, so arming and cancelling a timeout are
+ * constant time operations. A check only visits the buckets of the ticks that have passed since the previous check,
+ * instead of every timeout that exists. Deadlines are taken from {@link System#nanoTime()}, so changes to the wall clock
+ * do not cause timeouts to fire early or late.
+ * <p>
+ * A timeout that has expired stays on the expired list, and is reported by every check, until it is cancelled. This
+ * matches the behaviour of the previous table scan, which reported an expired timeout until the coordinator removed it.
+ */
+class TimeoutWheel {
+
+    /**
+     * The duration of one tick of the wheel. Transaction timeouts are specified in seconds.
+     */
+    static final long TICK_NANOS = SECONDS.toNanos(1);
+
+    /**
+     * The number of buckets in the wheel; must be a power of two.
+     */
+    static final int WHEEL_SIZE = 512;
+
+    private static final int EXPIRED = WHEEL_SIZE;
+
+    /**
+     * The bucket lists. The last element holds the timeouts which have expired but were not yet cancelled.
+     */
+    private final TimeoutInfo[] buckets = new TimeoutInfo[WHEEL_SIZE + 1];
+    private final LongSupplier clock;
+    private final long startNanos;
+    private long currentTick;
+    private int size;
+
+    TimeoutWheel() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Creates a wheel which takes the current time from the given clock instead of {@link System#nanoTime()}.
+     *
+     * @param clock The source of the current time in nanoseconds.
+     */
+    TimeoutWheel(LongSupplier clock) {
+        this.clock = clock;
+        startNanos = clock.getAsLong();
+    }
+
+    /**
+     * Arms the given timeout so that it expires after the given number of seconds.
+     *
+     * @param timeoutInfo The timeout to arm. It must not currently be armed.
+     * @param seconds The length of the timeout.
+     */
+    synchronized void add(TimeoutInfo timeoutInfo, int seconds) {
+        timeoutInfo.deadline = clock.getAsLong() + SECONDS.toNanos(seconds);
+        long tick = Math.max(tickOf(timeoutInfo.deadline), currentTick);
+        link(timeoutInfo, (int) (tick & (WHEEL_SIZE - 1)));
+        size++;
+    }
+
+    /**
+     * Cancels the given timeout, if it is armed.
+     *
+     * @param timeoutInfo The timeout to cancel.
+     *
+     * @return true if the timeout was armed.
+     */
+    synchronized boolean remove(TimeoutInfo timeoutInfo) {
+        if (timeoutInfo.bucket < 0) {
+            return false;
+        }
+
+        unlink(timeoutInfo);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the current time.
+     *
+     * @return The timeouts which have expired and have not been cancelled, or null if there are none.
+     */
+    synchronized Vector<TimeoutInfo> expire() {
+        if (size == 0) {
+            return null;
+        }
+
+        long now = clock.getAsLong();
+        long nowTick = tickOf(now);
+
+        // Visit the bucket of every tick that has passed, including the current one as it may
+        // hold timeouts which expire later during this tick. The current tick is visited again
+        // by the next check. A full turn of the wheel covers every bucket.
+
+        long lastTick = Math.min(nowTick, currentTick + WHEEL_SIZE - 1);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            TimeoutInfo timeoutInfo = buckets[(int) (tick & (WHEEL_SIZE - 1))];
+            while (timeoutInfo != null) {
+                TimeoutInfo next = timeoutInfo.next;
+                if (timeoutInfo.deadline - now <= 0) {
+                    unlink(timeoutInfo);
+                    link(timeoutInfo, EXPIRED);
+                }
+                timeoutInfo = next;
+            }
+        }
+        currentTick = nowTick;
+
+        if (buckets[EXPIRED] == null) {
+            return null;
+        }
+
+        Vector<TimeoutInfo> timedOut = new Vector<>();
+        for (TimeoutInfo timeoutInfo = buckets[EXPIRED]; timeoutInfo != null; timeoutInfo = timeoutInfo.next) {
+            timedOut.addElement(timeoutInfo);
+        }
+
+        return timedOut;
+    }
+
+    /**
+     * Discards all timeouts.
+     */
+    synchronized void clear() {
+        for (int i = 0; i < buckets.length; i++) {
+            while (buckets[i] != null) {
+                unlink(buckets[i]);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * @return the number of armed timeouts, including those which have expired but were not yet cancelled.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private long tickOf(long nanos) {
+        return (nanos - startNanos) / TICK_NANOS;
+    }
+
+    private void link(TimeoutInfo timeoutInfo, int bucket) {
+        TimeoutInfo head = buckets[bucket];
+        timeoutInfo.bucket = bucket;
+        timeoutInfo.previous = null;
+        timeoutInfo.next = head;
+        if (head != null) {
+            head.previous = timeoutInfo;
+        }
+        buckets[bucket] = timeoutInfo;
+    }
+
+    private void unlink(TimeoutInfo timeoutInfo) {
+        if (timeoutInfo.previous == null) {
+            buckets[timeoutInfo.bucket] = timeoutInfo.next;
+        } else {
+            timeoutInfo.previous.next = timeoutInfo.next;
+        }
+        if (timeoutInfo.next != null) {
+            timeoutInfo.next.previous = timeoutInfo.previous;
+        }
+        timeoutInfo.bucket = -1;
+        timeoutInfo.previous = null;
+        timeoutInfo.next = null;
+    }
+}
@@ -118,11 +118,12 @@ public class TopCoordinator extends CoordinatorImpl {
     NestingInfo nestingInfo;
     TransactionState tranState;
     CoordinatorLog logRecord;
-    CompletionHandler terminator;
-    boolean registered;
-    boolean registeredSync;
+    // Read and set without the lock by the accessors
+    volatile CompletionHandler terminator;
+    volatile boolean registered;
+    volatile boolean registeredSync;
     boolean root = true;
-    boolean rollbackOnly;
+    volatile boolean rollbackOnly;
     boolean dying;
     boolean temporary;
     int hash = 0;
@@ -135,6 +136,11 @@ public class TopCoordinator extends CoordinatorImpl {
     boolean delegated;
     String logPath;
 
+    // asynchronous second phase, see CommitCompletionService
+    volatile boolean strictCompletion;
+    boolean completionPending;
+    Status afterCompletionPending;
+
     /**
      * Default TopCoordinator constructor.
      */
@@ -296,63 +302,68 @@ public class TopCoordinator extends CoordinatorImpl {
      * Cleans up the objects state.
      */
     @Override
-    synchronized public void doFinalize() {
+    public void doFinalize() {
+        lock.lock();
+        try {
 
-        // Set the flag to indicate that the coordinator is being destroyed.
+            // Set the flag to indicate that the coordinator is being destroyed.
 
-        dying = true;
+            dying = true;
 
-        // What we do when destroyed depends on the transaction's state.
-        // We assume that temporary Coordinators have rolled bak at this point.
+            // What we do when destroyed depends on the transaction's state.
+            // We assume that temporary Coordinators have rolled bak at this point.
 
-        int state = TransactionState.STATE_ROLLED_BACK;
-        if (tranState != null && !temporary) {
-            state = tranState.state;
-        }
+            int state = TransactionState.STATE_ROLLED_BACK;
+            if (tranState != null && !temporary) {
+                state = tranState.state;
+            }
 
-        switch (state) {
+            switch (state) {
 
-        // If the transaction is active it should be rolled back. This
-        // will result in the TopCoordinator self-destructing at the
-        // end of two-phase commit.
+            // If the transaction is active it should be rolled back. This
+            // will result in the TopCoordinator self-destructing at the
+            // end of two-phase commit.
 
-        case TransactionState.STATE_ACTIVE:
-            try {
-                rollback(true);
-            } catch (Throwable exc) {
-                _logger.log(Level.FINE, "", exc);
-            }
+            case TransactionState.STATE_ACTIVE:
+                try {
+                    rollback(true);
+                } catch (Throwable exc) {
+                    _logger.log(Level.FINE, "", exc);
+                }
 
-            break;
+                break;
 
-        // For committed or rolled-back, we really need to destroy the
-        // object. Also for prepared_readonly.
+            // For committed or rolled-back, we really need to destroy the
+            // object. Also for prepared_readonly.
 
-        case TransactionState.STATE_PREPARED_READONLY:
-        case TransactionState.STATE_COMMITTED:
-        case TransactionState.STATE_ROLLED_BACK:
-        case TransactionState.STATE_COMMITTED_ONE_PHASE_OK:
-        case TransactionState.STATE_COMMIT_ONE_PHASE_ROLLED_BACK:
+            case TransactionState.STATE_PREPARED_READONLY:
+            case TransactionState.STATE_COMMITTED:
+            case TransactionState.STATE_ROLLED_BACK:
+            case TransactionState.STATE_COMMITTED_ONE_PHASE_OK:
+            case TransactionState.STATE_COMMIT_ONE_PHASE_ROLLED_BACK:
 
-            if (superInfo != null) {
-                superInfo.doFinalize();
-            }
+                if (superInfo != null) {
+                    superInfo.doFinalize();
+                }
 
-            tranState = null;
-            superInfo = null;
-            nestingInfo = null;
-            participants = null;
-            synchronizations = null;
-            logRecord = null;
-            terminator = null;
-            name = null;
-            break;
+                tranState = null;
+                superInfo = null;
+                nestingInfo = null;
+                participants = null;
+                synchronizations = null;
+                logRecord = null;
+                terminator = null;
+                name = null;
+                break;
 
-        // For any other state, the transaction is completing, so the
-        // TopCoordinator will eventually self-destruct. We do nothing here.
+            // For any other state, the transaction is completing, so the
+            // TopCoordinator will eventually self-destruct. We do nothing here.
 
-        default:
-            break;
+            default:
+                break;
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -364,65 +375,70 @@ public class TopCoordinator extends CoordinatorImpl {
      *
      * @param log The CoordinatorLog object which contains the Coordinators state.
      */
-    synchronized void reconstruct(CoordinatorLog log) {
+    void reconstruct(CoordinatorLog log) {
+        lock.lock();
+        try {
 
-        // Set up instance variables.
+            // Set up instance variables.
 
-        rollbackOnly = false;
-        registered = false;
-        registeredSync = false;
-        root = false;
-        dying = false;
-        temporary = false;
-        terminator = null;
-        logRecord = log;
-        name = null;
+            rollbackOnly = false;
+            registered = false;
+            registeredSync = false;
+            root = false;
+            dying = false;
+            temporary = false;
+            terminator = null;
+            logRecord = log;
+            name = null;
 
-        // Zero out NestingInfo and Synchronizations references. These won't be
-        // needed for a recovered transaction.
+            // Zero out NestingInfo and Synchronizations references. These won't be
+            // needed for a recovered transaction.
 
-        nestingInfo = null;
-        synchronizations = null;
+            nestingInfo = null;
+            synchronizations = null;
 
-        // Use the result of the TransactionState reconstruction to
-        // decide whether to continue with recovery of this transaction.
+            // Use the result of the TransactionState reconstruction to
+            // decide whether to continue with recovery of this transaction.
 
-        tranState = new TransactionState();
-        int state = tranState.reconstruct(log);
-        if (state == TransactionState.STATE_NONE || state == TransactionState.STATE_COMMITTED ||
-        // state == TransactionState.STATE_COMMITTED_ONE_PHASE_OK ||
-        // state == TransactionState.STATE_COMMIT_ONE_PHASE_ROLLED_BACK ||
-                state == TransactionState.STATE_ROLLED_BACK) {
+            tranState = new TransactionState();
+            int state = tranState.reconstruct(log);
+            if (state == TransactionState.STATE_NONE || state == TransactionState.STATE_COMMITTED ||
+            // state == TransactionState.STATE_COMMITTED_ONE_PHASE_OK ||
+            // state == TransactionState.STATE_COMMIT_ONE_PHASE_ROLLED_BACK ||
+                    state == TransactionState.STATE_ROLLED_BACK) {
 
-            // If the transaction is discarded, then ensure that
-            // the log record is discarded.
+                // If the transaction is discarded, then ensure that
+                // the log record is discarded.
 
-            CoordinatorLog.removeLog(log.localTID);
-            destroy();
+                CoordinatorLog.removeLog(log.localTID);
+                destroy();
 
-        } else {
+            } else {
 
-            // Otherwise continue with reconstruction.
-            participants = new RegisteredResources(this);
-            participants.reconstruct(log);
+                // Otherwise continue with reconstruction.
+                participants = new RegisteredResources(this);
+                participants.reconstruct(log);
 
-            // Reconstruct the SuperiorInfo object. This will result in a
-            // call to RecoveryManager.addCoordinator (which is done
-            // because reconstruction of the object references in the
-            // SuperiorInfo requires the Coordinator to
-            // already be known to the RecoveryManager).
+                // Reconstruct the SuperiorInfo object. This will result in a
+                // call to RecoveryManager.addCoordinator (which is done
+                // because reconstruction of the object references in the
+                // SuperiorInfo requires the Coordinator to
+                // already be known to the RecoveryManager).
 
-            superInfo = new SuperiorInfo();
-            superInfo.reconstruct(log, this);
+                superInfo = new SuperiorInfo();
+                superInfo.reconstruct(log, this);
 
-            // Cache the name - create a buffer and print the
-            // global XID into it.
+                // Cache the name - create a buffer and print the
+                // global XID into it.
 
-            name = superInfo.globalTID.toString();
+                name = superInfo.globalTID.toString();
 
-            // Cache the hash value of the Coordinator.
+                // Cache the hash value of the Coordinator.
 
-            hash = superInfo.globalTID.hashCode();
+                hash = superInfo.globalTID.hashCode();
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -436,69 +452,74 @@ public class TopCoordinator extends CoordinatorImpl {
      *
      * @param logPath Location of the log file
      */
-    synchronized void delegated_reconstruct(CoordinatorLog log, String logPath) {
+    void delegated_reconstruct(CoordinatorLog log, String logPath) {
+        lock.lock();
+        try {
 
-        // Set up instance variables.
+            // Set up instance variables.
 
-        rollbackOnly = false;
-        registered = false;
-        registeredSync = false;
-        root = false;
-        dying = false;
-        temporary = false;
-        terminator = null;
-        logRecord = log;
-        name = null;
+            rollbackOnly = false;
+            registered = false;
+            registeredSync = false;
+            root = false;
+            dying = false;
+            temporary = false;
+            terminator = null;
+            logRecord = log;
+            name = null;
 
-        // Zero out NestingInfo and Synchronizations references. These won't be
-        // needed for a recovered transaction.
+            // Zero out NestingInfo and Synchronizations references. These won't be
+            // needed for a recovered transaction.
 
-        nestingInfo = null;
-        synchronizations = null;
+            nestingInfo = null;
+            synchronizations = null;
 
-        delegated = true;
-        this.logPath = logPath;
+            delegated = true;
+            this.logPath = logPath;
 
-        // Use the result of the TransactionState reconstruction to
-        // decide whether to continue with recovery of this transaction.
+            // Use the result of the TransactionState reconstruction to
+            // decide whether to continue with recovery of this transaction.
 
-        tranState = new TransactionState();
-        // int state = tranState.delegated_reconstruct(log);
-        int state = tranState.reconstruct(log);
-        if (state == TransactionState.STATE_NONE || state == TransactionState.STATE_COMMITTED ||
-        // state == TransactionState.STATE_COMMITTED_ONE_PHASE_OK ||
-        // state == TransactionState.STATE_COMMIT_ONE_PHASE_ROLLED_BACK ||
-                state == TransactionState.STATE_ROLLED_BACK) {
+            tranState = new TransactionState();
+            // int state = tranState.delegated_reconstruct(log);
+            int state = tranState.reconstruct(log);
+            if (state == TransactionState.STATE_NONE || state == TransactionState.STATE_COMMITTED ||
+            // state == TransactionState.STATE_COMMITTED_ONE_PHASE_OK ||
+            // state == TransactionState.STATE_COMMIT_ONE_PHASE_ROLLED_BACK ||
+                    state == TransactionState.STATE_ROLLED_BACK) {
 
-            // If the transaction is discarded, then ensure that
-            // the log record is discarded.
+                // If the transaction is discarded, then ensure that
+                // the log record is discarded.
 
-            CoordinatorLog.removeLog(log.localTID, logPath);
-            destroy();
+                CoordinatorLog.removeLog(log.localTID, logPath);
+                destroy();
 
-        } else {
+            } else {
 
-            // Otherwise continue with reconstruction.
-            participants = new RegisteredResources(this);
-            participants.reconstruct(log);
+                // Otherwise continue with reconstruction.
+                participants = new RegisteredResources(this);
+                participants.reconstruct(log);
 
-            // Reconstruct the SuperiorInfo object. This will result in a
-            // call to RecoveryManager.addCoordinator (which is done
-            // because reconstruction of the object references in the
-            // SuperiorInfo requires the Coordinator to
-            // already be known to the RecoveryManager).
+                // Reconstruct the SuperiorInfo object. This will result in a
+                // call to RecoveryManager.addCoordinator (which is done
+                // because reconstruction of the object references in the
+                // SuperiorInfo requires the Coordinator to
+                // already be known to the RecoveryManager).
 
-            superInfo = new SuperiorInfo();
-            superInfo.delegated_reconstruct(log, this, logPath);
+                superInfo = new SuperiorInfo();
+                superInfo.delegated_reconstruct(log, this, logPath);
 
-            // Cache the name - create a buffer and print the
-            // global XID into it.
+                // Cache the name - create a buffer and print the
+                // global XID into it.
 
-            name = superInfo.globalTID.toString();
+                name = superInfo.globalTID.toString();
 
-            // Cache the hash value of the Coordinator.
+                // Cache the hash value of the Coordinator.
 
-            hash = superInfo.globalTID.hashCode();
+                hash = superInfo.globalTID.hashCode();
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -513,202 +534,207 @@ public class TopCoordinator extends CoordinatorImpl {
      *
      * @return The state of the recovered transaction.
      */
-    synchronized Status recover(boolean[/* 1 */] isRoot) {
+    Status recover(boolean[/* 1 */] isRoot) {
+        lock.lock();
+        try {
 
-        Status result;
+            Status result;
+
+            // Determine the global outcome using the transactions state for a root
+            // Coordinator, or the RecoveryCoordinator for a subordinate.
+
+            if (superInfo.recovery != null) {
+
+                // For a subordinate, first check whether the global
+                // outcome is known locally.
+
+                // GDH COP For the commit_one_phase operations we need to do the
+                // following ultimately. However for all c-o-p operations
+                // We know that the CLIENT/Superior chose to COMMIT.
+                // Also for all c-o-p operations that are 'past tense'
+                // the direction (commit or rolled back) is not really
+                // important as we are using c-o-p for single resources
+                // not last agent in CORBA CosTransactions.
+                //
+                // For clarity, all c-o-p states return a commited direction,
+                // This is counter intuative but logicaly correct (unimportant)
+                // even for COMMIT_ONE_PHASE_ROLLED_BACK.
+                // A well behaved resource will not contact us in any of the
+                // 'past tense' c-o-p states anyway as they have already returned
+                // from a c-o-p op and can expect no further flows
+                // (apart from forget perhaps).
+                // When it comes to real resource flows we must be careful to
+                // cause the following actions based on state:
+                //
+                // STATE_COMMITTING_ONE_PHASE
+                // (We only ever enter this state if we have one resource
+                // even if the c-o-p method was called on our CoordinatorResource)
+                // The transaction was partway through a commit_one_phase
+                // operation when the server failed.
+                // So the commit_one_phase needs to be called again.
+                // STATE COMMITTED_ONE_PHASE
+                // STATE COMMITTED_ONE_PHASE_ROLLEDBACK
+                // The transaction had just completed a commit_one_phase operation.
+                // Therefore all of the work for the downstream part of the
+                // transaction is over. The only work to do is to possibly report
+                // outcome to superior.
+                // STATE COMMIT_ONE_PHASE_HEURISTIC_MIXED
+                // STATE COMMIT_ONE_PHASE_HEURISTIC_HAZARD
+                // Part of the tree has made a heuristic decision. The forget
+                // message must flow to all subordinate coordinators to allow them
+                // to end.
+
+                switch (tranState.state) {
+
+                // GDH Due to the possibility of recovery being attempted
+                // on more than one thread we must cover the case where
+                // the transaction has actually COMMITTED already.
+
+                case TransactionState.STATE_COMMITTED:
+                    // GDH (added)
+                case TransactionState.STATE_COMMITTED_ONE_PHASE_OK:
+                    // GDH (added)
+                case TransactionState.STATE_COMMITTING_ONE_PHASE:
+                    // GDH (added)
+                case TransactionState.STATE_COMMIT_ONE_PHASE_ROLLED_BACK:
+                    // GDH (added)
+                case TransactionState.STATE_COMMITTING:
+                    result = Status.StatusCommitted;
+                    break;
+
+                // GDH Due to the possibility of recovery being attempted
+                // on more than one thread we must cover the case where
+                // the transaction has actually ROLLED_BACK already.
+
+                case TransactionState.STATE_ROLLED_BACK: // GDH (added)
+                case TransactionState.STATE_ROLLING_BACK:
+                    // GDH Note we do not need C-O-P_ROLLED_BACK Here as the actual
+                    // resource rolling back will be done already so it's academic.
+                    result = Status.StatusRolledBack;
+                    break;
 
-        // Determine the global outcome using the transactions state for a root
-        // Coordinator, or the RecoveryCoordinator for a subordinate.
+                // For a subordinate, the replay_completion method is invoked on
+                // the superior's RecoveryCoordinator. We may need to create a
+                // CoordinatorResource object to give to the superior in the case
+                // where we are in recovery. If the number of times
+                // the replay_completion has bee retried is greater than the value
+                // specified by COMMITRETRY, then HEURISTICDIRECTION is used
+                // to determine the transaction outcome.
 
-        if (superInfo.recovery != null) {
+                default:
 
-            // For a subordinate, first check whether the global
-            // outcome is known locally.
+                    boolean attemptRetry = true;
+                    // String commitRetryVar;
+                    // int commitRetries = 0;
 
-            // GDH COP For the commit_one_phase operations we need to do the
-            // following ultimately. However for all c-o-p operations
-            // We know that the CLIENT/Superior chose to COMMIT.
-            // Also for all c-o-p operations that are 'past tense'
-            // the direction (commit or rolled back) is not really
-            // important as we are using c-o-p for single resources
-            // not last agent in CORBA CosTransactions.
-            //
-            // For clarity, all c-o-p states return a commited direction,
-            // This is counter intuative but logicaly correct (unimportant)
-            // even for COMMIT_ONE_PHASE_ROLLED_BACK.
-            // A well behaved resource will not contact us in any of the
-            // 'past tense' c-o-p states anyway as they have already returned
-            // from a c-o-p op and can expect no further flows
-            // (apart from forget perhaps).
-            // When it comes to real resource flows we must be careful to
-            // cause the following actions based on state:
-            //
-            // STATE_COMMITTING_ONE_PHASE
-            // (We only ever enter this state if we have one resource
-            // even if the c-o-p method was called on our CoordinatorResource)
-            // The transaction was partway through a commit_one_phase
-            // operation when the server failed.
-            // So the commit_one_phase needs to be called again.
-            // STATE COMMITTED_ONE_PHASE
-            // STATE COMMITTED_ONE_PHASE_ROLLEDBACK
-            // The transaction had just completed a commit_one_phase operation.
-            // Therefore all of the work for the downstream part of the
-            // transaction is over. The only work to do is to possibly report
-            // outcome to superior.
-            // STATE COMMIT_ONE_PHASE_HEURISTIC_MIXED
-            // STATE COMMIT_ONE_PHASE_HEURISTIC_HAZARD
-            // Part of the tree has made a heuristic decision. The forget
-            // message must flow to all subordinate coordinators to allow them
-            // to end.
+                    // If COMMITRETRY is not set, then retry is infinite.
+                    // Otherwise check that
+                    // the current number of retries is less than the limit.
 
-            switch (tranState.state) {
+                    /**
+                     * commitRetryVar = Configuration. getPropertyValue(Configuration.COMMIT_RETRY); if (commitRetryVar != null) { try {
+                     * commitRetries = Integer.parseInt(commitRetryVar); } catch( NumberFormatException exc ) {}
+                     *
+                     * if (superInfo.resyncRetries() >= commitRetries) { attemptRetry = false; } }
+                     **/
+                    int commitRetries = Configuration.getRetries();
+                    if (commitRetries >= 0 && (superInfo.resyncRetries() >= commitRetries)) {
+                        attemptRetry = false;
+                    }
 
-            // GDH Due to the possibility of recovery being attempted
-            // on more than one thread we must cover the case where
-            // the transaction has actually COMMITTED already.
+                    if (!attemptRetry) {
 
-            case TransactionState.STATE_COMMITTED:
-                // GDH (added)
-            case TransactionState.STATE_COMMITTED_ONE_PHASE_OK:
-                // GDH (added)
-            case TransactionState.STATE_COMMITTING_ONE_PHASE:
-                // GDH (added)
-            case TransactionState.STATE_COMMIT_ONE_PHASE_ROLLED_BACK:
-                // GDH (added)
-            case TransactionState.STATE_COMMITTING:
-                result = Status.StatusCommitted;
-                break;
+                        // If we are not to attempt a retry of the
+                        // replay_completion method, then the HEURISTICDIRECTION
+                        // environment variable is used to get the global outcome.
 
-            // GDH Due to the possibility of recovery being attempted
-            // on more than one thread we must cover the case where
-            // the transaction has actually ROLLED_BACK already.
+                        String heuristicVar;
+                        boolean commitTransaction = false;
+                        result = Status.StatusRolledBack;
 
-            case TransactionState.STATE_ROLLED_BACK: // GDH (added)
-            case TransactionState.STATE_ROLLING_BACK:
-                // GDH Note we do not need C-O-P_ROLLED_BACK Here as the actual
-                // resource rolling back will be done already so it's academic.
-                result = Status.StatusRolledBack;
-                break;
+                        heuristicVar = Configuration.getPropertyValue(Configuration.HEURISTIC_DIRECTION);
 
-            // For a subordinate, the replay_completion method is invoked on
-            // the superior's RecoveryCoordinator. We may need to create a
-            // CoordinatorResource object to give to the superior in the case
-            // where we are in recovery. If the number of times
-            // the replay_completion has bee retried is greater than the value
-            // specified by COMMITRETRY, then HEURISTICDIRECTION is used
-            // to determine the transaction outcome.
+                        if (heuristicVar != null) {
+                            commitTransaction = (heuristicVar.charAt(0) == '1');
+                        }
 
-            default:
+                        if (commitTransaction) {
+                            result = Status.StatusCommitted;
+                        }
 
-                boolean attemptRetry = true;
-                // String commitRetryVar;
-                // int commitRetries = 0;
+                    } else {
 
-                // If COMMITRETRY is not set, then retry is infinite.
-                // Otherwise check that
-                // the current number of retries is less than the limit.
+                        // Otherwise, use the RecoveryCoordinator to get
+                        // the global outcome. Get the global outcome
+                        // from the superior's RecoveryCoordinator.
+
+                        try {
+                            if (_logger.isLoggable(Level.FINE)) {
+                                _logger.logp(Level.FINE, "TopCoordinator", "recover",
+                                        "Before invoking replay_completion on Superior Coordinator");
+                            }
+                            if (!delegated) {
+                                result = superInfo.recovery.replay_completion(superInfo.resource);
+                            } else {
+                                result = ((RecoveryCoordinatorImpl) (superInfo.recovery)).replay_completion(superInfo.resource, logPath);
+                            }
+
+                            // GDH
+                            // If the global result is returned as COMMITTING we
+                            // know the outcome of the global transaction
+                            // is COMMITTED.
+
+                            if (result == Status.StatusCommitting) {
+                                result = Status.StatusCommitted;
+                            }
+                        } catch (Throwable exc) {
+                            _logger.log(Level.FINE, "", exc);
+                            // If the exception is neither TRANSIENT or
+                            // COMM_FAILURE, it isunexpected, so display a message
+                            // and assume that the transaction has rolled back.
+
+                            if (!(exc instanceof COMM_FAILURE) && !(exc instanceof TRANSIENT)) {
+                                result = Status.StatusRolledBack;
+                            } else {
+                                // For TRANSIENT or COMM_FAILURE, the outcome
+                                // is unknown.
+                                result = Status.StatusUnknown;
+                            }
+                        }
+                    }
 
-                /**
-                 * commitRetryVar = Configuration. getPropertyValue(Configuration.COMMIT_RETRY); if (commitRetryVar != null) { try {
-                 * commitRetries = Integer.parseInt(commitRetryVar); } catch( NumberFormatException exc ) {}
-                 *
-                 * if (superInfo.resyncRetries() >= commitRetries) { attemptRetry = false; } }
-                 **/
-                int commitRetries = Configuration.getRetries();
-                if (commitRetries >= 0 && (superInfo.resyncRetries() >= commitRetries)) {
-                    attemptRetry = false;
+                    break;
                 }
 
-                if (!attemptRetry) {
+                // Clear the root Coordinator flag to indicate that
+                // this is not the root.
 
-                    // If we are not to attempt a retry of the
-                    // replay_completion method, then the HEURISTICDIRECTION
-                    // environment variable is used to get the global outcome.
+                root = false;
 
-                    String heuristicVar;
-                    boolean commitTransaction = false;
-                    result = Status.StatusRolledBack;
-
-                    heuristicVar = Configuration.getPropertyValue(Configuration.HEURISTIC_DIRECTION);
-
-                    if (heuristicVar != null) {
-                        commitTransaction = (heuristicVar.charAt(0) == '1');
-                    }
+            } else {
 
-                    if (commitTransaction) {
-                        result = Status.StatusCommitted;
-                    }
+                // For a top-level Coordinator, we will generally only
+                // recover in the case where we have successfully prepared.
+                // If the state is not prepared_success,
+                // then assume it is rollback.
 
+                if (tranState.state == TransactionState.STATE_PREPARED_SUCCESS) {
+                    result = Status.StatusCommitted;
                 } else {
-
-                    // Otherwise, use the RecoveryCoordinator to get
-                    // the global outcome. Get the global outcome
-                    // from the superior's RecoveryCoordinator.
-
-                    try {
-                        if (_logger.isLoggable(Level.FINE)) {
-                            _logger.logp(Level.FINE, "TopCoordinator", "recover",
-                                    "Before invoking replay_completion on Superior Coordinator");
-                        }
-                        if (!delegated) {
-                            result = superInfo.recovery.replay_completion(superInfo.resource);
-                        } else {
-                            result = ((RecoveryCoordinatorImpl) (superInfo.recovery)).replay_completion(superInfo.resource, logPath);
-                        }
-
-                        // GDH
-                        // If the global result is returned as COMMITTING we
-                        // know the outcome of the global transaction
-                        // is COMMITTED.
-
-                        if (result == Status.StatusCommitting) {
-                            result = Status.StatusCommitted;
-                        }
-                    } catch (Throwable exc) {
-                        _logger.log(Level.FINE, "", exc);
-                        // If the exception is neither TRANSIENT or
-                        // COMM_FAILURE, it isunexpected, so display a message
-                        // and assume that the transaction has rolled back.
-
-                        if (!(exc instanceof COMM_FAILURE) && !(exc instanceof TRANSIENT)) {
-                            result = Status.StatusRolledBack;
-                        } else {
-                            // For TRANSIENT or COMM_FAILURE, the outcome
-                            // is unknown.
-                            result = Status.StatusUnknown;
-                        }
-                    }
+                    result = Status.StatusRolledBack;
                 }
 
-                break;
-            }
-
-            // Clear the root Coordinator flag to indicate that
-            // this is not the root.
+                // Set the root Coordinator flag to indicate that this is the root.
 
-            root = false;
-
-        } else {
-
-            // For a top-level Coordinator, we will generally only
-            // recover in the case where we have successfully prepared.
-            // If the state is not prepared_success,
-            // then assume it is rollback.
-
-            if (tranState.state == TransactionState.STATE_PREPARED_SUCCESS) {
-                result = Status.StatusCommitted;
-            } else {
-                result = Status.StatusRolledBack;
+                root = true;
             }
 
-            // Set the root Coordinator flag to indicate that this is the root.
+            isRoot[0] = root;
 
-            root = true;
+            return result;
+        } finally {
+            lock.unlock();
         }
-
-        isRoot[0] = root;
-
-        return result;
     }
 
     /**
@@ -974,16 +1000,21 @@ public class TopCoordinator extends CoordinatorImpl {
      * @return The hash value for the transaction.
      */
     @Override
-    synchronized public int hash_top_level_tran() {
-        int result = hash;
+    public int hash_top_level_tran() {
+        lock.lock();
+        try {
+            int result = hash;
 
-        if (tranState == null) {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
+            if (tranState == null) {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.Completed, CompletionStatus.COMPLETED_NO);
 
-            throw exc;
-        }
+                throw exc;
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1000,146 +1031,151 @@ public class TopCoordinator extends CoordinatorImpl {
      * has been marked rollback-only.
      */
     @Override
-    synchronized public RecoveryCoordinator register_resource(Resource res) throws Inactive, TRANSACTION_ROLLEDBACK {
+    public RecoveryCoordinator register_resource(Resource res) throws Inactive, TRANSACTION_ROLLEDBACK {
+        lock.lock();
+        try {
 
-        RecoveryCoordinator result = null;
+            RecoveryCoordinator result = null;
 
-        // First check the state of the transaction. If it is not active,
-        // do not allow the registration.
+            // First check the state of the transaction. If it is not active,
+            // do not allow the registration.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
-            Inactive exc = new Inactive();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
+                Inactive exc = new Inactive();
+                throw exc;
+            }
 
-        // Check whether the transaction has been marked rollback-only.
+            // Check whether the transaction has been marked rollback-only.
 
-        if (rollbackOnly) {
-            TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            if (rollbackOnly) {
+                TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        // If not previously registered, a CoordinatorResource object must be
-        // registered with our superior. Note that root TopCoordinators are
-        // created with the registration flag set, so we do not need to
-        // check whether we are the root TopCoordinator here.
+            // If not previously registered, a CoordinatorResource object must be
+            // registered with our superior. Note that root TopCoordinators are
+            // created with the registration flag set, so we do not need to
+            // check whether we are the root TopCoordinator here.
 
-        if (!registered && DefaultTransactionService.isORBAvailable()) {
+            if (!registered && DefaultTransactionService.isORBAvailable()) {
 
-            // Initialise the CoordinatorResource with the local id,
-            // our reference, and a flag to indicate that it does not
-            // represent a subtransaction.
+                // Initialise the CoordinatorResource with the local id,
+                // our reference, and a flag to indicate that it does not
+                // represent a subtransaction.
 
-            CoordinatorResourceImpl cImpl = new CoordinatorResourceImpl(superInfo.globalTID, this, false);
+                CoordinatorResourceImpl cImpl = new CoordinatorResourceImpl(superInfo.globalTID, this, false);
 
-            try {
+                try {
 
-                // Register the CoordinatorResource with the superior
-                // Coordinator, and store the resulting RecoveryCoordinator
-                // reference.
+                    // Register the CoordinatorResource with the superior
+                    // Coordinator, and store the resulting RecoveryCoordinator
+                    // reference.
 
-                CoordinatorResource cRes = cImpl.object();
-                RecoveryCoordinator superRecovery = superInfo.superior.register_resource(cRes);
-                if (!(superRecovery instanceof TxInflowRecoveryCoordinator)) {
-                    superInfo.setRecovery(superRecovery);
-                }
-                superInfo.setResource(cRes);
-                registered = true;
-                if (_logger.isLoggable(Level.FINEST)) {
-                    _logger.logp(Level.FINEST, "TopCoordinator", "register_resource()", "CoordinatorResource " + cImpl
-                            + " has been registered with (Root)TopCoordinator" + superInfo.globalTID.toString());
-                }
+                    CoordinatorResource cRes = cImpl.object();
+                    RecoveryCoordinator superRecovery = superInfo.superior.register_resource(cRes);
+                    if (!(superRecovery instanceof TxInflowRecoveryCoordinator)) {
+                        superInfo.setRecovery(superRecovery);
+                    }
+                    superInfo.setResource(cRes);
+                    registered = true;
+                    if (_logger.isLoggable(Level.FINEST)) {
+                        _logger.logp(Level.FINEST, "TopCoordinator", "register_resource()", "CoordinatorResource " + cImpl
+                                + " has been registered with (Root)TopCoordinator" + superInfo.globalTID.toString());
+                    }
 
-            } catch (Exception exc) {
+                } catch (Exception exc) {
 
-                // If an exception was raised, do not store the
-                // RecoveryCoordinator or set the registration flag.
-                // Throw an internal exception.
+                    // If an exception was raised, do not store the
+                    // RecoveryCoordinator or set the registration flag.
+                    // Throw an internal exception.
 
-                cImpl.destroy();
+                    cImpl.destroy();
 
-                if (exc instanceof OBJECT_NOT_EXIST) {
+                    if (exc instanceof OBJECT_NOT_EXIST) {
 
-                    // If the exception is a system exception, then allow it
-                    // to percolate to the caller.
-                    TRANSACTION_ROLLEDBACK ex2 = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-                    ex2.initCause(exc);
-                    throw ex2;
-                }
+                        // If the exception is a system exception, then allow it
+                        // to percolate to the caller.
+                        TRANSACTION_ROLLEDBACK ex2 = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                        ex2.initCause(exc);
+                        throw ex2;
+                    }
 
-                if (exc instanceof Inactive) {
-                    throw (Inactive) exc;
-                }
+                    if (exc instanceof Inactive) {
+                        throw (Inactive) exc;
+                    }
 
-                if (exc instanceof SystemException) {
-                    throw (SystemException) exc;
-                }
+                    if (exc instanceof SystemException) {
+                        throw (SystemException) exc;
+                    }
 
-                // Otherwise throw an internal exception.
+                    // Otherwise throw an internal exception.
 
-                INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
-                ex2.initCause(exc);
-                throw ex2;
+                    INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
+                    ex2.initCause(exc);
+                    throw ex2;
+                }
             }
-        }
 
-        // If the set has not already been created, create it now.
+            // If the set has not already been created, create it now.
 
-        if (participants == null) {
-            participants = new RegisteredResources(logRecord, this);
-        }
+            if (participants == null) {
+                participants = new RegisteredResources(logRecord, this);
+            }
 
-        // Add a duplicate of the reference to the set. This is done
-        // because if the registration is for a remote object, the proxy
-        // will be freed when the registration request returns.
-
-        // COMMENT(Ram J) if the res object is a local servant, there is
-        // no proxy involved. Also, the instanceof operator could be replaced
-        // by a is_local() method if this class implements the CORBA local
-        // object contract.
-        int numRes = 0;
-        if (res instanceof OTSResourceImpl) {
-            numRes = participants.addRes(res);
-            if (_logger.isLoggable(Level.FINEST)) {
-                _logger.logp(Level.FINEST, "TopCoordinator", "register_resource()",
-                        "OTSResource " + res + " has been registered, GTID is:" + superInfo.globalTID.toString());
+            // Add a duplicate of the reference to the set. This is done
+            // because if the registration is for a remote object, the proxy
+            // will be freed when the registration request returns.
+
+            // COMMENT(Ram J) if the res object is a local servant, there is
+            // no proxy involved. Also, the instanceof operator could be replaced
+            // by a is_local() method if this class implements the CORBA local
+            // object contract.
+            int numRes = 0;
+            if (res instanceof OTSResourceImpl) {
+                numRes = participants.addRes(res);
+                if (_logger.isLoggable(Level.FINEST)) {
+                    _logger.logp(Level.FINEST, "TopCoordinator", "register_resource()",
+                            "OTSResource " + res + " has been registered, GTID is:" + superInfo.globalTID.toString());
+                }
+
+            } else {
+                numRes = participants.addRes((Resource) res._duplicate());
             }
 
-        } else {
-            numRes = participants.addRes((Resource) res._duplicate());
-        }
+            temporary = false;
 
-        temporary = false;
+            // Create, initialise and return a RecoveryCoordinator
+            // object to the caller.
 
-        // Create, initialise and return a RecoveryCoordinator
-        // object to the caller.
+            // COMMENT(Ram J) a RecoveryCoordinator object need not be
+            // created for local resources.
+            if (!(res instanceof OTSResourceImpl)) {
+                RecoveryCoordinatorImpl rcImpl = null;
+                try {
+                    rcImpl = new RecoveryCoordinatorImpl(superInfo.globalTID, numRes);
+                    result = rcImpl.object();
+                } catch (Exception exc) {
 
-        // COMMENT(Ram J) a RecoveryCoordinator object need not be
-        // created for local resources.
-        if (!(res instanceof OTSResourceImpl)) {
-            RecoveryCoordinatorImpl rcImpl = null;
-            try {
-                rcImpl = new RecoveryCoordinatorImpl(superInfo.globalTID, numRes);
-                result = rcImpl.object();
-            } catch (Exception exc) {
+                    // If the RecoveryCoordinator could not be created,
+                    // report the exception.
 
-                // If the RecoveryCoordinator could not be created,
-                // report the exception.
+                    INTERNAL ex2 = new INTERNAL(MinorCode.RecCoordCreateFailed, CompletionStatus.COMPLETED_NO);
+                    ex2.initCause(exc);
+                    throw ex2;
+                }
 
-                INTERNAL ex2 = new INTERNAL(MinorCode.RecCoordCreateFailed, CompletionStatus.COMPLETED_NO);
-                ex2.initCause(exc);
-                throw ex2;
+                // ADD(Ram J) memory leak fix. All Recovery Coordinators need
+                // to be cleanedup when the transaction completes.
+                if (recoveryCoordinatorList == null) {
+                    recoveryCoordinatorList = new Vector();
+                }
+                recoveryCoordinatorList.add(rcImpl);
             }
 
-            // ADD(Ram J) memory leak fix. All Recovery Coordinators need
-            // to be cleanedup when the transaction completes.
-            if (recoveryCoordinatorList == null) {
-                recoveryCoordinatorList = new Vector();
-            }
-            recoveryCoordinatorList.add(rcImpl);
+            return result;
+        } finally {
+            lock.unlock();
         }
-
-        return result;
     }
 
     /**
@@ -1151,9 +1187,14 @@ public class TopCoordinator extends CoordinatorImpl {
      * @exception NotSubtransaction The Coordinator represents a top-level transaction and cannot accept the registration.
      */
     @Override
-    synchronized public void register_subtran_aware(SubtransactionAwareResource sares) throws NotSubtransaction {
-        NotSubtransaction exc = new NotSubtransaction();
-        throw exc;
+    public void register_subtran_aware(SubtransactionAwareResource sares) throws NotSubtransaction {
+        lock.lock();
+        try {
+            NotSubtransaction exc = new NotSubtransaction();
+            throw exc;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1171,6 +1212,14 @@ public class TopCoordinator extends CoordinatorImpl {
         rollbackOnly = true;
     }
 
+    /**
+     * Requires the commit of the transaction to return only once all Resources have committed, even when the asynchronous
+     * second phase is enabled.
+     */
+    public void requireStrictCompletion() {
+        strictCompletion = true;
+    }
+
     /**
      * Returns a printable string that represents the TopCoordinator. This operation references only the global TID, and so
      * can be implemented locally in a proxy class.
@@ -1201,64 +1250,69 @@ public class TopCoordinator extends CoordinatorImpl {
      * @exception Inactive The Coordinator is completing the subtransaction and cannot create a new child.
      */
     @Override
-    synchronized public Control create_subtransaction() throws Inactive {
+    public Control create_subtransaction() throws Inactive {
+        lock.lock();
+        try {
 
-        Control result = null;
+            Control result = null;
 
-        // First check the state of the transaction. If it is not active,
-        // do not allow the subtransaction to be created.
+            // First check the state of the transaction. If it is not active,
+            // do not allow the subtransaction to be created.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
-            Inactive exc = new Inactive();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
+                Inactive exc = new Inactive();
+                throw exc;
+            }
 
-        // Set up the sequence of ancestors to hold the single reference
-        // and global identifier of the top-level
-        // TopCoordinator as there are no ancestors.
-        // We do not need to make a copy of the global TID as this is done
-        // by the factory when it creates the child.
+            // Set up the sequence of ancestors to hold the single reference
+            // and global identifier of the top-level
+            // TopCoordinator as there are no ancestors.
+            // We do not need to make a copy of the global TID as this is done
+            // by the factory when it creates the child.
 
-        CoordinatorImpl[] ancestors = new CoordinatorImpl[1];
-        ancestors[0] = this;
+            CoordinatorImpl[] ancestors = new CoordinatorImpl[1];
+            ancestors[0] = this;
 
-        // Create a new SubCoordinator, and initialise it with the given
-        // identifiers and ancestry. If the operation fails,
-        // return a NULL Control object, and
-        // the SubtransactionsUnavailable exception. Note that the
-        // ancestor sequence is not copied by the creation operation.
+            // Create a new SubCoordinator, and initialise it with the given
+            // identifiers and ancestry. If the operation fails,
+            // return a NULL Control object, and
+            // the SubtransactionsUnavailable exception. Note that the
+            // ancestor sequence is not copied by the creation operation.
 
-        SubCoordinator child = null;
-        TerminatorImpl terminator = null;
-        try {
-            child = new SubCoordinator(superInfo.globalTID, superInfo.localTID, ancestors);
+            SubCoordinator child = null;
+            TerminatorImpl terminator = null;
+            try {
+                child = new SubCoordinator(superInfo.globalTID, superInfo.localTID, ancestors);
 
-            // Create a Terminator object, and initialise it with the
-            // SubCoordinator reference and a flag to indicate that it
-            // represents a subtransaction.
+                // Create a Terminator object, and initialise it with the
+                // SubCoordinator reference and a flag to indicate that it
+                // represents a subtransaction.
 
-            terminator = new TerminatorImpl(child, true);
+                terminator = new TerminatorImpl(child, true);
 
-            // Create a Control object, and initialise it with the Terminator,
-            // SubCoordinator and global OMGtid.
+                // Create a Control object, and initialise it with the Terminator,
+                // SubCoordinator and global OMGtid.
 
-            result = new ControlImpl(terminator, child, new GlobalTID(child.getGlobalTID()), child.getLocalTID()).object();
-        } catch (Throwable exc) {
-            Inactive ex2 = new Inactive();
-            ex2.initCause(exc);
-            throw ex2;
-        }
+                result = new ControlImpl(terminator, child, new GlobalTID(child.getGlobalTID()), child.getLocalTID()).object();
+            } catch (Throwable exc) {
+                Inactive ex2 = new Inactive();
+                ex2.initCause(exc);
+                throw ex2;
+            }
 
-        // If the operation succeeded, add the new child to the set
-        // of children. Ensure that the NestingInfo object is set up.
+            // If the operation succeeded, add the new child to the set
+            // of children. Ensure that the NestingInfo object is set up.
 
-        if (nestingInfo == null) {
-            nestingInfo = new NestingInfo();
-        }
+            if (nestingInfo == null) {
+                nestingInfo = new NestingInfo();
+            }
 
-        nestingInfo.addChild(child);
+            nestingInfo.addChild(child);
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1314,60 +1368,65 @@ public class TopCoordinator extends CoordinatorImpl {
      * @exception SystemException An error occurred. The minor code indicates the reason for the exception.
      */
     @Override
-    synchronized CoordinatorImpl replyAction(int[/* 1 */] action) throws SystemException {
-        CoordinatorImpl result = null;
-        action[0] = CoordinatorImpl.doNothing;
+    CoordinatorImpl replyAction(int[/* 1 */] action) throws SystemException {
+        lock.lock();
+        try {
+            CoordinatorImpl result = null;
+            action[0] = CoordinatorImpl.doNothing;
 
-        // If this Coordinator is not a root, and there are active children,
-        // report that fact to the caller. If the NestingInfo instance variable
-        // has not been set up, there are no children.
+            // If this Coordinator is not a root, and there are active children,
+            // report that fact to the caller. If the NestingInfo instance variable
+            // has not been set up, there are no children.
 
-        if (!root && nestingInfo != null && nestingInfo.replyCheck()) {
+            if (!root && nestingInfo != null && nestingInfo.replyCheck()) {
 
-            action[0] = CoordinatorImpl.activeChildren;
+                action[0] = CoordinatorImpl.activeChildren;
 
-            // If there are no active children, then check whether this
-            // transaction needs to be destroyed, or registered on reply.
+                // If there are no active children, then check whether this
+                // transaction needs to be destroyed, or registered on reply.
 
-        } else {
+            } else {
 
-            // If there are participants, and we have not registered,
-            // raise an exception.
+                // If there are participants, and we have not registered,
+                // raise an exception.
 
-            if (!registered) {
-                if (participants != null && participants.involved()) {
+                if (!registered) {
+                    if (participants != null && participants.involved()) {
 
-                    INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
-                    throw ex2;
-                } else if (!registeredSync) {
-                    action[0] = forgetMe;
+                        INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
+                        throw ex2;
+                    } else if (!registeredSync) {
+                        action[0] = forgetMe;
+                    }
                 }
-            }
-
-            // If there are synchronization objects, and we have not
-            // registered, raise an exception.
 
-            if (!registeredSync) {
-                if (synchronizations != null && synchronizations.involved()) {
-
-                    INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
-                    throw ex2;
-                } else if (action[0] == doNothing && !registered) {
-                    // If we are not registered, and have no participants,
-                    // we have no reason to exist, so tell the caller to
-                    // forget about us. The TransactionManager will take
-                    // care of cleaning everything else up when
-                    // it receives the forgetMe response.
-                    action[0] = forgetMe;
+                // If there are synchronization objects, and we have not
+                // registered, raise an exception.
+
+                if (!registeredSync) {
+                    if (synchronizations != null && synchronizations.involved()) {
+
+                        INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
+                        throw ex2;
+                    } else if (action[0] == doNothing && !registered) {
+                        // If we are not registered, and have no participants,
+                        // we have no reason to exist, so tell the caller to
+                        // forget about us. The TransactionManager will take
+                        // care of cleaning everything else up when
+                        // it receives the forgetMe response.
+                        action[0] = forgetMe;
+                    }
                 }
             }
-        }
 
-        // Default action is do nothing when we are registered.
+            // Default action is do nothing when we are registered.
 
-        result = null;
+            result = null;
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1376,11 +1435,16 @@ public class TopCoordinator extends CoordinatorImpl {
      * @return The local transaction identifier.
      */
     @Override
-    synchronized Long setPermanent() {
+    Long setPermanent() {
+        lock.lock();
+        try {
 
-        Long result = superInfo.localTID;
-        temporary = false;
-        return result;
+            Long result = superInfo.localTID;
+            temporary = false;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1389,7 +1453,7 @@ public class TopCoordinator extends CoordinatorImpl {
      * @return Indicates whether the transaction is rollback-only.
      */
     @Override
-    synchronized public boolean isRollbackOnly() {
+    public boolean isRollbackOnly() {
         return rollbackOnly;
     }
 
@@ -1399,8 +1463,13 @@ public class TopCoordinator extends CoordinatorImpl {
      * @return Indicates the transaction is active.
      */
     @Override
-    synchronized boolean isActive() {
-        return tranState.state == TransactionState.STATE_ACTIVE;
+    boolean isActive() {
+        lock.lock();
+        try {
+            return tranState.state == TransactionState.STATE_ACTIVE;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1409,7 +1478,7 @@ public class TopCoordinator extends CoordinatorImpl {
      * @return Indicates the registration status.
      */
     @Override
-    synchronized boolean hasRegistered() {
+    boolean hasRegistered() {
         return registered || registeredSync;
     }
 
@@ -1419,7 +1488,7 @@ public class TopCoordinator extends CoordinatorImpl {
      * @return The sequence of ancestors.
      */
     @Override
-    synchronized public TransIdentity[] getAncestors() {
+    public TransIdentity[] getAncestors() {
         return null;
     }
 
@@ -1433,19 +1502,24 @@ public class TopCoordinator extends CoordinatorImpl {
      * @see
      */
     @Override
-    synchronized boolean addChild(CoordinatorImpl child) {
-        boolean result;
+    boolean addChild(CoordinatorImpl child) {
+        lock.lock();
+        try {
+            boolean result;
 
-        // Make sure the NestingInfo instance variables is set up
-        // before adding the child.
+            // Make sure the NestingInfo instance variables is set up
+            // before adding the child.
 
-        if (nestingInfo == null) {
-            nestingInfo = new NestingInfo();
-        }
+            if (nestingInfo == null) {
+                nestingInfo = new NestingInfo();
+            }
 
-        result = nestingInfo.addChild(child);
+            result = nestingInfo.addChild(child);
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -1457,28 +1531,33 @@ public class TopCoordinator extends CoordinatorImpl {
      * @return Indicates success of the operation.
      */
     @Override
-    synchronized boolean removeChild(CoordinatorImpl child) {
+    boolean removeChild(CoordinatorImpl child) {
+        lock.lock();
+        try {
 
-        boolean result = false;
+            boolean result = false;
 
-        // Remove the child from the set of children. If the NestingInfo
-        // instance variable has not been set up, then the child cannot
-        // be removed.
+            // Remove the child from the set of children. If the NestingInfo
+            // instance variable has not been set up, then the child cannot
+            // be removed.
 
-        if (nestingInfo != null) {
-            result = nestingInfo.removeChild(child);
-        }
+            if (nestingInfo != null) {
+                result = nestingInfo.removeChild(child);
+            }
 
-        // If the removal results in an empty, temporary Coordinator, then this
-        // Coordinator must be cleaned up. The RecoveryManager is called to
-        // clean up the transaction.
+            // If the removal results in an empty, temporary Coordinator, then this
+            // Coordinator must be cleaned up. The RecoveryManager is called to
+            // clean up the transaction.
 
-        if (temporary && !registered && !(participants != null && participants.involved())
-                && !(synchronizations != null && synchronizations.involved()) && !(nestingInfo != null && nestingInfo.numChildren() > 0)) {
-            cleanUpEmpty(null);
-        }
+            if (temporary && !registered && !(participants != null && participants.involved())
+                    && !(synchronizations != null && synchronizations.involved()) && !(nestingInfo != null && nestingInfo.numChildren() > 0)) {
+                cleanUpEmpty(null);
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     static String[] resultName = { "Commit"/* #Frozen */, "Rollback"/* #Frozen */, "Read-only"/* #Frozen */ };
@@ -1501,7 +1580,8 @@ public class TopCoordinator extends CoordinatorImpl {
     Vote prepare() throws INVALID_TRANSACTION, HeuristicMixed, HeuristicHazard {
         // Until we actually distribute prepare flows, synchronize the method.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // First check for active children, before getting too far into
             // the prepare. This is only done for the root Coordinator as for
@@ -1537,6 +1617,8 @@ public class TopCoordinator extends CoordinatorImpl {
             // This is to allow the transaction to be marked rollback-only
             // (by resources)
 
+        } finally {
+            lock.unlock();
         } // synchronised bit
 
         // Get the RegisteredResources to distribute prepare operations.
@@ -1623,7 +1705,8 @@ public class TopCoordinator extends CoordinatorImpl {
 
         // The remainder of the method needs to be synchronized.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // If the transaction has been marked rollback-only during
             // this process, change the vote.
@@ -1684,6 +1767,8 @@ public class TopCoordinator extends CoordinatorImpl {
             } else if (!tranState.setState(TransactionState.STATE_PREPARED_FAIL)) {
                 overallResult = Vote.VoteRollback;
             }
+        } finally {
+            lock.unlock();
         }
 
         return overallResult;
@@ -1693,6 +1778,9 @@ public class TopCoordinator extends CoordinatorImpl {
      * Directs the TopCoordinator to commit the transaction. The TopCoordinator directs all registered Resources to commit.
      * If any Resources raise Heuristic exceptions, the information is recorded, and the Resources are directed to forget
      * the transaction before the Coordinator returns a heuristic exception to its caller.
+     * <p>
+     * When the asynchronous second phase is enabled, a root TopCoordinator returns as soon as the commit decision has been
+     * logged, unless strict completion has been required, and the CommitCompletionService directs the Resources to commit.
      *
      * @exception HeuristicMixed A Resource has taken an heuristic decision which has resulted in part of the transaction
      * being rolled back.
@@ -1702,10 +1790,12 @@ public class TopCoordinator extends CoordinatorImpl {
      */
     @Override
     void commit() throws HeuristicMixed, HeuristicHazard, NotPrepared {
+        boolean asynchronous;
 
         // Until we actually distribute prepare flows, synchronize the method.
 
-        synchronized (this) {
+        lock.lock();
+        try {
             if (_logger.isLoggable(Level.FINE)) {
                 _logger.logp(Level.FINE, "TopCoordinator", "commit()",
                         "Within TopCoordinator.commit()" + "GTID is :" + superInfo.globalTID.toString());
@@ -1741,10 +1831,50 @@ public class TopCoordinator extends CoordinatorImpl {
                 // throw exc;
             }
 
+            // If the commit decision is now in the log and the caller does not need
+            // to wait for the participants, leave them to the CommitCompletionService.
+            // Only a root driven by its CoordinatorTerm has a terminator here, and
+            // that calls afterCompletion once we return.
+
+            asynchronous = root && terminator != null && logRecord != null && participants != null && !strictCompletion
+                    && CommitCompletionService.isEnabled();
+            completionPending = asynchronous;
+
             // Release the lock before proceeding with commit.
 
+        } finally {
+            lock.unlock();
         }
 
+        if (asynchronous) {
+            if (CommitCompletionService.submit(this::completeCommit)) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                completionPending = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        completeCommit(false);
+    }
+
+    /**
+     * Directs all registered Resources to commit once the commit decision has been logged, then records that the
+     * transaction has committed.
+     *
+     * @param backoff Indicates that the commit is being completed by the CommitCompletionService.
+     *
+     * @exception HeuristicMixed A Resource has taken an heuristic decision which has resulted in part of the transaction
+     * being rolled back.
+     * @exception HeuristicHazard Indicates that heuristic decisions may have been taken which have resulted in part of the
+     * transaction being rolled back.
+     */
+    private void completeCommit(boolean backoff) throws HeuristicMixed, HeuristicHazard {
+
         // Commit all participants. If a fatal error occurs during
         // this method, then the process must be ended with a fatal error.
 
@@ -1752,7 +1882,7 @@ public class TopCoordinator extends CoordinatorImpl {
         Throwable internalExc = null;
         if (participants != null) {
             try {
-                participants.distributeCommit();
+                participants.distributeCommit(backoff);
             } catch (Throwable exc) {
                 if (exc instanceof HeuristicMixed || exc instanceof HeuristicHazard) {
                     heuristicExc = exc;
@@ -1769,7 +1899,8 @@ public class TopCoordinator extends CoordinatorImpl {
 
         // The remainder of the method needs to be synchronized.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // Record that objects have been told to commit.
 
@@ -1827,6 +1958,35 @@ public class TopCoordinator extends CoordinatorImpl {
             } else if (internalExc != null) {
                 throw (INTERNAL) internalExc;
             }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes a commit on a thread of the CommitCompletionService. The caller has already been told that the
+     * transaction committed, so a heuristic outcome is only logged. The Synchronizations are told that the transaction
+     * completed, and the TopCoordinator is released, once both this and afterCompletion have been called, so resources
+     * released by the Synchronizations are not reused while their participants commit, and the transaction stays known
+     * to recovery until all participants have committed.
+     */
+    private void completeCommit() {
+        try {
+            completeCommit(true);
+        } catch (HeuristicMixed | HeuristicHazard exc) {
+            _logger.log(Level.WARNING, "Heuristic outcome of the commit of transaction " + superInfo.globalTID, exc);
+        } catch (Throwable exc) {
+            _logger.log(Level.WARNING, "", exc);
+        }
+
+        lock.lock();
+        try {
+            completionPending = false;
+            if (afterCompletionPending != null) {
+                completeAfter(afterCompletionPending);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -1847,7 +2007,8 @@ public class TopCoordinator extends CoordinatorImpl {
 
         // Until we actually distribute prepare flows, synchronize the method.
 
-        synchronized (this) {
+        lock.lock();
+        try {
             if (_logger.isLoggable(Level.FINE)) {
                 _logger.logp(Level.FINE, "TopCoordinator", "rollback()",
                         "Within TopCoordinator.rollback() :" + "GTID is : " + superInfo.globalTID.toString());
@@ -1908,6 +2069,8 @@ public class TopCoordinator extends CoordinatorImpl {
 
             // Release the lock before proceeding with rollback.
 
+        } finally {
+            lock.unlock();
         }
 
         // Roll back all participants. If a fatal error occurs during
@@ -1931,7 +2094,8 @@ public class TopCoordinator extends CoordinatorImpl {
 
         // The remainder of the method needs to be synchronized.
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // Set the state. Only bother doing this if the coordinator
             // is not temporary.
@@ -1989,6 +2153,8 @@ public class TopCoordinator extends CoordinatorImpl {
                     throw (HeuristicHazard) heuristicExc;
                 }
             }
+        } finally {
+            lock.unlock();
         }
 
         // Otherwise return normally.
@@ -2007,99 +2173,104 @@ public class TopCoordinator extends CoordinatorImpl {
      * @exception SystemException The operation failed.
      */
     @Override
-    synchronized public void register_synchronization(Synchronization sync) throws SystemException, Inactive, SynchronizationUnavailable {
+    public void register_synchronization(Synchronization sync) throws SystemException, Inactive, SynchronizationUnavailable {
+        lock.lock();
+        try {
 
-        // First check the state of the transaction. If it is not active,
-        // do not allow the registration.
+            // First check the state of the transaction. If it is not active,
+            // do not allow the registration.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
-            Inactive exc = new Inactive();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE) {
+                Inactive exc = new Inactive();
+                throw exc;
+            }
 
-        // If not previously registered, a CoordinatorSync object must be
-        // registered with our superior. Note that root TopCoordinators
-        // are created with the registration flag set, so we do not need to
-        // check whether we are the root TopCoordinator here.
+            // If not previously registered, a CoordinatorSync object must be
+            // registered with our superior. Note that root TopCoordinators
+            // are created with the registration flag set, so we do not need to
+            // check whether we are the root TopCoordinator here.
 
-        if (!registeredSync && DefaultTransactionService.isORBAvailable()) {
+            if (!registeredSync && DefaultTransactionService.isORBAvailable()) {
 
-            // Initialise the CoordinatorSync with the local id, our reference,
-            // and a flag to indicate that does not represent a subtransaction.
+                // Initialise the CoordinatorSync with the local id, our reference,
+                // and a flag to indicate that does not represent a subtransaction.
 
-            CoordinatorSynchronizationImpl sImpl = new CoordinatorSynchronizationImpl(this);
+                CoordinatorSynchronizationImpl sImpl = new CoordinatorSynchronizationImpl(this);
 
-            // Register the CoordinatorSync with the superior CoordinatorImpl.
+                // Register the CoordinatorSync with the superior CoordinatorImpl.
 
-            try {
-                Synchronization subSync = sImpl.object();
-                superInfo.superior.register_synchronization(subSync);
-                registeredSync = true;
+                try {
+                    Synchronization subSync = sImpl.object();
+                    superInfo.superior.register_synchronization(subSync);
+                    registeredSync = true;
+
+                    // added (Ram J) for memory leak fix.
+                    this.coordSyncImpl = sImpl;
+                    if (_logger.isLoggable(Level.FINER)) {
+                        _logger.logp(Level.FINER, "TopCoordinator", "register_synchronization()", "CoordinatorSynchronizationImpl :" + sImpl
+                                + " has been registered with (Root)TopCoordinator" + "GTID is: " + superInfo.globalTID.toString());
+                    }
 
-                // added (Ram J) for memory leak fix.
-                this.coordSyncImpl = sImpl;
-                if (_logger.isLoggable(Level.FINER)) {
-                    _logger.logp(Level.FINER, "TopCoordinator", "register_synchronization()", "CoordinatorSynchronizationImpl :" + sImpl
-                            + " has been registered with (Root)TopCoordinator" + "GTID is: " + superInfo.globalTID.toString());
-                }
+                } catch (Exception exc) {
+                    // If an exception was raised, dont set the registration flag.
+                    sImpl.destroy();
 
-            } catch (Exception exc) {
-                // If an exception was raised, dont set the registration flag.
-                sImpl.destroy();
+                    // If the exception is a system exception, then allow it
+                    // to percolate to the caller.
 
-                // If the exception is a system exception, then allow it
-                // to percolate to the caller.
+                    if (exc instanceof OBJECT_NOT_EXIST) {
+                        TRANSACTION_ROLLEDBACK ex2 = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                        ex2.initCause(exc);
+                        throw ex2;
+                    }
 
-                if (exc instanceof OBJECT_NOT_EXIST) {
-                    TRANSACTION_ROLLEDBACK ex2 = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-                    ex2.initCause(exc);
-                    throw ex2;
-                }
+                    if (exc instanceof Inactive) {
+                        throw (Inactive) exc;
+                    }
 
-                if (exc instanceof Inactive) {
-                    throw (Inactive) exc;
-                }
+                    if (exc instanceof SystemException) {
+                        throw (SystemException) exc;
+                    }
+
+                    // Otherwise throw an internal exception.
 
-                if (exc instanceof SystemException) {
-                    throw (SystemException) exc;
+                    INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
+                    ex2.initCause(exc);
+                    throw ex2;
                 }
+            }
 
-                // Otherwise throw an internal exception.
+            // Make sure the RegisteredSyncs instance variable has been set up.
 
-                INTERNAL ex2 = new INTERNAL(MinorCode.NotRegistered, CompletionStatus.COMPLETED_NO);
-                ex2.initCause(exc);
-                throw ex2;
+            if (synchronizations == null) {
+                synchronizations = new RegisteredSyncs();
             }
-        }
-
-        // Make sure the RegisteredSyncs instance variable has been set up.
 
-        if (synchronizations == null) {
-            synchronizations = new RegisteredSyncs();
-        }
+            // Add a duplicate of the reference to the set. This is done
+            // because if the registration is for a remote object,
+            // the proxy will be freed
+            // when the registration request returns.
 
-        // Add a duplicate of the reference to the set. This is done
-        // because if the registration is for a remote object,
-        // the proxy will be freed
-        // when the registration request returns.
+            // COMMENT(Ram J) if the sync object is a local servant, there is
+            // no proxy involved. Also the instanceof operator could be replaced
+            // by a is_local() method if this class implements the CORBA local
+            // object contract.
+            if (sync instanceof ee.omnifish.transact.jts.jta.SynchronizationImpl) {
+                synchronizations.addSync(sync);
 
-        // COMMENT(Ram J) if the sync object is a local servant, there is
-        // no proxy involved. Also the instanceof operator could be replaced
-        // by a is_local() method if this class implements the CORBA local
-        // object contract.
-        if (sync instanceof ee.omnifish.transact.jts.jta.SynchronizationImpl) {
-            synchronizations.addSync(sync);
+                if (_logger.isLoggable(Level.FINER)) {
+                    _logger.logp(Level.FINER, "TopCoordinator", "register_synchronization()", "SynchronizationImpl :" + sync
+                            + " has been registeredwith TopCoordinator :" + "GTID is : " + superInfo.globalTID.toString());
+                }
 
-            if (_logger.isLoggable(Level.FINER)) {
-                _logger.logp(Level.FINER, "TopCoordinator", "register_synchronization()", "SynchronizationImpl :" + sync
-                        + " has been registeredwith TopCoordinator :" + "GTID is : " + superInfo.globalTID.toString());
+            } else {
+                synchronizations.addSync((Synchronization) sync._duplicate());
             }
 
-        } else {
-            synchronizations.addSync((Synchronization) sync._duplicate());
+            temporary = false;
+        } finally {
+            lock.unlock();
         }
-
-        temporary = false;
     }
 
     /**
@@ -2109,44 +2280,76 @@ public class TopCoordinator extends CoordinatorImpl {
      *
      * @exception INVALID_TRANSACTION The transaction is not in a state to commit, due to outstanding work.
      */
-    synchronized void beforeCompletion() throws INVALID_TRANSACTION {
+    void beforeCompletion() throws INVALID_TRANSACTION {
+        lock.lock();
+        try {
 
-        // First check for active children, before getting too far in.
-        // This is only done for the root Coordinator as for any
-        // others its too late.
+            // First check for active children, before getting too far in.
+            // This is only done for the root Coordinator as for any
+            // others its too late.
 
-        if (root && nestingInfo != null && nestingInfo.numChildren() != 0) {
-            INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.UnfinishedSubtransactions, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+            if (root && nestingInfo != null && nestingInfo.numChildren() != 0) {
+                INVALID_TRANSACTION exc = new INVALID_TRANSACTION(MinorCode.UnfinishedSubtransactions, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        // If there are registered Synchronization objects, tell them
-        // the transaction is about to prepare.
+            // If there are registered Synchronization objects, tell them
+            // the transaction is about to prepare.
 
-        if (synchronizations != null) {
+            if (synchronizations != null) {
 
-            // Tell the RegisteredSyncs to distribute the before completion
-            // messages. If an exception is raised, then mark the transaction
-            // rollback-only.
+                // Tell the RegisteredSyncs to distribute the before completion
+                // messages. If an exception is raised, then mark the transaction
+                // rollback-only.
 
-            try {
-                if (!synchronizations.distributeBefore()) {
+                try {
+                    if (!synchronizations.distributeBefore()) {
+                        rollbackOnly = true;
+                    }
+                } catch (RuntimeException ex) {
                     rollbackOnly = true;
+                    throw ex;
                 }
-            } catch (RuntimeException ex) {
-                rollbackOnly = true;
-                throw ex;
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
      * Informs the TopCoordinator that the transaction has completed. The TopCoordinator informs all Synchronization objects
      * registered with it that the transaction has completed. It does not need to wait for all responses before returning.
+     * <p>
+     * While the participants are told to commit in the background, the Synchronization objects are informed by the
+     * CommitCompletionService once they have committed.
+     *
+     * @param status Indicates whether the transaction committed or aborted.
+     */
+    void afterCompletion(Status status) {
+        lock.lock();
+        try {
+
+            // If the participants are still being told to commit, the
+            // CommitCompletionService completes us when they are done.
+
+            if (completionPending) {
+                afterCompletionPending = status;
+                return;
+            }
+
+            completeAfter(status);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells the Synchronizations that the transaction has completed, then releases the TopCoordinator. The caller holds
+     * the lock.
      *
      * @param status Indicates whether the transaction committed or aborted.
      */
-    synchronized void afterCompletion(Status status) {
+    private void completeAfter(Status status) {
 
         // If the Coordinator is still active, set it to read only to prevent
         // the Coordinator from actually rolling back when it is destroyed.
@@ -2168,6 +2371,16 @@ public class TopCoordinator extends CoordinatorImpl {
             synchronizations.distributeAfter(status);
         }
 
+        release(status);
+    }
+
+    /**
+     * Removes the completed transaction from the RecoveryManager and destroys the TopCoordinator. The caller holds the
+     * lock.
+     *
+     * @param status Indicates whether the transaction committed or aborted.
+     */
+    private void release(Status status) {
         // At this point, there is nothing left to do, so destroy ourselves
         // before returning.
         boolean aborted = true;
@@ -2208,7 +2421,7 @@ public class TopCoordinator extends CoordinatorImpl {
      * @param term The object normally responsible for terminating the Coordinator.
      */
     @Override
-    synchronized void setTerminator(CompletionHandler term) {
+    void setTerminator(CompletionHandler term) {
         terminator = term;
     }
 
@@ -2296,59 +2509,64 @@ public class TopCoordinator extends CoordinatorImpl {
      * information.
      */
     @Override
-    synchronized public PropagationContext get_txcontext() throws Unavailable {
+    public PropagationContext get_txcontext() throws Unavailable {
+        lock.lock();
+        try {
 
-        // First check the state of the transaction. If it is not active,
-        // do not allow the registration.
+            // First check the state of the transaction. If it is not active,
+            // do not allow the registration.
 
-        if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE || rollbackOnly) {
-            Unavailable exc = new Unavailable();
-            throw exc;
-        }
+            if (tranState == null || tranState.state != TransactionState.STATE_ACTIVE || rollbackOnly) {
+                Unavailable exc = new Unavailable();
+                throw exc;
+            }
 
-        // Work out the timeout value to pass, if any.
-        // Note that only top-level transactions have timeouts.
-        // We do not check for timeouts if the Coordinator is remote.
-        // If the Coordinator does not have a timeout defined, the
-        // TimeoutManager will return a negative value.
-        // If the transaction has timed out, the value will be zero.
+            // Work out the timeout value to pass, if any.
+            // Note that only top-level transactions have timeouts.
+            // We do not check for timeouts if the Coordinator is remote.
+            // If the Coordinator does not have a timeout defined, the
+            // TimeoutManager will return a negative value.
+            // If the transaction has timed out, the value will be zero.
 
-        long timeLeft = TimeoutManager.timeLeft(superInfo.localTID);
-        int timeout = 0;
-        if (timeLeft > 0) {
+            long timeLeft = TimeoutManager.timeLeft(superInfo.localTID);
+            int timeout = 0;
+            if (timeLeft > 0) {
 
-            timeout = (int) timeLeft / 1000;
+                timeout = (int) timeLeft / 1000;
 
-        } else if (timeLeft == 0) {
+            } else if (timeLeft == 0) {
 
-            // If the timeout has expired, then do not return a context,
-            // but roll the transaction back and
-            // throw the TRANSACTION_ROLLEDBACK exception.
+                // If the timeout has expired, then do not return a context,
+                // but roll the transaction back and
+                // throw the TRANSACTION_ROLLEDBACK exception.
 
-            TimeoutManager.timeoutCoordinator(superInfo.localTID, TimeoutManager.ACTIVE_TIMEOUT);
-            TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
-            throw exc;
-        }
+                TimeoutManager.timeoutCoordinator(superInfo.localTID, TimeoutManager.ACTIVE_TIMEOUT);
+                TRANSACTION_ROLLEDBACK exc = new TRANSACTION_ROLLEDBACK(0, CompletionStatus.COMPLETED_NO);
+                throw exc;
+            }
 
-        // Fill in the context with the current transaction information,
-        // and the ancestor information.
+            // Fill in the context with the current transaction information,
+            // and the ancestor information.
 
-        TransIdentity current = new TransIdentity(this.object(), null, superInfo.globalTID.realTID);
+            TransIdentity current = new TransIdentity(this.object(), null, superInfo.globalTID.realTID);
 
-        // Ensure that the implementation specific data is filled with a value.
+            // Ensure that the implementation specific data is filled with a value.
 
-        if (emptyData == null) {
-            emptyData = Configuration.getORB().create_any();
-            emptyData.insert_boolean(false);
-        }
+            if (emptyData == null) {
+                emptyData = Configuration.getORB().create_any();
+                emptyData.insert_boolean(false);
+            }
 
-        PropagationContext result = new PropagationContext(timeout, current, new TransIdentity[0], emptyData);
-        if (_logger.isLoggable(Level.FINEST)) {
-            _logger.logp(Level.FINEST, "TopCoordinator", "get_txcontext()",
-                    "Obtained PropagationContext, GTID is: " + superInfo.globalTID.toString());
-        }
+            PropagationContext result = new PropagationContext(timeout, current, new TransIdentity[0], emptyData);
+            if (_logger.isLoggable(Level.FINEST)) {
+                _logger.logp(Level.FINEST, "TopCoordinator", "get_txcontext()",
+                        "Obtained PropagationContext, GTID is: " + superInfo.globalTID.toString());
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -2387,7 +2605,8 @@ public class TopCoordinator extends CoordinatorImpl {
     @Override
     boolean commitOnePhase() throws HeuristicMixed, HeuristicHazard {
 
-        synchronized (this) {
+        lock.lock();
+        try {
 
             // First check for active children, before getting too far
             // into the prepare. This is only done for
@@ -2433,6 +2652,8 @@ public class TopCoordinator extends CoordinatorImpl {
             // no resourcesafter recovery)
             //
 
+        } finally {
+            lock.unlock();
         } // first synchronised bit ends now to allow possible callbacks.
 
         if ((participants != null) && (participants.numRegistered() == 1)) {
@@ -2539,7 +2760,8 @@ public class TopCoordinator extends CoordinatorImpl {
 
             // The remainder of the method needs to be synchronized too!
 
-            synchronized (this) {
+            lock.lock();
+            try {
 
                 // Clean up the TopCoordinator after a commit. In the case
                 // where the TopCoordinator is a root,
@@ -2598,6 +2820,8 @@ public class TopCoordinator extends CoordinatorImpl {
                     throw exc;
                 }
 
+            } finally {
+                lock.unlock();
             } // end of any synchronised work
 
             // Otherwise return normally.
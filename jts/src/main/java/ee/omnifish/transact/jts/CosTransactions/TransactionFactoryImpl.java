@@ -276,10 +276,10 @@ class TransactionFactoryImpl extends TransactionFactoryPOA implements Transactio
 
                         // If a subordinate does not exist, create one.
 
-                        GlobalTID subGlobalTID = new GlobalTID(context.parents[i].otid);
-                        subordinate = RecoveryManager.getCoordinator(subGlobalTID);
+                        subordinate = RecoveryManager.getCoordinator(new GlobalTID.Key(context.parents[i].otid));
 
                         if (subordinate == null) {
+                            GlobalTID subGlobalTID = new GlobalTID(context.parents[i].otid);
 
                             if (i == context.parents.length - 1) {
 
@@ -146,10 +146,11 @@ class TransactionState {
      */
     final static int STATE_COMMIT_ONE_PHASE_HEURISTIC_MIXED = 14;
 
-    static RWLock freezeLock = new RWLock();
+    static FreezeGate freezeLock = new FreezeGate();
     GlobalTID globalTID;
     Long localTID;
     int state = STATE_NONE;
+    int freezeStripe;
 
     boolean subordinate;
     CoordinatorLog logRecord;
@@ -454,7 +455,7 @@ class TransactionState {
                     }
                     _logger.logp(Level.FINEST, "TransactionState", "setState()", "Releasing read lock on freeze : state " + statestr);
                 }
-                freezeLock.releaseReadLock();
+                freezeLock.exit(freezeStripe);
                 if (_logger.isLoggable(Level.FINEST)) {
                     String statestr = null;
                     _logger.logp(Level.FINEST, "TransactionState", "setState()", "Released read lock on freeze");
@@ -501,7 +502,7 @@ class TransactionState {
                     }
                     _logger.logp(Level.FINEST, "TransactionState", "setState()", "Acquiring read lock on freeze : state " + statestr);
                 }
-                freezeLock.acquireReadLock();
+                freezeStripe = freezeLock.enter();
                 if (_logger.isLoggable(Level.FINEST)) {
                     String statestr = null;
                     switch (newState) {
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+import org.omg.CORBA.COMM_FAILURE;
+import org.omg.CORBA.TRANSIENT;
+
+import ee.omnifish.transact.jta.transaction.ResourceManagerRegistry;
+import ee.omnifish.transact.jta.transaction.ResourceManagerRegistry.ResourceManager;
+
+/**
+ * Drives XA recovery over many resource managers for the RecoveryManager and the DelegatedRecoveryManager.
+ * <p>
+ * The in-doubt branches of all resource managers are obtained with concurrent recovery scans, and are then completed
+ * with a bounded number of concurrent calls per resource manager, so a restart with many resource managers takes about
+ * as long as the slowest of them rather than the sum of all of them. The calls run on a pool of daemon threads; the
+ * thread waiting for a call which has not been started yet runs it itself.
+ * <p>
+ * Completions failing with COMM_FAILURE or TRANSIENT are retried with exponentially growing waits, up to
+ * {@link Configuration#COMMIT_RETRY_WAIT}, for as long as the configured commit retry limit allows.
+ */
+class XARecoveryEngine {
+
+    static Logger _logger = Logger.getLogger(XARecoveryEngine.class.getName());
+
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_THREADS_PER_RESOURCE = 1;
+
+    /**
+     * The wait before the first retry of a completion, in milliseconds.
+     */
+    static final long INITIAL_RETRY_WAIT = 1000;
+
+    private static ThreadPoolExecutor executor;
+
+    /**
+     * An in-doubt branch of this server, with the resource manager which reported it.
+     */
+    static final class InDoubtBranch {
+        final Xid xid;
+        final XAResource xaResource;
+
+        InDoubtBranch(Xid xid, XAResource xaResource) {
+            this.xid = xid;
+            this.xaResource = xaResource;
+        }
+    }
+
+    /**
+     * The completion of a single in-doubt branch.
+     */
+    interface BranchCompletion {
+        void complete(InDoubtBranch branch);
+    }
+
+    /**
+     * A call to a resource which may be retried.
+     */
+    interface Call {
+        void run() throws Throwable;
+    }
+
+    /**
+     * Reduces the given XAResource objects to a set with at most one XAResource object per resource manager.
+     * <p>
+     * The same object is often listed several times, so those duplicates are removed without calling isSameRM. The
+     * resource managers of the others are looked up in the ResourceManagerRegistry, which only calls isSameRM for an
+     * XAResource it has not seen before. An XAResource whose resource manager the registry cannot tell is compared with
+     * isSameRM to those kept so far, and is kept if isSameRM fails.
+     *
+     * @param xaResourceList The XAResource objects.
+     *
+     * @return The XAResource objects, one per resource manager, in the order in which they were listed.
+     */
+    static List<XAResource> getUniqueRMs(Enumeration xaResourceList) {
+        List<XAResource> uniqueRMList = new ArrayList<>();
+        Set<XAResource> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<ResourceManager> resourceManagers = new HashSet<>();
+        List<XAResource> unknownRMList = new ArrayList<>();
+
+        while (xaResourceList.hasMoreElements()) {
+            XAResource xaRes = (XAResource) xaResourceList.nextElement();
+            if (!seen.add(xaRes)) {
+                continue;
+            }
+
+            ResourceManager resourceManager = ResourceManagerRegistry.getResourceManager(xaRes);
+            if (resourceManager != null && !resourceManagers.add(resourceManager)) {
+                continue;
+            }
+
+            // Compare with isSameRM to those whose resource manager is not known, or to all if this one's is not known.
+
+            if (!isSameRM(xaRes, resourceManager == null ? uniqueRMList : unknownRMList)) {
+                uniqueRMList.add(xaRes);
+                if (resourceManager == null) {
+                    unknownRMList.add(xaRes);
+                }
+            }
+        }
+
+        return uniqueRMList;
+    }
+
+    private static boolean isSameRM(XAResource xaRes, List<XAResource> uniqueRMList) {
+        for (XAResource uniqueXaRes : uniqueRMList) {
+            try {
+                if (xaRes.isSameRM(uniqueXaRes)) {
+                    return true;
+                }
+            } catch (XAException xe) {
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Obtains the in-doubt branches of the given server from all given resource managers, scanning them concurrently.
+     * <p>
+     * Xids which have the same global and branch identifiers are duplicates, as the branch identifier format is (serverId,
+     * rmId); only the first one found is returned, so that at most one branch is completed per transaction per resource
+     * manager. Resource managers are considered in the given order, so the result does not depend on which scan finishes
+     * first.
+     *
+     * @param xaResources The resource managers to scan.
+     * @param serverName The name of the server whose branches are to be recovered.
+     *
+     * @return The in-doubt branches of the server.
+     */
+    static List<InDoubtBranch> getInDoubtBranches(List<XAResource> xaResources, String serverName) {
+        List<FutureTask<Xid[]>> scans = new ArrayList<>(xaResources.size());
+        for (XAResource xaResource : xaResources) {
+            scans.add(submit(() -> RecoveryManager.getInDoubtXids(xaResource)));
+        }
+
+        List<InDoubtBranch> branches = new ArrayList<>();
+        Set<Xid> uniqueXids = new HashSet<>();
+        for (int i = 0; i < xaResources.size(); i++) {
+            Xid[] inDoubtXids = await(scans.get(i));
+            if (inDoubtXids == null) {
+                continue; // No in-doubt xids for this resource.
+            }
+
+            for (Xid inDoubtXid : inDoubtXids) {
+
+                // check to see if the xid belongs to this server.
+
+                String branchQualifier = new String(inDoubtXid.getBranchQualifier());
+                if (!branchQualifier.startsWith(serverName)) {
+                    if (_logger.isLoggable(FINE)) {
+                        _logger.logp(FINE, "XARecoveryEngine", "getInDoubtBranches", " This xid doesn't belong to me " + inDoubtXid);
+                    }
+                } else if (uniqueXids.add(inDoubtXid)) {
+                    if (_logger.isLoggable(FINE)) {
+                        _logger.logp(FINE, "XARecoveryEngine", "getInDoubtBranches", " This xid is UNIQUE " + inDoubtXid);
+                    }
+                    branches.add(new InDoubtBranch(inDoubtXid, xaResources.get(i)));
+                } else {
+                    if (_logger.isLoggable(FINE)) {
+                        _logger.logp(FINE, "XARecoveryEngine", "getInDoubtBranches", " This xid is NOTUNIQUE " + inDoubtXid);
+                    }
+                }
+            }
+        }
+
+        return branches;
+    }
+
+    /**
+     * Completes the given branches, calling each resource manager with at most the configured number of concurrent
+     * completions, and waits until all of them are done.
+     *
+     * @param branches The branches to complete.
+     * @param completion The completion of a branch. It must handle the failures of the branch itself.
+     */
+    static void complete(List<InDoubtBranch> branches, BranchCompletion completion) {
+        Map<XAResource, Queue<InDoubtBranch>> queuesByRM = new IdentityHashMap<>();
+        List<Queue<InDoubtBranch>> queues = new ArrayList<>();
+        for (InDoubtBranch branch : branches) {
+            Queue<InDoubtBranch> queue = queuesByRM.get(branch.xaResource);
+            if (queue == null) {
+                queue = new ConcurrentLinkedQueue<>();
+                queuesByRM.put(branch.xaResource, queue);
+                queues.add(queue);
+            }
+            queue.add(branch);
+        }
+
+        int threadsPerResource = getIntProperty(Configuration.RECOVERY_THREADS_PER_RESOURCE, DEFAULT_THREADS_PER_RESOURCE);
+
+        List<FutureTask<Void>> workers = new ArrayList<>();
+        for (Queue<InDoubtBranch> queue : queues) {
+            int workerCount = Math.min(threadsPerResource, queue.size());
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(submit(() -> {
+                    InDoubtBranch branch;
+                    while ((branch = queue.poll()) != null) {
+                        completion.complete(branch);
+                    }
+                    return null;
+                }));
+            }
+        }
+
+        for (FutureTask<Void> worker : workers) {
+            await(worker);
+        }
+    }
+
+    /**
+     * Makes the given call, retrying it while it fails with COMM_FAILURE or TRANSIENT and the commit retry limit has not
+     * been reached. Other failures, and the last failure, are logged.
+     *
+     * @param call The call to make.
+     * @param operation The description of the call for the log.
+     */
+    static void callWithRetry(Call call, String operation) {
+        int commitRetries = Configuration.getRetries();
+        long deadline = commitRetries < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + commitRetries * Configuration.COMMIT_RETRY_WAIT;
+        long retryWait = INITIAL_RETRY_WAIT;
+
+        while (true) {
+            try {
+                call.run();
+                return;
+            } catch (Throwable exc) {
+                if (!(exc instanceof COMM_FAILURE) && !(exc instanceof TRANSIENT) || System.currentTimeMillis() >= deadline) {
+                    _logger.log(WARNING, "jts.exception_during_resync", new java.lang.Object[] { exc.toString(), operation });
+                    return;
+                }
+
+                // For TRANSIENT or COMM_FAILURE, wait for a while, then retry.
+
+                try {
+                    Thread.sleep(Math.min(retryWait, Math.max(1, deadline - System.currentTimeMillis())));
+                } catch (InterruptedException e) {
+                    _logger.log(WARNING, "jts.exception_during_resync", new java.lang.Object[] { exc.toString(), operation });
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                retryWait = Math.min(retryWait * 2, Configuration.COMMIT_RETRY_WAIT);
+            }
+        }
+    }
+
+    private static <T> FutureTask<T> submit(Callable<T> call) {
+        FutureTask<T> task = new FutureTask<>(call);
+        try {
+            getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            // The task will be run by the thread awaiting it.
+        }
+
+        return task;
+    }
+
+    private static <T> T await(FutureTask<T> task) {
+        task.run();
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new org.omg.CORBA.INTERNAL(e.getCause().toString());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        String value = Configuration.getPropertyValue(name);
+        if (value != null) {
+            try {
+                return Math.max(1, Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                _logger.warning("Invalid value " + value + " for " + name);
+            }
+        }
+
+        return defaultValue;
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            int threads = getIntProperty(Configuration.RECOVERY_THREADS, DEFAULT_THREADS);
+            executor = new ThreadPoolExecutor(threads, threads, 60, SECONDS, new LinkedBlockingQueue<>(), new RecoveryThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        return executor;
+    }
+
+    private static final class RecoveryThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "JTS XA Recovery Thread " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
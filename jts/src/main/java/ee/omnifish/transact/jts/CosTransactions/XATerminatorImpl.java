@@ -98,7 +98,8 @@ public class XATerminatorImpl implements XATerminator {
 
             // If there is a Coordinator, lock it for the duration of this
             // operation. Tell the Coordinator to commit.
-            synchronized (coord) {
+            coord.lock.lock();
+            try {
                 if (onePhase) {
                     coord.beforeCompletion();
                     if (coord.getParticipantCount() == 1) {
@@ -120,6 +121,8 @@ public class XATerminatorImpl implements XATerminator {
                 } else {
                     coord.commit();
                 }
+            } finally {
+                coord.lock.unlock();
             }
         } catch (Throwable exc) {
             exceptionFlag = true;
@@ -179,7 +182,7 @@ public class XATerminatorImpl implements XATerminator {
     public int prepare(Xid xid) throws XAException {
         check(xid); // check if xid is valid
 
-        GlobalTID tid = new GlobalTID(xid);
+        GlobalTID.Key tid = new GlobalTID.Key(xid);
 
         try {
             // Synchronizers invoked by coord.beforeCompletion must be
@@ -210,7 +213,8 @@ public class XATerminatorImpl implements XATerminator {
 
             // If there is a Coordinator, lock it for the duration of this
             // operation. Tell the Coordinator to commit.
-            synchronized (coord) {
+            coord.lock.lock();
+            try {
                 coord.beforeCompletion();
                 Vote vote = coord.prepare();
                 if (vote == Vote.VoteRollback) {
@@ -221,6 +225,8 @@ public class XATerminatorImpl implements XATerminator {
                     return XAResource.XA_RDONLY;
                 }
                 throw new XAException(errorCode);
+            } finally {
+                coord.lock.unlock();
             }
         } catch (Throwable exc) {
             exceptionFlag = true;
@@ -305,8 +311,11 @@ public class XATerminatorImpl implements XATerminator {
 
             // If there is a Coordinator, lock it for the duration of this
             // operation. Tell the Coordinator to commit.
-            synchronized (coord) {
+            coord.lock.lock();
+            try {
                 coord.rollback(true);
+            } finally {
+                coord.lock.unlock();
             }
         } catch (Throwable exc) {
             exceptionFlag = true;
@@ -47,7 +47,7 @@ import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
 import ee.omnifish.transact.jts.CosTransactions.Configuration;
 import ee.omnifish.transact.jts.CosTransactions.DefaultTransactionService;
 import ee.omnifish.transact.jts.CosTransactions.DelegatedRecoveryManager;
-import ee.omnifish.transact.jts.CosTransactions.RWLock;
+import ee.omnifish.transact.jts.CosTransactions.FreezeGate;
 import ee.omnifish.transact.jts.CosTransactions.RecoveryManager;
 import ee.omnifish.transact.jts.jta.TransactionManagerImpl;
 import ee.omnifish.transact.jts.jta.TransactionServiceProperties;
@@ -631,25 +631,29 @@ public class JavaEETransactionManagerJTSDelegate implements JavaEETransactionMan
         setTransactionManager();
     }
 
+    /**
+     * The freeze lock taken by the transaction manager around begin, commit and rollback. It is locked and unlocked on
+     * the same thread, so the stripe of the FreezeGate is derived from the current thread.
+     */
     private static class ReadWriteLock implements Lock {
-        private static final RWLock freezeLock = new RWLock();
+        private static final FreezeGate freezeLock = new FreezeGate();
 
         @Override
         public void lock() {
-            freezeLock.acquireReadLock();
+            freezeLock.enter();
         }
 
         @Override
         public void unlock() {
-            freezeLock.releaseReadLock();
+            freezeLock.exit(freezeLock.stripe());
         }
 
         private void acquireWriteLock() {
-            freezeLock.acquireWriteLock();
+            freezeLock.freeze();
         }
 
         private void releaseWriteLock() {
-            freezeLock.releaseWriteLock();
+            freezeLock.unfreeze();
         }
 
         @Override
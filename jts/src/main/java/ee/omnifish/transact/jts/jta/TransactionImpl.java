@@ -26,6 +26,7 @@ import org.omg.CORBA.INVALID_TRANSACTION;
 import org.omg.CORBA.NO_PERMISSION;
 import org.omg.CORBA.TRANSACTION_ROLLEDBACK;
 import org.omg.CosTransactions.Control;
+import org.omg.CosTransactions.Coordinator;
 import org.omg.CosTransactions.HeuristicHazard;
 import org.omg.CosTransactions.HeuristicMixed;
 import org.omg.CosTransactions.Inactive;
@@ -35,6 +36,7 @@ import ee.omnifish.transact.api.spi.TransactionInternal;
 import ee.omnifish.transact.jts.CosTransactions.Configuration;
 import ee.omnifish.transact.jts.CosTransactions.ControlImpl;
 import ee.omnifish.transact.jts.CosTransactions.GlobalTID;
+import ee.omnifish.transact.jts.CosTransactions.TopCoordinator;
 
 import jakarta.transaction.HeuristicMixedException;
 import jakarta.transaction.HeuristicRollbackException;
@@ -292,6 +294,34 @@ public class TransactionImpl implements TransactionInternal {
         tranState.registerSynchronization(sync, control, true);
     }
 
+    /**
+     * Requires the commit of this transaction to wait for its participants. Only a coordinator in this process can be
+     * told so; for a coordinator in another process a warning is logged. A transaction which has already completed has
+     * nothing left to wait for, and its commit fails.
+     */
+    @Override
+    public void requireStrictCompletion() {
+        Coordinator coordinator;
+        try {
+            if (Configuration.isLocalFactory()) {
+                coordinator = ((ControlImpl) control).get_localCoordinator();
+            } else {
+                coordinator = control.get_coordinator();
+            }
+        } catch (TRANSACTION_ROLLEDBACK | INVALID_TRANSACTION | Unavailable ex) {
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "Transaction " + gtid + " has already completed", ex);
+            }
+            return;
+        }
+
+        if (coordinator instanceof TopCoordinator) {
+            ((TopCoordinator) coordinator).requireStrictCompletion();
+        } else {
+            _logger.log(Level.WARNING, "jts.strict_completion_not_honoured", gtid);
+        }
+    }
+
     @Override
     public void setRollbackOnly() throws IllegalStateException, SystemException {
 
@@ -29,14 +29,13 @@ import static javax.transaction.xa.XAResource.TMNOFLAGS;
 import static javax.transaction.xa.XAResource.TMRESUME;
 import static javax.transaction.xa.XAResource.TMSUCCESS;
 
-import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import javax.transaction.xa.XAException;
@@ -48,10 +47,12 @@ import org.omg.CosTransactions.Control;
 import org.omg.CosTransactions.Inactive;
 import org.omg.CosTransactions.Unavailable;
 
+import ee.omnifish.transact.jta.transaction.ResourceManagerRegistry;
+import ee.omnifish.transact.jta.transaction.ResourceManagerRegistry.ResourceManager;
 import ee.omnifish.transact.jts.CosTransactions.Configuration;
 import ee.omnifish.transact.jts.CosTransactions.ControlImpl;
 import ee.omnifish.transact.jts.CosTransactions.GlobalTID;
-import ee.omnifish.transact.jts.codegen.jtsxa.OTSResource;
+import ee.omnifish.transact.jts.codegen.otsidl.JControlHelper;
 import ee.omnifish.transact.jts.jtsxa.OTSResourceImpl;
 import ee.omnifish.transact.jts.jtsxa.XID;
 import jakarta.transaction.RollbackException;
@@ -93,9 +94,14 @@ public class TransactionState {
     private Set<Xid> seenXids;
 
     /**
-     * a list of unique resource factory (represented by XAResource)
+     * Map: resource manager -> Xid of its branch
      */
-    private List<XAResource> factories;
+    private Map<ResourceManager, Xid> branches;
+
+    /**
+     * Map: XAResource which started a branch -> Xid of the branch
+     */
+    private Map<XAResource, Xid> factories;
 
     // The OTS synchronization object for this transaction
     private SynchronizationImpl synchronizationImpl;
@@ -103,11 +109,15 @@ public class TransactionState {
     private GlobalTID globalTID;
     private TransactionImpl transactionImpl;
 
+    // Held across calls to the XAResources, so not the monitor of the state.
+    private final ReentrantLock lock = new ReentrantLock();
+
     public TransactionState(GlobalTID gtid, TransactionImpl tran) {
         resourceStates = new HashMap<>();
         xaResources = new HashMap<>();
         seenXids = new HashSet<>();
-        factories = new ArrayList<>();
+        branches = new HashMap<>();
+        factories = new HashMap<>();
         this.globalTID = gtid;
         this.transactionImpl = tran;
     }
@@ -116,130 +126,159 @@ public class TransactionState {
      * this is called via callback of Synchronization right before a transaction commit or rollback to ensure that all
      * XAResources are properly delisted
      */
-    synchronized public void beforeCompletion() {
-        boolean exceptionThrown = false;
-        XAResource res = null;
-        Iterator e = resourceStates.keySet().iterator();
-        while (e.hasNext()) {
-            try {
-                res = (XAResource) e.next();
-                int XAState = getXAState(res);
-                switch (XAState) {
-                case NOT_ASSOCIATED:
-                case FAILED:
-                    break;
-                case ASSOCIATION_SUSPENDED:
-                case ASSOCIATED:
-                    Xid xid = xaResources.get(res);
-                    res.end(xid, TMSUCCESS);
-                    setXAState(res, NOT_ASSOCIATED);
-                    break;
-                case ROLLING_BACK:
-                case NOT_EXIST:
-                default:
-                    throw new IllegalStateException("Wrong XA State: " + XAState);
+    public void beforeCompletion() {
+        lock.lock();
+        try {
+            boolean exceptionThrown = false;
+            XAResource res = null;
+            Iterator e = resourceStates.keySet().iterator();
+            while (e.hasNext()) {
+                try {
+                    res = (XAResource) e.next();
+                    int XAState = getXAState(res);
+                    switch (XAState) {
+                    case NOT_ASSOCIATED:
+                    case FAILED:
+                        break;
+                    case ASSOCIATION_SUSPENDED:
+                    case ASSOCIATED:
+                        Xid xid = xaResources.get(res);
+                        res.end(xid, TMSUCCESS);
+                        setXAState(res, NOT_ASSOCIATED);
+                        break;
+                    case ROLLING_BACK:
+                    case NOT_EXIST:
+                    default:
+                        throw new IllegalStateException("Wrong XA State: " + XAState);
+                    }
+                } catch (Exception ex) {
+                    setXAState(res, FAILED);
+                    _logger.log(WARNING, "jts.delist_exception", ex);
+                    exceptionThrown = true;
                 }
-            } catch (Exception ex) {
-                setXAState(res, FAILED);
-                _logger.log(WARNING, "jts.delist_exception", ex);
-                exceptionThrown = true;
             }
-        }
 
-        if (exceptionThrown) {
-            try {
-                transactionImpl.setRollbackOnly();
-            } catch (Exception ex) {
+            if (exceptionThrown) {
+                try {
+                    transactionImpl.setRollbackOnly();
+                } catch (Exception ex) {
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * This is called from OTS to rollback a particular XAResource
+     * This is called from OTS to rollback a particular XAResource. The resource is called without holding the lock, so
+     * that the branches of the transaction can be rolled back in parallel.
      */
-    synchronized public void rollback(XAResource res) throws IllegalStateException, XAException {
+    public void rollback(XAResource res) throws IllegalStateException, XAException {
         // Rollback the requested resource
-        _rollback(res);
-
-        // Now rollback all other resources known that are not
-        // registered with the RegisteredResources during startAssociation() call
-        Iterator e = resourceStates.keySet().iterator();
-        while (e.hasNext()) {
-            XAResource res0 = (XAResource) e.next();
-            if (res0.isSameRM(res) && res0 != res) {
-                _end(res0);
+        Xid xid = endForRollback(res);
+        res.rollback(xid);
+
+        lock.lock();
+        try {
+            // Now rollback all other resources known that are not
+            // registered with the RegisteredResources during startAssociation() call
+            Iterator e = resourceStates.keySet().iterator();
+            while (e.hasNext()) {
+                XAResource res0 = (XAResource) e.next();
+                if (res0 != res && ResourceManagerRegistry.isSameRM(res0, res)) {
+                    _end(res0);
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
-    synchronized private void _rollback(XAResource xaResource) throws IllegalStateException, XAException {
-        Xid xid = xaResources.get(xaResource);
+    private Xid endForRollback(XAResource xaResource) throws IllegalStateException, XAException {
+        lock.lock();
+        try {
+            Xid xid = xaResources.get(xaResource);
 
-        assert_prejdk14(xid != null);
+            assert_prejdk14(xid != null);
 
-        int XAState = getXAState(xaResource);
-        switch (XAState) {
-            case NOT_ASSOCIATED:
-            case FAILED:
-                xaResource.rollback(xid);
-                break;
-            case ASSOCIATION_SUSPENDED:
-            case ASSOCIATED:
-                try {
-                    xaResource.end(xid, TMSUCCESS);
-                } catch (Exception ex) {
-                    _logger.log(WARNING, "jts.delist_exception", ex);
-                }
-                setXAState(xaResource, NOT_ASSOCIATED);
-                xaResource.rollback(xid);
-                /**
-                 * was in ASSOCIATED: // rollback is deferred until delistment setXAState(res, ROLLING_BACK); activeResources++;
-                 **/
-                break;
-            case ROLLING_BACK:
-            case NOT_EXIST:
-            default:
-                throw new IllegalStateException("Wrong XAState: " + XAState);
+            int XAState = getXAState(xaResource);
+            switch (XAState) {
+                case NOT_ASSOCIATED:
+                case FAILED:
+                    break;
+                case ASSOCIATION_SUSPENDED:
+                case ASSOCIATED:
+                    try {
+                        xaResource.end(xid, TMSUCCESS);
+                    } catch (Exception ex) {
+                        _logger.log(WARNING, "jts.delist_exception", ex);
+                    }
+                    setXAState(xaResource, NOT_ASSOCIATED);
+                    /**
+                     * was in ASSOCIATED: // rollback is deferred until delistment setXAState(res, ROLLING_BACK); activeResources++;
+                     **/
+                    break;
+                case ROLLING_BACK:
+                case NOT_EXIST:
+                default:
+                    throw new IllegalStateException("Wrong XAState: " + XAState);
+            }
+
+            return xid;
+        } finally {
+            lock.unlock();
         }
     }
 
-    synchronized private void _end(XAResource xaResource) throws IllegalStateException, XAException {
-        Xid xid = xaResources.get(xaResource);
-
-        assert_prejdk14(xid != null);
-        int XAState = getXAState(xaResource);
-        switch (XAState) {
-            case NOT_ASSOCIATED:
-            case FAILED:
-                // do nothing
-                break;
-            case ASSOCIATION_SUSPENDED:
-            case ASSOCIATED:
-                try {
-                    xaResource.end(xid, TMSUCCESS);
-                } catch (Exception ex) {
-                    _logger.log(WARNING, "jts.delist_exception", ex);
-                }
-                setXAState(xaResource, NOT_ASSOCIATED);
-                break;
-            case ROLLING_BACK:
-            case NOT_EXIST:
-            default:
-                throw new IllegalStateException("Wrong XAState: " + XAState);
+    private void _end(XAResource xaResource) throws IllegalStateException, XAException {
+        lock.lock();
+        try {
+            Xid xid = xaResources.get(xaResource);
+
+            assert_prejdk14(xid != null);
+            int XAState = getXAState(xaResource);
+            switch (XAState) {
+                case NOT_ASSOCIATED:
+                case FAILED:
+                    // do nothing
+                    break;
+                case ASSOCIATION_SUSPENDED:
+                case ASSOCIATED:
+                    try {
+                        xaResource.end(xid, TMSUCCESS);
+                    } catch (Exception ex) {
+                        _logger.log(WARNING, "jts.delist_exception", ex);
+                    }
+                    setXAState(xaResource, NOT_ASSOCIATED);
+                    break;
+                case ROLLING_BACK:
+                case NOT_EXIST:
+                default:
+                    throw new IllegalStateException("Wrong XAState: " + XAState);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     private Xid computeXid(XAResource xaResource, Control control) throws Inactive, Unavailable, XAException {
         // One branch id per RM
-        int size = factories.size();
-        for (int i = 0; i < size; i++) {
-            XAResource fac = factories.get(i);
-            if (xaResource.isSameRM(fac)) {
+        ResourceManager resourceManager = ResourceManagerRegistry.getResourceManager(xaResource);
+        Xid branchXid = resourceManager == null ? null : branches.get(resourceManager);
+        if (branchXid != null) {
+            // Use same branch
+            return branchXid;
+        }
+
+        // The registry could not tell the resource manager of this XAResource, or of one that started
+        // a branch, so compare them with isSameRM
+        for (Map.Entry<XAResource, Xid> factory : factories.entrySet()) {
+            if (ResourceManagerRegistry.isSameRM(xaResource, factory.getKey())) {
                 // Use same branch
-                Xid xid = xaResources.get(fac);
-                return xid;
+                return factory.getValue();
             }
         }
+        int size = factories.size();
 
         // Use a different branch
         // XXX ideally should call JTS layer to get the branch id
@@ -250,7 +289,6 @@ public class TransactionState {
         } else {
             xid = getXID(control.get_coordinator());
         }
-        factories.add(xaResource);
 
         byte[] branchid = parseSize(size);
         byte[] sname = Configuration.getServerNameByteArray();
@@ -261,141 +299,147 @@ public class TransactionState {
         arraycopy(branchid, 0, branch, sname.length + 1, branchid.length);
 
         xid.setBranchQualifier(branch);
+        if (resourceManager != null) {
+            branches.put(resourceManager, xid);
+        }
+        factories.put(xaResource, xid);
 
         return xid;
     }
 
-    synchronized public void startAssociation(XAResource xaResource, Control control, int status) throws XAException, SystemException, IllegalStateException, RollbackException {
-        _logger.log(FINE, () -> "startAssociation for " + xaResource);
-
-        OTSResource otsResource;
-
+    public void startAssociation(XAResource xaResource, Control control, int status) throws XAException, SystemException, IllegalStateException, RollbackException {
+        lock.lock();
         try {
-            // XXX should avoid using XID in JTA layer (but why?)
-            Xid xid = null;
-            boolean seenXid = false;
-            if (xaResources.get(xaResource) == null) {
-                if (_logger.isLoggable(FINE)) {
-                    _logger.log(FINE, "startAssociation for unknown resource");
-                }
+            _logger.log(FINE, () -> "startAssociation for " + xaResource);
 
-                // Throw RollbackException if try to register a new resource when a transaction is marked
-                // rollback
-                if (status != STATUS_ACTIVE) {
-                    throw new RollbackException();
-                }
+            try {
+                // XXX should avoid using XID in JTA layer (but why?)
+                Xid xid = null;
+                boolean seenXid = false;
+                if (xaResources.get(xaResource) == null) {
+                    if (_logger.isLoggable(FINE)) {
+                        _logger.log(FINE, "startAssociation for unknown resource");
+                    }
 
-                xid = computeXid(xaResource, control);
-                seenXid = seenXids.contains(xid);
+                    // Throw RollbackException if try to register a new resource when a transaction is marked
+                    // rollback
+                    if (status != STATUS_ACTIVE) {
+                        throw new RollbackException();
+                    }
 
-                // Register with OTS
-                if (!seenXid) {
-                    // New branch: no need to activate OTSResource object since its local.
-                    otsResource = new OTSResourceImpl(xid, xaResource, this);
-                    if (isLocalFactory()) {
-                        ((ControlImpl) control).get_localCoordinator().register_resource(otsResource);
-                    } else {
-                        control.get_coordinator().register_resource(otsResource);
+                    xid = computeXid(xaResource, control);
+                    seenXid = seenXids.contains(xid);
+
+                    // Register with OTS
+                    if (!seenXid) {
+                        registerResource(new OTSResourceImpl(xid, xaResource, this), control);
                     }
-                }
 
-                xaResources.put(xaResource, xid);
-            } else {
-                _logger.log(FINE, "startAssociation for known resource");
+                    xaResources.put(xaResource, xid);
+                } else {
+                    _logger.log(FINE, "startAssociation for known resource");
 
-                // Use the previously computed branch id
-                xid = xaResources.get(xaResource);
-                seenXid = seenXids.contains(xid);
-            }
+                    // Use the previously computed branch id
+                    xid = xaResources.get(xaResource);
+                    seenXid = seenXids.contains(xid);
+                }
 
-            int XAState = getXAState(xaResource);
-            _logger.log(FINE, () -> "startAssociation in state: " + XAState);
-
-            if (!seenXid) {
-                // First time this branch is enlisted
-                seenXids.add(xid);
-                xaResource.start(xid, TMNOFLAGS);
-                setXAState(xaResource, ASSOCIATED);
-            } else {
-                // have seen this branch before
-                switch (XAState) {
-                case NOT_ASSOCIATED:
-                case NOT_EXIST:
-                    xaResource.start(xid, TMJOIN);
-                    setXAState(xaResource, ASSOCIATED);
-                    break;
-                case ASSOCIATION_SUSPENDED:
-                    xaResource.start(xid, TMRESUME);
+                int XAState = getXAState(xaResource);
+                _logger.log(FINE, () -> "startAssociation in state: " + XAState);
+
+                if (!seenXid) {
+                    // First time this branch is enlisted
+                    seenXids.add(xid);
+                    xaResource.start(xid, TMNOFLAGS);
                     setXAState(xaResource, ASSOCIATED);
-                    break;
-                case ASSOCIATED:
-                case FAILED:
-                case ROLLING_BACK:
-                default:
-                    throw new IllegalStateException("Wrong XAState: " + XAState);
+                } else {
+                    // have seen this branch before
+                    switch (XAState) {
+                    case NOT_ASSOCIATED:
+                    case NOT_EXIST:
+                        xaResource.start(xid, TMJOIN);
+                        setXAState(xaResource, ASSOCIATED);
+                        break;
+                    case ASSOCIATION_SUSPENDED:
+                        xaResource.start(xid, TMRESUME);
+                        setXAState(xaResource, ASSOCIATED);
+                        break;
+                    case ASSOCIATED:
+                    case FAILED:
+                    case ROLLING_BACK:
+                    default:
+                        throw new IllegalStateException("Wrong XAState: " + XAState);
+                    }
                 }
+            } catch (XAException ex) {
+                setXAState(xaResource, FAILED);
+                throw ex;
+            } catch (Inactive ex) {
+                _logger.log(WARNING, "jts.transaction_inactive", ex);
+                throw new SystemException();
+            } catch (Unavailable ex) {
+                _logger.log(WARNING, "jts.object_unavailable", ex);
+                throw new SystemException();
             }
-        } catch (XAException ex) {
-            setXAState(xaResource, FAILED);
-            throw ex;
-        } catch (Inactive ex) {
-            _logger.log(WARNING, "jts.transaction_inactive", ex);
-            throw new SystemException();
-        } catch (Unavailable ex) {
-            _logger.log(WARNING, "jts.object_unavailable", ex);
-            throw new SystemException();
+        } finally {
+            lock.unlock();
         }
     }
 
-    synchronized public void endAssociation(XAResource xaResource, int flags) throws XAException, IllegalStateException {
-        _logger.log(FINE, () -> "endAssociation for " + xaResource);
-
+    public void endAssociation(XAResource xaResource, int flags) throws XAException, IllegalStateException {
+        lock.lock();
         try {
-            Xid xid = xaResources.get(xaResource);
-            assert_prejdk14(xid != null);
-            int XAState = getXAState(xaResource);
-            _logger.log(FINE, () -> "endAssociation in state: " + XAState);
+            _logger.log(FINE, () -> "endAssociation for " + xaResource);
 
-            switch (XAState) {
-            case ASSOCIATED:
-                if ((flags & TMSUCCESS) != 0) {
-                    xaResource.end(xid, TMSUCCESS);
-                    setXAState(xaResource, NOT_ASSOCIATED);
-                } else if ((flags & XAResource.TMSUSPEND) != 0) {
-                    xaResource.end(xid, XAResource.TMSUSPEND);
-                    setXAState(xaResource, ASSOCIATION_SUSPENDED);
-                } else {
-                    xaResource.end(xid, TMFAIL);
-                    setXAState(xaResource, FAILED);
-                }
-                break;
-            case ROLLING_BACK:
-                // rollback deferred XAResources
-                xaResource.end(xid, TMSUCCESS);
-                setXAState(xaResource, NOT_ASSOCIATED);
-                xaResource.rollback(xid);
-
-                break;
-            case ASSOCIATION_SUSPENDED:
-                if ((flags & TMSUCCESS) != 0) {
+            try {
+                Xid xid = xaResources.get(xaResource);
+                assert_prejdk14(xid != null);
+                int XAState = getXAState(xaResource);
+                _logger.log(FINE, () -> "endAssociation in state: " + XAState);
+
+                switch (XAState) {
+                case ASSOCIATED:
+                    if ((flags & TMSUCCESS) != 0) {
+                        xaResource.end(xid, TMSUCCESS);
+                        setXAState(xaResource, NOT_ASSOCIATED);
+                    } else if ((flags & XAResource.TMSUSPEND) != 0) {
+                        xaResource.end(xid, XAResource.TMSUSPEND);
+                        setXAState(xaResource, ASSOCIATION_SUSPENDED);
+                    } else {
+                        xaResource.end(xid, TMFAIL);
+                        setXAState(xaResource, FAILED);
+                    }
+                    break;
+                case ROLLING_BACK:
+                    // rollback deferred XAResources
                     xaResource.end(xid, TMSUCCESS);
                     setXAState(xaResource, NOT_ASSOCIATED);
-                } else if ((flags & XAResource.TMSUSPEND) != 0) {
+                    xaResource.rollback(xid);
+
+                    break;
+                case ASSOCIATION_SUSPENDED:
+                    if ((flags & TMSUCCESS) != 0) {
+                        xaResource.end(xid, TMSUCCESS);
+                        setXAState(xaResource, NOT_ASSOCIATED);
+                    } else if ((flags & XAResource.TMSUSPEND) != 0) {
+                        throw new IllegalStateException("Wrong XAState: " + XAState);
+                    } else {
+                        xaResource.end(xid, TMFAIL);
+                        setXAState(xaResource, FAILED);
+                    }
+                    break;
+                case NOT_ASSOCIATED:
+                case NOT_EXIST:
+                case FAILED:
+                default:
                     throw new IllegalStateException("Wrong XAState: " + XAState);
-                } else {
-                    xaResource.end(xid, TMFAIL);
-                    setXAState(xaResource, FAILED);
                 }
-                break;
-            case NOT_ASSOCIATED:
-            case NOT_EXIST:
-            case FAILED:
-            default:
-                throw new IllegalStateException("Wrong XAState: " + XAState);
+            } catch (XAException ex) {
+                setXAState(xaResource, FAILED);
+                throw ex;
             }
-        } catch (XAException ex) {
-            setXAState(xaResource, FAILED);
-            throw ex;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -405,31 +449,59 @@ public class TransactionState {
         transactionImpl.setRollbackOnly();
     }
 
-    synchronized public void registerSynchronization(Synchronization sync, Control control, boolean interposed) throws RollbackException, IllegalStateException, SystemException {
+    public void registerSynchronization(Synchronization sync, Control control, boolean interposed) throws RollbackException, IllegalStateException, SystemException {
+        lock.lock();
         try {
-            // One OTS Synchronization object per transaction
-            if (synchronizationImpl == null) {
-                synchronizationImpl = new SynchronizationImpl(this);
+            try {
+                // One OTS Synchronization object per transaction
+                if (synchronizationImpl == null) {
+                    synchronizationImpl = new SynchronizationImpl(this);
 
-                // SyncImpl is a local object. No need to activate it.
-                if (isLocalFactory()) {
-                    ((ControlImpl) control).get_localCoordinator().register_synchronization(synchronizationImpl);
-                } else {
-                    control.get_coordinator().register_synchronization(synchronizationImpl);
+                    // SyncImpl is a local object. No need to activate it.
+                    if (isLocalFactory()) {
+                        ((ControlImpl) control).get_localCoordinator().register_synchronization(synchronizationImpl);
+                    } else {
+                        control.get_coordinator().register_synchronization(synchronizationImpl);
+                    }
                 }
+                synchronizationImpl.addSynchronization(sync, interposed);
+            } catch (TRANSACTION_ROLLEDBACK ex) {
+                throw new RollbackException();
+            } catch (Unavailable ex) {
+                _logger.log(WARNING, "jts.object_unavailable", ex);
+                throw new SystemException();
+            } catch (Inactive ex) {
+                _logger.log(WARNING, "jts.transaction_inactive", ex);
+                throw new IllegalStateException();
+            } catch (Exception ex) {
+                _logger.log(WARNING, "jts.exception_in_register_synchronization", ex);
+                throw new SystemException();
             }
-            synchronizationImpl.addSynchronization(sync, interposed);
-        } catch (TRANSACTION_ROLLEDBACK ex) {
-            throw new RollbackException();
-        } catch (Unavailable ex) {
-            _logger.log(WARNING, "jts.object_unavailable", ex);
-            throw new SystemException();
-        } catch (Inactive ex) {
-            _logger.log(WARNING, "jts.transaction_inactive", ex);
-            throw new IllegalStateException();
-        } catch (Exception ex) {
-            _logger.log(WARNING, "jts.exception_in_register_synchronization", ex);
-            throw new SystemException();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers a new branch with the coordinator of the transaction.
+     * <p>
+     * The OTSResource of the branch is a plain Java participant of a coordinator in this process, so it is only activated
+     * with the POA when the coordinator is in another process and needs a reference to call back.
+     *
+     * @param otsResource the OTSResource of the branch.
+     * @param control the control of the transaction.
+     */
+    private static void registerResource(OTSResourceImpl otsResource, Control control) throws Inactive, Unavailable {
+        if (isLocalFactory()) {
+            ((ControlImpl) control).get_localCoordinator().register_resource(otsResource);
+            return;
+        }
+
+        ControlImpl localControl = ControlImpl.servant(JControlHelper.narrow(control));
+        if (localControl != null) {
+            localControl.get_localCoordinator().register_resource(otsResource);
+        } else {
+            control.get_coordinator().register_resource(otsResource.getCORBAObjReference());
         }
     }
 
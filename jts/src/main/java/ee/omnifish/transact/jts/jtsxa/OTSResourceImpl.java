@@ -360,6 +360,9 @@ public class OTSResourceImpl extends OTSResourcePOA implements OTSResource {
 
     /**
      * Returns the CORBA Object which represents this object.
+     * <p>
+     * The object is activated with the POA on the first call. A coordinator in this process calls it directly, so this is
+     * only needed when the reference is passed to another process.
      *
      * @return The CORBA object.
      *
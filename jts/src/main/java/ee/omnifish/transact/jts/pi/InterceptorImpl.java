@@ -103,6 +103,7 @@ public class InterceptorImpl extends org.omg.CORBA.LocalObject implements Client
 
     public static final String CLIENT_POLICY_CHECKING = "ee.omnifish.transact.jts.pi.CLIENT_POLICY_CHECKING";
     public static final String INTEROP_MODE = "ee.omnifish.transact.jts.pi.INTEROP_MODE";
+    public static final String TARGET_POLICY_CACHE_SIZE = "ee.omnifish.transact.jts.pi.TARGET_POLICY_CACHE_SIZE";
 
     // The ReferenceFactoryManager from the orb.
     private static Object referenceFactoryManager;
@@ -133,6 +134,8 @@ public class InterceptorImpl extends org.omg.CORBA.LocalObject implements Client
     private boolean checkPolicy = true;
     private boolean interopMode = true;
 
+    private final TargetPolicyCache targetPolicies;
+
     // constructor
 
     public InterceptorImpl(Current pic, Codec codec, int[] slotIds, TSIdentification tsi) {
@@ -155,6 +158,7 @@ public class InterceptorImpl extends org.omg.CORBA.LocalObject implements Client
 
         _logger.log(FINE, () -> "Transaction INTEROP Mode: " + interopMode);
 
+        targetPolicies = new TargetPolicyCache(Integer.getInteger(TARGET_POLICY_CACHE_SIZE, TargetPolicyCache.DEFAULT_SIZE));
     }
 
     // Proprietary hook for GlassFish. This is currently required since the
@@ -186,36 +190,16 @@ public class InterceptorImpl extends org.omg.CORBA.LocalObject implements Client
     @Override
     public void send_request(ClientRequestInfo clientRequestInfo) throws ForwardRequest {
         // do IOR policy checking.
-        TaggedComponent otsComp = null;
-        try {
-            otsComp = clientRequestInfo.get_effective_component(TAG_OTS_POLICY.value);
-        } catch (BAD_PARAM e) {
-            // ignore
+        // The OTS policy and the location of a target do not change, so they are
+        // decoded on the first request to the target only.
+        org.omg.CORBA.Object target = clientRequestInfo.effective_target();
+        TargetPolicyCache.TargetPolicy targetPolicy = targetPolicies.get(target);
+        if (targetPolicy == null) {
+            targetPolicy = new TargetPolicyCache.TargetPolicy(getOTSPolicyValue(clientRequestInfo), Corba.isProxy(target));
+            targetPolicies.put(target, targetPolicy);
         }
 
-        short otsPolicyValue = -1;
-
-        if (otsComp == null) {
-            // In the case of J2EE RI, all published IORs must have an
-            // associated OTS policy component. The only exception being the
-            // location forwarded IORs returned by ORBD. Until a time, the ORBD
-            // is capable of transcribing the target POA policies into the
-            // location forwarded IOR, treat the absence of an OTS policy
-            // component as being equivalent to ADAPTS. Once the ORBD is
-            // able to support OTS policy components, the absence of an OTS
-            // policy component must be treated as FORBIDS.
-            otsPolicyValue = OTSPolicyImpl._ADAPTS.value();
-        } else {
-            TypeCode typeCode = txOrb.get_primitive_tc(TCKind.tk_short);
-            Any any = null;
-            try {
-                any = codec.decode_value(otsComp.component_data, typeCode);
-            } catch (TypeMismatch | FormatMismatch e) {
-                throw new INTERNAL();
-            }
-
-            otsPolicyValue = OTSPolicyValueHelper.extract(any);
-        }
+        short otsPolicyValue = targetPolicy.otsPolicyValue;
 
         // TransactionService is not available.
 
@@ -259,8 +243,7 @@ public class InterceptorImpl extends org.omg.CORBA.LocalObject implements Client
         // Currently, checked behaviour is disabled and shall be reinstated
         // once OTS RTF redrafts the OTS spec based on PI. An issue needs to be
         // filed.
-        org.omg.CORBA.Object target = clientRequestInfo.effective_target();
-        if (Corba.isProxy(target)) {
+        if (targetPolicy.proxy) {
             // target is local
             // load a dummy context and discard the current tx context.
             propagationContextHolder.value = dummyContext;
@@ -277,6 +260,20 @@ public class InterceptorImpl extends org.omg.CORBA.LocalObject implements Client
             false);
     }
 
+    /**
+     * Returns the number of requests for which the OTS policy of the target was already known.
+     */
+    public long getTargetPolicyCacheHits() {
+        return targetPolicies.getHits();
+    }
+
+    /**
+     * Returns the number of requests for which the OTS policy of the target had to be decoded.
+     */
+    public long getTargetPolicyCacheMisses() {
+        return targetPolicies.getMisses();
+    }
+
     @Override
     public void send_poll(ClientRequestInfo ri) {
         // do nothing.
@@ -709,6 +706,37 @@ public class InterceptorImpl extends org.omg.CORBA.LocalObject implements Client
     }
 
 
+    private short getOTSPolicyValue(ClientRequestInfo clientRequestInfo) {
+        TaggedComponent otsComp = null;
+        try {
+            otsComp = clientRequestInfo.get_effective_component(TAG_OTS_POLICY.value);
+        } catch (BAD_PARAM e) {
+            // ignore
+        }
+
+        if (otsComp == null) {
+            // In the case of J2EE RI, all published IORs must have an
+            // associated OTS policy component. The only exception being the
+            // location forwarded IORs returned by ORBD. Until a time, the ORBD
+            // is capable of transcribing the target POA policies into the
+            // location forwarded IOR, treat the absence of an OTS policy
+            // component as being equivalent to ADAPTS. Once the ORBD is
+            // able to support OTS policy components, the absence of an OTS
+            // policy component must be treated as FORBIDS.
+            return OTSPolicyImpl._ADAPTS.value();
+        }
+
+        TypeCode typeCode = txOrb.get_primitive_tc(TCKind.tk_short);
+        Any any = null;
+        try {
+            any = codec.decode_value(otsComp.component_data, typeCode);
+        } catch (TypeMismatch | FormatMismatch e) {
+            throw new INTERNAL();
+        }
+
+        return OTSPolicyValueHelper.extract(any);
+    }
+
     private byte[] encodePropagationContext(PropagationContextHolder propagationContextHolder) {
         return encodePropagationContext(propagationContextHolder, COMPLETED_NO);
     }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.pi;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the decoded OTS policy and the proxy classification of the targets of outgoing requests, so that the client
+ * interceptor does not decode the OTS policy component of the target IOR on every request.
+ * <p>
+ * Targets are compared by identity and only weakly referenced. The cache is bounded; when it is full it is emptied, so
+ * targets which are no longer used do not stay in it for long.
+ */
+final class TargetPolicyCache {
+
+    static final int DEFAULT_SIZE = 1024;
+
+    /**
+     * What is known about a target.
+     */
+    static final class TargetPolicy {
+        final short otsPolicyValue;
+        final boolean proxy;
+
+        TargetPolicy(short otsPolicyValue, boolean proxy) {
+            this.otsPolicyValue = otsPolicyValue;
+            this.proxy = proxy;
+        }
+    }
+
+    private final ConcurrentHashMap<Object, TargetPolicy> cache = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TargetPolicyCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns what is known about the given target.
+     *
+     * @param target The target of a request.
+     *
+     * @return The cached policy of the target, or null if it is not known.
+     */
+    TargetPolicy get(org.omg.CORBA.Object target) {
+        TargetPolicy policy = cache.get(new Probe(target));
+        if (policy == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        return policy;
+    }
+
+    /**
+     * Remembers the policy of the given target.
+     *
+     * @param target The target of a request.
+     * @param policy The policy of the target.
+     */
+    void put(org.omg.CORBA.Object target, TargetPolicy policy) {
+        if (cache.size() >= maxSize) {
+            cache.clear();
+        }
+
+        cache.put(new TargetKey(target), policy);
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * The key under which a target is stored.
+     */
+    private static final class TargetKey extends WeakReference<org.omg.CORBA.Object> {
+        private final int hashCode;
+
+        TargetKey(org.omg.CORBA.Object target) {
+            super(target);
+            hashCode = System.identityHashCode(target);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+
+            if (other instanceof Probe) {
+                return ((Probe) other).target == get();
+            }
+
+            // A key whose target has been collected is only equal to itself.
+
+            return other instanceof TargetKey && get() != null && ((TargetKey) other).get() == get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A key for looking up a target without creating a weak reference. It is never stored.
+     */
+    private static final class Probe {
+        final org.omg.CORBA.Object target;
+
+        Probe(org.omg.CORBA.Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TargetKey && other.equals(this);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(target);
+        }
+    }
+}
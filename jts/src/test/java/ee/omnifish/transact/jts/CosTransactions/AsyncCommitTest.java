@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ee.omnifish.transact.api.TransactionConstants;
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+import ee.omnifish.transact.jta.transaction.TransactionSynchronizationRegistryImpl;
+import ee.omnifish.transact.jts.CosTransactions.ParallelCompletionTest.ParticipantResource;
+import ee.omnifish.transact.jts.JavaEETransactionManagerJTSDelegate;
+import ee.omnifish.transact.jts.TestResourceHandle;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.Transaction;
+
+/**
+ * Tests the asynchronous second phase of the commit of a root transaction, with the commit decision forced to a log
+ * under the build directory.
+ */
+public class AsyncCommitTest {
+
+    private static final String SERVER = "async-commit-test";
+    private static final Path LOG_DIRECTORY = Paths.get("target", "async-commit-log");
+    private static final Path LOG_COPY = Paths.get("target", "async-commit-log-copy");
+
+    private static JavaEETransactionManagerImpl txManager;
+    private static String previousServerName;
+
+    private SlowResource slow;
+    private ExecutorService callers;
+
+    @BeforeAll
+    public static void setUpLog() throws Exception {
+        delete(LOG_DIRECTORY);
+        Files.createDirectories(LOG_DIRECTORY);
+        setProperty(Configuration.LOG_DIRECTORY, LOG_DIRECTORY.toString());
+        setProperty(Configuration.ASYNC_COMMIT, "true");
+
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerJTSDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+
+        // The first global transaction initialises JTS as a server without a persistent identity. Make it
+        // recoverable afterwards, so that the commit decision is forced to the log.
+
+        begin(new ParticipantResource());
+        txManager.commit();
+        previousServerName = Configuration.getServerName();
+        Configuration.setServerName(SERVER, true);
+    }
+
+    @AfterAll
+    public static void tearDownLog() {
+        Configuration.setServerName(previousServerName, false);
+        setProperty(Configuration.ASYNC_COMMIT, "false");
+    }
+
+    @BeforeEach
+    public void setUp() {
+        slow = new SlowResource();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        slow.release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void testSynchronizationsAreToldOnceTheParticipantsCommitted() throws Exception {
+        ParticipantResource fast = new ParticipantResource();
+        Transaction tx = begin(fast, slow);
+        RecordingSynchronization sync = new RecordingSynchronization();
+        tx.registerSynchronization(sync);
+
+        txManager.commit();
+        slow.awaitCommitStarted();
+
+        // The caller has been told the outcome, but the resources released by the Synchronizations are
+        // still in use by the participant which is committing.
+
+        assertEquals(1, sync.beforeCount);
+        assertEquals(1, sync.done.getCount());
+
+        slow.release.countDown();
+        assertTrue(sync.done.await(10, SECONDS));
+        assertEquals(Status.STATUS_COMMITTED, sync.status);
+        assertTrue(sync.participantsCommitted);
+        assertEquals(1, fast.commitCount);
+    }
+
+    @Test
+    public void testTransactionIsForgottenOnceTheParticipantsCommitted() throws Exception {
+        Set<CoordinatorImpl> before = coordinators();
+        begin(new ParticipantResource(), slow);
+
+        txManager.commit();
+        slow.awaitCommitStarted();
+
+        // The end of the transaction must not be logged while a participant may still have to be told
+        // to commit by recovery.
+
+        TopCoordinator coordinator = newCoordinator(before);
+        assertNotNull(coordinator.superInfo.localTID);
+
+        slow.release.countDown();
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (coordinators().contains(coordinator)) {
+            assertTrue(System.nanoTime() < deadline, "The transaction was not forgotten");
+            Thread.sleep(10);
+        }
+        assertTrue(slow.committed);
+    }
+
+    @Test
+    public void testStrictCompletionWaitsForTheParticipants() throws Exception {
+        begin(new ParticipantResource(), slow);
+        new TransactionSynchronizationRegistryImpl(txManager).putResource(TransactionConstants.STRICT_COMPLETION, true);
+        Transaction tx = txManager.suspend();
+
+        Future<?> commit = callers.submit(() -> {
+            txManager.resume(tx);
+            txManager.commit();
+            return null;
+        });
+        slow.awaitCommitStarted();
+        Thread.sleep(100);
+        assertFalse(commit.isDone());
+
+        slow.release.countDown();
+        commit.get(10, SECONDS);
+        assertTrue(slow.committed);
+    }
+
+    @Test
+    public void testDecisionIsRecoveredIfTheSecondPhaseDoesNotComplete() throws Exception {
+        Set<CoordinatorImpl> before = coordinators();
+        begin(new ParticipantResource(), slow);
+
+        txManager.commit();
+        slow.awaitCommitStarted();
+        Long localTID = newCoordinator(before).superInfo.localTID;
+
+        // A copy of the log taken now is what a restart after a crash would find.
+
+        delete(LOG_COPY);
+        copy(LOG_DIRECTORY, LOG_COPY);
+        slow.release.countDown();
+
+        String logPath = LOG_COPY.toString();
+        Configuration.setServerName(logPath, SERVER);
+        try {
+            CoordinatorLog recovered = null;
+            Enumeration coordLogs = CoordinatorLog.getLogged(logPath);
+            while (coordLogs.hasMoreElements()) {
+                CoordinatorLog coordLog = (CoordinatorLog) coordLogs.nextElement();
+                if (localTID.equals(coordLog.localTID)) {
+                    recovered = coordLog;
+                }
+            }
+
+            // Recovery of a root transaction which prepared successfully commits it.
+
+            assertNotNull(recovered, "The commit decision was not logged");
+            assertEquals(TransactionState.STATE_PREPARED_SUCCESS, new TransactionState().reconstruct(recovered));
+        } finally {
+            CoordinatorLog.finalizeAll(logPath);
+        }
+    }
+
+    @Test
+    public void testShutdownWaitsForTheSecondPhasesInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertTrue(CommitCompletionService.submit(() -> {
+                started.countDown();
+                try {
+                    release.await(10, SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(started.await(10, SECONDS));
+
+            Future<?> shutdown = callers.submit(() -> CommitCompletionService.shutdown(false));
+            Thread.sleep(100);
+            assertFalse(shutdown.isDone());
+
+            // Once shut down, the callers complete their second phases themselves.
+
+            assertFalse(CommitCompletionService.submit(() -> { }));
+
+            release.countDown();
+            shutdown.get(10, SECONDS);
+        } finally {
+            release.countDown();
+            CommitCompletionService.reconfigure();
+        }
+    }
+
+    private static Transaction begin(XAResource... resources) throws Exception {
+        txManager.begin();
+        Transaction tx = txManager.getTransaction();
+        for (XAResource resource : resources) {
+            TestResourceHandle handle = new TestResourceHandle(resource);
+            txManager.enlistResource(tx, handle);
+            txManager.delistResource(tx, handle, XAResource.TMSUCCESS);
+        }
+
+        return tx;
+    }
+
+    private static Set<CoordinatorImpl> coordinators() {
+        return new HashSet<>(List.of(RecoveryManager.getCoordinators()));
+    }
+
+    private static TopCoordinator newCoordinator(Set<CoordinatorImpl> before) {
+        Set<CoordinatorImpl> added = coordinators();
+        added.removeAll(before);
+        assertEquals(1, added.size(), "The transaction was forgotten before its participants committed");
+
+        return (TopCoordinator) added.iterator().next();
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        try (Stream<Path> files = Files.walk(source)) {
+            files.forEach(file -> {
+                try {
+                    Files.copy(file, target.resolve(source.relativize(file).toString()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private static void setProperty(String name, String value) {
+        Properties properties = new Properties();
+        properties.setProperty(name, value);
+        Configuration.setProperties(properties);
+    }
+
+    /**
+     * A participant whose commit waits until it is released.
+     */
+    class SlowResource extends ParticipantResource {
+        final CountDownLatch commitStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean committed;
+
+        @Override
+        public void commit(Xid xid, boolean onePhase) throws XAException {
+            commitStarted.countDown();
+            try {
+                release.await(10, SECONDS);
+            } catch (InterruptedException e) {
+                throw (XAException) new XAException(XAException.XAER_RMERR).initCause(e);
+            }
+            super.commit(xid, onePhase);
+            committed = true;
+        }
+
+        void awaitCommitStarted() throws InterruptedException {
+            assertTrue(commitStarted.await(10, SECONDS));
+        }
+    }
+
+    /**
+     * Records the completion of the transaction, and whether the slow participant had committed by then.
+     */
+    class RecordingSynchronization implements Synchronization {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile int beforeCount;
+        volatile int status = -1;
+        volatile boolean participantsCommitted;
+
+        @Override
+        public void beforeCompletion() {
+            beforeCount++;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            participantsCommitted = slow.committed;
+            this.status = status;
+            done.countDown();
+        }
+    }
+}
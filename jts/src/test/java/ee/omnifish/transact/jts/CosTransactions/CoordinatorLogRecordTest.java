@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Vector;
+
+import org.junit.jupiter.api.Test;
+
+public class CoordinatorLogRecordTest {
+
+    private static final long LOCAL_TID = 42;
+
+    private static final byte[] IOR = { 0, 0, 0, 0, 0, 0, 0, 0x1f, 'I', 'D', 'L', ':', (byte) 0xca, (byte) 0xfe };
+
+    @Test
+    public void testVarIntRoundTrip() throws IOException {
+        int[] values = { 0, 1, 0x7F, 0x80, 0x3FFF, 0x4000, 0x1FFFFF, 0x200000, Integer.MAX_VALUE };
+        for (int value : values) {
+            ByteBuffer buffer = ByteBuffer.allocate(CoordinatorLogRecord.varIntSize(value));
+            CoordinatorLogRecord.putVarInt(buffer, value);
+            assertEquals(0, buffer.remaining());
+
+            DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+            assertEquals(value, CoordinatorLogRecord.readVarInt(dataInput));
+        }
+    }
+
+    @Test
+    public void testMalformedVarIntIsRejected() {
+        byte[] bytes = { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0 };
+
+        assertThrows(IOException.class, () -> CoordinatorLogRecord.readVarInt(new DataInputStream(new ByteArrayInputStream(bytes))));
+    }
+
+    @Test
+    public void testIORConversion() {
+        String objRefStr = CoordinatorLogRecord.toIORString(IOR);
+
+        assertEquals("IOR:000000000000001f49444c3acafe", objRefStr);
+        assertArrayEquals(IOR, CoordinatorLogRecord.toIORBytes(objRefStr));
+        assertArrayEquals(IOR, CoordinatorLogRecord.toIORBytes(objRefStr.toUpperCase()));
+        assertThrows(IllegalArgumentException.class, () -> CoordinatorLogRecord.toIORBytes("corbaloc::localhost:3700/NameService"));
+        assertThrows(IllegalArgumentException.class, () -> CoordinatorLogRecord.toIORBytes("IOR:0"));
+        assertThrows(IllegalArgumentException.class, () -> CoordinatorLogRecord.toIORBytes("IOR:0g"));
+    }
+
+    @Test
+    public void testRecordRoundTrip() throws IOException {
+        CoordinatorLog written = coordinatorLog();
+        Object resources = written.createSection("RES");
+        addObject(resources, IOR);
+        written.addData(resources, new byte[] { 1, 2, 3 });
+        written.addData(resources, new byte[300]);
+        written.createSection("EMPTY");
+        written.addData(written.createSection("TMN"), new byte[20000]);
+
+        byte[] record = written.formatRecord(false);
+
+        CoordinatorLog recovered = reconstruct(record);
+        Object recoveredResources = recovered.createSection("RES");
+        assertArrayEquals(IOR, (byte[]) writtenObjects(recoveredResources).get(0));
+        assertEquals(1, writtenObjects(recoveredResources).size());
+        byte[][] data = recovered.getData(recoveredResources);
+        assertEquals(2, data.length);
+        assertArrayEquals(new byte[] { 1, 2, 3 }, data[0]);
+        assertArrayEquals(new byte[300], data[1]);
+        assertArrayEquals(new byte[][] { new byte[20000] }, recovered.getData(recovered.createSection("TMN")));
+        assertEquals(0, recovered.getData(recovered.createSection("EMPTY")).length);
+    }
+
+    @Test
+    public void testRecordsOfOneTransactionAccumulate() throws IOException {
+        CoordinatorLog written = coordinatorLog();
+        Object section = written.createSection("RES");
+        written.addData(section, new byte[] { 1 });
+        byte[] first = written.formatRecord(false);
+        written.addData(section, new byte[] { 2 });
+        byte[] second = written.formatRecord(false);
+        byte[] rewritten = written.formatRecord(true);
+
+        CoordinatorLog recovered = reconstruct(first);
+        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(second));
+        assertEquals(LOCAL_TID, dataInput.readLong());
+        recovered.reconstruct(dataInput);
+        assertArrayEquals(new byte[][] { { 1 }, { 2 } }, recovered.getData(recovered.createSection("RES")));
+
+        // A rewritten record holds everything written before.
+
+        CoordinatorLog fromRewrite = reconstruct(rewritten);
+        assertArrayEquals(new byte[][] { { 1 }, { 2 } }, fromRewrite.getData(fromRewrite.createSection("RES")));
+    }
+
+    @Test
+    public void testUnversionedRecordIsRecovered() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeLong(LOCAL_TID);
+        record.writeShort(2);
+
+        // A section with a stringified IOR, an invalid reference and two data items.
+
+        record.writeShort(3);
+        record.writeShort(2);
+        record.writeShort(2);
+        record.write("RES".getBytes(ISO_8859_1));
+        writeUnversioned(record, CoordinatorLogRecord.toIORString(IOR));
+        writeUnversioned(record, "not an IOR");
+        record.writeShort(3);
+        record.write(new byte[] { 1, 2, 3 });
+        record.writeShort(0);
+
+        // An empty section.
+
+        record.writeShort(0);
+
+        CoordinatorLog recovered = reconstruct(bytes.toByteArray());
+
+        Object resources = recovered.createSection("RES");
+        assertEquals(1, writtenObjects(resources).size());
+        assertArrayEquals(IOR, (byte[]) writtenObjects(resources).get(0));
+        assertArrayEquals(new byte[][] { { 1, 2, 3 }, {} }, recovered.getData(resources));
+    }
+
+    @Test
+    public void testUnknownVersionIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeLong(LOCAL_TID);
+        record.writeShort(CoordinatorLogRecord.FORMAT_MARKER);
+        record.writeByte(CoordinatorLogRecord.FORMAT_VERSION + 1);
+        record.writeByte(0);
+
+        assertThrows(IOException.class, () -> reconstruct(bytes.toByteArray()));
+    }
+
+    private static CoordinatorLog coordinatorLog() {
+        CoordinatorLog coordinatorLog = new CoordinatorLog();
+        coordinatorLog.localTID = LOCAL_TID;
+        return coordinatorLog;
+    }
+
+    /**
+     * Adds the IOR of an object to a section, as addObject does for an object reference.
+     */
+    private static void addObject(Object sectionObj, byte[] ior) {
+        CoordinatorLogSection section = (CoordinatorLogSection) sectionObj;
+        section.unwrittenEmpty = false;
+        section.unwrittenObjects = new Vector();
+        section.unwrittenObjects.addElement(ior);
+    }
+
+    private static Vector writtenObjects(Object sectionObj) {
+        return ((CoordinatorLogSection) sectionObj).writtenObjects;
+    }
+
+    private static CoordinatorLog reconstruct(byte[] record) throws IOException {
+        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(record));
+        assertEquals(LOCAL_TID, dataInput.readLong());
+
+        CoordinatorLog coordinatorLog = new CoordinatorLog();
+        coordinatorLog.reconstruct(dataInput);
+        return coordinatorLog;
+    }
+
+    private static void writeUnversioned(DataOutputStream record, String value) throws IOException {
+        record.writeShort(value.length());
+        record.write(value.getBytes(ISO_8859_1));
+    }
+}
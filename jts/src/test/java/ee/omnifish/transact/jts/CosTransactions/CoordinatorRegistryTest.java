@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class CoordinatorRegistryTest {
+
+    private final CoordinatorRegistry registry = new CoordinatorRegistry();
+
+    @Test
+    public void testCoordinatorIsFoundByEveryIdentifier() {
+        CoordinatorImpl coord = new TopCoordinator();
+        registry.add(globalTID(1), 1L, coord);
+
+        assertSame(coord, registry.get(globalTID(1)));
+        assertSame(coord, registry.get(new GlobalTID.Key(globalTID(1).realTID)));
+        assertSame(coord, registry.getLocal(1L));
+        assertTrue(registry.containsLocal(1L));
+        assertEquals(1, registry.size());
+        assertFalse(registry.isEmpty());
+        assertNull(registry.get(globalTID(2)));
+        assertNull(registry.getLocal(2L));
+    }
+
+    @Test
+    public void testRemoveDropsBothAssociations() {
+        CoordinatorImpl coord = new TopCoordinator();
+        registry.add(globalTID(1), 1L, coord);
+
+        assertSame(coord, registry.remove(globalTID(1), 1L));
+
+        assertNull(registry.get(globalTID(1)));
+        assertNull(registry.getLocal(1L));
+        assertTrue(registry.isEmpty());
+        assertNull(registry.remove(globalTID(1), 1L));
+    }
+
+    @Test
+    public void testRemoveOfUnknownGlobalIdentifierKeepsTheLocalAssociation() {
+        CoordinatorImpl coord = new TopCoordinator();
+        registry.add(globalTID(1), 1L, coord);
+
+        assertNull(registry.remove(globalTID(2), 1L));
+
+        assertSame(coord, registry.get(globalTID(1)));
+        assertSame(coord, registry.getLocal(1L));
+    }
+
+    @Test
+    public void testConcurrentAddAndRemoveLoseNothing() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread;
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = first; i < first + perThread; i++) {
+                        registry.add(globalTID(i), (long) i, new TopCoordinator());
+                    }
+
+                    // Remove every second one again.
+
+                    for (int i = first; i < first + perThread; i += 2) {
+                        assertSame(registry.getLocal((long) i), registry.remove(globalTID(i), (long) i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread / 2, registry.size());
+        for (int i = 0; i < threads * perThread; i++) {
+            boolean kept = i % 2 != 0;
+            assertEquals(kept, registry.get(globalTID(i)) != null, "Global association of " + i);
+            assertEquals(kept, registry.containsLocal((long) i), "Local association of " + i);
+        }
+    }
+
+    @Test
+    public void testIterationToleratesConcurrentChanges() throws Exception {
+        for (int i = 0; i < 1_000; i++) {
+            registry.add(globalTID(i), (long) i, new TopCoordinator());
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 1_000; !done.get(); i++) {
+                registry.add(globalTID(i), (long) i, new TopCoordinator());
+                registry.remove(globalTID(i - 1_000), (long) i - 1_000);
+            }
+        });
+        writer.start();
+        try {
+            for (int pass = 0; pass < 100; pass++) {
+                int seen = 0;
+                for (CoordinatorImpl coord : registry.coordinators()) {
+                    assertTrue(coord instanceof TopCoordinator);
+                    seen++;
+                }
+                assertTrue(seen > 0);
+                assertTrue(registry.toArray().length > 0);
+                for (Enumeration<GlobalTID> tids = registry.globalTIDs(); tids.hasMoreElements();) {
+                    assertTrue(tids.nextElement() != null);
+                }
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    private static GlobalTID globalTID(int id) {
+        byte[] tid = ByteBuffer.allocate(12).putLong(0x0102030405060708L).putInt(id).array();
+        return new GlobalTID(TransactionState.XID_FORMAT_ID, 0, tid);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DelegatedPartitionRecoveryTest {
+
+    private static final String PEER = "peer";
+
+    @TempDir
+    Path directory;
+
+    private String logPath;
+    private boolean recovered;
+
+    @BeforeEach
+    public void setUp() {
+        logPath = directory.resolve(PEER).toString();
+        Configuration.setServerName(logPath, PEER);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (recovered) {
+            CoordinatorLog.finalizeAll(logPath);
+        }
+        setProperty(Configuration.LOG_PARTITION_DIRECTORIES, "");
+    }
+
+    @Test
+    public void testPartitionsAreNamedAfterTheServer() {
+        String first = directory.resolve("first").toString();
+        String second = directory.resolve("second").toString();
+
+        LogPartitioning partitioning = new LogPartitioning(logPath, PEER);
+        assertEquals(null, partitioning.getDirectory(0));
+        assertEquals(new File(logPath, "partition1").getPath(), partitioning.getDirectory(1));
+
+        setProperty(Configuration.LOG_PARTITION_DIRECTORIES, first + File.pathSeparator + second);
+        partitioning = new LogPartitioning(logPath, PEER);
+        assertEquals(new File(first, PEER + File.separator + "partition1").getPath(), partitioning.getDirectory(1));
+        assertEquals(new File(second, PEER + File.separator + "partition2").getPath(), partitioning.getDirectory(2));
+        assertEquals(new File(first, PEER + File.separator + "partition3").getPath(), partitioning.getDirectory(3));
+        assertEquals(3, partitioning.getPartitionCount());
+    }
+
+    @Test
+    public void testDefaultPartitionCountFollowsTheProcessors() {
+        int expected = Math.min(Runtime.getRuntime().availableProcessors(), LogPartitioning.MAX_AUTO_PARTITIONS);
+
+        assertEquals(expected, new LogPartitioning(logPath, PEER).getPartitionCount());
+    }
+
+    @Test
+    public void testPeerRecoveryReplaysEveryPartition() throws Exception {
+        LogPartitioning partitioning = new LogPartitioning(logPath, PEER);
+        write(logPath, 1L);
+        write(partitioning.getDirectory(2), 2L, 4L);
+        write(partitioning.getDirectory(LogPartitioning.MAX_AUTO_PARTITIONS + 1), 9L);
+
+        assertEquals(Set.of(1L, 2L, 4L, 9L), getLogged());
+    }
+
+    @Test
+    public void testTransactionsOfAPeerPartitionAreRemovedFromIt() throws Exception {
+        String partition = new LogPartitioning(logPath, PEER).getDirectory(1);
+        write(logPath, 1L);
+        write(partition, 2L, 3L);
+        assertEquals(Set.of(1L, 2L, 3L), getLogged());
+
+        // The log of a partition without transactions is deleted when it is closed.
+
+        CoordinatorLog.removeLog(2L, logPath);
+        CoordinatorLog.removeLog(3L, logPath);
+        CoordinatorLog.finalizeAll(logPath);
+        recovered = false;
+
+        assertEquals(Set.of(), read(partition));
+        assertEquals(Set.of(1L), read(logPath));
+    }
+
+    @Test
+    public void testPeerPartitionsInSharedDirectoriesAreKeptApart() throws Exception {
+        String shared = directory.resolve("shared").toString();
+        setProperty(Configuration.LOG_PARTITION_DIRECTORIES, shared);
+
+        write(logPath, 1L);
+        write(new LogPartitioning(logPath, PEER).getDirectory(1), 2L);
+        write(new LogPartitioning(directory.resolve("other").toString(), "other").getDirectory(1), 3L);
+
+        assertEquals(Set.of(1L, 2L), getLogged());
+    }
+
+    private Set<Long> getLogged() {
+        recovered = true;
+        Set<Long> localTIDs = new TreeSet<>();
+        Enumeration coordLogs = CoordinatorLog.getLogged(logPath);
+        while (coordLogs.hasMoreElements()) {
+            localTIDs.add(((CoordinatorLog) coordLogs.nextElement()).localTID);
+        }
+        return localTIDs;
+    }
+
+    /**
+     * Writes a record for each of the given transactions to the log of the peer in the given directory.
+     */
+    private static void write(String logDirectory, Long... localTIDs) {
+        LogFile logFile = open(logDirectory);
+        for (Long localTID : localTIDs) {
+            CoordinatorLog coordLog = new CoordinatorLog();
+            coordLog.localTID = localTID;
+            coordLog.addData(coordLog.createSection("RES"), new byte[] { 1 });
+            assertTrue(logFile.write(LogFile.FORCED, coordLog.formatRecord(false), LogFile.NORMAL, null));
+        }
+        logFile.close(false);
+    }
+
+    private static Set<Long> read(String logDirectory) {
+        LogFile logFile = open(logDirectory);
+        Set<Long> localTIDs = new TreeSet<>();
+        assertTrue(LogReplay.read(logFile, record -> {
+            try {
+                localTIDs.add(new DataInputStream(new ByteArrayInputStream(record)).readLong());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        logFile.close(false);
+        return localTIDs;
+    }
+
+    private static LogFile open(String logDirectory) {
+        Log log = new Log(logDirectory);
+        assertTrue(log.initialise());
+        return log.open(PEER, reason -> { });
+    }
+
+    private static void setProperty(String name, String value) {
+        Properties properties = new Properties();
+        properties.setProperty(name, value);
+        Configuration.setProperties(properties);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.transaction.xa.Xid;
+
+import org.junit.jupiter.api.Test;
+import org.omg.CosTransactions.otid_t;
+
+public class GlobalTIDTest {
+
+    private static final int FORMAT_ID = TransactionState.XID_FORMAT_ID;
+
+    @Test
+    public void testBranchQualifierIsIgnored() {
+        GlobalTID first = new GlobalTID(xid(FORMAT_ID, gtrid(1), new byte[] { 1 }));
+        GlobalTID second = new GlobalTID(xid(FORMAT_ID, gtrid(1), new byte[] { 2, 3 }));
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void testFormatAndGlobalPartAreCompared() {
+        GlobalTID tid = new GlobalTID(FORMAT_ID, 0, gtrid(1));
+
+        assertNotEquals(tid, new GlobalTID(FORMAT_ID, 0, gtrid(2)));
+        assertNotEquals(tid, new GlobalTID(FORMAT_ID + 1, 0, gtrid(1)));
+        assertNotEquals(tid, new GlobalTID(FORMAT_ID, 0, new byte[] { 1, 2, 3 }));
+    }
+
+    @Test
+    public void testKeyIsEqualToTheGlobalTID() {
+        GlobalTID tid = new GlobalTID(xid(FORMAT_ID, gtrid(7), new byte[] { 9 }));
+        GlobalTID.Key fromXid = new GlobalTID.Key(xid(FORMAT_ID, gtrid(7), new byte[] { 5, 6 }));
+        GlobalTID.Key fromOtid = new GlobalTID.Key(new otid_t(FORMAT_ID, 2, withBranch(gtrid(7), new byte[] { 5, 6 })));
+
+        for (GlobalTID.Key key : new GlobalTID.Key[] { fromXid, fromOtid }) {
+            assertTrue(key.equals(tid));
+            assertTrue(tid.equals(key));
+            assertEquals(tid.hashCode(), key.hashCode());
+        }
+        assertEquals(fromXid, fromOtid);
+        assertEquals(fromXid.hashCode(), fromOtid.hashCode());
+
+        GlobalTID.Key other = new GlobalTID.Key(xid(FORMAT_ID, gtrid(8), new byte[0]));
+        assertNotEquals(other, tid);
+        assertNotEquals(tid, other);
+        assertNotEquals(fromXid, other);
+    }
+
+    @Test
+    public void testKeyLooksUpMapsKeyedByGlobalTID() {
+        Map<GlobalTID, String> map = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put(new GlobalTID(FORMAT_ID, 0, gtrid(i)), "tx" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("tx" + i, map.get(new GlobalTID.Key(xid(FORMAT_ID, gtrid(i), new byte[] { 1 }))));
+        }
+        assertNull(map.get(new GlobalTID.Key(xid(FORMAT_ID, gtrid(1_000), new byte[0]))));
+    }
+
+    @Test
+    public void testCopyKeepsTheHashValue() {
+        GlobalTID tid = new GlobalTID(FORMAT_ID, 0, gtrid(3));
+        int hash = tid.hashCode();
+
+        GlobalTID copy = tid.copy();
+
+        assertEquals(tid, copy);
+        assertEquals(hash, copy.hashCode());
+    }
+
+    @Test
+    public void testSequentialGlobalTIDsSpreadOverTheBuckets() {
+        // The GTRIDs of one server share a long prefix and differ in the bytes of a counter.
+
+        int count = 1 << 16;
+        int buckets = 1 << 12;
+        Set<Integer> hashes = new HashSet<>();
+        int[] load = new int[buckets];
+        for (int i = 0; i < count; i++) {
+            int hash = new GlobalTID(FORMAT_ID, 0, gtrid(i)).hashCode();
+            assertNotEquals(0, hash);
+            hashes.add(hash);
+
+            // The bucket index a HashMap of this size would use.
+
+            load[(hash ^ (hash >>> 16)) & (buckets - 1)]++;
+        }
+
+        assertTrue(hashes.size() > count - 8, "Only " + hashes.size() + " distinct hash values");
+        int expected = count / buckets;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            assertTrue(load[bucket] < 4 * expected, "Bucket " + bucket + " holds " + load[bucket] + " identifiers");
+        }
+    }
+
+    /**
+     * A GTRID like those generated by this service: a fixed server prefix followed by a counter.
+     */
+    private static byte[] gtrid(int counter) {
+        return ByteBuffer.allocate(28).put("server-name-prefix".getBytes()).putShort((short) 0).putInt(0).putInt(counter).array();
+    }
+
+    private static byte[] withBranch(byte[] gtrid, byte[] bqual) {
+        return ByteBuffer.allocate(gtrid.length + bqual.length).put(gtrid).put(bqual).array();
+    }
+
+    private static Xid xid(int formatID, byte[] gtrid, byte[] bqual) {
+        return new Xid() {
+            @Override
+            public int getFormatId() {
+                return formatID;
+            }
+
+            @Override
+            public byte[] getGlobalTransactionId() {
+                return gtrid;
+            }
+
+            @Override
+            public byte[] getBranchQualifier() {
+                return bqual;
+            }
+        };
+    }
+}
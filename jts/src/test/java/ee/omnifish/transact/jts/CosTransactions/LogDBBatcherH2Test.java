@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the batched writes of the transaction log table against an embedded H2 database.
+ */
+public class LogDBBatcherH2Test {
+
+    private static final String SERVER = "server";
+
+    private String url;
+    private Connection keepAlive;
+    private volatile CountDownLatch connectionGate;
+    private LogDBBatcher batcher;
+    private ExecutorService callers;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:txlog" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        keepAlive = DriverManager.getConnection(url);
+        batcher = new LogDBBatcher(new LogDBHelper(dataSource(), "instance", false));
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        openConnections();
+        batcher.close();
+        callers.shutdownNow();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("shutdown");
+        }
+    }
+
+    @Test
+    public void testRecordsAreCommittedAndDeleted() throws Exception {
+        assertTrue(batcher.insert(1, SERVER, "instance", new byte[] { 1 }));
+        assertTrue(batcher.insert(2, SERVER, "instance", new byte[] { 2 }));
+        assertTrue(batcher.delete(1, SERVER));
+        batcher.sync();
+
+        assertEquals(Set.of(2L), committed());
+    }
+
+    @Test
+    public void testOnlyTheFailingRecordOfABatchFails() throws Exception {
+        String tooLong = "s".repeat(200);
+
+        // Hold the writer until all records are queued, so that the failing one shares a batch with others.
+
+        connectionGate = new CountDownLatch(1);
+        List<Future<Boolean>> inserts = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            long localTID = i;
+            String serverName = i == 3 ? tooLong : SERVER;
+            inserts.add(callers.submit(() -> batcher.insert(localTID, serverName, "instance", new byte[] { (byte) localTID })));
+        }
+        LogDBBatcherTest.awaitWaiting(inserts.size());
+        openConnections();
+
+        for (int i = 0; i < inserts.size(); i++) {
+            assertEquals(i != 2, inserts.get(i).get(10, SECONDS), "insert " + (i + 1));
+        }
+        assertEquals(Set.of(1L, 2L, 4L, 5L), committed());
+
+        // The writer goes on with the next batch.
+
+        assertTrue(batcher.insert(6, SERVER, "instance", new byte[] { 6 }));
+        assertFalse(batcher.insert(7, tooLong, "instance", new byte[] { 7 }));
+        assertEquals(Set.of(1L, 2L, 4L, 5L, 6L), committed());
+    }
+
+    private void openConnections() {
+        CountDownLatch gate = connectionGate;
+        connectionGate = null;
+        if (gate != null) {
+            gate.countDown();
+        }
+    }
+
+    private Set<Long> committed() throws SQLException {
+        Set<Long> localTIDs = new TreeSet<>();
+        try (Statement statement = keepAlive.createStatement();
+                ResultSet resultSet = statement.executeQuery("select localtid from txn_log_table")) {
+            while (resultSet.next()) {
+                localTIDs.add(Long.valueOf(resultSet.getString(1)));
+            }
+        }
+        return localTIDs;
+    }
+
+    /**
+     * A data source of the embedded database, whose connections can be held back.
+     */
+    private DataSource dataSource() {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+            if (method.getName().equals("getConnection")) {
+                CountDownLatch gate = connectionGate;
+                if (gate != null) {
+                    assertTrue(gate.await(10, SECONDS));
+                }
+                return DriverManager.getConnection(url);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LogDBBatcherTest {
+
+    private static final String SERVER = "server";
+
+    private FakeDatabase database;
+    private LogDBBatcher batcher;
+    private ExecutorService callers;
+
+    @BeforeEach
+    public void setUp() {
+        database = new FakeDatabase();
+        batcher = new LogDBBatcher(new LogDBHelper(database.dataSource(), "instance", false));
+
+        // Only count the connections of the batcher, not the one which created the table.
+        database.connections.set(0);
+        database.openConnections.set(0);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.releaseCommit();
+        batcher.close();
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void testInsertReturnsOnceTheRecordIsCommitted() {
+        assertTrue(batcher.insert(1, SERVER, "instance", new byte[] { 1 }));
+
+        assertTrue(database.isCommitted(1));
+        assertEquals(1, database.commits.get());
+    }
+
+    @Test
+    public void testInsertsQueuedDuringACommitShareTheNextBatch() throws Exception {
+        database.blockCommit();
+        Future<Boolean> first = callers.submit(() -> batcher.insert(0, SERVER, "instance", new byte[0]));
+        database.awaitCommitStarted();
+
+        List<Future<Boolean>> queued = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            long localTID = i;
+            queued.add(callers.submit(() -> batcher.insert(localTID, SERVER, "instance", new byte[0])));
+        }
+        awaitWaiting(queued.size() + 1);
+
+        database.releaseCommit();
+        assertTrue(first.get(10, SECONDS));
+        for (Future<Boolean> insert : queued) {
+            assertTrue(insert.get(10, SECONDS));
+        }
+
+        assertEquals(2, database.batches.get());
+        assertEquals(2, database.commits.get());
+        for (long localTID = 0; localTID <= 20; localTID++) {
+            assertTrue(database.isCommitted(localTID));
+        }
+    }
+
+    @Test
+    public void testDeleteIsQueuedAndSyncWaitsForIt() throws Exception {
+        assertTrue(batcher.insert(1, SERVER, "instance", new byte[0]));
+        database.blockCommit();
+
+        assertTrue(batcher.delete(1, SERVER));
+
+        Future<?> sync = callers.submit(batcher::sync);
+        database.awaitCommitStarted();
+        assertFalse(sync.isDone());
+        assertTrue(database.isCommitted(1));
+
+        database.releaseCommit();
+        assertTimely(sync);
+        assertFalse(database.isCommitted(1));
+    }
+
+    @Test
+    public void testDeletesRunAfterTheInsertsOfTheSameBatch() throws Exception {
+        database.blockCommit();
+        Future<Boolean> blocker = callers.submit(() -> batcher.insert(0, SERVER, "instance", new byte[0]));
+        database.awaitCommitStarted();
+
+        // Both end up in the next batch, with the delete queued first.
+
+        assertTrue(batcher.delete(1, SERVER));
+        Future<Boolean> insert = callers.submit(() -> batcher.insert(1, SERVER, "instance", new byte[0]));
+        awaitWaiting(2);
+
+        database.releaseCommit();
+        assertTrue(blocker.get(10, SECONDS));
+        assertTrue(insert.get(10, SECONDS));
+        batcher.sync();
+
+        assertFalse(database.isCommitted(1));
+    }
+
+    @Test
+    public void testFailedBatchIsWrittenAgainOneRecordAtATimeOnANewConnection() throws Exception {
+        assertTrue(batcher.insert(1, SERVER, "instance", new byte[0]));
+        assertEquals(1, database.connections.get());
+
+        List<Future<Boolean>> retried = queueBehindABlockedCommit(3, 5);
+
+        database.failNextBatch = true;
+        database.releaseCommit();
+        for (Future<Boolean> insert : retried) {
+            assertTrue(insert.get(10, SECONDS));
+        }
+        assertEquals(1, database.rollbacks.get());
+        assertEquals(2, database.connections.get());
+        for (long localTID = 3; localTID <= 5; localTID++) {
+            assertTrue(database.isCommitted(localTID));
+        }
+    }
+
+    @Test
+    public void testOnlyTheRecordWhichCannotBeWrittenFails() throws Exception {
+        database.failing.add(4L);
+        List<Future<Boolean>> inserts = queueBehindABlockedCommit(3, 5);
+
+        database.releaseCommit();
+        assertTrue(inserts.get(0).get(10, SECONDS));
+        assertFalse(inserts.get(1).get(10, SECONDS));
+        assertTrue(inserts.get(2).get(10, SECONDS));
+        assertTrue(database.isCommitted(3));
+        assertFalse(database.isCommitted(4));
+        assertTrue(database.isCommitted(5));
+
+        // The connection of the failed record is replaced.
+
+        assertTrue(batcher.insert(6, SERVER, "instance", new byte[0]));
+        assertTrue(database.isCommitted(6));
+        assertEquals(1, database.openConnections.get());
+    }
+
+    @Test
+    public void testCloseWritesQueuedRecordsAndClosesTheConnection() throws Exception {
+        database.blockCommit();
+        Future<Boolean> first = callers.submit(() -> batcher.insert(1, SERVER, "instance", new byte[0]));
+        database.awaitCommitStarted();
+        assertTrue(batcher.delete(1, SERVER));
+        Future<Boolean> queued = callers.submit(() -> batcher.insert(2, SERVER, "instance", new byte[0]));
+        awaitWaiting(2);
+
+        Future<?> close = callers.submit(batcher::close);
+        database.releaseCommit();
+        assertTimely(close);
+
+        assertTrue(first.get(10, SECONDS));
+        assertTrue(queued.get(10, SECONDS));
+        assertFalse(database.isCommitted(1));
+        assertTrue(database.isCommitted(2));
+        assertEquals(0, database.openConnections.get());
+
+        // Callers now write their records themselves.
+
+        assertNull(batcher.insert(3, SERVER, "instance", new byte[0]));
+        assertFalse(batcher.delete(2, SERVER));
+        batcher.sync();
+    }
+
+    /**
+     * Queues inserts of the given records behind the blocked commit of another record, so that they form one batch.
+     */
+    private List<Future<Boolean>> queueBehindABlockedCommit(long first, long last) throws Exception {
+        database.blockCommit();
+        callers.submit(() -> batcher.insert(0, SERVER, "instance", new byte[0]));
+        database.awaitCommitStarted();
+
+        List<Future<Boolean>> inserts = new ArrayList<>();
+        for (long i = first; i <= last; i++) {
+            long localTID = i;
+            inserts.add(callers.submit(() -> batcher.insert(localTID, SERVER, "instance", new byte[0])));
+        }
+        awaitWaiting(inserts.size() + 1);
+
+        return inserts;
+    }
+
+    private static void assertTimely(Future<?> future) {
+        try {
+            future.get(10, SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Waits until the given number of callers, including one whose record is being committed, wait in the batcher.
+     */
+    static void awaitWaiting(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (countWaiting() < count) {
+            assertTrue(System.nanoTime() < deadline, "The callers did not queue their records");
+            Thread.sleep(10);
+        }
+    }
+
+    private static int countWaiting() {
+        int count = 0;
+        for (StackTraceElement[] stack : Thread.getAllStackTraces().values()) {
+            for (StackTraceElement frame : stack) {
+                if (frame.getClassName().equals(LogDBBatcher.class.getName() + "$Request") && frame.getMethodName().equals("await")) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * An in-memory stand-in for the transaction log table, reached through JDBC proxies. Commits can be held, a batch
+     * made to fail, or the records of given transactions refused.
+     */
+    static class FakeDatabase {
+        final Map<Long, Boolean> committed = new ConcurrentHashMap<>();
+        final Set<Long> failing = ConcurrentHashMap.newKeySet();
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger openConnections = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger rollbacks = new AtomicInteger();
+        volatile boolean failNextBatch;
+        private volatile CountDownLatch commitBlock;
+        private volatile CountDownLatch commitStarted = new CountDownLatch(1);
+
+        boolean isCommitted(long localTID) {
+            return committed.containsKey(localTID);
+        }
+
+        void blockCommit() {
+            commitStarted = new CountDownLatch(1);
+            commitBlock = new CountDownLatch(1);
+        }
+
+        void awaitCommitStarted() throws InterruptedException {
+            assertTrue(commitStarted.await(10, SECONDS));
+        }
+
+        void releaseCommit() {
+            CountDownLatch block = commitBlock;
+            commitBlock = null;
+            if (block != null) {
+                block.countDown();
+            }
+        }
+
+        DataSource dataSource() {
+            return proxy(DataSource.class, (proxy, method, args) -> {
+                if (method.getName().equals("getConnection")) {
+                    connections.incrementAndGet();
+                    openConnections.incrementAndGet();
+                    return connection();
+                }
+                return defaultValue(method.getReturnType());
+            });
+        }
+
+        private Connection connection() {
+            Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+            return proxy(Connection.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                case "prepareStatement":
+                    return statement((String) args[0], pending);
+                case "createStatement":
+                    return proxy(Statement.class, (statement, call, callArgs) -> {
+                        if (call.getName().equals("execute")) {
+                            throw new SQLException("Table exists");
+                        }
+                        return defaultValue(call.getReturnType());
+                    });
+                case "commit":
+                    commitStarted.countDown();
+                    CountDownLatch block = commitBlock;
+                    if (block != null) {
+                        block.await();
+                    }
+                    commits.incrementAndGet();
+                    pending.forEach((localTID, insert) -> {
+                        if (insert) {
+                            committed.put(localTID, true);
+                        } else {
+                            committed.remove(localTID);
+                        }
+                    });
+                    pending.clear();
+                    return null;
+                case "rollback":
+                    rollbacks.incrementAndGet();
+                    pending.clear();
+                    return null;
+                case "close":
+                    openConnections.decrementAndGet();
+                    return null;
+                default:
+                    return defaultValue(method.getReturnType());
+                }
+            });
+        }
+
+        private PreparedStatement statement(String sql, Map<Long, Boolean> pending) {
+            boolean insert = sql.equals(LogDBHelper.insertStatement);
+            List<Long> batch = new ArrayList<>();
+            Object[] localTID = new Object[1];
+            return proxy(PreparedStatement.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                case "setString":
+                    if ((Integer) args[0] == 1) {
+                        localTID[0] = Long.valueOf((String) args[1]);
+                    }
+                    return null;
+                case "addBatch":
+                    batch.add((Long) localTID[0]);
+                    return null;
+                case "executeBatch":
+                    batches.incrementAndGet();
+                    if (failNextBatch || batch.stream().anyMatch(failing::contains)) {
+                        failNextBatch = false;
+                        batch.clear();
+                        throw new BatchUpdateException("Batch failed", new int[0]);
+                    }
+
+                    // Later records of the batch override earlier ones, as the statements would.
+
+                    for (Long id : batch) {
+                        pending.put(id, insert);
+                    }
+                    int[] counts = new int[batch.size()];
+                    batch.clear();
+                    return counts;
+                case "executeUpdate":
+                    if (failing.contains(localTID[0])) {
+                        throw new SQLException("Record refused");
+                    }
+                    pending.put((Long) localTID[0], insert);
+                    return 1;
+                default:
+                    return defaultValue(method.getReturnType());
+                }
+            });
+        }
+
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(FakeDatabase.class.getClassLoader(), new Class<?>[] { type }, handler));
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (type == boolean.class) {
+                return false;
+            }
+            if (type == int.class) {
+                return 0;
+            }
+            if (type == long.class) {
+                return 0L;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogExtentRecyclingTest {
+
+    private static final String LOG_NAME = "test";
+
+    /**
+     * The size of the records, which all have the same size so records of a recycled extent sit at the offsets the
+     * records of its new extent are written to.
+     */
+    private static final int RECORD_SIZE = LogHandle.MAX_RECORD_SIZE / 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testTruncatedExtentIsKeptAsSpareAndReused() throws Exception {
+        LogControl logControl = open(true);
+        LogHandle handle = openFile(logControl);
+
+        LogLSN firstOfSecondExtent = writeUntilExtent(handle, 2, 1);
+        handle.truncate(firstOfSecondExtent, LogHandle.TAIL_INCLUSIVE);
+
+        assertFalse(logControl.extentFile(LOG_NAME, 1).exists());
+        assertTrue(logControl.spareFile(LOG_NAME, 0).exists());
+
+        writeUntilExtent(handle, 3, 2);
+
+        assertFalse(logControl.spareFile(LOG_NAME, 0).exists());
+        assertTrue(logControl.extentFile(LOG_NAME, 3).exists());
+
+        handle.closeFile(false);
+    }
+
+    @Test
+    public void testStaleRecordsInRecycledExtentAreIgnoredOnRestart() throws Exception {
+        LogControl logControl = open(true);
+        LogHandle handle = openFile(logControl);
+
+        // Fill the first extent, which holds records written over its whole length when it is recycled.
+
+        LogLSN firstOfSecondExtent = writeUntilExtent(handle, 2, 1);
+        handle.truncate(firstOfSecondExtent, LogHandle.TAIL_INCLUSIVE);
+
+        // The third extent reuses the file of the first, and only two records are written to it.
+
+        LogLSN firstOfThirdExtent = writeUntilExtent(handle, 3, 2);
+        assertEquals(0, firstOfThirdExtent.offset);
+        LogLSN last = handle.writeRecord(record(3), LogFile.NORMAL, LogHandle.FORCE);
+        assertEquals(3, last.extent);
+        LogLSN next = new LogLSN(handle.logControlDescriptor.nextLSN);
+        handle.closeFile(false);
+
+        // On restart the records of the first extent which follow are not taken for records of the third.
+
+        LogControl restarted = open(false);
+        LogHandle reopened = openFile(restarted);
+
+        assertLSN(last, reopened.logControlDescriptor.headLSN);
+        assertLSN(next, reopened.logControlDescriptor.nextLSN);
+        assertArrayEquals(record(3), reopened.readRecord(last, new int[1]));
+
+        LogLSN written = reopened.writeRecord(record(4), LogFile.NORMAL, LogHandle.FORCE);
+        assertLSN(next, written);
+
+        reopened.closeFile(false);
+    }
+
+    private static void assertLSN(LogLSN expected, LogLSN actual) {
+        assertTrue(expected.equals(actual), () -> "expected " + expected + " but was " + actual);
+    }
+
+    private LogControl open(boolean coldStart) {
+        LogControl logControl = new LogControl();
+        logControl.initLog(coldStart, false, directory.toString());
+        return logControl;
+    }
+
+    private static LogHandle openFile(LogControl logControl) throws LogException {
+        return logControl.openFile(LOG_NAME, reason -> { }, null, new boolean[1]);
+    }
+
+    /**
+     * Writes records until one is written to the given extent.
+     *
+     * @return The LSN of the first record in the extent.
+     */
+    private static LogLSN writeUntilExtent(LogHandle handle, int extent, int fill) throws LogException {
+        while (true) {
+            LogLSN lsn = handle.writeRecord(record(fill), LogFile.NORMAL, LogHandle.FORCE);
+            if (lsn.extent == extent) {
+                return lsn;
+            }
+        }
+    }
+
+    private static byte[] record(int fill) {
+        byte[] record = new byte[RECORD_SIZE];
+        Arrays.fill(record, (byte) fill);
+        return record;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LogGroupCommitTest {
+
+    private RecordingLogHandle handle;
+    private LogGroupCommit groupCommit;
+    private ExecutorService writers;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        handle = new RecordingLogHandle();
+        groupCommit = new LogGroupCommit(new LogFile(handle));
+        writers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        handle.releaseForce();
+        groupCommit.close();
+        writers.shutdownNow();
+    }
+
+    @Test
+    public void testWriteReturnsOnlyOnceTheRecordIsForced() throws Exception {
+        byte[] record = { 1 };
+
+        LogLSN lsn = groupCommit.write(record, LogFile.NORMAL);
+
+        assertNotNull(lsn);
+        assertTrue(handle.isForced(record));
+        assertEquals(1, handle.getForceCount());
+    }
+
+    @Test
+    public void testRecordsQueuedDuringAForceShareTheNextForce() throws Exception {
+        handle.blockForce();
+        Future<LogLSN> first = writers.submit(() -> groupCommit.write(new byte[] { 0 }, LogFile.NORMAL));
+        handle.awaitForceStarted();
+
+        List<byte[]> records = new ArrayList<>();
+        List<Future<LogLSN>> queued = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            byte[] record = { (byte) i };
+            records.add(record);
+            queued.add(writers.submit(() -> groupCommit.write(record, LogFile.NORMAL)));
+        }
+
+        // None of them can be written while the first force is in progress.
+
+        awaitWaiting(queued.size() + 1);
+        assertEquals(1, handle.getWriteCount());
+
+        handle.releaseForce();
+        assertNotNull(first.get(10, SECONDS));
+        for (Future<LogLSN> write : queued) {
+            assertNotNull(write.get(10, SECONDS));
+        }
+
+        assertEquals(2, handle.getForceCount());
+        for (byte[] record : records) {
+            assertTrue(handle.isForced(record));
+        }
+    }
+
+    @Test
+    public void testFailedForceFailsEveryWaiterOfTheBatch() throws Exception {
+        handle.blockForce();
+        Future<LogLSN> first = writers.submit(() -> groupCommit.write(new byte[] { 0 }, LogFile.NORMAL));
+        handle.awaitForceStarted();
+
+        List<Future<LogLSN>> queued = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            byte[] record = { (byte) i };
+            queued.add(writers.submit(() -> groupCommit.write(record, LogFile.NORMAL)));
+        }
+        awaitWaiting(queued.size() + 1);
+
+        handle.failForce = true;
+        handle.releaseForce();
+
+        queued.add(first);
+        for (Future<LogLSN> write : queued) {
+            Exception e = assertThrows(Exception.class, () -> write.get(10, SECONDS));
+            assertTrue(e.getCause() instanceof LogException, e.toString());
+            assertEquals(LogException.LOG_ERROR_FORCING_LOG, ((LogException) e.getCause()).errorCode);
+        }
+
+        // The flusher carries on with later records.
+
+        handle.failForce = false;
+        byte[] record = { 42 };
+        assertNotNull(groupCommit.write(record, LogFile.NORMAL));
+        assertTrue(handle.isForced(record));
+    }
+
+    @Test
+    public void testCloseWritesQueuedRecordsAndRejectsNewOnes() throws Exception {
+        handle.blockForce();
+        Future<LogLSN> first = writers.submit(() -> groupCommit.write(new byte[] { 0 }, LogFile.NORMAL));
+        handle.awaitForceStarted();
+        byte[] record = { 1 };
+        Future<LogLSN> queued = writers.submit(() -> groupCommit.write(record, LogFile.NORMAL));
+        awaitWaiting(2);
+
+        Future<?> close = writers.submit(groupCommit::close);
+        handle.releaseForce();
+        close.get(10, SECONDS);
+
+        assertNotNull(first.get(10, SECONDS));
+        assertNotNull(queued.get(10, SECONDS));
+        assertTrue(handle.isForced(record));
+        assertNull(groupCommit.write(new byte[] { 2 }, LogFile.NORMAL));
+    }
+
+    /**
+     * Waits until the given number of writer threads, including one whose record is being forced, are waiting.
+     */
+    private void awaitWaiting(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (handle.countWaitingWriters() < count) {
+            assertTrue(System.nanoTime() < deadline, "The writers did not queue their records");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A log handle which keeps the records in memory, and whose forces can be held or made to fail.
+     */
+    static class RecordingLogHandle extends LogHandle {
+        private final List<byte[]> buffered = new ArrayList<>();
+        private final List<byte[]> forced = new ArrayList<>();
+        private int forceCount;
+        private int writeCount;
+        private volatile CountDownLatch forceBlock;
+        private final CountDownLatch forceStarted = new CountDownLatch(1);
+        volatile boolean failForce;
+
+        RecordingLogHandle() throws LogException {
+            super(null, "test", null, null);
+        }
+
+        @Override
+        synchronized LogLSN writeRecord(byte[] record, int recordType, int writeMode) {
+            writeCount++;
+            buffered.add(record);
+            return new LogLSN(1, writeCount);
+        }
+
+        @Override
+        void force() throws LogException {
+            forceStarted.countDown();
+            CountDownLatch block = forceBlock;
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            synchronized (this) {
+                forceCount++;
+                if (failForce) {
+                    buffered.clear();
+                    throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14, "jts.log_file_sync_failed", null);
+                }
+                forced.addAll(buffered);
+                buffered.clear();
+            }
+        }
+
+        void blockForce() {
+            forceBlock = new CountDownLatch(1);
+        }
+
+        void awaitForceStarted() throws InterruptedException {
+            assertTrue(forceStarted.await(10, SECONDS));
+        }
+
+        void releaseForce() {
+            CountDownLatch block = forceBlock;
+            forceBlock = null;
+            if (block != null) {
+                block.countDown();
+            }
+        }
+
+        synchronized boolean isForced(byte[] record) {
+            return forced.contains(record);
+        }
+
+        synchronized int getForceCount() {
+            return forceCount;
+        }
+
+        synchronized int getWriteCount() {
+            return writeCount;
+        }
+
+        /**
+         * Counts the threads waiting in LogGroupCommit.write for their record to be forced.
+         */
+        int countWaitingWriters() {
+            int count = 0;
+            for (StackTraceElement[] stack : Thread.getAllStackTraces().values()) {
+                for (StackTraceElement frame : stack) {
+                    if (frame.getClassName().equals(LogGroupCommit.class.getName() + "$Request") && frame.getMethodName().equals("await")) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
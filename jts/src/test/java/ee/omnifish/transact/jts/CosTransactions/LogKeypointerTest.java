@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class LogKeypointerTest {
+
+    private final CoordinatorLogStateHolder logStateHolder = new CoordinatorLogStateHolder();
+    private final Semaphore keypointsTaken = new Semaphore(0);
+    private final AtomicInteger keypoints = new AtomicInteger();
+    private volatile CountDownLatch keypointBlock;
+    private volatile Thread keypointThread;
+    private final CountDownLatch keypointStarted = new CountDownLatch(1);
+    private LogKeypointer keypointer;
+
+    @AfterEach
+    public void tearDown() {
+        if (keypointBlock != null) {
+            keypointBlock.countDown();
+        }
+        if (keypointer != null) {
+            keypointer.close();
+        }
+        setProperty(Configuration.KEYPOINT_INTERVAL, "0");
+        setProperty(Configuration.KEYPOINT_LOG_SIZE, "0");
+    }
+
+    @Test
+    public void testRequestedKeypointIsTakenByTheKeypointThread() throws Exception {
+        keypointer = keypointer();
+
+        keypointer.request();
+
+        assertTrue(keypointsTaken.tryAcquire(10, SECONDS));
+        assertEquals(1, keypoints.get());
+        assertEquals("JTS Keypoint Thread", keypointThread.getName());
+        assertTrue(keypointThread.isDaemon());
+    }
+
+    @Test
+    public void testRequestsDuringKeypointAreCoalesced() throws Exception {
+        keypointer = keypointer();
+        keypointBlock = new CountDownLatch(1);
+        keypointer.request();
+        assertTrue(keypointStarted.await(10, SECONDS));
+
+        for (int i = 0; i < 100; i++) {
+            keypointer.request();
+        }
+        keypointBlock.countDown();
+
+        assertTrue(keypointsTaken.tryAcquire(2, 10, SECONDS));
+        assertFalse(keypointsTaken.tryAcquire(200, MILLISECONDS));
+        assertEquals(2, keypoints.get());
+    }
+
+    @Test
+    public void testFailedKeypointDoesNotStopTheThread() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        keypointer = new LogKeypointer(logStateHolder, null, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Keypoint failed");
+            }
+            keypointsTaken.release();
+        });
+
+        keypointer.request();
+        awaitCondition(() -> attempts.get() == 1);
+        keypointer.request();
+
+        assertTrue(keypointsTaken.tryAcquire(10, SECONDS));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testCloseWaitsForKeypointInProgress() throws Exception {
+        keypointer = keypointer();
+        keypointBlock = new CountDownLatch(1);
+        keypointer.request();
+        assertTrue(keypointStarted.await(10, SECONDS));
+
+        Thread closing = new Thread(keypointer::close);
+        closing.start();
+        closing.join(200);
+        assertTrue(closing.isAlive());
+
+        keypointBlock.countDown();
+        closing.join(10_000);
+        assertFalse(closing.isAlive());
+        assertFalse(keypointThread.isAlive());
+
+        // Later requests are ignored.
+
+        keypointer.request();
+        assertFalse(keypointsTaken.tryAcquire(2, 200, MILLISECONDS));
+        assertEquals(1, keypoints.get());
+    }
+
+    @Test
+    public void testKeypointIsTakenWhenIntervalHasPassedAfterWrites() throws Exception {
+        setProperty(Configuration.KEYPOINT_INTERVAL, "1");
+        keypointer = keypointer();
+        logStateHolder.tranCount = 1;
+
+        keypointer.request();
+        assertTrue(keypointsTaken.tryAcquire(10, SECONDS));
+
+        // Without a request, the next keypoint is taken once the interval has passed.
+
+        assertTrue(keypointsTaken.tryAcquire(10, SECONDS));
+
+        // Without writes, no keypoint is taken.
+
+        logStateHolder.tranCount = 0;
+        keypointsTaken.drainPermits();
+        assertFalse(keypointsTaken.tryAcquire(2500, MILLISECONDS));
+    }
+
+    @Test
+    public void testLogSizeTrigger() throws Exception {
+        SizedLogHandle handle = new SizedLogHandle();
+        LogFile logFile = new LogFile(handle);
+
+        assertFalse(keypointer().isLogSizeExceeded(logFile));
+
+        setProperty(Configuration.KEYPOINT_LOG_SIZE, "1000");
+        LogKeypointer sized = keypointer();
+        handle.size = 999;
+        assertFalse(sized.isLogSizeExceeded(logFile));
+        handle.size = 1000;
+        assertTrue(sized.isLogSizeExceeded(logFile));
+        assertFalse(sized.isLogSizeExceeded(null));
+    }
+
+    @Test
+    public void testKeypointStatistics() {
+        keypointer = keypointer();
+
+        keypointer.keypointCompleted(MILLISECONDS.toNanos(5), 100);
+        keypointer.keypointCompleted(MILLISECONDS.toNanos(20), -1);
+        keypointer.keypointCompleted(MILLISECONDS.toNanos(10), 50);
+
+        assertEquals(3, keypointer.getKeypointCount());
+        assertEquals(10, keypointer.getLastKeypointDuration());
+        assertEquals(20, keypointer.getMaxKeypointDuration());
+        assertEquals(35, keypointer.getTotalKeypointDuration());
+        assertEquals(150, keypointer.getBytesReclaimed());
+    }
+
+    private LogKeypointer keypointer() {
+        return new LogKeypointer(logStateHolder, null, () -> {
+            keypoints.incrementAndGet();
+            keypointThread = Thread.currentThread();
+            keypointStarted.countDown();
+            CountDownLatch block = keypointBlock;
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            keypointsTaken.release();
+        });
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void setProperty(String name, String value) {
+        Properties properties = new Properties();
+        properties.setProperty(name, value);
+        Configuration.setProperties(properties);
+    }
+
+    static class SizedLogHandle extends LogHandle {
+        volatile long size;
+
+        SizedLogHandle() throws LogException {
+            super(null, "test", null, null);
+        }
+
+        @Override
+        long getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class LogReplayTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @AfterEach
+    public void tearDown() {
+        setReconstructThreads(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void testRecordsArePassedInOrderOnTheCallingThread() throws Exception {
+        ReplayedLogFile logFile = new ReplayedLogFile(3 * LogReplay.READ_AHEAD);
+        List<Integer> replayed = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        boolean read = LogReplay.read(logFile, record -> {
+            assertSame(caller, Thread.currentThread());
+            replayed.add(ReplayedLogFile.number(record));
+        });
+
+        assertTrue(read);
+        assertEquals(logFile.count, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(i, replayed.get(i));
+        }
+        assertFalse(logFile.readerThread.isAlive());
+    }
+
+    @Test
+    public void testReaderStaysAtMostReadAheadRecordsAhead() throws Exception {
+        ReplayedLogFile logFile = new ReplayedLogFile(3 * LogReplay.READ_AHEAD);
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+
+        LogReplay.read(logFile, record -> {
+            if (consumed.get() == 0) {
+
+                // Give the reader time to fill the queue.
+
+                awaitReaderBlocked(logFile);
+            }
+            maxAhead.accumulateAndGet(logFile.produced.get() - consumed.incrementAndGet(), Math::max);
+        });
+
+        // The queue holds READ_AHEAD records, and the reader may hold one more it cannot put.
+
+        assertTrue(maxAhead.get() <= LogReplay.READ_AHEAD + 1, "Read ahead " + maxAhead.get());
+        assertTrue(maxAhead.get() >= LogReplay.READ_AHEAD - 1, "Read ahead " + maxAhead.get());
+    }
+
+    @Test
+    public void testLogWhichCannotBeReadCompletely() {
+        ReplayedLogFile logFile = new ReplayedLogFile(10);
+        logFile.result = false;
+        List<byte[]> replayed = new ArrayList<>();
+
+        assertFalse(LogReplay.read(logFile, replayed::add));
+        assertEquals(10, replayed.size());
+    }
+
+    @Test
+    public void testReadFailureIsThrownToTheCaller() {
+        ReplayedLogFile logFile = new ReplayedLogFile(10);
+        logFile.failure = new IllegalStateException("Read failed");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> LogReplay.read(logFile, record -> { }));
+        assertSame(logFile.failure, e);
+    }
+
+    @Test
+    public void testConsumerFailureCancelsTheReader() {
+        ReplayedLogFile logFile = new ReplayedLogFile(100 * LogReplay.READ_AHEAD);
+        IllegalStateException failure = new IllegalStateException("Consumer failed");
+        AtomicInteger consumed = new AtomicInteger();
+
+        IllegalStateException e = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(IllegalStateException.class, () -> LogReplay.read(logFile, record -> {
+            if (consumed.incrementAndGet() == 1) {
+                awaitReaderBlocked(logFile);
+                throw failure;
+            }
+        })));
+
+        assertSame(failure, e);
+        assertEquals(1, consumed.get());
+        assertFalse(logFile.readerThread.isAlive());
+
+        // The reader stopped after the records it had queued, the one it was waiting to queue and the next one.
+
+        assertTrue(logFile.produced.get() <= LogReplay.READ_AHEAD + 3, "Read " + logFile.produced.get());
+    }
+
+    @Test
+    public void testConsumerFailureDoesNotInterruptARead() {
+        ReplayedLogFile logFile = new ReplayedLogFile(100 * LogReplay.READ_AHEAD);
+        logFile.readNanos = 100_000;
+
+        assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(IllegalStateException.class, () -> LogReplay.read(logFile, record -> {
+            throw new IllegalStateException("Consumer failed");
+        })));
+
+        // An interrupt during a read of the log file would close its channel.
+
+        assertFalse(logFile.readerThread.isAlive());
+        assertFalse(logFile.readInterrupted);
+    }
+
+    @Test
+    public void testConsumerFailureOnTheLastRecord() {
+        ReplayedLogFile logFile = new ReplayedLogFile(5);
+        AtomicInteger consumed = new AtomicInteger();
+
+        assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(IllegalStateException.class, () -> LogReplay.read(logFile, record -> {
+            if (consumed.incrementAndGet() == 5) {
+                throw new IllegalStateException("Consumer failed");
+            }
+        })));
+
+        assertFalse(logFile.readerThread.isAlive());
+    }
+
+    @Test
+    public void testSmallRecoveryIsReconstructedOnTheCallingThread() {
+        setReconstructThreads(4);
+        List<CoordinatorLog> logs = coordinatorLogs(10);
+        Thread caller = Thread.currentThread();
+        List<CoordinatorLog> reconstructed = new ArrayList<>();
+
+        assertTrue(LogReplay.reconstruct(Collections.enumeration(logs), log -> {
+            assertSame(caller, Thread.currentThread());
+            reconstructed.add(log);
+        }));
+
+        assertEquals(logs, reconstructed);
+        assertFalse(LogReplay.reconstruct(Collections.emptyEnumeration(), log -> { }));
+    }
+
+    @Test
+    public void testTransactionsAreReconstructedInParallelOnce() {
+        setReconstructThreads(4);
+        List<CoordinatorLog> logs = coordinatorLogs(1000);
+        Map<CoordinatorLog, AtomicInteger> reconstructions = new ConcurrentHashMap<>();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch parallel = new CountDownLatch(2);
+
+        assertTrue(LogReplay.reconstruct(Collections.enumeration(logs), log -> {
+            reconstructions.computeIfAbsent(log, l -> new AtomicInteger()).incrementAndGet();
+            if (threads.add(Thread.currentThread())) {
+                parallel.countDown();
+                await(parallel);
+            }
+        }));
+
+        assertEquals(logs.size(), reconstructions.size());
+        assertTrue(reconstructions.values().stream().allMatch(count -> count.get() == 1));
+        assertTrue(threads.size() >= 2);
+        assertTrue(threads.stream().allMatch(thread -> thread.getName().startsWith("JTS Recovery Reconstruct Thread")));
+    }
+
+    @Test
+    public void testReconstructionFailureStopsTheRemainingTransactions() {
+        setReconstructThreads(4);
+        List<CoordinatorLog> logs = coordinatorLogs(1000);
+        IllegalStateException failure = new IllegalStateException("Reconstruction failed");
+        AtomicInteger reconstructed = new AtomicInteger();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> LogReplay.reconstruct(Collections.enumeration(logs), log -> {
+            if (log == logs.get(0)) {
+                throw failure;
+            }
+            reconstructed.incrementAndGet();
+        }));
+
+        assertSame(failure, e);
+        assertTrue(reconstructed.get() < logs.size() - 1, "Reconstructed " + reconstructed.get());
+    }
+
+    private static List<CoordinatorLog> coordinatorLogs(int count) {
+        List<CoordinatorLog> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            logs.add(new CoordinatorLog());
+        }
+        return logs;
+    }
+
+    private static void setReconstructThreads(int threads) {
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.RECOVERY_RECONSTRUCT_THREADS, Integer.toString(threads));
+        Configuration.setProperties(properties);
+    }
+
+    private static void awaitReaderBlocked(ReplayedLogFile logFile) {
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (logFile.produced.get() <= LogReplay.READ_AHEAD) {
+            assertTrue(System.nanoTime() < deadline, "The reader did not fill the queue");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, SECONDS));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * A log whose records are their own sequence numbers.
+     */
+    static class ReplayedLogFile extends LogFile {
+        final int count;
+        final AtomicInteger produced = new AtomicInteger();
+        volatile boolean result = true;
+        volatile RuntimeException failure;
+        volatile long readNanos;
+        volatile Thread readerThread;
+        volatile boolean readInterrupted;
+
+        ReplayedLogFile(int count) {
+            super(null);
+            this.count = count;
+        }
+
+        @Override
+        boolean readLogRecords(Consumer<byte[]> consumer) {
+            readerThread = Thread.currentThread();
+            for (int i = 0; i < count; i++) {
+                read();
+                produced.incrementAndGet();
+                consumer.accept(new byte[] { (byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i });
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+
+        /**
+         * Takes as long as reading a record from the file, noting whether the reader is interrupted meanwhile.
+         */
+        private void read() {
+            long end = System.nanoTime() + readNanos;
+            while (System.nanoTime() < end) {
+                if (Thread.currentThread().isInterrupted()) {
+                    readInterrupted = true;
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        static int number(byte[] record) {
+            return (record[0] & 0xFF) << 24 | (record[1] & 0xFF) << 16 | (record[2] & 0xFF) << 8 | record[3] & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.FutureTask;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
+import ee.omnifish.transact.jta.transaction.JavaEETransactionManagerImpl;
+import ee.omnifish.transact.jts.JavaEETransactionManagerJTSDelegate;
+import ee.omnifish.transact.jts.TestResourceHandle;
+
+import jakarta.transaction.HeuristicMixedException;
+import jakarta.transaction.HeuristicRollbackException;
+import jakarta.transaction.RollbackException;
+import jakarta.transaction.Transaction;
+
+/**
+ * Tests the parallel two phase commit mode of RegisteredResources and the ResourceCallExecutor behind it.
+ */
+public class ParallelCompletionTest {
+
+    private static final int POOL_THREADS = 4;
+
+    private JavaEETransactionManagerImpl txManager;
+
+    @BeforeEach
+    public void setUp() {
+        setParallelCompletion(true);
+
+        txManager = new JavaEETransactionManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerJTSDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        setParallelCompletion(false);
+    }
+
+    @Test
+    public void testParticipantsArePreparedAndCommittedInParallel() throws Exception {
+        CyclicBarrier prepared = new CyclicBarrier(3);
+        CyclicBarrier committed = new CyclicBarrier(3);
+        List<ParticipantResource> resources = newResources(3);
+        for (ParticipantResource resource : resources) {
+            resource.prepareBarrier = prepared;
+            resource.commitBarrier = committed;
+        }
+
+        Transaction tx = begin(resources);
+        tx.commit();
+
+        // Each call waits until all three are in progress, so they cannot have run one after the other.
+
+        for (ParticipantResource resource : resources) {
+            assertEquals(1, resource.prepareCount);
+            assertEquals(1, resource.commitCount);
+            assertEquals(0, resource.rollbackCount);
+        }
+    }
+
+    @Test
+    public void testReadOnlyVoteIsNotCommitted() throws Exception {
+        List<ParticipantResource> resources = newResources(3);
+        resources.get(1).vote = XAResource.XA_RDONLY;
+
+        Transaction tx = begin(resources);
+        tx.commit();
+
+        assertEquals(1, resources.get(0).commitCount);
+        assertEquals(0, resources.get(1).commitCount);
+        assertEquals(1, resources.get(2).commitCount);
+        for (ParticipantResource resource : resources) {
+            assertEquals(1, resource.prepareCount);
+            assertEquals(0, resource.rollbackCount);
+        }
+    }
+
+    @Test
+    public void testAllReadOnlyVotesCompleteTheTransaction() throws Exception {
+        List<ParticipantResource> resources = newResources(3);
+        for (ParticipantResource resource : resources) {
+            resource.vote = XAResource.XA_RDONLY;
+        }
+
+        Transaction tx = begin(resources);
+        tx.commit();
+
+        for (ParticipantResource resource : resources) {
+            assertEquals(0, resource.commitCount);
+            assertEquals(0, resource.rollbackCount);
+        }
+    }
+
+    @Test
+    public void testRollbackVoteRollsBackTheOtherParticipants() throws Exception {
+        List<ParticipantResource> resources = newResources(3);
+        resources.get(1).prepareErrorCode = XAException.XA_RBROLLBACK;
+
+        Transaction tx = begin(resources);
+        assertThrows(RollbackException.class, tx::commit);
+
+        for (ParticipantResource resource : resources) {
+            assertEquals(0, resource.commitCount);
+        }
+        assertEquals(1, resources.get(0).rollbackCount);
+        assertEquals(1, resources.get(2).rollbackCount);
+    }
+
+    @Test
+    public void testHeuristicRollbacksOfAllParticipantsAreReported() throws Exception {
+        List<ParticipantResource> resources = newResources(3);
+        for (ParticipantResource resource : resources) {
+            resource.commitErrorCode = XAException.XA_HEURRB;
+        }
+
+        begin(resources);
+        assertThrows(HeuristicRollbackException.class, txManager::commit);
+
+        for (ParticipantResource resource : resources) {
+            assertEquals(1, resource.forgetCount);
+        }
+    }
+
+    @Test
+    public void testMixedHeuristicOutcomesAreCollected() throws Exception {
+        List<ParticipantResource> resources = newResources(3);
+        resources.get(0).commitErrorCode = XAException.XA_HEURRB;
+        resources.get(2).commitErrorCode = XAException.XA_HEURCOM;
+
+        begin(resources);
+        assertThrows(HeuristicMixedException.class, txManager::commit);
+
+        assertEquals(1, resources.get(0).forgetCount);
+        assertEquals(1, resources.get(1).commitCount);
+        assertEquals(1, resources.get(2).forgetCount);
+    }
+
+    @Test
+    public void testParticipantsAreRolledBackInParallel() throws Exception {
+        CyclicBarrier rolledBack = new CyclicBarrier(3);
+        List<ParticipantResource> resources = newResources(3);
+        for (ParticipantResource resource : resources) {
+            resource.rollbackBarrier = rolledBack;
+        }
+
+        Transaction tx = begin(resources);
+        tx.rollback();
+
+        for (ParticipantResource resource : resources) {
+            assertEquals(0, resource.prepareCount);
+            assertEquals(1, resource.rollbackCount);
+        }
+    }
+
+    @Test
+    public void testWaitingCallerRunsNestedCallsWhenThePoolIsSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(POOL_THREADS);
+        CountDownLatch release = new CountDownLatch(1);
+        List<FutureTask<Boolean>> blockers = new ArrayList<>();
+        for (int i = 0; i < POOL_THREADS; i++) {
+            blockers.add(ResourceCallExecutor.submit(() -> {
+                started.countDown();
+                return release.await(30, SECONDS);
+            }));
+        }
+        assertTrue(started.await(10, SECONDS));
+
+        try {
+            // A subordinate coordinator distributes to its own participants from inside a call. No pool
+            // thread is free, so the waiting threads must run the calls themselves.
+
+            Thread caller = Thread.currentThread();
+            FutureTask<Integer> subordinate = ResourceCallExecutor.submit(() -> {
+                List<FutureTask<Thread>> participants = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    participants.add(ResourceCallExecutor.submit(Thread::currentThread));
+                }
+                int count = 0;
+                for (FutureTask<Thread> participant : participants) {
+                    assertSame(caller, ResourceCallExecutor.await(participant));
+                    count++;
+                }
+                return count;
+            });
+
+            assertEquals(3, ResourceCallExecutor.await(subordinate));
+        } finally {
+            release.countDown();
+        }
+
+        for (FutureTask<Boolean> blocker : blockers) {
+            assertTrue(blocker.get(10, SECONDS));
+        }
+    }
+
+    @Test
+    public void testCallWhichDoesNotFitInTheQueueIsRunByTheWaitingCaller() throws Exception {
+        CountDownLatch started = new CountDownLatch(POOL_THREADS);
+        CountDownLatch release = new CountDownLatch(1);
+        List<FutureTask<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < POOL_THREADS; i++) {
+            calls.add(ResourceCallExecutor.submit(() -> {
+                started.countDown();
+                return release.await(30, SECONDS);
+            }));
+        }
+        assertTrue(started.await(10, SECONDS));
+
+        FutureTask<Thread> overflow;
+        try {
+            for (int i = 0; i < ResourceCallExecutor.QUEUE_CAPACITY; i++) {
+                calls.add(ResourceCallExecutor.submit(() -> true));
+            }
+            overflow = ResourceCallExecutor.submit(Thread::currentThread);
+        } finally {
+            release.countDown();
+        }
+
+        for (FutureTask<Boolean> call : calls) {
+            assertTrue(call.get(10, SECONDS));
+        }
+
+        // The pool has run every queued call, but the one which did not fit was left to the caller.
+
+        assertFalse(overflow.isDone());
+        assertSame(Thread.currentThread(), ResourceCallExecutor.await(overflow));
+    }
+
+    @Test
+    public void testCallRunsWithTheContextClassLoaderOfTheCaller() throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        try (URLClassLoader callerLoader = new URLClassLoader(new URL[0], original)) {
+            thread.setContextClassLoader(callerLoader);
+            FutureTask<ClassLoader> call = ResourceCallExecutor.submit(() -> Thread.currentThread().getContextClassLoader());
+            thread.setContextClassLoader(original);
+
+            // Wait without running the call on this thread.
+
+            assertSame(callerLoader, call.get(10, SECONDS));
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    private Transaction begin(List<ParticipantResource> resources) throws Exception {
+        txManager.begin();
+        Transaction tx = txManager.getTransaction();
+        for (ParticipantResource resource : resources) {
+            TestResourceHandle handle = new TestResourceHandle(resource);
+            txManager.enlistResource(tx, handle);
+            txManager.delistResource(tx, handle, XAResource.TMSUCCESS);
+        }
+
+        return tx;
+    }
+
+    private static List<ParticipantResource> newResources(int count) {
+        List<ParticipantResource> resources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            resources.add(new ParticipantResource());
+        }
+
+        return resources;
+    }
+
+    private static void setParallelCompletion(boolean enabled) {
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.PARALLEL_COMPLETION, Boolean.toString(enabled));
+        properties.setProperty(Configuration.PARALLEL_COMPLETION_THREADS, Integer.toString(POOL_THREADS));
+        Configuration.setProperties(properties);
+        assertEquals(enabled, ResourceCallExecutor.isEnabled());
+    }
+
+    /**
+     * An XAResource of its own resource manager, which votes and completes as it is told to.
+     */
+    static class ParticipantResource implements XAResource {
+        int vote = XA_OK;
+        int prepareErrorCode;
+        int commitErrorCode;
+        CyclicBarrier prepareBarrier;
+        CyclicBarrier commitBarrier;
+        CyclicBarrier rollbackBarrier;
+
+        volatile int prepareCount;
+        volatile int commitCount;
+        volatile int rollbackCount;
+        volatile int forgetCount;
+
+        @Override
+        public int prepare(Xid xid) throws XAException {
+            prepareCount++;
+            await(prepareBarrier);
+            if (prepareErrorCode != 0) {
+                throw new XAException(prepareErrorCode);
+            }
+            return vote;
+        }
+
+        @Override
+        public void commit(Xid xid, boolean onePhase) throws XAException {
+            commitCount++;
+            await(commitBarrier);
+            if (commitErrorCode != 0) {
+                throw new XAException(commitErrorCode);
+            }
+        }
+
+        @Override
+        public void rollback(Xid xid) throws XAException {
+            rollbackCount++;
+            await(rollbackBarrier);
+        }
+
+        @Override
+        public void forget(Xid xid) {
+            forgetCount++;
+        }
+
+        @Override
+        public boolean isSameRM(XAResource xaResource) {
+            return xaResource == this;
+        }
+
+        @Override
+        public void start(Xid xid, int flags) {
+        }
+
+        @Override
+        public void end(Xid xid, int flags) {
+        }
+
+        @Override
+        public Xid[] recover(int flag) {
+            return new Xid[0];
+        }
+
+        @Override
+        public int getTransactionTimeout() {
+            return 0;
+        }
+
+        @Override
+        public boolean setTransactionTimeout(int seconds) {
+            return false;
+        }
+
+        private static void await(CyclicBarrier barrier) throws XAException {
+            if (barrier == null) {
+                return;
+            }
+            try {
+                barrier.await(10, SECONDS);
+            } catch (Exception e) {
+                throw (XAException) new XAException(XAException.XAER_RMERR).initCause(e);
+            }
+        }
+    }
+}
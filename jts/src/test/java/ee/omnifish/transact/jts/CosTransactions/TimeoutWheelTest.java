@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TimeoutWheelTest {
+
+    private long now;
+    private TimeoutWheel wheel;
+
+    @BeforeEach
+    public void setUp() {
+        now = 1_000_000_007L;
+        wheel = new TimeoutWheel(() -> now);
+    }
+
+    @Test
+    public void testTimeoutExpiresAtItsDeadline() {
+        TimeoutInfo timeout = newTimeout(1);
+        wheel.add(timeout, 5);
+
+        advanceSeconds(4);
+        assertNull(wheel.expire());
+
+        now += SECONDS.toNanos(1) - 1;
+        assertNull(wheel.expire());
+
+        now += 1;
+        assertEquals(List.of(timeout), wheel.expire());
+    }
+
+    @Test
+    public void testTimeoutLongerThanTheWheelSurvivesEarlierTurns() {
+        int seconds = 2 * TimeoutWheel.WHEEL_SIZE + 10;
+        TimeoutInfo timeout = newTimeout(1);
+        wheel.add(timeout, seconds);
+
+        // Its bucket is visited every turn of the wheel before the deadline is reached.
+
+        for (int second = 1; second < seconds; second++) {
+            advanceSeconds(1);
+            assertNull(wheel.expire(), "Expired after " + second + " seconds");
+        }
+
+        advanceSeconds(1);
+        assertEquals(List.of(timeout), wheel.expire());
+    }
+
+    @Test
+    public void testTimeoutArmedAfterTheWheelHasWrapped() {
+        advanceSeconds(TimeoutWheel.WHEEL_SIZE + 100);
+        assertNull(wheel.expire());
+
+        TimeoutInfo timeout = newTimeout(1);
+        wheel.add(timeout, 10);
+
+        advanceSeconds(9);
+        assertNull(wheel.expire());
+
+        advanceSeconds(1);
+        assertEquals(List.of(timeout), wheel.expire());
+    }
+
+    @Test
+    public void testCheckAfterMoreThanOneTurnFindsEveryExpiredTimeout() {
+        TimeoutInfo early = newTimeout(1);
+        TimeoutInfo late = newTimeout(2);
+        TimeoutInfo notYet = newTimeout(3);
+        wheel.add(early, 3);
+        wheel.add(late, TimeoutWheel.WHEEL_SIZE + 3);
+        wheel.add(notYet, 5 * TimeoutWheel.WHEEL_SIZE);
+
+        advanceSeconds(3 * TimeoutWheel.WHEEL_SIZE);
+
+        List<TimeoutInfo> expired = wheel.expire();
+        assertEquals(2, expired.size());
+        assertTrue(expired.contains(early));
+        assertTrue(expired.contains(late));
+    }
+
+    @Test
+    public void testExpiredTimeoutIsReportedUntilCancelled() {
+        TimeoutInfo timeout = newTimeout(1);
+        wheel.add(timeout, 1);
+
+        advanceSeconds(1);
+        assertEquals(List.of(timeout), wheel.expire());
+        assertEquals(List.of(timeout), wheel.expire());
+
+        advanceSeconds(TimeoutWheel.WHEEL_SIZE);
+        assertEquals(List.of(timeout), wheel.expire());
+        assertEquals(1, wheel.size());
+
+        assertTrue(wheel.remove(timeout));
+        assertNull(wheel.expire());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancelledTimeoutNeverExpires() {
+        TimeoutInfo cancelled = newTimeout(1);
+        TimeoutInfo kept = newTimeout(2);
+        wheel.add(cancelled, 2);
+        wheel.add(kept, 2);
+
+        assertTrue(wheel.remove(cancelled));
+        assertFalse(wheel.remove(cancelled));
+        assertEquals(-1, cancelled.bucket);
+        assertEquals(1, wheel.size());
+
+        advanceSeconds(2);
+        assertEquals(List.of(kept), wheel.expire());
+    }
+
+    @Test
+    public void testCancelledTimeoutCanBeArmedAgain() {
+        TimeoutInfo timeout = newTimeout(1);
+        wheel.add(timeout, 1);
+        advanceSeconds(1);
+        assertEquals(List.of(timeout), wheel.expire());
+        wheel.remove(timeout);
+
+        wheel.add(timeout, 3);
+        advanceSeconds(2);
+        assertNull(wheel.expire());
+        advanceSeconds(1);
+        assertEquals(List.of(timeout), wheel.expire());
+    }
+
+    @Test
+    public void testClearDiscardsArmedAndExpiredTimeouts() {
+        TimeoutInfo expired = newTimeout(1);
+        TimeoutInfo armed = newTimeout(2);
+        wheel.add(expired, 1);
+        wheel.add(armed, 100);
+        advanceSeconds(1);
+        wheel.expire();
+
+        wheel.clear();
+
+        assertEquals(0, wheel.size());
+        assertEquals(-1, expired.bucket);
+        assertEquals(-1, armed.bucket);
+        advanceSeconds(100);
+        assertNull(wheel.expire());
+    }
+
+    private void advanceSeconds(long seconds) {
+        now += SECONDS.toNanos(seconds);
+    }
+
+    private static TimeoutInfo newTimeout(long localTID) {
+        TimeoutInfo timeout = new TimeoutInfo();
+        timeout.localTID = localTID;
+        timeout.timeoutType = TimeoutManager.ACTIVE_TIMEOUT;
+        return timeout;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.CosTransactions;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.omg.CORBA.BAD_PARAM;
+import org.omg.CORBA.TRANSIENT;
+
+import ee.omnifish.transact.jts.CosTransactions.XARecoveryEngine.InDoubtBranch;
+
+public class XARecoveryEngineTest {
+
+    private static final String SERVER = "server1";
+
+    @AfterEach
+    public void tearDown() {
+        setThreadsPerResource(1);
+    }
+
+    @Test
+    public void testUniqueRMsKeepOneResourcePerResourceManager() {
+        Object first = new Object();
+        Object second = new Object();
+        RecoveryResource a = new RecoveryResource(first);
+        RecoveryResource b = new RecoveryResource(first);
+        RecoveryResource c = new RecoveryResource(second);
+
+        List<XAResource> unique = XARecoveryEngine.getUniqueRMs(Collections.enumeration(List.of(a, a, b, c)));
+
+        assertEquals(List.of(a, c), unique);
+    }
+
+    @Test
+    public void testUniqueRMsKeepResourceWhichCannotBeCompared() {
+        RecoveryResource a = new RecoveryResource(new Object());
+        RecoveryResource failing = new RecoveryResource(new Object());
+        failing.failIsSameRM = true;
+
+        List<XAResource> unique = XARecoveryEngine.getUniqueRMs(Collections.enumeration(List.of(a, failing)));
+
+        assertEquals(List.of(a, failing), unique);
+    }
+
+    @Test
+    public void testResourcesAreScannedInParallel() {
+        CyclicBarrier scanning = new CyclicBarrier(2);
+        RecoveryResource a = new RecoveryResource(new Object(), xid(1, SERVER));
+        RecoveryResource b = new RecoveryResource(new Object(), xid(2, SERVER));
+        a.scanBarrier = scanning;
+        b.scanBarrier = scanning;
+
+        List<InDoubtBranch> branches = XARecoveryEngine.getInDoubtBranches(List.of(a, b), SERVER);
+
+        assertEquals(2, branches.size());
+        assertEquals(xid(1, SERVER), branches.get(0).xid);
+        assertSame(a, branches.get(0).xaResource);
+        assertEquals(xid(2, SERVER), branches.get(1).xid);
+        assertSame(b, branches.get(1).xaResource);
+    }
+
+    @Test
+    public void testBranchesOfOtherServersAndDuplicatesAreSkipped() {
+        RecoveryResource a = new RecoveryResource(new Object(), xid(1, SERVER), xid(2, "server2"), xid(3, SERVER));
+        RecoveryResource b = new RecoveryResource(new Object(), xid(3, SERVER), xid(4, SERVER));
+        RecoveryResource empty = new RecoveryResource(new Object());
+
+        List<InDoubtBranch> branches = XARecoveryEngine.getInDoubtBranches(List.of(a, b, empty), SERVER);
+
+        List<Xid> xids = new ArrayList<>();
+        for (InDoubtBranch branch : branches) {
+            xids.add(branch.xid);
+        }
+        assertEquals(List.of(xid(1, SERVER), xid(3, SERVER), xid(4, SERVER)), xids);
+        assertSame(a, branches.get(1).xaResource);
+    }
+
+    @Test
+    public void testBranchesOfOneResourceAreCompletedOneAtATime() {
+        CyclicBarrier completing = new CyclicBarrier(2);
+        RecoveryResource a = new RecoveryResource(new Object());
+        RecoveryResource b = new RecoveryResource(new Object());
+        List<InDoubtBranch> branches = branches(a, 4);
+        branches.addAll(branches(b, 4));
+
+        Map<XAResource, AtomicInteger> active = new ConcurrentHashMap<>();
+        Map<XAResource, AtomicInteger> maxActive = new ConcurrentHashMap<>();
+        AtomicInteger completed = new AtomicInteger();
+        XARecoveryEngine.complete(branches, branch -> {
+            int running = active.computeIfAbsent(branch.xaResource, r -> new AtomicInteger()).incrementAndGet();
+            maxActive.computeIfAbsent(branch.xaResource, r -> new AtomicInteger()).accumulateAndGet(running, Math::max);
+
+            // The first branches of both resources are completed at the same time.
+            if (branch.xid.equals(xid(0, SERVER))) {
+                await(completing);
+            }
+
+            active.get(branch.xaResource).decrementAndGet();
+            completed.incrementAndGet();
+        });
+
+        assertEquals(8, completed.get());
+        assertEquals(1, maxActive.get(a).get());
+        assertEquals(1, maxActive.get(b).get());
+    }
+
+    @Test
+    public void testBranchesOfOneResourceAreCompletedByTheConfiguredThreads() {
+        setThreadsPerResource(2);
+        CyclicBarrier completing = new CyclicBarrier(2);
+        RecoveryResource a = new RecoveryResource(new Object());
+        AtomicInteger completed = new AtomicInteger();
+
+        XARecoveryEngine.complete(branches(a, 2), branch -> {
+            await(completing);
+            completed.incrementAndGet();
+        });
+
+        assertEquals(2, completed.get());
+    }
+
+    @Test
+    public void testTransientFailureIsRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        XARecoveryEngine.callWithRetry(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new TRANSIENT();
+            }
+        }, "commit");
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testOtherFailureIsNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        XARecoveryEngine.callWithRetry(() -> {
+            calls.incrementAndGet();
+            throw new BAD_PARAM();
+        }, "commit");
+
+        assertEquals(1, calls.get());
+    }
+
+    private static void setThreadsPerResource(int threads) {
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.RECOVERY_THREADS_PER_RESOURCE, Integer.toString(threads));
+        Configuration.setProperties(properties);
+    }
+
+    private static List<InDoubtBranch> branches(XAResource xaResource, int count) {
+        List<InDoubtBranch> branches = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            branches.add(new InDoubtBranch(xid(i, SERVER), xaResource));
+        }
+        return branches;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError("The calls were not made in parallel", e);
+        }
+    }
+
+    private static Xid xid(int gtrid, String serverName) {
+        return new TestXid(new byte[] { (byte) gtrid }, (serverName + ",P1").getBytes(US_ASCII));
+    }
+
+    /**
+     * An XAResource of the resource manager given to it, which reports the given in-doubt branches in one scan.
+     */
+    static class RecoveryResource implements XAResource {
+        final Object resourceManager;
+        final Xid[] inDoubt;
+        volatile boolean failIsSameRM;
+        volatile CyclicBarrier scanBarrier;
+
+        RecoveryResource(Object resourceManager, Xid... inDoubt) {
+            this.resourceManager = resourceManager;
+            this.inDoubt = inDoubt;
+        }
+
+        @Override
+        public Xid[] recover(int flag) throws XAException {
+            if ((flag & TMSTARTRSCAN) == 0) {
+                return new Xid[0];
+            }
+            if (scanBarrier != null) {
+                await(scanBarrier);
+            }
+            return inDoubt;
+        }
+
+        @Override
+        public boolean isSameRM(XAResource other) throws XAException {
+            if (failIsSameRM) {
+                throw new XAException(XAException.XAER_RMFAIL);
+            }
+            return other instanceof RecoveryResource && ((RecoveryResource) other).resourceManager == resourceManager;
+        }
+
+        @Override
+        public void commit(Xid xid, boolean onePhase) {
+        }
+
+        @Override
+        public void end(Xid xid, int flags) {
+        }
+
+        @Override
+        public void forget(Xid xid) {
+        }
+
+        @Override
+        public int getTransactionTimeout() {
+            return 0;
+        }
+
+        @Override
+        public int prepare(Xid xid) {
+            return XA_OK;
+        }
+
+        @Override
+        public void rollback(Xid xid) {
+        }
+
+        @Override
+        public boolean setTransactionTimeout(int seconds) {
+            return false;
+        }
+
+        @Override
+        public void start(Xid xid, int flags) {
+        }
+    }
+
+    static class TestXid implements Xid {
+        private final byte[] globalTransactionId;
+        private final byte[] branchQualifier;
+
+        TestXid(byte[] globalTransactionId, byte[] branchQualifier) {
+            this.globalTransactionId = globalTransactionId;
+            this.branchQualifier = branchQualifier;
+        }
+
+        @Override
+        public int getFormatId() {
+            return TransactionState.XID_FORMAT_ID;
+        }
+
+        @Override
+        public byte[] getGlobalTransactionId() {
+            return globalTransactionId.clone();
+        }
+
+        @Override
+        public byte[] getBranchQualifier() {
+            return branchQualifier.clone();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TestXid && Arrays.equals(globalTransactionId, ((TestXid) other).globalTransactionId)
+                    && Arrays.equals(branchQualifier, ((TestXid) other).branchQualifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(globalTransactionId) * 31 + Arrays.hashCode(branchQualifier);
+        }
+
+        @Override
+        public String toString() {
+            return "TestXid" + Arrays.toString(globalTransactionId);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import javax.transaction.xa.XAResource;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import ee.omnifish.transact.api.InvocationManager;
 import ee.omnifish.transact.api.impl.InvocationManagerImpl;
 import ee.omnifish.transact.api.spi.JavaEETransactionManagerDelegate;
@@ -55,6 +56,7 @@ import jakarta.transaction.UserTransaction;
 /**
  * Unit test for simple App.
  */
+@ExtendWith(VirtualThreadExtension.class)
 public class JavaEETransactionManagerTest {
 
     private JavaEETransactionManagerImpl txManager;
@@ -268,6 +270,38 @@ public class JavaEETransactionManagerTest {
         assertEquals("NoTransaction", JavaEETransactionManagerImpl.getStatusAsString(txManager.getStatus()));
     }
 
+    @Test
+    public void testFreeze() throws Exception {
+        txManager.freeze();
+        try {
+            assertTrue(txManager.isFrozen(), "Transaction service not frozen");
+
+            Thread committer = new Thread(() -> {
+                try {
+                    txManager.begin();
+                    Transaction tx = txManager.getTransaction();
+                    txManager.enlistResource(tx, new TestResourceHandle(new TestResource(tx)));
+                    txManager.enlistResource(tx, new TestResourceHandle(new TestResource(tx)));
+                    txManager.commit();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            committer.start();
+            committer.join(500);
+            assertTrue(committer.isAlive(), "Commit was not blocked by the freeze");
+
+            txManager.unfreeze();
+            assertFalse(txManager.isFrozen(), "Transaction service still frozen");
+            committer.join(10_000);
+            assertFalse(committer.isAlive(), "Commit was not released by unfreeze");
+        } finally {
+            if (txManager.isFrozen()) {
+                txManager.unfreeze();
+            }
+        }
+    }
+
     @Test
     public void testTxCommit() throws Exception {
         txManager.begin();
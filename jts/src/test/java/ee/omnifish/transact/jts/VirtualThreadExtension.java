@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package ee.omnifish.transact.jts;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+
+/**
+ * Runs each test method on a virtual thread when the {@value #ENABLED_PROPERTY} system property is true, and fails the
+ * test if the virtual thread was pinned to its carrier thread while it was blocked.
+ * <p>
+ * Pinning is detected with the jdk.VirtualThreadPinned event of the flight recorder. The test mode therefore needs a
+ * JDK with virtual threads; since JDK 24 waiting in a monitor no longer pins, so JDK 21 finds the most. The tests are
+ * compiled for Java 11, so the virtual thread is created reflectively. The jdk.jfr module is only added to the tests by
+ * the virtual-threads profile of this module, which is active on JDK 21 or later and enables the test mode, so the flight
+ * recorder is used reflectively as well.
+ */
+public class VirtualThreadExtension implements InvocationInterceptor {
+
+    static final String ENABLED_PROPERTY = "transact.test.virtualThreads";
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Override
+    public void interceptTestMethod(Invocation<Void> invocation, ReflectiveInvocationContext<Method> invocationContext,
+            ExtensionContext extensionContext) throws Throwable {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+            invocation.proceed();
+            return;
+        }
+
+        Throwable[] failure = new Throwable[1];
+        Thread thread = newVirtualThread(() -> {
+            try {
+                invocation.proceed();
+            } catch (Throwable t) {
+                failure[0] = t;
+            }
+        });
+
+        List<String> pinnedEvents;
+        try (PinnedRecording recording = new PinnedRecording()) {
+            thread.start();
+            thread.join();
+
+            pinnedEvents = recording.stop();
+        }
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        if (!pinnedEvents.isEmpty()) {
+            fail("The virtual thread running " + extensionContext.getDisplayName() + " was pinned " + pinnedEvents.size()
+                    + " times:\n" + String.join("\n", pinnedEvents));
+        }
+    }
+
+    private static Thread newVirtualThread(Runnable task) throws Exception {
+        Object builder;
+        try {
+            builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException("Running the tests on virtual threads needs JDK 21 or later", e);
+        }
+        return (Thread) Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class).invoke(builder, task);
+    }
+
+    /**
+     * A flight recording of the {@value #PINNED_EVENT} events, with their stack traces.
+     */
+    private static final class PinnedRecording implements AutoCloseable {
+        private final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        private final Object recording = recordingClass.getConstructor().newInstance();
+
+        PinnedRecording() throws Exception {
+            Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+            Object settings = recordingClass.getMethod("enable", String.class).invoke(recording, PINNED_EVENT);
+            settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ZERO);
+            settingsClass.getMethod("withStackTrace").invoke(settings);
+            recordingClass.getMethod("start").invoke(recording);
+        }
+
+        /**
+         * Stops the recording.
+         *
+         * @return The pinned events that were recorded.
+         */
+        List<String> stop() throws Exception {
+            recordingClass.getMethod("stop").invoke(recording);
+
+            Path file = Files.createTempFile("pinned", ".jfr");
+            try {
+                recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+                Method getEventType = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getEventType");
+                Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+
+                List<String> pinnedEvents = new ArrayList<>();
+                for (Object event : (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class).invoke(null, file)) {
+                    if (getName.invoke(getEventType.invoke(event)).equals(PINNED_EVENT)) {
+                        pinnedEvents.add(event.toString());
+                    }
+                }
+                return pinnedEvents;
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2026 OmniFish and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.omnifish.transact.jts.pi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.jupiter.api.Test;
+import org.omg.CORBA.portable.ObjectImpl;
+
+import ee.omnifish.transact.jts.pi.TargetPolicyCache.TargetPolicy;
+
+public class TargetPolicyCacheTest {
+
+    @Test
+    public void testPolicyIsCachedPerTarget() {
+        TargetPolicyCache cache = new TargetPolicyCache(TargetPolicyCache.DEFAULT_SIZE);
+        org.omg.CORBA.Object target = new Target();
+        TargetPolicy policy = new TargetPolicy((short) 1, false);
+
+        assertNull(cache.get(target));
+        cache.put(target, policy);
+
+        assertSame(policy, cache.get(target));
+        assertSame(policy, cache.get(target));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testTargetsAreComparedByIdentity() {
+        TargetPolicyCache cache = new TargetPolicyCache(TargetPolicyCache.DEFAULT_SIZE);
+        org.omg.CORBA.Object target = new Target();
+        org.omg.CORBA.Object other = new Target(target);
+        TargetPolicy policy = new TargetPolicy((short) 1, true);
+        TargetPolicy otherPolicy = new TargetPolicy((short) 2, false);
+
+        cache.put(target, policy);
+        assertNull(cache.get(other));
+
+        cache.put(other, otherPolicy);
+        assertSame(policy, cache.get(target));
+        assertSame(otherPolicy, cache.get(other));
+    }
+
+    @Test
+    public void testFullCacheIsEmptied() {
+        TargetPolicyCache cache = new TargetPolicyCache(2);
+        org.omg.CORBA.Object first = new Target();
+        org.omg.CORBA.Object second = new Target();
+        org.omg.CORBA.Object third = new Target();
+        TargetPolicy policy = new TargetPolicy((short) 1, false);
+
+        cache.put(first, policy);
+        cache.put(second, policy);
+        cache.put(third, policy);
+
+        assertNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertSame(policy, cache.get(third));
+    }
+
+    @Test
+    public void testCacheDoesNotKeepTargetsReachable() throws InterruptedException {
+        TargetPolicyCache cache = new TargetPolicyCache(TargetPolicyCache.DEFAULT_SIZE);
+        org.omg.CORBA.Object target = new Target();
+        cache.put(target, new TargetPolicy((short) 1, false));
+        WeakReference<org.omg.CORBA.Object> collected = new WeakReference<>(target);
+        target = null;
+
+        for (int i = 0; i < 100 && collected.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(collected.get());
+
+        // A key whose target has been collected matches no other target.
+
+        org.omg.CORBA.Object next = new Target();
+        assertNull(cache.get(next));
+        TargetPolicy policy = new TargetPolicy((short) 2, true);
+        cache.put(next, policy);
+        assertSame(policy, cache.get(next));
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        TargetPolicyCache cache = new TargetPolicyCache(TargetPolicyCache.DEFAULT_SIZE);
+        org.omg.CORBA.Object[] targets = new org.omg.CORBA.Object[64];
+        TargetPolicy[] policies = new TargetPolicy[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = new Target();
+            policies[i] = new TargetPolicy((short) i, false);
+        }
+
+        Thread[] threads = new Thread[8];
+        Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int round = 0; round < 1000; round++) {
+                        for (int i = 0; i < targets.length; i++) {
+                            TargetPolicy policy = cache.get(targets[i]);
+                            if (policy == null) {
+                                cache.put(targets[i], policies[i]);
+                            } else {
+                                assertSame(policies[i], policy);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw new AssertionError(failure[0]);
+            }
+        }
+        assertTrue(cache.getMisses() <= (long) threads.length * targets.length);
+        assertEquals((long) threads.length * targets.length * 1000, cache.getHits() + cache.getMisses());
+    }
+
+    /**
+     * A target without an ORB. A target made from another has the same repository ids, as a second reference to the
+     * same object would, but it is cached separately.
+     */
+    static class Target extends ObjectImpl {
+        private final String[] ids;
+
+        Target() {
+            ids = new String[] { "IDL:Target" + System.identityHashCode(this) + ":1.0" };
+        }
+
+        Target(org.omg.CORBA.Object same) {
+            ids = ((ObjectImpl) same)._ids();
+        }
+
+        @Override
+        public String[] _ids() {
+            return ids;
+        }
+    }
+}